@@ -26,12 +26,16 @@ import com.alibaba.assistant.agent.core.tool.DefaultCodeactToolRegistry;
 import com.alibaba.assistant.agent.core.tool.schema.ReturnSchemaRegistry;
 import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
 import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentService;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceTurn;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.assistant.agent.autoconfigure.subagent.CodeactSubAgentInterceptor;
 import com.alibaba.assistant.agent.autoconfigure.tools.ExecuteCodeTool;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.graph.CompileConfig;
 import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.agent.Builder;
 import com.alibaba.cloud.ai.graph.agent.ReactAgent;
 import com.alibaba.cloud.ai.graph.agent.hook.Hook;
@@ -152,6 +156,20 @@ public class CodeactAgent extends ReactAgent {
 		return executor;
 	}
 
+	/**
+	 * Each call/invoke/stream starts a new turn: tag the config with a turn id so that
+	 * experience hooks share query results within the turn only
+	 */
+	@Override
+	protected RunnableConfig buildNonStreamConfig(RunnableConfig config) {
+		return super.buildNonStreamConfig(ExperienceTurn.withTurnId(config));
+	}
+
+	@Override
+	protected RunnableConfig buildStreamConfig(RunnableConfig config) {
+		return super.buildStreamConfig(ExperienceTurn.withTurnId(config));
+	}
+
 	/**
 	 * Builder for CodeactAgent that extends ReactAgent.Builder.
 	 */
@@ -182,6 +200,8 @@ public class CodeactAgent extends ReactAgent {
 
 		// Experience / FastIntent (optional, for WriteCodeTool fastpath)
 		private ExperienceProvider experienceProvider;
+		private ExperienceQueryCache experienceQueryCache;
+		private ExperienceUsageTracker experienceUsageTracker;
 		private ExperienceExtensionProperties experienceExtensionProperties;
 		private FastIntentService fastIntentService;
 
@@ -243,6 +263,16 @@ public class CodeactAgent extends ReactAgent {
 			return this;
 		}
 
+		public CodeactAgentBuilder experienceQueryCache(ExperienceQueryCache experienceQueryCache) {
+			this.experienceQueryCache = experienceQueryCache;
+			return this;
+		}
+
+		public CodeactAgentBuilder experienceUsageTracker(ExperienceUsageTracker experienceUsageTracker) {
+			this.experienceUsageTracker = experienceUsageTracker;
+			return this;
+		}
+
 		public CodeactAgentBuilder experienceExtensionProperties(ExperienceExtensionProperties props) {
 			this.experienceExtensionProperties = props;
 			return this;
@@ -875,6 +905,8 @@ public class CodeactAgent extends ReactAgent {
 				.codeContext(this.codeContext)
 				.environmentManager(this.environmentManager)
 				.experienceProvider(this.experienceProvider)
+				.experienceQueryCache(this.experienceQueryCache)
+				.experienceUsageTracker(this.experienceUsageTracker)
 				.experienceExtensionProperties(this.experienceExtensionProperties)
 				.fastIntentService(this.fastIntentService)
 				.includeDefaultCodeGenerator(true)  // 使用默认代码生成器
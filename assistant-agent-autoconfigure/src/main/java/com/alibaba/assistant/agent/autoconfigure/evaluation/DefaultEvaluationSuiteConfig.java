@@ -28,7 +28,10 @@ import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationContextFactory;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationResultAttacher;
 import com.alibaba.assistant.agent.extension.evaluation.experience.ExperienceRetrievalEvaluatorFactory;
+import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingEvaluationHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingReconcileHook;
 import com.alibaba.assistant.agent.extension.evaluation.hook.ModelInputEvaluationHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.SpeculativeRoutingCoordinator;
 import com.alibaba.assistant.agent.extension.evaluation.promptbuilder.EvaluationPromptGuidanceProvider;
 import com.alibaba.assistant.agent.extension.evaluation.promptbuilder.EvaluationPromptInjectionHook;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
@@ -130,16 +133,31 @@ public class DefaultEvaluationSuiteConfig {
 
     /**
      * React 阶段评估 Hooks
+     * 开启输入路由评估时，路由 Hook 与推测结果对齐 Hook 排在最前，首次模型调用前先对齐路由结果
      */
     @Bean
     public List<Hook> reactPhaseEvaluationHooks(
             EvaluationService evaluationService,
             CodeactEvaluationContextFactory contextFactory,
             CodeactEvaluationResultAttacher resultAttacher,
-            @Autowired(required = false) List<EvaluationPromptGuidanceProvider> guidanceProviders) {
+            @Autowired(required = false) List<EvaluationPromptGuidanceProvider> guidanceProviders,
+            @Autowired(required = false) InputRoutingEvaluationHook inputRoutingEvaluationHook,
+            @Autowired(required = false) InputRoutingReconcileHook inputRoutingReconcileHook,
+            @Autowired(required = false) SpeculativeRoutingCoordinator speculativeRoutingCoordinator) {
 
         List<Hook> hooks = new ArrayList<>();
 
+        if (inputRoutingEvaluationHook != null) {
+            hooks.add(inputRoutingEvaluationHook);
+            log.info("DefaultEvaluationSuiteConfig#reactPhaseEvaluationHooks - reason=注入 InputRoutingEvaluationHook");
+            if (inputRoutingReconcileHook != null) {
+                hooks.add(inputRoutingReconcileHook);
+                log.info("DefaultEvaluationSuiteConfig#reactPhaseEvaluationHooks - reason=注入 InputRoutingReconcileHook");
+            } else if (speculativeRoutingCoordinator != null) {
+                log.warn("DefaultEvaluationSuiteConfig#reactPhaseEvaluationHooks - reason=已开启推测路由但缺少 InputRoutingReconcileHook, 推测的路由结果不会被对齐");
+            }
+        }
+
         if (properties.getReactPhase().isEnabled()) {
             ModelInputEvaluationHook evaluationHook = new ModelInputEvaluationHook(
                     evaluationService, contextFactory, resultAttacher, "REACT", REACT_PHASE_SUITE_ID);
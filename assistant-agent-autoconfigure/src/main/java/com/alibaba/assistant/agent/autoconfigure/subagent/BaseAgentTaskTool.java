@@ -15,6 +15,7 @@
  */
 package com.alibaba.assistant.agent.autoconfigure.subagent;
 
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceTurn;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.agent.BaseAgent;
@@ -78,9 +79,9 @@ public class BaseAgentTaskTool implements BiFunction<BaseAgentTaskTool.TaskReque
 				logger.info("BaseAgentTaskTool#apply 从描述解析输入: {}", inputs.keySet());
 			}
 
-			// 4. Invoke the subagent through CompiledGraph
+			// 4. Invoke the subagent through CompiledGraph，每次调用是独立的轮次
 			CompiledGraph compiledGraph = subAgent.getAndCompileGraph();
-			Optional<OverAllState> resultOpt = compiledGraph.invoke(inputs);
+			Optional<OverAllState> resultOpt = compiledGraph.invoke(inputs, ExperienceTurn.withTurnId(null));
 
 			// 5. Extract result from state
 			OverAllState resultState = resultOpt.orElseThrow(() ->
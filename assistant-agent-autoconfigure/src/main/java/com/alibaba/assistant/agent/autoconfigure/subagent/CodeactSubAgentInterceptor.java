@@ -26,6 +26,8 @@ import com.alibaba.assistant.agent.autoconfigure.tools.WriteConditionCodeTool;
 import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
 import com.alibaba.assistant.agent.extension.experience.fastintent.CodeFastIntentSupport;
 import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentService;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.cloud.ai.graph.agent.BaseAgent;
 import com.alibaba.cloud.ai.graph.agent.interceptor.Interceptor;
@@ -71,6 +73,8 @@ public class CodeactSubAgentInterceptor extends ModelInterceptor {
 
 	// Experience / fast-intent (optional)
 	private final ExperienceProvider experienceProvider;
+	private final ExperienceQueryCache experienceQueryCache;
+	private final ExperienceUsageTracker experienceUsageTracker;
 	private final ExperienceExtensionProperties experienceExtensionProperties;
 	private final FastIntentService fastIntentService;
 
@@ -82,6 +86,8 @@ public class CodeactSubAgentInterceptor extends ModelInterceptor {
 		this.environmentManager = builder.environmentManager;
 		this.hooks = builder.hooks;
 		this.experienceProvider = builder.experienceProvider;
+		this.experienceQueryCache = builder.experienceQueryCache;
+		this.experienceUsageTracker = builder.experienceUsageTracker;
 		this.experienceExtensionProperties = builder.experienceExtensionProperties;
 		this.fastIntentService = builder.fastIntentService;
 
@@ -118,9 +124,13 @@ public class CodeactSubAgentInterceptor extends ModelInterceptor {
 		BaseAgentTaskTool taskTool = new BaseAgentTaskTool(this.subAgents);
 
 		// 创建WriteCodeTool和WriteConditionCodeTool（委托给 BaseAgentTaskTool）
+		// 优先使用共享的检索缓存，与经验Hook复用同一轮次的查询结果
+		ExperienceQueryCache queryCache = experienceQueryCache != null ? experienceQueryCache
+				: experienceProvider != null ? ExperienceQueryCache.uncached(experienceProvider) : null;
 		CodeFastIntentSupport codeFastIntentSupport =
-				(experienceProvider != null && experienceExtensionProperties != null && fastIntentService != null)
-						? new CodeFastIntentSupport(experienceProvider, experienceExtensionProperties, fastIntentService)
+				(queryCache != null && experienceExtensionProperties != null && fastIntentService != null)
+						? new CodeFastIntentSupport(queryCache, experienceExtensionProperties, fastIntentService,
+								experienceUsageTracker)
 						: null;
 		List<ToolCallback> toolList = new ArrayList<>();
 		toolList.add(WriteCodeTool.createWriteCodeToolCallback(taskTool, codeContext, environmentManager, codeFastIntentSupport));
@@ -233,6 +243,8 @@ public class CodeactSubAgentInterceptor extends ModelInterceptor {
 		private ReturnSchemaRegistry returnSchemaRegistry;
 
 		private ExperienceProvider experienceProvider;
+		private ExperienceQueryCache experienceQueryCache;
+		private ExperienceUsageTracker experienceUsageTracker;
 		private ExperienceExtensionProperties experienceExtensionProperties;
 		private FastIntentService fastIntentService;
 
@@ -281,6 +293,16 @@ public class CodeactSubAgentInterceptor extends ModelInterceptor {
 			return this;
 		}
 
+		public Builder experienceQueryCache(ExperienceQueryCache experienceQueryCache) {
+			this.experienceQueryCache = experienceQueryCache;
+			return this;
+		}
+
+		public Builder experienceUsageTracker(ExperienceUsageTracker experienceUsageTracker) {
+			this.experienceUsageTracker = experienceUsageTracker;
+			return this;
+		}
+
 		public Builder experienceExtensionProperties(ExperienceExtensionProperties props) {
 			this.experienceExtensionProperties = props;
 			return this;
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.common.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lightweight tokenizer shared by the lexical retrieval components (experience scoring,
+ * learning pre-filter, local full-text index).
+ *
+ * <p>CJK runs are split into overlapping character bigrams (a single-character run is kept as is),
+ * Latin letters and digits are split into lower-cased words, and every other character is a separator.
+ * For example "Redis缓存击穿 retry_policy" becomes [redis, 缓存, 存击, 击穿, retry, policy].
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public final class TextTokenizer {
+
+	private TextTokenizer() {
+		// Utility class
+	}
+
+	/**
+	 * Tokenizes the text, keeping duplicates so callers can count term frequencies.
+	 * @param text the text, may be null
+	 * @return the tokens in order of appearance
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isEmpty()) {
+			return tokens;
+		}
+
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			int codePoint = text.codePointAt(i);
+			if (isCjk(codePoint)) {
+				int start = i;
+				while (i < length && isCjk(text.codePointAt(i))) {
+					i += Character.charCount(text.codePointAt(i));
+				}
+				addBigrams(text.substring(start, i), tokens);
+			}
+			else if (Character.isLetterOrDigit(codePoint)) {
+				int start = i;
+				while (i < length) {
+					int current = text.codePointAt(i);
+					if (!Character.isLetterOrDigit(current) || isCjk(current)) {
+						break;
+					}
+					i += Character.charCount(current);
+				}
+				tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+			}
+			else {
+				i += Character.charCount(codePoint);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Whether the code point belongs to a CJK script (Han, Hiragana, Katakana or Hangul).
+	 */
+	public static boolean isCjk(int codePoint) {
+		Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+		return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+	}
+
+	private static void addBigrams(String run, List<String> tokens) {
+		int[] codePoints = run.codePoints().toArray();
+		if (codePoints.length == 1) {
+			tokens.add(run);
+			return;
+		}
+		for (int i = 0; i + 1 < codePoints.length; i++) {
+			tokens.add(new String(codePoints, i, 2));
+		}
+	}
+
+}
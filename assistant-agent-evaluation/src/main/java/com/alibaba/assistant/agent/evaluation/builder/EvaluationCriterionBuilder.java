@@ -15,8 +15,10 @@
  */
 package com.alibaba.assistant.agent.evaluation.builder;
 
+import com.alibaba.assistant.agent.evaluation.model.CriterionCondition;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationCriterion;
 import com.alibaba.assistant.agent.evaluation.model.EvaluatorType;
+import com.alibaba.assistant.agent.evaluation.model.HistoryWindow;
 import com.alibaba.assistant.agent.evaluation.model.ReasoningPolicy;
 import com.alibaba.assistant.agent.evaluation.model.ResultType;
 
@@ -126,6 +128,31 @@ public class EvaluationCriterionBuilder {
 		return this;
 	}
 
+	public EvaluationCriterionBuilder skipWhen(CriterionCondition... conditions) {
+		criterion.setSkipWhen(new ArrayList<>(Arrays.asList(conditions)));
+		return this;
+	}
+
+	public EvaluationCriterionBuilder skipWhen(List<CriterionCondition> conditions) {
+		criterion.setSkipWhen(conditions);
+		return this;
+	}
+
+	public EvaluationCriterionBuilder stopSuiteWhen(CriterionCondition... conditions) {
+		criterion.setStopSuiteWhen(new ArrayList<>(Arrays.asList(conditions)));
+		return this;
+	}
+
+	public EvaluationCriterionBuilder stopSuiteWhen(List<CriterionCondition> conditions) {
+		criterion.setStopSuiteWhen(conditions);
+		return this;
+	}
+
+	public EvaluationCriterionBuilder historyWindow(HistoryWindow historyWindow) {
+		criterion.setHistoryWindow(historyWindow);
+		return this;
+	}
+
 	public EvaluationCriterion build() {
 		// Validate required fields
 		if (criterion.getName() == null || criterion.getName().isEmpty()) {
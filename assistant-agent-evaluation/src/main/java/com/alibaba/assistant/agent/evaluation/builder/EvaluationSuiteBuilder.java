@@ -18,6 +18,7 @@ package com.alibaba.assistant.agent.evaluation.builder;
 import com.alibaba.assistant.agent.evaluation.aggregation.BatchAggregationStrategyRegistry;
 import com.alibaba.assistant.agent.evaluation.evaluator.EvaluatorRegistry;
 import com.alibaba.assistant.agent.evaluation.executor.CriterionEvaluationAction;
+import com.alibaba.assistant.agent.evaluation.model.CriterionCondition;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationCriterion;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
@@ -29,8 +30,10 @@ import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
@@ -128,6 +131,12 @@ public class EvaluationSuiteBuilder {
         // Validate that all evaluator references exist in the registry
         validateEvaluatorReferences();
 
+        // Validate that skipWhen conditions only reference upstream criteria
+        validateConditionReferences();
+
+        // Validate that stopSuiteWhen conditions only reference declared, visible criteria
+        validateStopConditionReferences();
+
         // Attach criteria list
         suite.setCriteria(criteria);
 
@@ -149,6 +158,7 @@ public class EvaluationSuiteBuilder {
                     strategies.put(criterion.getName() + "_error", new ReplaceStrategy());
                 }
 
+                strategies.put(CriterionEvaluationAction.SUITE_STOPPED_BY_KEY, new ReplaceStrategy());
                 strategies.put("lastExecuted", new ReplaceStrategy());
                 strategies.put("timestamp", new ReplaceStrategy());
 
@@ -162,21 +172,18 @@ public class EvaluationSuiteBuilder {
 
             // Add a node for each criterion with actual evaluation delegation
             for (EvaluationCriterion criterion : criteria) {
-                // Create local final references to avoid closure reference issues
-                final EvaluationCriterion criterionCopy = criterion;
-                final EvaluatorRegistry registryCopy = evaluatorRegistry;
-                final BatchAggregationStrategyRegistry strategyCopy = aggregationStrategyRegistry;
-                final ExecutorService executorCopy = executorService;
+                // Create the action once per criterion so that per-criterion preparation
+                // (e.g. compiling the batching source path) happens at build time, not per run.
+                // Pass executor service and aggregation strategy registry for batching support
+                final CriterionEvaluationAction action = new CriterionEvaluationAction(
+                        criterion,
+                        evaluatorRegistry,
+                        aggregationStrategyRegistry,
+                        executorService
+                );
 
                 stateGraph.addNode(criterion.getName(), (overAllState, config) -> {
                     // Use actual evaluation delegation via CriterionEvaluationAction
-                    // Pass executor service and aggregation strategy registry for batching support
-                    CriterionEvaluationAction action = new CriterionEvaluationAction(
-                            criterionCopy,
-                            registryCopy,
-                            strategyCopy,
-                            executorCopy
-                    );
                     Map<String, Object> updates = action.apply(overAllState);
 
                     // No aggregation needed - just return the updates directly
@@ -267,6 +274,65 @@ public class EvaluationSuiteBuilder {
         }
     }
 
+    /**
+     * Validate that skipWhen conditions only reference criteria listed in dependsOn.
+     * The guard is checked before the criterion runs, so any other criterion's result is
+     * not guaranteed to be available yet.
+     */
+    private void validateConditionReferences() {
+        for (EvaluationCriterion criterion : criteria) {
+            if (criterion.getSkipWhen() == null) {
+                continue;
+            }
+            List<String> deps = criterion.getDependsOn() != null ? criterion.getDependsOn() : List.of();
+            for (CriterionCondition condition : criterion.getSkipWhen()) {
+                if (condition == null) {
+                    continue;
+                }
+                String target = condition.getCriterion();
+                if (target == null || target.isEmpty() || !deps.contains(target)) {
+                    throw new IllegalStateException(
+                            String.format("Criterion '%s' has a skipWhen condition on '%s', " +
+                                            "which must be one of its dependsOn criteria: %s",
+                                    criterion.getName(), target, deps));
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate that stopSuiteWhen conditions reference the criterion itself (empty target)
+     * or a declared criterion listed in its dependsOn. The guard only sees the criterion's own
+     * result and its dependencies' results, so any other target would never match.
+     */
+    private void validateStopConditionReferences() {
+        Set<String> declared = new HashSet<>();
+        for (EvaluationCriterion criterion : criteria) {
+            declared.add(criterion.getName());
+        }
+        for (EvaluationCriterion criterion : criteria) {
+            if (criterion.getStopSuiteWhen() == null) {
+                continue;
+            }
+            List<String> deps = criterion.getDependsOn() != null ? criterion.getDependsOn() : List.of();
+            for (CriterionCondition condition : criterion.getStopSuiteWhen()) {
+                if (condition == null) {
+                    continue;
+                }
+                String target = condition.getCriterion();
+                if (target == null || target.isEmpty() || target.equals(criterion.getName())) {
+                    continue;
+                }
+                if (!declared.contains(target) || !deps.contains(target)) {
+                    throw new IllegalArgumentException(
+                            String.format("Criterion '%s' has a stopSuiteWhen condition on '%s', " +
+                                            "which must be the criterion itself or one of its declared dependsOn criteria: %s",
+                                    criterion.getName(), target, deps));
+                }
+            }
+        }
+    }
+
     /**
      * 根据依赖关系构建执行层级
      * 同一层级的节点可以并行执行，不同层级按顺序执行
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.executor;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-parsed form of a batching source path.
+ * <p>
+ * {@link SourcePathResolver} splits the path string on every call. This class parses the
+ * path once (at suite build time) into a root selector plus an array of segment accessors,
+ * so resolving only walks the already-split segments. Resolution results are identical to
+ * {@link SourcePathResolver#resolve} for map-shaped data; in addition, intermediate
+ * segments can step into {@link List}s by numeric index and into plain objects through
+ * public getters, both of which the string resolver gives up on (returns null).
+ * <p>
+ * Instances are immutable apart from per-segment accessor caches and are safe to share
+ * across threads.
+ *
+ * @author Assistant Agent Team
+ */
+public final class CompiledSourcePath {
+
+	private static final CompiledSourcePath EMPTY = new CompiledSourcePath(null, Root.NONE, null, null, null, false);
+
+	private enum Root {
+		NONE,
+		CONTEXT,
+		DEPENDENCIES
+	}
+
+	private enum ContextSection {
+		INPUT,
+		EXECUTION_RESULT,
+		ENVIRONMENT
+	}
+
+	private final String sourcePath;
+	private final Root root;
+
+	/**
+	 * Context map selected by the first segment after "context" (only for {@link Root#CONTEXT}).
+	 */
+	private final ContextSection section;
+
+	/**
+	 * Dependency criterion name (only for {@link Root#DEPENDENCIES}).
+	 */
+	private final String dependencyName;
+
+	/**
+	 * Remaining segments navigated inside the selected map/value. Null means "no remaining path".
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * True when the dependency path is exactly "criterionName.value".
+	 */
+	private final boolean valueAlias;
+
+	private CompiledSourcePath(String sourcePath, Root root, ContextSection section,
+	                           String dependencyName, Segment[] segments, boolean valueAlias) {
+		this.sourcePath = sourcePath;
+		this.root = root;
+		this.section = section;
+		this.dependencyName = dependencyName;
+		this.segments = segments;
+		this.valueAlias = valueAlias;
+	}
+
+	/**
+	 * Parse a source path. Never returns null; unsupported or empty paths compile to an
+	 * accessor that always resolves to null.
+	 *
+	 * @param sourcePath path such as "context.tools" or "dependencies.collect_tools.value"
+	 * @return the compiled path
+	 */
+	public static CompiledSourcePath compile(String sourcePath) {
+		if (sourcePath == null || sourcePath.trim().isEmpty()) {
+			return EMPTY;
+		}
+
+		String[] parts = sourcePath.split("\\.", 2);
+		String rootName = parts[0];
+		String remainingPath = parts.length > 1 ? parts[1] : null;
+
+		if ("context".equals(rootName)) {
+			return compileContext(sourcePath, remainingPath);
+		}
+		if ("dependencies".equals(rootName)) {
+			return compileDependencies(sourcePath, remainingPath);
+		}
+		return new CompiledSourcePath(sourcePath, Root.NONE, null, null, null, false);
+	}
+
+	private static CompiledSourcePath compileContext(String sourcePath, String path) {
+		if (path == null) {
+			return new CompiledSourcePath(sourcePath, Root.NONE, null, null, null, false);
+		}
+
+		String[] parts = path.split("\\.", 2);
+		String remainingPath = parts.length > 1 ? parts[1] : null;
+
+		ContextSection section;
+		switch (parts[0]) {
+			case "input":
+				section = ContextSection.INPUT;
+				break;
+			case "executionResult":
+				section = ContextSection.EXECUTION_RESULT;
+				break;
+			case "environment":
+				section = ContextSection.ENVIRONMENT;
+				break;
+			default:
+				// Legacy behavior: no specific prefix means the full path lives in input
+				section = ContextSection.INPUT;
+				remainingPath = path;
+				break;
+		}
+
+		return new CompiledSourcePath(sourcePath, Root.CONTEXT, section, null, toSegments(remainingPath), false);
+	}
+
+	private static CompiledSourcePath compileDependencies(String sourcePath, String path) {
+		if (path == null) {
+			return new CompiledSourcePath(sourcePath, Root.NONE, null, null, null, false);
+		}
+
+		String[] parts = path.split("\\.", 2);
+		String remainingPath = parts.length > 1 ? parts[1] : null;
+		boolean valueAlias = "value".equals(remainingPath);
+
+		return new CompiledSourcePath(sourcePath, Root.DEPENDENCIES, null, parts[0],
+			valueAlias ? null : toSegments(remainingPath), valueAlias);
+	}
+
+	private static Segment[] toSegments(String path) {
+		if (path == null) {
+			return null;
+		}
+		// limit -1 keeps trailing empty segments, matching repeated split(".", 2) navigation
+		String[] keys = path.split("\\.", -1);
+		Segment[] segments = new Segment[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			segments[i] = new Segment(keys[i]);
+		}
+		return segments;
+	}
+
+	/**
+	 * Resolve this path against the given context and dependency results.
+	 *
+	 * @param evaluationContext the evaluation context
+	 * @param dependencyResults map of dependency results
+	 * @return the resolved object (might be a collection, single object, or null)
+	 */
+	public Object resolve(EvaluationContext evaluationContext, Map<String, CriterionResult> dependencyResults) {
+		switch (root) {
+			case CONTEXT:
+				return resolveFromContext(evaluationContext);
+			case DEPENDENCIES:
+				return resolveFromDependencies(dependencyResults);
+			default:
+				return null;
+		}
+	}
+
+	public String getSourcePath() {
+		return sourcePath;
+	}
+
+	private Object resolveFromContext(EvaluationContext context) {
+		if (context == null) {
+			return null;
+		}
+
+		Map<String, Object> targetMap;
+		switch (section) {
+			case EXECUTION_RESULT:
+				targetMap = context.getExecutionResult();
+				break;
+			case ENVIRONMENT:
+				targetMap = context.getEnvironment();
+				break;
+			default:
+				targetMap = context.getInput();
+				break;
+		}
+
+		if (targetMap == null) {
+			return null;
+		}
+		if (segments == null) {
+			return targetMap;
+		}
+		return navigate(targetMap);
+	}
+
+	private Object resolveFromDependencies(Map<String, CriterionResult> dependencies) {
+		if (dependencies == null) {
+			return null;
+		}
+
+		CriterionResult depResult = dependencies.get(dependencyName);
+		if (depResult == null) {
+			return null;
+		}
+
+		Object value = depResult.getValue();
+		if (segments == null || valueAlias || value == null) {
+			return value;
+		}
+
+		// Same as SourcePathResolver: only map values are navigated, anything else is returned as-is
+		if (value instanceof Map) {
+			return navigate(value);
+		}
+		return value;
+	}
+
+	private Object navigate(Object current) {
+		for (Segment segment : segments) {
+			if (current == null) {
+				return null;
+			}
+			current = segment.access(current);
+		}
+		return current;
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledSourcePath{" + sourcePath + "}";
+	}
+
+	/**
+	 * A single path segment with a lazily cached accessor.
+	 * <p>
+	 * Map lookups use the key directly; list lookups use the pre-parsed index; for other
+	 * objects the getter {@link MethodHandle} is resolved on first use and cached against the
+	 * receiver class (monomorphic inline cache), so steady-state resolution does no reflection.
+	 */
+	private static final class Segment {
+
+		private final String key;
+		private final int index;
+		private volatile GetterCache getterCache;
+
+		Segment(String key) {
+			this.key = key;
+			this.index = parseIndex(key);
+		}
+
+		Object access(Object target) {
+			if (target instanceof Map) {
+				return ((Map<?, ?>) target).get(key);
+			}
+			if (target instanceof List) {
+				List<?> list = (List<?>) target;
+				return index >= 0 && index < list.size() ? list.get(index) : null;
+			}
+			return invokeGetter(target);
+		}
+
+		private Object invokeGetter(Object target) {
+			Class<?> type = target.getClass();
+			GetterCache cache = getterCache;
+			if (cache == null || cache.type != type) {
+				cache = new GetterCache(type, findGetter(type, key));
+				getterCache = cache;
+			}
+			if (cache.handle == null) {
+				return null;
+			}
+			try {
+				return cache.handle.invokeExact(target);
+			}
+			catch (Throwable e) {
+				return null;
+			}
+		}
+
+		private static int parseIndex(String key) {
+			if (key.isEmpty() || key.length() > 9) {
+				return -1;
+			}
+			for (int i = 0; i < key.length(); i++) {
+				if (!Character.isDigit(key.charAt(i))) {
+					return -1;
+				}
+			}
+			return Integer.parseInt(key);
+		}
+
+		private static MethodHandle findGetter(Class<?> type, String property) {
+			if (property.isEmpty() || !Modifier.isPublic(type.getModifiers())) {
+				return null;
+			}
+			String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+			for (String name : new String[] { "get" + capitalized, "is" + capitalized, property }) {
+				try {
+					Method method = type.getMethod(name);
+					if (method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers())
+							|| method.getDeclaringClass() == Object.class) {
+						continue;
+					}
+					return MethodHandles.publicLookup()
+						.unreflect(method)
+						.asType(MethodType.methodType(Object.class, Object.class));
+				}
+				catch (NoSuchMethodException | IllegalAccessException ignored) {
+					// try next naming convention
+				}
+			}
+			return null;
+		}
+	}
+
+	private static final class GetterCache {
+
+		private final Class<?> type;
+		private final MethodHandle handle;
+
+		GetterCache(Class<?> type, MethodHandle handle) {
+			this.type = type;
+			this.handle = handle;
+		}
+	}
+}
@@ -37,6 +37,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Semaphore;
@@ -56,11 +57,32 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
 
     private static final Logger logger = LoggerFactory.getLogger(CriterionEvaluationAction.class);
 
+    /**
+     * State key holding the name of the criterion whose stopSuiteWhen condition matched.
+     */
+    public static final String SUITE_STOPPED_BY_KEY = "suiteStoppedBy";
+
+    /**
+     * Result metadata flag marking a SKIPPED result produced by skipWhen/stopSuiteWhen pruning.
+     */
+    public static final String PRUNED_METADATA_KEY = "pruned";
+
     private final EvaluationCriterion criterion;
     private final EvaluatorRegistry evaluatorRegistry;
     private final BatchAggregationStrategyRegistry aggregationStrategyRegistry;
     private final ExecutorService executorService;
 
+    /**
+     * Batching source path parsed once when the action is created, or null when batching is not configured.
+     */
+    private final CompiledSourcePath compiledSourcePath;
+
+    /**
+     * Guards compiled from the criterion's skipWhen / stopSuiteWhen conditions.
+     */
+    private final CriterionGuard skipGuard;
+    private final CriterionGuard stopSuiteGuard;
+
     public CriterionEvaluationAction(EvaluationCriterion criterion, EvaluatorRegistry evaluatorRegistry) {
         this(criterion, evaluatorRegistry, new BatchAggregationStrategyRegistry(), null);
     }
@@ -73,6 +95,12 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
         this.evaluatorRegistry = evaluatorRegistry;
         this.aggregationStrategyRegistry = aggregationStrategyRegistry;
         this.executorService = executorService;
+        CriterionBatchingConfig batchingConfig = criterion.getBatchingConfig();
+        this.compiledSourcePath = batchingConfig != null
+            ? CompiledSourcePath.compile(batchingConfig.getSourcePath())
+            : null;
+        this.skipGuard = CriterionGuard.compile(criterion.getSkipWhen(), criterion.getName());
+        this.stopSuiteGuard = CriterionGuard.compile(criterion.getStopSuiteWhen(), criterion.getName());
     }
 
     @Override
@@ -93,6 +121,19 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
             // Build dependency results map from individual state keys
             Map<String, CriterionResult> dependencyResults = buildDependencyResults(state);
 
+            // Check pruning guards before any evaluator or batch work is scheduled
+            String skipReason = findSkipReason(state, dependencyResults);
+            if (skipReason != null) {
+                logger.info("Criterion {} skipped: {}", criterion.getName(), skipReason);
+                CriterionResult skipped = createSkippedResult(skipReason);
+                updates.put(criterion.getName() + "_result", skipped);
+                updates.put(criterion.getName() + "_status", skipped.getStatus().toString());
+                updates.put(criterion.getName() + "_completed", true);
+                updates.put("lastExecuted", criterion.getName());
+                updates.put("timestamp", System.currentTimeMillis());
+                return updates;
+            }
+
             // Check if batching is enabled
             CriterionBatchingConfig batchingConfig = criterion.getBatchingConfig();
             boolean batchingEnabled = batchingConfig != null && batchingConfig.isEnabled();
@@ -119,6 +160,16 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
                 updates.put(criterion.getName() + "_value", result.getValue());
             }
 
+            if (!stopSuiteGuard.isEmpty()) {
+                Map<String, CriterionResult> visibleResults = new HashMap<>(dependencyResults);
+                visibleResults.put(criterion.getName(), result);
+                String stopReason = stopSuiteGuard.firstMatch(visibleResults);
+                if (stopReason != null) {
+                    logger.info("Criterion {} stops the suite: {}", criterion.getName(), stopReason);
+                    updates.put(SUITE_STOPPED_BY_KEY, criterion.getName());
+                }
+            }
+
             logger.info("Criterion {} completed with result: {}", criterion.getName(), result.getValue());
 
         } catch (Exception e) {
@@ -161,6 +212,46 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
         return dependencyResults;
     }
 
+    /**
+     * Determine whether this criterion should be pruned.
+     * A criterion is pruned when the suite was stopped by an earlier criterion, when one of its
+     * dependencies was itself pruned, or when one of its skipWhen conditions matches.
+     *
+     * @return the reason for skipping, or null if the criterion should run
+     */
+    private String findSkipReason(OverAllState state, Map<String, CriterionResult> dependencyResults) {
+        Object stoppedBy = state.data().get(SUITE_STOPPED_BY_KEY);
+        if (stoppedBy != null) {
+            return "Suite stopped by criterion '" + stoppedBy + "'";
+        }
+
+        for (Map.Entry<String, CriterionResult> entry : dependencyResults.entrySet()) {
+            if (isPruned(entry.getValue())) {
+                return "Dependency '" + entry.getKey() + "' was skipped";
+            }
+        }
+
+        String matched = skipGuard.firstMatch(dependencyResults);
+        return matched != null ? "skipWhen matched: " + matched : null;
+    }
+
+    private static boolean isPruned(CriterionResult result) {
+        return result.getStatus() == CriterionStatus.SKIPPED
+            && result.getMetadata() != null
+            && Boolean.TRUE.equals(result.getMetadata().get(PRUNED_METADATA_KEY));
+    }
+
+    private CriterionResult createSkippedResult(String reason) {
+        CriterionResult result = new CriterionResult();
+        result.setCriterionName(criterion.getName());
+        result.setStatus(CriterionStatus.SKIPPED);
+        result.setReason(reason);
+        result.getMetadata().put(PRUNED_METADATA_KEY, true);
+        result.setStartTimeMillis(System.currentTimeMillis());
+        result.setEndTimeMillis(System.currentTimeMillis());
+        return result;
+    }
+
     /**
      * Execute criterion without batching (original logic).
      */
@@ -191,12 +282,12 @@ public class CriterionEvaluationAction implements Function<OverAllState, Map<Str
             // Validate batching config
             batchingConfig.validate();
 
-            // Resolve source collection
-            Object sourceObject = SourcePathResolver.resolve(
-                batchingConfig.getSourcePath(),
-                evaluationContext,
-                dependencyResults
-            );
+            // Resolve source collection using the path compiled at construction time
+            CompiledSourcePath sourcePath = compiledSourcePath != null
+                && Objects.equals(compiledSourcePath.getSourcePath(), batchingConfig.getSourcePath())
+                ? compiledSourcePath
+                : CompiledSourcePath.compile(batchingConfig.getSourcePath());
+            Object sourceObject = sourcePath.resolve(evaluationContext, dependencyResults);
 
             // Check if source is a collection
             if (!SourcePathResolver.isCollection(sourceObject)) {
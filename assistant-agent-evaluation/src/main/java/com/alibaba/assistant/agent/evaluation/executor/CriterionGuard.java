@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.executor;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionCondition;
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.CriterionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Compiled form of a list of {@link CriterionCondition}s.
+ * The guard matches when ANY of its conditions matches (OR semantics).
+ * <p>
+ * Conditions are compiled once (when the criterion's graph node is created) into
+ * plain predicates over the visible criterion results, so the check before executing a
+ * criterion does no parsing or enum dispatch.
+ *
+ * @author Assistant Agent Team
+ */
+public final class CriterionGuard {
+
+	private static final CriterionGuard NEVER = new CriterionGuard(List.of(), List.of());
+
+	private final List<Predicate<Map<String, CriterionResult>>> predicates;
+	private final List<String> descriptions;
+
+	private CriterionGuard(List<Predicate<Map<String, CriterionResult>>> predicates, List<String> descriptions) {
+		this.predicates = predicates;
+		this.descriptions = descriptions;
+	}
+
+	/**
+	 * Compile conditions into a guard.
+	 *
+	 * @param conditions the declared conditions, may be null or empty
+	 * @param selfName name used for conditions without an explicit criterion
+	 * @return a guard; never null
+	 */
+	public static CriterionGuard compile(List<CriterionCondition> conditions, String selfName) {
+		if (conditions == null || conditions.isEmpty()) {
+			return NEVER;
+		}
+
+		List<Predicate<Map<String, CriterionResult>>> predicates = new ArrayList<>();
+		List<String> descriptions = new ArrayList<>();
+		for (CriterionCondition condition : conditions) {
+			if (condition == null) {
+				continue;
+			}
+			String target = condition.getCriterion() != null && !condition.getCriterion().isEmpty()
+				? condition.getCriterion() : selfName;
+			Predicate<CriterionResult> resultPredicate = compileResultPredicate(condition);
+			predicates.add(results -> {
+				CriterionResult result = results.get(target);
+				return result != null && resultPredicate.test(result);
+			});
+			descriptions.add(condition.toString());
+		}
+
+		return predicates.isEmpty() ? NEVER : new CriterionGuard(List.copyOf(predicates), List.copyOf(descriptions));
+	}
+
+	/**
+	 * Test the guard against the visible results.
+	 *
+	 * @param results criterion results keyed by criterion name
+	 * @return description of the first matching condition, or null if none matched
+	 */
+	public String firstMatch(Map<String, CriterionResult> results) {
+		for (int i = 0; i < predicates.size(); i++) {
+			if (predicates.get(i).test(results)) {
+				return descriptions.get(i);
+			}
+		}
+		return null;
+	}
+
+	public boolean isEmpty() {
+		return predicates.isEmpty();
+	}
+
+	private static Predicate<CriterionResult> compileResultPredicate(CriterionCondition condition) {
+		CriterionCondition.Operator operator = condition.getOperator() != null
+			? condition.getOperator() : CriterionCondition.Operator.EQUALS;
+		Object expected = condition.getValue();
+		// IN / NOT_IN value lists may contain null (matching a null result value), so List.copyOf is not usable here
+		List<Object> expectedValues = condition.getValues() != null
+			? Collections.unmodifiableList(new ArrayList<>(condition.getValues())) : List.of();
+
+		switch (operator) {
+			case NOT_EQUALS:
+				return result -> !valueMatches(result.getValue(), expected);
+			case IN:
+				return result -> anyValueMatches(result.getValue(), expectedValues);
+			case NOT_IN:
+				return result -> !anyValueMatches(result.getValue(), expectedValues);
+			case IS_TRUE:
+				return result -> valueMatches(result.getValue(), Boolean.TRUE);
+			case IS_FALSE:
+				return result -> valueMatches(result.getValue(), Boolean.FALSE);
+			case IS_NULL:
+				return result -> result.getValue() == null;
+			case STATUS_EQUALS:
+				CriterionStatus status = expected instanceof CriterionStatus
+					? (CriterionStatus) expected
+					: expected != null ? CriterionStatus.valueOf(expected.toString().trim().toUpperCase()) : null;
+				return result -> result.getStatus() == status;
+			case EQUALS:
+			default:
+				return result -> valueMatches(result.getValue(), expected);
+		}
+	}
+
+	private static boolean anyValueMatches(Object actual, Collection<Object> expectedValues) {
+		for (Object expected : expectedValues) {
+			if (valueMatches(actual, expected)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean valueMatches(Object actual, Object expected) {
+		if (Objects.equals(actual, expected)) {
+			return true;
+		}
+		if (actual == null || expected == null) {
+			return false;
+		}
+		return actual.toString().trim().equalsIgnoreCase(expected.toString().trim());
+	}
+}
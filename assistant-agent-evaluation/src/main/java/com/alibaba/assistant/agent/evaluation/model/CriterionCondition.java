@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Declarative condition on a criterion result, used by
+ * {@link EvaluationCriterion#getSkipWhen()} and {@link EvaluationCriterion#getStopSuiteWhen()}.
+ * <p>
+ * Examples:
+ * - skip "tool_selection" when "input_clarity" equals "UNCLEAR"
+ * - stop the whole suite when the current criterion's value is false
+ *
+ * @author Assistant Agent Team
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CriterionCondition {
+
+	/**
+	 * Name of the criterion whose result is inspected.
+	 * For skipWhen it must be one of the criterion's dependsOn entries.
+	 * For stopSuiteWhen it may be left empty to refer to the criterion itself.
+	 */
+	private String criterion;
+
+	/**
+	 * Comparison operator
+	 */
+	private Operator operator = Operator.EQUALS;
+
+	/**
+	 * Expected value for EQUALS / NOT_EQUALS / STATUS_EQUALS
+	 */
+	private Object value;
+
+	/**
+	 * Expected values for IN / NOT_IN
+	 */
+	private List<Object> values = new ArrayList<>();
+
+	public CriterionCondition() {
+	}
+
+	public CriterionCondition(String criterion, Operator operator, Object value) {
+		this.criterion = criterion;
+		this.operator = operator;
+		this.value = value;
+	}
+
+	public static CriterionCondition valueEquals(String criterion, Object value) {
+		return new CriterionCondition(criterion, Operator.EQUALS, value);
+	}
+
+	public static CriterionCondition valueNotEquals(String criterion, Object value) {
+		return new CriterionCondition(criterion, Operator.NOT_EQUALS, value);
+	}
+
+	public static CriterionCondition valueIn(String criterion, Object... values) {
+		CriterionCondition condition = new CriterionCondition(criterion, Operator.IN, null);
+		condition.setValues(new ArrayList<>(Arrays.asList(values)));
+		return condition;
+	}
+
+	public static CriterionCondition isTrue(String criterion) {
+		return new CriterionCondition(criterion, Operator.IS_TRUE, null);
+	}
+
+	public static CriterionCondition isFalse(String criterion) {
+		return new CriterionCondition(criterion, Operator.IS_FALSE, null);
+	}
+
+	public static CriterionCondition statusEquals(String criterion, CriterionStatus status) {
+		return new CriterionCondition(criterion, Operator.STATUS_EQUALS, status);
+	}
+
+	public String getCriterion() {
+		return criterion;
+	}
+
+	public void setCriterion(String criterion) {
+		this.criterion = criterion;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public void setOperator(Operator operator) {
+		this.operator = operator;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	public void setValue(Object value) {
+		this.value = value;
+	}
+
+	public List<Object> getValues() {
+		return values;
+	}
+
+	public void setValues(List<Object> values) {
+		this.values = values;
+	}
+
+	@Override
+	public String toString() {
+		Object expected = operator == Operator.IN || operator == Operator.NOT_IN ? values : value;
+		return (criterion != null ? criterion : "<self>") + " " + operator + (expected != null ? " " + expected : "");
+	}
+
+	/**
+	 * Supported comparison operators.
+	 * Value comparisons are lenient: values match when they are equal or their
+	 * string forms are equal ignoring case, since LLM evaluators usually return text.
+	 */
+	public enum Operator {
+		EQUALS,
+		NOT_EQUALS,
+		IN,
+		NOT_IN,
+		IS_TRUE,
+		IS_FALSE,
+		IS_NULL,
+		/**
+		 * Compare the result status (SUCCESS, FAILED, ERROR, ...) instead of the value
+		 */
+		STATUS_EQUALS
+	}
+}
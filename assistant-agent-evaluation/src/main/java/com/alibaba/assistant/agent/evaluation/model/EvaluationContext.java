@@ -61,9 +61,9 @@ public class EvaluationContext {
 	public EvaluationContext(Map<String, Object> input,
 	                       Map<String, Object> executionResult,
 	                       Map<String, Object> environment) {
-		this.input = input != null ? Collections.unmodifiableMap(new HashMap<>(input)) : Collections.emptyMap();
-		this.executionResult = executionResult != null ? Collections.unmodifiableMap(new HashMap<>(executionResult)) : Collections.emptyMap();
-		this.environment = environment != null ? Collections.unmodifiableMap(new HashMap<>(environment)) : Collections.emptyMap();
+		this.input = immutableView(input);
+		this.executionResult = immutableView(executionResult);
+		this.environment = immutableView(environment);
 	}
 
 	/**
@@ -87,6 +87,19 @@ public class EvaluationContext {
 		this(null, null, null);
 	}
 
+	/**
+	 * Persistent maps are already immutable and are shared as-is; anything else is defensively copied.
+	 */
+	private static Map<String, Object> immutableView(Map<String, Object> source) {
+		if (source == null) {
+			return Collections.emptyMap();
+		}
+		if (source instanceof PersistentContextMap) {
+			return source;
+		}
+		return Collections.unmodifiableMap(new HashMap<>(source));
+	}
+
 	// Read-only Getters
 
 	/**
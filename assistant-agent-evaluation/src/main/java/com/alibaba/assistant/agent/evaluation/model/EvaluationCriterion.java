@@ -95,6 +95,23 @@ public class EvaluationCriterion {
 	 */
 	private CriterionBatchingConfig batchingConfig;
 
+	/**
+	 * Skip this criterion (status SKIPPED, evaluator never invoked) when any condition matches.
+	 * Conditions may only reference criteria listed in dependsOn.
+	 */
+	private List<CriterionCondition> skipWhen = new ArrayList<>();
+
+	/**
+	 * Stop the remaining suite after this criterion when any condition matches.
+	 * Criteria not yet started are recorded as SKIPPED.
+	 */
+	private List<CriterionCondition> stopSuiteWhen = new ArrayList<>();
+
+	/**
+	 * Conversation history this criterion needs; null means the full history
+	 */
+	private HistoryWindow historyWindow;
+
 	public String getName() {
 		return name;
 	}
@@ -207,6 +224,30 @@ public class EvaluationCriterion {
 		this.batchingConfig = batchingConfig;
 	}
 
+	public List<CriterionCondition> getSkipWhen() {
+		return skipWhen;
+	}
+
+	public void setSkipWhen(List<CriterionCondition> skipWhen) {
+		this.skipWhen = skipWhen;
+	}
+
+	public List<CriterionCondition> getStopSuiteWhen() {
+		return stopSuiteWhen;
+	}
+
+	public void setStopSuiteWhen(List<CriterionCondition> stopSuiteWhen) {
+		this.stopSuiteWhen = stopSuiteWhen;
+	}
+
+	public HistoryWindow getHistoryWindow() {
+		return historyWindow;
+	}
+
+	public void setHistoryWindow(HistoryWindow historyWindow) {
+		this.historyWindow = historyWindow;
+	}
+
 	/**
 	 * Few-shot example for LLM guidance
 	 */
@@ -117,6 +117,19 @@ public class EvaluationSuite {
 		this.criteria = criteria;
 	}
 
+	/**
+	 * Conversation history needed by this suite: the merged history windows of all criteria.
+	 * A criterion without a declared window requires the full history.
+	 */
+	@JsonIgnore
+	public List<HistoryWindow> getRequiredHistoryWindows() {
+		List<HistoryWindow> windows = new ArrayList<>(criteria.size());
+		for (EvaluationCriterion criterion : criteria) {
+			windows.add(criterion.getHistoryWindow());
+		}
+		return HistoryWindow.merge(windows);
+	}
+
 	public CompiledGraph getCompiledGraph() {
 		return compiledGraph;
 	}
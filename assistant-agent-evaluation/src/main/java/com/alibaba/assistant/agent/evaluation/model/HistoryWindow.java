@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Declares how much conversation history a criterion needs.
+ *
+ * <p>A window keeps the last {@code maxMessages} messages whose role is in {@code roles}.
+ * {@code maxMessages <= 0} means unlimited, an empty role list means every role.
+ * Roles are matched case-insensitively against the message type name (USER, ASSISTANT, SYSTEM, TOOL).
+ *
+ * <p>Context factories build the history once per suite run for all criterion windows together
+ * (see {@link #merge}), so every criterion sees at least the messages it declared.
+ *
+ * @author Assistant Agent Team
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HistoryWindow {
+
+	public static final String ROLE_USER = "USER";
+
+	private static final HistoryWindow ALL = new HistoryWindow(0, List.of());
+
+	/**
+	 * Maximum number of messages to keep (most recent first); 0 or negative means unlimited
+	 */
+	private int maxMessages;
+
+	/**
+	 * Message roles to keep; empty means all roles
+	 */
+	private List<String> roles = new ArrayList<>();
+
+	public HistoryWindow() {
+	}
+
+	public HistoryWindow(int maxMessages, List<String> roles) {
+		this.maxMessages = Math.max(0, maxMessages);
+		this.roles = normalizeRoles(roles);
+	}
+
+	/**
+	 * Full history, every role
+	 */
+	public static HistoryWindow all() {
+		return ALL;
+	}
+
+	/**
+	 * The last {@code count} messages of any role
+	 */
+	public static HistoryWindow lastMessages(int count) {
+		return new HistoryWindow(count, List.of());
+	}
+
+	/**
+	 * Every user message
+	 */
+	public static HistoryWindow userOnly() {
+		return new HistoryWindow(0, List.of(ROLE_USER));
+	}
+
+	/**
+	 * The last {@code count} user messages
+	 */
+	public static HistoryWindow lastUserMessages(int count) {
+		return new HistoryWindow(count, List.of(ROLE_USER));
+	}
+
+	/**
+	 * Normalizes the windows declared by a set of criteria into the smallest equivalent list.
+	 *
+	 * <p>Windows with the same role set collapse into the larger one. Windows with different role sets
+	 * are kept apart, because e.g. "last 4 messages" and "last 6 user messages" cannot be expressed as a
+	 * single window; the context factory keeps every message selected by any of them.
+	 * A null entry (criterion without a declaration) or a full window yields {@code [all()]}.
+	 */
+	public static List<HistoryWindow> merge(Collection<HistoryWindow> windows) {
+		Map<Set<String>, HistoryWindow> byRoles = new LinkedHashMap<>();
+		for (HistoryWindow window : windows) {
+			if (window == null || window.isFull()) {
+				return List.of(ALL);
+			}
+			byRoles.merge(new LinkedHashSet<>(window.roles), window, HistoryWindow::widen);
+		}
+		return byRoles.isEmpty() ? List.of(ALL) : List.copyOf(byRoles.values());
+	}
+
+	/**
+	 * Same roles, larger message count
+	 */
+	private static HistoryWindow widen(HistoryWindow a, HistoryWindow b) {
+		if (a.isUnlimited()) {
+			return a;
+		}
+		if (b.isUnlimited()) {
+			return b;
+		}
+		return a.maxMessages >= b.maxMessages ? a : b;
+	}
+
+	@JsonIgnore
+	public boolean isUnlimited() {
+		return maxMessages <= 0;
+	}
+
+	/**
+	 * Whether this window keeps the entire history unchanged
+	 */
+	@JsonIgnore
+	public boolean isFull() {
+		return isUnlimited() && roles.isEmpty();
+	}
+
+	public boolean allowsRole(String role) {
+		return roles.isEmpty() || (role != null && roles.contains(role.toUpperCase(Locale.ROOT)));
+	}
+
+	public int getMaxMessages() {
+		return maxMessages;
+	}
+
+	public void setMaxMessages(int maxMessages) {
+		this.maxMessages = Math.max(0, maxMessages);
+	}
+
+	public List<String> getRoles() {
+		return roles;
+	}
+
+	public void setRoles(List<String> roles) {
+		this.roles = normalizeRoles(roles);
+	}
+
+	private static List<String> normalizeRoles(List<String> roles) {
+		List<String> normalized = new ArrayList<>();
+		if (roles != null) {
+			for (String role : roles) {
+				if (role != null && !role.isBlank()) {
+					normalized.add(role.trim().toUpperCase(Locale.ROOT));
+				}
+			}
+		}
+		return normalized;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof HistoryWindow that)) {
+			return false;
+		}
+		return maxMessages == that.maxMessages && Objects.equals(new LinkedHashSet<>(roles), new LinkedHashSet<>(that.roles));
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(maxMessages, new LinkedHashSet<>(roles));
+	}
+
+	@Override
+	public String toString() {
+		return "HistoryWindow{maxMessages=" + (isUnlimited() ? "all" : maxMessages)
+				+ ", roles=" + (roles.isEmpty() ? "all" : roles) + "}";
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.model;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable map with structural sharing, used for {@link EvaluationContext} data.
+ *
+ * <p>{@link #with} / {@link #withAll} return a new map that records only the changed entries and
+ * points at the previous map as its parent, so contexts built turn after turn share their stable
+ * entries instead of copying them. Lookups walk the (short) parent chain; once the chain reaches
+ * {@link #MAX_DEPTH} layers it is collapsed into a single layer.
+ *
+ * <p>{@link EvaluationContext} stores instances of this class as-is instead of taking a defensive copy.
+ * Null values are allowed, matching the {@code HashMap} behaviour of the copying constructor.
+ *
+ * @author Assistant Agent Team
+ */
+public final class PersistentContextMap extends AbstractMap<String, Object> {
+
+	static final int MAX_DEPTH = 8;
+
+	private static final PersistentContextMap EMPTY = new PersistentContextMap(null, Collections.emptyMap(), 0);
+
+	private final PersistentContextMap parent;
+
+	private final Map<String, Object> delta;
+
+	private final int depth;
+
+	/**
+	 * Lazily materialized view of all layers, only needed for iteration and size
+	 */
+	private volatile Map<String, Object> flattened;
+
+	private PersistentContextMap(PersistentContextMap parent, Map<String, Object> delta, int depth) {
+		this.parent = parent;
+		this.delta = delta;
+		this.depth = depth;
+	}
+
+	public static PersistentContextMap empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Wrap {@code source}; returns it unchanged when it already is a persistent map.
+	 */
+	public static PersistentContextMap of(Map<String, Object> source) {
+		if (source instanceof PersistentContextMap persistent) {
+			return persistent;
+		}
+		if (source == null || source.isEmpty()) {
+			return EMPTY;
+		}
+		return new PersistentContextMap(null, Collections.unmodifiableMap(new HashMap<>(source)), 0);
+	}
+
+	/**
+	 * Map with {@code key} set to {@code value}; this map is left untouched.
+	 */
+	public PersistentContextMap with(String key, Object value) {
+		if (containsKey(key) && get(key) == value) {
+			return this;
+		}
+		Map<String, Object> layer = new HashMap<>(2);
+		layer.put(key, value);
+		return push(layer);
+	}
+
+	/**
+	 * Map with all {@code entries} applied on top of this map; this map is left untouched.
+	 */
+	public PersistentContextMap withAll(Map<String, ?> entries) {
+		if (entries == null || entries.isEmpty()) {
+			return this;
+		}
+		return push(new HashMap<>(entries));
+	}
+
+	private PersistentContextMap push(Map<String, Object> layer) {
+		if (this == EMPTY) {
+			return new PersistentContextMap(null, Collections.unmodifiableMap(layer), 0);
+		}
+		if (depth + 1 >= MAX_DEPTH) {
+			Map<String, Object> collapsed = new HashMap<>(materialize());
+			collapsed.putAll(layer);
+			return new PersistentContextMap(null, Collections.unmodifiableMap(collapsed), 0);
+		}
+		return new PersistentContextMap(this, Collections.unmodifiableMap(layer), depth + 1);
+	}
+
+	@Override
+	public Object get(Object key) {
+		for (PersistentContextMap layer = this; layer != null; layer = layer.parent) {
+			if (layer.delta.containsKey(key)) {
+				return layer.delta.get(key);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		for (PersistentContextMap layer = this; layer != null; layer = layer.parent) {
+			if (layer.delta.containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return materialize().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return parent == null ? delta.isEmpty() : materialize().isEmpty();
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return materialize().entrySet();
+	}
+
+	private Map<String, Object> materialize() {
+		if (parent == null) {
+			return delta;
+		}
+		Map<String, Object> view = flattened;
+		if (view == null) {
+			Map<String, Object> merged = new HashMap<>(parent.materialize());
+			merged.putAll(delta);
+			view = Collections.unmodifiableMap(merged);
+			flattened = view;
+		}
+		return view;
+	}
+}
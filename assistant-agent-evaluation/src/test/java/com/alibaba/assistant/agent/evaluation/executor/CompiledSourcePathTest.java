@@ -0,0 +1,157 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.executor;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompiledSourcePathTest {
+
+	private static final List<String> PATHS = List.of(
+		"",
+		"   ",
+		"context",
+		"context.input",
+		"context.executionResult",
+		"context.environment",
+		"context.tools",
+		"context.input.testCases",
+		"context.input.nested.deep.items",
+		"context.input.nested.missing.items",
+		"context.input.nested.",
+		"context.input.nested..deep",
+		"context.executionResult.hits",
+		"context.environment.sessionId",
+		"dependencies",
+		"dependencies.collect_tools",
+		"dependencies.collect_tools.value",
+		"dependencies.collect_tools.value.items",
+		"dependencies.collect_tools.items",
+		"dependencies.scalar_dep.items",
+		"dependencies.null_dep.value",
+		"dependencies.missing.value",
+		"unknown.tools"
+	);
+
+	@Test
+	void resolve_shouldMatchSourcePathResolver_forAllSupportedPathShapes() {
+		EvaluationContext context = buildContext();
+		Map<String, CriterionResult> dependencies = buildDependencies();
+
+		for (String path : PATHS) {
+			Object expected = SourcePathResolver.resolve(path, context, dependencies);
+			Object actual = CompiledSourcePath.compile(path).resolve(context, dependencies);
+			assertEquals(expected, actual, "Mismatch for path '" + path + "'");
+		}
+	}
+
+	@Test
+	void resolve_shouldMatchSourcePathResolver_withNullInputs() {
+		for (String path : PATHS) {
+			assertEquals(SourcePathResolver.resolve(path, null, null),
+				CompiledSourcePath.compile(path).resolve(null, null), "Mismatch for path '" + path + "'");
+		}
+	}
+
+	@Test
+	void resolve_shouldBeRepeatable_whenCompiledOnce() {
+		EvaluationContext context = buildContext();
+		Map<String, CriterionResult> dependencies = buildDependencies();
+		CompiledSourcePath compiled = CompiledSourcePath.compile("context.input.nested.deep.items");
+
+		Object first = compiled.resolve(context, dependencies);
+		for (int i = 0; i < 1000; i++) {
+			assertSame(first, compiled.resolve(context, dependencies));
+		}
+	}
+
+	@Test
+	void resolve_shouldStepIntoListsAndGetters() {
+		Map<String, Object> input = new HashMap<>();
+		input.put("cases", List.of(Map.of("name", "first"), Map.of("name", "second")));
+		input.put("bean", new Bean("bean-value"));
+		EvaluationContext context = new EvaluationContext(input);
+
+		assertEquals("second", CompiledSourcePath.compile("context.input.cases.1.name").resolve(context, Map.of()));
+		assertNull(CompiledSourcePath.compile("context.input.cases.5.name").resolve(context, Map.of()));
+		assertEquals("bean-value", CompiledSourcePath.compile("context.input.bean.label").resolve(context, Map.of()));
+		assertEquals(true, CompiledSourcePath.compile("context.input.bean.active").resolve(context, Map.of()));
+		assertNull(CompiledSourcePath.compile("context.input.bean.class").resolve(context, Map.of()));
+	}
+
+	private static EvaluationContext buildContext() {
+		Map<String, Object> deep = new HashMap<>();
+		deep.put("items", List.of("a", "b", "c"));
+		Map<String, Object> nested = new HashMap<>();
+		nested.put("deep", deep);
+		nested.put("", Map.of("deep", "empty-key"));
+
+		Map<String, Object> input = new HashMap<>();
+		input.put("tools", List.of("tool1", "tool2"));
+		input.put("testCases", List.of(Map.of("id", 1)));
+		input.put("nested", nested);
+		input.put("userInput", "hello");
+
+		Map<String, Object> executionResult = new HashMap<>();
+		executionResult.put("hits", List.of("hit"));
+
+		Map<String, Object> environment = new HashMap<>();
+		environment.put("sessionId", "session-1");
+
+		return new EvaluationContext(input, executionResult, environment);
+	}
+
+	private static Map<String, CriterionResult> buildDependencies() {
+		Map<String, CriterionResult> dependencies = new HashMap<>();
+
+		CriterionResult collectTools = new CriterionResult();
+		collectTools.setValue(Map.of("items", List.of("x", "y"), "value", Map.of("items", List.of("z"))));
+		dependencies.put("collect_tools", collectTools);
+
+		CriterionResult scalar = new CriterionResult();
+		scalar.setValue("scalar");
+		dependencies.put("scalar_dep", scalar);
+
+		dependencies.put("null_dep", new CriterionResult());
+		return dependencies;
+	}
+
+	public static class Bean {
+
+		private final String label;
+
+		public Bean(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.evaluation.executor;
+
+import com.alibaba.assistant.agent.evaluation.builder.EvaluationCriterionBuilder;
+import com.alibaba.assistant.agent.evaluation.builder.EvaluationSuiteBuilder;
+import com.alibaba.assistant.agent.evaluation.evaluator.EvaluatorRegistry;
+import com.alibaba.assistant.agent.evaluation.evaluator.RuleBasedEvaluator;
+import com.alibaba.assistant.agent.evaluation.model.CriterionCondition;
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.CriterionStatus;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CriterionPruningTest {
+
+	private final GraphBasedEvaluationExecutor executor = new GraphBasedEvaluationExecutor();
+
+	/**
+	 * Mock "model" calls per criterion name; values are returned from {@link #answers}.
+	 */
+	private final Map<String, AtomicInteger> modelCalls = new ConcurrentHashMap<>();
+	private final Map<String, Object> answers = new ConcurrentHashMap<>();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void skipWhen_shouldPruneCriterionAndItsDependents() {
+		answers.put("input_clarity", "UNCLEAR");
+		EvaluationSuite suite = routingSuite();
+
+		EvaluationResult result = executor.execute(suite, new EvaluationContext(Map.of("user_input", "hmm")));
+
+		assertEquals(CriterionStatus.SUCCESS, status(result, "input_clarity"));
+		assertEquals(CriterionStatus.SKIPPED, status(result, "tool_selection"));
+		assertEquals(CriterionStatus.SKIPPED, status(result, "tool_arguments"));
+		assertEquals(CriterionStatus.SUCCESS, status(result, "language"));
+		assertEquals(2, result.getStatistics().getSkippedCount());
+
+		assertEquals(1, calls("input_clarity"));
+		assertEquals(0, calls("tool_selection"));
+		assertEquals(0, calls("tool_arguments"));
+		assertEquals(1, calls("language"));
+	}
+
+	@Test
+	void skipWhen_shouldRunEverything_whenConditionDoesNotMatch() {
+		answers.put("input_clarity", "CLEAR");
+		EvaluationSuite suite = routingSuite();
+
+		EvaluationResult result = executor.execute(suite, new EvaluationContext(Map.of("user_input", "list files")));
+
+		assertEquals(0, result.getStatistics().getSkippedCount());
+		assertEquals(1, calls("tool_selection"));
+		assertEquals(1, calls("tool_arguments"));
+	}
+
+	@Test
+	void stopSuiteWhen_shouldSkipAllLaterLevels() {
+		answers.put("gate", false);
+		EvaluatorRegistry registry = countingRegistry();
+		EvaluationSuite suite = EvaluationSuiteBuilder.create("stop-suite", registry)
+			.addCriteria(
+				EvaluationCriterionBuilder.create("gate")
+					.evaluatorRef("mock")
+					.stopSuiteWhen(CriterionCondition.isFalse(null))
+					.build(),
+				EvaluationCriterionBuilder.create("second").evaluatorRef("mock").dependsOn("gate").build(),
+				EvaluationCriterionBuilder.create("third").evaluatorRef("mock").dependsOn("second").build())
+			.build();
+
+		EvaluationResult result = executor.execute(suite, new EvaluationContext());
+
+		assertEquals(CriterionStatus.SUCCESS, status(result, "gate"));
+		assertEquals(CriterionStatus.SKIPPED, status(result, "second"));
+		assertEquals(CriterionStatus.SKIPPED, status(result, "third"));
+		assertEquals(1, modelCalls.values().stream().mapToInt(AtomicInteger::get).sum());
+	}
+
+	@Test
+	void build_shouldRejectSkipWhenOnNonDependency() {
+		EvaluatorRegistry registry = countingRegistry();
+		EvaluationSuiteBuilder builder = EvaluationSuiteBuilder.create("invalid", registry)
+			.addCriteria(
+				EvaluationCriterionBuilder.create("a").evaluatorRef("mock").build(),
+				EvaluationCriterionBuilder.create("b")
+					.evaluatorRef("mock")
+					.skipWhen(CriterionCondition.valueEquals("a", "x"))
+					.build());
+
+		assertThrows(IllegalStateException.class, builder::build);
+	}
+
+	@Test
+	void build_shouldRejectStopSuiteWhenOnUnknownOrInvisibleCriterion() {
+		EvaluatorRegistry registry = countingRegistry();
+		EvaluationSuiteBuilder typo = EvaluationSuiteBuilder.create("typo", registry)
+			.addCriteria(
+				EvaluationCriterionBuilder.create("gate")
+					.evaluatorRef("mock")
+					.stopSuiteWhen(CriterionCondition.isFalse("gtae"))
+					.build());
+		assertThrows(IllegalArgumentException.class, typo::build);
+
+		EvaluationSuiteBuilder notUpstream = EvaluationSuiteBuilder.create("not-upstream", registry)
+			.addCriteria(
+				EvaluationCriterionBuilder.create("a").evaluatorRef("mock").build(),
+				EvaluationCriterionBuilder.create("b")
+					.evaluatorRef("mock")
+					.stopSuiteWhen(CriterionCondition.isFalse("a"))
+					.build());
+		assertThrows(IllegalArgumentException.class, notUpstream::build);
+
+		EvaluationSuite valid = EvaluationSuiteBuilder.create("valid", registry)
+			.addCriteria(
+				EvaluationCriterionBuilder.create("a").evaluatorRef("mock").build(),
+				EvaluationCriterionBuilder.create("b")
+					.evaluatorRef("mock")
+					.dependsOn("a")
+					.stopSuiteWhen(CriterionCondition.isFalse("a"), CriterionCondition.isFalse("b"))
+					.build())
+			.build();
+		assertNotNull(valid);
+	}
+
+	@Test
+	void compile_shouldAcceptNullInValueList() {
+		CriterionGuard guard = CriterionGuard.compile(
+				List.of(CriterionCondition.valueIn("a", "SKIP", null)), "self");
+
+		CriterionResult nullValue = new CriterionResult();
+		nullValue.setCriterionName("a");
+		nullValue.setStatus(CriterionStatus.SUCCESS);
+		CriterionResult otherValue = new CriterionResult();
+		otherValue.setCriterionName("a");
+		otherValue.setStatus(CriterionStatus.SUCCESS);
+		otherValue.setValue("RUN");
+
+		assertNotNull(guard.firstMatch(Map.of("a", nullValue)));
+		assertNull(guard.firstMatch(Map.of("a", otherValue)));
+	}
+
+	private EvaluationSuite routingSuite() {
+		return EvaluationSuiteBuilder.create("routing", countingRegistry())
+			.addCriteria(
+				EvaluationCriterionBuilder.create("input_clarity").evaluatorRef("mock").build(),
+				EvaluationCriterionBuilder.create("language").evaluatorRef("mock").build(),
+				EvaluationCriterionBuilder.create("tool_selection")
+					.evaluatorRef("mock")
+					.dependsOn("input_clarity")
+					.skipWhen(CriterionCondition.valueIn("input_clarity", "UNCLEAR", "AMBIGUOUS"))
+					.build(),
+				EvaluationCriterionBuilder.create("tool_arguments")
+					.evaluatorRef("mock")
+					.dependsOn("tool_selection")
+					.build())
+			.build();
+	}
+
+	private EvaluatorRegistry countingRegistry() {
+		EvaluatorRegistry registry = new EvaluatorRegistry();
+		registry.registerEvaluator(new RuleBasedEvaluator("mock", ctx -> {
+			String name = ctx.getCriterion().getName();
+			modelCalls.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+			CriterionResult result = new CriterionResult();
+			result.setStatus(CriterionStatus.SUCCESS);
+			result.setValue(answers.getOrDefault(name, "ok"));
+			return result;
+		}));
+		return registry;
+	}
+
+	private int calls(String criterionName) {
+		AtomicInteger count = modelCalls.get(criterionName);
+		return count != null ? count.get() : 0;
+	}
+
+	private static CriterionStatus status(EvaluationResult result, String criterionName) {
+		return result.getCriteriaResults().get(criterionName).getStatus();
+	}
+}
@@ -16,10 +16,14 @@
 package com.alibaba.assistant.agent.extension.evaluation.config;
 
 import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingEvaluationHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingReconcileHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.SpeculativeRoutingCoordinator;
 import com.alibaba.assistant.agent.evaluation.DefaultEvaluationService;
 import com.alibaba.assistant.agent.evaluation.EvaluationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -82,8 +86,38 @@ public class CodeactEvaluationAutoConfiguration {
 			EvaluationService evaluationService,
 			CodeactEvaluationContextFactory contextFactory,
 			CodeactEvaluationResultAttacher resultAttacher,
-			CodeactEvaluationProperties properties) {
+			CodeactEvaluationProperties properties,
+			ObjectProvider<SpeculativeRoutingCoordinator> speculativeRoutingCoordinator) {
 		log.info("CodeactEvaluationAutoConfiguration#inputRoutingEvaluationHook - reason=创建输入路由评估 Hook");
-		return new InputRoutingEvaluationHook(evaluationService, contextFactory, resultAttacher, properties);
+		return new InputRoutingEvaluationHook(evaluationService, contextFactory, resultAttacher, properties,
+				speculativeRoutingCoordinator.getIfAvailable());
+	}
+
+	/**
+	 * 输入路由推测协调器
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(
+			prefix = "spring.ai.alibaba.codeact.extension.evaluation.input-routing-speculation",
+			name = "enabled",
+			havingValue = "true"
+	)
+	public SpeculativeRoutingCoordinator speculativeRoutingCoordinator(CodeactEvaluationProperties properties) {
+		log.info("CodeactEvaluationAutoConfiguration#speculativeRoutingCoordinator - reason=创建输入路由推测协调器, deadlineMs={}, fallback={}",
+				properties.getInputRoutingSpeculation().getDeadlineMs(), properties.getInputRoutingSpeculation().getFallback());
+		return new SpeculativeRoutingCoordinator(properties.getInputRoutingSpeculation());
+	}
+
+	/**
+	 * 输入路由推测结果对齐 Hook（首次模型调用前对齐评估结果）
+	 */
+	@Bean
+	@ConditionalOnBean({InputRoutingEvaluationHook.class, SpeculativeRoutingCoordinator.class})
+	public InputRoutingReconcileHook inputRoutingReconcileHook(
+			InputRoutingEvaluationHook inputRoutingEvaluationHook,
+			SpeculativeRoutingCoordinator speculativeRoutingCoordinator) {
+		log.info("CodeactEvaluationAutoConfiguration#inputRoutingReconcileHook - reason=创建输入路由推测对齐 Hook");
+		return new InputRoutingReconcileHook(inputRoutingEvaluationHook, speculativeRoutingCoordinator);
 	}
 }
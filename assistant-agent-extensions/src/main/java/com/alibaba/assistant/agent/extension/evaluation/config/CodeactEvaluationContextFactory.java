@@ -17,6 +17,7 @@ package com.alibaba.assistant.agent.extension.evaluation.config;
 
 import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
+import com.alibaba.assistant.agent.evaluation.model.HistoryWindow;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import org.slf4j.Logger;
@@ -39,39 +40,48 @@ public class CodeactEvaluationContextFactory {
 
 	private static final Logger log = LoggerFactory.getLogger(CodeactEvaluationContextFactory.class);
 
+	private final IncrementalEvaluationContextBuilder contextBuilder;
+
+	public CodeactEvaluationContextFactory() {
+		this(new IncrementalEvaluationContextBuilder());
+	}
+
+	public CodeactEvaluationContextFactory(IncrementalEvaluationContextBuilder contextBuilder) {
+		this.contextBuilder = contextBuilder;
+	}
+
+	/**
+	 * 构造输入路由评估的上下文（完整会话历史）
+	 *
+	 * @param state Agent 状态
+	 * @param config 运行配置
+	 * @return EvaluationContext
+	 */
+	public EvaluationContext createInputRoutingContext(OverAllState state, RunnableConfig config) {
+		return createInputRoutingContext(state, config, List.of(HistoryWindow.all()));
+	}
+
 	/**
 	 * 构造输入路由评估的上下文
 	 *
 	 * @param state Agent 状态
 	 * @param config 运行配置
+	 * @param historyWindows 会话历史窗口，通常为 {@link com.alibaba.assistant.agent.evaluation.model.EvaluationSuite#getRequiredHistoryWindows()}
 	 * @return EvaluationContext
 	 */
 	@SuppressWarnings("unchecked")
-	public EvaluationContext createInputRoutingContext(OverAllState state, RunnableConfig config) {
-		log.debug("CodeactEvaluationContextFactory#createInputRoutingContext - reason=开始构造输入路由评估上下文");
+	public EvaluationContext createInputRoutingContext(OverAllState state, RunnableConfig config, List<HistoryWindow> historyWindows) {
+		log.debug("CodeactEvaluationContextFactory#createInputRoutingContext - reason=开始构造输入路由评估上下文, historyWindows={}", historyWindows);
 
-		Map<String, Object> input = new HashMap<>();
 		Map<String, Object> executionResult = new HashMap<>();
 
-		// 提取用户输入 - 从 state 的 messages key 中获取
-		Optional<List<Message>> messagesOpt = state.value("messages");
-		if (messagesOpt.isPresent()) {
-			List<Message> messages = messagesOpt.get();
-			if (!messages.isEmpty()) {
-				// 取最后一条用户消息
-				Message lastMessage = messages.get(messages.size() - 1);
-				input.put(CodeactEvaluationTag.INPUT_USER_INPUT, lastMessage.getText());
-
-				// 会话历史
-				input.put(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY, messages);
-			}
-		}
+		// 用户输入取最后一条消息，会话历史按窗口截取
+		List<Message> messages = state.value("messages").map(value -> (List<Message>) value).orElse(null);
 
 		// 提取 Agent 名称（从 config 或 state 中）
-		String agentName = state.value("agentName", String.class).orElse(null);
-		if (agentName != null) {
-			input.put(CodeactEvaluationTag.INPUT_AGENT_NAME, agentName);
-		}
+		Map<String, Object> stableFields = state.value("agentName", String.class)
+				.<Map<String, Object>>map(agentName -> Map.of(CodeactEvaluationTag.INPUT_AGENT_NAME, agentName))
+				.orElse(null);
 
 		// 可选：检查是否有知识检索结果
 		Optional<Object> knowledgeHitsOpt = state.value("knowledgeSearchHits");
@@ -79,42 +89,66 @@ public class CodeactEvaluationContextFactory {
 			executionResult.put(CodeactEvaluationTag.EXEC_KNOWLEDGE_SEARCH_HITS, hits));
 
 		// 注入外部参数（如果存在）
-		Optional<Map<String, Object>> externalParamsOpt = state.value("evaluationExternalParams");
-		externalParamsOpt.ifPresent(params -> input.putAll(params));
+		Map<String, Object> externalParams = state.value("evaluationExternalParams")
+				.map(value -> (Map<String, Object>) value).orElse(null);
+
+		Map<String, Object> input = contextBuilder.buildInput(
+				sessionKeyOf(config), messages, historyWindows, true, stableFields, externalParams);
 
 		return new EvaluationContext(input, executionResult);
 	}
 
+	/**
+	 * 构造模型输出评估的上下文（完整会话历史）
+	 *
+	 * @param state Agent 状态
+	 * @param modelOutput 当前轮的模型输出内容
+	 * @return EvaluationContext
+	 */
+	public EvaluationContext createModelOutputContext(OverAllState state, String modelOutput) {
+		return createModelOutputContext(state, modelOutput, List.of(HistoryWindow.all()));
+	}
+
+	/**
+	 * 构造模型输出评估的上下文
+	 *
+	 * @param state Agent 状态
+	 * @param modelOutput 当前轮的模型输出内容
+	 * @param historyWindows 会话历史窗口
+	 * @return EvaluationContext
+	 */
+	public EvaluationContext createModelOutputContext(OverAllState state, String modelOutput, List<HistoryWindow> historyWindows) {
+		return createModelOutputContext(state, null, modelOutput, historyWindows);
+	}
+
 	/**
 	 * 构造模型输出评估的上下文
 	 *
 	 * @param state Agent 状态
+	 * @param config 运行配置，提供 threadId 时按会话增量截取历史窗口，可为 null
 	 * @param modelOutput 当前轮的模型输出内容
+	 * @param historyWindows 会话历史窗口
 	 * @return EvaluationContext
 	 */
 	@SuppressWarnings("unchecked")
-	public EvaluationContext createModelOutputContext(OverAllState state, String modelOutput) {
+	public EvaluationContext createModelOutputContext(OverAllState state, RunnableConfig config, String modelOutput,
+			List<HistoryWindow> historyWindows) {
 		log.debug("CodeactEvaluationContextFactory#createModelOutputContext - reason=开始构造模型输出评估上下文");
 
-		Map<String, Object> input = new HashMap<>();
 		Map<String, Object> executionResult = new HashMap<>();
 
 		// 提取用户输入与会话历史
-		Optional<List<Message>> messagesOpt = state.value("messages");
-		if (messagesOpt.isPresent()) {
-			List<Message> messages = messagesOpt.get();
-			if (!messages.isEmpty()) {
-				input.put(CodeactEvaluationTag.INPUT_USER_INPUT, messages.get(messages.size() - 1).getText());
-				input.put(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY, messages);
-			}
-		}
+		List<Message> messages = state.value("messages").map(value -> (List<Message>) value).orElse(null);
 
 		// 当前模型输出
 		executionResult.put(CodeactEvaluationTag.EXEC_MODEL_OUTPUT, modelOutput);
 
 		// 注入外部参数（如果存在）
-		Optional<Map<String, Object>> externalParamsOpt = state.value("evaluationExternalParams");
-		externalParamsOpt.ifPresent(params -> input.putAll(params));
+		Map<String, Object> externalParams = state.value("evaluationExternalParams")
+				.map(value -> (Map<String, Object>) value).orElse(null);
+
+		Map<String, Object> input = contextBuilder.buildInput(
+				sessionKeyOf(config), messages, historyWindows, true, null, externalParams);
 
 		return new EvaluationContext(input, executionResult);
 	}
@@ -128,33 +162,73 @@ public class CodeactEvaluationContextFactory {
 	 * @param environmentConstraints 环境约束
 	 * @return EvaluationContext
 	 */
-	@SuppressWarnings("unchecked")
 	public EvaluationContext createCodeGenerationInputContext(
 			OverAllState state,
 			String codeTaskDescription,
 			String targetLanguage,
 			Map<String, Object> environmentConstraints) {
+		return createCodeGenerationInputContext(state, codeTaskDescription, targetLanguage, environmentConstraints, List.of(HistoryWindow.all()));
+	}
 
-		log.debug("CodeactEvaluationContextFactory#createCodeGenerationInputContext - reason=开始构造代码生成输入评估上下文");
+	/**
+	 * 构造代码生成输入评估的上下文
+	 *
+	 * @param state Agent 状态
+	 * @param codeTaskDescription 代码任务描述
+	 * @param targetLanguage 目标语言
+	 * @param environmentConstraints 环境约束
+	 * @param historyWindows 会话历史窗口
+	 * @return EvaluationContext
+	 */
+	public EvaluationContext createCodeGenerationInputContext(
+			OverAllState state,
+			String codeTaskDescription,
+			String targetLanguage,
+			Map<String, Object> environmentConstraints,
+			List<HistoryWindow> historyWindows) {
+		return createCodeGenerationInputContext(state, null, codeTaskDescription, targetLanguage, environmentConstraints,
+				historyWindows);
+	}
 
-		Map<String, Object> input = new HashMap<>();
-		Map<String, Object> executionResult = new HashMap<>();
+	/**
+	 * 构造代码生成输入评估的上下文
+	 *
+	 * @param state Agent 状态
+	 * @param config 运行配置，提供 threadId 时按会话增量截取历史窗口，可为 null
+	 * @param codeTaskDescription 代码任务描述
+	 * @param targetLanguage 目标语言
+	 * @param environmentConstraints 环境约束
+	 * @param historyWindows 会话历史窗口
+	 * @return EvaluationContext
+	 */
+	@SuppressWarnings("unchecked")
+	public EvaluationContext createCodeGenerationInputContext(
+			OverAllState state,
+			RunnableConfig config,
+			String codeTaskDescription,
+			String targetLanguage,
+			Map<String, Object> environmentConstraints,
+			List<HistoryWindow> historyWindows) {
+
+		log.debug("CodeactEvaluationContextFactory#createCodeGenerationInputContext - reason=开始构造代码生成输入评估上下文");
 
 		// 代码生成任务相关参数
-		input.put(CodeactEvaluationTag.INPUT_CODE_TASK_DESCRIPTION, codeTaskDescription);
-		input.put(CodeactEvaluationTag.INPUT_TARGET_LANGUAGE, targetLanguage);
-		input.put(CodeactEvaluationTag.INPUT_ENVIRONMENT_CONSTRAINTS, environmentConstraints);
+		Map<String, Object> taskFields = new HashMap<>();
+		taskFields.put(CodeactEvaluationTag.INPUT_CODE_TASK_DESCRIPTION, codeTaskDescription);
+		taskFields.put(CodeactEvaluationTag.INPUT_TARGET_LANGUAGE, targetLanguage);
+		taskFields.put(CodeactEvaluationTag.INPUT_ENVIRONMENT_CONSTRAINTS, environmentConstraints);
 
 		// 会话上下文
-		Optional<List<Message>> messagesOpt = state.value("messages");
-		messagesOpt.ifPresent(messages ->
-			input.put(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY, messages));
+		List<Message> messages = state.value("messages").map(value -> (List<Message>) value).orElse(null);
 
 		// 注入外部参数（如果存在）
-		Optional<Map<String, Object>> externalParamsOpt = state.value("evaluationExternalParams");
-		externalParamsOpt.ifPresent(params -> input.putAll(params));
+		Map<String, Object> externalParams = state.value("evaluationExternalParams")
+				.map(value -> (Map<String, Object>) value).orElse(null);
 
-		return new EvaluationContext(input, executionResult);
+		Map<String, Object> input = contextBuilder.buildInput(
+				sessionKeyOf(config), messages, historyWindows, false, taskFields, externalParams);
+
+		return new EvaluationContext(input, new HashMap<>());
 	}
 
 	/**
@@ -249,5 +323,8 @@ public class CodeactEvaluationContextFactory {
 
 		return new EvaluationContext(input, executionResult);
 	}
-}
 
+	private static String sessionKeyOf(RunnableConfig config) {
+		return config != null ? config.threadId().orElse(null) : null;
+	}
+}
@@ -46,6 +46,12 @@ public class CodeactEvaluationProperties {
 	 */
 	private EvaluationPointConfig inputRouting = new EvaluationPointConfig(true, "input_routing_suite");
 
+	/**
+	 * 输入路由推测执行配置
+	 * 启用后 BEFORE_AGENT 阶段只启动评估而不阻塞，在首次模型调用前再对齐评估结果
+	 */
+	private SpeculativeRoutingConfig inputRoutingSpeculation = new SpeculativeRoutingConfig();
+
 	/**
 	 * 模型输出评估配置
 	 */
@@ -100,6 +106,14 @@ public class CodeactEvaluationProperties {
 		this.inputRouting = inputRouting;
 	}
 
+	public SpeculativeRoutingConfig getInputRoutingSpeculation() {
+		return inputRoutingSpeculation;
+	}
+
+	public void setInputRoutingSpeculation(SpeculativeRoutingConfig inputRoutingSpeculation) {
+		this.inputRoutingSpeculation = inputRoutingSpeculation;
+	}
+
 	public EvaluationPointConfig getModelOutput() {
 		return modelOutput;
 	}
@@ -170,5 +184,91 @@ public class CodeactEvaluationProperties {
 			this.suiteId = suiteId;
 		}
 	}
-}
 
+	/**
+	 * 输入路由推测执行配置
+	 */
+	public static class SpeculativeRoutingConfig {
+		/**
+		 * 是否启用推测路由（默认关闭，保持阻塞等待评估结果的行为）
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 从评估启动开始计算的截止时间（毫秒）
+		 * 首次模型调用时最多等待剩余时间，超时后按 fallback 策略处理
+		 */
+		private long deadlineMs = 3000;
+
+		/**
+		 * 截止时间到达仍未拿到评估结果时的兜底策略
+		 */
+		private DeadlineFallback fallback = DeadlineFallback.LAST_KNOWN_RESULT;
+
+		/**
+		 * 为 LAST_KNOWN_RESULT 策略保留最近结果的最大会话数
+		 */
+		private int maxTrackedSessions = 1024;
+
+		/**
+		 * 进行中评估的保留时间（毫秒）
+		 * 本轮未走到模型调用（FastIntent 命中、异常提前结束等）时不会对齐，超过该时间后清理，不影响评估在后台完成
+		 */
+		private long pendingTtlMs = 60_000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getDeadlineMs() {
+			return deadlineMs;
+		}
+
+		public void setDeadlineMs(long deadlineMs) {
+			this.deadlineMs = deadlineMs;
+		}
+
+		public DeadlineFallback getFallback() {
+			return fallback;
+		}
+
+		public void setFallback(DeadlineFallback fallback) {
+			this.fallback = fallback;
+		}
+
+		public int getMaxTrackedSessions() {
+			return maxTrackedSessions;
+		}
+
+		public void setMaxTrackedSessions(int maxTrackedSessions) {
+			this.maxTrackedSessions = maxTrackedSessions;
+		}
+
+		public long getPendingTtlMs() {
+			return pendingTtlMs;
+		}
+
+		public void setPendingTtlMs(long pendingTtlMs) {
+			this.pendingTtlMs = pendingTtlMs;
+		}
+	}
+
+	/**
+	 * 推测路由截止时间兜底策略
+	 */
+	public enum DeadlineFallback {
+		/**
+		 * 使用同一会话最近一次完成的评估结果；没有则走默认路由
+		 */
+		LAST_KNOWN_RESULT,
+
+		/**
+		 * 直接走默认路由（不注入评估结果）
+		 */
+		DEFAULT_ROUTE
+	}
+}
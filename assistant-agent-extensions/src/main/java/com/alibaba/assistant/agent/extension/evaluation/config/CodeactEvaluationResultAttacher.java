@@ -16,6 +16,7 @@
 package com.alibaba.assistant.agent.extension.evaluation.config;
 
 import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import com.alibaba.assistant.agent.extension.evaluation.model.InjectionLedger;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
@@ -45,6 +46,8 @@ public class CodeactEvaluationResultAttacher {
 
 	private static final Logger log = LoggerFactory.getLogger(CodeactEvaluationResultAttacher.class);
 	private static final String EVALUATION_TOOL_NAME = "__evaluation_injection__";
+	private static final Pattern SUITE_PATTERN = Pattern.compile("<evaluations suite-id=\"([^\"]+)\">([\\s\\S]*?)</evaluations>");
+	private static final Pattern EVALUATION_PATTERN = Pattern.compile("<evaluation criterion=\"([^\"]+)\" ref-id=\"([^\"]*)\">([\\s\\S]*?)</evaluation>");
 
 	/**
 	 * 将输入路由评估结果写入 OverAllState
@@ -175,27 +178,11 @@ public class CodeactEvaluationResultAttacher {
 	private void appendEvaluationResultToMessages(OverAllState state, Map<String, Object> updates, EvaluationResult result) {
 		log.info("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=开始处理评估结果注入");
 
-		// 获取当前的 messages
-		List<Message> currentMessages = new ArrayList<>();
-		Optional<List<Message>> messagesOpt = state.value("messages");
-		if (messagesOpt.isPresent()) {
-			currentMessages.addAll(messagesOpt.get());
-		}
+		// 1. 取回注入台账，只扫描高水位之后新增的消息
+		InjectionLedger ledger = resolveLedger(state);
+		updates.put(CodeactEvaluationTag.STATE_INJECTION_LEDGER, ledger);
 
-		// 1. 解析历史中已存在的 ref-id 集合
-		Map<String, String> existingEvaluations = new HashMap<>();
-		for (Message msg : currentMessages) {
-			if (msg instanceof ToolResponseMessage toolMsg) {
-				for (ToolResponseMessage.ToolResponse resp : toolMsg.getResponses()) {
-					if (EVALUATION_TOOL_NAME.equals(resp.name())) {
-						parseExistingEvaluations(resp.responseData(), existingEvaluations);
-						break;
-					}
-				}
-			}
-		}
-
-		log.info("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=已解析历史评估结果, 历史条目数={}", existingEvaluations.size());
+		log.info("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=已更新注入台账, ledger={}", ledger);
 
 		// 2. 筛选出需要新增的 criterion（每个 ref-id 对应一个独立的 evaluation 标签，基于 suite-id + criterion + ref-id 去重）
 		Map<String, String> newEvaluations = new HashMap<>();
@@ -236,7 +223,7 @@ public class CodeactEvaluationResultAttacher {
 							// 使用 suite-id + criterion + ref-id 作为去重 key
 							String dedupeKey = suiteId + "|" + criterionName + "|" + refId;
 
-							if (existingEvaluations.containsKey(dedupeKey)) {
+							if (ledger.contains(InjectionLedger.fingerprint(dedupeKey))) {
 								log.debug("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=跳过已存在的ref-id, criterion={}, refId={}",
 										criterionName, refId);
 								continue;
@@ -253,7 +240,7 @@ public class CodeactEvaluationResultAttacher {
 					String content = String.valueOf(criterionResult.getValue());
 					String dedupeKey = suiteId + "|" + criterionName + "|";
 
-					if (existingEvaluations.containsKey(dedupeKey)) {
+					if (ledger.contains(InjectionLedger.fingerprint(dedupeKey))) {
 						log.debug("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=跳过已存在的无ref-id criterion, criterion={}",
 								criterionName);
 						continue;
@@ -272,6 +259,10 @@ public class CodeactEvaluationResultAttacher {
 
 		log.info("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=筛选出新评估条目, 新条目数={}", newEvaluations.size());
 
+		for (String dedupeKey : newEvaluations.keySet()) {
+			ledger.addFingerprint(InjectionLedger.fingerprint(dedupeKey));
+		}
+
 		// 3. 仅用新的 evaluations 构建 XML 内容（不包含历史）
 		String newEvaluationText = rebuildEvaluationXml(newEvaluations);
 
@@ -296,18 +287,82 @@ public class CodeactEvaluationResultAttacher {
 		log.info("CodeactEvaluationResultAttacher#appendEvaluationResultToMessages - reason=已创建增量评估消息对, 新消息数={}", incrementalMessages.size());
 	}
 
+	/**
+	 * 取回会话的注入台账，并扫描上次高水位之后新增的消息
+	 * 台账不存在时（首次调用或旧会话）从头扫描一次；消息数少于高水位，或高水位前最后一条消息的指纹对不上，
+	 * 说明历史被改写（压缩后长度可能不变甚至变长），重建台账
+	 *
+	 * @param state Agent 状态
+	 * @return 已推进到当前消息末尾的台账副本（需写回状态才会生效）
+	 */
+	@SuppressWarnings("unchecked")
+	public InjectionLedger resolveLedger(OverAllState state) {
+		// 状态中的台账不原地修改，推进副本并由调用方作为状态更新写回
+		InjectionLedger stored = InjectionLedger.from(state.value(CodeactEvaluationTag.STATE_INJECTION_LEDGER).orElse(null));
+		InjectionLedger ledger = stored != null ? stored.copy() : new InjectionLedger();
+
+		List<Message> messages = state.value("messages").map(value -> (List<Message>) value).orElse(List.of());
+		int size = messages.size();
+		int highWater = ledger.getHighWater();
+		if (size < highWater
+				|| (highWater > 0 && messageFingerprint(messages.get(highWater - 1)) != ledger.getLastMessageFingerprint())) {
+			log.info("CodeactEvaluationResultAttacher#resolveLedger - reason=历史已被改写，重建台账, size={}, highWater={}",
+					size, highWater);
+			ledger.reset();
+		}
+
+		Map<String, String> existingEvaluations = new HashMap<>();
+		for (int i = ledger.getHighWater(); i < size; i++) {
+			if (messages.get(i) instanceof ToolResponseMessage toolMsg) {
+				for (ToolResponseMessage.ToolResponse resp : toolMsg.getResponses()) {
+					ledger.addFingerprint(toolFingerprint(resp.name()));
+					if (EVALUATION_TOOL_NAME.equals(resp.name())) {
+						parseExistingEvaluations(resp.responseData(), existingEvaluations);
+					}
+				}
+			}
+		}
+		for (String dedupeKey : existingEvaluations.keySet()) {
+			ledger.addFingerprint(InjectionLedger.fingerprint(dedupeKey));
+		}
+		ledger.setHighWater(size);
+		ledger.setLastMessageFingerprint(size > 0 ? messageFingerprint(messages.get(size - 1)) : 0);
+		return ledger;
+	}
+
+	/**
+	 * 消息指纹：类型、文本与工具响应 id，保证跨进程恢复的台账指纹一致
+	 */
+	static long messageFingerprint(Message message) {
+		if (message == null) {
+			return InjectionLedger.fingerprint("null");
+		}
+		StringBuilder key = new StringBuilder().append(message.getMessageType()).append('|').append(message.getText());
+		if (message instanceof ToolResponseMessage toolMsg) {
+			for (ToolResponseMessage.ToolResponse response : toolMsg.getResponses()) {
+				key.append('|').append(response.id());
+			}
+		}
+		return InjectionLedger.fingerprint(key.toString());
+	}
+
+	/**
+	 * 工具响应名称的台账指纹，用于判断某类注入消息是否已存在
+	 */
+	public static long toolFingerprint(String toolName) {
+		return InjectionLedger.fingerprint("tool:" + toolName);
+	}
+
 	private void parseExistingEvaluations(String xml, Map<String, String> map) {
 		// 简单的正则解析，假设格式比较规范
 		// <evaluations suite-id="..."> ... </evaluations>
-		Pattern suitePattern = Pattern.compile("<evaluations suite-id=\"([^\"]+)\">([\\s\\S]*?)</evaluations>");
-		Matcher suiteMatcher = suitePattern.matcher(xml);
+		Matcher suiteMatcher = SUITE_PATTERN.matcher(xml);
 
 		while (suiteMatcher.find()) {
 			String suiteId = suiteMatcher.group(1);
 			String content = suiteMatcher.group(2);
 
-			Pattern evalPattern = Pattern.compile("<evaluation criterion=\"([^\"]+)\" ref-id=\"([^\"]*)\">([\\s\\S]*?)</evaluation>");
-			Matcher evalMatcher = evalPattern.matcher(content);
+			Matcher evalMatcher = EVALUATION_PATTERN.matcher(content);
 
 			while (evalMatcher.find()) {
 				String criterion = evalMatcher.group(1);
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.config;
+
+import com.alibaba.assistant.agent.evaluation.model.HistoryWindow;
+import com.alibaba.assistant.agent.evaluation.model.PersistentContextMap;
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * 增量评估上下文构造器
+ *
+ * <p>为 {@link CodeactEvaluationContextFactory} 提供两项能力，使每轮构造上下文的开销与会话长度无关：
+ * <ul>
+ *   <li>消息窗口：按一组 {@link HistoryWindow}（最近 K 条、仅用户消息等）截取会话历史，结果为任一窗口选中的消息；
+ *       同一会话中只扫描上一轮之后新增的消息，没有新消息时直接复用上一轮的列表</li>
+ *   <li>结构共享：agentName、外部参数等跨轮稳定的字段缓存为 {@link PersistentContextMap}，
+ *       每轮只在其上叠加 userInput 与会话历史，EvaluationContext 不再做防御性拷贝</li>
+ * </ul>
+ *
+ * <p>会话状态按 sessionKey（RunnableConfig threadId）保存，最多保留 maxTrackedSessions 个会话（LRU）；
+ * sessionKey 为 null 时退化为无状态的窗口截取。同一会话中不同 Suite 可能声明不同的窗口组合
+ * （如输入路由与 REACT 阶段模型输入评估交替调用），增量扫描状态按窗口组合分别保存，每个会话最多
+ * {@value #MAX_WINDOW_SETS_PER_SESSION} 组（LRU），交替调用不会互相重置。
+ *
+ * @author Assistant Agent Team
+ */
+public class IncrementalEvaluationContextBuilder {
+
+	public static final int DEFAULT_MAX_TRACKED_SESSIONS = 1024;
+
+	static final int MAX_WINDOW_SETS_PER_SESSION = 8;
+
+	private final Map<String, SessionState> sessions;
+
+	public IncrementalEvaluationContextBuilder() {
+		this(DEFAULT_MAX_TRACKED_SESSIONS);
+	}
+
+	public IncrementalEvaluationContextBuilder(int maxTrackedSessions) {
+		int maxSessions = Math.max(1, maxTrackedSessions);
+		this.sessions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, SessionState> eldest) {
+				return size() > maxSessions;
+			}
+		});
+	}
+
+	/**
+	 * 构造输入字段
+	 *
+	 * @param sessionKey 会话标识，可为 null
+	 * @param messages 完整会话消息（可为 null）
+	 * @param windows 需要的历史窗口，通常为 {@link com.alibaba.assistant.agent.evaluation.model.EvaluationSuite#getRequiredHistoryWindows()}
+	 * @param includeUserInput 是否写入最后一条消息作为 userInput
+	 * @param stableFields 跨轮稳定的字段（agentName 等），可为 null
+	 * @param externalParams 外部参数，优先级最高，可为 null
+	 * @return 不可变输入 Map
+	 */
+	public PersistentContextMap buildInput(
+			String sessionKey,
+			List<Message> messages,
+			List<HistoryWindow> windows,
+			boolean includeUserInput,
+			Map<String, Object> stableFields,
+			Map<String, Object> externalParams) {
+
+		SessionState session = sessionKey != null ? sessions.computeIfAbsent(sessionKey, k -> new SessionState()) : null;
+		PersistentContextMap base = session != null
+				? session.stableInput(stableFields, externalParams)
+				: PersistentContextMap.of(merge(stableFields, externalParams));
+
+		if (messages == null) {
+			return base;
+		}
+
+		PersistentContextMap input = base;
+		// 外部参数优先：只有 base 中不存在时才写入本轮字段
+		if (includeUserInput && !messages.isEmpty() && !base.containsKey(CodeactEvaluationTag.INPUT_USER_INPUT)) {
+			input = input.with(CodeactEvaluationTag.INPUT_USER_INPUT, messages.get(messages.size() - 1).getText());
+		}
+		if ((!includeUserInput || !messages.isEmpty()) && !base.containsKey(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY)) {
+			List<Message> history = session != null ? session.window(messages, windows) : windowOf(messages, windows);
+			input = input.with(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY, history);
+		}
+		return input;
+	}
+
+	/**
+	 * 截取会话历史窗口
+	 *
+	 * @param sessionKey 会话标识，为 null 时不做增量缓存
+	 * @param messages 完整会话消息
+	 * @param windows 需要的历史窗口
+	 * @return 任一窗口选中的消息（按原顺序）；包含完整历史窗口时直接返回 messages
+	 */
+	public List<Message> window(String sessionKey, List<Message> messages, List<HistoryWindow> windows) {
+		if (sessionKey == null) {
+			return windowOf(messages, windows);
+		}
+		return sessions.computeIfAbsent(sessionKey, k -> new SessionState()).window(messages, windows);
+	}
+
+	/**
+	 * 丢弃会话缓存
+	 */
+	public void evict(String sessionKey) {
+		sessions.remove(sessionKey);
+	}
+
+	/**
+	 * 无状态截取：每个窗口从尾部向前扫描，找到足够的消息即停止
+	 */
+	static List<Message> windowOf(List<Message> messages, List<HistoryWindow> windows) {
+		if (messages == null || keepsFullHistory(windows)) {
+			return messages;
+		}
+		List<Deque<Integer>> selections = new ArrayList<>(windows.size());
+		for (HistoryWindow window : windows) {
+			Deque<Integer> selected = new ArrayDeque<>();
+			collectBackwards(messages, 0, messages.size(), window, selected);
+			selections.add(selected);
+		}
+		return select(messages, selections);
+	}
+
+	private static boolean keepsFullHistory(List<HistoryWindow> windows) {
+		if (windows == null || windows.isEmpty()) {
+			return true;
+		}
+		for (HistoryWindow window : windows) {
+			if (window == null || window.isFull()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 在 [from, to) 区间内从尾部向前收集窗口允许的消息下标，按原顺序插入 selected 头部，直到达到窗口上限
+	 */
+	private static int collectBackwards(List<Message> messages, int from, int to, HistoryWindow window, Deque<Integer> selected) {
+		int limit = window.isUnlimited() ? Integer.MAX_VALUE : window.getMaxMessages();
+		int collected = 0;
+		for (int i = to - 1; i >= from && collected < limit; i--) {
+			if (window.allowsRole(messages.get(i).getMessageType().name())) {
+				selected.addFirst(i);
+				collected++;
+			}
+		}
+		return collected;
+	}
+
+	/**
+	 * 合并各窗口选中的下标（各自升序），按原顺序取出消息
+	 */
+	private static List<Message> select(List<Message> messages, List<Deque<Integer>> selections) {
+		if (selections.size() == 1) {
+			List<Message> result = new ArrayList<>(selections.get(0).size());
+			for (Integer index : selections.get(0)) {
+				result.add(messages.get(index));
+			}
+			return Collections.unmodifiableList(result);
+		}
+		TreeSet<Integer> indices = new TreeSet<>();
+		for (Deque<Integer> selected : selections) {
+			indices.addAll(selected);
+		}
+		List<Message> result = new ArrayList<>(indices.size());
+		for (Integer index : indices) {
+			result.add(messages.get(index));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static Map<String, Object> merge(Map<String, Object> stableFields, Map<String, Object> externalParams) {
+		if (externalParams == null || externalParams.isEmpty()) {
+			return stableFields;
+		}
+		if (stableFields == null || stableFields.isEmpty()) {
+			return externalParams;
+		}
+		Map<String, Object> merged = new LinkedHashMap<>(stableFields);
+		merged.putAll(externalParams);
+		return merged;
+	}
+
+	/**
+	 * 单个会话的增量状态
+	 */
+	private static final class SessionState {
+
+		private final Map<List<HistoryWindow>, WindowState> windowStates = new LinkedHashMap<>(4, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<HistoryWindow>, WindowState> eldest) {
+				return size() > MAX_WINDOW_SETS_PER_SESSION;
+			}
+		};
+
+		private Map<String, Object> stableSource;
+		private Map<String, Object> externalSource;
+		private PersistentContextMap stableInput;
+
+		synchronized PersistentContextMap stableInput(Map<String, Object> stableFields, Map<String, Object> externalParams) {
+			if (stableInput == null || !Objects.equals(stableSource, stableFields) || !Objects.equals(externalSource, externalParams)) {
+				stableInput = PersistentContextMap.of(merge(stableFields, externalParams));
+				stableSource = stableFields != null ? new LinkedHashMap<>(stableFields) : null;
+				externalSource = externalParams != null ? new LinkedHashMap<>(externalParams) : null;
+			}
+			return stableInput;
+		}
+
+		synchronized List<Message> window(List<Message> messages, List<HistoryWindow> requested) {
+			if (messages == null || keepsFullHistory(requested)) {
+				return messages;
+			}
+			WindowState state = windowStates.get(requested);
+			if (state == null) {
+				List<HistoryWindow> key = List.copyOf(requested);
+				state = new WindowState(key);
+				windowStates.put(key, state);
+			}
+			return state.window(messages);
+		}
+	}
+
+	/**
+	 * 一组窗口在单个会话中的增量扫描状态
+	 */
+	private static final class WindowState {
+
+		private final List<HistoryWindow> windows;
+		private int scanned;
+		private Message lastScanned;
+		private List<Deque<Integer>> selections;
+		private List<Message> snapshot;
+
+		WindowState(List<HistoryWindow> windows) {
+			this.windows = windows;
+			reset();
+		}
+
+		private void reset() {
+			scanned = 0;
+			lastScanned = null;
+			selections = new ArrayList<>(windows.size());
+			for (int i = 0; i < windows.size(); i++) {
+				selections.add(new ArrayDeque<>());
+			}
+			snapshot = null;
+		}
+
+		List<Message> window(List<Message> messages) {
+			int size = messages.size();
+			boolean appendOnly = scanned <= size
+					&& (scanned == 0 || Objects.equals(messages.get(scanned - 1), lastScanned));
+			if (!appendOnly) {
+				reset();
+			}
+
+			if (scanned == size && snapshot != null) {
+				return snapshot;
+			}
+
+			// 只处理上一轮之后新增的消息
+			for (int w = 0; w < windows.size(); w++) {
+				HistoryWindow window = windows.get(w);
+				Deque<Integer> fresh = new ArrayDeque<>();
+				int collected = collectBackwards(messages, scanned, size, window, fresh);
+				if (!window.isUnlimited() && collected >= window.getMaxMessages()) {
+					selections.set(w, fresh);
+				} else {
+					Deque<Integer> selected = selections.get(w);
+					selected.addAll(fresh);
+					if (!window.isUnlimited()) {
+						while (selected.size() > window.getMaxMessages()) {
+							selected.removeFirst();
+						}
+					}
+				}
+			}
+
+			scanned = size;
+			lastScanned = size > 0 ? messages.get(size - 1) : null;
+			snapshot = select(messages, selections);
+			return snapshot;
+		}
+	}
+}
@@ -18,22 +18,27 @@ package com.alibaba.assistant.agent.extension.evaluation.hook;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationContextFactory;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationResultAttacher;
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import com.alibaba.assistant.agent.extension.evaluation.model.InjectionLedger;
 import com.alibaba.assistant.agent.evaluation.EvaluationService;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.agent.hook.AgentHook;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPosition;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPositions;
 import com.alibaba.cloud.ai.graph.agent.hook.JumpTo;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.messages.AssistantMessage;
-import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,21 +56,37 @@ import java.util.concurrent.TimeUnit;
 public class InputRoutingEvaluationHook extends AgentHook {
 
 	private static final Logger log = LoggerFactory.getLogger(InputRoutingEvaluationHook.class);
+	private static final String INJECTION_TOOL_NAME = "input_routing_evaluation_injection";
 
 	private final EvaluationService evaluationService;
 	private final CodeactEvaluationContextFactory contextFactory;
 	private final CodeactEvaluationResultAttacher resultAttacher;
 	private final CodeactEvaluationProperties properties;
 
+	/**
+	 * 推测路由协调器；为 null 或未启用推测路由时保持阻塞等待评估结果
+	 */
+	private final SpeculativeRoutingCoordinator speculativeRoutingCoordinator;
+
 	public InputRoutingEvaluationHook(
 			EvaluationService evaluationService,
 			CodeactEvaluationContextFactory contextFactory,
 			CodeactEvaluationResultAttacher resultAttacher,
 			CodeactEvaluationProperties properties) {
+		this(evaluationService, contextFactory, resultAttacher, properties, null);
+	}
+
+	public InputRoutingEvaluationHook(
+			EvaluationService evaluationService,
+			CodeactEvaluationContextFactory contextFactory,
+			CodeactEvaluationResultAttacher resultAttacher,
+			CodeactEvaluationProperties properties,
+			SpeculativeRoutingCoordinator speculativeRoutingCoordinator) {
 		this.evaluationService = evaluationService;
 		this.contextFactory = contextFactory;
 		this.resultAttacher = resultAttacher;
 		this.properties = properties;
+		this.speculativeRoutingCoordinator = speculativeRoutingCoordinator;
 	}
 
 	@Override
@@ -73,6 +94,12 @@ public class InputRoutingEvaluationHook extends AgentHook {
 		return "InputRoutingEvaluationHook";
 	}
 
+	@Override
+	public Map<String, KeyStrategy> getKeyStrategys() {
+		// 注入台账每次写回推进后的副本，整体替换
+		return Map.of(CodeactEvaluationTag.STATE_INJECTION_LEDGER, new ReplaceStrategy());
+	}
+
 	@Override
 	public List<JumpTo> canJumpTo() {
 		return List.of();
@@ -89,9 +116,6 @@ public class InputRoutingEvaluationHook extends AgentHook {
 				return CompletableFuture.completedFuture(Map.of());
 			}
 
-			// 构造评估上下文
-			EvaluationContext context = contextFactory.createInputRoutingContext(state, config);
-
 			// 加载或获取 Suite
 			String suiteId = properties.getInputRouting().getSuiteId();
 			EvaluationSuite suite = evaluationService.loadSuite(suiteId);
@@ -101,6 +125,18 @@ public class InputRoutingEvaluationHook extends AgentHook {
 				return CompletableFuture.completedFuture(Map.of());
 			}
 
+			// 构造评估上下文，会话历史只截取 Suite 中各 criterion 声明需要的部分
+			EvaluationContext context = contextFactory.createInputRoutingContext(state, config, suite.getRequiredHistoryWindows());
+
+			// 推测路由：只启动评估，Agent 按默认路由继续执行，首次模型调用前由 InputRoutingReconcileHook 对齐结果
+			Optional<String> sessionKey = config.threadId();
+			if (isSpeculative() && sessionKey.isPresent()) {
+				speculativeRoutingCoordinator.start(sessionKey.get(), evaluationService.evaluateAsync(suite, context));
+				log.info("InputRoutingEvaluationHook#beforeAgent - reason=已启动推测路由评估，按默认路由继续, suiteId={}, sessionKey={}",
+						suiteId, sessionKey.get());
+				return CompletableFuture.completedFuture(Map.of());
+			}
+
 			// 执行评估
 			EvaluationResult result;
 			if (properties.isAsync()) {
@@ -113,24 +149,7 @@ public class InputRoutingEvaluationHook extends AgentHook {
 			log.info("InputRoutingEvaluationHook#beforeAgent - reason=输入路由评估完成, suiteId={}, statistics={}",
 					result.getSuiteId(), result.getStatistics());
 
-			// 写入状态
-			Map<String, Object> updates = resultAttacher.attachInputRoutingResult(state, result);
-
-			// 🔥 核心：将评估结果注入到 messages 中
-			Map<String, Object> messageUpdates = injectEvaluationResultToMessages(state, result);
-
-			// 合并 updates
-			if (messageUpdates != null && !messageUpdates.isEmpty()) {
-				// 注意：这里需要小心处理，因为 updates 是不可变的 Map.of 创建的
-				// 实际上 resultAttacher 返回的 updates 可能只包含 evaluation 相关的字段
-				// 而 messageUpdates 包含 messages 字段
-				// 我们需要返回一个新的 Map 包含所有更新
-				java.util.HashMap<String, Object> allUpdates = new java.util.HashMap<>(updates);
-				allUpdates.putAll(messageUpdates);
-				return CompletableFuture.completedFuture(allUpdates);
-			}
-
-			return CompletableFuture.completedFuture(updates);
+			return CompletableFuture.completedFuture(buildRoutingUpdates(state, result));
 
 		} catch (Exception e) {
 			log.error("InputRoutingEvaluationHook#beforeAgent - reason=输入路由评估失败", e);
@@ -138,33 +157,75 @@ public class InputRoutingEvaluationHook extends AgentHook {
 		}
 	}
 
+	/**
+	 * 是否启用推测路由
+	 */
+	public boolean isSpeculative() {
+		return speculativeRoutingCoordinator != null && properties.getInputRoutingSpeculation().isEnabled();
+	}
+
+	/**
+	 * 将输入路由评估结果转换为状态更新（评估结果写入 + messages 注入）
+	 * 阻塞模式在 BEFORE_AGENT 调用，推测模式由 {@link InputRoutingReconcileHook} 在首次模型调用前调用
+	 *
+	 * @param state Agent 状态
+	 * @param result 评估结果
+	 * @return 状态更新
+	 */
+	public Map<String, Object> buildRoutingUpdates(OverAllState state, EvaluationResult result) {
+		// 写入状态
+		Map<String, Object> updates = resultAttacher.attachInputRoutingResult(state, result);
+
+		// 🔥 核心：将评估结果注入到 messages 中（复用 resultAttacher 已推进的注入台账）
+		InjectionLedger ledger = InjectionLedger.from(updates.get(CodeactEvaluationTag.STATE_INJECTION_LEDGER));
+		if (ledger == null) {
+			ledger = resultAttacher.resolveLedger(state);
+		}
+		Map<String, Object> messageUpdates = injectEvaluationResultToMessages(state, result, ledger);
+
+		// 合并 updates
+		if (messageUpdates != null && !messageUpdates.isEmpty()) {
+			// resultAttacher 返回的 updates 可能已包含 messages（评估注入消息对），
+			// 两组消息都需要追加，不能直接覆盖
+			Map<String, Object> allUpdates = new HashMap<>(updates);
+			allUpdates.put(CodeactEvaluationTag.STATE_INJECTION_LEDGER, ledger);
+			for (Map.Entry<String, Object> entry : messageUpdates.entrySet()) {
+				allUpdates.merge(entry.getKey(), entry.getValue(), InputRoutingEvaluationHook::mergeUpdateValue);
+			}
+			return allUpdates;
+		}
+
+		return updates;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object mergeUpdateValue(Object existing, Object incoming) {
+		if (existing instanceof List && incoming instanceof List) {
+			List<Object> merged = new ArrayList<>((List<Object>) existing);
+			merged.addAll((List<Object>) incoming);
+			return merged;
+		}
+		return incoming;
+	}
+
 	/**
 	 * 将评估结果注入到 messages 中
 	 * 使用 AssistantMessage + ToolResponseMessage 配对方式
 	 */
-	@SuppressWarnings("unchecked")
-	private Map<String, Object> injectEvaluationResultToMessages(OverAllState state, EvaluationResult result) {
+	private Map<String, Object> injectEvaluationResultToMessages(OverAllState state, EvaluationResult result, InjectionLedger ledger) {
 		log.info("InputRoutingEvaluationHook#injectEvaluationResultToMessages - reason=开始注入评估结果到messages");
 
 		try {
-			Optional<Object> messagesOpt = state.value("messages");
-			if (messagesOpt.isEmpty()) {
+			if (state.value("messages").isEmpty()) {
 				log.warn("InputRoutingEvaluationHook#injectEvaluationResultToMessages - reason=state中没有messages，跳过");
 				return Map.of();
 			}
 
-			List<Message> messages = (List<Message>) messagesOpt.get();
-
-			// 检查是否已经注入过评估结果（避免重复注入）
-			for (Message msg : messages) {
-				if (msg instanceof ToolResponseMessage toolMsg) {
-					for (ToolResponseMessage.ToolResponse response : toolMsg.getResponses()) {
-						if ("input_routing_evaluation_injection".equals(response.name())) {
-							log.info("InputRoutingEvaluationHook#injectEvaluationResultToMessages - reason=检测到已注入评估结果，跳过重复注入");
-							return Map.of();
-						}
-					}
-				}
+			// 检查是否已经注入过评估结果（避免重复注入），台账查询为常数时间
+			long injectionFingerprint = CodeactEvaluationResultAttacher.toolFingerprint(INJECTION_TOOL_NAME);
+			if (ledger.contains(injectionFingerprint)) {
+				log.info("InputRoutingEvaluationHook#injectEvaluationResultToMessages - reason=检测到已注入评估结果，跳过重复注入");
+				return Map.of();
 			}
 
 			// 构建评估结果内容
@@ -179,7 +240,7 @@ public class InputRoutingEvaluationHook extends AgentHook {
 							new AssistantMessage.ToolCall(
 									toolCallId,
 									"function",
-									"input_routing_evaluation_injection",
+									INJECTION_TOOL_NAME,
 									"{}"  // 空参数
 							)
 					))
@@ -188,7 +249,7 @@ public class InputRoutingEvaluationHook extends AgentHook {
 			// 2. ToolResponseMessage with response
 			ToolResponseMessage.ToolResponse toolResponse = new ToolResponseMessage.ToolResponse(
 					toolCallId,
-					"input_routing_evaluation_injection",
+					INJECTION_TOOL_NAME,
 					evaluationContent
 			);
 
@@ -196,6 +257,7 @@ public class InputRoutingEvaluationHook extends AgentHook {
 					.responses(List.of(toolResponse))
 					.build();
 
+			ledger.addFingerprint(injectionFingerprint);
 			log.info("InputRoutingEvaluationHook#injectEvaluationResultToMessages - reason=已注入评估结果到messages");
 
 			// 🔥 返回配对的两条消息，框架会自动追加到现有 messages
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.hook;
+
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.agent.hook.HookPosition;
+import com.alibaba.cloud.ai.graph.agent.hook.HookPositions;
+import com.alibaba.cloud.ai.graph.agent.hook.JumpTo;
+import com.alibaba.cloud.ai.graph.agent.hook.ModelHook;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 输入路由推测结果对齐 Hook
+ * 在 BEFORE_MODEL 阶段取回 {@link InputRoutingEvaluationHook} 以推测模式启动的评估结果，
+ * 只有首次模型调用会真正对齐（之后该会话已没有进行中的评估）
+ *
+ * @author Assistant Agent Team
+ */
+@HookPositions(HookPosition.BEFORE_MODEL)
+public class InputRoutingReconcileHook extends ModelHook {
+
+	private static final Logger log = LoggerFactory.getLogger(InputRoutingReconcileHook.class);
+
+	private final InputRoutingEvaluationHook routingHook;
+	private final SpeculativeRoutingCoordinator coordinator;
+
+	public InputRoutingReconcileHook(InputRoutingEvaluationHook routingHook, SpeculativeRoutingCoordinator coordinator) {
+		this.routingHook = routingHook;
+		this.coordinator = coordinator;
+	}
+
+	@Override
+	public String getName() {
+		return "InputRoutingReconcileHook";
+	}
+
+	@Override
+	public Map<String, KeyStrategy> getKeyStrategys() {
+		// 注入台账每次写回推进后的副本，整体替换
+		return Map.of(CodeactEvaluationTag.STATE_INJECTION_LEDGER, new ReplaceStrategy());
+	}
+
+	@Override
+	public List<JumpTo> canJumpTo() {
+		return List.of();
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> beforeModel(OverAllState state, RunnableConfig config) {
+		try {
+			Optional<String> sessionKey = config.threadId();
+			if (sessionKey.isEmpty()) {
+				return CompletableFuture.completedFuture(Map.of());
+			}
+
+			SpeculativeRoutingCoordinator.Reconciliation reconciliation = coordinator.reconcile(sessionKey.get());
+			if (reconciliation == null) {
+				return CompletableFuture.completedFuture(Map.of());
+			}
+
+			log.info("InputRoutingReconcileHook#beforeModel - reason=推测路由已对齐, sessionKey={}, source={}, metrics={}",
+					sessionKey.get(), reconciliation.getSource(), coordinator.getMetrics());
+
+			if (reconciliation.getResult() == null) {
+				return CompletableFuture.completedFuture(Map.of());
+			}
+			return CompletableFuture.completedFuture(routingHook.buildRoutingUpdates(state, reconciliation.getResult()));
+
+		} catch (Exception e) {
+			log.error("InputRoutingReconcileHook#beforeModel - reason=推测路由对齐失败", e);
+			return CompletableFuture.completedFuture(Map.of());
+		}
+	}
+}
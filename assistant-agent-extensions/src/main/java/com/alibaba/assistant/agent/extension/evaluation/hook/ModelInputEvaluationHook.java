@@ -17,15 +17,19 @@ package com.alibaba.assistant.agent.extension.evaluation.hook;
 
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationContextFactory;
 import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationResultAttacher;
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
 import com.alibaba.assistant.agent.evaluation.EvaluationService;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
 import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
+import com.alibaba.assistant.agent.evaluation.model.HistoryWindow;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPosition;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPositions;
 import com.alibaba.cloud.ai.graph.agent.hook.JumpTo;
 import com.alibaba.cloud.ai.graph.agent.hook.ModelHook;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,6 +72,12 @@ public class ModelInputEvaluationHook extends ModelHook {
 		return "ModelInputEvaluationHook-" + phase;
 	}
 
+	@Override
+	public Map<String, KeyStrategy> getKeyStrategys() {
+		// 注入台账每次写回推进后的副本，整体替换
+		return Map.of(CodeactEvaluationTag.STATE_INJECTION_LEDGER, new ReplaceStrategy());
+	}
+
 	@Override
 	public List<JumpTo> canJumpTo() {
 		return List.of();
@@ -78,7 +88,16 @@ public class ModelInputEvaluationHook extends ModelHook {
 		log.info("ModelInputEvaluationHook#beforeModel - reason=开始模型输入评估, phase={}", phase);
 
 		try {
-			// 构造评估上下文
+			// 加载 Suite
+			EvaluationSuite suite = evaluationService.loadSuite(suiteId);
+
+			if (suite == null) {
+				log.warn("ModelInputEvaluationHook#beforeModel - reason=未找到评估套件, suiteId={}", suiteId);
+				return CompletableFuture.completedFuture(Map.of());
+			}
+
+			// 构造评估上下文，会话历史只截取 Suite 中各 criterion 声明需要的部分
+			List<HistoryWindow> historyWindows = suite.getRequiredHistoryWindows();
 			EvaluationContext context;
 			if ("CODEACT".equals(phase)) {
 				// CodeAct 阶段通常关注代码生成任务
@@ -87,18 +106,11 @@ public class ModelInputEvaluationHook extends ModelHook {
 				String targetLanguage = extractTargetLanguage(state);
 				Map<String, Object> environmentConstraints = extractEnvironmentConstraints(state);
 
-				context = contextFactory.createCodeGenerationInputContext(state, codeTaskDescription, targetLanguage, environmentConstraints);
+				context = contextFactory.createCodeGenerationInputContext(
+						state, config, codeTaskDescription, targetLanguage, environmentConstraints, historyWindows);
 			} else {
 				// React 阶段关注用户输入和对话历史
-				context = contextFactory.createInputRoutingContext(state, config);
-			}
-
-			// 加载 Suite
-			EvaluationSuite suite = evaluationService.loadSuite(suiteId);
-
-			if (suite == null) {
-				log.warn("ModelInputEvaluationHook#beforeModel - reason=未找到评估套件, suiteId={}", suiteId);
-				return CompletableFuture.completedFuture(Map.of());
+				context = contextFactory.createInputRoutingContext(state, config, historyWindows);
 			}
 
 			// 执行评估 (使用 evaluateAsync)
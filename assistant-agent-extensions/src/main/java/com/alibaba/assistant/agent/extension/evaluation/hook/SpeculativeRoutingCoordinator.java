@@ -0,0 +1,281 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.hook;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties.DeadlineFallback;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties.SpeculativeRoutingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 推测路由协调器
+ *
+ * <p>在 {@link InputRoutingEvaluationHook} 与 {@link InputRoutingReconcileHook} 之间传递进行中的输入路由评估：
+ * <ol>
+ *   <li>BEFORE_AGENT：{@link #start} 登记评估 future 后立即返回，Agent 按默认路由继续执行</li>
+ *   <li>首次 BEFORE_MODEL：{@link #reconcile} 取回评估结果；未完成时最多等待截止时间的剩余部分</li>
+ *   <li>超过截止时间：按 {@link DeadlineFallback} 使用最近一次结果或默认路由，评估在后台继续完成并更新最近结果</li>
+ * </ol>
+ *
+ * <p>进行中的评估按会话（RunnableConfig threadId）隔离，future 不写入 OverAllState，避免序列化问题。
+ * 没有走到模型调用的轮次不会对齐，登记项在超过 pendingTtlMs 后清理，登记数超过 maxTrackedSessions 时先清理最早的。
+ *
+ * @author Assistant Agent Team
+ */
+public class SpeculativeRoutingCoordinator {
+
+	private static final Logger log = LoggerFactory.getLogger(SpeculativeRoutingCoordinator.class);
+
+	/**
+	 * 默认路由的路由签名：不注入任何评估取值
+	 */
+	private static final Map<String, String> DEFAULT_ROUTE = Map.of();
+
+	private final SpeculativeRoutingConfig config;
+	private final Map<String, PendingRouting> pending = new ConcurrentHashMap<>();
+	private final Map<String, EvaluationResult> lastKnownResults;
+	private final SpeculativeRoutingMetrics metrics = new SpeculativeRoutingMetrics();
+	private final int maxSessions;
+	private final long pendingTtlNanos;
+	private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+	public SpeculativeRoutingCoordinator(SpeculativeRoutingConfig config) {
+		this.config = config;
+		this.maxSessions = Math.max(1, config.getMaxTrackedSessions());
+		this.pendingTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getDeadlineMs(), config.getPendingTtlMs()));
+		this.lastKnownResults = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, EvaluationResult> eldest) {
+				return size() > maxSessions;
+			}
+		});
+	}
+
+	/**
+	 * 登记一次推测评估
+	 *
+	 * @param sessionKey 会话标识
+	 * @param evaluation 已启动的异步评估
+	 */
+	public void start(String sessionKey, CompletableFuture<EvaluationResult> evaluation) {
+		EvaluationResult fallbackRoute = config.getFallback() == DeadlineFallback.LAST_KNOWN_RESULT
+				? lastKnownResults.get(sessionKey)
+				: null;
+		long now = System.nanoTime();
+		PendingRouting routing = new PendingRouting(evaluation, now, fallbackRoute);
+
+		PendingRouting previous = pending.put(sessionKey, routing);
+		if (previous != null) {
+			log.debug("SpeculativeRoutingCoordinator#start - reason=上一轮推测评估未被对齐，已被新一轮替换, sessionKey={}", sessionKey);
+		}
+		metrics.recordStarted();
+		evictStale(now);
+
+		// 未拿到结果时 Agent 实际走的路由：兜底结果，或者默认路由
+		Map<String, String> speculatedRoute = fallbackRoute != null ? routeOf(fallbackRoute) : DEFAULT_ROUTE;
+		evaluation.whenComplete((result, error) -> {
+			if (error != null || result == null) {
+				metrics.recordFailure();
+				return;
+			}
+			lastKnownResults.put(sessionKey, result);
+			metrics.recordSpeculation(speculatedRoute.equals(routeOf(result)));
+		});
+	}
+
+	/**
+	 * 当前未对齐的推测评估数
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * 清理超过保留时间的登记项；超过会话上限时再清理最早的登记项
+	 */
+	private void evictStale(long now) {
+		long lastSweep = lastSweepNanos.get();
+		boolean sweepDue = now - lastSweep >= pendingTtlNanos / 2 && lastSweepNanos.compareAndSet(lastSweep, now);
+		if (sweepDue) {
+			int before = pending.size();
+			pending.values().removeIf(routing -> now - routing.startNanos > pendingTtlNanos);
+			int evicted = before - pending.size();
+			if (evicted > 0) {
+				log.debug("SpeculativeRoutingCoordinator#evictStale - reason=清理未对齐的过期推测评估, evicted={}", evicted);
+			}
+		}
+		while (pending.size() > maxSessions) {
+			pending.entrySet().stream()
+				.min(Comparator.comparingLong(entry -> entry.getValue().startNanos))
+				.ifPresent(eldest -> pending.remove(eldest.getKey(), eldest.getValue()));
+		}
+	}
+
+	/**
+	 * 在首次模型调用时对齐评估结果
+	 *
+	 * @param sessionKey 会话标识
+	 * @return 对齐结果；该会话没有进行中的推测评估时返回 null
+	 */
+	public Reconciliation reconcile(String sessionKey) {
+		PendingRouting routing = pending.remove(sessionKey);
+		if (routing == null) {
+			return null;
+		}
+
+		CompletableFuture<EvaluationResult> evaluation = routing.evaluation;
+		try {
+			if (evaluation.isDone()) {
+				EvaluationResult result = evaluation.get();
+				metrics.recordResolved(false);
+				return new Reconciliation(result, Source.EVALUATED);
+			}
+
+			long elapsedNanos = System.nanoTime() - routing.startNanos;
+			long remainingNanos = TimeUnit.MILLISECONDS.toNanos(config.getDeadlineMs()) - elapsedNanos;
+			if (remainingNanos > 0) {
+				EvaluationResult result = evaluation.get(remainingNanos, TimeUnit.NANOSECONDS);
+				metrics.recordResolved(true);
+				return new Reconciliation(result, Source.EVALUATED);
+			}
+		} catch (TimeoutException e) {
+			// fall through to deadline fallback
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return fallback(sessionKey, routing);
+		} catch (ExecutionException e) {
+			log.warn("SpeculativeRoutingCoordinator#reconcile - reason=推测评估失败，使用兜底路由, sessionKey={}", sessionKey, e.getCause());
+			return fallback(sessionKey, routing);
+		}
+
+		metrics.recordDeadlineFallback();
+		log.info("SpeculativeRoutingCoordinator#reconcile - reason=推测评估超过截止时间，使用兜底路由, sessionKey={}, deadlineMs={}",
+				sessionKey, config.getDeadlineMs());
+		return fallback(sessionKey, routing);
+	}
+
+	private Reconciliation fallback(String sessionKey, PendingRouting routing) {
+		if (routing.fallbackRoute != null) {
+			return new Reconciliation(routing.fallbackRoute, Source.LAST_KNOWN_RESULT);
+		}
+		return new Reconciliation(null, Source.DEFAULT_ROUTE);
+	}
+
+	/**
+	 * 获取会话最近一次完成的评估结果
+	 */
+	public EvaluationResult getLastKnownResult(String sessionKey) {
+		return lastKnownResults.get(sessionKey);
+	}
+
+	public SpeculativeRoutingMetrics getMetrics() {
+		return metrics;
+	}
+
+	public SpeculativeRoutingConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * 路由签名：criterion 名称到取值的映射，用于判断两次结果是否导向相同路由
+	 * 没有取值的 criterion 不提供路由信号（注入为 N/A），与默认路由一致，因此不计入签名
+	 */
+	private static Map<String, String> routeOf(EvaluationResult result) {
+		if (result == null || result.getCriteriaResults() == null) {
+			return DEFAULT_ROUTE;
+		}
+		Map<String, String> route = new HashMap<>();
+		for (Map.Entry<String, CriterionResult> entry : result.getCriteriaResults().entrySet()) {
+			Object value = entry.getValue() != null ? entry.getValue().getValue() : null;
+			if (value != null) {
+				route.put(entry.getKey(), String.valueOf(value));
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * 对齐结果来源
+	 */
+	public enum Source {
+		/**
+		 * 截止时间内拿到的本轮评估结果
+		 */
+		EVALUATED,
+
+		/**
+		 * 同一会话最近一次完成的评估结果
+		 */
+		LAST_KNOWN_RESULT,
+
+		/**
+		 * 默认路由（不注入评估结果）
+		 */
+		DEFAULT_ROUTE
+	}
+
+	/**
+	 * 对齐结果
+	 */
+	public static final class Reconciliation {
+
+		private final EvaluationResult result;
+		private final Source source;
+
+		Reconciliation(EvaluationResult result, Source source) {
+			this.result = result;
+			this.source = source;
+		}
+
+		/**
+		 * 需要写入状态的评估结果；默认路由时为 null
+		 */
+		public EvaluationResult getResult() {
+			return result;
+		}
+
+		public Source getSource() {
+			return source;
+		}
+	}
+
+	private static final class PendingRouting {
+
+		private final CompletableFuture<EvaluationResult> evaluation;
+		private final long startNanos;
+		private final EvaluationResult fallbackRoute;
+
+		PendingRouting(CompletableFuture<EvaluationResult> evaluation, long startNanos, EvaluationResult fallbackRoute) {
+			this.evaluation = evaluation;
+			this.startNanos = startNanos;
+			this.fallbackRoute = fallbackRoute;
+		}
+	}
+}
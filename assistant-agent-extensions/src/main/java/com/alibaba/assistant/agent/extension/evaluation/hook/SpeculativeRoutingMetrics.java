@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.hook;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 推测路由统计指标
+ *
+ * <p>"推测正确" 指：兜底路由（最近一次结果或默认路由）与实际评估结果的各 criterion 取值完全一致，
+ * 即使不等待评估也会得到相同的路由。
+ *
+ * @author Assistant Agent Team
+ */
+public class SpeculativeRoutingMetrics {
+
+	private final AtomicLong started = new AtomicLong();
+	private final AtomicLong resolvedWithoutWait = new AtomicLong();
+	private final AtomicLong resolvedAfterWait = new AtomicLong();
+	private final AtomicLong deadlineFallbacks = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong speculationCorrect = new AtomicLong();
+	private final AtomicLong speculationIncorrect = new AtomicLong();
+
+	void recordStarted() {
+		started.incrementAndGet();
+	}
+
+	void recordResolved(boolean waited) {
+		(waited ? resolvedAfterWait : resolvedWithoutWait).incrementAndGet();
+	}
+
+	void recordDeadlineFallback() {
+		deadlineFallbacks.incrementAndGet();
+	}
+
+	void recordFailure() {
+		failures.incrementAndGet();
+	}
+
+	void recordSpeculation(boolean correct) {
+		(correct ? speculationCorrect : speculationIncorrect).incrementAndGet();
+	}
+
+	/**
+	 * 已启动的推测评估次数
+	 */
+	public long getStarted() {
+		return started.get();
+	}
+
+	/**
+	 * 首次模型调用时评估已完成、无需等待的次数
+	 */
+	public long getResolvedWithoutWait() {
+		return resolvedWithoutWait.get();
+	}
+
+	/**
+	 * 首次模型调用时等待剩余时间后拿到结果的次数
+	 */
+	public long getResolvedAfterWait() {
+		return resolvedAfterWait.get();
+	}
+
+	/**
+	 * 截止时间到达仍未完成、使用兜底路由的次数
+	 */
+	public long getDeadlineFallbacks() {
+		return deadlineFallbacks.get();
+	}
+
+	/**
+	 * 评估异常次数
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public long getSpeculationCorrect() {
+		return speculationCorrect.get();
+	}
+
+	public long getSpeculationIncorrect() {
+		return speculationIncorrect.get();
+	}
+
+	/**
+	 * 推测正确率；尚无样本时返回 0
+	 */
+	public double getSpeculationAccuracy() {
+		long correct = speculationCorrect.get();
+		long total = correct + speculationIncorrect.get();
+		return total == 0 ? 0.0 : (double) correct / total;
+	}
+
+	@Override
+	public String toString() {
+		return "SpeculativeRoutingMetrics{started=" + getStarted()
+				+ ", resolvedWithoutWait=" + getResolvedWithoutWait()
+				+ ", resolvedAfterWait=" + getResolvedAfterWait()
+				+ ", deadlineFallbacks=" + getDeadlineFallbacks()
+				+ ", failures=" + getFailures()
+				+ ", speculationCorrect=" + getSpeculationCorrect()
+				+ ", speculationIncorrect=" + getSpeculationIncorrect() + "}";
+	}
+}
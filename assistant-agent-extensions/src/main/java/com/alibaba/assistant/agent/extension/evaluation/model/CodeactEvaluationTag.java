@@ -139,6 +139,11 @@ public final class CodeactEvaluationTag {
 	 */
 	public static final String STATE_SESSION_SUMMARY = "evaluation.sessionSummary";
 
+	/**
+	 * 评估注入台账在 OverAllState 中的 key（见 InjectionLedger）
+	 */
+	public static final String STATE_INJECTION_LEDGER = "evaluationInjectionLedger";
+
 	private CodeactEvaluationTag() {
 		// 工具类，禁止实例化
 	}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 评估注入台账
+ *
+ * <p>按会话保存在 OverAllState（{@link CodeactEvaluationTag#STATE_INJECTION_LEDGER}）中，记录：
+ * <ul>
+ *   <li>已注入到 messages 的评估条目指纹（suite-id + criterion + ref-id 的 64 位哈希），开放寻址 long 集合存储</li>
+ *   <li>高水位：已扫描过的消息数量，之后只需扫描高水位之后新增的消息</li>
+ *   <li>高水位前最后一条消息的指纹：对不上说明历史被改写（压缩、替换），需要重建台账</li>
+ * </ul>
+ * 每轮去重只需常数时间的集合查询，不再随会话长度重新扫描、解析全部历史注入。
+ *
+ * <p>台账只会被同一会话的 Hook 串行访问，不做同步。经状态序列化后可能以 Map 形式恢复，见 {@link #from(Object)}。
+ * 状态中的实例视为只读：需要推进时先 {@link #copy()}，再把副本作为状态更新整体替换（ReplaceStrategy）。
+ *
+ * @author Assistant Agent Team
+ */
+public class InjectionLedger {
+
+	private static final long EMPTY_SLOT = 0L;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * 开放寻址哈希表，0 表示空槽（指纹计算保证不为 0）
+	 */
+	private long[] slots;
+	private int size;
+
+	/**
+	 * 已扫描的消息数量
+	 */
+	private int highWater;
+
+	/**
+	 * 第 highWater 条消息（下标 highWater - 1）的指纹，0 表示未记录
+	 */
+	private long lastMessageFingerprint;
+
+	public InjectionLedger() {
+		this.slots = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * 从状态值恢复台账：同类实例直接返回，序列化后的 Map 重新构造，其他情况返回 null
+	 */
+	public static InjectionLedger from(Object stateValue) {
+		if (stateValue instanceof InjectionLedger ledger) {
+			return ledger;
+		}
+		if (stateValue instanceof Map<?, ?> map) {
+			InjectionLedger ledger = new InjectionLedger();
+			Object fingerprints = map.get("fingerprints");
+			if (fingerprints instanceof long[] values) {
+				for (long value : values) {
+					ledger.addFingerprint(value);
+				}
+			} else if (fingerprints instanceof Collection<?> values) {
+				for (Object value : values) {
+					if (value instanceof Number number) {
+						ledger.addFingerprint(number.longValue());
+					}
+				}
+			}
+			Object highWater = map.get("highWater");
+			if (highWater instanceof Number number) {
+				ledger.highWater = number.intValue();
+			}
+			Object lastMessageFingerprint = map.get("lastMessageFingerprint");
+			if (lastMessageFingerprint instanceof Number number) {
+				ledger.lastMessageFingerprint = number.longValue();
+			}
+			return ledger;
+		}
+		return null;
+	}
+
+	/**
+	 * 复制台账，推进副本不影响状态中的原实例
+	 */
+	public InjectionLedger copy() {
+		InjectionLedger copy = new InjectionLedger();
+		copy.slots = slots.clone();
+		copy.size = size;
+		copy.highWater = highWater;
+		copy.lastMessageFingerprint = lastMessageFingerprint;
+		return copy;
+	}
+
+	/**
+	 * 评估条目指纹
+	 */
+	public static long fingerprint(String suiteId, String criterion, String refId) {
+		return fingerprint(suiteId + "|" + criterion + "|" + (refId == null ? "" : refId));
+	}
+
+	/**
+	 * 字符串指纹（FNV-1a 64 位），保证不为 0
+	 */
+	public static long fingerprint(String key) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= (b & 0xff);
+			hash *= FNV_PRIME;
+		}
+		return hash == EMPTY_SLOT ? 1L : hash;
+	}
+
+	public boolean contains(long fingerprint) {
+		if (fingerprint == EMPTY_SLOT) {
+			fingerprint = 1L;
+		}
+		int mask = slots.length - 1;
+		for (int i = mix(fingerprint) & mask; ; i = (i + 1) & mask) {
+			long slot = slots[i];
+			if (slot == EMPTY_SLOT) {
+				return false;
+			}
+			if (slot == fingerprint) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 记录指纹
+	 *
+	 * @return 是否为新指纹
+	 */
+	public boolean addFingerprint(long fingerprint) {
+		if (fingerprint == EMPTY_SLOT) {
+			fingerprint = 1L;
+		}
+		if ((size + 1) * 4 > slots.length * 3) {
+			rehash(slots.length * 2);
+		}
+		int mask = slots.length - 1;
+		for (int i = mix(fingerprint) & mask; ; i = (i + 1) & mask) {
+			long slot = slots[i];
+			if (slot == fingerprint) {
+				return false;
+			}
+			if (slot == EMPTY_SLOT) {
+				slots[i] = fingerprint;
+				size++;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 清空台账，用于检测到历史被改写（如压缩）后重建
+	 */
+	public void reset() {
+		slots = new long[INITIAL_CAPACITY];
+		size = 0;
+		highWater = 0;
+		lastMessageFingerprint = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getHighWater() {
+		return highWater;
+	}
+
+	public void setHighWater(int highWater) {
+		this.highWater = highWater;
+	}
+
+	public long getLastMessageFingerprint() {
+		return lastMessageFingerprint;
+	}
+
+	public void setLastMessageFingerprint(long lastMessageFingerprint) {
+		this.lastMessageFingerprint = lastMessageFingerprint;
+	}
+
+	/**
+	 * 已记录的指纹（用于序列化）
+	 */
+	public long[] getFingerprints() {
+		long[] values = new long[size];
+		int index = 0;
+		for (long slot : slots) {
+			if (slot != EMPTY_SLOT) {
+				values[index++] = slot;
+			}
+		}
+		return values;
+	}
+
+	public void setFingerprints(long[] fingerprints) {
+		slots = new long[INITIAL_CAPACITY];
+		size = 0;
+		if (fingerprints != null) {
+			for (long fingerprint : fingerprints) {
+				addFingerprint(fingerprint);
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		long[] old = slots;
+		slots = new long[capacity];
+		size = 0;
+		for (long slot : old) {
+			if (slot != EMPTY_SLOT) {
+				addFingerprint(slot);
+			}
+		}
+	}
+
+	private static int mix(long fingerprint) {
+		long h = fingerprint * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "InjectionLedger{size=" + size + ", highWater=" + highWater + ", lastMessageFingerprint=" + lastMessageFingerprint
+				+ ", capacity=" + slots.length + "}";
+	}
+}
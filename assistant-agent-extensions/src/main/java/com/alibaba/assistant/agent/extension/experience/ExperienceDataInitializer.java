@@ -39,6 +39,11 @@ public class ExperienceDataInitializer implements CommandLineRunner {
     }
 
     private void initializeDemoData() {
+        // 持久化仓库重启后已有数据，不再重复写入示例
+        if (experienceRepository.count() > 0) {
+            return;
+        }
+
         // 初始化代码经验
         initializeCodeExperiences();
 
@@ -3,23 +3,42 @@ package com.alibaba.assistant.agent.extension.experience.config;
 import com.alibaba.assistant.agent.extension.experience.hook.CodeExperienceModelHook;
 import com.alibaba.assistant.agent.extension.experience.hook.CommonSenseExperienceModelHook;
 import com.alibaba.assistant.agent.extension.experience.hook.FastIntentReactHook;
+import com.alibaba.assistant.agent.extension.experience.hook.ExperienceUsageAgentHook;
 import com.alibaba.assistant.agent.extension.experience.hook.ReactExperienceAgentHook;
 import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentService;
+import com.alibaba.assistant.agent.extension.experience.internal.Bm25ExperienceScorer;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceVectorIndexer;
+import com.alibaba.assistant.agent.extension.experience.internal.FileExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.internal.HashingEmbeddingModel;
+import com.alibaba.assistant.agent.extension.experience.internal.HnswExperienceVectorIndex;
 import com.alibaba.assistant.agent.extension.experience.internal.InMemoryExperienceProvider;
+import com.alibaba.assistant.agent.extension.experience.internal.IndexedExperienceRepository;
 import com.alibaba.assistant.agent.extension.experience.internal.InMemoryExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.internal.ShardedExperienceRepository;
 import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentConditionMatcher;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceScorer;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceVectorIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 经验模块自动配置类
@@ -36,6 +55,22 @@ public class ExperienceExtensionAutoConfiguration {
 
     private static final Logger log = LoggerFactory.getLogger(ExperienceExtensionAutoConfiguration.class);
 
+    /**
+     * 配置本地文件持久化经验仓库（优先于InMemory实现）
+     */
+    @Bean
+    @ConditionalOnMissingBean(ExperienceRepository.class)
+    @ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.experience.file",
+                          name = "enabled",
+                          havingValue = "true")
+    public ExperienceRepository fileExperienceRepository(ExperienceExtensionProperties properties) {
+        ExperienceExtensionProperties.FileConfig config = properties.getFile();
+        log.info("ExperienceExtensionAutoConfiguration#fileExperienceRepository - reason=creating file experience repository bean, directory={}",
+                config.getDirectory());
+        return new FileExperienceRepository(Paths.get(config.getDirectory()), config.isSyncOnWrite(),
+                config.getCompactionGarbageRatio(), config.getCompactionMinBytes(), config.getCacheSize());
+    }
+
     /**
      * 配置InMemory经验仓库实现
      */
@@ -45,20 +80,125 @@ public class ExperienceExtensionAutoConfiguration {
                           name = "enabled",
                           havingValue = "true",
                           matchIfMissing = true)
-    public ExperienceRepository inMemoryExperienceRepository() {
+    public ExperienceRepository inMemoryExperienceRepository(ExperienceExtensionProperties properties) {
+        if (properties.getInMemory().isSharded()) {
+            log.info("ExperienceExtensionAutoConfiguration#inMemoryExperienceRepository - reason=creating tenant-sharded InMemory experience repository bean");
+            return new ShardedExperienceRepository();
+        }
+        if (properties.getInMemory().isIndexed()) {
+            log.info("ExperienceExtensionAutoConfiguration#inMemoryExperienceRepository - reason=creating indexed InMemory experience repository bean");
+            return new IndexedExperienceRepository();
+        }
         log.info("ExperienceExtensionAutoConfiguration#inMemoryExperienceRepository - reason=creating InMemory experience repository bean");
         return new InMemoryExperienceRepository();
     }
 
+    /**
+     * 配置经验相关性打分器（默认BM25）
+     */
+    @Bean
+    @ConditionalOnMissingBean(ExperienceScorer.class)
+    public ExperienceScorer experienceScorer() {
+        log.info("ExperienceExtensionAutoConfiguration#experienceScorer - reason=creating BM25 experience scorer bean");
+        return new Bm25ExperienceScorer();
+    }
+
+    /**
+     * 配置经验向量索引（HNSW），仅在开启向量检索时创建
+     */
+    @Bean
+    @ConditionalOnMissingBean(ExperienceVectorIndex.class)
+    @ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.experience.vector",
+                          name = "enabled",
+                          havingValue = "true")
+    public ExperienceVectorIndex experienceVectorIndex(ExperienceExtensionProperties properties) {
+        ExperienceExtensionProperties.VectorConfig vector = properties.getVector();
+        log.info("ExperienceExtensionAutoConfiguration#experienceVectorIndex - reason=creating HNSW experience vector index bean, m={}, efConstruction={}, efSearch={}",
+                vector.getM(), vector.getEfConstruction(), vector.getEfSearch());
+        return new HnswExperienceVectorIndex(vector.getM(), vector.getEfConstruction(), vector.getEfSearch());
+    }
+
+    /**
+     * 配置经验使用统计，为排序提供衰减后的使用效用
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(ExperienceUsageTracker.class)
+    @ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.experience.usage",
+                          name = "enabled",
+                          havingValue = "true")
+    public ExperienceUsageTracker experienceUsageTracker(ExperienceExtensionProperties properties) {
+        ExperienceExtensionProperties.UsageConfig config = properties.getUsage();
+        log.info("ExperienceExtensionAutoConfiguration#experienceUsageTracker - reason=creating experience usage tracker bean, halfLifeHours={}, rankingWeight={}, flushIntervalSeconds={}",
+                config.getHalfLifeHours(), config.getRankingWeight(), config.getFlushIntervalSeconds());
+        return new ExperienceUsageTracker(TimeUnit.HOURS.toMillis(config.getHalfLifeHours()), config.getRankingWeight(),
+                TimeUnit.SECONDS.toMillis(config.getFlushIntervalSeconds()), config.getMaxTrackedThreads());
+    }
+
+    /**
+     * 配置经验向量索引维护器，仅在开启向量检索时创建
+     * 嵌入模型由 vector.embedding-model-bean 显式指定，未指定时使用本地哈希嵌入；默认在后台线程上预热并增量索引
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(ExperienceVectorIndexer.class)
+    @ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.experience.vector",
+                          name = "enabled",
+                          havingValue = "true")
+    public ExperienceVectorIndexer experienceVectorIndexer(ExperienceRepository experienceRepository,
+                                                           ExperienceVectorIndex vectorIndex,
+                                                           BeanFactory beanFactory,
+                                                           ExperienceExtensionProperties properties) {
+        ExperienceExtensionProperties.VectorConfig vector = properties.getVector();
+        EmbeddingModel embeddingModel = StringUtils.hasText(vector.getEmbeddingModelBean())
+                ? beanFactory.getBean(vector.getEmbeddingModelBean(), EmbeddingModel.class)
+                : new HashingEmbeddingModel(vector.getDimensions());
+        log.info("ExperienceExtensionAutoConfiguration#experienceVectorIndexer - reason=creating experience vector indexer bean, embedding model={}, backgroundIndexing={}",
+                embeddingModel.getClass().getSimpleName(), vector.isBackgroundIndexing());
+        ExperienceVectorIndexer indexer = new ExperienceVectorIndexer(experienceRepository, vectorIndex, embeddingModel,
+                vector.isBackgroundIndexing());
+        if (vector.isBackgroundIndexing()) {
+            indexer.warmUp();
+        }
+        return indexer;
+    }
+
     /**
      * 配置InMemory经验提供者实现
+     * 存在向量索引维护器时启用混合检索；开启并行scope查询时各scope候选在公共ForkJoinPool上并发获取
      */
     @Bean
     @ConditionalOnMissingBean(ExperienceProvider.class)
-    public ExperienceProvider experienceProvider(ExperienceRepository experienceRepository) {
-        log.info("ExperienceExtensionAutoConfiguration#experienceProvider - reason=creating experience provider bean with repository type={}",
-                experienceRepository.getClass().getSimpleName());
-        return new InMemoryExperienceProvider(experienceRepository);
+    public ExperienceProvider experienceProvider(ExperienceRepository experienceRepository,
+                                                 ExperienceScorer experienceScorer,
+                                                 ObjectProvider<ExperienceVectorIndexer> vectorIndexerProvider,
+                                                 ObjectProvider<ExperienceUsageTracker> usageTrackerProvider,
+                                                 ExperienceExtensionProperties properties) {
+        ExperienceVectorIndexer vectorIndexer = vectorIndexerProvider.getIfAvailable();
+        log.info("ExperienceExtensionAutoConfiguration#experienceProvider - reason=creating experience provider bean with repository type={}, scorer type={}, vector retrieval={}",
+                experienceRepository.getClass().getSimpleName(), experienceScorer.getClass().getSimpleName(),
+                vectorIndexer != null);
+        Executor scopeExecutor = properties.getInMemory().isParallelScopeQuery() ? ForkJoinPool.commonPool() : null;
+        return new InMemoryExperienceProvider(experienceRepository, experienceScorer,
+                vectorIndexer, properties.getVector(), usageTrackerProvider.getIfAvailable(), scopeExecutor);
+    }
+
+    /**
+     * 配置单轮经验检索缓存，各Hook共享同一实例；仓库或使用统计版本号变化时缓存自动失效
+     */
+    @Bean
+    @ConditionalOnMissingBean(ExperienceQueryCache.class)
+    public ExperienceQueryCache experienceQueryCache(ExperienceProvider experienceProvider,
+                                                     ObjectProvider<ExperienceRepository> experienceRepositoryProvider,
+                                                     ObjectProvider<ExperienceUsageTracker> usageTrackerProvider,
+                                                     ExperienceExtensionProperties properties) {
+        ExperienceExtensionProperties.QueryCacheConfig config = properties.getQueryCache();
+        if (!config.isEnabled()) {
+            log.info("ExperienceExtensionAutoConfiguration#experienceQueryCache - reason=query cache disabled, creating pass-through bean");
+            return ExperienceQueryCache.uncached(experienceProvider);
+        }
+        log.info("ExperienceExtensionAutoConfiguration#experienceQueryCache - reason=creating experience query cache bean, maxThreads={}, maxEntriesPerTurn={}, ttlSeconds={}",
+                config.getMaxThreads(), config.getMaxEntriesPerTurn(), config.getTtlSeconds());
+        return new ExperienceQueryCache(experienceProvider, experienceRepositoryProvider.getIfAvailable(),
+                usageTrackerProvider.getIfAvailable(), config.getMaxThreads(), config.getMaxEntriesPerTurn(), config.getTtlSeconds());
     }
 
     @Bean
@@ -78,11 +218,13 @@ public class ExperienceExtensionAutoConfiguration {
                           name = "react-experience-enabled",
                           havingValue = "true",
                           matchIfMissing = true)
-    public FastIntentReactHook fastIntentReactHook(ExperienceProvider experienceProvider,
+    public FastIntentReactHook fastIntentReactHook(ExperienceQueryCache experienceQueryCache,
                                                    ExperienceExtensionProperties properties,
-                                                   FastIntentService fastIntentService) {
+                                                   FastIntentService fastIntentService,
+                                                   ObjectProvider<ExperienceUsageTracker> usageTrackerProvider) {
         log.info("ExperienceExtensionAutoConfiguration#fastIntentReactHook - reason=creating fast intent react hook bean");
-        return new FastIntentReactHook(experienceProvider, properties, fastIntentService);
+        return new FastIntentReactHook(experienceQueryCache, properties, fastIntentService,
+                usageTrackerProvider.getIfAvailable());
     }
 
     /**
@@ -93,10 +235,11 @@ public class ExperienceExtensionAutoConfiguration {
                           name = "code-experience-enabled",
                           havingValue = "true",
                           matchIfMissing = true)
-    public CodeExperienceModelHook codeExperienceModelHook(ExperienceProvider experienceProvider,
-                                                          ExperienceExtensionProperties properties) {
+    public CodeExperienceModelHook codeExperienceModelHook(ExperienceQueryCache experienceQueryCache,
+                                                          ExperienceExtensionProperties properties,
+                                                          ObjectProvider<ExperienceUsageTracker> usageTrackerProvider) {
         log.info("ExperienceExtensionAutoConfiguration#codeExperienceModelHook - reason=creating code experience model hook bean");
-        return new CodeExperienceModelHook(experienceProvider, properties);
+        return new CodeExperienceModelHook(experienceQueryCache, properties, usageTrackerProvider.getIfAvailable());
     }
 
     /**
@@ -107,10 +250,11 @@ public class ExperienceExtensionAutoConfiguration {
                           name = "react-experience-enabled",
                           havingValue = "true",
                           matchIfMissing = true)
-    public ReactExperienceAgentHook reactExperienceAgentHook(ExperienceProvider experienceProvider,
-                                                            ExperienceExtensionProperties properties) {
+    public ReactExperienceAgentHook reactExperienceAgentHook(ExperienceQueryCache experienceQueryCache,
+                                                            ExperienceExtensionProperties properties,
+                                                            ObjectProvider<ExperienceUsageTracker> usageTrackerProvider) {
         log.info("ExperienceExtensionAutoConfiguration#reactExperienceAgentHook - reason=creating react experience agent hook bean");
-        return new ReactExperienceAgentHook(experienceProvider, properties);
+        return new ReactExperienceAgentHook(experienceQueryCache, properties, usageTrackerProvider.getIfAvailable());
     }
 
     /**
@@ -121,9 +265,22 @@ public class ExperienceExtensionAutoConfiguration {
                           name = "common-experience-enabled",
                           havingValue = "true",
                           matchIfMissing = true)
-    public CommonSenseExperienceModelHook commonSenseExperienceModelHook(ExperienceProvider experienceProvider,
-                                                                         ExperienceExtensionProperties properties) {
+    public CommonSenseExperienceModelHook commonSenseExperienceModelHook(ExperienceQueryCache experienceQueryCache,
+                                                                         ExperienceExtensionProperties properties,
+                                                                         ObjectProvider<ExperienceUsageTracker> usageTrackerProvider) {
         log.info("ExperienceExtensionAutoConfiguration#commonSenseExperienceModelHook - reason=creating common sense prompt model hook bean");
-        return new CommonSenseExperienceModelHook(experienceProvider, properties);
+        return new CommonSenseExperienceModelHook(experienceQueryCache, properties, usageTrackerProvider.getIfAvailable());
+    }
+
+    /**
+     * 配置经验使用结算Hook，在每轮结束时按代码执行结果为本轮使用的经验记录成败
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.experience.usage",
+                          name = "enabled",
+                          havingValue = "true")
+    public ExperienceUsageAgentHook experienceUsageAgentHook(ExperienceUsageTracker experienceUsageTracker) {
+        log.info("ExperienceExtensionAutoConfiguration#experienceUsageAgentHook - reason=creating experience usage agent hook bean");
+        return new ExperienceUsageAgentHook(experienceUsageTracker);
     }
 }
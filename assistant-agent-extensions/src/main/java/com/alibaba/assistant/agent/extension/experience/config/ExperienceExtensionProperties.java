@@ -73,11 +73,31 @@ public class ExperienceExtensionProperties {
      */
     private StoreConfig store = new StoreConfig();
 
+    /**
+     * 本地文件持久化实现相关配置
+     */
+    private FileConfig file = new FileConfig();
+
     /**
      * 日志相关配置
      */
     private LoggingConfig logging = new LoggingConfig();
 
+    /**
+     * 向量检索相关配置
+     */
+    private VectorConfig vector = new VectorConfig();
+
+    /**
+     * 单轮检索缓存相关配置
+     */
+    private QueryCacheConfig queryCache = new QueryCacheConfig();
+
+    /**
+     * 经验使用统计与排序反馈相关配置
+     */
+    private UsageConfig usage = new UsageConfig();
+
     /**
      * 内存实现配置
      */
@@ -97,6 +117,22 @@ public class ExperienceExtensionProperties {
          */
         private long ttlSeconds = -1; // -1表示不过期
 
+        /**
+         * 是否使用带倒排索引的内存仓库（IndexedExperienceRepository），经验量较大时建议开启
+         */
+        private boolean indexed = false;
+
+        /**
+         * 是否按租户分片（ShardedExperienceRepository）：USER/TEAM 按 ownerId、PROJECT 按 projectId 分片，
+         * 每个分片为独立的倒排索引仓库，多租户部署建议开启；开启后优先于 indexed
+         */
+        private boolean sharded = false;
+
+        /**
+         * 是否并行查询各 scope 的候选经验
+         */
+        private boolean parallelScopeQuery = false;
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -120,6 +156,30 @@ public class ExperienceExtensionProperties {
         public void setTtlSeconds(long ttlSeconds) {
             this.ttlSeconds = ttlSeconds;
         }
+
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        public void setIndexed(boolean indexed) {
+            this.indexed = indexed;
+        }
+
+        public boolean isSharded() {
+            return sharded;
+        }
+
+        public void setSharded(boolean sharded) {
+            this.sharded = sharded;
+        }
+
+        public boolean isParallelScopeQuery() {
+            return parallelScopeQuery;
+        }
+
+        public void setParallelScopeQuery(boolean parallelScopeQuery) {
+            this.parallelScopeQuery = parallelScopeQuery;
+        }
     }
 
     /**
@@ -153,6 +213,351 @@ public class ExperienceExtensionProperties {
         }
     }
 
+    /**
+     * 本地文件持久化配置：经验写入只追加日志，重启后自动恢复
+     */
+    public static class FileConfig {
+        /**
+         * 是否启用文件实现（默认关闭）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 数据目录
+         */
+        private String directory = "./data/experience";
+
+        /**
+         * 每次写入后是否 fsync
+         */
+        private boolean syncOnWrite = true;
+
+        /**
+         * 无效字节占日志的比例超过该值时触发后台压缩
+         */
+        private double compactionGarbageRatio = 0.5;
+
+        /**
+         * 无效字节少于该值时不压缩
+         */
+        private long compactionMinBytes = 4L * 1024 * 1024;
+
+        /**
+         * 已解码经验的缓存条数
+         */
+        private int cacheSize = 4096;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public boolean isSyncOnWrite() {
+            return syncOnWrite;
+        }
+
+        public void setSyncOnWrite(boolean syncOnWrite) {
+            this.syncOnWrite = syncOnWrite;
+        }
+
+        public double getCompactionGarbageRatio() {
+            return compactionGarbageRatio;
+        }
+
+        public void setCompactionGarbageRatio(double compactionGarbageRatio) {
+            this.compactionGarbageRatio = compactionGarbageRatio;
+        }
+
+        public long getCompactionMinBytes() {
+            return compactionMinBytes;
+        }
+
+        public void setCompactionMinBytes(long compactionMinBytes) {
+            this.compactionMinBytes = compactionMinBytes;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    /**
+     * 单轮检索缓存配置：同一 thread 同一轮次内条件相同的经验查询只访问一次仓库
+     */
+    public static class QueryCacheConfig {
+        /**
+         * 是否启用缓存（默认开启）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 同时缓存的 thread 数上限，超出后淘汰最久未访问的
+         */
+        private int maxThreads = 1024;
+
+        /**
+         * 每个轮次缓存的查询条数上限
+         */
+        private int maxEntriesPerTurn = 32;
+
+        /**
+         * 单个轮次缓存的存活时间（秒），未传入 turn_id 时以此限定复用范围
+         */
+        private long ttlSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        public void setMaxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+        }
+
+        public int getMaxEntriesPerTurn() {
+            return maxEntriesPerTurn;
+        }
+
+        public void setMaxEntriesPerTurn(int maxEntriesPerTurn) {
+            this.maxEntriesPerTurn = maxEntriesPerTurn;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    /**
+     * 经验使用统计配置：记录注入、快速意图命中与执行成败，按衰减后的使用效用调整排序
+     */
+    public static class UsageConfig {
+        /**
+         * 是否启用使用统计（默认关闭）；开启后使用效用参与相关性排序，并在更新时间相同时作为次级排序
+         */
+        private boolean enabled = false;
+
+        /**
+         * 统计衰减半衰期（小时），越久远的使用记录权重越低
+         */
+        private long halfLifeHours = 168;
+
+        /**
+         * 计数器合并到聚合统计的间隔（秒）
+         */
+        private long flushIntervalSeconds = 10;
+
+        /**
+         * 使用效用对排序分数的影响权重，取值 0~1，0 表示只统计不影响排序
+         */
+        private double rankingWeight = 0.3;
+
+        /**
+         * 同时跟踪本轮曝光经验的 thread 数上限
+         */
+        private int maxTrackedThreads = 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getHalfLifeHours() {
+            return halfLifeHours;
+        }
+
+        public void setHalfLifeHours(long halfLifeHours) {
+            this.halfLifeHours = halfLifeHours;
+        }
+
+        public long getFlushIntervalSeconds() {
+            return flushIntervalSeconds;
+        }
+
+        public void setFlushIntervalSeconds(long flushIntervalSeconds) {
+            this.flushIntervalSeconds = flushIntervalSeconds;
+        }
+
+        public double getRankingWeight() {
+            return rankingWeight;
+        }
+
+        public void setRankingWeight(double rankingWeight) {
+            this.rankingWeight = rankingWeight;
+        }
+
+        public int getMaxTrackedThreads() {
+            return maxTrackedThreads;
+        }
+
+        public void setMaxTrackedThreads(int maxTrackedThreads) {
+            this.maxTrackedThreads = maxTrackedThreads;
+        }
+    }
+
+    /**
+     * 向量检索配置：开启后带文本的查询按词项分数与向量相似度混合排序
+     */
+    public static class VectorConfig {
+        /**
+         * 是否启用向量检索（默认关闭）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 用于经验嵌入的EmbeddingModel bean名称；为空时使用本地哈希嵌入，不会自动选用容器中的远端模型
+         */
+        private String embeddingModelBean;
+
+        /**
+         * 本地哈希嵌入的维度
+         */
+        private int dimensions = 256;
+
+        /**
+         * 是否在后台线程上嵌入经验（启动时预热全量经验），关闭后在查询线程上同步嵌入
+         */
+        private boolean backgroundIndexing = true;
+
+        /**
+         * 混合分数中词项分数（归一化后）的权重，其余为向量相似度权重
+         */
+        private double lexicalWeight = 0.5;
+
+        /**
+         * 向量相似度低于该值时不计入混合分数
+         */
+        private double minSimilarity = 0.2;
+
+        /**
+         * 候选数不超过该值时逐条计算精确相似度，否则走HNSW近似检索
+         */
+        private int exactSearchThreshold = 512;
+
+        /**
+         * HNSW每个节点的邻居数
+         */
+        private int m = 16;
+
+        /**
+         * HNSW构建时的搜索宽度
+         */
+        private int efConstruction = 100;
+
+        /**
+         * HNSW检索时的搜索宽度
+         */
+        private int efSearch = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getDimensions() {
+            return dimensions;
+        }
+
+        public void setDimensions(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        public double getLexicalWeight() {
+            return lexicalWeight;
+        }
+
+        public void setLexicalWeight(double lexicalWeight) {
+            this.lexicalWeight = lexicalWeight;
+        }
+
+        public double getMinSimilarity() {
+            return minSimilarity;
+        }
+
+        public void setMinSimilarity(double minSimilarity) {
+            this.minSimilarity = minSimilarity;
+        }
+
+        public int getExactSearchThreshold() {
+            return exactSearchThreshold;
+        }
+
+        public void setExactSearchThreshold(int exactSearchThreshold) {
+            this.exactSearchThreshold = exactSearchThreshold;
+        }
+
+        public int getM() {
+            return m;
+        }
+
+        public void setM(int m) {
+            this.m = m;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+
+        public int getEfSearch() {
+            return efSearch;
+        }
+
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+
+        public String getEmbeddingModelBean() {
+            return embeddingModelBean;
+        }
+
+        public void setEmbeddingModelBean(String embeddingModelBean) {
+            this.embeddingModelBean = embeddingModelBean;
+        }
+
+        public boolean isBackgroundIndexing() {
+            return backgroundIndexing;
+        }
+
+        public void setBackgroundIndexing(boolean backgroundIndexing) {
+            this.backgroundIndexing = backgroundIndexing;
+        }
+    }
+
     /**
      * 日志配置
      */
@@ -266,6 +671,14 @@ public class ExperienceExtensionProperties {
         this.store = store;
     }
 
+    public FileConfig getFile() {
+        return file;
+    }
+
+    public void setFile(FileConfig file) {
+        this.file = file;
+    }
+
     public LoggingConfig getLogging() {
         return logging;
     }
@@ -273,4 +686,28 @@ public class ExperienceExtensionProperties {
     public void setLogging(LoggingConfig logging) {
         this.logging = logging;
     }
+
+    public VectorConfig getVector() {
+        return vector;
+    }
+
+    public void setVector(VectorConfig vector) {
+        this.vector = vector;
+    }
+
+    public QueryCacheConfig getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(QueryCacheConfig queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    public UsageConfig getUsage() {
+        return usage;
+    }
+
+    public void setUsage(UsageConfig usage) {
+        this.usage = usage;
+    }
 }
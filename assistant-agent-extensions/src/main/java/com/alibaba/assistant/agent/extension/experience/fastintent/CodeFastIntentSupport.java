@@ -7,6 +7,8 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
 import com.alibaba.assistant.agent.extension.experience.model.FastIntentConfig;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
@@ -30,21 +32,37 @@ public class CodeFastIntentSupport {
 
     private static final Logger log = LoggerFactory.getLogger(CodeFastIntentSupport.class);
 
-    private final ExperienceProvider experienceProvider;
+    private final ExperienceQueryCache queryCache;
     private final ExperienceExtensionProperties properties;
     private final FastIntentService fastIntentService;
+    private final ExperienceUsageTracker usageTracker;
 
     public CodeFastIntentSupport(ExperienceProvider experienceProvider,
                                  ExperienceExtensionProperties properties,
                                  FastIntentService fastIntentService) {
-        this.experienceProvider = experienceProvider;
+        this(experienceProvider != null ? ExperienceQueryCache.uncached(experienceProvider) : null,
+                properties, fastIntentService);
+    }
+
+    public CodeFastIntentSupport(ExperienceQueryCache queryCache,
+                                 ExperienceExtensionProperties properties,
+                                 FastIntentService fastIntentService) {
+        this(queryCache, properties, fastIntentService, null);
+    }
+
+    public CodeFastIntentSupport(ExperienceQueryCache queryCache,
+                                 ExperienceExtensionProperties properties,
+                                 FastIntentService fastIntentService,
+                                 ExperienceUsageTracker usageTracker) {
+        this.queryCache = queryCache;
         this.properties = properties;
         this.fastIntentService = fastIntentService;
+        this.usageTracker = usageTracker;
     }
 
     public Optional<Hit> tryHit(ToolContext toolContext, Map<String, Object> toolRequest, String language) {
         try {
-            if (experienceProvider == null || properties == null || fastIntentService == null) {
+            if (queryCache == null || properties == null || fastIntentService == null) {
                 return Optional.empty();
             }
             if (!properties.isEnabled()
@@ -70,7 +88,7 @@ public class CodeFastIntentSupport {
             ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
             query.setLimit(Math.max(20, properties.getMaxItemsPerQuery()));
 
-            List<Experience> candidates = experienceProvider.query(query, queryContext);
+            List<Experience> candidates = queryCache.query(config, query, queryContext);
             Optional<Experience> bestOpt = fastIntentService.selectBestMatch(candidates, ctx);
             if (bestOpt.isEmpty()) {
                 return Optional.empty();
@@ -82,6 +100,10 @@ public class CodeFastIntentSupport {
                 return Optional.empty();
             }
 
+            if (usageTracker != null) {
+                usageTracker.recordFastIntentHit(config != null ? config.threadId().orElse(null) : null,
+                        best.getId(), codeArtifact.getFunctionName());
+            }
             return Optional.of(new Hit(best, codeArtifact));
 
         } catch (Exception e) {
@@ -0,0 +1,834 @@
+package com.alibaba.assistant.agent.extension.experience.fastintent;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.FastIntentConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * FastIntentCompiler - 把一组经验的 FastIntent 规则编译为一个匹配器
+ *
+ * <p>与 {@link FastIntentService#matches} 的逐条解释执行语义一致，区别在于：
+ * <ul>
+ *   <li>message_regex 的 {@link Pattern} 按源串缓存，只编译一次；同一正则在一次求值中只执行一次</li>
+ *   <li>从全部正则中提取必要字面量构建 {@link RegexPrefilter}，一次线性扫描排除不可能命中的正则</li>
+ *   <li>规则顶层（或顶层 allOf 中）的 metadata_equals 条件提升为哈希分发表，按请求元数据直接定位候选规则</li>
+ *   <li>allOf / anyOf 的子条件按估算代价升序排列，便宜的判断先短路；常量子树在编译期折叠</li>
+ *   <li>规则按优先级顺序评估，第一条命中即返回</li>
+ * </ul>
+ * 内置条件类型被自定义 {@link FastIntentConditionMatcher} 覆盖，或类型为自定义类型时，编译结果直接委托给对应实现。
+ */
+public class FastIntentCompiler {
+
+    private static final Logger log = LoggerFactory.getLogger(FastIntentCompiler.class);
+
+    private static final int MAX_CACHED_PATTERNS = 4096;
+
+    private static final int COST_LOOKUP = 1;
+    private static final int COST_STATE = 2;
+    private static final int COST_PREFIX = 2;
+    private static final int COST_REGEX = 8;
+    private static final int COST_DELEGATE = 16;
+
+    private final Map<String, FastIntentConditionMatcher> matcherByType;
+
+    /**
+     * 正则缓存，key为正则源串；非法正则缓存为empty
+     */
+    private final Map<String, Optional<Pattern>> patternCache = new ConcurrentHashMap<>();
+
+    public FastIntentCompiler(Map<String, FastIntentConditionMatcher> matcherByType) {
+        this.matcherByType = matcherByType != null ? matcherByType : Map.of();
+    }
+
+    /**
+     * 编译候选经验中所有已启用的 FastIntent 规则
+     *
+     * @param experiences 候选经验
+     * @return 编译结果
+     */
+    public CompiledRules compile(List<Experience> experiences) {
+        List<Experience> source = experiences != null ? experiences : List.of();
+
+        List<Experience> enabled = new ArrayList<>();
+        for (Experience exp : source) {
+            FastIntentConfig cfg = exp != null ? exp.getFastIntentConfig() : null;
+            if (cfg != null && cfg.isEnabled()) {
+                enabled.add(exp);
+            }
+        }
+        enabled.sort(FastIntentService.PRIORITY_ORDER);
+
+        int size = enabled.size();
+        Node[] predicates = new Node[size];
+        List<Integer> unguarded = new ArrayList<>();
+        Map<String, Map<String, List<Integer>>> dispatch = new HashMap<>();
+        for (int rank = 0; rank < size; rank++) {
+            FastIntentConfig.MatchExpression expr = enabled.get(rank).getFastIntentConfig().getMatch();
+            FastIntentConfig.Condition guard = findGuard(expr);
+            if (guard == null) {
+                predicates[rank] = compileExpression(expr);
+                unguarded.add(rank);
+                continue;
+            }
+            predicates[rank] = expr.getCondition() == guard
+                    ? Const.TRUE
+                    : compileAll(withoutGuard(expr.getAllOf(), guard));
+            dispatch.computeIfAbsent(guard.getKey(), k -> new HashMap<>())
+                    .computeIfAbsent(guard.getValue(), v -> new ArrayList<>())
+                    .add(rank);
+        }
+
+        // 按正则源串分配ID，构建字面量预过滤
+        Map<String, Integer> regexIds = new HashMap<>();
+        List<Pattern> patterns = new ArrayList<>();
+        List<Regex> regexNodes = new ArrayList<>();
+        for (Node predicate : predicates) {
+            collectRegex(predicate, regexNodes);
+        }
+        for (Regex regex : regexNodes) {
+            regex.id = regexIds.computeIfAbsent(regex.pattern.pattern(), k -> {
+                patterns.add(regex.pattern);
+                return patterns.size() - 1;
+            });
+        }
+        RegexPrefilter prefilter = RegexPrefilter.build(patterns);
+
+        Map<String, Map<String, int[]>> dispatchTable = new HashMap<>(dispatch.size() * 2);
+        dispatch.forEach((key, byValue) -> {
+            Map<String, int[]> table = new HashMap<>(byValue.size() * 2);
+            byValue.forEach((value, ranks) -> table.put(value, toArray(ranks)));
+            dispatchTable.put(key, table);
+        });
+
+        log.debug("FastIntentCompiler#compile - reason=compiled fast intent rules, total={}, dispatched={}, dispatchKeys={}, regex={}, prefiltered={}",
+                size, size - unguarded.size(), dispatchTable.size(), patterns.size(),
+                prefilter != null ? prefilter.filteredCount() : 0);
+        return new CompiledRules(source, enabled.toArray(new Experience[0]), predicates, toArray(unguarded), dispatchTable,
+                prefilter, patterns.size());
+    }
+
+    private static void collectRegex(Node node, List<Regex> regexNodes) {
+        if (node instanceof Regex regex) {
+            regexNodes.add(regex);
+        } else if (node instanceof Not not) {
+            collectRegex(not.child, regexNodes);
+        } else if (node instanceof AllOf allOf) {
+            for (Node child : allOf.children) {
+                collectRegex(child, regexNodes);
+            }
+        } else if (node instanceof AnyOf anyOf) {
+            for (Node child : anyOf.children) {
+                collectRegex(child, regexNodes);
+            }
+        }
+    }
+
+    /* ---------------- 分发条件提升 ---------------- */
+
+    /**
+     * 查找可提升为哈希分发的 metadata_equals 条件：规则本身就是该条件，或是顶层 allOf 的直接子条件
+     */
+    private FastIntentConfig.Condition findGuard(FastIntentConfig.MatchExpression expr) {
+        if (expr == null || expr.getNot() != null) {
+            return null;
+        }
+        if (!CollectionUtils.isEmpty(expr.getAllOf())) {
+            for (FastIntentConfig.MatchExpression child : expr.getAllOf()) {
+                if (isAtom(child) && isHoistable(child.getCondition())) {
+                    return child.getCondition();
+                }
+            }
+            return null;
+        }
+        if (!CollectionUtils.isEmpty(expr.getAnyOf())) {
+            return null;
+        }
+        return isHoistable(expr.getCondition()) ? expr.getCondition() : null;
+    }
+
+    private boolean isAtom(FastIntentConfig.MatchExpression expr) {
+        return expr != null
+                && expr.getNot() == null
+                && CollectionUtils.isEmpty(expr.getAllOf())
+                && CollectionUtils.isEmpty(expr.getAnyOf())
+                && expr.getCondition() != null;
+    }
+
+    private boolean isHoistable(FastIntentConfig.Condition condition) {
+        return condition != null
+                && "metadata_equals".equals(condition.getType())
+                && isBuiltIn(condition.getType(), FastIntentService.MetadataEqualsMatcher.class)
+                && StringUtils.hasText(condition.getKey())
+                && StringUtils.hasText(condition.getValue());
+    }
+
+    private List<FastIntentConfig.MatchExpression> withoutGuard(List<FastIntentConfig.MatchExpression> allOf,
+                                                               FastIntentConfig.Condition guard) {
+        List<FastIntentConfig.MatchExpression> rest = new ArrayList<>(allOf.size());
+        boolean removed = false;
+        for (FastIntentConfig.MatchExpression child : allOf) {
+            if (!removed && child != null && child.getCondition() == guard) {
+                removed = true;
+                continue;
+            }
+            rest.add(child);
+        }
+        return rest;
+    }
+
+    /* ---------------- 表达式编译 ---------------- */
+
+    private Node compileExpression(FastIntentConfig.MatchExpression expr) {
+        if (expr == null) {
+            return Const.FALSE;
+        }
+        if (expr.getNot() != null) {
+            Node child = compileExpression(expr.getNot());
+            if (child instanceof Const c) {
+                return c.value ? Const.FALSE : Const.TRUE;
+            }
+            return new Not(child);
+        }
+        if (!CollectionUtils.isEmpty(expr.getAllOf())) {
+            return compileAll(expr.getAllOf());
+        }
+        if (!CollectionUtils.isEmpty(expr.getAnyOf())) {
+            List<Node> children = new ArrayList<>();
+            for (FastIntentConfig.MatchExpression child : expr.getAnyOf()) {
+                Node node = compileExpression(child);
+                if (node == Const.TRUE) {
+                    return Const.TRUE;
+                }
+                if (node != Const.FALSE) {
+                    children.add(node);
+                }
+            }
+            if (children.isEmpty()) {
+                return Const.FALSE;
+            }
+            return children.size() == 1 ? children.get(0) : new AnyOf(sortByCost(children));
+        }
+        if (expr.getCondition() != null) {
+            return compileCondition(expr.getCondition());
+        }
+        return Const.FALSE;
+    }
+
+    private Node compileAll(List<FastIntentConfig.MatchExpression> allOf) {
+        List<Node> children = new ArrayList<>();
+        for (FastIntentConfig.MatchExpression child : allOf) {
+            Node node = compileExpression(child);
+            if (node == Const.FALSE) {
+                return Const.FALSE;
+            }
+            if (node != Const.TRUE) {
+                children.add(node);
+            }
+        }
+        if (children.isEmpty()) {
+            return Const.TRUE;
+        }
+        return children.size() == 1 ? children.get(0) : new AllOf(sortByCost(children));
+    }
+
+    private Node compileCondition(FastIntentConfig.Condition condition) {
+        if (!StringUtils.hasText(condition.getType())) {
+            return Const.FALSE;
+        }
+        String type = condition.getType();
+        FastIntentConditionMatcher matcher = matcherByType.get(type);
+        if (matcher == null) {
+            log.warn("FastIntentCompiler#compileCondition - reason=unknown condition type: {}", type);
+            return Const.FALSE;
+        }
+        if (matcher.getClass() == FastIntentService.MessagePrefixMatcher.class) {
+            if (!StringUtils.hasText(condition.getValue())) {
+                return Const.FALSE;
+            }
+            return new Prefix(condition.getValue(), Boolean.TRUE.equals(condition.getTrim()),
+                    Boolean.TRUE.equals(condition.getIgnoreCase()));
+        }
+        if (matcher.getClass() == FastIntentService.MessageRegexMatcher.class) {
+            if (!StringUtils.hasText(condition.getPattern())) {
+                return Const.FALSE;
+            }
+            Optional<Pattern> pattern = pattern(condition.getPattern());
+            return pattern.<Node>map(Regex::new).orElse(Const.FALSE);
+        }
+        if (matcher.getClass() == FastIntentService.MetadataExistsMatcher.class) {
+            if (!StringUtils.hasText(condition.getKey())) {
+                return Const.FALSE;
+            }
+            return new MetadataExists(condition.getKey());
+        }
+        if (matcher.getClass() == FastIntentService.MetadataEqualsMatcher.class) {
+            return valueEquals(Source.METADATA, condition);
+        }
+        if (matcher.getClass() == FastIntentService.StateEqualsMatcher.class) {
+            return valueEquals(Source.STATE, condition);
+        }
+        if (matcher.getClass() == FastIntentService.ToolArgEqualsMatcher.class) {
+            return valueEquals(Source.TOOL_ARG, condition);
+        }
+        if (matcher.getClass() == FastIntentService.MetadataInMatcher.class) {
+            if (!StringUtils.hasText(condition.getKey()) || CollectionUtils.isEmpty(condition.getValues())) {
+                return Const.FALSE;
+            }
+            return new ValueIn(condition.getKey(), new HashSet<>(condition.getValues()));
+        }
+        return new Delegate(matcher, condition);
+    }
+
+    private Node valueEquals(Source source, FastIntentConfig.Condition condition) {
+        if (!StringUtils.hasText(condition.getKey()) || !StringUtils.hasText(condition.getValue())) {
+            return Const.FALSE;
+        }
+        return new ValueEquals(source, condition.getKey(), condition.getValue());
+    }
+
+    private boolean isBuiltIn(String type, Class<?> builtInClass) {
+        FastIntentConditionMatcher matcher = matcherByType.get(type);
+        return matcher != null && matcher.getClass() == builtInClass;
+    }
+
+    private Optional<Pattern> pattern(String source) {
+        Optional<Pattern> cached = patternCache.get(source);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<Pattern> compiled;
+        try {
+            compiled = Optional.of(Pattern.compile(source));
+        } catch (PatternSyntaxException e) {
+            log.warn("FastIntentCompiler#pattern - reason=invalid message_regex pattern={}, error={}", source, e.getMessage());
+            compiled = Optional.empty();
+        }
+        if (patternCache.size() >= MAX_CACHED_PATTERNS) {
+            patternCache.clear();
+        }
+        patternCache.put(source, compiled);
+        return compiled;
+    }
+
+    private static Node[] sortByCost(List<Node> nodes) {
+        Node[] sorted = nodes.toArray(new Node[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Node::cost));
+        return sorted;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /* ---------------- 编译结果 ---------------- */
+
+    /**
+     * 编译后的规则集，不可变且线程安全
+     */
+    public static final class CompiledRules {
+
+        private final Experience[] sourceExperiences;
+        private final FastIntentConfig[] sourceConfigs;
+        private final FastIntentConfig.MatchExpression[] sourceExpressions;
+        private final Instant[] sourceUpdatedAt;
+        private final int[] sourcePriorities;
+        private final boolean[] sourceEnabled;
+        private final int sourceHash;
+
+        /**
+         * 按优先级排序的已启用经验，下标即规则序号
+         */
+        private final Experience[] rules;
+        private final Node[] predicates;
+        private final int[] unguarded;
+        private final Map<String, Map<String, int[]>> dispatch;
+        private final RegexPrefilter prefilter;
+        private final int regexCount;
+
+        private CompiledRules(List<Experience> source, Experience[] rules, Node[] predicates,
+                              int[] unguarded, Map<String, Map<String, int[]>> dispatch,
+                              RegexPrefilter prefilter, int regexCount) {
+            int size = source.size();
+            this.sourceExperiences = source.toArray(new Experience[0]);
+            this.sourceConfigs = new FastIntentConfig[size];
+            this.sourceExpressions = new FastIntentConfig.MatchExpression[size];
+            this.sourceUpdatedAt = new Instant[size];
+            this.sourcePriorities = new int[size];
+            this.sourceEnabled = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                Experience exp = sourceExperiences[i];
+                FastIntentConfig cfg = exp != null ? exp.getFastIntentConfig() : null;
+                sourceConfigs[i] = cfg;
+                if (cfg != null) {
+                    sourceExpressions[i] = cfg.getMatch();
+                    sourceUpdatedAt[i] = exp.getUpdatedAt();
+                    sourcePriorities[i] = cfg.getPriority();
+                    sourceEnabled[i] = cfg.isEnabled();
+                }
+            }
+            this.sourceHash = fingerprint(source);
+            this.rules = rules;
+            this.predicates = predicates;
+            this.unguarded = unguarded;
+            this.dispatch = dispatch;
+            this.prefilter = prefilter;
+            this.regexCount = regexCount;
+        }
+
+        /**
+         * 候选经验指纹：经验、配置与匹配表达式的对象身份，以及启用状态、优先级与更新时间
+         */
+        static int fingerprint(List<Experience> experiences) {
+            int hash = 1;
+            for (Experience exp : experiences) {
+                FastIntentConfig cfg = exp != null ? exp.getFastIntentConfig() : null;
+                hash = 31 * hash + System.identityHashCode(exp);
+                hash = 31 * hash + System.identityHashCode(cfg);
+                if (cfg != null) {
+                    hash = 31 * hash + System.identityHashCode(cfg.getMatch());
+                    hash = 31 * hash + Objects.hashCode(exp.getUpdatedAt());
+                    hash = 31 * hash + cfg.getPriority();
+                    hash = 31 * hash + (cfg.isEnabled() ? 1 : 0);
+                }
+            }
+            return hash;
+        }
+
+        /**
+         * 是否由同一组（且未变化的）候选经验编译而来
+         */
+        public boolean isCompiledFrom(List<Experience> experiences) {
+            if (experiences == null || experiences.size() != sourceExperiences.length) {
+                return false;
+            }
+            for (int i = 0; i < sourceExperiences.length; i++) {
+                Experience exp = experiences.get(i);
+                if (exp != sourceExperiences[i]) {
+                    return false;
+                }
+                FastIntentConfig cfg = exp != null ? exp.getFastIntentConfig() : null;
+                if (cfg != sourceConfigs[i]) {
+                    return false;
+                }
+                if (cfg != null && (cfg.getMatch() != sourceExpressions[i]
+                        || !Objects.equals(exp.getUpdatedAt(), sourceUpdatedAt[i])
+                        || cfg.getPriority() != sourcePriorities[i]
+                        || cfg.isEnabled() != sourceEnabled[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int sourceHash() {
+            return sourceHash;
+        }
+
+        public int ruleCount() {
+            return rules.length;
+        }
+
+        /**
+         * 按优先级顺序查找第一条命中的规则
+         */
+        public Optional<Experience> firstMatch(FastIntentContext context) {
+            if (context == null || rules.length == 0) {
+                return Optional.empty();
+            }
+            Evaluation evaluation = new Evaluation(context, prefilter, regexCount);
+
+            int[][] lists = new int[dispatch.size() + 1][];
+            int listCount = 0;
+            if (unguarded.length > 0) {
+                lists[listCount++] = unguarded;
+            }
+            if (!dispatch.isEmpty()) {
+                Map<String, Object> metadata = context.getConfigMetadata();
+                for (Map.Entry<String, Map<String, int[]>> entry : dispatch.entrySet()) {
+                    Object v = metadata.get(entry.getKey());
+                    if (v == null) {
+                        continue;
+                    }
+                    int[] ranks = entry.getValue().get(String.valueOf(v));
+                    if (ranks != null) {
+                        lists[listCount++] = ranks;
+                    }
+                }
+            }
+
+            // 多路归并：各列表内部已按规则序号升序，按序号从小到大依次评估
+            int[] positions = new int[listCount];
+            while (true) {
+                int best = -1;
+                int bestRank = Integer.MAX_VALUE;
+                for (int l = 0; l < listCount; l++) {
+                    if (positions[l] < lists[l].length && lists[l][positions[l]] < bestRank) {
+                        bestRank = lists[l][positions[l]];
+                        best = l;
+                    }
+                }
+                if (best < 0) {
+                    return Optional.empty();
+                }
+                positions[best]++;
+                if (predicates[bestRank].test(evaluation)) {
+                    return Optional.of(rules[bestRank]);
+                }
+            }
+        }
+    }
+
+    /* ---------------- 求值 ---------------- */
+
+    /**
+     * 单次求值上下文，缓存输入文本的派生形式、预过滤结果与已执行的正则结果
+     */
+    static final class Evaluation {
+
+        final FastIntentContext context;
+        final String input;
+        final boolean hasInput;
+        private final RegexPrefilter prefilter;
+        private String trimmed;
+        private String lower;
+        private String trimmedLower;
+        private BitSet regexCandidates;
+        private final BitSet regexEvaluated;
+        private final BitSet regexMatched;
+
+        Evaluation(FastIntentContext context, RegexPrefilter prefilter, int regexCount) {
+            this.context = context;
+            this.input = context.getInput();
+            this.hasInput = StringUtils.hasText(input);
+            this.prefilter = prefilter;
+            this.regexEvaluated = new BitSet(regexCount);
+            this.regexMatched = new BitSet(regexCount);
+        }
+
+        boolean regexFind(Regex regex) {
+            if (!hasInput) {
+                return false;
+            }
+            int id = regex.id;
+            if (id < 0) {
+                return regex.pattern.matcher(input).find();
+            }
+            if (prefilter != null && prefilter.isFiltered(id)) {
+                if (regexCandidates == null) {
+                    regexCandidates = prefilter.candidates(input);
+                }
+                if (!regexCandidates.get(id)) {
+                    return false;
+                }
+            }
+            if (!regexEvaluated.get(id)) {
+                regexEvaluated.set(id);
+                if (regex.pattern.matcher(input).find()) {
+                    regexMatched.set(id);
+                }
+            }
+            return regexMatched.get(id);
+        }
+
+        String text(boolean trim, boolean ignoreCase) {
+            if (!trim && !ignoreCase) {
+                return input;
+            }
+            if (trim && !ignoreCase) {
+                if (trimmed == null) {
+                    trimmed = input.trim();
+                }
+                return trimmed;
+            }
+            if (!trim) {
+                if (lower == null) {
+                    lower = input.toLowerCase();
+                }
+                return lower;
+            }
+            if (trimmedLower == null) {
+                trimmedLower = text(true, false).toLowerCase();
+            }
+            return trimmedLower;
+        }
+    }
+
+    enum Source {
+        METADATA, STATE, TOOL_ARG
+    }
+
+    interface Node {
+
+        boolean test(Evaluation evaluation);
+
+        int cost();
+    }
+
+    static final class Const implements Node {
+
+        static final Const TRUE = new Const(true);
+        static final Const FALSE = new Const(false);
+
+        final boolean value;
+
+        private Const(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            return value;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    }
+
+    static final class Not implements Node {
+
+        final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            return !child.test(evaluation);
+        }
+
+        @Override
+        public int cost() {
+            return child.cost();
+        }
+    }
+
+    static final class AllOf implements Node {
+
+        final Node[] children;
+        final int cost;
+
+        AllOf(Node[] children) {
+            this.children = children;
+            this.cost = sumCost(children);
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            for (Node child : children) {
+                if (!child.test(evaluation)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    static final class AnyOf implements Node {
+
+        final Node[] children;
+        final int cost;
+
+        AnyOf(Node[] children) {
+            this.children = children;
+            this.cost = sumCost(children);
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            for (Node child : children) {
+                if (child.test(evaluation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+    }
+
+    private static int sumCost(Node[] children) {
+        long sum = 0;
+        for (Node child : children) {
+            sum += child.cost();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, sum);
+    }
+
+    static final class Prefix implements Node {
+
+        final String prefix;
+        final boolean trim;
+        final boolean ignoreCase;
+
+        Prefix(String prefix, boolean trim, boolean ignoreCase) {
+            this.prefix = ignoreCase ? prefix.toLowerCase() : prefix;
+            this.trim = trim;
+            this.ignoreCase = ignoreCase;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            return evaluation.hasInput && evaluation.text(trim, ignoreCase).startsWith(prefix);
+        }
+
+        @Override
+        public int cost() {
+            return COST_PREFIX;
+        }
+    }
+
+    static final class Regex implements Node {
+
+        final Pattern pattern;
+
+        /**
+         * 规则集内的正则ID，编译时分配
+         */
+        int id = -1;
+
+        Regex(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            return evaluation.regexFind(this);
+        }
+
+        @Override
+        public int cost() {
+            return COST_REGEX + pattern.pattern().length() / 8;
+        }
+    }
+
+    static final class MetadataExists implements Node {
+
+        final String key;
+
+        MetadataExists(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            return evaluation.context.getConfigMetadata().containsKey(key);
+        }
+
+        @Override
+        public int cost() {
+            return COST_LOOKUP;
+        }
+    }
+
+    static final class ValueEquals implements Node {
+
+        final Source source;
+        final String key;
+        final String value;
+
+        ValueEquals(Source source, String key, String value) {
+            this.source = source;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            FastIntentContext context = evaluation.context;
+            Object v = switch (source) {
+                case METADATA -> context.getConfigMetadata().get(key);
+                case STATE -> context.stateValue(key).orElse(null);
+                case TOOL_ARG -> context.getToolRequest().get(key);
+            };
+            return v != null && value.equals(String.valueOf(v));
+        }
+
+        @Override
+        public int cost() {
+            return source == Source.STATE ? COST_STATE : COST_LOOKUP;
+        }
+    }
+
+    static final class ValueIn implements Node {
+
+        final String key;
+        final Set<String> values;
+
+        ValueIn(String key, Set<String> values) {
+            this.key = key;
+            this.values = values;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            Object v = evaluation.context.getConfigMetadata().get(key);
+            return v != null && values.contains(String.valueOf(v));
+        }
+
+        @Override
+        public int cost() {
+            return COST_LOOKUP;
+        }
+    }
+
+    static final class Delegate implements Node {
+
+        final FastIntentConditionMatcher matcher;
+        final FastIntentConfig.Condition condition;
+
+        Delegate(FastIntentConditionMatcher matcher, FastIntentConfig.Condition condition) {
+            this.matcher = matcher;
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean test(Evaluation evaluation) {
+            try {
+                return matcher.matches(condition, evaluation.context);
+            } catch (Exception e) {
+                log.warn("FastIntentCompiler#test - reason=matcher failed type={}, error={}",
+                        condition.getType(), e.getMessage());
+                return false;
+            }
+        }
+
+        @Override
+        public int cost() {
+            return COST_DELEGATE;
+        }
+    }
+}
@@ -12,13 +12,56 @@ import java.util.regex.Pattern;
 
 /**
  * FastIntentService - 条件匹配与命中选择
+ *
+ * <p>命中选择使用 {@link FastIntentCompiler} 编译后的规则集；同一组候选经验（对象、配置与更新时间均未变化）
+ * 复用已编译结果，经验保存或变更后自动重新编译。{@link #matches} 保留逐条解释执行的语义，作为编译结果的对照。
  */
 public class FastIntentService {
 
     private static final Logger log = LoggerFactory.getLogger(FastIntentService.class);
 
+    /**
+     * 最多缓存的编译结果数量（REACT / CODE 等不同入口的候选集各占一份）
+     */
+    private static final int MAX_COMPILED_RULE_SETS = 8;
+
+    /**
+     * 多条命中时的选择顺序：priority 降序，updatedAt 降序，id 升序
+     */
+    static final Comparator<Experience> PRIORITY_ORDER = (e1, e2) -> {
+        int p1 = Optional.ofNullable(e1.getFastIntentConfig()).map(FastIntentConfig::getPriority).orElse(0);
+        int p2 = Optional.ofNullable(e2.getFastIntentConfig()).map(FastIntentConfig::getPriority).orElse(0);
+        if (p1 != p2) {
+            return Integer.compare(p2, p1);
+        }
+        // updatedAt desc
+        if (e1.getUpdatedAt() != null && e2.getUpdatedAt() != null) {
+            int t = e2.getUpdatedAt().compareTo(e1.getUpdatedAt());
+            if (t != 0) {
+                return t;
+            }
+        }
+        // id asc
+        String id1 = e1.getId() != null ? e1.getId() : "";
+        String id2 = e2.getId() != null ? e2.getId() : "";
+        return id1.compareTo(id2);
+    };
+
     private final Map<String, FastIntentConditionMatcher> matcherByType;
 
+    private final FastIntentCompiler compiler;
+
+    /**
+     * 编译结果缓存，key为候选经验指纹，命中后仍需校验候选集未变化
+     */
+    private final Map<Integer, FastIntentCompiler.CompiledRules> compiledCache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, FastIntentCompiler.CompiledRules> eldest) {
+                    return size() > MAX_COMPILED_RULE_SETS;
+                }
+            };
+
     public FastIntentService(List<FastIntentConditionMatcher> matchers) {
         Map<String, FastIntentConditionMatcher> map = new HashMap<>();
         if (!CollectionUtils.isEmpty(matchers)) {
@@ -37,6 +80,7 @@ public class FastIntentService {
         map.putIfAbsent("state_equals", new StateEqualsMatcher());
         map.putIfAbsent("tool_arg_equals", new ToolArgEqualsMatcher());
         this.matcherByType = Collections.unmodifiableMap(map);
+        this.compiler = new FastIntentCompiler(this.matcherByType);
     }
 
     public Optional<Experience> selectBestMatch(List<Experience> candidates, FastIntentContext context) {
@@ -44,46 +88,37 @@ public class FastIntentService {
             return Optional.empty();
         }
 
-        List<Experience> matched = new ArrayList<>();
-        for (Experience exp : candidates) {
-            FastIntentConfig cfg = exp != null ? exp.getFastIntentConfig() : null;
-            if (cfg == null || !cfg.isEnabled()) {
-                continue;
-            }
-            if (matches(cfg.getMatch(), context)) {
-                matched.add(exp);
-            }
-        }
-
+        Optional<Experience> matched = compiledRules(candidates).firstMatch(context);
         if (matched.isEmpty()) {
             return Optional.empty();
         }
 
-        matched.sort((e1, e2) -> {
-            int p1 = Optional.ofNullable(e1.getFastIntentConfig()).map(FastIntentConfig::getPriority).orElse(0);
-            int p2 = Optional.ofNullable(e2.getFastIntentConfig()).map(FastIntentConfig::getPriority).orElse(0);
-            if (p1 != p2) {
-                return Integer.compare(p2, p1);
-            }
-            // updatedAt desc
-            if (e1.getUpdatedAt() != null && e2.getUpdatedAt() != null) {
-                int t = e2.getUpdatedAt().compareTo(e1.getUpdatedAt());
-                if (t != 0) {
-                    return t;
-                }
-            }
-            // id asc
-            String id1 = e1.getId() != null ? e1.getId() : "";
-            String id2 = e2.getId() != null ? e2.getId() : "";
-            return id1.compareTo(id2);
-        });
-
-        Experience best = matched.get(0);
+        Experience best = matched.get();
         log.info("FastIntentService#selectBestMatch - reason=found matched experience: id={}, type={}, title={}",
                 best.getId(), best.getType(), best.getTitle());
         return Optional.of(best);
     }
 
+    /**
+     * 获取候选经验对应的编译结果，候选集变化时重新编译
+     */
+    FastIntentCompiler.CompiledRules compiledRules(List<Experience> candidates) {
+        int hash = FastIntentCompiler.CompiledRules.fingerprint(candidates);
+        synchronized (compiledCache) {
+            FastIntentCompiler.CompiledRules cached = compiledCache.get(hash);
+            if (cached != null && cached.isCompiledFrom(candidates)) {
+                return cached;
+            }
+        }
+        FastIntentCompiler.CompiledRules compiled = compiler.compile(candidates);
+        synchronized (compiledCache) {
+            compiledCache.put(hash, compiled);
+        }
+        log.debug("FastIntentService#compiledRules - reason=fast intent rules recompiled, candidates={}, rules={}",
+                candidates.size(), compiled.ruleCount());
+        return compiled;
+    }
+
     public boolean matches(FastIntentConfig.MatchExpression expr, FastIntentContext context) {
         if (expr == null) {
             return false;
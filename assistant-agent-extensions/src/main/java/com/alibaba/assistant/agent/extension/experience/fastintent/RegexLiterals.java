@@ -0,0 +1,499 @@
+package com.alibaba.assistant.agent.extension.experience.fastintent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * RegexLiterals - 从正则中提取“必要字面量”
+ *
+ * <p>提取结果是一组字面量：正则在任意文本上能 find 成功，则文本中必然出现其中至少一个（忽略大小写时按折叠后比较）。
+ * 提取是保守的：遇到无法确定的结构（字符类、转义类、可选量词、环视等）就截断当前字面量；
+ * 某个分支提取不到字面量时整体返回 null，表示该正则不能预过滤，需要始终执行。
+ */
+final class RegexLiterals {
+
+    /**
+     * 内联标志组，如 (?i) (?i:...) (?-x)
+     */
+    private static final Pattern INLINE_FLAGS = Pattern.compile("\\(\\?([a-zA-Z]*)(?:-([a-zA-Z]*))?[:)]");
+
+    private RegexLiterals() {
+    }
+
+    /**
+     * 提取结果
+     *
+     * @param literals 必要字面量，至少出现其一
+     * @param ignoreCase 是否需要忽略大小写比较
+     */
+    record Required(List<String> literals, boolean ignoreCase) {
+    }
+
+    static Required extract(Pattern pattern) {
+        return extract(pattern.pattern(), pattern.flags());
+    }
+
+    static Required extract(String regex, int flags) {
+        if (regex == null || regex.isEmpty() || (flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+        boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+        if ((flags & Pattern.LITERAL) != 0) {
+            return new Required(List.of(regex), ignoreCase);
+        }
+
+        // 内联标志只做保守判断：出现 i 即整体忽略大小写，出现 x（注释模式）则放弃
+        Matcher inline = INLINE_FLAGS.matcher(regex);
+        while (inline.find()) {
+            String on = inline.group(1);
+            String off = inline.group(2) != null ? inline.group(2) : "";
+            if (on.indexOf('x') >= 0 || off.indexOf('x') >= 0) {
+                return null;
+            }
+            if (on.indexOf('i') >= 0) {
+                ignoreCase = true;
+            }
+        }
+
+        List<String> literals;
+        try {
+            literals = new Parser(regex).alternatives(0, regex.length());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (literals == null || literals.isEmpty()) {
+            return null;
+        }
+        if (ignoreCase) {
+            for (String literal : literals) {
+                for (int i = 0; i < literal.length(); i++) {
+                    if (Character.isSurrogate(literal.charAt(i))) {
+                        // 增补平面字符的大小写折叠无法逐char完成
+                        return null;
+                    }
+                }
+            }
+        }
+        return new Required(literals, ignoreCase);
+    }
+
+    private static final class Parser {
+
+        private final String re;
+
+        Parser(String re) {
+            this.re = re;
+        }
+
+        /**
+         * 解析 [start, end) 内以 | 分隔的分支，每个分支取一组必要字面量，合并后返回；任一分支没有则返回null
+         */
+        List<String> alternatives(int start, int end) {
+            Set<String> union = new LinkedHashSet<>();
+            int branchStart = start;
+            int i = start;
+            while (i <= end) {
+                if (i == end || re.charAt(i) == '|') {
+                    List<String> branch = sequence(branchStart, i);
+                    if (branch == null) {
+                        return null;
+                    }
+                    union.addAll(branch);
+                    branchStart = i + 1;
+                    i++;
+                    continue;
+                }
+                char c = re.charAt(i);
+                if (c == '\\') {
+                    i = skipEscape(i);
+                } else if (c == '[') {
+                    i = skipClass(i);
+                } else if (c == '(') {
+                    i = closeOf(i) + 1;
+                } else {
+                    i++;
+                }
+            }
+            return new ArrayList<>(union);
+        }
+
+        /**
+         * 解析不含顶层 | 的序列，返回最优的一组必要字面量：连续字面量串为单元素组，必选分组为其分支并集
+         */
+        List<String> sequence(int start, int end) {
+            List<String> best = null;
+            StringBuilder run = new StringBuilder();
+            int i = start;
+            while (i < end) {
+                char c = re.charAt(i);
+                String literal = null;
+                int next;
+                switch (c) {
+                    case '\\' -> {
+                        next = skipEscape(i);
+                        literal = escapeLiteral(i, next);
+                        if (literal == null) {
+                            best = better(best, flush(run));
+                            next = skipQuantifier(next, end);
+                        }
+                    }
+                    case '[' -> {
+                        best = better(best, flush(run));
+                        next = skipQuantifier(skipClass(i), end);
+                    }
+                    case '(' -> {
+                        best = better(best, flush(run));
+                        int close = closeOf(i);
+                        int after = close + 1;
+                        int quantified = skipQuantifier(after, end);
+                        if (!isOptional(after, quantified)) {
+                            int inner = groupBodyStart(i, close);
+                            if (inner >= 0) {
+                                best = better(best, alternatives(inner, close));
+                            }
+                        }
+                        next = quantified;
+                    }
+                    case '.', '^', '$' -> {
+                        best = better(best, flush(run));
+                        next = skipQuantifier(i + 1, end);
+                    }
+                    case '?', '*', '+', '{', '|', ')', ']', '}' -> {
+                        best = better(best, flush(run));
+                        next = skipQuantifier(i, end);
+                        if (next == i) {
+                            next = i + 1;
+                        }
+                    }
+                    default -> {
+                        int codePoint = re.codePointAt(i);
+                        literal = new String(Character.toChars(codePoint));
+                        next = i + Character.charCount(codePoint);
+                    }
+                }
+
+                if (literal != null) {
+                    int quantified = skipQuantifier(next, end);
+                    if (quantified == next) {
+                        run.append(literal);
+                    } else if (isOptional(next, quantified)) {
+                        // 量词只作用于最后一个字符
+                        int last = Character.charCount(literal.codePointBefore(literal.length()));
+                        run.append(literal, 0, literal.length() - last);
+                        best = better(best, flush(run));
+                    } else {
+                        run.append(literal);
+                        best = better(best, flush(run));
+                    }
+                    next = quantified;
+                }
+                i = next;
+            }
+            return better(best, flush(run));
+        }
+
+        private static List<String> flush(StringBuilder run) {
+            if (run.isEmpty()) {
+                return null;
+            }
+            List<String> literal = List.of(run.toString());
+            run.setLength(0);
+            return literal;
+        }
+
+        /**
+         * 选择过滤能力更强的一组：最短字面量更长者优先，其次字面量更少者优先
+         */
+        private static List<String> better(List<String> current, List<String> candidate) {
+            if (candidate == null || candidate.isEmpty()) {
+                return current;
+            }
+            if (current == null) {
+                return candidate;
+            }
+            int currentMin = minLength(current);
+            int candidateMin = minLength(candidate);
+            if (candidateMin != currentMin) {
+                return candidateMin > currentMin ? candidate : current;
+            }
+            return candidate.size() < current.size() ? candidate : current;
+        }
+
+        private static int minLength(List<String> literals) {
+            int min = Integer.MAX_VALUE;
+            for (String literal : literals) {
+                min = Math.min(min, literal.length());
+            }
+            return min;
+        }
+
+        /**
+         * 分组内容起点：普通捕获组、(?:...)、(?>...)、命名组；环视与标志组返回-1
+         */
+        private int groupBodyStart(int open, int close) {
+            if (open + 1 >= close || re.charAt(open + 1) != '?') {
+                return open + 1;
+            }
+            if (open + 2 >= close) {
+                return -1;
+            }
+            char kind = re.charAt(open + 2);
+            if (kind == ':' || kind == '>') {
+                return open + 3;
+            }
+            if (kind == '<' && open + 3 < close && Character.isLetter(re.charAt(open + 3))) {
+                int nameEnd = re.indexOf('>', open + 3);
+                return nameEnd > 0 && nameEnd < close ? nameEnd + 1 : -1;
+            }
+            // (?i:...) 等带标志的非捕获组
+            int i = open + 2;
+            while (i < close && (Character.isLetter(re.charAt(i)) || re.charAt(i) == '-')) {
+                i++;
+            }
+            return i < close && re.charAt(i) == ':' ? i + 1 : -1;
+        }
+
+        /**
+         * 量词是否允许0次
+         */
+        private boolean isOptional(int quantifierStart, int quantifierEnd) {
+            if (quantifierStart >= quantifierEnd) {
+                return false;
+            }
+            char q = re.charAt(quantifierStart);
+            if (q == '?' || q == '*') {
+                return true;
+            }
+            if (q == '{') {
+                int i = quantifierStart + 1;
+                int min = 0;
+                boolean digits = false;
+                while (i < quantifierEnd && Character.isDigit(re.charAt(i))) {
+                    min = Math.min(min * 10 + (re.charAt(i) - '0'), 1_000_000);
+                    digits = true;
+                    i++;
+                }
+                return !digits || min == 0;
+            }
+            return false;
+        }
+
+        /**
+         * 跳过 i 处的量词（含惰性/独占后缀），没有量词时返回 i
+         */
+        private int skipQuantifier(int i, int end) {
+            if (i >= end) {
+                return i;
+            }
+            char c = re.charAt(i);
+            int next;
+            if (c == '?' || c == '*' || c == '+') {
+                next = i + 1;
+            } else if (c == '{') {
+                int close = re.indexOf('}', i);
+                if (close < 0 || close >= end) {
+                    throw new IllegalArgumentException("Unclosed repetition");
+                }
+                for (int j = i + 1; j < close; j++) {
+                    char d = re.charAt(j);
+                    if (!Character.isDigit(d) && d != ',') {
+                        throw new IllegalArgumentException("Illegal repetition");
+                    }
+                }
+                next = close + 1;
+            } else {
+                return i;
+            }
+            if (next < end && (re.charAt(next) == '?' || re.charAt(next) == '+')) {
+                next++;
+            }
+            return next;
+        }
+
+        /**
+         * 转义代表的字面量，非字面量转义（字符类、断言、反向引用等）返回null
+         */
+        private String escapeLiteral(int start, int end) {
+            if (start + 1 >= re.length()) {
+                return null;
+            }
+            char d = re.charAt(start + 1);
+            switch (d) {
+                case 'Q' -> {
+                    int close = re.indexOf("\\E", start + 2);
+                    String quoted = re.substring(start + 2, close < 0 ? re.length() : close);
+                    return quoted.isEmpty() ? null : quoted;
+                }
+                case 't' -> {
+                    return "\t";
+                }
+                case 'n' -> {
+                    return "\n";
+                }
+                case 'r' -> {
+                    return "\r";
+                }
+                case 'f' -> {
+                    return "\f";
+                }
+                case 'a' -> {
+                    return "\u0007";
+                }
+                case 'e' -> {
+                    return "\u001B";
+                }
+                case 'x' -> {
+                    String hex = re.charAt(start + 2) == '{'
+                            ? re.substring(start + 3, end - 1)
+                            : re.substring(start + 2, end);
+                    return new String(Character.toChars(Integer.parseInt(hex, 16)));
+                }
+                case 'u' -> {
+                    return String.valueOf((char) Integer.parseInt(re.substring(start + 2, end), 16));
+                }
+                case '0' -> {
+                    return String.valueOf((char) Integer.parseInt(re.substring(start + 2, end), 8));
+                }
+                case 'c' -> {
+                    return String.valueOf((char) (re.charAt(start + 2) ^ 64));
+                }
+                default -> {
+                    return Character.isLetterOrDigit(d) ? null : String.valueOf(d);
+                }
+            }
+        }
+
+        /**
+         * 跳过 i 处的转义序列，返回其后的位置
+         */
+        private int skipEscape(int i) {
+            if (i + 1 >= re.length()) {
+                throw new IllegalArgumentException("Trailing backslash");
+            }
+            char d = re.charAt(i + 1);
+            switch (d) {
+                case 'Q' -> {
+                    int close = re.indexOf("\\E", i + 2);
+                    return close < 0 ? re.length() : close + 2;
+                }
+                case 'x' -> {
+                    if (i + 2 < re.length() && re.charAt(i + 2) == '{') {
+                        int close = re.indexOf('}', i + 3);
+                        if (close < 0) {
+                            throw new IllegalArgumentException("Unclosed hex escape");
+                        }
+                        return close + 1;
+                    }
+                    return i + 4;
+                }
+                case 'u' -> {
+                    return i + 6;
+                }
+                case '0' -> {
+                    int j = i + 2;
+                    int value = 0;
+                    while (j < re.length() && j < i + 5 && re.charAt(j) >= '0' && re.charAt(j) <= '7'
+                            && value * 8 + (re.charAt(j) - '0') <= 0377) {
+                        value = value * 8 + (re.charAt(j) - '0');
+                        j++;
+                    }
+                    return j;
+                }
+                case 'c' -> {
+                    return i + 3;
+                }
+                case 'p', 'P' -> {
+                    if (i + 2 < re.length() && re.charAt(i + 2) == '{') {
+                        int close = re.indexOf('}', i + 3);
+                        if (close < 0) {
+                            throw new IllegalArgumentException("Unclosed property");
+                        }
+                        return close + 1;
+                    }
+                    return i + 3;
+                }
+                case 'N' -> {
+                    int close = re.indexOf('}', i + 2);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Unclosed character name");
+                    }
+                    return close + 1;
+                }
+                case 'k' -> {
+                    int close = re.indexOf('>', i + 2);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Unclosed group name");
+                    }
+                    return close + 1;
+                }
+                default -> {
+                    int j = i + 2;
+                    if (d >= '1' && d <= '9') {
+                        while (j < re.length() && Character.isDigit(re.charAt(j))) {
+                            j++;
+                        }
+                    }
+                    return j;
+                }
+            }
+        }
+
+        /**
+         * 跳过 i 处的字符类（支持嵌套与转义），返回其后的位置
+         */
+        private int skipClass(int i) {
+            int j = i + 1;
+            if (j < re.length() && re.charAt(j) == '^') {
+                j++;
+            }
+            if (j < re.length() && re.charAt(j) == ']') {
+                j++;
+            }
+            int depth = 1;
+            while (j < re.length()) {
+                char c = re.charAt(j);
+                if (c == '\\') {
+                    j = skipEscape(j);
+                    continue;
+                }
+                if (c == '[') {
+                    depth++;
+                } else if (c == ']' && --depth == 0) {
+                    return j + 1;
+                }
+                j++;
+            }
+            throw new IllegalArgumentException("Unclosed character class");
+        }
+
+        /**
+         * i 处左括号对应的右括号位置
+         */
+        private int closeOf(int i) {
+            int depth = 0;
+            int j = i;
+            while (j < re.length()) {
+                char c = re.charAt(j);
+                if (c == '\\') {
+                    j = skipEscape(j);
+                    continue;
+                }
+                if (c == '[') {
+                    j = skipClass(j);
+                    continue;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return j;
+                }
+                j++;
+            }
+            throw new IllegalArgumentException("Unclosed group");
+        }
+    }
+}
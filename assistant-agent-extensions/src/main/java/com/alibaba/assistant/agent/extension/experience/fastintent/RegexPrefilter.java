@@ -0,0 +1,115 @@
+package com.alibaba.assistant.agent.extension.experience.fastintent;
+
+import com.alibaba.assistant.agent.extension.experience.internal.AhoCorasickAutomaton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * RegexPrefilter - 基于必要字面量的正则预过滤
+ *
+ * <p>从每条正则中提取必要字面量（见 {@link RegexLiterals}），全部放入区分大小写 / 忽略大小写两个
+ * {@link AhoCorasickAutomaton}。对一条消息只做一次线性扫描，得到“可能命中”的正则集合；
+ * 不在集合中的正则一定不会命中，无需执行。提取不到字面量的正则不参与过滤，始终执行。
+ */
+final class RegexPrefilter {
+
+    private final int regexCount;
+
+    /**
+     * 参与过滤的正则
+     */
+    private final BitSet filtered;
+
+    private final AhoCorasickAutomaton caseSensitive;
+    private final int[][] caseSensitiveOwners;
+
+    private final AhoCorasickAutomaton ignoreCase;
+    private final int[][] ignoreCaseOwners;
+
+    private RegexPrefilter(int regexCount, BitSet filtered,
+                           Map<String, List<Integer>> caseSensitiveLiterals,
+                           Map<String, List<Integer>> ignoreCaseLiterals) {
+        this.regexCount = regexCount;
+        this.filtered = filtered;
+        this.caseSensitive = caseSensitiveLiterals.isEmpty() ? null
+                : AhoCorasickAutomaton.of(new ArrayList<>(caseSensitiveLiterals.keySet()), false);
+        this.caseSensitiveOwners = owners(caseSensitiveLiterals);
+        this.ignoreCase = ignoreCaseLiterals.isEmpty() ? null
+                : AhoCorasickAutomaton.of(new ArrayList<>(ignoreCaseLiterals.keySet()), true);
+        this.ignoreCaseOwners = owners(ignoreCaseLiterals);
+    }
+
+    /**
+     * 构建预过滤器
+     *
+     * @param patterns 正则，下标即正则ID
+     * @return 预过滤器，没有任何正则可过滤时返回null
+     */
+    static RegexPrefilter build(List<Pattern> patterns) {
+        BitSet filtered = new BitSet(patterns.size());
+        Map<String, List<Integer>> caseSensitiveLiterals = new LinkedHashMap<>();
+        Map<String, List<Integer>> ignoreCaseLiterals = new LinkedHashMap<>();
+        for (int id = 0; id < patterns.size(); id++) {
+            RegexLiterals.Required required = RegexLiterals.extract(patterns.get(id));
+            if (required == null) {
+                continue;
+            }
+            filtered.set(id);
+            Map<String, List<Integer>> target = required.ignoreCase() ? ignoreCaseLiterals : caseSensitiveLiterals;
+            for (String literal : required.literals()) {
+                target.computeIfAbsent(literal, k -> new ArrayList<>(1)).add(id);
+            }
+        }
+        if (filtered.isEmpty()) {
+            return null;
+        }
+        return new RegexPrefilter(patterns.size(), filtered, caseSensitiveLiterals, ignoreCaseLiterals);
+    }
+
+    /**
+     * 该正则是否参与过滤
+     */
+    boolean isFiltered(int regexId) {
+        return filtered.get(regexId);
+    }
+
+    int filteredCount() {
+        return filtered.cardinality();
+    }
+
+    /**
+     * 一次扫描文本，返回必要字面量出现过的正则ID
+     */
+    BitSet candidates(String text) {
+        BitSet candidates = new BitSet(regexCount);
+        scan(caseSensitive, caseSensitiveOwners, text, candidates);
+        scan(ignoreCase, ignoreCaseOwners, text, candidates);
+        return candidates;
+    }
+
+    private static void scan(AhoCorasickAutomaton automaton, int[][] owners, String text, BitSet candidates) {
+        if (automaton == null) {
+            return;
+        }
+        BitSet literals = automaton.matches(text);
+        for (int literal = literals.nextSetBit(0); literal >= 0; literal = literals.nextSetBit(literal + 1)) {
+            for (int regexId : owners[literal]) {
+                candidates.set(regexId);
+            }
+        }
+    }
+
+    private static int[][] owners(Map<String, List<Integer>> literals) {
+        int[][] owners = new int[literals.size()][];
+        int i = 0;
+        for (List<Integer> ids : literals.values()) {
+            owners[i++] = ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return owners;
+    }
+}
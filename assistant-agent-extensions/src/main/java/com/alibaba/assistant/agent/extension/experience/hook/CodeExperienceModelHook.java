@@ -6,13 +6,17 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
 import com.alibaba.assistant.agent.extension.experience.model.*;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
+import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPosition;
 import com.alibaba.cloud.ai.graph.agent.hook.HookPositions;
 import com.alibaba.cloud.ai.graph.agent.hook.JumpTo;
 import com.alibaba.cloud.ai.graph.agent.hook.ModelHook;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.fastjson.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,13 +45,26 @@ public class CodeExperienceModelHook extends ModelHook {
 
     private static final Logger log = LoggerFactory.getLogger(CodeExperienceModelHook.class);
 
-    private final ExperienceProvider experienceProvider;
+    private final ExperienceQueryCache queryCache;
     private final ExperienceExtensionProperties properties;
+    private final ExperienceUsageTracker usageTracker;
 
     public CodeExperienceModelHook(ExperienceProvider experienceProvider,
                                   ExperienceExtensionProperties properties) {
-        this.experienceProvider = experienceProvider;
+        this(ExperienceQueryCache.uncached(experienceProvider), properties);
+    }
+
+    public CodeExperienceModelHook(ExperienceQueryCache queryCache,
+                                  ExperienceExtensionProperties properties) {
+        this(queryCache, properties, null);
+    }
+
+    public CodeExperienceModelHook(ExperienceQueryCache queryCache,
+                                  ExperienceExtensionProperties properties,
+                                  ExperienceUsageTracker usageTracker) {
+        this.queryCache = queryCache;
         this.properties = properties;
+        this.usageTracker = usageTracker;
     }
 
     @Override
@@ -60,6 +77,12 @@ public class CodeExperienceModelHook extends ModelHook {
         return List.of();
     }
 
+    @Override
+    public Map<String, KeyStrategy> getKeyStrategys() {
+        // 扫描游标整体替换
+        return Map.of(MessageScanCursor.STATE_KEY, new ReplaceStrategy());
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public CompletableFuture<Map<String, Object>> beforeModel(OverAllState state, RunnableConfig config) {
@@ -78,28 +101,33 @@ public class CodeExperienceModelHook extends ModelHook {
                 return CompletableFuture.completedFuture(Map.of());
             }
 
+            // 只扫描上次调用之后新增的消息
             List<Message> messages = (List<Message>) messagesOpt.get();
-            if (!isCodeRelatedRequest(messages)) {
+            MessageScanCursor cursor = MessageScanCursor.from(state.value(MessageScanCursor.STATE_KEY).orElse(null))
+                    .advance(messages);
+            log.debug("CodeExperienceModelHook#beforeModel - reason=消息扫描完成，scanned={}, total={}",
+                    cursor.lastScanned(), cursor.scannedCount());
+            if (!cursor.codeKeywordSeen()) {
                 log.debug("CodeExperienceModelHook#beforeModel - reason=非代码相关请求，跳过");
-                return CompletableFuture.completedFuture(Map.of());
+                return CompletableFuture.completedFuture(Map.of(MessageScanCursor.STATE_KEY, cursor));
             }
 
             // 构造查询上下文
-            ExperienceQueryContext context = buildQueryContext(state, config, messages);
+            ExperienceQueryContext context = buildQueryContext(state, config, cursor);
 
             // 查询代码经验
             ExperienceQuery query = buildCodeQuery(context);
-            List<Experience> experiences = experienceProvider.query(query, context);
+            List<Experience> experiences = queryCache.query(config, query, context);
 
             if (CollectionUtils.isEmpty(experiences)) {
                 log.info("CodeExperienceModelHook#beforeModel - reason=未找到匹配的代码经验");
-                return CompletableFuture.completedFuture(Map.of());
+                return CompletableFuture.completedFuture(Map.of(MessageScanCursor.STATE_KEY, cursor));
             }
 
             log.info("CodeExperienceModelHook#beforeModel - reason=找到代码经验: {}", JSON.toJSONString(experiences));
 
             // 🔥 核心：直接修改messages列表
-            return injectCodeExperienceToMessages(state, experiences);
+            return injectCodeExperienceToMessages(cursor, experiences, config);
 
         } catch (Exception e) {
             log.error("CodeExperienceModelHook#beforeModel - reason=注入代码经验失败", e);
@@ -107,25 +135,6 @@ public class CodeExperienceModelHook extends ModelHook {
         }
     }
 
-    /**
-     * 检测是否是代码相关的请求
-     */
-    private boolean isCodeRelatedRequest(List<Message> messages) {
-        String allContent = messages.stream()
-                .map(Message::getText)
-                .reduce("", (a, b) -> a + " " + b)
-                .toLowerCase();
-
-        return allContent.contains("代码") ||
-               allContent.contains("code") ||
-               allContent.contains("python") ||
-               allContent.contains("java") ||
-               allContent.contains("函数") ||
-               allContent.contains("demo") ||
-               allContent.contains("生成") ||
-               allContent.contains("write");
-    }
-
     /**
      * 构建代码经验查询条件
      */
@@ -150,30 +159,17 @@ public class CodeExperienceModelHook extends ModelHook {
      * 🔥 核心方法：注入代码经验到messages
      * 使用 AssistantMessage + ToolResponseMessage 配对方式
      */
-    @SuppressWarnings("unchecked")
-    private CompletableFuture<Map<String, Object>> injectCodeExperienceToMessages(OverAllState state, List<Experience> experiences) {
+    private CompletableFuture<Map<String, Object>> injectCodeExperienceToMessages(MessageScanCursor cursor, List<Experience> experiences,
+                                                                             RunnableConfig config) {
         log.info("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=开始处理messages");
 
         try {
-            Optional<Object> messagesOpt = state.value("messages");
-            if (messagesOpt.isEmpty()) {
-                log.warn("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=state中没有messages，跳过");
-                return CompletableFuture.completedFuture(Map.of());
-            }
+            log.debug("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=当前messages数量={}", cursor.scannedCount());
 
-            List<Message> messages = (List<Message>) messagesOpt.get();
-            log.debug("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=当前messages数量={}", messages.size());
-
-            // 🔥 检查是否已经注入过代码经验（避免重复注入）
-            for (Message msg : messages) {
-                if (msg instanceof ToolResponseMessage toolMsg) {
-                    for (ToolResponseMessage.ToolResponse response : toolMsg.getResponses()) {
-                        if ("code_experience_injection".equals(response.name())) {
-                            log.info("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=检测到已注入代码经验，跳过重复注入");
-                            return CompletableFuture.completedFuture(Map.of());
-                        }
-                    }
-                }
+            // 🔥 检查是否已经注入过代码经验（避免重复注入），扫描结果由游标累计
+            if (cursor.injectionSeen()) {
+                log.info("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=检测到已注入代码经验，跳过重复注入");
+                return CompletableFuture.completedFuture(Map.of(MessageScanCursor.STATE_KEY, cursor));
             }
 
             // 构建代码经验内容
@@ -189,7 +185,7 @@ public class CodeExperienceModelHook extends ModelHook {
                     new AssistantMessage.ToolCall(
                         toolCallId,
                         "function",
-                        "code_experience_injection",
+                        MessageScanCursor.INJECTION_TOOL_NAME,
                         "{}"  // 空参数
                     )
                 ))
@@ -198,7 +194,7 @@ public class CodeExperienceModelHook extends ModelHook {
             // 2. ToolResponseMessage with response
             ToolResponseMessage.ToolResponse toolResponse = new ToolResponseMessage.ToolResponse(
                 toolCallId,
-                "code_experience_injection",
+                MessageScanCursor.INJECTION_TOOL_NAME,
                 codeExperienceContent
             );
 
@@ -209,7 +205,13 @@ public class CodeExperienceModelHook extends ModelHook {
             log.info("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=准备注入代码经验（AssistantMessage + ToolResponseMessage）");
 
             // 🔥 返回配对的两条消息
-            Map<String, Object> updates = Map.of("messages", List.of(assistantMessage, toolResponseMessage));
+            List<String> experienceIds = experiences.stream().map(Experience::getId).toList();
+            MessageScanCursor injected = cursor.withInjected(experienceIds);
+            if (usageTracker != null) {
+                usageTracker.recordInjections(config != null ? config.threadId().orElse(null) : null, experienceIds);
+            }
+            Map<String, Object> updates = Map.of("messages", List.of(assistantMessage, toolResponseMessage),
+                    MessageScanCursor.STATE_KEY, injected);
             log.info("CodeExperienceModelHook#injectCodeExperienceToMessages - reason=准备返回updates，keys={}", updates.keySet());
 
             return CompletableFuture.completedFuture(updates);
@@ -255,7 +257,7 @@ public class CodeExperienceModelHook extends ModelHook {
     /**
      * 构建查询上下文
      */
-    private ExperienceQueryContext buildQueryContext(OverAllState state, RunnableConfig config, List<Message> messages) {
+    private ExperienceQueryContext buildQueryContext(OverAllState state, RunnableConfig config, MessageScanCursor cursor) {
         ExperienceQueryContext context = new ExperienceQueryContext();
 
         // 从state提取
@@ -270,13 +272,8 @@ public class CodeExperienceModelHook extends ModelHook {
             config.metadata("language").ifPresent(lang -> context.setLanguage(lang.toString()));
         }
 
-        // 检测 demo 关键词
-        String allContent = messages.stream()
-                .map(Message::getText)
-                .reduce("", (a, b) -> a + " " + b)
-                .toLowerCase();
-
-        if (allContent.contains("demo")) {
+        // 检测 demo 关键词（游标已累计扫描结果）
+        if (cursor.demoSeen()) {
             context.setSceneTags("demo");
             context.setLanguage("python");
             log.info("CodeExperienceModelHook#buildQueryContext - reason=Detected demo keyword");
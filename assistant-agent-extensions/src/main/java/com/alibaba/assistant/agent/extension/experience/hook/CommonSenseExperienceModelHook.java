@@ -6,6 +6,8 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
 import com.alibaba.assistant.agent.extension.experience.model.*;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
@@ -42,13 +44,26 @@ public class CommonSenseExperienceModelHook extends ModelHook {
 
     private static final Logger log = LoggerFactory.getLogger(CommonSenseExperienceModelHook.class);
 
-    private final ExperienceProvider experienceProvider;
+    private final ExperienceQueryCache queryCache;
     private final ExperienceExtensionProperties properties;
+    private final ExperienceUsageTracker usageTracker;
 
     public CommonSenseExperienceModelHook(ExperienceProvider experienceProvider,
                                           ExperienceExtensionProperties properties) {
-        this.experienceProvider = experienceProvider;
+        this(ExperienceQueryCache.uncached(experienceProvider), properties);
+    }
+
+    public CommonSenseExperienceModelHook(ExperienceQueryCache queryCache,
+                                          ExperienceExtensionProperties properties) {
+        this(queryCache, properties, null);
+    }
+
+    public CommonSenseExperienceModelHook(ExperienceQueryCache queryCache,
+                                          ExperienceExtensionProperties properties,
+                                          ExperienceUsageTracker usageTracker) {
+        this.queryCache = queryCache;
         this.properties = properties;
+        this.usageTracker = usageTracker;
     }
 
     @Override
@@ -80,7 +95,7 @@ public class CommonSenseExperienceModelHook extends ModelHook {
             ExperienceQuery query = new ExperienceQuery(ExperienceType.COMMON);
             query.setLimit(Math.min(properties.getMaxItemsPerQuery(), 3));
 
-            List<Experience> experiences = experienceProvider.query(query, context);
+            List<Experience> experiences = queryCache.query(config, query, context);
 
             if (CollectionUtils.isEmpty(experiences)) {
                 log.info("CommonSenseExperienceModelHook#beforeModel - reason=未找到常识经验");
@@ -90,7 +105,7 @@ public class CommonSenseExperienceModelHook extends ModelHook {
             log.info("CommonSenseExperienceModelHook#beforeModel - reason=找到常识经验: {}", JSON.toJSONString(experiences));
 
             // 🔥 核心：参考记忆模块，直接修改messages列表
-            CompletableFuture<Map<String, Object>> result = injectExperienceToMessages(state, experiences);
+            CompletableFuture<Map<String, Object>> result = injectExperienceToMessages(state, experiences, config);
 
             // 添加日志确认返回值
             result.thenAccept(updates -> {
@@ -112,7 +127,8 @@ public class CommonSenseExperienceModelHook extends ModelHook {
      * 使用 AssistantMessage + ToolResponseMessage 配对方式
      */
     @SuppressWarnings("unchecked")
-    private CompletableFuture<Map<String, Object>> injectExperienceToMessages(OverAllState state, List<Experience> experiences) {
+    private CompletableFuture<Map<String, Object>> injectExperienceToMessages(OverAllState state, List<Experience> experiences,
+                                                                              RunnableConfig config) {
         log.info("CommonSenseExperienceModelHook#injectExperienceToMessages - reason=开始处理messages");
 
         try {
@@ -170,6 +186,10 @@ public class CommonSenseExperienceModelHook extends ModelHook {
             log.info("CommonSenseExperienceModelHook#injectExperienceToMessages - reason=准备注入常识经验（AssistantMessage + ToolResponseMessage）");
 
             // 🔥 返回配对的两条消息
+            if (usageTracker != null) {
+                usageTracker.recordInjections(config != null ? config.threadId().orElse(null) : null,
+                        experiences.stream().map(Experience::getId).toList());
+            }
             Map<String, Object> updates = Map.of("messages", List.of(assistantMessage, toolResponseMessage));
             log.info("CommonSenseExperienceModelHook#injectExperienceToMessages - reason=准备返回updates，keys={}", updates.keySet());
 
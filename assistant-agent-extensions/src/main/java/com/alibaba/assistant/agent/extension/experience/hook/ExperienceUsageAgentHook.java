@@ -0,0 +1,74 @@
+package com.alibaba.assistant.agent.extension.experience.hook;
+
+import com.alibaba.assistant.agent.common.constant.CodeactStateKeys;
+import com.alibaba.assistant.agent.core.model.ExecutionRecord;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.agent.hook.AgentHook;
+import com.alibaba.cloud.ai.graph.agent.hook.HookPosition;
+import com.alibaba.cloud.ai.graph.agent.hook.HookPositions;
+import com.alibaba.cloud.ai.graph.agent.hook.JumpTo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 经验使用结算Hook
+ * 在AFTER_AGENT阶段读取本轮的代码执行记录，为本轮注入或命中的经验记录成败
+ *
+ * @author Assistant Agent Team
+ */
+@HookPositions(HookPosition.AFTER_AGENT)
+public class ExperienceUsageAgentHook extends AgentHook {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceUsageAgentHook.class);
+
+    private final ExperienceUsageTracker usageTracker;
+
+    public ExperienceUsageAgentHook(ExperienceUsageTracker usageTracker) {
+        this.usageTracker = usageTracker;
+    }
+
+    @Override
+    public String getName() {
+        return "ExperienceUsageAgentHook";
+    }
+
+    @Override
+    public List<JumpTo> canJumpTo() {
+        return List.of();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> afterAgent(OverAllState state, RunnableConfig config) {
+        try {
+            String threadId = config != null ? config.threadId().orElse(null) : null;
+            usageTracker.completeTurn(threadId, executionHistory(state));
+        } catch (Exception e) {
+            // 统计失败不影响主流程
+            log.warn("ExperienceUsageAgentHook#afterAgent - reason=failed to settle experience usage, error={}", e.getMessage());
+        }
+        return CompletableFuture.completedFuture(Map.of());
+    }
+
+    private static List<ExecutionRecord> executionHistory(OverAllState state) {
+        List<ExecutionRecord> records = new ArrayList<>();
+        if (state == null) {
+            return records;
+        }
+        Object history = state.value(CodeactStateKeys.EXECUTION_HISTORY).orElse(null);
+        if (history instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof ExecutionRecord record) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+}
@@ -8,6 +8,8 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceArtifact
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.cloud.ai.graph.KeyStrategy;
 import com.alibaba.cloud.ai.graph.OverAllState;
@@ -50,16 +52,31 @@ public class FastIntentReactHook extends AgentHook {
 
     private static final Logger log = LoggerFactory.getLogger(FastIntentReactHook.class);
 
-    private final ExperienceProvider experienceProvider;
+    private final ExperienceQueryCache queryCache;
     private final ExperienceExtensionProperties properties;
     private final FastIntentService fastIntentService;
+    private final ExperienceUsageTracker usageTracker;
 
     public FastIntentReactHook(ExperienceProvider experienceProvider,
                                ExperienceExtensionProperties properties,
                                FastIntentService fastIntentService) {
-        this.experienceProvider = experienceProvider;
+        this(ExperienceQueryCache.uncached(experienceProvider), properties, fastIntentService);
+    }
+
+    public FastIntentReactHook(ExperienceQueryCache queryCache,
+                               ExperienceExtensionProperties properties,
+                               FastIntentService fastIntentService) {
+        this(queryCache, properties, fastIntentService, null);
+    }
+
+    public FastIntentReactHook(ExperienceQueryCache queryCache,
+                               ExperienceExtensionProperties properties,
+                               FastIntentService fastIntentService,
+                               ExperienceUsageTracker usageTracker) {
+        this.queryCache = queryCache;
         this.properties = properties;
         this.fastIntentService = fastIntentService;
+        this.usageTracker = usageTracker;
     }
 
     @Override
@@ -96,7 +113,7 @@ public class FastIntentReactHook extends AgentHook {
 
             ExperienceQuery query = new ExperienceQuery(ExperienceType.REACT);
             query.setLimit(Math.max(10, properties.getMaxItemsPerQuery())); // fastpath needs enough candidates
-            List<Experience> experiences = experienceProvider.query(query, queryContext);
+            List<Experience> experiences = queryCache.query(config, query, queryContext);
 
             if (CollectionUtils.isEmpty(experiences)) {
                 return CompletableFuture.completedFuture(Map.of());
@@ -185,6 +202,9 @@ public class FastIntentReactHook extends AgentHook {
 
             log.info("FastIntentReactHook#beforeAgent - reason=fast-intent HIT, expId={}, toolCalls={}",
                     best.getId(), assistantToolCalls.size());
+            if (usageTracker != null) {
+                usageTracker.recordFastIntentHit(config != null ? config.threadId().orElse(null) : null, best.getId(), null);
+            }
 
             return CompletableFuture.completedFuture(Map.of(
                     "messages", List.of(assistantMessage),
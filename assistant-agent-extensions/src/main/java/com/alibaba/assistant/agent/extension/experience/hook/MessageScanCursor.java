@@ -0,0 +1,170 @@
+package com.alibaba.assistant.agent.extension.experience.hook;
+
+import com.alibaba.assistant.agent.extension.experience.internal.AhoCorasickAutomaton;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 会话内的消息扫描游标，随 state 保存
+ *
+ * <p>记录已扫描的消息数量与扫描结果（是否出现代码关键词、demo 关键词、是否已注入代码经验），
+ * 每次模型调用只扫描新增的消息，整段对话的扫描代价为线性。游标不可变，推进时返回新实例。
+ *
+ * <p>若 messages 被改写（被截断、摘要压缩或替换），最后一条已扫描消息的指纹对不上，游标自动从头重新扫描。
+ *
+ * @author Assistant Agent Team
+ */
+final class MessageScanCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String STATE_KEY = "code_experience_scan_cursor";
+
+    static final String INJECTION_TOOL_NAME = "code_experience_injection";
+
+    /**
+     * 代码相关请求关键词，忽略大小写；关键词不含空白，不会跨消息命中
+     */
+    private static final List<String> CODE_KEYWORDS = List.of("代码", "code", "python", "java", "函数", "demo", "生成", "write");
+
+    private static final int DEMO_KEYWORD = CODE_KEYWORDS.indexOf("demo");
+
+    private static final AhoCorasickAutomaton KEYWORDS = AhoCorasickAutomaton.of(CODE_KEYWORDS, true);
+
+    private static final MessageScanCursor EMPTY = new MessageScanCursor(0, 0, false, false, false, Set.of(), 0);
+
+    private final int scannedCount;
+    private final int lastMessageFingerprint;
+    private final boolean codeKeywordSeen;
+    private final boolean demoSeen;
+    private final boolean injectionSeen;
+    private final Set<String> injectedExperienceIds;
+    private final int lastScanned;
+
+    private MessageScanCursor(int scannedCount, int lastMessageFingerprint, boolean codeKeywordSeen, boolean demoSeen,
+                              boolean injectionSeen, Set<String> injectedExperienceIds, int lastScanned) {
+        this.scannedCount = scannedCount;
+        this.lastMessageFingerprint = lastMessageFingerprint;
+        this.codeKeywordSeen = codeKeywordSeen;
+        this.demoSeen = demoSeen;
+        this.injectionSeen = injectionSeen;
+        this.injectedExperienceIds = injectedExperienceIds;
+        this.lastScanned = lastScanned;
+    }
+
+    /**
+     * 从 state 中的值恢复游标，不存在或类型不符（例如经过不保留类型的序列化）时返回空游标
+     */
+    static MessageScanCursor from(Object stateValue) {
+        return stateValue instanceof MessageScanCursor cursor ? cursor : EMPTY;
+    }
+
+    /**
+     * 扫描新增的消息
+     */
+    MessageScanCursor advance(List<Message> messages) {
+        MessageScanCursor base = this;
+        if (scannedCount > messages.size()
+                || (scannedCount > 0 && fingerprint(messages.get(scannedCount - 1)) != lastMessageFingerprint)) {
+            // 历史被改写，从头扫描；已注入的经验ID是本会话的记录，保留
+            base = new MessageScanCursor(0, 0, false, false, false, injectedExperienceIds, 0);
+        }
+        int start = base.scannedCount;
+        if (start == messages.size()) {
+            return base.lastScanned == 0 ? base : new MessageScanCursor(base.scannedCount, base.lastMessageFingerprint,
+                    base.codeKeywordSeen, base.demoSeen, base.injectionSeen, base.injectedExperienceIds, 0);
+        }
+
+        boolean code = base.codeKeywordSeen;
+        boolean demo = base.demoSeen;
+        boolean injection = base.injectionSeen;
+        BitSet matched = new BitSet(CODE_KEYWORDS.size());
+        for (int i = start; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message == null) {
+                continue;
+            }
+            // demo 本身是代码关键词，命中后两项结论都不会再变，后续消息只需检查注入
+            if (!demo) {
+                matched.clear();
+                KEYWORDS.collect(message.getText(), matched);
+                code |= !matched.isEmpty();
+                demo = matched.get(DEMO_KEYWORD);
+            }
+            injection |= isInjection(message);
+        }
+        Message last = messages.get(messages.size() - 1);
+        return new MessageScanCursor(messages.size(), fingerprint(last), code, demo, injection,
+                base.injectedExperienceIds, messages.size() - start);
+    }
+
+    /**
+     * 记录本次注入的经验
+     */
+    MessageScanCursor withInjected(Collection<String> experienceIds) {
+        Set<String> ids = new LinkedHashSet<>(injectedExperienceIds);
+        ids.addAll(experienceIds);
+        return new MessageScanCursor(scannedCount, lastMessageFingerprint, codeKeywordSeen, demoSeen, injectionSeen,
+                Set.copyOf(ids), lastScanned);
+    }
+
+    int scannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * 最近一次推进实际扫描的消息数
+     */
+    int lastScanned() {
+        return lastScanned;
+    }
+
+    boolean codeKeywordSeen() {
+        return codeKeywordSeen;
+    }
+
+    boolean demoSeen() {
+        return demoSeen;
+    }
+
+    boolean injectionSeen() {
+        return injectionSeen;
+    }
+
+    Set<String> injectedExperienceIds() {
+        return injectedExperienceIds;
+    }
+
+    static boolean isInjection(Message message) {
+        if (message instanceof ToolResponseMessage toolMsg) {
+            for (ToolResponseMessage.ToolResponse response : toolMsg.getResponses()) {
+                if (INJECTION_TOOL_NAME.equals(response.name())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int fingerprint(Message message) {
+        if (message == null) {
+            return 0;
+        }
+        // 枚举按名称参与计算，保证跨进程恢复的游标指纹一致
+        int hash = Objects.hash(String.valueOf(message.getMessageType()), message.getText());
+        if (message instanceof ToolResponseMessage toolMsg) {
+            for (ToolResponseMessage.ToolResponse response : toolMsg.getResponses()) {
+                hash = 31 * hash + Objects.hashCode(response.id());
+            }
+        }
+        return hash;
+    }
+}
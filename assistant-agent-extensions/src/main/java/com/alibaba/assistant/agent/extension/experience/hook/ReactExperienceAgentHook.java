@@ -6,6 +6,8 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
 import com.alibaba.assistant.agent.extension.experience.model.*;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.RunnableConfig;
@@ -41,13 +43,26 @@ public class ReactExperienceAgentHook extends AgentHook {
 
     private static final Logger log = LoggerFactory.getLogger(ReactExperienceAgentHook.class);
 
-    private final ExperienceProvider experienceProvider;
+    private final ExperienceQueryCache queryCache;
     private final ExperienceExtensionProperties properties;
+    private final ExperienceUsageTracker usageTracker;
 
     public ReactExperienceAgentHook(ExperienceProvider experienceProvider,
                                    ExperienceExtensionProperties properties) {
-        this.experienceProvider = experienceProvider;
+        this(ExperienceQueryCache.uncached(experienceProvider), properties);
+    }
+
+    public ReactExperienceAgentHook(ExperienceQueryCache queryCache,
+                                   ExperienceExtensionProperties properties) {
+        this(queryCache, properties, null);
+    }
+
+    public ReactExperienceAgentHook(ExperienceQueryCache queryCache,
+                                   ExperienceExtensionProperties properties,
+                                   ExperienceUsageTracker usageTracker) {
+        this.queryCache = queryCache;
         this.properties = properties;
+        this.usageTracker = usageTracker;
     }
 
     @Override
@@ -79,7 +94,7 @@ public class ReactExperienceAgentHook extends AgentHook {
             ExperienceQuery query = new ExperienceQuery(ExperienceType.REACT);
             query.setLimit(Math.min(properties.getMaxItemsPerQuery(), 3));
 
-            List<Experience> experiences = experienceProvider.query(query, context);
+            List<Experience> experiences = queryCache.query(config, query, context);
 
             if (CollectionUtils.isEmpty(experiences)) {
                 log.info("ReactExperienceAgentHook#beforeAgent - reason=未找到React策略经验");
@@ -89,7 +104,7 @@ public class ReactExperienceAgentHook extends AgentHook {
             log.info("ReactExperienceAgentHook#beforeAgent - reason=找到React策略经验: {}", JSON.toJSONString(experiences));
 
             // 🔥 核心：注入策略经验到messages
-            return injectReactExperienceToMessages(state, experiences);
+            return injectReactExperienceToMessages(state, experiences, config);
 
         } catch (Exception e) {
             log.error("ReactExperienceAgentHook#beforeAgent - reason=注入React经验失败", e);
@@ -102,7 +117,8 @@ public class ReactExperienceAgentHook extends AgentHook {
      * 使用 AssistantMessage + ToolResponseMessage 配对方式
      */
     @SuppressWarnings("unchecked")
-    private CompletableFuture<Map<String, Object>> injectReactExperienceToMessages(OverAllState state, List<Experience> experiences) {
+    private CompletableFuture<Map<String, Object>> injectReactExperienceToMessages(OverAllState state, List<Experience> experiences,
+                                                                                   RunnableConfig config) {
         log.info("ReactExperienceAgentHook#injectReactExperienceToMessages - reason=开始处理messages");
 
         try {
@@ -160,6 +176,10 @@ public class ReactExperienceAgentHook extends AgentHook {
             log.info("ReactExperienceAgentHook#injectReactExperienceToMessages - reason=准备注入React策略经验（AssistantMessage + ToolResponseMessage）");
 
             // 🔥 返回配对的两条消息
+            if (usageTracker != null) {
+                usageTracker.recordInjections(config != null ? config.threadId().orElse(null) : null,
+                        experiences.stream().map(Experience::getId).toList());
+            }
             Map<String, Object> updates = Map.of("messages", List.of(assistantMessage, toolResponseMessage));
             log.info("ReactExperienceAgentHook#injectReactExperienceToMessages - reason=准备返回updates，keys={}", updates.keySet());
 
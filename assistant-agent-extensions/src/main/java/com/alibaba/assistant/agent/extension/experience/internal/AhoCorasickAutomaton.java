@@ -0,0 +1,229 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick 多模式字面量匹配自动机
+ *
+ * <p>由一组关键词构建，对文本做一次线性扫描即可找出出现过的全部关键词，扫描代价与关键词数量无关。
+ * 用于关键词检测以及正则规则的字面量预过滤。构建后不可变，可被多线程共享。
+ *
+ * <p>忽略大小写时按 {@link #fold(char)} 逐字符归一（先转大写再转小写，与 {@link java.util.regex.Pattern}
+ * 的 Unicode 大小写比较一致），只会比正则多放行、不会漏放。
+ *
+ * @author Assistant Agent Team
+ */
+public final class AhoCorasickAutomaton {
+
+    private static final int ASCII = 128;
+
+    private final boolean ignoreCase;
+    private final int keywordCount;
+
+    /**
+     * 根节点的ASCII转移表，其余字符及其他节点使用有序的稀疏转移
+     */
+    private final int[] rootAscii = new int[ASCII];
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /**
+     * 最近的、本身有输出的后缀节点（不含自身），0表示没有
+     */
+    private final int[] outputLink;
+    private final int[][] outputs;
+
+    private AhoCorasickAutomaton(List<String> keywords, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.keywordCount = keywords.size();
+
+        // 构建trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> terminals = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminals.add(null);
+        for (int id = 0; id < keywords.size(); id++) {
+            String keyword = keywords.get(id);
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keyword cannot be empty");
+            }
+            int node = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = ignoreCase ? fold(keyword.charAt(i)) : keyword.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminals.add(null);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            if (terminals.get(node) == null) {
+                terminals.set(node, new ArrayList<>(1));
+            }
+            terminals.get(node).add(id);
+        }
+
+        int size = children.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        this.outputs = new int[size][];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = children.get(node);
+            char[] chars = new char[edges.size()];
+            int[] targets = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                chars[i] = edge.getKey();
+                targets[i] = edge.getValue();
+                i++;
+            }
+            edgeChars[node] = chars;
+            edgeTargets[node] = targets;
+            List<Integer> ids = terminals.get(node);
+            outputs[node] = ids == null ? null : ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+        Arrays.fill(rootAscii, -1);
+        for (int i = 0; i < edgeChars[0].length; i++) {
+            if (edgeChars[0][i] < ASCII) {
+                rootAscii[edgeChars[0][i]] = edgeTargets[0][i];
+            }
+        }
+
+        // BFS计算失败链接与输出链接
+        this.fail = new int[size];
+        this.outputLink = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                int target;
+                while ((target = transition(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 && target != child ? target : 0;
+                outputLink[child] = outputs[fail[child]] != null ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 构建区分大小写的自动机
+     */
+    public static AhoCorasickAutomaton of(List<String> keywords) {
+        return new AhoCorasickAutomaton(keywords, false);
+    }
+
+    /**
+     * 构建自动机
+     *
+     * @param keywords 关键词，下标即关键词ID；不能为空串，允许重复
+     * @param ignoreCase 是否忽略大小写
+     */
+    public static AhoCorasickAutomaton of(List<String> keywords, boolean ignoreCase) {
+        return new AhoCorasickAutomaton(keywords, ignoreCase);
+    }
+
+    public int keywordCount() {
+        return keywordCount;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * 文本中是否出现任一关键词，命中即返回
+     */
+    public boolean containsAny(CharSequence text) {
+        if (text == null || keywordCount == 0) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            if (outputs[state] != null || outputLink[state] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 扫描文本，把出现过的关键词ID写入 matched
+     */
+    public void collect(CharSequence text, BitSet matched) {
+        if (text == null || keywordCount == 0) {
+            return;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, text.charAt(i));
+            for (int node = outputs[state] != null ? state : outputLink[state]; node != 0; node = outputLink[node]) {
+                for (int id : outputs[node]) {
+                    matched.set(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * 扫描文本，返回出现过的关键词ID
+     */
+    public BitSet matches(CharSequence text) {
+        BitSet matched = new BitSet(keywordCount);
+        collect(text, matched);
+        return matched;
+    }
+
+    private int step(int state, char raw) {
+        char c = ignoreCase ? fold(raw) : raw;
+        while (true) {
+            int next = transition(state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int transition(int node, char c) {
+        if (node == 0 && c < ASCII) {
+            return rootAscii[c];
+        }
+        char[] chars = edgeChars[node];
+        if (chars.length == 0) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(chars, c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    /**
+     * 大小写归一
+     */
+    public static char fold(char c) {
+        if (c < ASCII) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
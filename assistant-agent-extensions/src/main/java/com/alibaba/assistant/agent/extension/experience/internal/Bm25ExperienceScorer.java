@@ -0,0 +1,157 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceScorer;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于BM25的经验相关性打分实现
+ *
+ * <p>title 与 content 经 {@link ExperienceTokenizer} 切词后作为文档。每条经验的词频与文档长度只在首次出现
+ * （或保存后 updatedAt / 文本变化）时计算一次并缓存；文档数、平均长度与文档频率等集合统计量
+ * 基于本次候选集（已按范围、语言、标签过滤）计算，不依赖仓库实现。
+ *
+ * @author Assistant Agent Team
+ */
+public class Bm25ExperienceScorer implements ExperienceScorer {
+
+    public static final double DEFAULT_K1 = 1.2;
+
+    public static final double DEFAULT_B = 0.75;
+
+    public static final int DEFAULT_MAX_CACHED_DOCUMENTS = 100_000;
+
+    private final double k1;
+
+    private final double b;
+
+    private final int maxCachedDocuments;
+
+    /**
+     * 文档统计缓存，key为经验ID
+     */
+    private final Map<String, DocumentStats> documentStats = new ConcurrentHashMap<>();
+
+    public Bm25ExperienceScorer() {
+        this(DEFAULT_K1, DEFAULT_B, DEFAULT_MAX_CACHED_DOCUMENTS);
+    }
+
+    public Bm25ExperienceScorer(double k1, double b, int maxCachedDocuments) {
+        this.k1 = k1;
+        this.b = b;
+        this.maxCachedDocuments = Math.max(1, maxCachedDocuments);
+    }
+
+    @Override
+    public double[] score(String queryText, List<Experience> candidates) {
+        int size = candidates.size();
+        double[] scores = new double[size];
+        String[] terms = new LinkedHashSet<>(ExperienceTokenizer.tokenize(queryText)).toArray(new String[0]);
+        if (terms.length == 0 || size == 0) {
+            return scores;
+        }
+
+        // 一次遍历取出词频并统计文档频率与总长度
+        int[][] frequencies = new int[size][];
+        int[] lengths = new int[size];
+        int[] documentFrequency = new int[terms.length];
+        long totalLength = 0;
+        for (int i = 0; i < size; i++) {
+            DocumentStats stats = stats(candidates.get(i));
+            lengths[i] = stats.length;
+            totalLength += stats.length;
+            int[] tf = null;
+            for (int t = 0; t < terms.length; t++) {
+                Integer count = stats.termFrequencies.get(terms[t]);
+                if (count != null) {
+                    if (tf == null) {
+                        tf = new int[terms.length];
+                    }
+                    tf[t] = count;
+                    documentFrequency[t]++;
+                }
+            }
+            frequencies[i] = tf;
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / size);
+        double[] idf = new double[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            idf[t] = Math.log(1 + (size - documentFrequency[t] + 0.5) / (documentFrequency[t] + 0.5));
+        }
+
+        for (int i = 0; i < size; i++) {
+            int[] tf = frequencies[i];
+            if (tf == null) {
+                continue;
+            }
+            double norm = k1 * (1 - b + b * lengths[i] / averageLength);
+            double score = 0;
+            for (int t = 0; t < terms.length; t++) {
+                if (tf[t] > 0) {
+                    score += idf[t] * tf[t] * (k1 + 1) / (tf[t] + norm);
+                }
+            }
+            scores[i] = score;
+        }
+        return scores;
+    }
+
+    /**
+     * 读取或计算文档统计
+     */
+    private DocumentStats stats(Experience experience) {
+        String id = experience.getId();
+        DocumentStats cached = id != null ? documentStats.get(id) : null;
+        if (cached != null && cached.isCurrent(experience)) {
+            return cached;
+        }
+        DocumentStats computed = new DocumentStats(experience);
+        if (id != null) {
+            if (documentStats.size() >= maxCachedDocuments) {
+                documentStats.clear();
+            }
+            documentStats.put(id, computed);
+        }
+        return computed;
+    }
+
+    /**
+     * 单条经验的词频与长度
+     */
+    private static final class DocumentStats {
+
+        final String title;
+        final String content;
+        final Instant updatedAt;
+        final Map<String, Integer> termFrequencies;
+        final int length;
+
+        DocumentStats(Experience experience) {
+            this.title = experience.getTitle();
+            this.content = experience.getContent();
+            this.updatedAt = experience.getUpdatedAt();
+            List<String> tokens = ExperienceTokenizer.tokenize(title);
+            tokens.addAll(ExperienceTokenizer.tokenize(content));
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            this.termFrequencies = frequencies;
+            this.length = tokens.size();
+        }
+
+        boolean isCurrent(Experience experience) {
+            return title == experience.getTitle()
+                    && content == experience.getContent()
+                    && Objects.equals(updatedAt, experience.getUpdatedAt());
+        }
+    }
+}
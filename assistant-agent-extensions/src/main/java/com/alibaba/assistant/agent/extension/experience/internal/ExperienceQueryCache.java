@@ -0,0 +1,248 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceTurn;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 单轮对话内的经验检索缓存
+ *
+ * <p>同一轮对话中 CodeExperienceModelHook、CommonSenseExperienceModelHook、ReactExperienceAgentHook、
+ * FastIntentReactHook 与 CodeFastIntentSupport 会各自发起经验查询，且查询条件大量重叠。
+ * 缓存按 RunnableConfig 的 threadId 与 turnId（见 {@link ExperienceTurn}）分桶，
+ * 桶内以规范化后的查询条件与上下文为键，重复查询直接返回上次结果。
+ * turnId 由 CodeactAgent 在每次调用开始时写入（见 {@link ExperienceTurn#withTurnId}），子Agent 每次调用使用独立的 turnId；
+ * 没有 threadId 的调用按 turnId 分桶。
+ * Provider 返回的列表按相关性有序，因此 limit 不参与键：已缓存的结果条数足够时，较小 limit 的查询取其前缀。
+ *
+ * <p>失效规则：
+ * <ul>
+ *   <li>同一 thread 进入新的 turn，旧 turn 的结果整体丢弃</li>
+ *   <li>仓库版本号（{@link ExperienceRepository#generation()}）或使用统计版本号
+ *   （{@link ExperienceUsageTracker#generation()}，影响效用排序）变化，当前桶整体丢弃</li>
+ *   <li>桶存活超过 TTL 后丢弃，未提供 turnId 时以此限定结果的复用范围</li>
+ * </ul>
+ * 仓库不跟踪版本号、未传入 RunnableConfig 时不缓存，直接委托给底层 Provider。
+ *
+ * @author Assistant Agent Team
+ */
+public class ExperienceQueryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceQueryCache.class);
+
+    private static final String DEFAULT_THREAD_ID = "__default__";
+
+    private final ExperienceProvider delegate;
+    private final LongSupplier generation;
+    private final int maxThreads;
+    private final int maxEntriesPerTurn;
+    private final long ttlNanos;
+
+    /**
+     * threadId → 当前轮次的缓存桶，按访问顺序淘汰最久未用的 thread
+     */
+    private final Map<String, TurnEntries> turns;
+
+    public ExperienceQueryCache(ExperienceProvider delegate, ExperienceRepository repository,
+                                int maxThreads, int maxEntriesPerTurn, long ttlSeconds) {
+        this(delegate, repository, null, maxThreads, maxEntriesPerTurn, ttlSeconds);
+    }
+
+    /**
+     * @param usageTracker Provider 排序所用的使用统计，为null时只跟踪仓库版本号
+     */
+    public ExperienceQueryCache(ExperienceProvider delegate, ExperienceRepository repository,
+                                ExperienceUsageTracker usageTracker,
+                                int maxThreads, int maxEntriesPerTurn, long ttlSeconds) {
+        this(delegate, generationOf(repository, usageTracker), maxThreads, maxEntriesPerTurn, ttlSeconds);
+    }
+
+    private ExperienceQueryCache(ExperienceProvider delegate, LongSupplier generation,
+                                 int maxThreads, int maxEntriesPerTurn, long ttlSeconds) {
+        this.delegate = delegate;
+        this.generation = generation;
+        this.maxThreads = Math.max(1, maxThreads);
+        this.maxEntriesPerTurn = Math.max(1, maxEntriesPerTurn);
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : Long.MAX_VALUE;
+        this.turns = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TurnEntries> eldest) {
+                return size() > ExperienceQueryCache.this.maxThreads;
+            }
+        };
+    }
+
+    /**
+     * 仓库与使用统计版本号之和：两者都单调递增，任一变化都会改变合计值；仓库不跟踪版本号时为-1
+     */
+    private static LongSupplier generationOf(ExperienceRepository repository, ExperienceUsageTracker usageTracker) {
+        if (repository == null) {
+            return () -> -1;
+        }
+        if (usageTracker == null) {
+            return repository::generation;
+        }
+        return () -> {
+            long repositoryGeneration = repository.generation();
+            return repositoryGeneration < 0 ? -1 : repositoryGeneration + usageTracker.generation();
+        };
+    }
+
+    /**
+     * 不做缓存、直接委托给 Provider 的实例，供未配置缓存的调用方使用
+     */
+    public static ExperienceQueryCache uncached(ExperienceProvider delegate) {
+        return new ExperienceQueryCache(delegate, () -> -1, 1, 1, 0);
+    }
+
+    /**
+     * 检索经验，同一轮次内条件相同的查询只访问一次底层 Provider
+     *
+     * @param config 当前运行配置，为null时不缓存
+     * @param query 查询条件
+     * @param context 查询上下文，可为null
+     * @return 经验列表，调用方可以修改
+     */
+    public List<Experience> query(RunnableConfig config, ExperienceQuery query, ExperienceQueryContext context) {
+        long currentGeneration = generation.getAsLong();
+        if (config == null || query == null || currentGeneration < 0) {
+            return delegate.query(query, context);
+        }
+
+        String turnId = ExperienceTurn.turnId(config);
+        String threadId = config.threadId().orElse(turnId != null ? turnId : DEFAULT_THREAD_ID);
+        TurnEntries entries = entriesFor(threadId, turnId, currentGeneration);
+        QueryKey key = QueryKey.of(query, context);
+
+        CachedResult cached = entries.get(key);
+        if (cached != null && cached.covers(query.getLimit())) {
+            log.debug("ExperienceQueryCache#query - reason=cache hit, threadId={}, turnId={}, type={}, limit={}",
+                    threadId, turnId, query.getType(), query.getLimit());
+            return cached.take(query.getLimit());
+        }
+
+        List<Experience> results = delegate.query(query, context);
+        if (results != null && (cached == null || query.getLimit() > cached.limit())) {
+            entries.put(key, new CachedResult(query.getLimit(), new ArrayList<>(results)));
+        }
+        return results;
+    }
+
+    /**
+     * 取当前轮次的缓存桶：新 turn、仓库版本变化或超过 TTL 时换新桶
+     */
+    private TurnEntries entriesFor(String threadId, String turnId, long currentGeneration) {
+        long now = System.nanoTime();
+        synchronized (turns) {
+            TurnEntries entries = turns.get(threadId);
+            if (entries == null || !entries.isValid(turnId, currentGeneration, now, ttlNanos)) {
+                entries = new TurnEntries(turnId, currentGeneration, now, maxEntriesPerTurn);
+                turns.put(threadId, entries);
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * 单个 thread 当前轮次的缓存结果
+     */
+    private static final class TurnEntries {
+
+        private final String turnId;
+        private final long generation;
+        private final long createdAt;
+        private final Map<QueryKey, CachedResult> results;
+
+        private TurnEntries(String turnId, long generation, long createdAt, int maxEntries) {
+            this.turnId = turnId;
+            this.generation = generation;
+            this.createdAt = createdAt;
+            this.results = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<QueryKey, CachedResult> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        boolean isValid(String turnId, long generation, long now, long ttlNanos) {
+            return Objects.equals(this.turnId, turnId)
+                    && this.generation == generation
+                    && now - createdAt < ttlNanos;
+        }
+
+        synchronized CachedResult get(QueryKey key) {
+            return results.get(key);
+        }
+
+        synchronized void put(QueryKey key, CachedResult value) {
+            results.put(key, value);
+        }
+    }
+
+    /**
+     * 以 limit 查询得到的结果
+     */
+    private record CachedResult(int limit, List<Experience> experiences) {
+
+        /**
+         * 请求的 limit 不超过缓存时的 limit，或缓存结果不足 limit 条（已是全部匹配项）
+         */
+        boolean covers(int requestedLimit) {
+            return requestedLimit <= limit || experiences.size() < limit;
+        }
+
+        List<Experience> take(int requestedLimit) {
+            int size = Math.min(experiences.size(), Math.max(0, requestedLimit));
+            return new ArrayList<>(experiences.subList(0, size));
+        }
+    }
+
+    /**
+     * 规范化后的查询键：拷贝查询条件（limit 除外）与上下文按值比较，标签与顺序无关，scope 列表保留优先级顺序
+     */
+    private record QueryKey(ExperienceType type, List<ExperienceScope> scopes, Set<String> tags, String text,
+                            String language, ExperienceQuery.OrderBy orderBy, String ownerId,
+                            String projectId, ContextKey context) {
+
+        static QueryKey of(ExperienceQuery query, ExperienceQueryContext context) {
+            return new QueryKey(query.getType(),
+                    query.getScopes() != null ? new ArrayList<>(query.getScopes()) : null,
+                    query.getTags() != null ? new HashSet<>(query.getTags()) : null,
+                    query.getText(), query.getLanguage(), query.getOrderBy(),
+                    query.getOwnerId(), query.getProjectId(), ContextKey.of(context));
+        }
+    }
+
+    private record ContextKey(String userQuery, String userId, String projectId, String repoId,
+                              String currentFilePath, String taskType, String agentName, String agentType,
+                              String sceneTags, String language) {
+
+        static ContextKey of(ExperienceQueryContext context) {
+            if (context == null) {
+                return null;
+            }
+            return new ContextKey(context.getUserQuery(), context.getUserId(), context.getProjectId(),
+                    context.getRepoId(), context.getCurrentFilePath(), context.getTaskType(),
+                    context.getAgentName(), context.getAgentType(), context.getSceneTags(), context.getLanguage());
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * 经验记录日志：只追加、带校验的记录文件
+ *
+ * <p>文件格式：8字节魔数，随后是连续的记录。每条记录为 {@code [int 长度][int CRC32C][正文]}，正文为
+ * {@code [byte 操作][id][type][scope][ownerId][projectId][JSON]}，其中字符串以 2 字节无符号长度前缀编码
+ * （{@code 0xFFFF} 表示 null），JSON 仅写入类型为 PUT 的记录。过滤字段单独编码，使恢复与重建索引时无需解析 JSON。
+ *
+ * <p>恢复时从给定位置顺序校验，遇到长度越界或 CRC 不符的记录（进程在写入中途被杀时的残缺尾部）即截断文件。
+ * 读取通过位置读完成，可与追加并发执行；追加由调用方串行化。
+ *
+ * @author Assistant Agent Team
+ */
+final class ExperienceRecordLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceRecordLog.class);
+
+    static final long MAGIC = 0x41414558504C4F47L; // "AAEXPLOG"
+
+    static final int FILE_HEADER_SIZE = 8;
+
+    static final int RECORD_HEADER_SIZE = 8;
+
+    static final byte OP_PUT = 1;
+
+    static final byte OP_DELETE = 2;
+
+    /**
+     * 单条记录正文上限，超过视为损坏
+     */
+    static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private static final int SCAN_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private Path path;
+    private final FileChannel channel;
+    private volatile long end;
+
+    private ExperienceRecordLog(Path path, FileChannel channel, long end) {
+        this.path = path;
+        this.channel = channel;
+        this.end = end;
+    }
+
+    /**
+     * 打开日志文件，不存在时创建
+     */
+    static ExperienceRecordLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < FILE_HEADER_SIZE) {
+                // 新文件，或写魔数时就被中断
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putLong(MAGIC).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, FILE_HEADER_SIZE - header.remaining());
+                }
+                channel.force(true);
+                size = FILE_HEADER_SIZE;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                readFully(channel, header, 0);
+                if (header.getLong(0) != MAGIC) {
+                    throw new IllegalStateException("Not an experience record log: " + path);
+                }
+            }
+            return new ExperienceRecordLog(path, channel, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * 有效数据的结束位置（下一条记录的写入位置）
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * 编码一条记录（含记录头）
+     */
+    static ByteBuffer encode(byte op, String id, String type, String scope, String ownerId, String projectId,
+                             byte[] json) {
+        byte[][] fields = {utf8(id), utf8(type), utf8(scope), utf8(ownerId), utf8(projectId)};
+        int bodySize = 1 + (json != null ? json.length : 0);
+        for (byte[] field : fields) {
+            bodySize += 2 + (field != null ? field.length : 0);
+        }
+        if (bodySize > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Experience record too large: " + bodySize + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodySize);
+        buffer.position(RECORD_HEADER_SIZE);
+        buffer.put(op);
+        for (byte[] field : fields) {
+            if (field == null) {
+                buffer.putShort((short) NULL_LENGTH);
+            } else {
+                buffer.putShort((short) field.length).put(field);
+            }
+        }
+        if (json != null) {
+            buffer.put(json);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, bodySize);
+        buffer.putInt(0, bodySize).putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    /**
+     * 追加一批已编码的记录，调用方负责串行化
+     *
+     * @return 每条记录的起始位置
+     */
+    long[] append(ByteBuffer... records) throws IOException {
+        long[] offsets = new long[records.length];
+        long position = end;
+        for (int i = 0; i < records.length; i++) {
+            offsets[i] = position;
+            position += records[i].remaining();
+        }
+        long written = end;
+        try {
+            for (ByteBuffer record : records) {
+                while (record.hasRemaining()) {
+                    written += channel.write(record, written);
+                }
+            }
+        } catch (IOException e) {
+            // 丢弃写了一半的尾部，保持日志可继续追加
+            channel.truncate(end);
+            throw e;
+        }
+        end = position;
+        return offsets;
+    }
+
+    /**
+     * 追加另一份日志中的原始记录（压缩时使用），字节原样复制，校验和保持不变
+     */
+    long copyFrom(ExperienceRecordLog source, long offset, int length) throws IOException {
+        long position = end;
+        long copied = 0;
+        while (copied < length) {
+            copied += source.channel.transferTo(offset + copied, length - copied, channel.position(position + copied));
+        }
+        end = position + length;
+        return position;
+    }
+
+    /**
+     * 原子重命名到目标路径（覆盖已存在的文件），已打开的通道继续有效
+     */
+    void moveTo(Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * 读取一条记录并校验CRC
+     */
+    Entry read(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            readFully(channel, buffer, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read experience record at " + offset + " in " + path, e);
+        }
+        Entry entry = decode(buffer, 0, offset, true);
+        if (entry == null || entry.length() != length) {
+            throw new IllegalStateException("Corrupted experience record at " + offset + " in " + path);
+        }
+        return entry;
+    }
+
+    /**
+     * 只读取记录中的ID，用于索引中哈希冲突的判定
+     */
+    String readId(long offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + 3 + 64);
+        try {
+            int read = 0;
+            for (int n; buffer.hasRemaining() && (n = channel.read(buffer, offset + read)) >= 0; ) {
+                read += n;
+            }
+            int idLength = read >= RECORD_HEADER_SIZE + 3 ? buffer.getShort(RECORD_HEADER_SIZE + 1) & 0xFFFF : -1;
+            if (idLength == NULL_LENGTH || idLength < 0 || (idLength <= 64 && RECORD_HEADER_SIZE + 3 + idLength > read)) {
+                return null;
+            }
+            if (RECORD_HEADER_SIZE + 3 + idLength > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(idLength);
+                readFully(channel, buffer, offset + RECORD_HEADER_SIZE + 3);
+                return new String(buffer.array(), StandardCharsets.UTF_8);
+            }
+            return new String(buffer.array(), RECORD_HEADER_SIZE + 3, idLength, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read experience record id at " + offset + " in " + path, e);
+        }
+    }
+
+    /**
+     * 从指定位置顺序校验并回放记录，遇到残缺或校验失败的记录时截断文件
+     *
+     * @param from 起始位置（必须是记录边界）
+     * @param visitor 回放回调，Entry 不含 JSON 正文
+     * @return 截断掉的字节数
+     */
+    long recover(long from, EntryVisitor visitor) throws IOException {
+        long size = channel.size();
+        long position = from;
+        ByteBuffer window = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long windowStart = position;
+        window.limit(0);
+        while (position < size) {
+            if (size - position < RECORD_HEADER_SIZE) {
+                break;
+            }
+            int windowOffset = (int) (position - windowStart);
+            if (windowOffset + RECORD_HEADER_SIZE > window.limit()) {
+                windowStart = position;
+                windowOffset = 0;
+                window = fill(window, position, RECORD_HEADER_SIZE, size);
+            }
+            int bodySize = window.getInt(windowOffset);
+            if (bodySize <= 0 || bodySize > MAX_BODY_SIZE || position + RECORD_HEADER_SIZE + bodySize > size) {
+                break;
+            }
+            int recordSize = RECORD_HEADER_SIZE + bodySize;
+            if (windowOffset + recordSize > window.limit()) {
+                windowStart = position;
+                windowOffset = 0;
+                window = fill(window, position, recordSize, size);
+            }
+            Entry entry = decode(window, windowOffset, position, false);
+            if (entry == null) {
+                break;
+            }
+            visitor.visit(entry);
+            position += recordSize;
+        }
+        long truncated = size - position;
+        if (truncated > 0) {
+            log.warn("ExperienceRecordLog#recover - reason=truncating torn tail, path={}, validEnd={}, truncatedBytes={}",
+                    path, position, truncated);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        end = position;
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer fill(ByteBuffer window, long position, int required, long size) throws IOException {
+        ByteBuffer target = window.capacity() >= required ? window : ByteBuffer.allocate(required);
+        target.clear();
+        target.limit((int) Math.min(target.capacity(), size - position));
+        readFully(channel, target, position);
+        target.flip();
+        return target;
+    }
+
+    /**
+     * 解码并校验 buffer 中 start 处的记录，失败返回null
+     */
+    private static Entry decode(ByteBuffer buffer, int start, long offset, boolean withJson) {
+        int bodySize = buffer.getInt(start);
+        if (bodySize <= 0 || start + RECORD_HEADER_SIZE + bodySize > buffer.limit()) {
+            return null;
+        }
+        int expectedCrc = buffer.getInt(start + 4);
+        CRC32C crc = new CRC32C();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(start + RECORD_HEADER_SIZE + bodySize).position(start + RECORD_HEADER_SIZE);
+        crc.update(body);
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+
+        body.position(start + RECORD_HEADER_SIZE);
+        byte op = body.get();
+        if (op != OP_PUT && op != OP_DELETE) {
+            return null;
+        }
+        String[] fields = new String[5];
+        for (int i = 0; i < fields.length; i++) {
+            if (body.remaining() < 2) {
+                return null;
+            }
+            int length = body.getShort() & 0xFFFF;
+            if (length == NULL_LENGTH) {
+                continue;
+            }
+            if (body.remaining() < length) {
+                return null;
+            }
+            fields[i] = new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8);
+            body.position(body.position() + length);
+        }
+        byte[] json = null;
+        if (withJson && op == OP_PUT) {
+            json = new byte[body.remaining()];
+            body.get(json);
+        }
+        return new Entry(offset, RECORD_HEADER_SIZE + bodySize, op, fields[0], fields[1], fields[2], fields[3],
+                fields[4], json);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at " + current);
+            }
+            current += read;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_LENGTH) {
+            throw new IllegalArgumentException("Experience field too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * 日志中的一条记录
+     *
+     * @param offset 记录起始位置
+     * @param length 记录总长度（含记录头）
+     * @param json PUT 记录的 JSON 正文，回放时为null
+     */
+    record Entry(long offset, int length, byte op, String id, String type, String scope, String ownerId,
+                 String projectId, byte[] json) {
+    }
+
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(Entry entry) throws IOException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.common.text.TextTokenizer;
+
+import java.util.List;
+
+/**
+ * 经验文本切词器
+ *
+ * <p>委托给共享的 {@link TextTokenizer}：中日韩文字按连续片段切成重叠的字符二元组（单字片段保留单字），
+ * 拉丁字母与数字按单词切分并转为小写，其余字符作为分隔符。
+ * 例如 "Redis缓存击穿 retry_policy" 切为 [redis, 缓存, 存击, 击穿, retry, policy]。
+ * 经验模块之外的调用方应直接使用 {@link TextTokenizer}。
+ *
+ * @author Assistant Agent Team
+ */
+public final class ExperienceTokenizer {
+
+    private ExperienceTokenizer() {
+    }
+
+    /**
+     * 切词，保留重复词（用于统计词频）
+     *
+     * @param text 文本，可为null
+     * @return 词列表
+     */
+    public static List<String> tokenize(String text) {
+        return TextTokenizer.tokenize(text);
+    }
+
+    static boolean isCjk(int codePoint) {
+        return TextTokenizer.isCjk(codePoint);
+    }
+}
@@ -0,0 +1,380 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.core.model.ExecutionRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 经验使用情况统计，为排序提供随时间衰减的效用分
+ *
+ * <p>记录三类事件：经验被注入到对话、经验命中快速意图、以及随后代码执行（{@link ExecutionRecord}）的成败。
+ * 热路径只对 {@link LongAdder} 分段计数器做无锁累加，后台定时（或显式调用 {@link #flush()}）把增量
+ * 合并进按半衰期指数衰减的累计值。
+ *
+ * <p>结果归因按 thread 的轮次进行：一轮内曝光的经验在 {@link #completeTurn} 时结算，
+ * 命中快速意图且带函数名的代码经验只看同名函数的执行结果，其余经验看本轮最后一次执行是否成功；
+ * 本轮没有执行记录的曝光不计成败，只计为“未产生结果”的曝光，按比例拉低效用。
+ *
+ * <p>效用分 = (成功 + 先验) / (成功 + 失败 + 未产生结果曝光 × 惩罚系数 + 先验权重)，
+ * 没有任何记录的经验为 {@link #NEUTRAL_UTILITY}，对排序没有影响。
+ *
+ * @author Assistant Agent Team
+ */
+public class ExperienceUsageTracker implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceUsageTracker.class);
+
+    /**
+     * 中性效用分：无记录或成败持平
+     */
+    public static final double NEUTRAL_UTILITY = 0.5;
+
+    /**
+     * 先验的等效样本数，样本少时效用分贴近中性
+     */
+    private static final double PRIOR_WEIGHT = 2.0;
+
+    /**
+     * 曝光后没有产生执行结果，按该比例计作一次失败
+     */
+    private static final double UNRESOLVED_PENALTY = 0.25;
+
+    private static final String DEFAULT_THREAD_ID = "__default__";
+
+    private final long halfLifeMillis;
+    private final double rankingWeight;
+    private final int maxTrackedThreads;
+    private final LongSupplier clock;
+
+    /**
+     * 未合并的增量计数
+     */
+    private final Map<String, StripedCounters> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已合并的衰减累计值
+     */
+    private final Map<String, DecayedUsage> usage = new ConcurrentHashMap<>();
+
+    /**
+     * 合并次数，累计值变化时递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * threadId → 本轮曝光，按访问顺序淘汰
+     */
+    private final Map<String, TurnExposure> exposures;
+
+    private final ScheduledExecutorService flushExecutor;
+
+    public ExperienceUsageTracker(long halfLifeMillis, double rankingWeight, long flushIntervalMillis,
+                                  int maxTrackedThreads) {
+        this(halfLifeMillis, rankingWeight, flushIntervalMillis, maxTrackedThreads, System::currentTimeMillis);
+    }
+
+    ExperienceUsageTracker(long halfLifeMillis, double rankingWeight, long flushIntervalMillis,
+                           int maxTrackedThreads, LongSupplier clock) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.rankingWeight = Math.min(1, Math.max(0, rankingWeight));
+        this.maxTrackedThreads = Math.max(1, maxTrackedThreads);
+        this.clock = clock;
+        this.exposures = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TurnExposure> eldest) {
+                return size() > ExperienceUsageTracker.this.maxTrackedThreads;
+            }
+        };
+        if (flushIntervalMillis > 0) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "experience-usage-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+
+    // ---------------------------------------------------------------- 记录
+
+    /**
+     * 记录经验被注入对话；同一轮内重复注入只计一次
+     */
+    public void recordInjections(String threadId, Collection<String> experienceIds) {
+        if (experienceIds == null || experienceIds.isEmpty()) {
+            return;
+        }
+        TurnExposure turn = exposure(threadId);
+        for (String id : experienceIds) {
+            if (id != null && turn.expose(id, null)) {
+                counters(id).injections.increment();
+            }
+        }
+    }
+
+    /**
+     * 记录快速意图命中；同一轮内已曝光的经验不重复计数
+     *
+     * @param functionName 命中代码经验注册的函数名，结算时只看该函数的执行结果；非代码经验传null
+     */
+    public void recordFastIntentHit(String threadId, String experienceId, String functionName) {
+        if (experienceId == null) {
+            return;
+        }
+        if (exposure(threadId).expose(experienceId, functionName)) {
+            counters(experienceId).fastIntentHits.increment();
+        }
+    }
+
+    /**
+     * 直接记录一次成败结果
+     */
+    public void recordOutcome(String experienceId, boolean success) {
+        if (experienceId == null) {
+            return;
+        }
+        StripedCounters counters = counters(experienceId);
+        (success ? counters.successes : counters.failures).increment();
+    }
+
+    /**
+     * 结算一轮：根据本轮新增的执行记录为本轮曝光的经验记录成败，并清空曝光
+     *
+     * @param executionHistory 会话内累计的执行记录（state 中的 execution_history），本轮新增部分从上次结算位置之后开始
+     */
+    public void completeTurn(String threadId, List<ExecutionRecord> executionHistory) {
+        List<ExecutionRecord> history = executionHistory != null ? executionHistory : List.of();
+        TurnExposure turn = exposure(threadId);
+        Map<String, String> exposed;
+        List<ExecutionRecord> executions;
+        synchronized (turn) {
+            // 历史被改写（变短）时视为从头开始
+            int from = turn.executionWatermark <= history.size() ? turn.executionWatermark : 0;
+            executions = new ArrayList<>(history.subList(from, history.size()));
+            turn.executionWatermark = history.size();
+            exposed = new LinkedHashMap<>(turn.exposed);
+            turn.exposed.clear();
+        }
+        if (exposed.isEmpty() || executions.isEmpty()) {
+            return;
+        }
+
+        ExecutionRecord last = executions.get(executions.size() - 1);
+        int resolved = 0;
+        for (Map.Entry<String, String> entry : exposed.entrySet()) {
+            Boolean success = entry.getValue() != null
+                    ? functionOutcome(executions, entry.getValue())
+                    : Boolean.valueOf(last != null && last.isSuccess());
+            if (success != null) {
+                recordOutcome(entry.getKey(), success);
+                resolved++;
+            }
+        }
+        log.debug("ExperienceUsageTracker#completeTurn - reason=turn settled, threadId={}, exposed={}, executions={}, resolved={}",
+                threadId, exposed.size(), executions.size(), resolved);
+    }
+
+    // ---------------------------------------------------------------- 合并与查询
+
+    /**
+     * 把未合并的增量并入衰减累计值
+     */
+    public synchronized void flush() {
+        long now = clock.getAsLong();
+        int merged = 0;
+        for (Map.Entry<String, StripedCounters> entry : pending.entrySet()) {
+            StripedCounters counters = entry.getValue();
+            // sumThenReset 逐段原子清零，并发累加最迟计入下一次合并，不会丢失
+            long injections = counters.injections.sumThenReset();
+            long hits = counters.fastIntentHits.sumThenReset();
+            long successes = counters.successes.sumThenReset();
+            long failures = counters.failures.sumThenReset();
+            if (injections == 0 && hits == 0 && successes == 0 && failures == 0) {
+                continue;
+            }
+            usage.compute(entry.getKey(), (id, previous) -> (previous != null ? previous : DecayedUsage.empty(now))
+                    .decayTo(now, halfLifeMillis)
+                    .plus(injections, hits, successes, failures));
+            merged++;
+        }
+        if (merged > 0) {
+            generation.incrementAndGet();
+            log.debug("ExperienceUsageTracker#flush - reason=usage counters merged, experiences={}", merged);
+        }
+    }
+
+    /**
+     * 使用统计版本号，每次合并出新的增量后递增；排序缓存据此判断效用排序是否已变化
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 经验的效用分，范围 [0, 1]，无记录时为 {@link #NEUTRAL_UTILITY}
+     */
+    public double utility(String experienceId) {
+        DecayedUsage current = experienceId != null ? usage.get(experienceId) : null;
+        if (current == null) {
+            return NEUTRAL_UTILITY;
+        }
+        DecayedUsage decayed = current.decayTo(clock.getAsLong(), halfLifeMillis);
+        double unresolved = Math.max(0, decayed.exposures() - decayed.successes - decayed.failures);
+        return (decayed.successes + PRIOR_WEIGHT * NEUTRAL_UTILITY)
+                / (decayed.successes + decayed.failures + UNRESOLVED_PENALTY * unresolved + PRIOR_WEIGHT);
+    }
+
+    /**
+     * 排序乘数：中性效用为1，按排序权重在 [1 - w, 1 + w] 间线性变化
+     */
+    public double rankingFactor(String experienceId) {
+        return 1 + rankingWeight * (2 * utility(experienceId) - 1);
+    }
+
+    /**
+     * 已合并的累计值（衰减到当前时刻），用于观测
+     */
+    public UsageSnapshot snapshot(String experienceId) {
+        DecayedUsage current = usage.get(experienceId);
+        if (current == null) {
+            return new UsageSnapshot(0, 0, 0, 0, NEUTRAL_UTILITY);
+        }
+        DecayedUsage decayed = current.decayTo(clock.getAsLong(), halfLifeMillis);
+        return new UsageSnapshot(decayed.injections, decayed.fastIntentHits, decayed.successes, decayed.failures,
+                utility(experienceId));
+    }
+
+    @Override
+    public void close() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("ExperienceUsageTracker#flush - reason=failed to merge usage counters", e);
+        }
+    }
+
+    private StripedCounters counters(String experienceId) {
+        StripedCounters counters = pending.get(experienceId);
+        return counters != null ? counters : pending.computeIfAbsent(experienceId, id -> new StripedCounters());
+    }
+
+    private TurnExposure exposure(String threadId) {
+        String key = threadId != null ? threadId : DEFAULT_THREAD_ID;
+        synchronized (exposures) {
+            return exposures.computeIfAbsent(key, k -> new TurnExposure());
+        }
+    }
+
+    /**
+     * 同名函数的执行结果：任一次成功即成功；没有同名执行时返回null
+     */
+    private static Boolean functionOutcome(List<ExecutionRecord> executions, String functionName) {
+        Boolean outcome = null;
+        for (ExecutionRecord record : executions) {
+            if (record != null && Objects.equals(functionName, record.getFunctionName())) {
+                if (record.isSuccess()) {
+                    return true;
+                }
+                outcome = false;
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * 经验维度的已合并统计
+     *
+     * @param injections 注入次数（衰减后）
+     * @param fastIntentHits 快速意图命中次数（衰减后）
+     * @param successes 成功次数（衰减后）
+     * @param failures 失败次数（衰减后）
+     * @param utility 效用分
+     */
+    public record UsageSnapshot(double injections, double fastIntentHits, double successes, double failures,
+                                double utility) {
+    }
+
+    private static final class StripedCounters {
+        private final LongAdder injections = new LongAdder();
+        private final LongAdder fastIntentHits = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+    }
+
+    /**
+     * 一个 thread 当前轮次的曝光：经验ID → 快速意图命中的函数名（注入为null）
+     */
+    private static final class TurnExposure {
+        private final Map<String, String> exposed = new HashMap<>();
+        private int executionWatermark;
+
+        /**
+         * @return 本轮首次曝光时返回true
+         */
+        synchronized boolean expose(String experienceId, String functionName) {
+            if (functionName != null) {
+                return exposed.put(experienceId, functionName) == null;
+            }
+            if (exposed.containsKey(experienceId)) {
+                return false;
+            }
+            exposed.put(experienceId, null);
+            return true;
+        }
+    }
+
+    /**
+     * 衰减累计值，不可变
+     */
+    private record DecayedUsage(double injections, double fastIntentHits, double successes, double failures,
+                                long updatedAt) {
+
+        static DecayedUsage empty(long now) {
+            return new DecayedUsage(0, 0, 0, 0, now);
+        }
+
+        double exposures() {
+            return injections + fastIntentHits;
+        }
+
+        DecayedUsage decayTo(long now, long halfLifeMillis) {
+            if (halfLifeMillis <= 0 || now <= updatedAt) {
+                return this;
+            }
+            double factor = Math.pow(0.5, (double) (now - updatedAt) / halfLifeMillis);
+            return new DecayedUsage(injections * factor, fastIntentHits * factor, successes * factor,
+                    failures * factor, now);
+        }
+
+        DecayedUsage plus(long injections, long fastIntentHits, long successes, long failures) {
+            return new DecayedUsage(this.injections + injections, this.fastIntentHits + fastIntentHits,
+                    this.successes + successes, this.failures + failures, updatedAt);
+        }
+    }
+}
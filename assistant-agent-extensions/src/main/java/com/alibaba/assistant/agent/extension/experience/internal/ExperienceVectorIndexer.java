@@ -0,0 +1,270 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceVectorIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 经验向量索引维护器
+ * 负责把经验嵌入并写入 {@link ExperienceVectorIndex}，记录已索引的版本（updatedAt），版本变化时重新嵌入；
+ * 后台模式下嵌入在独立线程上批量执行，查询线程只登记待索引的经验，不等待嵌入模型；
+ * 仓库版本号变化后，后台线程会清理仓库中已删除经验的索引节点；仓库不跟踪版本号时按固定间隔清理，
+ * 避免每次刷新都对全部已索引经验逐个 findById
+ *
+ * @author Assistant Agent Team
+ */
+public class ExperienceVectorIndexer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExperienceVectorIndexer.class);
+
+    /**
+     * 单次调用嵌入模型的最大文本数
+     */
+    private static final int EMBED_BATCH_SIZE = 64;
+
+    /**
+     * 仓库不跟踪版本号时，两次清理已删除经验之间的最小间隔
+     */
+    private static final long UNTRACKED_RECONCILE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final ExperienceRepository experienceRepository;
+
+    private final ExperienceVectorIndex vectorIndex;
+
+    private final EmbeddingModel embeddingModel;
+
+    /**
+     * 后台索引线程，为null时在调用线程上同步嵌入
+     */
+    private final ExecutorService indexExecutor;
+
+    /**
+     * 已写入向量索引的经验版本（updatedAt）
+     */
+    private final Map<String, Instant> indexedVersions = new ConcurrentHashMap<>();
+
+    private final Queue<Experience> pending = new ConcurrentLinkedQueue<>();
+
+    private final Set<String> queuedIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 上次清理已删除经验时的仓库版本号
+     */
+    private volatile long reconciledGeneration = Long.MIN_VALUE;
+
+    /**
+     * 上次清理的时间（System.nanoTime），仓库不跟踪版本号时据此限频
+     */
+    private volatile long reconciledAtNanos = System.nanoTime() - UNTRACKED_RECONCILE_INTERVAL_NANOS;
+
+    /**
+     * 同步模式：调用线程上直接嵌入
+     */
+    public ExperienceVectorIndexer(ExperienceRepository experienceRepository, ExperienceVectorIndex vectorIndex,
+                                   EmbeddingModel embeddingModel) {
+        this(experienceRepository, vectorIndex, embeddingModel, false);
+    }
+
+    public ExperienceVectorIndexer(ExperienceRepository experienceRepository, ExperienceVectorIndex vectorIndex,
+                                   EmbeddingModel embeddingModel, boolean background) {
+        this.experienceRepository = Objects.requireNonNull(experienceRepository, "experienceRepository");
+        this.vectorIndex = Objects.requireNonNull(vectorIndex, "vectorIndex");
+        this.embeddingModel = Objects.requireNonNull(embeddingModel, "embeddingModel");
+        if (background) {
+            this.indexExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "experience-vector-indexer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.indexExecutor = null;
+        }
+    }
+
+    public ExperienceVectorIndex getVectorIndex() {
+        return vectorIndex;
+    }
+
+    /**
+     * 嵌入查询文本，查询路径上唯一的一次模型调用
+     */
+    public float[] embedQuery(String text) {
+        return embeddingModel.embed(text);
+    }
+
+    /**
+     * 经验当前版本是否已写入索引
+     */
+    public boolean isIndexed(Experience experience) {
+        Instant indexed = indexedVersions.get(experience.getId());
+        return indexed != null && indexed.equals(experience.getUpdatedAt());
+    }
+
+    /**
+     * 登记尚未索引（或已变化）的经验；后台模式下立即返回，同步模式下返回前完成嵌入
+     */
+    public void refresh(Collection<Experience> experiences) {
+        for (Experience experience : experiences) {
+            if (!isIndexed(experience) && queuedIds.add(experience.getId())) {
+                pending.add(experience);
+            }
+        }
+        if (pending.isEmpty() && !reconcileDue(experienceRepository.generation())) {
+            return;
+        }
+        schedule();
+    }
+
+    /**
+     * 启动预热：在后台把仓库中的全部经验写入索引，首个查询不必承担全量嵌入
+     */
+    public void warmUp() {
+        if (indexExecutor == null) {
+            refresh(experienceRepository.findByTypeAndScope(null, null, null, null));
+            return;
+        }
+        try {
+            indexExecutor.execute(() -> refresh(experienceRepository.findByTypeAndScope(null, null, null, null)));
+        } catch (RejectedExecutionException e) {
+            log.debug("ExperienceVectorIndexer#warmUp - reason=indexer closed, skip warm up");
+        }
+    }
+
+    /**
+     * 已写入索引的经验数
+     */
+    public int getIndexedCount() {
+        return indexedVersions.size();
+    }
+
+    @Override
+    public void close() {
+        if (indexExecutor != null) {
+            indexExecutor.shutdownNow();
+        }
+    }
+
+    private void schedule() {
+        if (indexExecutor == null) {
+            drain();
+            return;
+        }
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            indexExecutor.execute(this::drainInBackground);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.debug("ExperienceVectorIndexer#schedule - reason=indexer closed, skip indexing");
+        }
+    }
+
+    private void drainInBackground() {
+        try {
+            drain();
+        } catch (Exception e) {
+            log.warn("ExperienceVectorIndexer#drain - reason=failed to embed experiences, retry on next query, error={}",
+                    e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记后到达的登记不会再触发调度，这里补一次
+        if (!pending.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void drain() {
+        List<Experience> batch = new ArrayList<>(EMBED_BATCH_SIZE);
+        Experience next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+            if (batch.size() == EMBED_BATCH_SIZE) {
+                embed(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            embed(batch);
+        }
+        reconcile();
+    }
+
+    private void embed(List<Experience> batch) {
+        try {
+            List<String> texts = new ArrayList<>(batch.size());
+            for (Experience experience : batch) {
+                texts.add(embeddingText(experience));
+            }
+            List<float[]> vectors = embeddingModel.embed(texts);
+            for (int i = 0; i < batch.size(); i++) {
+                Experience experience = batch.get(i);
+                vectorIndex.upsert(experience.getId(), vectors.get(i));
+                indexedVersions.put(experience.getId(), experience.getUpdatedAt());
+            }
+            log.debug("ExperienceVectorIndexer#embed - reason=embedded {} experiences into vector index", batch.size());
+        } finally {
+            for (Experience experience : batch) {
+                queuedIds.remove(experience.getId());
+            }
+        }
+    }
+
+    /**
+     * 仓库版本号变化后清理已删除经验的索引节点；仓库不跟踪版本号时按 {@link #UNTRACKED_RECONCILE_INTERVAL_NANOS} 限频
+     */
+    private void reconcile() {
+        long generation = experienceRepository.generation();
+        if (!reconcileDue(generation)) {
+            return;
+        }
+        int removed = 0;
+        for (String id : indexedVersions.keySet()) {
+            if (experienceRepository.findById(id).isEmpty()) {
+                vectorIndex.remove(id);
+                indexedVersions.remove(id);
+                removed++;
+            }
+        }
+        reconciledGeneration = generation;
+        reconciledAtNanos = System.nanoTime();
+        if (removed > 0) {
+            log.debug("ExperienceVectorIndexer#reconcile - reason=removed {} deleted experiences from vector index", removed);
+        }
+    }
+
+    private boolean reconcileDue(long generation) {
+        if (generation >= 0) {
+            return generation != reconciledGeneration;
+        }
+        return System.nanoTime() - reconciledAtNanos >= UNTRACKED_RECONCILE_INTERVAL_NANOS;
+    }
+
+    private static String embeddingText(Experience experience) {
+        String title = experience.getTitle() != null ? experience.getTitle() : "";
+        String content = experience.getContent() != null ? experience.getContent() : "";
+        return title + "\n" + content;
+    }
+}
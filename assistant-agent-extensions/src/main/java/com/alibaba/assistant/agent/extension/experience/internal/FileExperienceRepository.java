@@ -0,0 +1,771 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于本地文件的持久化经验仓库
+ *
+ * <p>数据写入只追加、带CRC校验的记录日志（{@link ExperienceRecordLog}），id 到记录位置的映射保存在内存映射文件中的
+ * 堆外哈希索引（{@link MappedOffsetIndex}）。按类型/范围查询时顺序扫描索引槽位完成过滤，只解码命中的记录；
+ * 最近读写的经验缓存为对象，同一条未修改的经验多次查询返回同一实例。
+ *
+ * <p>启动时校验日志并截断残缺的尾部记录；索引正常关闭时只回放其后的日志，否则从日志整体重建。
+ * 覆盖与删除产生的无效字节超过阈值后，后台线程把存活记录复制到新日志并原子替换（压缩期间读写不受阻塞，
+ * 只有最后回放增量与替换文件时短暂持有写锁）。
+ *
+ * <p>写入可选择每次 fsync（默认开启），关闭时索引刷盘并标记为正常关闭。
+ *
+ * @author Assistant Agent Team
+ */
+public class FileExperienceRepository implements ExperienceRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileExperienceRepository.class);
+
+    static final String LOG_FILE = "experiences.log";
+
+    static final String INDEX_FILE = "experiences.idx";
+
+    static final String LOCK_FILE = ".lock";
+
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    public static final double DEFAULT_COMPACTION_GARBAGE_RATIO = 0.5;
+
+    public static final long DEFAULT_COMPACTION_MIN_BYTES = 4L * 1024 * 1024;
+
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /**
+     * 枚举取值参与索引格式校验，枚举变化时索引自动重建
+     */
+    private static final int SCHEMA = Objects.hash(Arrays.toString(ExperienceType.values()),
+            Arrays.toString(ExperienceScope.values()), MappedOffsetIndex.SLOT_SIZE);
+
+    private static final ExperienceType[] TYPES = ExperienceType.values();
+
+    private static final ExperienceScope[] SCOPES = ExperienceScope.values();
+
+    private final Path directory;
+    private final Path logPath;
+    private final Path indexPath;
+    private final boolean syncOnWrite;
+    private final double compactionGarbageRatio;
+    private final long compactionMinBytes;
+
+    private final ObjectMapper objectMapper = createObjectMapper();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 记录位置 → 已解码经验，LRU淘汰
+     */
+    private final Map<Long, Experience> cache;
+
+    private final ExecutorService compactionExecutor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object compactionMutex = new Object();
+
+    private FileChannel lockChannel;
+    private ExperienceRecordLog recordLog;
+    private MappedOffsetIndex index;
+    private boolean closed;
+
+    public FileExperienceRepository(Path directory) {
+        this(directory, true, DEFAULT_COMPACTION_GARBAGE_RATIO, DEFAULT_COMPACTION_MIN_BYTES, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param directory 数据目录，不存在时创建
+     * @param syncOnWrite 每次写入后是否 fsync
+     * @param compactionGarbageRatio 无效字节占日志的比例超过该值时触发后台压缩
+     * @param compactionMinBytes 无效字节少于该值时不压缩
+     * @param cacheSize 已解码经验的缓存条数
+     */
+    public FileExperienceRepository(Path directory, boolean syncOnWrite, double compactionGarbageRatio,
+                                    long compactionMinBytes, int cacheSize) {
+        this.directory = directory;
+        this.logPath = directory.resolve(LOG_FILE);
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.syncOnWrite = syncOnWrite;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        this.compactionMinBytes = compactionMinBytes;
+        this.cache = new LinkedHashMap<>(Math.max(16, cacheSize), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Experience> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "experience-log-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            open();
+        } catch (IOException | RuntimeException e) {
+            compactionExecutor.shutdownNow();
+            closeQuietly(recordLog);
+            closeQuietly(lockChannel);
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException("Failed to open experience repository at " + directory, (IOException) e);
+        }
+    }
+
+    /**
+     * 同一目录只允许一个实例打开（跨进程、同进程均生效）
+     */
+    private void acquireDirectoryLock() throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            throw new IllegalStateException("Experience repository directory is already in use: " + directory);
+        }
+    }
+
+    private void open() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        acquireDirectoryLock();
+        // 上次压缩未完成留下的临时文件
+        Files.deleteIfExists(directory.resolve(LOG_FILE + COMPACT_SUFFIX));
+        Files.deleteIfExists(directory.resolve(INDEX_FILE + COMPACT_SUFFIX));
+
+        recordLog = ExperienceRecordLog.open(logPath);
+        index = MappedOffsetIndex.openClean(indexPath, SCHEMA);
+        boolean rebuilt = index == null
+                || index.coveredEnd() < ExperienceRecordLog.FILE_HEADER_SIZE
+                || index.coveredEnd() > recordLog.end();
+        long replayFrom = ExperienceRecordLog.FILE_HEADER_SIZE;
+        if (rebuilt) {
+            if (index != null) {
+                index.close();
+            }
+            index = MappedOffsetIndex.create(indexPath, SCHEMA, 0);
+        } else {
+            replayFrom = index.coveredEnd();
+        }
+        long truncated = recordLog.recover(replayFrom, entry -> apply(index, recordLog, entry));
+        index.setCoveredEnd(recordLog.end());
+        index.force();
+
+        log.info("FileExperienceRepository#open - reason=experience repository opened, directory={}, experiences={}, "
+                        + "logBytes={}, indexRebuilt={}, replayedBytes={}, truncatedBytes={}, costMs={}",
+                directory, index.size(), recordLog.end(), rebuilt, recordLog.end() - replayFrom, truncated,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public Experience save(Experience experience) {
+        if (experience == null) {
+            log.warn("FileExperienceRepository#save - reason=experience is null, skip saving");
+            throw new IllegalArgumentException("Experience cannot be null");
+        }
+        log.debug("FileExperienceRepository#save - reason=start saving experience id={}", experience.getId());
+
+        experience.touch();
+        ByteBuffer record = encode(experience);
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long offset = recordLog.append(record)[0];
+            if (syncOnWrite) {
+                recordLog.sync();
+            }
+            applyPut(experience, offset, record.limit());
+            generation.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save experience " + experience.getId(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        maybeScheduleCompaction();
+
+        log.info("FileExperienceRepository#save - reason=experience saved successfully, id={}, type={}",
+                experience.getId(), experience.getType());
+        return experience;
+    }
+
+    @Override
+    public List<Experience> batchSave(Collection<Experience> experiences) {
+        log.debug("FileExperienceRepository#batchSave - reason=start batch saving {} experiences",
+                experiences != null ? experiences.size() : 0);
+
+        if (experiences == null || experiences.isEmpty()) {
+            log.warn("FileExperienceRepository#batchSave - reason=experiences collection is empty");
+            return new ArrayList<>();
+        }
+
+        List<Experience> accepted = new ArrayList<>(experiences.size());
+        List<ByteBuffer> records = new ArrayList<>(experiences.size());
+        for (Experience experience : experiences) {
+            try {
+                if (experience == null) {
+                    throw new IllegalArgumentException("Experience cannot be null");
+                }
+                experience.touch();
+                records.add(encode(experience));
+                accepted.add(experience);
+            } catch (Exception e) {
+                log.error("FileExperienceRepository#batchSave - reason=failed to encode experience id={}",
+                        experience != null ? experience.getId() : "null", e);
+                // 继续保存其他经验
+            }
+        }
+        if (accepted.isEmpty()) {
+            return accepted;
+        }
+
+        // 整批一次写入、一次 fsync
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long[] offsets = recordLog.append(records.toArray(new ByteBuffer[0]));
+            if (syncOnWrite) {
+                recordLog.sync();
+            }
+            for (int i = 0; i < accepted.size(); i++) {
+                applyPut(accepted.get(i), offsets[i], records.get(i).limit());
+            }
+            generation.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save experience batch", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        maybeScheduleCompaction();
+
+        log.info("FileExperienceRepository#batchSave - reason=batch save completed, saved={}/{}",
+                accepted.size(), experiences.size());
+        return accepted;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        log.debug("FileExperienceRepository#deleteById - reason=start deleting experience id={}", id);
+
+        if (!StringUtils.hasText(id)) {
+            log.warn("FileExperienceRepository#deleteById - reason=id is null or empty");
+            return false;
+        }
+
+        boolean success;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long hash = MappedOffsetIndex.hash(id);
+            MappedOffsetIndex.SlotMatcher matcher = idMatcher(recordLog, id);
+            int slot = index.find(hash, matcher);
+            success = slot >= 0;
+            if (success) {
+                long previousOffset = index.offset(slot);
+                recordLog.append(ExperienceRecordLog.encode(ExperienceRecordLog.OP_DELETE, id,
+                        null, null, null, null, null));
+                if (syncOnWrite) {
+                    recordLog.sync();
+                }
+                index.remove(hash, matcher);
+                index.setCoveredEnd(recordLog.end());
+                synchronized (cache) {
+                    cache.remove(previousOffset);
+                }
+                generation.incrementAndGet();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete experience " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (success) {
+            maybeScheduleCompaction();
+        }
+
+        log.info("FileExperienceRepository#deleteById - reason=delete operation completed, id={}, success={}",
+                id, success);
+        return success;
+    }
+
+    @Override
+    public Optional<Experience> findById(String id) {
+        log.debug("FileExperienceRepository#findById - reason=start finding experience by id={}", id);
+
+        if (!StringUtils.hasText(id)) {
+            log.warn("FileExperienceRepository#findById - reason=id is null or empty");
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            Experience[] found = new Experience[1];
+            index.find(MappedOffsetIndex.hash(id), (offset, length) -> {
+                Experience candidate = load(offset, length);
+                if (id.equals(candidate.getId())) {
+                    found[0] = candidate;
+                    return true;
+                }
+                return false;
+            });
+            return Optional.ofNullable(found[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Experience> findByTypeAndScope(ExperienceType type, ExperienceScope scope, String ownerId, String projectId) {
+        log.debug("FileExperienceRepository#findByTypeAndScope - reason=start finding experiences type={}, scope={}, ownerId={}, projectId={}",
+                type, scope, ownerId, projectId);
+
+        byte typeCode = code(type);
+        byte scopeCode = code(scope);
+        int ownerHash = hashOf(ownerId);
+        int projectHash = hashOf(projectId);
+
+        List<Experience> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<long[]> matched = new ArrayList<>();
+            index.forEach((slot, offset, length, recordType, recordScope, recordOwner, recordProject) -> {
+                if ((type == null || recordType == typeCode)
+                        && (scope == null || recordScope == scopeCode)
+                        && (ownerId == null || recordOwner == ownerHash)
+                        && (projectId == null || recordProject == projectHash)) {
+                    matched.add(new long[]{offset, length});
+                }
+            });
+            // 按日志顺序读取，尽量顺序I/O
+            matched.sort(Comparator.comparingLong(entry -> entry[0]));
+            for (long[] entry : matched) {
+                Experience experience = load(entry[0], (int) entry[1]);
+                // 哈希过滤后再做精确比较
+                if ((ownerId == null || ownerId.equals(experience.getOwnerId()))
+                        && (projectId == null || projectId.equals(experience.getProjectId()))) {
+                    results.add(experience);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        results.sort((e1, e2) -> e2.getUpdatedAt().compareTo(e1.getUpdatedAt())); // 按更新时间倒序
+
+        log.info("FileExperienceRepository#findByTypeAndScope - reason=find completed, found {} experiences",
+                results.size());
+        return results;
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            long count = index.size();
+            log.debug("FileExperienceRepository#count - reason=total experiences count={}", count);
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countByTypeAndScope(ExperienceType type, ExperienceScope scope) {
+        log.debug("FileExperienceRepository#countByTypeAndScope - reason=start counting experiences type={}, scope={}",
+                type, scope);
+
+        byte typeCode = code(type);
+        byte scopeCode = code(scope);
+        long[] count = new long[1];
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            // 只扫描索引，不读取日志
+            index.forEach((slot, offset, length, recordType, recordScope, recordOwner, recordProject) -> {
+                if ((type == null || recordType == typeCode) && (scope == null || recordScope == scopeCode)) {
+                    count[0]++;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        log.debug("FileExperienceRepository#countByTypeAndScope - reason=count completed, result={}", count[0]);
+        return count[0];
+    }
+
+    /**
+     * 压缩日志：只保留存活记录。通常由后台线程在无效字节超过阈值时触发，也可以手动调用
+     *
+     * @return 是否执行了压缩
+     */
+    public boolean compact() {
+        synchronized (compactionMutex) {
+            return doCompact();
+        }
+    }
+
+    private boolean doCompact() {
+        long start = System.nanoTime();
+        Path compactLogPath = directory.resolve(LOG_FILE + COMPACT_SUFFIX);
+        Path compactIndexPath = directory.resolve(INDEX_FILE + COMPACT_SUFFIX);
+        ExperienceRecordLog compactLog = null;
+        MappedOffsetIndex compactIndex = null;
+        try {
+            // 1. 读锁下记录快照：快照点之前的日志不会再变化
+            ExperienceRecordLog sourceLog;
+            long snapshotEnd;
+            List<long[]> live = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                sourceLog = recordLog;
+                snapshotEnd = recordLog.end();
+                if (snapshotEnd - ExperienceRecordLog.FILE_HEADER_SIZE == index.liveBytes()) {
+                    return false;
+                }
+                MappedOffsetIndex snapshotIndex = index;
+                index.forEach((slot, offset, length, type, scope, ownerHash, projectHash) ->
+                        live.add(new long[]{offset, length, snapshotIndex.hashAt(slot), type, scope, ownerHash, projectHash}));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // 2. 不持锁复制存活记录，读写照常进行
+            live.sort(Comparator.comparingLong(entry -> entry[0]));
+            Files.deleteIfExists(compactLogPath);
+            compactLog = ExperienceRecordLog.open(compactLogPath);
+            compactIndex = MappedOffsetIndex.create(compactIndexPath, SCHEMA, live.size());
+            for (long[] entry : live) {
+                long offset = compactLog.copyFrom(sourceLog, entry[0], (int) entry[1]);
+                compactIndex.insert(entry[2], offset, (int) entry[1], (byte) entry[3], (byte) entry[4],
+                        (int) entry[5], (int) entry[6]);
+            }
+
+            // 3. 写锁下回放快照之后的增量并替换文件
+            lock.writeLock().lock();
+            try {
+                ensureOpen();
+                if (recordLog != sourceLog) {
+                    throw new IllegalStateException("Record log replaced during compaction");
+                }
+                ExperienceRecordLog targetLog = compactLog;
+                MappedOffsetIndex targetIndex = compactIndex;
+                recordLog.recover(snapshotEnd, entry -> {
+                    long offset = targetLog.copyFrom(sourceLog, entry.offset(), entry.length());
+                    apply(targetIndex, targetLog, new ExperienceRecordLog.Entry(offset, entry.length(), entry.op(),
+                            entry.id(), entry.type(), entry.scope(), entry.ownerId(), entry.projectId(), null));
+                });
+                compactLog.sync();
+                compactIndex.setCoveredEnd(compactLog.end());
+                compactIndex.force();
+                long before = recordLog.end();
+                long after = compactLog.end();
+
+                // 先替换日志再替换索引；两次替换之间崩溃时索引处于未正常关闭状态，重启后从新日志重建
+                compactLog.moveTo(logPath);
+                recordLog.close();
+                recordLog = compactLog;
+                compactLog = null;
+                try {
+                    compactIndex.moveTo(indexPath);
+                } catch (IOException e) {
+                    log.warn("FileExperienceRepository#compact - reason=failed to replace index file, index will be rebuilt on next open, directory={}",
+                            directory, e);
+                }
+                index.close();
+                index = compactIndex;
+                compactIndex = null;
+                synchronized (cache) {
+                    cache.clear();
+                }
+
+                log.info("FileExperienceRepository#compact - reason=compaction completed, experiences={}, beforeBytes={}, afterBytes={}, costMs={}",
+                        index.size(), before, after, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            log.error("FileExperienceRepository#compact - reason=compaction failed, directory={}", directory, e);
+            throw new UncheckedIOException("Failed to compact experience log in " + directory, e);
+        } finally {
+            closeQuietly(compactLog);
+            if (compactIndex != null) {
+                compactIndex.close();
+            }
+            if (compactLog != null || compactIndex != null) {
+                deleteQuietly(compactLogPath);
+                deleteQuietly(compactIndexPath);
+            }
+        }
+    }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 日志中的无效字节数（被覆盖或删除的记录）
+     */
+    public long garbageBytes() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return recordLog.end() - ExperienceRecordLog.FILE_HEADER_SIZE - index.liveBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        compactionExecutor.shutdown();
+        try {
+            if (!compactionExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("FileExperienceRepository#close - reason=compaction still running, directory={}", directory);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            index.setCoveredEnd(recordLog.end());
+            recordLog.sync();
+            index.markClean();
+            index.close();
+            recordLog.close();
+            // 关闭通道同时释放目录锁
+            lockChannel.close();
+            log.info("FileExperienceRepository#close - reason=experience repository closed, directory={}", directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close experience repository at " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyPut(Experience experience, long offset, int length) throws IOException {
+        long hash = MappedOffsetIndex.hash(experience.getId());
+        MappedOffsetIndex.SlotMatcher matcher = idMatcher(recordLog, experience.getId());
+        int previous = index.find(hash, matcher);
+        long previousOffset = previous >= 0 ? index.offset(previous) : -1;
+        index.put(hash, matcher, offset, length, code(experience.getType()), code(experience.getScope()),
+                hashOf(experience.getOwnerId()), hashOf(experience.getProjectId()));
+        index.setCoveredEnd(recordLog.end());
+        synchronized (cache) {
+            cache.remove(previousOffset);
+            cache.put(offset, experience);
+        }
+    }
+
+    /**
+     * 回放一条日志记录到索引
+     */
+    private static void apply(MappedOffsetIndex target, ExperienceRecordLog source, ExperienceRecordLog.Entry entry)
+            throws IOException {
+        if (entry.id() == null) {
+            return;
+        }
+        long hash = MappedOffsetIndex.hash(entry.id());
+        MappedOffsetIndex.SlotMatcher matcher = idMatcher(source, entry.id());
+        if (entry.op() == ExperienceRecordLog.OP_DELETE) {
+            target.remove(hash, matcher);
+        } else {
+            target.put(hash, matcher, entry.offset(), entry.length(), code(TYPES, entry.type()),
+                    code(SCOPES, entry.scope()), hashOf(entry.ownerId()), hashOf(entry.projectId()));
+        }
+    }
+
+    private static MappedOffsetIndex.SlotMatcher idMatcher(ExperienceRecordLog source, String id) {
+        return (offset, length) -> id.equals(source.readId(offset));
+    }
+
+    private Experience load(long offset, int length) {
+        synchronized (cache) {
+            Experience cached = cache.get(offset);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ExperienceRecordLog.Entry entry = recordLog.read(offset, length);
+        Experience experience;
+        try {
+            experience = objectMapper.readValue(entry.json(), Experience.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode experience record at " + offset, e);
+        }
+        synchronized (cache) {
+            Experience raced = cache.putIfAbsent(offset, experience);
+            return raced != null ? raced : experience;
+        }
+    }
+
+    private ByteBuffer encode(Experience experience) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(experience);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode experience " + experience.getId(), e);
+        }
+        return ExperienceRecordLog.encode(ExperienceRecordLog.OP_PUT, experience.getId(),
+                experience.getType() != null ? experience.getType().name() : null,
+                experience.getScope() != null ? experience.getScope().name() : null,
+                experience.getOwnerId(), experience.getProjectId(), json);
+    }
+
+    private void maybeScheduleCompaction() {
+        long garbage;
+        long total;
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            total = recordLog.end() - ExperienceRecordLog.FILE_HEADER_SIZE;
+            garbage = total - index.liveBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (garbage < compactionMinBytes || garbage < total * compactionGarbageRatio
+                || !compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        log.info("FileExperienceRepository#maybeScheduleCompaction - reason=garbage threshold reached, garbageBytes={}, totalBytes={}",
+                garbage, total);
+        try {
+            compactionExecutor.execute(() -> {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    log.error("FileExperienceRepository#maybeScheduleCompaction - reason=background compaction failed", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 关闭过程中拒绝新任务
+            compactionScheduled.set(false);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Experience repository is closed: " + directory);
+        }
+    }
+
+    private static byte code(ExperienceType type) {
+        return type == null ? 0 : (byte) (type.ordinal() + 1);
+    }
+
+    private static byte code(ExperienceScope scope) {
+        return scope == null ? 0 : (byte) (scope.ordinal() + 1);
+    }
+
+    private static byte code(Enum<?>[] values, String name) {
+        if (name != null) {
+            for (Enum<?> value : values) {
+                if (value.name().equals(name)) {
+                    return (byte) (value.ordinal() + 1);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static int hashOf(String value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.warn("FileExperienceRepository#closeQuietly - reason=failed to close {}", closeable, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("FileExperienceRepository#deleteQuietly - reason=failed to delete {}", path, e);
+        }
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        // 按字段序列化，避免派生的getter（如 effectiveContent）写入日志；Instant 以ISO字符串保存，不依赖 jsr310 模块
+        SimpleModule instantModule = new SimpleModule("experience-instant")
+                .addSerializer(Instant.class, ToStringSerializer.instance)
+                .addDeserializer(Instant.class, new StdDeserializer<>(Instant.class) {
+                    @Override
+                    public Instant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                        String text = parser.getValueAsString();
+                        return StringUtils.hasText(text) ? Instant.parse(text) : null;
+                    }
+                });
+        return new ObjectMapper()
+                .registerModule(instantModule)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
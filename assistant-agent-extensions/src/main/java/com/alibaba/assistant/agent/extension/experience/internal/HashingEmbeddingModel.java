@@ -0,0 +1,106 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于特征哈希（hashing trick）的本地嵌入模型
+ *
+ * <p>文本经 {@link ExperienceTokenizer} 切词，英文单词额外拆出字符三元组以匹配词形变化（retry / retrying），
+ * 每个特征按哈希映射到固定维度并带符号累加，最后做L2归一化。结果完全确定、无需网络，
+ * 用于离线测试和未配置嵌入模型时的兜底；语义能力有限，生产环境建议注入真实的 {@link EmbeddingModel}。
+ *
+ * @author Assistant Agent Team
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+
+    public static final int DEFAULT_DIMENSIONS = 256;
+
+    private static final float TOKEN_WEIGHT = 1.0f;
+
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final int dimensions;
+
+    public HashingEmbeddingModel() {
+        this(DEFAULT_DIMENSIONS);
+    }
+
+    public HashingEmbeddingModel(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Dimensions must be positive");
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> inputs = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(embed(inputs.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        for (String token : ExperienceTokenizer.tokenize(text)) {
+            add(vector, token, TOKEN_WEIGHT);
+            if (token.length() > 3 && !ExperienceTokenizer.isCjk(token.codePointAt(0))) {
+                for (int i = 0; i + 3 <= token.length(); i++) {
+                    add(vector, "#" + token.substring(i, i + 3), TRIGRAM_WEIGHT);
+                }
+            }
+        }
+        return HnswExperienceVectorIndex.normalize(vector);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private void add(float[] vector, String feature, float weight) {
+        long hash = hash(feature);
+        int index = (int) Long.remainderUnsigned(hash, dimensions);
+        vector[index] += (hash >>> 63) == 0 ? weight : -weight;
+    }
+
+    /**
+     * FNV-1a 64位哈希，后接一次混淆保证高位分布均匀
+     */
+    private static long hash(String feature) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
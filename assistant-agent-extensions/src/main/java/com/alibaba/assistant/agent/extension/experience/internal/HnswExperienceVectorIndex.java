@@ -0,0 +1,480 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceVectorIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 基于HNSW（Hierarchical Navigable Small World）图的内存向量索引，纯Java实现
+ *
+ * <p>向量写入时归一化，距离为 1 - 余弦相似度。每个节点随机分配层数（几何分布），
+ * 上层用于贪心定位入口，第0层做 ef 宽度的最佳优先搜索；邻居按启发式规则选择以保持图的连通性。
+ *
+ * <p>删除与替换只做墓碑标记（节点仍参与导航，但不会出现在结果中），墓碑超过存活节点数时整体重建。
+ * 读写通过读写锁隔离，检索可以并发执行。
+ *
+ * @author Assistant Agent Team
+ */
+public class HnswExperienceVectorIndex implements ExperienceVectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswExperienceVectorIndex.class);
+
+    public static final int DEFAULT_M = 16;
+
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    /**
+     * 墓碑数超过该值且超过存活数时重建
+     */
+    private static final int REBUILD_THRESHOLD = 1024;
+
+    private final int m;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> nodeById = new HashMap<>();
+
+    private int dimensions = -1;
+    private int nodeCount;
+    private int liveCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private float[][] vectors = new float[64][];
+    private String[] ids = new String[64];
+    /**
+     * links[node][level]：第0个元素为邻居数量，其后为邻居节点
+     */
+    private int[][][] links = new int[64][][];
+    private final BitSet deleted = new BitSet();
+
+    public HnswExperienceVectorIndex() {
+        this(DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    public HnswExperienceVectorIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.maxConnectionsLevel0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1 / Math.log(this.m);
+    }
+
+    @Override
+    public void upsert(String experienceId, float[] vector) {
+        if (experienceId == null || vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("Experience id and vector cannot be empty");
+        }
+        float[] normalized = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            if (dimensions < 0) {
+                dimensions = normalized.length;
+            } else if (dimensions != normalized.length) {
+                throw new IllegalArgumentException("Vector dimensions mismatch, expected " + dimensions + " but got " + normalized.length);
+            }
+            Integer previous = nodeById.remove(experienceId);
+            if (previous != null) {
+                markDeleted(previous);
+            }
+            insert(experienceId, normalized);
+            rebuildIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String experienceId) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeById.remove(experienceId);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            rebuildIfSparse();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<VectorMatch> search(float[] query, int k, Predicate<String> filter) {
+        if (query == null || k <= 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || liveCount == 0) {
+                return List.of();
+            }
+            checkDimensions(normalized);
+
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedyClosest(normalized, current, level);
+            }
+            IntPredicate accept = filter == null
+                    ? node -> !deleted.get(node)
+                    : node -> !deleted.get(node) && filter.test(ids[node]);
+            List<Candidate> nearest = searchLayer(normalized, current, Math.max(efSearch, k), 0, accept);
+
+            List<VectorMatch> matches = new ArrayList<>(Math.min(k, nearest.size()));
+            for (int i = 0; i < nearest.size() && i < k; i++) {
+                Candidate candidate = nearest.get(i);
+                matches.add(new VectorMatch(ids[candidate.node], 1 - candidate.distance));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double similarity(String experienceId, float[] query) {
+        if (query == null) {
+            return Double.NaN;
+        }
+        float[] normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            Integer node = nodeById.get(experienceId);
+            if (node == null) {
+                return Double.NaN;
+            }
+            checkDimensions(normalized);
+            return dot(normalized, vectors[node]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- 构建
+
+    private void insert(String experienceId, float[] vector) {
+        int node = nodeCount++;
+        ensureCapacity(nodeCount);
+        int level = randomLevel();
+        vectors[node] = vector;
+        ids[node] = experienceId;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxConnections(l) + 1];
+        }
+        nodeById.put(experienceId, node);
+        liveCount++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l, n -> n != node && !deleted.get(n));
+            int[] neighbors = selectNeighbors(candidates, m);
+            for (int neighbor : neighbors) {
+                addLink(node, neighbor, l);
+                addLink(neighbor, node, l);
+            }
+            if (!candidates.isEmpty()) {
+                current = candidates.get(0).node;
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 启发式邻居选择：候选按距离升序，只有比已选邻居更接近当前节点的候选才会被选中，不足时用剩余最近候选补齐
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int count) {
+        List<Candidate> selected = new ArrayList<>(count);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (distance(vectors[candidate.node], vectors[chosen.node]) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < count; i++) {
+            selected.add(skipped.get(i));
+        }
+        int[] result = new int[selected.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = selected.get(i).node;
+        }
+        return result;
+    }
+
+    /**
+     * 添加单向连接，超过上限时按距离保留最近的邻居
+     */
+    private void addLink(int from, int to, int level) {
+        int[] neighbors = links[from][level];
+        int count = neighbors[0];
+        for (int i = 1; i <= count; i++) {
+            if (neighbors[i] == to) {
+                return;
+            }
+        }
+        if (count < neighbors.length - 1) {
+            neighbors[count + 1] = to;
+            neighbors[0] = count + 1;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Candidate(neighbors[i], distance(vectors[from], vectors[neighbors[i]])));
+        }
+        candidates.add(new Candidate(to, distance(vectors[from], vectors[to])));
+        candidates.sort(Comparator.comparingDouble(c -> c.distance));
+        int[] kept = selectNeighbors(candidates, neighbors.length - 1);
+        neighbors[0] = kept.length;
+        System.arraycopy(kept, 0, neighbors, 1, kept.length);
+    }
+
+    private void markDeleted(int node) {
+        deleted.set(node);
+        liveCount--;
+    }
+
+    /**
+     * 墓碑过多时用存活向量重建整张图
+     */
+    private void rebuildIfSparse() {
+        int tombstones = nodeCount - liveCount;
+        if (tombstones <= REBUILD_THRESHOLD || tombstones <= liveCount) {
+            return;
+        }
+        List<String> liveIds = new ArrayList<>(liveCount);
+        List<float[]> liveVectors = new ArrayList<>(liveCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node)) {
+                liveIds.add(ids[node]);
+                liveVectors.add(vectors[node]);
+            }
+        }
+        int capacity = Math.max(64, liveIds.size() * 2);
+        vectors = new float[capacity][];
+        ids = new String[capacity];
+        links = new int[capacity][][];
+        deleted.clear();
+        nodeById.clear();
+        nodeCount = 0;
+        liveCount = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+        for (int i = 0; i < liveIds.size(); i++) {
+            insert(liveIds.get(i), liveVectors.get(i));
+        }
+        log.debug("HnswExperienceVectorIndex#rebuildIfSparse - reason=graph rebuilt, live={}, tombstones={}", liveCount, tombstones);
+    }
+
+    // ---------------------------------------------------------------- 检索
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double currentDistance = distance(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            if (level >= links[current].length) {
+                break;
+            }
+            int[] neighbors = links[current][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                double d = distance(query, vectors[neighbor]);
+                if (d < currentDistance) {
+                    current = neighbor;
+                    currentDistance = d;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层最佳优先搜索，只有满足 accept 的节点进入结果，其余节点仅用于导航
+     *
+     * @return 按距离升序的结果，至多 ef 个
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(nodeCount);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((c1, c2) -> Double.compare(c2.distance, c1.distance));
+
+        Candidate start = new Candidate(entry, distance(query, vectors[entry]));
+        visited.set(entry);
+        frontier.add(start);
+        if (accept.test(entry)) {
+            results.add(start);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.distance > results.peek().distance) {
+                break;
+            }
+            if (level >= links[current.node].length) {
+                continue;
+            }
+            int[] neighbors = links[current.node][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double d = distance(query, vectors[neighbor]);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    frontier.add(candidate);
+                    if (accept.test(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(c -> c.distance));
+        return sorted;
+    }
+
+    // ---------------------------------------------------------------- 工具
+
+    private int randomLevel() {
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? maxConnectionsLevel0 : m;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > vectors.length) {
+            int capacity = Math.max(required, vectors.length * 2);
+            vectors = Arrays.copyOf(vectors, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+    }
+
+    private void checkDimensions(float[] query) {
+        if (dimensions >= 0 && query.length != dimensions) {
+            throw new IllegalArgumentException("Vector dimensions mismatch, expected " + dimensions + " but got " + query.length);
+        }
+    }
+
+    private static double distance(float[] a, float[] b) {
+        return 1 - dot(a, b);
+    }
+
+    /**
+     * 四路展开的点积，独立累加器便于JIT做向量化与指令并行
+     */
+    private static double dot(float[] a, float[] b) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (double) s0 + s1 + s2 + s3;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        double scale = 1 / Math.sqrt(norm);
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] * scale);
+        }
+        return normalized;
+    }
+
+    private static final class Candidate {
+
+        final int node;
+        final double distance;
+
+        Candidate(int node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+}
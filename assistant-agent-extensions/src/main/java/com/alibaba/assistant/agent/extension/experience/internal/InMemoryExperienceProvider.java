@@ -1,5 +1,6 @@
 package com.alibaba.assistant.agent.extension.experience.internal;
 
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
 import com.alibaba.assistant.agent.extension.experience.model.Experience;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
@@ -7,17 +8,28 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
 import com.alibaba.assistant.agent.extension.experience.model.*;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceScorer;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceVectorIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
  * 基于内存的经验提供者实现
  * 从InMemoryExperienceRepository读取并过滤经验数据
+ * 带文本的查询通过 {@link ExperienceScorer}（默认BM25）计算相关性并取TopK；
+ * 配置了向量索引时，分数为归一化词项分数与向量相似度的加权和，措辞不同但语义相近的经验也能命中；
+ * 配置了 {@link ExperienceUsageTracker} 时，相关性分数与 SCORE 排序再乘以经验的使用效用系数，
+ * 按更新时间排序时使用效用只在更新时间相同时决定先后；
+ * 配置了 scope 并发执行器时，各 scope 的候选查询并行下发（适合分片或远端仓库），合并后统一取TopK
  *
  * @author Assistant Agent Team
  */
@@ -27,8 +39,66 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
 
     private final ExperienceRepository experienceRepository;
 
+    private final ExperienceScorer experienceScorer;
+
+    /**
+     * 向量索引维护器，未启用向量检索时为null
+     */
+    private final ExperienceVectorIndexer vectorIndexer;
+
+    private final ExperienceExtensionProperties.VectorConfig vectorConfig;
+
+    /**
+     * 使用效用统计，未启用时为null
+     */
+    private final ExperienceUsageTracker usageTracker;
+
+    /**
+     * 多个 scope 并行查询候选时使用的执行器，为null时顺序查询
+     */
+    private final Executor scopeExecutor;
+
     public InMemoryExperienceProvider(ExperienceRepository experienceRepository) {
+        this(experienceRepository, new Bm25ExperienceScorer());
+    }
+
+    public InMemoryExperienceProvider(ExperienceRepository experienceRepository, ExperienceScorer experienceScorer) {
+        this(experienceRepository, experienceScorer, null, null, null);
+    }
+
+    public InMemoryExperienceProvider(ExperienceRepository experienceRepository, ExperienceScorer experienceScorer,
+                                      ExperienceVectorIndex vectorIndex, EmbeddingModel embeddingModel,
+                                      ExperienceExtensionProperties.VectorConfig vectorConfig) {
+        this(experienceRepository, experienceScorer, vectorIndex, embeddingModel, vectorConfig, null);
+    }
+
+    public InMemoryExperienceProvider(ExperienceRepository experienceRepository, ExperienceScorer experienceScorer,
+                                      ExperienceVectorIndex vectorIndex, EmbeddingModel embeddingModel,
+                                      ExperienceExtensionProperties.VectorConfig vectorConfig,
+                                      ExperienceUsageTracker usageTracker) {
+        this(experienceRepository, experienceScorer, vectorIndex, embeddingModel, vectorConfig, usageTracker, null);
+    }
+
+    public InMemoryExperienceProvider(ExperienceRepository experienceRepository, ExperienceScorer experienceScorer,
+                                      ExperienceVectorIndex vectorIndex, EmbeddingModel embeddingModel,
+                                      ExperienceExtensionProperties.VectorConfig vectorConfig,
+                                      ExperienceUsageTracker usageTracker, Executor scopeExecutor) {
+        this(experienceRepository, experienceScorer,
+                vectorIndex != null && embeddingModel != null
+                        ? new ExperienceVectorIndexer(experienceRepository, vectorIndex, embeddingModel) : null,
+                vectorConfig, usageTracker, scopeExecutor);
+    }
+
+    public InMemoryExperienceProvider(ExperienceRepository experienceRepository, ExperienceScorer experienceScorer,
+                                      ExperienceVectorIndexer vectorIndexer,
+                                      ExperienceExtensionProperties.VectorConfig vectorConfig,
+                                      ExperienceUsageTracker usageTracker, Executor scopeExecutor) {
         this.experienceRepository = experienceRepository;
+        this.experienceScorer = experienceScorer;
+        this.vectorIndexer = vectorIndexer;
+        this.vectorConfig = vectorConfig != null ? vectorConfig : new ExperienceExtensionProperties.VectorConfig();
+        this.usageTracker = usageTracker;
+        this.scopeExecutor = scopeExecutor;
     }
 
     @Override
@@ -41,29 +111,17 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
             return new ArrayList<>();
         }
 
-        List<Experience> candidates = new ArrayList<>();
-
         // 根据scope优先级查询
         List<ExperienceScope> scopes = determinePriorityScopes(query, context);
-
-        for (ExperienceScope scope : scopes) {
-            String ownerId = getOwnerIdForScope(scope, context);
-            String projectId = getProjectIdForScope(scope, context);
-
-            List<Experience> scopedExperiences = experienceRepository.findByTypeAndScope(
-                    query.getType(), scope, ownerId, projectId);
-
-            candidates.addAll(scopedExperiences);
-
-            log.debug("InMemoryExperienceProvider#query - reason=found {} experiences for scope={}",
-                    scopedExperiences.size(), scope);
-        }
+        List<Experience> candidates = findScopedCandidates(scopes, query, context);
 
         // 应用过滤条件
         List<Experience> filtered = applyFilters(candidates, query, context);
 
-        // 排序和限制数量
-        List<Experience> results = applySortingAndLimit(filtered, query);
+        // 有文本时按相关性取TopK，否则排序和限制数量
+        List<Experience> results = StringUtils.hasText(query.getText())
+                ? rankByRelevance(filtered, query)
+                : applySortingAndLimit(filtered, query);
 
         log.info("InMemoryExperienceProvider#query - reason=query completed, found {} experiences after filtering",
                 results.size());
@@ -71,6 +129,55 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
         return results;
     }
 
+    /**
+     * 按scope优先级查询候选：配置了执行器且scope多于一个时并行下发，结果仍按scope优先级顺序拼接
+     */
+    private List<Experience> findScopedCandidates(List<ExperienceScope> scopes, ExperienceQuery query,
+                                                  ExperienceQueryContext context) {
+        String language = resolveLanguage(query, context);
+        // 基于词项的打分器只会给共享词项的经验打分，文本条件可以下推到仓库缩小候选集；向量检索需要完整候选集
+        String candidateText = experienceScorer.isTermBased() && vectorIndexer == null ? query.getText() : null;
+
+        List<Experience> candidates = new ArrayList<>();
+        if (scopeExecutor == null || scopes.size() <= 1) {
+            for (ExperienceScope scope : scopes) {
+                candidates.addAll(findScopeCandidates(scope, query, context, language, candidateText));
+            }
+            return candidates;
+        }
+
+        List<CompletableFuture<List<Experience>>> futures = new ArrayList<>(scopes.size());
+        for (ExperienceScope scope : scopes) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> findScopeCandidates(scope, query, context, language, candidateText), scopeExecutor));
+        }
+        try {
+            for (CompletableFuture<List<Experience>> future : futures) {
+                candidates.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            // 保持与顺序查询一致的异常形态
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return candidates;
+    }
+
+    private List<Experience> findScopeCandidates(ExperienceScope scope, ExperienceQuery query,
+                                                 ExperienceQueryContext context, String language, String candidateText) {
+        String ownerId = getOwnerIdForScope(scope, context);
+        String projectId = getProjectIdForScope(scope, context);
+
+        List<Experience> scopedExperiences = experienceRepository.findCandidates(
+                query.getType(), scope, ownerId, projectId, language, query.getTags(), candidateText);
+
+        log.debug("InMemoryExperienceProvider#query - reason=found {} experiences for scope={}",
+                scopedExperiences.size(), scope);
+        return scopedExperiences;
+    }
+
     /**
      * 根据查询条件和上下文确定scope优先级
      */
@@ -140,19 +247,26 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
         return experiences.stream()
                 .filter(experience -> matchesLanguage(experience, query, context))
                 .filter(experience -> matchesTags(experience, query))
-                .filter(experience -> matchesText(experience, query))
                 .distinct() // 去重，可能同一经验在不同scope下被找到
                 .collect(Collectors.toList());
     }
 
     /**
-     * 语言匹配检查
+     * 查询语言：优先使用query指定的语言，否则取上下文语言
      */
-    private boolean matchesLanguage(Experience experience, ExperienceQuery query, ExperienceQueryContext context) {
+    private String resolveLanguage(ExperienceQuery query, ExperienceQueryContext context) {
         String queryLanguage = query.getLanguage();
         if (!StringUtils.hasText(queryLanguage) && context != null) {
             queryLanguage = context.getLanguage();
         }
+        return queryLanguage;
+    }
+
+    /**
+     * 语言匹配检查
+     */
+    private boolean matchesLanguage(Experience experience, ExperienceQuery query, ExperienceQueryContext context) {
+        String queryLanguage = resolveLanguage(query, context);
 
         if (!StringUtils.hasText(queryLanguage)) {
             return true; // 没有语言限制
@@ -185,58 +299,118 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
     }
 
     /**
-     * 文本匹配检查 (基于子串匹配数量)
+     * 按相关性取TopK：每条候选只打分一次，分数为0的视为不匹配，同分时保持候选顺序
      */
-    private boolean matchesText(Experience experience, ExperienceQuery query) {
-        String queryText = query.getText();
-        if (!StringUtils.hasText(queryText)) {
-            return true; // 没有文本限制
+    private List<Experience> rankByRelevance(List<Experience> experiences, ExperienceQuery query) {
+        int limit = query.getLimit();
+        if (limit <= 0 || experiences.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        double[] lexicalScores = experienceScorer.score(query.getText(), experiences);
+        double[] scores = vectorIndexer != null
+                ? hybridScores(lexicalScores, vectorSimilarities(query, experiences))
+                : lexicalScores;
+        if (usageTracker != null) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] *= usageTracker.rankingFactor(experiences.get(i).getId());
+            }
         }
 
-        String content = experience.getContent();
-        if (!StringUtils.hasText(content)) {
-            return false;
+        // 小顶堆，堆顶为当前TopK中最差的一条
+        Comparator<Integer> worstFirst = (i1, i2) -> {
+            int byScore = Double.compare(scores[i1], scores[i2]);
+            return byScore != 0 ? byScore : Integer.compare(i2, i1);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, experiences.size()) + 1, worstFirst);
+        for (int i = 0; i < experiences.size(); i++) {
+            if (scores[i] <= 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.offer(i);
+            } else if (worstFirst.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(i);
+            }
         }
 
-        // 只要有任意子串匹配，就认为匹配（由排序决定相关性）
-        return calculateMatchScore(content, queryText) > 0;
+        Integer[] ranked = heap.toArray(new Integer[0]);
+        Arrays.sort(ranked, worstFirst.reversed());
+        List<Experience> results = new ArrayList<>(ranked.length);
+        for (Integer index : ranked) {
+            results.add(experiences.get(index));
+        }
+        return results;
     }
 
     /**
-     * 计算匹配分数：queryText的所有子串在content中出现的次数总和
+     * 混合分数：词项分数按本次最大值归一化后与向量相似度加权求和，相似度低于阈值的不计入
      */
-    private int calculateMatchScore(String content, String queryText) {
-        if (!StringUtils.hasText(content) || !StringUtils.hasText(queryText)) {
-            return 0;
+    private double[] hybridScores(double[] lexicalScores, double[] similarities) {
+        double maxLexical = 0;
+        for (double score : lexicalScores) {
+            maxLexical = Math.max(maxLexical, score);
         }
-
-        String lowerContent = content.toLowerCase();
-        String lowerQuery = queryText.toLowerCase();
-        int n = lowerQuery.length();
-
-        // 如果查询词过短，直接全匹配
-        if (n < 2) {
-            return lowerContent.contains(lowerQuery) ? 1 : 0;
+        double lexicalWeight = Math.min(1, Math.max(0, vectorConfig.getLexicalWeight()));
+        double[] scores = new double[lexicalScores.length];
+        for (int i = 0; i < scores.length; i++) {
+            double lexical = maxLexical > 0 ? lexicalScores[i] / maxLexical : 0;
+            double similarity = similarities[i] >= vectorConfig.getMinSimilarity() ? similarities[i] : 0;
+            scores[i] = lexicalWeight * lexical + (1 - lexicalWeight) * similarity;
         }
+        return scores;
+    }
 
-        int score = 0;
-        // 生成所有长度>=2的子串
-        for (int len = 2; len <= n; len++) {
-            for (int i = 0; i <= n - len; i++) {
-                String sub = lowerQuery.substring(i, i + len);
-                if (lowerContent.contains(sub)) {
-                    score++;
+    /**
+     * 计算候选经验与查询文本的向量相似度：候选较少时逐条精确计算，否则在HNSW中做带过滤的近似检索；
+     * 尚未写入索引的候选交给索引维护器，本次查询中相似度按0计，只参与词项排序
+     */
+    private double[] vectorSimilarities(ExperienceQuery query, List<Experience> experiences) {
+        double[] similarities = new double[experiences.size()];
+        try {
+            vectorIndexer.refresh(experiences);
+            ExperienceVectorIndex vectorIndex = vectorIndexer.getVectorIndex();
+            float[] queryVector = vectorIndexer.embedQuery(query.getText());
+
+            if (experiences.size() <= vectorConfig.getExactSearchThreshold()) {
+                for (int i = 0; i < experiences.size(); i++) {
+                    double similarity = vectorIndex.similarity(experiences.get(i).getId(), queryVector);
+                    similarities[i] = Double.isNaN(similarity) ? 0 : similarity;
                 }
+                return similarities;
             }
+
+            Map<String, Integer> positions = new HashMap<>(experiences.size() * 2);
+            for (int i = 0; i < experiences.size(); i++) {
+                positions.putIfAbsent(experiences.get(i).getId(), i);
+            }
+            // 多取一些近邻，给词项分数较高的候选留出融合空间
+            int k = Math.min(experiences.size(), Math.max(query.getLimit(), 1) * 4);
+            for (ExperienceVectorIndex.VectorMatch match : vectorIndex.search(queryVector, k, positions::containsKey)) {
+                similarities[positions.get(match.experienceId())] = match.similarity();
+            }
+        } catch (Exception e) {
+            // fail-open: 向量检索失败时退化为纯词项排序
+            log.warn("InMemoryExperienceProvider#vectorSimilarities - reason=vector retrieval failed, fallback to lexical scores, error={}",
+                    e.getMessage());
+            Arrays.fill(similarities, 0);
         }
-        return score;
+        return similarities;
     }
 
     /**
      * 应用排序和数量限制
      */
     private List<Experience> applySortingAndLimit(List<Experience> experiences, ExperienceQuery query) {
+        if (query.getOrderBy() == ExperienceQuery.OrderBy.SCORE) {
+            return sortByScore(experiences, query.getLimit());
+        }
         Comparator<Experience> comparator = getComparator(query);
+        if (usageTracker != null && query.getOrderBy() == ExperienceQuery.OrderBy.UPDATED_AT) {
+            comparator = comparator.thenComparing(
+                    Comparator.comparingDouble((Experience e) -> usageTracker.rankingFactor(e.getId())).reversed());
+        }
 
         return experiences.stream()
                 .sorted(comparator)
@@ -245,26 +419,34 @@ public class InMemoryExperienceProvider implements ExperienceProvider {
     }
 
     /**
-     * 获取排序比较器
+     * 按置信度（缺省0.5）乘以使用效用系数排序，分数相同按更新时间倒序
      */
-    private Comparator<Experience> getComparator(ExperienceQuery query) {
-        // 如果有文本查询，优先按匹配数量排序
-        if (StringUtils.hasText(query.getText())) {
-            String queryText = query.getText();
-            return (e1, e2) -> {
-                int score1 = calculateMatchScore(e1.getContent(), queryText);
-                int score2 = calculateMatchScore(e2.getContent(), queryText);
-
-                // 降序排列
-                return Integer.compare(score2, score1);
-            };
+    private List<Experience> sortByScore(List<Experience> experiences, int limit) {
+        Map<Experience, Double> scores = new IdentityHashMap<>(experiences.size());
+        for (Experience experience : experiences) {
+            Double confidence = experience.getMetadata() != null ? experience.getMetadata().getConfidence() : null;
+            double score = confidence != null ? confidence : 0.5;
+            if (usageTracker != null) {
+                score *= usageTracker.rankingFactor(experience.getId());
+            }
+            scores.put(experience, score);
         }
+        Comparator<Experience> byScore = Comparator.comparingDouble(scores::get);
+        Comparator<Experience> byUpdatedAt = Comparator.comparing(Experience::getUpdatedAt);
+        return experiences.stream()
+                .sorted(byScore.thenComparing(byUpdatedAt).reversed())
+                .limit(Math.max(0, limit))
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * 获取排序比较器
+     */
+    private Comparator<Experience> getComparator(ExperienceQuery query) {
         return switch (query.getOrderBy()) {
             case CREATED_AT -> (e1, e2) -> e2.getCreatedAt().compareTo(e1.getCreatedAt());
             case UPDATED_AT -> (e1, e2) -> e2.getUpdatedAt().compareTo(e1.getUpdatedAt());
             case SCORE ->
-                // TODO: 实现基于置信度的评分排序
                     (e1, e2) -> {
                         Double score1 = e1.getMetadata().getConfidence();
                         Double score2 = e2.getMetadata().getConfidence();
@@ -10,6 +10,7 @@ import org.springframework.util.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +28,8 @@ public class InMemoryExperienceRepository implements ExperienceRepository {
      */
     private final Map<String, Experience> experienceStore = new ConcurrentHashMap<>();
 
+    private final AtomicLong generation = new AtomicLong();
+
     @Override
     public Experience save(Experience experience) {
         log.debug("InMemoryExperienceRepository#save - reason=start saving experience id={}", experience.getId());
@@ -41,6 +44,7 @@ public class InMemoryExperienceRepository implements ExperienceRepository {
 
         // 保存到内存
         experienceStore.put(experience.getId(), experience);
+        generation.incrementAndGet();
 
         log.info("InMemoryExperienceRepository#save - reason=experience saved successfully, id={}, type={}",
                 experience.getId(), experience.getType());
@@ -86,6 +90,9 @@ public class InMemoryExperienceRepository implements ExperienceRepository {
 
         Experience removed = experienceStore.remove(id);
         boolean success = removed != null;
+        if (success) {
+            generation.incrementAndGet();
+        }
 
         log.info("InMemoryExperienceRepository#deleteById - reason=delete operation completed, id={}, success={}",
                 id, success);
@@ -151,4 +158,9 @@ public class InMemoryExperienceRepository implements ExperienceRepository {
 
         return count;
     }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
 }
@@ -0,0 +1,681 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 基于倒排索引的内存经验仓库实现
+ *
+ * <p>查询语义与 {@link InMemoryExperienceRepository} 一致（按更新时间倒序），但不再全量扫描：
+ * <ul>
+ *   <li>按 type、scope、ownerId、projectId、language、tag 维护倒排表（posting list）</li>
+ *   <li>对 title 与 content 按 {@link ExperienceTokenizer} 切词（中文二元组、英文单词），维护文本倒排表</li>
+ * </ul>
+ * ownerId / projectId 即经验的租户维度，查询变为倒排表求交，只对命中的经验排序。
+ *
+ * <p>每条经验在写入时分配递增序号，倒排表天然有序；save 时先废弃旧序号再分配新序号，
+ * delete 只做墓碑标记，倒排表中废弃条目过半时就地压缩，全局墓碑过多时整体重编号。
+ * 索引字段在 save 时冻结，经验对象保存后被外部修改需重新 save 才会反映到索引中。
+ *
+ * @author Assistant Agent Team
+ */
+public class IndexedExperienceRepository implements ExperienceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexedExperienceRepository.class);
+
+    /**
+     * 全局墓碑数超过该值且超过存活数时整体重编号
+     */
+    private static final int RENUMBER_THRESHOLD = 1024;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+
+    /**
+     * 按序号存放的索引条目，已删除的位置为 null
+     */
+    private IndexedEntry[] entries = new IndexedEntry[64];
+    private int nextOrdinal;
+    private int liveCount;
+
+    private final Map<ExperienceType, PostingList> typeIndex = new EnumMap<>(ExperienceType.class);
+    private final Map<ExperienceScope, PostingList> scopeIndex = new EnumMap<>(ExperienceScope.class);
+    private final Map<String, PostingList> ownerIndex = new HashMap<>();
+    private final Map<String, PostingList> projectIndex = new HashMap<>();
+    private final Map<String, PostingList> languageIndex = new HashMap<>();
+    private final Map<String, PostingList> tagIndex = new HashMap<>();
+    private final Map<String, PostingList> termIndex = new HashMap<>();
+
+    /**
+     * 没有语言限制的经验（对任意查询语言都匹配）
+     */
+    private final PostingList noLanguage = new PostingList();
+
+    @Override
+    public Experience save(Experience experience) {
+        if (experience == null) {
+            log.warn("IndexedExperienceRepository#save - reason=experience is null, skip saving");
+            throw new IllegalArgumentException("Experience cannot be null");
+        }
+        log.debug("IndexedExperienceRepository#save - reason=start saving experience id={}", experience.getId());
+
+        // 更新时间戳
+        experience.touch();
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = ordinalById.get(experience.getId());
+            if (previous != null) {
+                remove(previous);
+            }
+            index(new IndexedEntry(experience, nextOrdinal, tokenize(experience)));
+            renumberIfSparse();
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("IndexedExperienceRepository#save - reason=experience saved successfully, id={}, type={}",
+                experience.getId(), experience.getType());
+
+        return experience;
+    }
+
+    @Override
+    public List<Experience> batchSave(Collection<Experience> experiences) {
+        log.debug("IndexedExperienceRepository#batchSave - reason=start batch saving {} experiences",
+                experiences != null ? experiences.size() : 0);
+
+        if (experiences == null || experiences.isEmpty()) {
+            log.warn("IndexedExperienceRepository#batchSave - reason=experiences collection is empty");
+            return new ArrayList<>();
+        }
+
+        List<Experience> savedExperiences = new ArrayList<>();
+        for (Experience experience : experiences) {
+            try {
+                savedExperiences.add(save(experience));
+            } catch (Exception e) {
+                log.error("IndexedExperienceRepository#batchSave - reason=failed to save experience id={}",
+                        experience != null ? experience.getId() : "null", e);
+                // 继续保存其他经验
+            }
+        }
+
+        log.info("IndexedExperienceRepository#batchSave - reason=batch save completed, saved={}/{}",
+                savedExperiences.size(), experiences.size());
+
+        return savedExperiences;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        log.debug("IndexedExperienceRepository#deleteById - reason=start deleting experience id={}", id);
+
+        if (!StringUtils.hasText(id)) {
+            log.warn("IndexedExperienceRepository#deleteById - reason=id is null or empty");
+            return false;
+        }
+
+        boolean success;
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            success = ordinal != null;
+            if (success) {
+                remove(ordinal);
+                renumberIfSparse();
+                generation.incrementAndGet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("IndexedExperienceRepository#deleteById - reason=delete operation completed, id={}, success={}",
+                id, success);
+
+        return success;
+    }
+
+    @Override
+    public Optional<Experience> findById(String id) {
+        if (!StringUtils.hasText(id)) {
+            log.warn("IndexedExperienceRepository#findById - reason=id is null or empty");
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            return ordinal != null ? Optional.of(entries[ordinal].experience) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Experience> findByTypeAndScope(ExperienceType type, ExperienceScope scope, String ownerId, String projectId) {
+        return findCandidates(type, scope, ownerId, projectId, null, null, null);
+    }
+
+    /**
+     * 在索引上直接完成语言、标签过滤，并用文本倒排表缩小候选集
+     *
+     * <p>语言与标签过滤和 {@link InMemoryExperienceProvider} 的语义一致；文本条件返回标题或内容
+     * 与查询至少共享一个词项的经验，即基于词项的打分器（如BM25）可能得分的全部经验。
+     */
+    @Override
+    public List<Experience> findCandidates(ExperienceType type, ExperienceScope scope, String ownerId, String projectId,
+                                           String language, Set<String> tags, String text) {
+        log.debug("IndexedExperienceRepository#findCandidates - reason=start finding experiences type={}, scope={}, ownerId={}, projectId={}",
+                type, scope, ownerId, projectId);
+
+        List<IndexedEntry> matched = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int ordinal : match(type, scope, ownerId, projectId, language, tags, text)) {
+                matched.add(entries[ordinal]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 按更新时间倒序
+        matched.sort((e1, e2) -> e2.updatedAt.compareTo(e1.updatedAt));
+        List<Experience> results = new ArrayList<>(matched.size());
+        for (IndexedEntry entry : matched) {
+            results.add(entry.experience);
+        }
+
+        log.debug("IndexedExperienceRepository#findCandidates - reason=find completed, found {} experiences",
+                results.size());
+
+        return results;
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countByTypeAndScope(ExperienceType type, ExperienceScope scope) {
+        lock.readLock().lock();
+        try {
+            if (type == null && scope == null) {
+                return liveCount;
+            }
+            if (type == null || scope == null) {
+                PostingList list = type != null ? typeIndex.get(type) : scopeIndex.get(scope);
+                return list != null ? list.live() : 0;
+            }
+            return match(type, scope, null, null, null, null, null).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
+
+    // ---------------------------------------------------------------- 查询
+
+    /**
+     * 求交：精确维度（type/scope/owner/project）按有序倒排表逐个求交，
+     * 并集维度（语言、标签、文本）按代价选择位图过滤或逐条校验
+     */
+    private int[] match(ExperienceType type, ExperienceScope scope, String ownerId, String projectId,
+                        String language, Set<String> tags, String text) {
+        List<PostingList> required = new ArrayList<>(4);
+        if ((type != null && !addRequired(required, typeIndex.get(type)))
+                || (scope != null && !addRequired(required, scopeIndex.get(scope)))
+                || (ownerId != null && !addRequired(required, ownerIndex.get(ownerId)))
+                || (projectId != null && !addRequired(required, projectIndex.get(projectId)))) {
+            return EMPTY;
+        }
+
+        List<UnionFilter> filters = new ArrayList<>(3);
+        if (StringUtils.hasText(language)) {
+            String key = language.toLowerCase(Locale.ROOT);
+            filters.add(new UnionFilter(
+                    listsOf(noLanguage, languageIndex.get(key)),
+                    entry -> entry.languageKey == null || entry.languageKey.equals(key)));
+        }
+        if (!CollectionUtils.isEmpty(tags)) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String tag : tags) {
+                addIfPresent(lists, tagIndex.get(tag));
+            }
+            filters.add(new UnionFilter(lists, entry -> entry.hasAnyTag(tags)));
+        }
+        String[] queryTerms = StringUtils.hasText(text) ? terms(text) : new String[0];
+        if (queryTerms.length > 0) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String term : queryTerms) {
+                addIfPresent(lists, termIndex.get(term));
+            }
+            filters.add(new UnionFilter(lists, entry -> entry.hasAnyTerm(queryTerms)));
+        }
+        for (UnionFilter filter : filters) {
+            if (filter.lists.isEmpty()) {
+                return EMPTY;
+            }
+        }
+
+        int[] candidates;
+        if (!required.isEmpty()) {
+            candidates = intersect(required);
+        } else if (!filters.isEmpty()) {
+            UnionFilter smallest = Collections.min(filters, Comparator.comparingLong(UnionFilter::cost));
+            filters.remove(smallest);
+            candidates = toSortedArray(smallest.bitmap(this));
+        } else {
+            candidates = allLive();
+        }
+
+        for (UnionFilter filter : filters) {
+            if (candidates.length == 0) {
+                break;
+            }
+            candidates = filter.apply(this, candidates);
+        }
+        return candidates;
+    }
+
+    private static boolean addRequired(List<PostingList> required, PostingList list) {
+        if (list == null || list.live() == 0) {
+            return false;
+        }
+        required.add(list);
+        return true;
+    }
+
+    private static void addIfPresent(List<PostingList> lists, PostingList list) {
+        if (list != null && list.live() > 0) {
+            lists.add(list);
+        }
+    }
+
+    private static List<PostingList> listsOf(PostingList... candidates) {
+        List<PostingList> lists = new ArrayList<>(candidates.length);
+        for (PostingList list : candidates) {
+            addIfPresent(lists, list);
+        }
+        return lists;
+    }
+
+    /**
+     * 从最短的倒排表出发，依次与其余倒排表求交（跳跃查找）
+     */
+    private int[] intersect(List<PostingList> lists) {
+        lists.sort(Comparator.comparingInt(PostingList::live));
+        PostingList smallest = lists.get(0);
+        int[] result = new int[smallest.live()];
+        int size = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            int ordinal = smallest.ordinals[i];
+            if (entries[ordinal] != null) {
+                result[size++] = ordinal;
+            }
+        }
+        for (int l = 1; l < lists.size() && size > 0; l++) {
+            PostingList other = lists.get(l);
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < size; i++) {
+                int position = other.seek(result[i], from);
+                if (position < other.size && other.ordinals[position] == result[i]) {
+                    result[kept++] = result[i];
+                }
+                from = position;
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private int[] allLive() {
+        int[] result = new int[liveCount];
+        int size = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (entries[ordinal] != null) {
+                result[size++] = ordinal;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static int[] toSortedArray(BitSet bitmap) {
+        return bitmap.stream().toArray();
+    }
+
+    // ---------------------------------------------------------------- 写入
+
+    private void index(IndexedEntry entry) {
+        int ordinal = entry.ordinal;
+        if (ordinal == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[ordinal] = entry;
+        nextOrdinal = ordinal + 1;
+        liveCount++;
+        ordinalById.put(entry.experience.getId(), ordinal);
+
+        forEachList(entry, true, list -> list.add(ordinal));
+    }
+
+    private void remove(int ordinal) {
+        IndexedEntry entry = entries[ordinal];
+        entries[ordinal] = null;
+        liveCount--;
+        ordinalById.remove(entry.experience.getId());
+
+        forEachList(entry, false, list -> {
+            list.dead++;
+            if (list.dead * 2 > list.size) {
+                list.compact(entries);
+            }
+        });
+    }
+
+    /**
+     * 遍历条目所在的全部倒排表；create 为 true 时按需创建
+     */
+    private void forEachList(IndexedEntry entry, boolean create, Consumer<PostingList> action) {
+        if (entry.type != null) {
+            apply(typeIndex, entry.type, create, action);
+        }
+        if (entry.scope != null) {
+            apply(scopeIndex, entry.scope, create, action);
+        }
+        if (entry.ownerId != null) {
+            apply(ownerIndex, entry.ownerId, create, action);
+        }
+        if (entry.projectId != null) {
+            apply(projectIndex, entry.projectId, create, action);
+        }
+        if (entry.languageKey != null) {
+            apply(languageIndex, entry.languageKey, create, action);
+        } else {
+            action.accept(noLanguage);
+        }
+        for (String tag : entry.tags) {
+            apply(tagIndex, tag, create, action);
+        }
+        for (String term : entry.terms) {
+            apply(termIndex, term, create, action);
+        }
+    }
+
+    private static <K> void apply(Map<K, PostingList> index, K key, boolean create,
+                                  Consumer<PostingList> action) {
+        PostingList list = create ? index.computeIfAbsent(key, k -> new PostingList()) : index.get(key);
+        if (list == null) {
+            return;
+        }
+        action.accept(list);
+        if (!create && list.live() == 0) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * 墓碑过多时按原顺序重新分配序号并重建倒排表
+     */
+    private void renumberIfSparse() {
+        int tombstones = nextOrdinal - liveCount;
+        if (tombstones <= RENUMBER_THRESHOLD || tombstones <= liveCount) {
+            return;
+        }
+        List<IndexedEntry> live = new ArrayList<>(liveCount);
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (entries[ordinal] != null) {
+                live.add(entries[ordinal]);
+            }
+        }
+        entries = new IndexedEntry[Math.max(64, Integer.highestOneBit(Math.max(1, live.size())) * 2)];
+        nextOrdinal = 0;
+        liveCount = 0;
+        ordinalById.clear();
+        typeIndex.clear();
+        scopeIndex.clear();
+        ownerIndex.clear();
+        projectIndex.clear();
+        languageIndex.clear();
+        tagIndex.clear();
+        termIndex.clear();
+        noLanguage.clear();
+        for (IndexedEntry entry : live) {
+            index(entry.withOrdinal(nextOrdinal));
+        }
+        log.debug("IndexedExperienceRepository#renumberIfSparse - reason=index renumbered, live={}, tombstones={}",
+                liveCount, tombstones);
+    }
+
+    // ---------------------------------------------------------------- 切词
+
+    private static String[] tokenize(Experience experience) {
+        Set<String> terms = new HashSet<>(ExperienceTokenizer.tokenize(experience.getTitle()));
+        terms.addAll(ExperienceTokenizer.tokenize(experience.getContent()));
+        return sorted(terms);
+    }
+
+    /**
+     * 查询词项，去重并升序
+     */
+    static String[] terms(String text) {
+        return sorted(new HashSet<>(ExperienceTokenizer.tokenize(text)));
+    }
+
+    private static String[] sorted(Set<String> terms) {
+        String[] values = terms.toArray(new String[0]);
+        Arrays.sort(values);
+        return values;
+    }
+
+    // ---------------------------------------------------------------- 内部结构
+
+    /**
+     * 保存时冻结的索引字段
+     */
+    private static final class IndexedEntry {
+
+        final Experience experience;
+        final int ordinal;
+        final ExperienceType type;
+        final ExperienceScope scope;
+        final String ownerId;
+        final String projectId;
+        final String languageKey;
+        final Set<String> tags;
+        final String[] terms;
+        final Instant updatedAt;
+
+        IndexedEntry(Experience experience, int ordinal, String[] terms) {
+            this.experience = experience;
+            this.ordinal = ordinal;
+            this.type = experience.getType();
+            this.scope = experience.getScope();
+            this.ownerId = experience.getOwnerId();
+            this.projectId = experience.getProjectId();
+            this.languageKey = StringUtils.hasText(experience.getLanguage())
+                    ? experience.getLanguage().toLowerCase(Locale.ROOT) : null;
+            this.tags = experience.getTags() != null ? Set.copyOf(experience.getTags()) : Set.of();
+            this.terms = terms;
+            this.updatedAt = experience.getUpdatedAt();
+        }
+
+        private IndexedEntry(IndexedEntry source, int ordinal) {
+            this.experience = source.experience;
+            this.ordinal = ordinal;
+            this.type = source.type;
+            this.scope = source.scope;
+            this.ownerId = source.ownerId;
+            this.projectId = source.projectId;
+            this.languageKey = source.languageKey;
+            this.tags = source.tags;
+            this.terms = source.terms;
+            this.updatedAt = source.updatedAt;
+        }
+
+        IndexedEntry withOrdinal(int newOrdinal) {
+            return new IndexedEntry(this, newOrdinal);
+        }
+
+        boolean hasAnyTag(Set<String> queryTags) {
+            for (String tag : queryTags) {
+                if (tags.contains(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean hasAnyTerm(String[] queryTerms) {
+            for (String term : queryTerms) {
+                if (Arrays.binarySearch(terms, term) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 升序序号列表，删除时只计数，废弃过半时压缩
+     */
+    private static final class PostingList {
+
+        int[] ordinals = new int[4];
+        int size;
+        int dead;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        int live() {
+            return size - dead;
+        }
+
+        /**
+         * 第一个不小于 ordinal 的位置（从 from 开始指数跳跃后二分）
+         */
+        int seek(int ordinal, int from) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ordinals[high] < ordinal) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            int position = Arrays.binarySearch(ordinals, low, high, ordinal);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        void compact(IndexedEntry[] entries) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = ordinals[i];
+                if (entries[ordinal] != null) {
+                    ordinals[kept++] = ordinal;
+                }
+            }
+            size = kept;
+            dead = 0;
+            if (ordinals.length > 16 && size * 4 < ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(4, size * 2));
+            }
+        }
+
+        void clear() {
+            ordinals = new int[4];
+            size = 0;
+            dead = 0;
+        }
+    }
+
+    /**
+     * 并集维度过滤：候选较少时逐条校验冻结字段，否则把倒排表合并为位图
+     */
+    private static final class UnionFilter {
+
+        final List<PostingList> lists;
+        final Predicate<IndexedEntry> verifier;
+
+        UnionFilter(List<PostingList> lists, Predicate<IndexedEntry> verifier) {
+            this.lists = lists;
+            this.verifier = verifier;
+        }
+
+        long cost() {
+            long cost = 0;
+            for (PostingList list : lists) {
+                cost += list.size;
+            }
+            return cost;
+        }
+
+        BitSet bitmap(IndexedExperienceRepository repository) {
+            BitSet bitmap = new BitSet(repository.nextOrdinal);
+            for (PostingList list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    int ordinal = list.ordinals[i];
+                    if (repository.entries[ordinal] != null) {
+                        bitmap.set(ordinal);
+                    }
+                }
+            }
+            return bitmap;
+        }
+
+        int[] apply(IndexedExperienceRepository repository, int[] candidates) {
+            int kept = 0;
+            if (candidates.length < cost()) {
+                for (int ordinal : candidates) {
+                    if (verifier.test(repository.entries[ordinal])) {
+                        candidates[kept++] = ordinal;
+                    }
+                }
+            } else {
+                BitSet bitmap = bitmap(repository);
+                for (int ordinal : candidates) {
+                    if (bitmap.get(ordinal)) {
+                        candidates[kept++] = ordinal;
+                    }
+                }
+            }
+            return Arrays.copyOf(candidates, kept);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的经验偏移索引：堆外开放寻址哈希表，id → 记录位置
+ *
+ * <p>索引内容放在映射文件中，不占用堆内存，也不会给GC带来百万级小对象。每个槽位32字节：
+ * {@code [long id哈希][long 记录位置][int 记录长度][byte 状态][byte type][byte scope][byte 保留][int ownerId哈希][int projectId哈希]}，
+ * 线性探测，删除留下墓碑，装载率超过阈值时重建到更大的文件。64位哈希相同的槽位由调用方通过 {@link SlotMatcher}
+ * 回查日志确认，因此哈希冲突不会导致误命中。
+ *
+ * <p>索引是日志的派生数据：文件头记录已覆盖的日志位置以及是否正常关闭，只有正常关闭的索引才会在下次启动时复用
+ * （只回放之后的日志尾部），否则从日志整体重建。非线程安全，由调用方加锁。
+ *
+ * @author Assistant Agent Team
+ */
+final class MappedOffsetIndex implements Closeable {
+
+    private static final long MAGIC = 0x4141455849445831L; // "AAEXIDX1"
+
+    static final int HEADER_SIZE = 64;
+
+    static final int SLOT_SIZE = 32;
+
+    static final int MIN_CAPACITY = 1024;
+
+    static final int MAX_CAPACITY = 1 << 25;
+
+    private static final double MAX_LOAD = 0.7;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    // 文件头字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_SCHEMA = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_SIZE = 16;
+    private static final int H_DELETED = 20;
+    private static final int H_CLEAN = 24;
+    private static final int H_COVERED_END = 32;
+    private static final int H_LIVE_BYTES = 40;
+
+    // 槽位字段偏移
+    private static final int S_HASH = 0;
+    private static final int S_OFFSET = 8;
+    private static final int S_LENGTH = 16;
+    private static final int S_STATE = 20;
+    private static final int S_TYPE = 21;
+    private static final int S_SCOPE = 22;
+    private static final int S_OWNER = 24;
+    private static final int S_PROJECT = 28;
+
+    private Path path;
+    private final int schema;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private int deleted;
+
+    private MappedOffsetIndex(Path path, int schema, MappedByteBuffer buffer) {
+        this.path = path;
+        this.schema = schema;
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(H_CAPACITY);
+        this.size = buffer.getInt(H_SIZE);
+        this.deleted = buffer.getInt(H_DELETED);
+    }
+
+    /**
+     * 创建空索引，已存在的文件会被覆盖
+     */
+    static MappedOffsetIndex create(Path path, int schema, int expectedEntries) throws IOException {
+        return new MappedOffsetIndex(path, schema, allocate(path, schema, capacityFor(expectedEntries)));
+    }
+
+    /**
+     * 打开上次正常关闭的索引并标记为使用中；文件不存在、格式不符或未正常关闭时返回null
+     */
+    static MappedOffsetIndex openClean(Path path, int schema) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE) {
+            return null;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            int capacity = buffer.getInt(H_CAPACITY);
+            boolean valid = buffer.getLong(H_MAGIC) == MAGIC
+                    && buffer.getInt(H_SCHEMA) == schema
+                    && buffer.get(H_CLEAN) == 1
+                    && Integer.bitCount(capacity) == 1 && capacity <= MAX_CAPACITY
+                    && fileSize == HEADER_SIZE + (long) capacity * SLOT_SIZE;
+            if (!valid) {
+                return null;
+            }
+        }
+        buffer.put(H_CLEAN, (byte) 0);
+        buffer.force();
+        return new MappedOffsetIndex(path, schema, buffer);
+    }
+
+    /**
+     * id 的64位哈希（FNV-1a + 混淆），持久化在索引中，因此必须稳定
+     */
+    static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long liveBytes() {
+        return buffer.getLong(H_LIVE_BYTES);
+    }
+
+    long coveredEnd() {
+        return buffer.getLong(H_COVERED_END);
+    }
+
+    void setCoveredEnd(long coveredEnd) {
+        buffer.putLong(H_COVERED_END, coveredEnd);
+    }
+
+    /**
+     * 查找槽位
+     *
+     * @return 槽位号，不存在返回-1
+     */
+    int find(long hash, SlotMatcher matcher) {
+        int mask = capacity - 1;
+        for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+            int base = base(slot);
+            byte state = buffer.get(base + S_STATE);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == LIVE && buffer.getLong(base + S_HASH) == hash
+                    && matcher.matches(buffer.getLong(base + S_OFFSET), buffer.getInt(base + S_LENGTH))) {
+                return slot;
+            }
+        }
+    }
+
+    long offset(int slot) {
+        return buffer.getLong(base(slot) + S_OFFSET);
+    }
+
+    int length(int slot) {
+        return buffer.getInt(base(slot) + S_LENGTH);
+    }
+
+    /**
+     * 写入或覆盖一条索引
+     *
+     * @return 被覆盖记录的长度，新增时返回0
+     */
+    int put(long hash, SlotMatcher matcher, long offset, int length, byte type, byte scope, int ownerHash,
+            int projectHash) throws IOException {
+        int existing = find(hash, matcher);
+        if (existing >= 0) {
+            int previous = length(existing);
+            write(existing, hash, offset, length, type, scope, ownerHash, projectHash);
+            addLiveBytes(length - previous);
+            return previous;
+        }
+        if (size + deleted + 1 > capacity * MAX_LOAD) {
+            rehash(capacityFor(size + 1));
+        }
+        insert(hash, offset, length, type, scope, ownerHash, projectHash);
+        return 0;
+    }
+
+    /**
+     * 删除一条索引
+     *
+     * @return 被删除记录的长度，不存在返回-1
+     */
+    int remove(long hash, SlotMatcher matcher) {
+        int slot = find(hash, matcher);
+        if (slot < 0) {
+            return -1;
+        }
+        int previous = length(slot);
+        buffer.put(base(slot) + S_STATE, DELETED);
+        size--;
+        deleted++;
+        buffer.putInt(H_SIZE, size).putInt(H_DELETED, deleted);
+        addLiveBytes(-previous);
+        return previous;
+    }
+
+    /**
+     * 按槽位顺序遍历存活索引（顺序读映射内存，不触碰日志）
+     */
+    void forEach(SlotVisitor visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = base(slot);
+            if (buffer.get(base + S_STATE) == LIVE) {
+                visitor.visit(slot, buffer.getLong(base + S_OFFSET), buffer.getInt(base + S_LENGTH),
+                        buffer.get(base + S_TYPE), buffer.get(base + S_SCOPE),
+                        buffer.getInt(base + S_OWNER), buffer.getInt(base + S_PROJECT));
+            }
+        }
+    }
+
+    long hashAt(int slot) {
+        return buffer.getLong(base(slot) + S_HASH);
+    }
+
+    /**
+     * 追加一条确定不存在的索引（压缩时使用，跳过查重）
+     */
+    void insert(long hash, long offset, int length, byte type, byte scope, int ownerHash, int projectHash) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (buffer.get(base(slot) + S_STATE) == LIVE) {
+            slot = (slot + 1) & mask;
+        }
+        if (buffer.get(base(slot) + S_STATE) == DELETED) {
+            deleted--;
+        }
+        write(slot, hash, offset, length, type, scope, ownerHash, projectHash);
+        size++;
+        buffer.putInt(H_SIZE, size).putInt(H_DELETED, deleted);
+        addLiveBytes(length);
+    }
+
+    /**
+     * 刷盘并标记为正常关闭
+     */
+    void markClean() {
+        buffer.force();
+        buffer.put(H_CLEAN, (byte) 1);
+        buffer.force();
+    }
+
+    /**
+     * 原子重命名到目标路径（覆盖已存在的文件），映射继续有效
+     */
+    void moveTo(Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        path = target;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        // MappedByteBuffer 没有显式unmap，映射随对象回收释放
+        buffer = null;
+    }
+
+    private void write(int slot, long hash, long offset, int length, byte type, byte scope, int ownerHash,
+                       int projectHash) {
+        int base = base(slot);
+        buffer.putLong(base + S_HASH, hash)
+                .putLong(base + S_OFFSET, offset)
+                .putInt(base + S_LENGTH, length)
+                .put(base + S_TYPE, type)
+                .put(base + S_SCOPE, scope)
+                .putInt(base + S_OWNER, ownerHash)
+                .putInt(base + S_PROJECT, projectHash)
+                .put(base + S_STATE, LIVE);
+    }
+
+    private void addLiveBytes(long delta) {
+        buffer.putLong(H_LIVE_BYTES, buffer.getLong(H_LIVE_BYTES) + delta);
+    }
+
+    /**
+     * 重建到新容量：先写入临时文件，再原子替换
+     */
+    private void rehash(int newCapacity) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".rehash");
+        MappedByteBuffer target = allocate(temp, schema, newCapacity);
+        MappedOffsetIndex grown = new MappedOffsetIndex(temp, schema, target);
+        forEach((slot, offset, length, type, scope, ownerHash, projectHash) ->
+                grown.insert(hashAt(slot), offset, length, type, scope, ownerHash, projectHash));
+        target.putLong(H_COVERED_END, coveredEnd());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.buffer = target;
+        this.capacity = newCapacity;
+        this.size = grown.size;
+        this.deleted = 0;
+    }
+
+    private static MappedByteBuffer allocate(Path path, int schema, int capacity) throws IOException {
+        long fileSize = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        buffer.putLong(H_MAGIC, MAGIC)
+                .putInt(H_SCHEMA, schema)
+                .putInt(H_CAPACITY, capacity)
+                .putInt(H_SIZE, 0)
+                .putInt(H_DELETED, 0)
+                .put(H_CLEAN, (byte) 0)
+                .putLong(H_COVERED_END, 0)
+                .putLong(H_LIVE_BYTES, 0);
+        return buffer;
+    }
+
+    private static int capacityFor(int entries) {
+        long required = (long) Math.ceil(Math.max(entries, 1) / MAX_LOAD) + 1;
+        if (required > MAX_CAPACITY) {
+            throw new IllegalStateException("Experience index capacity exceeded: " + entries);
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    private static int base(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * 哈希相同时回查日志，确认槽位确实属于目标id
+     */
+    @FunctionalInterface
+    interface SlotMatcher {
+        boolean matches(long offset, int length);
+    }
+
+    @FunctionalInterface
+    interface SlotVisitor {
+        void visit(int slot, long offset, int length, byte type, byte scope, int ownerHash, int projectHash);
+    }
+}
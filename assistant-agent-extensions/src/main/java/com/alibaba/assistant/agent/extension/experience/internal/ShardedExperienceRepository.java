@@ -0,0 +1,240 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 按租户分片的内存经验仓库实现
+ *
+ * <p>经验按 (scope, 租户) 落入独立分片：USER、TEAM 以 ownerId 为租户，PROJECT 以 projectId 为租户，
+ * GLOBAL 只有一个分片。带租户的查询只访问对应分片，不再扫描其他租户的数据；
+ * 未指定租户时退化为遍历该 scope 下的所有分片，语义与 {@link InMemoryExperienceRepository} 一致（按更新时间倒序）。
+ *
+ * <p>每个分片是一个独立的仓库实例（默认 {@link IndexedExperienceRepository}），锁粒度随之降到分片级别，
+ * 不同租户的读写互不阻塞。经验ID到分片的映射单独维护，同一经验修改租户后再次保存会从旧分片移除。
+ *
+ * @author Assistant Agent Team
+ */
+public class ShardedExperienceRepository implements ExperienceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedExperienceRepository.class);
+
+    private static final String NO_TENANT = "";
+
+    private final Supplier<ExperienceRepository> shardFactory;
+
+    private final Map<ShardKey, ExperienceRepository> shards = new ConcurrentHashMap<>();
+
+    /**
+     * 经验ID → 所在分片
+     */
+    private final Map<String, ShardKey> locations = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public ShardedExperienceRepository() {
+        this(IndexedExperienceRepository::new);
+    }
+
+    public ShardedExperienceRepository(Supplier<ExperienceRepository> shardFactory) {
+        this.shardFactory = shardFactory;
+    }
+
+    @Override
+    public Experience save(Experience experience) {
+        if (experience == null) {
+            log.warn("ShardedExperienceRepository#save - reason=experience is null, skip saving");
+            throw new IllegalArgumentException("Experience cannot be null");
+        }
+
+        ShardKey target = ShardKey.of(experience);
+        // 同一ID的保存与删除在 compute 中串行，租户变更时先写新分片再移除旧分片
+        locations.compute(experience.getId(), (id, previous) -> {
+            shard(target).save(experience);
+            if (previous != null && !previous.equals(target)) {
+                ExperienceRepository old = shards.get(previous);
+                if (old != null) {
+                    old.deleteById(id);
+                }
+            }
+            return target;
+        });
+        generation.incrementAndGet();
+
+        log.debug("ShardedExperienceRepository#save - reason=experience saved, id={}, scope={}, tenant={}",
+                experience.getId(), target.scope(), target.tenant());
+        return experience;
+    }
+
+    @Override
+    public List<Experience> batchSave(Collection<Experience> experiences) {
+        if (experiences == null || experiences.isEmpty()) {
+            log.warn("ShardedExperienceRepository#batchSave - reason=experiences collection is empty");
+            return new ArrayList<>();
+        }
+
+        List<Experience> savedExperiences = new ArrayList<>();
+        for (Experience experience : experiences) {
+            try {
+                savedExperiences.add(save(experience));
+            } catch (Exception e) {
+                log.error("ShardedExperienceRepository#batchSave - reason=failed to save experience id={}",
+                        experience != null ? experience.getId() : "null", e);
+                // 继续保存其他经验
+            }
+        }
+
+        log.info("ShardedExperienceRepository#batchSave - reason=batch save completed, saved={}/{}",
+                savedExperiences.size(), experiences.size());
+        return savedExperiences;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        if (!StringUtils.hasText(id)) {
+            log.warn("ShardedExperienceRepository#deleteById - reason=id is null or empty");
+            return false;
+        }
+
+        boolean[] removed = new boolean[1];
+        locations.computeIfPresent(id, (key, location) -> {
+            ExperienceRepository shard = shards.get(location);
+            removed[0] = shard != null && shard.deleteById(key);
+            return null;
+        });
+        if (removed[0]) {
+            generation.incrementAndGet();
+        }
+
+        log.debug("ShardedExperienceRepository#deleteById - reason=delete operation completed, id={}, success={}",
+                id, removed[0]);
+        return removed[0];
+    }
+
+    @Override
+    public Optional<Experience> findById(String id) {
+        if (!StringUtils.hasText(id)) {
+            return Optional.empty();
+        }
+        ShardKey location = locations.get(id);
+        ExperienceRepository shard = location != null ? shards.get(location) : null;
+        return shard != null ? shard.findById(id) : Optional.empty();
+    }
+
+    @Override
+    public List<Experience> findByTypeAndScope(ExperienceType type, ExperienceScope scope, String ownerId, String projectId) {
+        return collect(scope, ownerId, projectId,
+                shard -> shard.findByTypeAndScope(type, scope, ownerId, projectId));
+    }
+
+    @Override
+    public List<Experience> findCandidates(ExperienceType type, ExperienceScope scope, String ownerId, String projectId,
+                                           String language, Set<String> tags, String text) {
+        return collect(scope, ownerId, projectId,
+                shard -> shard.findCandidates(type, scope, ownerId, projectId, language, tags, text));
+    }
+
+    @Override
+    public long count() {
+        return locations.size();
+    }
+
+    @Override
+    public long countByTypeAndScope(ExperienceType type, ExperienceScope scope) {
+        long count = 0;
+        for (Map.Entry<ShardKey, ExperienceRepository> entry : shards.entrySet()) {
+            if (scope == null || scope == entry.getKey().scope()) {
+                count += entry.getValue().countByTypeAndScope(type, scope);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 当前分片数，用于观测
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    private ExperienceRepository shard(ShardKey key) {
+        ExperienceRepository shard = shards.get(key);
+        return shard != null ? shard : shards.computeIfAbsent(key, k -> shardFactory.get());
+    }
+
+    /**
+     * 能定位到单个分片时只查该分片，否则查该 scope 下的所有分片并按更新时间倒序合并
+     */
+    private List<Experience> collect(ExperienceScope scope, String ownerId, String projectId,
+                                     Function<ExperienceRepository, List<Experience>> finder) {
+        String tenant = ShardKey.queryTenant(scope, ownerId, projectId);
+        if (tenant != null) {
+            ExperienceRepository shard = shards.get(new ShardKey(scope, tenant));
+            return shard != null ? finder.apply(shard) : new ArrayList<>();
+        }
+
+        List<Experience> results = new ArrayList<>();
+        int visited = 0;
+        for (Map.Entry<ShardKey, ExperienceRepository> entry : shards.entrySet()) {
+            if (scope == null || scope == entry.getKey().scope()) {
+                results.addAll(finder.apply(entry.getValue()));
+                visited++;
+            }
+        }
+        if (visited > 1) {
+            results.sort((e1, e2) -> e2.getUpdatedAt().compareTo(e1.getUpdatedAt()));
+        }
+        return results;
+    }
+
+    /**
+     * 分片键：scope 加租户标识，GLOBAL 与缺少租户字段的经验使用空租户
+     */
+    private record ShardKey(ExperienceScope scope, String tenant) {
+
+        static ShardKey of(Experience experience) {
+            String tenant = tenantOf(experience.getScope(), experience.getOwnerId(), experience.getProjectId());
+            return new ShardKey(experience.getScope(), tenant != null ? tenant : NO_TENANT);
+        }
+
+        /**
+         * 查询条件对应的租户；scope 未指定或查询未给出租户字段时返回null，表示需要遍历
+         */
+        static String queryTenant(ExperienceScope scope, String ownerId, String projectId) {
+            if (scope == null) {
+                return null;
+            }
+            if (scope == ExperienceScope.GLOBAL) {
+                return NO_TENANT;
+            }
+            return tenantOf(scope, ownerId, projectId);
+        }
+
+        private static String tenantOf(ExperienceScope scope, String ownerId, String projectId) {
+            if (scope == null) {
+                return null;
+            }
+            return switch (scope) {
+                case USER, TEAM -> ownerId;
+                case PROJECT -> projectId;
+                case GLOBAL -> NO_TENANT;
+            };
+        }
+    }
+}
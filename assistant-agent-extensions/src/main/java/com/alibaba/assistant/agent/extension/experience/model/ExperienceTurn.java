@@ -0,0 +1,49 @@
+package com.alibaba.assistant.agent.extension.experience.model;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+
+import java.util.UUID;
+
+/**
+ * 经验检索的对话轮次标识
+ * 轮次 id 写在 RunnableConfig 的 metadata 中（{@value #TURN_ID_METADATA_KEY}），
+ * 同一轮次内的经验查询可以复用结果，进入新的轮次后重新检索
+ *
+ * @author Assistant Agent Team
+ */
+public final class ExperienceTurn {
+
+    /**
+     * RunnableConfig metadata 中标识当前轮次的键
+     */
+    public static final String TURN_ID_METADATA_KEY = "turn_id";
+
+    private ExperienceTurn() {
+    }
+
+    /**
+     * 为一次新的调用写入 turnId；调用方已在 metadata 中指定 turnId 时原样返回
+     * Agent 每次调用开始时调用，子Agent 每次调用也应使用独立的 turnId
+     *
+     * @param config 调用方传入的运行配置，可为null
+     * @return 带 turnId 的运行配置
+     */
+    public static RunnableConfig withTurnId(RunnableConfig config) {
+        if (config != null && config.metadata(TURN_ID_METADATA_KEY).isPresent()) {
+            return config;
+        }
+        RunnableConfig.Builder builder = config != null ? RunnableConfig.builder(config) : RunnableConfig.builder();
+        builder.addMetadata(TURN_ID_METADATA_KEY, UUID.randomUUID().toString());
+        return builder.build();
+    }
+
+    /**
+     * 读取运行配置中的 turnId
+     *
+     * @param config 运行配置
+     * @return turnId，未写入时返回null
+     */
+    public static String turnId(RunnableConfig config) {
+        return config.metadata(TURN_ID_METADATA_KEY).map(String::valueOf).orElse(null);
+    }
+}
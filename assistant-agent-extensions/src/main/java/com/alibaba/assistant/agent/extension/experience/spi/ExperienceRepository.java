@@ -7,6 +7,7 @@ import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 经验写入与管理SPI接口
@@ -59,6 +60,25 @@ public interface ExperienceRepository {
      */
     List<Experience> findByTypeAndScope(ExperienceType type, ExperienceScope scope, String ownerId, String projectId);
 
+    /**
+     * 根据类型、范围及查询条件查找候选经验
+     * 返回结果可以是符合条件经验的超集，调用方仍需按语言、标签、文本做最终过滤；
+     * 默认实现忽略附加条件，等价于 {@link #findByTypeAndScope}，带索引的实现可借此缩小候选集
+     *
+     * @param type 经验类型
+     * @param scope 生效范围
+     * @param ownerId 所有者ID，可为null
+     * @param projectId 项目ID，可为null
+     * @param language 查询语言，可为null
+     * @param tags 查询标签（任一匹配即可），可为null
+     * @param text 查询文本，可为null
+     * @return 候选经验列表
+     */
+    default List<Experience> findCandidates(ExperienceType type, ExperienceScope scope, String ownerId, String projectId,
+                                            String language, Set<String> tags, String text) {
+        return findByTypeAndScope(type, scope, ownerId, projectId);
+    }
+
     /**
      * 统计经验数量
      *
@@ -74,4 +94,14 @@ public interface ExperienceRepository {
      * @return 符合条件的经验数量
      */
     long countByTypeAndScope(ExperienceType type, ExperienceScope scope);
+
+    /**
+     * 数据版本号，每次保存或删除成功后递增，供上层缓存判断查询结果是否仍然有效
+     * 默认返回-1，表示实现不跟踪版本，上层不应缓存基于该仓库的查询结果
+     *
+     * @return 当前版本号，不跟踪版本时为负数
+     */
+    default long generation() {
+        return -1;
+    }
 }
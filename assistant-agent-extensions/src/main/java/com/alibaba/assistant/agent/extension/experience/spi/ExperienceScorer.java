@@ -0,0 +1,33 @@
+package com.alibaba.assistant.agent.extension.experience.spi;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+
+import java.util.List;
+
+/**
+ * 经验相关性打分SPI接口
+ * 负责在带文本的查询中为候选经验计算相关性分数
+ *
+ * @author Assistant Agent Team
+ */
+public interface ExperienceScorer {
+
+    /**
+     * 为候选经验打分，每条候选只计算一次
+     *
+     * @param queryText 查询文本
+     * @param candidates 候选经验（已按语言、标签过滤）
+     * @return 与candidates一一对应的分数，分数大于0表示相关，越大越相关
+     */
+    double[] score(String queryText, List<Experience> candidates);
+
+    /**
+     * 是否只有与查询共享词项的经验才可能得分，词项按 {@link com.alibaba.assistant.agent.common.text.TextTokenizer} 切分
+     * （拉丁字母按单词、中日韩文字按字符二元组）；为true时仓库可以用词项倒排表预先缩小候选集
+     *
+     * @return 是否基于词项匹配
+     */
+    default boolean isTermBased() {
+        return true;
+    }
+}
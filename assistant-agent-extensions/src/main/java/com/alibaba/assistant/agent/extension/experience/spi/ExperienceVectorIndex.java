@@ -0,0 +1,64 @@
+package com.alibaba.assistant.agent.extension.experience.spi;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 经验向量索引SPI接口
+ * 负责保存经验的向量表示并提供近似最近邻检索，相似度为余弦相似度
+ *
+ * @author Assistant Agent Team
+ */
+public interface ExperienceVectorIndex {
+
+    /**
+     * 写入或替换经验向量
+     *
+     * @param experienceId 经验ID
+     * @param vector 向量，维度需与索引中已有向量一致
+     */
+    void upsert(String experienceId, float[] vector);
+
+    /**
+     * 删除经验向量
+     *
+     * @param experienceId 经验ID
+     * @return 是否存在并被删除
+     */
+    boolean remove(String experienceId);
+
+    /**
+     * 检索与查询向量最相似的经验
+     *
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param filter 经验ID过滤条件，可为null
+     * @return 按相似度降序排列的结果
+     */
+    List<VectorMatch> search(float[] query, int k, Predicate<String> filter);
+
+    /**
+     * 计算指定经验与查询向量的精确相似度
+     *
+     * @param experienceId 经验ID
+     * @param query 查询向量
+     * @return 余弦相似度，经验不在索引中时返回 {@link Double#NaN}
+     */
+    double similarity(String experienceId, float[] query);
+
+    /**
+     * 索引中的向量数量
+     *
+     * @return 向量数量
+     */
+    int size();
+
+    /**
+     * 检索结果
+     *
+     * @param experienceId 经验ID
+     * @param similarity 余弦相似度
+     */
+    record VectorMatch(String experienceId, double similarity) {
+    }
+}
@@ -22,11 +22,16 @@ import com.alibaba.assistant.agent.extension.learning.hook.AfterAgentLearningHoo
 import com.alibaba.assistant.agent.extension.learning.hook.AfterModelLearningHook;
 import com.alibaba.assistant.agent.extension.learning.interceptor.LearningToolInterceptor;
 import com.alibaba.assistant.agent.extension.learning.internal.AsyncLearningHandler;
+import com.alibaba.assistant.agent.extension.learning.internal.BatchingStoreWriter;
 import com.alibaba.assistant.agent.extension.learning.internal.DefaultLearningExecutor;
 import com.alibaba.assistant.agent.extension.learning.internal.DefaultLearningStrategy;
 import com.alibaba.assistant.agent.extension.learning.internal.InMemoryLearningRepository;
+import com.alibaba.assistant.agent.extension.learning.internal.LearningCandidateScorer;
+import com.alibaba.assistant.agent.extension.learning.internal.LearningWorkQueue;
+import com.alibaba.assistant.agent.extension.learning.internal.ParallelLearningBatchExecutor;
+import com.alibaba.assistant.agent.extension.learning.internal.RateLimitedChatModel;
 import com.alibaba.assistant.agent.extension.learning.internal.StoreLearningRepository;
-import com.alibaba.assistant.agent.extension.learning.internal.*;
+import com.alibaba.assistant.agent.extension.learning.internal.TokenBucketRateLimiter;
 import com.alibaba.assistant.agent.extension.learning.offline.ExperienceLearningGraph;
 import com.alibaba.assistant.agent.extension.learning.offline.LearningScheduleConfig;
 import com.alibaba.assistant.agent.extension.learning.offline.LearningScheduledTask;
@@ -38,15 +43,19 @@ import com.alibaba.assistant.agent.extension.learning.spi.LearningRepository;
 import com.alibaba.assistant.agent.extension.learning.spi.LearningStrategy;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
 import com.alibaba.cloud.ai.graph.store.Store;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -77,7 +86,27 @@ public class LearningExtensionAutoConfiguration {
 		log.info(
 				"LearningExtensionAutoConfiguration#asyncLearningHandler - reason=creating async learning handler, threadPoolSize={}, queueCapacity={}",
 				asyncConfig.getThreadPoolSize(), asyncConfig.getQueueCapacity());
-		return new AsyncLearningHandler(asyncConfig.getThreadPoolSize(), asyncConfig.getQueueCapacity());
+		return new AsyncLearningHandler(asyncConfig.getThreadPoolSize(), asyncConfig.getQueueCapacity(),
+				asyncConfig.getRejectionPolicy());
+	}
+
+	/**
+	 * 配置持久化学习工作队列
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.learning.async.queue", name = "enabled",
+			havingValue = "true")
+	public LearningWorkQueue learningWorkQueue(LearningExtensionProperties properties) throws IOException {
+		LearningExtensionProperties.QueueConfig queueConfig = properties.getAsync().getQueue();
+		log.info(
+				"LearningExtensionAutoConfiguration#learningWorkQueue - reason=creating learning work queue, directory={}, consumerThreads={}, capacity={}, overflowPolicy={}",
+				queueConfig.getDirectory(), queueConfig.getConsumerThreads(), queueConfig.getCapacity(),
+				queueConfig.getOverflowPolicy());
+		// 队列实现了AutoCloseable，容器关闭时停止消费，未完成的任务留在日志中
+		return new LearningWorkQueue(Path.of(queueConfig.getDirectory()), queueConfig.getConsumerThreads(),
+				queueConfig.getCapacity(), LearningWorkQueue.OverflowPolicy.of(queueConfig.getOverflowPolicy()),
+				queueConfig.getMaxAttempts(), queueConfig.getSyncIntervalMs(), queueConfig.getCompactThresholdBytes());
 	}
 
 	/**
@@ -94,6 +123,21 @@ public class LearningExtensionAutoConfiguration {
 		return new DefaultLearningStrategy(extractors, repositories, asyncEnabled);
 	}
 
+	/**
+	 * 配置并行批量学习执行器，未开启时批量任务顺序执行
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.learning.batch", name = "parallel-enabled",
+			havingValue = "true")
+	public ParallelLearningBatchExecutor parallelLearningBatchExecutor(LearningExtensionProperties properties) {
+		LearningExtensionProperties.BatchConfig batchConfig = properties.getBatch();
+		log.info(
+				"LearningExtensionAutoConfiguration#parallelLearningBatchExecutor - reason=creating batch executor, concurrency={}, itemTimeoutMs={}",
+				batchConfig.getConcurrency(), batchConfig.getItemTimeoutMs());
+		return new ParallelLearningBatchExecutor(batchConfig.getConcurrency(), batchConfig.getItemTimeoutMs());
+	}
+
 	/**
 	 * 配置学习执行器
 	 */
@@ -101,11 +145,13 @@ public class LearningExtensionAutoConfiguration {
 	@ConditionalOnMissingBean
 	public LearningExecutor learningExecutor(List<LearningExtractor<?>> extractors,
 			List<LearningRepository<?>> repositories, LearningStrategy learningStrategy,
-			AsyncLearningHandler asyncHandler) {
+			AsyncLearningHandler asyncHandler, ObjectProvider<LearningWorkQueue> workQueue,
+			ObjectProvider<ParallelLearningBatchExecutor> batchExecutor) {
 		log.info(
 				"LearningExtensionAutoConfiguration#learningExecutor - reason=creating learning executor, extractorCount={}, repositoryCount={}",
 				extractors.size(), repositories.size());
-		return new DefaultLearningExecutor(extractors, repositories, learningStrategy, asyncHandler);
+		return new DefaultLearningExecutor(extractors, repositories, learningStrategy, asyncHandler,
+				workQueue.getIfAvailable(), batchExecutor.getIfAvailable());
 	}
 
 	/**
@@ -128,10 +174,19 @@ public class LearningExtensionAutoConfiguration {
 	@ConditionalOnMissingBean(name = "storeLearningRepository")
 	@ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.learning.storage", name = "type",
 			havingValue = "store")
-	public LearningRepository<?> storeLearningRepository(Store store) {
+	public LearningRepository<?> storeLearningRepository(Store store, LearningExtensionProperties properties) {
+		LearningExtensionProperties.WriteBehindConfig writeBehind = properties.getStorage().getWriteBehind();
 		log.info(
-				"LearningExtensionAutoConfiguration#storeLearningRepository - reason=creating store-based learning repository");
-		return new StoreLearningRepository<>(store, Object.class);
+				"LearningExtensionAutoConfiguration#storeLearningRepository - reason=creating store-based learning repository, writeBehind={}",
+				writeBehind.isEnabled());
+		if (!writeBehind.isEnabled()) {
+			return new StoreLearningRepository<>(store, Object.class);
+		}
+		// 仓库实现了AutoCloseable，容器关闭时刷新写后缓冲
+		BatchingStoreWriter writer = new BatchingStoreWriter(store, writeBehind.getMaxBatchSize(),
+				writeBehind.getFlushIntervalMs(), writeBehind.getWriteConcurrency(),
+				writeBehind.getMaxPendingRecords());
+		return new StoreLearningRepository<>(store, new ObjectMapper(), Object.class, writer);
 	}
 
 	/**
@@ -139,12 +194,29 @@ public class LearningExtensionAutoConfiguration {
 	 */
 	@Bean
 	@ConditionalOnMissingBean
-	public ExperienceLearningExtractor experienceLearningExtractor(ChatModel chatModel) {
+	public ExperienceLearningExtractor experienceLearningExtractor(ChatModel chatModel,
+			LearningExtensionProperties properties, ObjectProvider<ExperienceRepository> experienceRepository) {
 		if (chatModel == null) {
 			throw new IllegalStateException("ChatModel is required for ExperienceLearningExtractor. Please configure Spring AI ChatModel bean.");
 		}
-		log.info("LearningExtensionAutoConfiguration#experienceLearningExtractor - reason=creating LLM-based experience learning extractor");
-		return new ExperienceLearningExtractor(chatModel);
+		LearningExtensionProperties.ModelRateLimitConfig rateLimit = properties.getModelRateLimit();
+		log.info(
+				"LearningExtensionAutoConfiguration#experienceLearningExtractor - reason=creating LLM-based experience learning extractor, rateLimited={}, permitsPerSecond={}",
+				rateLimit.isEnabled(), rateLimit.getPermitsPerSecond());
+		if (rateLimit.isEnabled()) {
+			chatModel = new RateLimitedChatModel(chatModel,
+					new TokenBucketRateLimiter(rateLimit.getPermitsPerSecond(), rateLimit.getBurst()),
+					rateLimit.getAcquireTimeoutMs());
+		}
+
+		LearningExtensionProperties.PreFilterConfig preFilter = properties.getPreFilter();
+		LearningCandidateScorer candidateScorer = null;
+		if (preFilter.isEnabled()) {
+			candidateScorer = new LearningCandidateScorer(
+					preFilter.isNoveltyEnabled() ? experienceRepository.getIfAvailable() : null,
+					preFilter.getThreshold(), preFilter.getCalibrationSampleRate());
+		}
+		return new ExperienceLearningExtractor(chatModel, candidateScorer);
 	}
 
 	/**
@@ -55,6 +55,21 @@ public class LearningExtensionProperties {
 	 */
 	private AsyncConfig async = new AsyncConfig();
 
+	/**
+	 * 批量学习配置
+	 */
+	private BatchConfig batch = new BatchConfig();
+
+	/**
+	 * 学习模型调用限流配置
+	 */
+	private ModelRateLimitConfig modelRateLimit = new ModelRateLimitConfig();
+
+	/**
+	 * 学习候选预过滤配置
+	 */
+	private PreFilterConfig preFilter = new PreFilterConfig();
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -95,6 +110,30 @@ public class LearningExtensionProperties {
 		this.async = async;
 	}
 
+	public BatchConfig getBatch() {
+		return batch;
+	}
+
+	public void setBatch(BatchConfig batch) {
+		this.batch = batch;
+	}
+
+	public ModelRateLimitConfig getModelRateLimit() {
+		return modelRateLimit;
+	}
+
+	public void setModelRateLimit(ModelRateLimitConfig modelRateLimit) {
+		this.modelRateLimit = modelRateLimit;
+	}
+
+	public PreFilterConfig getPreFilter() {
+		return preFilter;
+	}
+
+	public void setPreFilter(PreFilterConfig preFilter) {
+		this.preFilter = preFilter;
+	}
+
 	/**
 	 * 在线学习配置
 	 */
@@ -340,6 +379,11 @@ public class LearningExtensionProperties {
 		 */
 		private String defaultNamespace = "default";
 
+		/**
+		 * Store 写后缓冲配置，仅 type=store 时生效
+		 */
+		private WriteBehindConfig writeBehind = new WriteBehindConfig();
+
 		public String getType() {
 			return type;
 		}
@@ -356,6 +400,87 @@ public class LearningExtensionProperties {
 			this.defaultNamespace = defaultNamespace;
 		}
 
+		public WriteBehindConfig getWriteBehind() {
+			return writeBehind;
+		}
+
+		public void setWriteBehind(WriteBehindConfig writeBehind) {
+			this.writeBehind = writeBehind;
+		}
+
+	}
+
+	/**
+	 * Store 写后缓冲配置
+	 */
+	public static class WriteBehindConfig {
+
+		/**
+		 * 是否启用写后缓冲，关闭时每条记录同步写入Store；
+		 * 启用后进程崩溃会丢失尚未刷新的记录，Store持续不可用时记录在重试耗尽后被丢弃
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 单个命名空间累积到该条数时触发刷新
+		 */
+		private int maxBatchSize = 100;
+
+		/**
+		 * 定时刷新间隔（毫秒）
+		 */
+		private long flushIntervalMs = 200;
+
+		/**
+		 * 一次刷新的并发写入数
+		 */
+		private int writeConcurrency = 4;
+
+		/**
+		 * 待写入记录总数上限，达到后提交线程同步刷新
+		 */
+		private int maxPendingRecords = 10000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxBatchSize() {
+			return maxBatchSize;
+		}
+
+		public void setMaxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		public long getFlushIntervalMs() {
+			return flushIntervalMs;
+		}
+
+		public void setFlushIntervalMs(long flushIntervalMs) {
+			this.flushIntervalMs = flushIntervalMs;
+		}
+
+		public int getWriteConcurrency() {
+			return writeConcurrency;
+		}
+
+		public void setWriteConcurrency(int writeConcurrency) {
+			this.writeConcurrency = writeConcurrency;
+		}
+
+		public int getMaxPendingRecords() {
+			return maxPendingRecords;
+		}
+
+		public void setMaxPendingRecords(int maxPendingRecords) {
+			this.maxPendingRecords = maxPendingRecords;
+		}
+
 	}
 
 	/**
@@ -379,10 +504,15 @@ public class LearningExtensionProperties {
 		private int queueCapacity = 100;
 
 		/**
-		 * 拒绝策略：caller-runs, abort, discard, discard-oldest
+		 * 拒绝策略：caller-runs 在提交线程上执行；abort 拒绝新任务；discard 丢弃新任务；discard-oldest 丢弃队列中最早的任务
 		 */
 		private String rejectionPolicy = "caller-runs";
 
+		/**
+		 * 持久化工作队列，启用后异步学习不再经过线程池
+		 */
+		private QueueConfig queue = new QueueConfig();
+
 		public boolean isEnabled() {
 			return enabled;
 		}
@@ -415,7 +545,291 @@ public class LearningExtensionProperties {
 			this.rejectionPolicy = rejectionPolicy;
 		}
 
+		public QueueConfig getQueue() {
+			return queue;
+		}
+
+		public void setQueue(QueueConfig queue) {
+			this.queue = queue;
+		}
+
 	}
 
-}
+	/**
+	 * 持久化学习工作队列配置
+	 */
+	public static class QueueConfig {
+
+		/**
+		 * 是否启用持久化工作队列
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 队列日志目录
+		 */
+		private String directory = "data/learning-queue";
+
+		/**
+		 * 消费线程数
+		 */
+		private int consumerThreads = 2;
+
+		/**
+		 * 内存中保留上下文的任务数上限
+		 */
+		private int capacity = 100;
+
+		/**
+		 * 超过上限时的处理方式：defer 只写日志稍后执行，drop 丢弃
+		 */
+		private String overflowPolicy = "defer";
+
+		/**
+		 * 执行抛出异常时的最大尝试次数
+		 */
+		private int maxAttempts = 3;
 
+		/**
+		 * 日志刷盘间隔（毫秒），0 表示每次追加都刷盘
+		 */
+		private long syncIntervalMs = 200;
+
+		/**
+		 * 已确认记录累积到该字节数后压缩日志
+		 */
+		private long compactThresholdBytes = 8 * 1024 * 1024;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getConsumerThreads() {
+			return consumerThreads;
+		}
+
+		public void setConsumerThreads(int consumerThreads) {
+			this.consumerThreads = consumerThreads;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+
+		public String getOverflowPolicy() {
+			return overflowPolicy;
+		}
+
+		public void setOverflowPolicy(String overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+		}
+
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		public long getSyncIntervalMs() {
+			return syncIntervalMs;
+		}
+
+		public void setSyncIntervalMs(long syncIntervalMs) {
+			this.syncIntervalMs = syncIntervalMs;
+		}
+
+		public long getCompactThresholdBytes() {
+			return compactThresholdBytes;
+		}
+
+		public void setCompactThresholdBytes(long compactThresholdBytes) {
+			this.compactThresholdBytes = compactThresholdBytes;
+		}
+
+	}
+
+	/**
+	 * 批量学习配置
+	 */
+	public static class BatchConfig {
+
+		/**
+		 * 是否并行执行批量任务，默认顺序执行
+		 */
+		private boolean parallelEnabled = false;
+
+		/**
+		 * 并行执行时的最大并发数
+		 */
+		private int concurrency = 4;
+
+		/**
+		 * 单个任务的超时时间（毫秒），不大于0表示不限
+		 */
+		private long itemTimeoutMs = 120_000;
+
+		public boolean isParallelEnabled() {
+			return parallelEnabled;
+		}
+
+		public void setParallelEnabled(boolean parallelEnabled) {
+			this.parallelEnabled = parallelEnabled;
+		}
+
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		public void setConcurrency(int concurrency) {
+			this.concurrency = concurrency;
+		}
+
+		public long getItemTimeoutMs() {
+			return itemTimeoutMs;
+		}
+
+		public void setItemTimeoutMs(long itemTimeoutMs) {
+			this.itemTimeoutMs = itemTimeoutMs;
+		}
+
+	}
+
+	/**
+	 * 学习模型调用限流配置（令牌桶）
+	 */
+	public static class ModelRateLimitConfig {
+
+		/**
+		 * 是否对经验学习提取器的模型调用限流；只包装该提取器使用的 ChatModel，
+		 * 在线Hook、工作队列和批量任务经由该提取器发起的调用共用同一令牌桶，自定义提取器自带的模型不受限
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 每秒补充的令牌数
+		 */
+		private double permitsPerSecond = 2.0;
+
+		/**
+		 * 桶容量，即允许的突发调用数
+		 */
+		private int burst = 4;
+
+		/**
+		 * 等待令牌的最长时间（毫秒），超过后本次模型调用失败
+		 */
+		private long acquireTimeoutMs = 60_000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getPermitsPerSecond() {
+			return permitsPerSecond;
+		}
+
+		public void setPermitsPerSecond(double permitsPerSecond) {
+			this.permitsPerSecond = permitsPerSecond;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+
+		public long getAcquireTimeoutMs() {
+			return acquireTimeoutMs;
+		}
+
+		public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+			this.acquireTimeoutMs = acquireTimeoutMs;
+		}
+
+	}
+
+	/**
+	 * 学习候选预过滤配置
+	 * 调用LLM判断是否值得学习之前，先用执行成功率、代码量、工具调用数和新颖度在本地打分
+	 */
+	public static class PreFilterConfig {
+
+		/**
+		 * 是否启用预过滤
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 得分低于该值时跳过LLM判断，得分取值 [0, 1]
+		 */
+		private double threshold = 0.2;
+
+		/**
+		 * 低分上下文中仍交给LLM判断的比例，用于校准阈值
+		 */
+		private double calibrationSampleRate = 0.05;
+
+		/**
+		 * 是否与已有经验比较新颖度（MinHash 相似度），经验仓库不跟踪版本号时不计算
+		 */
+		private boolean noveltyEnabled = true;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public double getThreshold() {
+			return threshold;
+		}
+
+		public void setThreshold(double threshold) {
+			this.threshold = threshold;
+		}
+
+		public double getCalibrationSampleRate() {
+			return calibrationSampleRate;
+		}
+
+		public void setCalibrationSampleRate(double calibrationSampleRate) {
+			this.calibrationSampleRate = calibrationSampleRate;
+		}
+
+		public boolean isNoveltyEnabled() {
+			return noveltyEnabled;
+		}
+
+		public void setNoveltyEnabled(boolean noveltyEnabled) {
+			this.noveltyEnabled = noveltyEnabled;
+		}
+
+	}
+
+}
@@ -19,6 +19,7 @@ package com.alibaba.assistant.agent.extension.learning.extractor;
 import com.alibaba.assistant.agent.extension.experience.model.Experience;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
 import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.learning.internal.LearningCandidateScorer;
 import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
 import com.alibaba.assistant.agent.extension.learning.spi.LearningExtractor;
 import com.alibaba.cloud.ai.graph.OverAllState;
@@ -69,18 +70,34 @@ public class ExperienceLearningExtractor implements LearningExtractor<Experience
 	 */
 	private final ObjectMapper objectMapper;
 
+	/**
+	 * 候选打分器（可选），低分上下文跳过LLM判断
+	 */
+	private final LearningCandidateScorer candidateScorer;
+
 	/**
 	 * 构造函数
 	 * @param chatModel LLM模型，用于智能判断和提取
 	 */
 	public ExperienceLearningExtractor(ChatModel chatModel) {
+		this(chatModel, null);
+	}
+
+	/**
+	 * 构造函数
+	 * @param chatModel LLM模型，用于智能判断和提取
+	 * @param candidateScorer 候选打分器，为null时每个有内容的上下文都交给LLM判断
+	 */
+	public ExperienceLearningExtractor(ChatModel chatModel, LearningCandidateScorer candidateScorer) {
 		if (chatModel == null) {
 			throw new IllegalArgumentException("ChatModel is required for ExperienceLearningExtractor");
 		}
 		this.chatModel = chatModel;
 		this.objectMapper = new ObjectMapper();
+		this.candidateScorer = candidateScorer;
 
-		log.info("ExperienceLearningExtractor#constructor - reason=LLM-based extractor initialized");
+		log.info("ExperienceLearningExtractor#constructor - reason=LLM-based extractor initialized, preFilterEnabled={}",
+				candidateScorer != null);
 	}
 
 	@Override
@@ -114,9 +131,24 @@ public class ExperienceLearningExtractor implements LearningExtractor<Experience
 			return false;
 		}
 
+		// 本地打分预过滤：低分上下文不调用LLM
+		LearningCandidateScorer.Decision decision = null;
+		if (candidateScorer != null) {
+			decision = candidateScorer.evaluate(context, state);
+			if (!decision.judge()) {
+				log.info("ExperienceLearningExtractor#shouldLearn - reason=candidate score below threshold, score={}, threshold={}, result=false",
+						decision.score(), candidateScorer.getThreshold());
+				return false;
+			}
+		}
+
 		// LLM智能判断：是否值得学习
 		try {
 			boolean worthLearning = llmJudgeWorthLearning(context, state);
+			if (decision != null && decision.calibration()) {
+				// 校准样本：记录LLM对低分上下文的判断，判断结果照常生效
+				candidateScorer.recordCalibration(decision, worthLearning);
+			}
 			log.info("ExperienceLearningExtractor#shouldLearn - reason=llm judgment completed, worthLearning={}, result={}",
 					worthLearning, worthLearning);
 			return worthLearning;
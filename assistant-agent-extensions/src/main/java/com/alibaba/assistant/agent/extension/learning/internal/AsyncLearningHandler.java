@@ -19,6 +19,7 @@ package com.alibaba.assistant.agent.extension.learning.internal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Locale;
 import java.util.concurrent.*;
 
 /**
@@ -35,6 +36,15 @@ public class AsyncLearningHandler {
 	private final ExecutorService executorService;
 
 	public AsyncLearningHandler(int threadPoolSize, int queueCapacity) {
+		this(threadPoolSize, queueCapacity, "caller-runs");
+	}
+
+	/**
+	 * @param rejectionPolicy 队列满时的策略：caller-runs 在提交线程上执行；abort 拒绝新任务；discard 丢弃新任务；
+	 * discard-oldest 丢弃队列中最早的任务后提交新任务。被拒绝或丢弃的任务返回异常完成的 Future，不占用提交线程
+	 */
+	public AsyncLearningHandler(int threadPoolSize, int queueCapacity, String rejectionPolicy) {
+		String policy = rejectionPolicy != null ? rejectionPolicy.toLowerCase(Locale.ROOT) : "caller-runs";
 		this.executorService = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60L, TimeUnit.SECONDS,
 				new LinkedBlockingQueue<>(queueCapacity), new ThreadFactory() {
 					private int count = 0;
@@ -43,11 +53,11 @@ public class AsyncLearningHandler {
 					public Thread newThread(Runnable r) {
 						return new Thread(r, "learning-async-" + (count++));
 					}
-				}, new ThreadPoolExecutor.CallerRunsPolicy());
+				}, rejectionHandler(policy));
 
 		log.info(
-				"AsyncLearningHandler#constructor - reason=async learning handler initialized, threadPoolSize={}, queueCapacity={}",
-				threadPoolSize, queueCapacity);
+				"AsyncLearningHandler#constructor - reason=async learning handler initialized, threadPoolSize={}, queueCapacity={}, rejectionPolicy={}",
+				threadPoolSize, queueCapacity, policy);
 	}
 
 	/**
@@ -57,15 +67,15 @@ public class AsyncLearningHandler {
 	 * @return CompletableFuture
 	 */
 	public <T> CompletableFuture<T> executeAsync(Callable<T> task) {
-		return CompletableFuture.supplyAsync(() -> {
-			try {
-				return task.call();
-			}
-			catch (Exception e) {
-				log.error("AsyncLearningHandler#executeAsync - reason=async task execution failed", e);
-				throw new CompletionException(e);
-			}
-		}, executorService);
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executorService.execute(new AsyncTask<>(task, future));
+		}
+		catch (RejectedExecutionException e) {
+			log.warn("AsyncLearningHandler#executeAsync - reason=queue full, task rejected");
+			future.completeExceptionally(e);
+		}
+		return future;
 	}
 
 	/**
@@ -85,5 +95,94 @@ public class AsyncLearningHandler {
 		}
 	}
 
+	private static RejectedExecutionHandler rejectionHandler(String policy) {
+		switch (policy) {
+			case "caller-runs":
+				return new ThreadPoolExecutor.CallerRunsPolicy();
+			case "abort":
+				return new ThreadPoolExecutor.AbortPolicy();
+			case "discard":
+				return new DiscardPolicy();
+			case "discard-oldest":
+				return new DiscardOldestPolicy();
+			default:
+				log.warn("AsyncLearningHandler#rejectionHandler - reason=unknown rejection policy, fallback to abort, policy={}",
+						policy);
+				return new ThreadPoolExecutor.AbortPolicy();
+		}
+	}
+
+	/**
+	 * 被丢弃的任务不会再执行，以异常结束其 Future，避免调用方永久等待
+	 */
+	private static void discarded(Runnable runnable) {
+		if (runnable instanceof AsyncTask<?> task) {
+			log.warn("AsyncLearningHandler#discarded - reason=queue full, task discarded");
+			task.future.completeExceptionally(new RejectedExecutionException("Learning task discarded"));
+		}
+	}
+
+	/**
+	 * 线程池中执行的学习任务，持有对应的 Future
+	 */
+	private static final class AsyncTask<T> implements Runnable {
+
+		private final Callable<T> task;
+
+		private final CompletableFuture<T> future;
+
+		private AsyncTask(Callable<T> task, CompletableFuture<T> future) {
+			this.task = task;
+			this.future = future;
+		}
+
+		@Override
+		public void run() {
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				future.complete(task.call());
+			}
+			catch (Exception e) {
+				log.error("AsyncLearningHandler#executeAsync - reason=async task execution failed", e);
+				future.completeExceptionally(new CompletionException(e));
+			}
+		}
+
+	}
+
+	/**
+	 * 丢弃新任务，并以异常结束其 Future
+	 */
+	private static final class DiscardPolicy extends ThreadPoolExecutor.DiscardPolicy {
+
+		@Override
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+			discarded(runnable);
+		}
+
+	}
+
+	/**
+	 * 丢弃队列中最早的任务并重新提交新任务，被挤出的任务以异常结束其 Future
+	 */
+	private static final class DiscardOldestPolicy extends ThreadPoolExecutor.DiscardOldestPolicy {
+
+		@Override
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				discarded(runnable);
+				return;
+			}
+			Runnable oldest = executor.getQueue().poll();
+			if (oldest != null) {
+				discarded(oldest);
+			}
+			executor.execute(runnable);
+		}
+
+	}
+
 }
 
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.cloud.ai.graph.store.Store;
+import com.alibaba.cloud.ai.graph.store.StoreItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Store 写后缓冲（write-behind）写入器
+ * 按命名空间累积待写入的条目，达到批大小或定时到期时批量写入 Store
+ *
+ * <p>语义：
+ * <ul>
+ * <li>同一命名空间内同一 key 在写入前被多次提交时只写最后一次（合并）</li>
+ * <li>同一命名空间的刷新串行执行，后提交的版本不会被先提交的版本覆盖；删除等待进行中的刷新完成后执行</li>
+ * <li>一次刷新内的条目按提交顺序切分为连续的若干段，由写入线程并发写入；Store 没有批量写接口，并发写用于摊薄单次往返延迟</li>
+ * <li>写入失败的条目留待下次刷新重试，超过最大重试次数后丢弃，计入 {@link #droppedCount()} 并记录错误</li>
+ * <li>待写入条目总数达到上限时，提交线程同步刷新所有命名空间（背压）；{@link #close()} 刷新所有剩余条目</li>
+ * </ul>
+ *
+ * <p>丢失窗口：{@code put} 返回时条目只在内存中，进程崩溃会丢失最近一个刷新间隔（或一批）内提交的条目；
+ * Store 持续不可用时，条目在 {@link #MAX_ATTEMPTS} 次刷新后被丢弃。不能接受该窗口的场景应关闭写后缓冲，改为同步写入。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class BatchingStoreWriter implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchingStoreWriter.class);
+
+	static final int MAX_ATTEMPTS = 3;
+
+	private final Store store;
+
+	private final int maxBatchSize;
+
+	private final int maxPendingRecords;
+
+	private final int writeConcurrency;
+
+	private final ExecutorService writers;
+
+	private final ScheduledExecutorService flusher;
+
+	private final Map<List<String>, NamespaceBuffer> buffers = new ConcurrentHashMap<>();
+
+	private final AtomicInteger pendingRecords = new AtomicInteger();
+
+	private final AtomicLong droppedRecords = new AtomicLong();
+
+	private volatile boolean closed;
+
+	/**
+	 * @param store 目标Store
+	 * @param maxBatchSize 单个命名空间累积到该条数时触发刷新
+	 * @param flushIntervalMs 定时刷新间隔（毫秒）
+	 * @param writeConcurrency 一次刷新的并发写入数
+	 * @param maxPendingRecords 所有命名空间待写入条目总数上限，达到后提交线程同步刷新
+	 */
+	public BatchingStoreWriter(Store store, int maxBatchSize, long flushIntervalMs, int writeConcurrency,
+			int maxPendingRecords) {
+		this.store = store;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.maxPendingRecords = Math.max(this.maxBatchSize, maxPendingRecords);
+		this.writeConcurrency = Math.max(1, writeConcurrency);
+		this.writers = this.writeConcurrency > 1
+				? Executors.newFixedThreadPool(this.writeConcurrency - 1, daemonThreads("learning-store-writer-"))
+				: null;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(daemonThreads("learning-store-flush-"));
+		long interval = Math.max(1, flushIntervalMs);
+		this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+		log.info(
+				"BatchingStoreWriter#constructor - reason=write-behind store writer initialized, maxBatchSize={}, flushIntervalMs={}, writeConcurrency={}, maxPendingRecords={}",
+				this.maxBatchSize, interval, this.writeConcurrency, this.maxPendingRecords);
+	}
+
+	/**
+	 * 提交一个待写入条目；关闭后直接同步写入
+	 * @param item 条目
+	 */
+	public void put(StoreItem item) {
+		if (closed) {
+			store.putItem(item);
+			return;
+		}
+
+		NamespaceBuffer buffer = buffers.computeIfAbsent(List.copyOf(item.getNamespace()), NamespaceBuffer::new);
+		int size = buffer.add(item);
+		if (closed) {
+			// 加入缓冲时并发的 close() 可能已完成最后一次刷新，由提交线程写入
+			flush(buffer);
+		}
+		else if (pendingRecords.get() >= maxPendingRecords) {
+			// 写入跟不上提交速度时由提交线程承担刷新，全局上限由所有命名空间共同占用
+			flush();
+		}
+		else if (size >= maxBatchSize && buffer.flushScheduled.compareAndSet(false, true)) {
+			try {
+				flusher.execute(() -> {
+					buffer.flushScheduled.set(false);
+					flush(buffer);
+				});
+			}
+			catch (RejectedExecutionException e) {
+				// 与 close() 并发，刷新线程已停止
+				buffer.flushScheduled.set(false);
+				flush(buffer);
+			}
+		}
+	}
+
+	/**
+	 * 查找尚未写入 Store（待写入或正在写入）的条目，用于读己之写
+	 * @param namespace 命名空间路径
+	 * @param key 键
+	 * @return 条目
+	 */
+	public Optional<StoreItem> pending(List<String> namespace, String key) {
+		NamespaceBuffer buffer = buffers.get(namespace);
+		return buffer != null ? buffer.find(key) : Optional.empty();
+	}
+
+	/**
+	 * 删除条目：丢弃待写入的版本，等待该命名空间进行中的刷新完成后从 Store 删除
+	 * @param namespace 命名空间路径
+	 * @param key 键
+	 * @return 条目是否存在（待写入或在 Store 中）并被删除
+	 */
+	public boolean delete(List<String> namespace, String key) {
+		NamespaceBuffer buffer = buffers.get(namespace);
+		if (buffer == null) {
+			return store.deleteItem(namespace, key);
+		}
+		buffer.flushLock.lock();
+		try {
+			boolean discarded = buffer.discard(key);
+			return store.deleteItem(namespace, key) || discarded;
+		}
+		finally {
+			buffer.flushLock.unlock();
+		}
+	}
+
+	/**
+	 * 同步刷新一个命名空间
+	 * @param namespace 命名空间路径
+	 */
+	public void flush(List<String> namespace) {
+		NamespaceBuffer buffer = buffers.get(namespace);
+		if (buffer != null) {
+			flush(buffer);
+		}
+	}
+
+	/**
+	 * 同步刷新所有命名空间
+	 */
+	public void flush() {
+		for (NamespaceBuffer buffer : buffers.values()) {
+			flush(buffer);
+		}
+	}
+
+	/**
+	 * 所有命名空间中尚未写入的条目数
+	 */
+	public int pendingCount() {
+		return pendingRecords.get();
+	}
+
+	/**
+	 * 超过重试次数或关闭时仍未写入而被丢弃的条目数
+	 */
+	public long droppedCount() {
+		return droppedRecords.get();
+	}
+
+	/**
+	 * 停止定时刷新并写入所有剩余条目
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(30, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// 失败的条目在重试次数内继续刷新
+		for (int attempt = 0; attempt < MAX_ATTEMPTS && pendingRecords.get() > 0; attempt++) {
+			flush();
+		}
+		if (writers != null) {
+			writers.shutdown();
+		}
+		int remaining = pendingRecords.get();
+		if (remaining > 0) {
+			droppedRecords.addAndGet(remaining);
+			log.error("BatchingStoreWriter#close - reason=write-behind store writer closed with unwritten items, remaining={}",
+					remaining);
+		}
+		log.info("BatchingStoreWriter#close - reason=write-behind store writer closed, dropped={}",
+				droppedRecords.get());
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (Exception e) {
+			log.error("BatchingStoreWriter#flushQuietly - reason=scheduled flush failed", e);
+		}
+	}
+
+	private void flush(NamespaceBuffer buffer) {
+		buffer.flushLock.lock();
+		try {
+			List<PendingWrite> batch = buffer.drain();
+			if (batch.isEmpty()) {
+				return;
+			}
+			List<PendingWrite> failed = write(batch);
+			buffer.complete(failed);
+			if (failed.isEmpty()) {
+				log.debug("BatchingStoreWriter#flush - reason=batch written, namespace={}, count={}",
+						buffer.namespace, batch.size());
+			}
+			else {
+				log.warn("BatchingStoreWriter#flush - reason=batch partially written, namespace={}, count={}, failed={}",
+						buffer.namespace, batch.size(), failed.size());
+			}
+		}
+		finally {
+			buffer.flushLock.unlock();
+		}
+	}
+
+	/**
+	 * 按提交顺序切分为连续的段并发写入，当前线程写第一段
+	 */
+	private List<PendingWrite> write(List<PendingWrite> batch) {
+		int chunks = writers == null ? 1 : Math.min(writeConcurrency, batch.size());
+		if (chunks == 1) {
+			return writeChunk(batch);
+		}
+
+		int chunkSize = (batch.size() + chunks - 1) / chunks;
+		List<Future<List<PendingWrite>>> futures = new ArrayList<>();
+		for (int from = chunkSize; from < batch.size(); from += chunkSize) {
+			List<PendingWrite> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+			futures.add(writers.submit(() -> writeChunk(chunk)));
+		}
+		List<PendingWrite> failed = new ArrayList<>(writeChunk(batch.subList(0, chunkSize)));
+		boolean interrupted = false;
+		for (Future<List<PendingWrite>> future : futures) {
+			while (true) {
+				try {
+					failed.addAll(future.get());
+					break;
+				}
+				catch (InterruptedException e) {
+					// 等待写入线程结束，保证同一命名空间的刷新串行
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					log.error("BatchingStoreWriter#write - reason=writer task failed", e.getCause());
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return failed;
+	}
+
+	private List<PendingWrite> writeChunk(List<PendingWrite> chunk) {
+		List<PendingWrite> failed = new ArrayList<>();
+		for (PendingWrite write : chunk) {
+			try {
+				store.putItem(write.item());
+			}
+			catch (Exception e) {
+				if (write.attempts() + 1 >= MAX_ATTEMPTS) {
+					droppedRecords.incrementAndGet();
+					log.error("BatchingStoreWriter#writeChunk - reason=giving up writing item, namespace={}, key={}, attempts={}",
+							write.item().getNamespace(), write.item().getKey(), write.attempts() + 1, e);
+				}
+				else {
+					failed.add(new PendingWrite(write.item(), write.attempts() + 1));
+				}
+			}
+		}
+		return failed;
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, prefix + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private record PendingWrite(StoreItem item, int attempts) {
+	}
+
+	/**
+	 * 单个命名空间的缓冲：pending 按提交顺序保存待写入条目，inFlight 为正在写入的批次
+	 */
+	private final class NamespaceBuffer {
+
+		private final List<String> namespace;
+
+		private final ReentrantLock flushLock = new ReentrantLock();
+
+		private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+		private LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+
+		private Map<String, PendingWrite> inFlight = Map.of();
+
+		NamespaceBuffer(List<String> namespace) {
+			this.namespace = namespace;
+		}
+
+		synchronized int add(StoreItem item) {
+			// 先移除再放入，使重复提交的 key 按最后一次提交的位置排序
+			if (pending.remove(item.getKey()) == null) {
+				pendingRecords.incrementAndGet();
+			}
+			pending.put(item.getKey(), new PendingWrite(item, 0));
+			return pending.size();
+		}
+
+		synchronized Optional<StoreItem> find(String key) {
+			PendingWrite write = pending.get(key);
+			if (write == null) {
+				write = inFlight.get(key);
+			}
+			return write != null ? Optional.of(write.item()) : Optional.empty();
+		}
+
+		synchronized boolean discard(String key) {
+			if (pending.remove(key) != null) {
+				pendingRecords.decrementAndGet();
+				return true;
+			}
+			return false;
+		}
+
+		synchronized List<PendingWrite> drain() {
+			if (pending.isEmpty()) {
+				return List.of();
+			}
+			List<PendingWrite> batch = new ArrayList<>(pending.values());
+			inFlight = pending;
+			pending = new LinkedHashMap<>();
+			pendingRecords.addAndGet(-batch.size());
+			return batch;
+		}
+
+		/**
+		 * 结束一次刷新：失败且未被更新版本取代的条目放回队首，等待下次刷新重试
+		 */
+		synchronized void complete(List<PendingWrite> failed) {
+			inFlight = Map.of();
+			if (failed.isEmpty()) {
+				return;
+			}
+			LinkedHashMap<String, PendingWrite> retried = new LinkedHashMap<>();
+			for (PendingWrite write : failed) {
+				if (!pending.containsKey(write.item().getKey())) {
+					retried.put(write.item().getKey(), write);
+				}
+			}
+			pendingRecords.addAndGet(retried.size());
+			retried.putAll(pending);
+			pending = retried;
+		}
+
+	}
+
+}
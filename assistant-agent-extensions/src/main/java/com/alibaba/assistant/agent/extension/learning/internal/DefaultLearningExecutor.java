@@ -24,9 +24,12 @@ import com.alibaba.assistant.agent.extension.learning.spi.LearningRepository;
 import com.alibaba.assistant.agent.extension.learning.spi.LearningStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -36,7 +39,7 @@ import java.util.stream.Collectors;
  * @author Assistant Agent Team
  * @since 1.0.0
  */
-public class DefaultLearningExecutor implements LearningExecutor {
+public class DefaultLearningExecutor implements LearningExecutor, SmartLifecycle {
 
 	private static final Logger log = LoggerFactory.getLogger(DefaultLearningExecutor.class);
 
@@ -48,16 +51,69 @@ public class DefaultLearningExecutor implements LearningExecutor {
 
 	private final AsyncLearningHandler asyncHandler;
 
+	private final LearningWorkQueue workQueue;
+
+	private final ParallelLearningBatchExecutor batchExecutor;
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
 	public DefaultLearningExecutor(List<LearningExtractor<?>> extractors, List<LearningRepository<?>> repositories,
 			LearningStrategy strategy, AsyncLearningHandler asyncHandler) {
+		this(extractors, repositories, strategy, asyncHandler, null);
+	}
+
+	public DefaultLearningExecutor(List<LearningExtractor<?>> extractors, List<LearningRepository<?>> repositories,
+			LearningStrategy strategy, AsyncLearningHandler asyncHandler, LearningWorkQueue workQueue) {
+		this(extractors, repositories, strategy, asyncHandler, workQueue, null);
+	}
+
+	/**
+	 * @param workQueue 持久化工作队列，不为null时异步任务经由队列执行；由 {@link #start()} 绑定处理函数启动消费
+	 * @param batchExecutor 并行批量执行器，为null时批量任务顺序执行
+	 */
+	public DefaultLearningExecutor(List<LearningExtractor<?>> extractors, List<LearningRepository<?>> repositories,
+			LearningStrategy strategy, AsyncLearningHandler asyncHandler, LearningWorkQueue workQueue,
+			ParallelLearningBatchExecutor batchExecutor) {
 		this.extractors = extractors != null ? extractors : new ArrayList<>();
 		this.repositories = repositories != null ? repositories : new ArrayList<>();
 		this.strategy = strategy;
 		this.asyncHandler = asyncHandler;
+		this.workQueue = workQueue;
+		this.batchExecutor = batchExecutor;
+	}
+
+	/**
+	 * 绑定工作队列的处理函数并启动消费，只在首次调用时生效
+	 * 容器在所有单例创建完成后调用，恢复的任务不会在依赖就绪前被消费；不在容器中使用时由创建方调用
+	 */
+	@Override
+	public void start() {
+		if (workQueue != null && started.compareAndSet(false, true)) {
+			workQueue.start(this::execute);
+		}
+	}
+
+	/**
+	 * 消费线程随工作队列关闭而停止，这里无需处理
+	 */
+	@Override
+	public void stop() {
+	}
+
+	@Override
+	public boolean isRunning() {
+		return started.get();
 	}
 
 	@Override
 	public LearningResult execute(LearningTask task) {
+		return execute(task, null);
+	}
+
+	/**
+	 * @param cancellation 批量任务的取消状态，为null表示不可取消
+	 */
+	private LearningResult execute(LearningTask task, ParallelLearningBatchExecutor.ItemCancellation cancellation) {
 		log.info("DefaultLearningExecutor#execute - reason=start execute learning task, taskId={}, learningType={}",
 				task.getId(), task.getLearningType());
 
@@ -92,6 +148,9 @@ public class DefaultLearningExecutor implements LearningExecutor {
 			}
 
 			// 3. 提取学习记录
+			if (cancellation != null && cancellation.isCancelled()) {
+				return cancelled(task, startTime);
+			}
 			List<?> records = extractor.extract(task.getContext());
 			if (records == null || records.isEmpty()) {
 				log.info("DefaultLearningExecutor#execute - reason=no records extracted, taskId={}, learningType={}",
@@ -121,7 +180,10 @@ public class DefaultLearningExecutor implements LearningExecutor {
 			// 5. 解析命名空间
 			String namespace = strategy.resolveNamespace(task);
 
-			// 6. 持久化学习记录
+			// 6. 持久化学习记录，已超时取消的任务不再写入
+			if (cancellation != null && !cancellation.tryCommit()) {
+				return cancelled(task, startTime);
+			}
 			repository.saveBatch(namespace, records);
 
 			log.info(
@@ -154,6 +216,9 @@ public class DefaultLearningExecutor implements LearningExecutor {
 				"DefaultLearningExecutor#executeAsync - reason=start async execute learning task, taskId={}, learningType={}",
 				task.getId(), task.getLearningType());
 
+		if (workQueue != null) {
+			return workQueue.submit(task);
+		}
 		return asyncHandler.executeAsync(() -> execute(task));
 	}
 
@@ -162,6 +227,9 @@ public class DefaultLearningExecutor implements LearningExecutor {
 		log.info("DefaultLearningExecutor#executeBatch - reason=start batch execute learning tasks, taskCount={}",
 				tasks.size());
 
+		if (batchExecutor != null && tasks.size() > 1) {
+			return batchExecutor.execute(tasks, this::execute);
+		}
 		return tasks.stream().map(this::execute).collect(Collectors.toList());
 	}
 
@@ -170,5 +238,16 @@ public class DefaultLearningExecutor implements LearningExecutor {
 		return extractors.stream().map(LearningExtractor::getSupportedLearningType).collect(Collectors.toList());
 	}
 
+	private static LearningResult cancelled(LearningTask task, long startTime) {
+		log.warn("DefaultLearningExecutor#execute - reason=learning task cancelled after timeout, skip persist, taskId={}",
+				task.getId());
+		return LearningResult.builder()
+			.taskId(task.getId())
+			.success(false)
+			.failureReason("Learning task cancelled")
+			.duration(System.currentTimeMillis() - startTime)
+			.build();
+	}
+
 }
 
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.common.text.TextTokenizer;
+import com.alibaba.assistant.agent.core.model.ExecutionRecord;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
+import com.alibaba.assistant.agent.extension.learning.model.ToolCallRecord;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 学习候选打分器
+ *
+ * <p>在调用大模型判断"是否值得学习"之前，用本地信号给学习上下文打分，分数低于阈值的上下文直接跳过：
+ * <ul>
+ *   <li>执行成功率：execution_history 与工具调用记录中成功的比例，没有执行记录时取中性值</li>
+ *   <li>内容量：生成代码的字符数，没有代码时按对话长度折算</li>
+ *   <li>工具调用数</li>
+ *   <li>新颖度：与已有经验的 MinHash 相似度的补数，与已有经验高度重复的上下文得分接近0；
+ *   仓库不跟踪版本号时无法增量刷新签名，为避免每次打分都全量列出经验，不计算新颖度</li>
+ * </ul>
+ * 分数 = 成功率 × (0.7 × 内容量 + 0.3 × 工具调用) × 新颖度，取值 [0, 1]。
+ *
+ * <p>被跳过的上下文按 calibrationSampleRate 抽样仍交给大模型判断，用于校准阈值：
+ * 抽样中大模型判断为值得学习的比例即过滤器漏判率的估计。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class LearningCandidateScorer {
+
+	private static final Logger log = LoggerFactory.getLogger(LearningCandidateScorer.class);
+
+	private static final String GENERATED_CODES = "generated_codes";
+
+	private static final String EXECUTION_HISTORY = "execution_history";
+
+	private static final String INPUT = "input";
+
+	/**
+	 * 没有任何执行记录时的成功率中性值
+	 */
+	static final double NEUTRAL_SUCCESS = 0.6;
+
+	private static final double CODE_SATURATION_CHARS = 1200;
+
+	private static final double CONVERSATION_SATURATION_CHARS = 2000;
+
+	/**
+	 * 对话内容相对生成代码的折算系数
+	 */
+	private static final double CONVERSATION_WEIGHT = 0.6;
+
+	private static final double TOOL_CALL_SATURATION = 3;
+
+	private static final int MIN_HASH_FUNCTIONS = 64;
+
+	private static final long[] MIN_HASH_SEEDS = new long[MIN_HASH_FUNCTIONS];
+
+	static {
+		long seed = 0x2545F4914F6CDD1DL;
+		for (int i = 0; i < MIN_HASH_FUNCTIONS; i++) {
+			seed = mix64(seed + 0x9E3779B97F4A7C15L);
+			MIN_HASH_SEEDS[i] = seed;
+		}
+	}
+
+	private final ExperienceRepository experienceRepository;
+
+	private final double threshold;
+
+	private final double calibrationSampleRate;
+
+	private final DoubleSupplier random;
+
+	/**
+	 * 已有经验的签名缓存，仓库版本号变化时按经验 id 与更新时间增量刷新
+	 */
+	private volatile SignatureSnapshot snapshot = new SignatureSnapshot(Long.MIN_VALUE, Map.of());
+
+	private final AtomicLong scoredCount = new AtomicLong();
+
+	private final AtomicLong skippedCount = new AtomicLong();
+
+	private final AtomicLong calibrationCount = new AtomicLong();
+
+	private final AtomicLong calibrationMissCount = new AtomicLong();
+
+	private final AtomicBoolean untrackedWarned = new AtomicBoolean();
+
+	/**
+	 * @param experienceRepository 已有经验仓库，用于计算新颖度，为null或不跟踪版本号时新颖度恒为1
+	 * @param threshold 分数低于该值时跳过大模型判断
+	 * @param calibrationSampleRate 低分上下文中仍交给大模型判断的比例，取值 [0, 1]
+	 */
+	public LearningCandidateScorer(ExperienceRepository experienceRepository, double threshold,
+			double calibrationSampleRate) {
+		this(experienceRepository, threshold, calibrationSampleRate, () -> ThreadLocalRandom.current().nextDouble());
+	}
+
+	LearningCandidateScorer(ExperienceRepository experienceRepository, double threshold, double calibrationSampleRate,
+			DoubleSupplier random) {
+		this.experienceRepository = experienceRepository;
+		this.threshold = threshold;
+		this.calibrationSampleRate = Math.max(0, Math.min(1, calibrationSampleRate));
+		this.random = random;
+
+		log.info(
+				"LearningCandidateScorer#constructor - reason=candidate scorer initialized, threshold={}, calibrationSampleRate={}, noveltyEnabled={}",
+				threshold, this.calibrationSampleRate, experienceRepository != null);
+	}
+
+	/**
+	 * 判断上下文是否需要交给大模型判断
+	 * @return 高于阈值或被抽中校准时返回对应决策，否则返回跳过决策
+	 */
+	public Decision evaluate(LearningContext context, OverAllState state) {
+		double score = score(context, state);
+		scoredCount.incrementAndGet();
+		if (score >= threshold) {
+			return new Decision(score, true, false);
+		}
+		if (calibrationSampleRate > 0 && random.getAsDouble() < calibrationSampleRate) {
+			calibrationCount.incrementAndGet();
+			return new Decision(score, true, true);
+		}
+		skippedCount.incrementAndGet();
+		return new Decision(score, false, false);
+	}
+
+	/**
+	 * 记录校准样本的大模型判断结果
+	 */
+	public void recordCalibration(Decision decision, boolean llmWorthLearning) {
+		if (!decision.calibration()) {
+			return;
+		}
+		if (llmWorthLearning) {
+			calibrationMissCount.incrementAndGet();
+		}
+		log.info(
+				"LearningCandidateScorer#recordCalibration - reason=calibration sample judged, score={}, threshold={}, llmWorthLearning={}, samples={}, misses={}",
+				decision.score(), threshold, llmWorthLearning, calibrationCount.get(), calibrationMissCount.get());
+	}
+
+	/**
+	 * 计算上下文得分
+	 */
+	public double score(LearningContext context, OverAllState state) {
+		Object codes = state.value(GENERATED_CODES).orElse(null);
+		List<ToolCallRecord> toolCalls = context.getToolCallRecords();
+		int toolCallCount = toolCalls != null ? toolCalls.size() : 0;
+
+		double success = successRatio(state.value(EXECUTION_HISTORY).orElse(null), toolCalls);
+		double code = saturate(textLength(codes), CODE_SATURATION_CHARS);
+		double conversation = saturate(conversationLength(context.getConversationHistory()),
+				CONVERSATION_SATURATION_CHARS);
+		double content = Math.max(code, CONVERSATION_WEIGHT * conversation);
+		double tools = Math.min(1, toolCallCount / TOOL_CALL_SATURATION);
+		double activity = 0.7 * content + 0.3 * tools;
+
+		double score = success * activity;
+		double novelty = 1;
+		if (score > 0 && experienceRepository != null) {
+			novelty = 1 - maxSimilarity(candidateText(context, state, codes));
+			score *= novelty;
+		}
+
+		log.debug(
+				"LearningCandidateScorer#score - reason=context scored, score={}, success={}, content={}, toolCalls={}, novelty={}",
+				score, success, content, toolCallCount, novelty);
+		return score;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public long getScoredCount() {
+		return scoredCount.get();
+	}
+
+	/**
+	 * 因低分跳过、未调用大模型的上下文数
+	 */
+	public long getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	public long getCalibrationCount() {
+		return calibrationCount.get();
+	}
+
+	/**
+	 * 校准样本中大模型判断为值得学习的数量
+	 */
+	public long getCalibrationMissCount() {
+		return calibrationMissCount.get();
+	}
+
+	/**
+	 * 执行成功率，优先使用 execution_history，其次使用工具调用记录
+	 */
+	private static double successRatio(Object executionHistory, List<ToolCallRecord> toolCalls) {
+		int total = 0;
+		int succeeded = 0;
+		if (executionHistory instanceof List<?> records) {
+			for (Object record : records) {
+				Boolean success = null;
+				if (record instanceof ExecutionRecord executionRecord) {
+					success = executionRecord.isSuccess();
+				}
+				else if (record instanceof Map<?, ?> map && map.get("success") instanceof Boolean value) {
+					// 从工作队列日志恢复的状态中，执行记录是 JSON 对象
+					success = value;
+				}
+				if (success != null) {
+					total++;
+					succeeded += success ? 1 : 0;
+				}
+			}
+		}
+		if (total == 0 && toolCalls != null) {
+			for (ToolCallRecord toolCall : toolCalls) {
+				total++;
+				succeeded += toolCall.isSuccess() ? 1 : 0;
+			}
+		}
+		return total == 0 ? NEUTRAL_SUCCESS : (double) succeeded / total;
+	}
+
+	private static double saturate(int length, double saturation) {
+		return Math.sqrt(Math.min(1, length / saturation));
+	}
+
+	private static int textLength(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof List<?> list) {
+			int length = 0;
+			for (Object item : list) {
+				length += item != null ? item.toString().length() : 0;
+			}
+			return length;
+		}
+		return value.toString().length();
+	}
+
+	private static int conversationLength(List<Object> conversation) {
+		return conversation != null ? textLength(conversation) : 0;
+	}
+
+	private static String candidateText(LearningContext context, OverAllState state, Object codes) {
+		StringBuilder text = new StringBuilder();
+		Object input = state.value(INPUT).orElse(null);
+		if (input != null) {
+			text.append(input).append('\n');
+		}
+		else if (context.getConversationHistory() != null) {
+			for (Object message : context.getConversationHistory()) {
+				text.append(message).append('\n');
+			}
+		}
+		if (codes instanceof List<?> list) {
+			for (Object code : list) {
+				text.append(code).append('\n');
+			}
+		}
+		else if (codes != null) {
+			text.append(codes);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * 与已有经验的最大 MinHash 相似度（Jaccard 估计值）
+	 */
+	private double maxSimilarity(String text) {
+		long[] signature = signature(text);
+		if (signature == null) {
+			return 0;
+		}
+		double max = 0;
+		for (ExperienceSignature existing : refreshSignatures().values()) {
+			if (existing.signature() == null) {
+				continue;
+			}
+			int equal = 0;
+			for (int i = 0; i < MIN_HASH_FUNCTIONS; i++) {
+				if (signature[i] == existing.signature()[i]) {
+					equal++;
+				}
+			}
+			max = Math.max(max, (double) equal / MIN_HASH_FUNCTIONS);
+		}
+		return max;
+	}
+
+	private Map<String, ExperienceSignature> refreshSignatures() {
+		SignatureSnapshot current = snapshot;
+		long generation = experienceRepository.generation();
+		if (generation < 0) {
+			if (untrackedWarned.compareAndSet(false, true)) {
+				log.warn(
+						"LearningCandidateScorer#refreshSignatures - reason=experience repository does not track generation, novelty scoring disabled, repository={}",
+						experienceRepository.getClass().getSimpleName());
+			}
+			return Map.of();
+		}
+		// 版本号变化后重新列出经验，未变化的经验复用已有签名
+		if (generation == current.generation()) {
+			return current.signatures();
+		}
+		List<Experience> experiences = experienceRepository.findByTypeAndScope(null, null, null, null);
+		Map<String, ExperienceSignature> signatures = new HashMap<>(experiences.size() * 2);
+		for (Experience experience : experiences) {
+			if (experience.getId() == null) {
+				continue;
+			}
+			ExperienceSignature cached = current.signatures().get(experience.getId());
+			if (cached != null && Objects.equals(cached.updatedAt(), experience.getUpdatedAt())) {
+				signatures.put(experience.getId(), cached);
+			}
+			else {
+				String text = (experience.getTitle() != null ? experience.getTitle() + "\n" : "")
+						+ Objects.toString(experience.getEffectiveContent(), "");
+				signatures.put(experience.getId(), new ExperienceSignature(experience.getUpdatedAt(), signature(text)));
+			}
+		}
+		snapshot = new SignatureSnapshot(generation, signatures);
+		return signatures;
+	}
+
+	/**
+	 * 文本词集合的 MinHash 签名，没有可用词时返回null
+	 */
+	static long[] signature(String text) {
+		Set<String> tokens = new HashSet<>(TextTokenizer.tokenize(text));
+		if (tokens.isEmpty()) {
+			return null;
+		}
+		long[] signature = new long[MIN_HASH_FUNCTIONS];
+		Arrays.fill(signature, Long.MAX_VALUE);
+		for (String token : tokens) {
+			long base = fnv1a64(token);
+			for (int i = 0; i < MIN_HASH_FUNCTIONS; i++) {
+				long hash = mix64(base ^ MIN_HASH_SEEDS[i]);
+				if (hash < signature[i]) {
+					signature[i] = hash;
+				}
+			}
+		}
+		return signature;
+	}
+
+	private static long fnv1a64(String token) {
+		long hash = 0xCBF29CE484222325L;
+		for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+
+	/**
+	 * 打分决策
+	 * @param score 本地得分
+	 * @param judge 是否交给大模型判断
+	 * @param calibration 是否为低分抽样的校准样本
+	 */
+	public record Decision(double score, boolean judge, boolean calibration) {
+	}
+
+	private record ExperienceSignature(Instant updatedAt, long[] signature) {
+	}
+
+	private record SignatureSnapshot(long generation, Map<String, ExperienceSignature> signatures) {
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTask;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTaskMetadata;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTriggerSource;
+import com.alibaba.assistant.agent.extension.learning.model.ModelCallRecord;
+import com.alibaba.assistant.agent.extension.learning.model.ToolCallRecord;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 学习任务快照编解码
+ *
+ * <p>学习上下文中的 OverAllState、对话消息等对象不可直接序列化，这里将任务转成 JSON 快照写入工作队列日志：
+ * 对话消息按 {@link String#valueOf(Object)} 保存（提取器构建提示词时本就使用其文本形式）， 状态中的值尽量按
+ * Jackson 树保存，无法序列化的值退化为文本。解码得到的任务保留原任务ID，状态重建为以 JSON 值为内容的
+ * {@link OverAllState}。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+final class LearningTaskCodec {
+
+	private static final String MESSAGES_KEY = "messages";
+
+	private final ObjectMapper objectMapper;
+
+	LearningTaskCodec() {
+		this.objectMapper = JsonMapper.builder()
+			.findAndAddModules()
+			.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.build();
+	}
+
+	/**
+	 * 编码任务快照
+	 */
+	byte[] encode(LearningTask task) throws IOException {
+		ObjectNode root = objectMapper.createObjectNode();
+		root.put("id", task.getId());
+		root.put("learningType", task.getLearningType());
+		if (task.getTriggerSource() != null) {
+			root.put("triggerSource", task.getTriggerSource().name());
+		}
+		LearningTaskMetadata metadata = task.getMetadata();
+		if (metadata != null) {
+			if (metadata.getCreatedAt() != null) {
+				root.put("createdAt", metadata.getCreatedAt().toString());
+			}
+			root.set("metadata", toTree(metadata.getCustomData()));
+		}
+
+		LearningContext context = task.getContext();
+		if (context != null) {
+			ObjectNode contextNode = root.putObject("context");
+			if (context.getOverAllState() instanceof OverAllState state) {
+				ObjectNode stateNode = contextNode.putObject("state");
+				state.data().forEach((key, value) -> {
+					// 消息单独按文本保存在 conversation 中
+					if (!MESSAGES_KEY.equals(key)) {
+						stateNode.set(key, toTree(value));
+					}
+				});
+			}
+			if (context.getConversationHistory() != null) {
+				ArrayNode conversation = contextNode.putArray("conversation");
+				for (Object message : context.getConversationHistory()) {
+					conversation.add(String.valueOf(message));
+				}
+			}
+			contextNode.set("toolCalls", toTree(context.getToolCallRecords()));
+			contextNode.set("modelCalls", toTree(context.getModelCallRecords()));
+			contextNode.set("customData", toTree(context.getCustomData()));
+		}
+		return objectMapper.writeValueAsBytes(root);
+	}
+
+	/**
+	 * 解码任务快照
+	 */
+	LearningTask decode(byte[] json) throws IOException {
+		JsonNode root = objectMapper.readTree(json);
+		LearningTriggerSource triggerSource = root.hasNonNull("triggerSource")
+				? LearningTriggerSource.valueOf(root.get("triggerSource").asText()) : null;
+
+		LearningTaskMetadata metadata = new LearningTaskMetadata();
+		metadata.setTaskId(root.get("id").asText());
+		if (root.hasNonNull("createdAt")) {
+			metadata.setCreatedAt(Instant.parse(root.get("createdAt").asText()));
+		}
+		Map<String, Object> metadataData = toMap(root.get("metadata"));
+		if (metadataData != null) {
+			metadata.setCustomData(metadataData);
+		}
+
+		LearningContext context = null;
+		JsonNode contextNode = root.get("context");
+		if (contextNode != null && contextNode.isObject()) {
+			List<Object> conversation = null;
+			if (contextNode.has("conversation")) {
+				conversation = new ArrayList<>();
+				for (JsonNode message : contextNode.get("conversation")) {
+					conversation.add(message.asText());
+				}
+			}
+			OverAllState state = null;
+			Map<String, Object> stateData = toMap(contextNode.get("state"));
+			if (stateData != null) {
+				if (conversation != null) {
+					stateData.put(MESSAGES_KEY, conversation);
+				}
+				state = new OverAllState(stateData);
+			}
+			context = LearningContext.builder()
+				.overAllState(state)
+				.conversationHistory(conversation)
+				.toolCallRecords(toList(contextNode.get("toolCalls"), ToolCallRecord.class))
+				.modelCallRecords(toList(contextNode.get("modelCalls"), ModelCallRecord.class))
+				.customData(toMap(contextNode.get("customData")))
+				.triggerSource(triggerSource)
+				.build();
+		}
+
+		return DefaultLearningTask.builder()
+			.learningType(root.path("learningType").asText(null))
+			.triggerSource(triggerSource)
+			.context(context)
+			.metadata(metadata)
+			.build();
+	}
+
+	/**
+	 * 转成 JSON 树，无法序列化时退化为文本
+	 */
+	private JsonNode toTree(Object value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return objectMapper.valueToTree(value);
+		}
+		catch (IllegalArgumentException e) {
+			return TextNode.valueOf(String.valueOf(value));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> toMap(JsonNode node) {
+		if (node == null || !node.isObject()) {
+			return null;
+		}
+		return objectMapper.convertValue(node, LinkedHashMap.class);
+	}
+
+	private <T> List<T> toList(JsonNode node, Class<T> type) {
+		if (node == null || !node.isArray()) {
+			return new ArrayList<>();
+		}
+		List<T> items = new ArrayList<>(node.size());
+		for (JsonNode item : node) {
+			items.add(objectMapper.convertValue(item, type));
+		}
+		return items;
+	}
+
+}
@@ -0,0 +1,762 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.model.LearningResult;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * 持久化学习工作队列
+ *
+ * <p>替代线程池加 CallerRunsPolicy 的异步执行方式：提交线程只负责把任务快照追加到本地日志并入队，
+ * 由专用消费线程执行学习，队列满时按 {@link OverflowPolicy} 丢弃或延后，不会在请求线程上执行学习。
+ *
+ * <p>日志格式：8字节魔数，随后是连续的记录。每条记录为 {@code [int 长度][int CRC32C][正文]}，正文为
+ * {@code [byte 操作][short ID长度][任务ID][快照JSON]}，ENQUEUE 记录携带快照，ACK 记录只有任务ID。
+ * 任务执行结束后才写 ACK，进程崩溃后重新打开队列时，所有没有 ACK 的任务按入队顺序重新投递（至少一次）。
+ * 任务ID作为幂等键：同一ID在处理完成前重复提交返回同一个 Future，近期已完成的ID直接忽略。
+ *
+ * <p>日志追加默认不逐条刷盘，按 syncIntervalMs 定期 force：进程被杀时数据仍在页缓存中，
+ * 只有操作系统崩溃才可能丢失最后一个间隔内的任务；syncIntervalMs 为 0 时每次追加都刷盘。
+ * 已确认的记录累积超过 compactThresholdBytes 后，将未确认的记录复制到新文件并原子替换。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class LearningWorkQueue implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(LearningWorkQueue.class);
+
+	static final String JOURNAL_FILE = "learning-queue.log";
+
+	static final long MAGIC = 0x41414C524E514A4CL; // "AALRNQJL"
+
+	static final int FILE_HEADER_SIZE = 8;
+
+	static final int RECORD_HEADER_SIZE = 8;
+
+	static final byte OP_ENQUEUE = 1;
+
+	static final byte OP_ACK = 2;
+
+	/**
+	 * 单条记录正文上限，超过视为损坏
+	 */
+	static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * 内存中保留的已完成任务ID数量，用于拒绝重复提交
+	 */
+	private static final int MAX_REMEMBERED_ACKS = 10_000;
+
+	private static final long POLL_INTERVAL_MS = 200;
+
+	private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+	/**
+	 * 队列满时的处理方式
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * 丢弃新任务，返回失败结果
+		 */
+		DROP,
+
+		/**
+		 * 任务只写入日志、不在内存中保留上下文，消费线程空闲后从日志读取快照执行
+		 */
+		DEFER;
+
+		public static OverflowPolicy of(String value) {
+			return "drop".equalsIgnoreCase(value) ? DROP : DEFER;
+		}
+
+	}
+
+	private final Path journalPath;
+
+	private final int consumerThreads;
+
+	private final int capacity;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final int maxAttempts;
+
+	private final long syncIntervalMs;
+
+	private final long compactThresholdBytes;
+
+	private final LearningTaskCodec codec = new LearningTaskCodec();
+
+	/**
+	 * 日志通道、写入位置与下列计数均由该锁保护
+	 */
+	private final Object journalLock = new Object();
+
+	private FileChannel channel;
+
+	private long end;
+
+	/**
+	 * 未确认的 ENQUEUE 记录总字节数
+	 */
+	private long liveBytes;
+
+	private volatile boolean dirty;
+
+	/**
+	 * 上下文保留在内存中的任务数，不超过 capacity
+	 */
+	private int liveCount;
+
+	private final Map<String, Boolean> recentlyAcked = new LinkedHashMap<>(16, 0.75f, false) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_REMEMBERED_ACKS;
+		}
+	};
+
+	private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+
+	private final LinkedBlockingDeque<Entry> ready = new LinkedBlockingDeque<>();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final AtomicLong deferredCount = new AtomicLong();
+
+	private final List<Thread> consumers = new ArrayList<>();
+
+	private ScheduledExecutorService syncScheduler;
+
+	private volatile Function<LearningTask, LearningResult> processor;
+
+	private volatile boolean closed;
+
+	/**
+	 * 打开（或创建）队列日志并恢复未确认的任务，恢复的任务在 {@link #start(Function)} 后开始执行
+	 * @param directory 日志目录
+	 * @param consumerThreads 消费线程数
+	 * @param capacity 内存中保留上下文的任务数上限
+	 * @param overflowPolicy 超过上限时的处理方式
+	 * @param maxAttempts 执行抛出异常时的最大尝试次数
+	 * @param syncIntervalMs 日志刷盘间隔，0 表示每次追加都刷盘
+	 * @param compactThresholdBytes 已确认记录累积到该字节数后压缩日志
+	 */
+	public LearningWorkQueue(Path directory, int consumerThreads, int capacity, OverflowPolicy overflowPolicy,
+			int maxAttempts, long syncIntervalMs, long compactThresholdBytes) throws IOException {
+		this.consumerThreads = Math.max(1, consumerThreads);
+		this.capacity = Math.max(1, capacity);
+		this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DEFER;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.syncIntervalMs = Math.max(0, syncIntervalMs);
+		this.compactThresholdBytes = Math.max(0, compactThresholdBytes);
+
+		Files.createDirectories(directory);
+		this.journalPath = directory.resolve(JOURNAL_FILE);
+		this.channel = openJournal(journalPath);
+		try {
+			recover();
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 绑定任务处理函数并启动消费线程，只能调用一次
+	 */
+	public synchronized void start(Function<LearningTask, LearningResult> processor) {
+		if (this.processor != null) {
+			throw new IllegalStateException("Learning work queue already started");
+		}
+		this.processor = processor;
+		for (int i = 0; i < consumerThreads; i++) {
+			Thread consumer = new Thread(this::consume, "learning-queue-" + i);
+			consumer.setDaemon(true);
+			consumer.start();
+			consumers.add(consumer);
+		}
+		if (syncIntervalMs > 0) {
+			syncScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "learning-queue-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+			syncScheduler.scheduleWithFixedDelay(this::sync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+		}
+
+		log.info(
+				"LearningWorkQueue#start - reason=learning work queue started, journal={}, consumerThreads={}, capacity={}, overflowPolicy={}, recovered={}",
+				journalPath, consumerThreads, capacity, overflowPolicy, inFlight.size());
+	}
+
+	/**
+	 * 提交学习任务，调用线程只做快照编码与日志追加
+	 * @param task 学习任务，ID作为幂等键
+	 * @return 任务执行结果；被丢弃或队列关闭时为失败结果
+	 */
+	public CompletableFuture<LearningResult> submit(LearningTask task) {
+		String id = task.getId();
+		Entry existing = inFlight.get(id);
+		if (existing != null) {
+			log.debug("LearningWorkQueue#submit - reason=task already queued, taskId={}", id);
+			return existing.future;
+		}
+		if (closed) {
+			return CompletableFuture.completedFuture(failure(id, "Learning work queue closed"));
+		}
+		if (overflowPolicy == OverflowPolicy.DROP && isFull()) {
+			return drop(id);
+		}
+
+		ByteBuffer record = null;
+		try {
+			record = encodeRecord(OP_ENQUEUE, id, codec.encode(task));
+		}
+		catch (IOException | RuntimeException e) {
+			// 无法持久化的任务仍在内存中执行，只是不具备崩溃恢复能力
+			log.warn("LearningWorkQueue#submit - reason=failed to encode task snapshot, taskId={}, error={}", id,
+					e.getMessage());
+		}
+
+		Entry entry;
+		synchronized (journalLock) {
+			existing = inFlight.get(id);
+			if (existing != null) {
+				return existing.future;
+			}
+			if (closed) {
+				return CompletableFuture.completedFuture(failure(id, "Learning work queue closed"));
+			}
+			if (recentlyAcked.containsKey(id)) {
+				log.info("LearningWorkQueue#submit - reason=task already processed, skip duplicate, taskId={}", id);
+				return CompletableFuture.completedFuture(LearningResult.builder().taskId(id).success(true).build());
+			}
+			boolean full = liveCount >= capacity;
+			if (full && (overflowPolicy == OverflowPolicy.DROP || record == null)) {
+				return drop(id);
+			}
+
+			long offset = -1;
+			int length = 0;
+			if (record != null) {
+				length = record.remaining();
+				try {
+					offset = append(record);
+					liveBytes += length;
+				}
+				catch (IOException e) {
+					log.warn("LearningWorkQueue#submit - reason=failed to append journal, taskId={}, error={}", id,
+							e.getMessage());
+					if (full) {
+						return drop(id);
+					}
+					length = 0;
+				}
+			}
+			entry = new Entry(id, full ? null : task, offset, length);
+			if (!full) {
+				liveCount++;
+			}
+			inFlight.put(id, entry);
+		}
+		if (entry.task == null) {
+			deferredCount.incrementAndGet();
+		}
+		ready.addLast(entry);
+		return entry.future;
+	}
+
+	/**
+	 * 尚未完成的任务数（含延后与恢复的任务）
+	 */
+	public int size() {
+		return inFlight.size();
+	}
+
+	public long droppedCount() {
+		return droppedCount.get();
+	}
+
+	public long deferredCount() {
+		return deferredCount.get();
+	}
+
+	/**
+	 * 停止消费并关闭日志，未完成的任务保留在日志中，下次打开时重新投递
+	 */
+	@Override
+	public void close() {
+		synchronized (journalLock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		log.info("LearningWorkQueue#close - reason=closing learning work queue, pending={}", inFlight.size());
+
+		long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+		for (Thread consumer : consumers) {
+			try {
+				consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		for (Thread consumer : consumers) {
+			consumer.interrupt();
+		}
+		if (syncScheduler != null) {
+			syncScheduler.shutdownNow();
+		}
+
+		synchronized (journalLock) {
+			try {
+				channel.force(false);
+				channel.close();
+			}
+			catch (IOException e) {
+				log.warn("LearningWorkQueue#close - reason=failed to close journal, error={}", e.getMessage());
+			}
+		}
+		for (Entry entry : inFlight.values()) {
+			entry.future
+				.complete(failure(entry.id, "Learning work queue closed, task will be replayed on restart"));
+		}
+	}
+
+	private boolean isFull() {
+		synchronized (journalLock) {
+			return liveCount >= capacity;
+		}
+	}
+
+	private CompletableFuture<LearningResult> drop(String id) {
+		long dropped = droppedCount.incrementAndGet();
+		log.warn("LearningWorkQueue#submit - reason=queue full, task dropped, taskId={}, droppedCount={}", id,
+				dropped);
+		return CompletableFuture.completedFuture(failure(id, "Learning work queue full, task dropped"));
+	}
+
+	private void consume() {
+		while (!closed) {
+			Entry entry;
+			try {
+				entry = ready.pollFirst(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			if (entry != null) {
+				process(entry);
+			}
+		}
+	}
+
+	private void process(Entry entry) {
+		LearningTask task = entry.task;
+		if (task != null && entry.counted) {
+			entry.counted = false;
+			synchronized (journalLock) {
+				liveCount--;
+			}
+		}
+		if (task == null) {
+			try {
+				task = codec.decode(readPayload(entry));
+			}
+			catch (IOException | RuntimeException e) {
+				log.error("LearningWorkQueue#process - reason=failed to load task snapshot, discard, taskId={}",
+						entry.id, e);
+				acknowledge(entry, failure(entry.id, "Failed to load task snapshot: " + e.getMessage()));
+				return;
+			}
+		}
+
+		LearningResult result;
+		try {
+			result = processor.apply(task);
+		}
+		catch (RuntimeException e) {
+			entry.attempts++;
+			if (entry.attempts < maxAttempts && !closed) {
+				log.warn("LearningWorkQueue#process - reason=task failed, retry later, taskId={}, attempt={}, error={}",
+						entry.id, entry.attempts, e.getMessage());
+				entry.task = task;
+				ready.addLast(entry);
+				return;
+			}
+			log.error("LearningWorkQueue#process - reason=task failed, give up, taskId={}, attempts={}", entry.id,
+					entry.attempts, e);
+			result = failure(entry.id, e.getMessage());
+		}
+		acknowledge(entry, result);
+	}
+
+	private void acknowledge(Entry entry, LearningResult result) {
+		entry.task = null;
+		synchronized (journalLock) {
+			if (entry.offset >= 0 && channel.isOpen()) {
+				try {
+					append(encodeRecord(OP_ACK, entry.id, null));
+					liveBytes -= entry.length;
+				}
+				catch (IOException e) {
+					// 没有写入 ACK 的任务会在重启后再次执行
+					log.warn("LearningWorkQueue#acknowledge - reason=failed to append ack, taskId={}, error={}",
+							entry.id, e.getMessage());
+				}
+			}
+			inFlight.remove(entry.id);
+			recentlyAcked.put(entry.id, Boolean.TRUE);
+			if (end - FILE_HEADER_SIZE - liveBytes > compactThresholdBytes && channel.isOpen()) {
+				try {
+					compact();
+				}
+				catch (IOException e) {
+					log.warn("LearningWorkQueue#acknowledge - reason=failed to compact journal, error={}",
+							e.getMessage());
+				}
+			}
+		}
+		entry.future.complete(result);
+	}
+
+	private void sync() {
+		if (!dirty) {
+			return;
+		}
+		FileChannel current;
+		synchronized (journalLock) {
+			current = channel;
+			dirty = false;
+		}
+		// 刷盘不持有锁，避免阻塞提交线程
+		try {
+			current.force(false);
+		}
+		catch (IOException e) {
+			dirty = true;
+			if (current.isOpen()) {
+				log.warn("LearningWorkQueue#sync - reason=failed to sync journal, error={}", e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 追加一条记录，调用方持有 journalLock
+	 * @return 记录起始位置
+	 */
+	private long append(ByteBuffer record) throws IOException {
+		long position = end;
+		long written = position;
+		try {
+			while (record.hasRemaining()) {
+				written += channel.write(record, written);
+			}
+		}
+		catch (IOException e) {
+			// 丢弃写了一半的尾部，保持日志可继续追加
+			channel.truncate(end);
+			throw e;
+		}
+		end = written;
+		if (syncIntervalMs == 0) {
+			channel.force(false);
+		}
+		else {
+			dirty = true;
+		}
+		return position;
+	}
+
+	private byte[] readPayload(Entry entry) throws IOException {
+		ByteBuffer buffer;
+		synchronized (journalLock) {
+			if (entry.offset < 0) {
+				throw new IOException("Task has no journal record");
+			}
+			buffer = ByteBuffer.allocate(entry.length);
+			readFully(channel, buffer, entry.offset);
+		}
+		JournalRecord record = decodeRecord(buffer);
+		if (record == null || record.op() != OP_ENQUEUE || !entry.id.equals(record.id())) {
+			throw new IOException("Corrupted journal record at " + entry.offset);
+		}
+		return record.payload();
+	}
+
+	/**
+	 * 顺序校验日志并重建未确认任务，遇到残缺或校验失败的记录时截断文件
+	 */
+	private void recover() throws IOException {
+		Map<String, Entry> pending = new LinkedHashMap<>();
+		long size = channel.size();
+		long position = FILE_HEADER_SIZE;
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		while (size - position >= RECORD_HEADER_SIZE) {
+			header.clear();
+			readFully(channel, header, position);
+			int bodySize = header.getInt(0);
+			if (bodySize <= 0 || bodySize > MAX_BODY_SIZE || position + RECORD_HEADER_SIZE + bodySize > size) {
+				break;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodySize);
+			readFully(channel, buffer, position);
+			JournalRecord record = decodeRecord(buffer);
+			if (record == null) {
+				break;
+			}
+			if (record.op() == OP_ENQUEUE) {
+				pending.put(record.id(), new Entry(record.id(), null, position, buffer.capacity()));
+			}
+			else {
+				pending.remove(record.id());
+				recentlyAcked.put(record.id(), Boolean.TRUE);
+			}
+			position += buffer.capacity();
+		}
+
+		long truncated = size - position;
+		if (truncated > 0) {
+			log.warn("LearningWorkQueue#recover - reason=truncating torn tail, path={}, validEnd={}, truncatedBytes={}",
+					journalPath, position, truncated);
+			channel.truncate(position);
+			channel.force(true);
+		}
+		end = position;
+
+		for (Entry entry : pending.values()) {
+			liveBytes += entry.length;
+			inFlight.put(entry.id, entry);
+			ready.addLast(entry);
+		}
+		if (!pending.isEmpty()) {
+			log.info("LearningWorkQueue#recover - reason=recovered unacknowledged tasks, path={}, count={}",
+					journalPath, pending.size());
+		}
+	}
+
+	/**
+	 * 将未确认的 ENQUEUE 记录按原顺序复制到新文件并原子替换，调用方持有 journalLock
+	 */
+	private void compact() throws IOException {
+		List<Entry> live = new ArrayList<>();
+		for (Entry entry : inFlight.values()) {
+			if (entry.offset >= 0) {
+				live.add(entry);
+			}
+		}
+		live.sort(Comparator.comparingLong(entry -> entry.offset));
+
+		Path tmp = journalPath.resolveSibling(JOURNAL_FILE + ".compact");
+		FileChannel target = openJournal(tmp, true);
+		long[] offsets = new long[live.size()];
+		long position = FILE_HEADER_SIZE;
+		try {
+			for (int i = 0; i < live.size(); i++) {
+				Entry entry = live.get(i);
+				offsets[i] = position;
+				long copied = 0;
+				while (copied < entry.length) {
+					copied += channel.transferTo(entry.offset + copied, entry.length - copied,
+							target.position(position + copied));
+				}
+				position += entry.length;
+			}
+			target.force(true);
+			Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException | RuntimeException e) {
+			target.close();
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+
+		long before = end;
+		channel.close();
+		channel = target;
+		end = position;
+		for (int i = 0; i < live.size(); i++) {
+			live.get(i).offset = offsets[i];
+		}
+		log.info("LearningWorkQueue#compact - reason=journal compacted, path={}, bytesBefore={}, bytesAfter={}, live={}",
+				journalPath, before, end, live.size());
+	}
+
+	private static FileChannel openJournal(Path path) throws IOException {
+		return openJournal(path, false);
+	}
+
+	private static FileChannel openJournal(Path path, boolean truncate) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (truncate || channel.size() < FILE_HEADER_SIZE) {
+				// 新文件，或写魔数时就被中断
+				channel.truncate(0);
+				ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putLong(MAGIC).flip();
+				while (header.hasRemaining()) {
+					channel.write(header, FILE_HEADER_SIZE - header.remaining());
+				}
+				channel.force(true);
+			}
+			else {
+				ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+				readFully(channel, header, 0);
+				if (header.getLong(0) != MAGIC) {
+					throw new IllegalStateException("Not a learning work queue journal: " + path);
+				}
+			}
+			return channel;
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 编码一条记录（含记录头）
+	 */
+	static ByteBuffer encodeRecord(byte op, String id, byte[] payload) {
+		byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+		if (idBytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("Task id too long: " + idBytes.length + " bytes");
+		}
+		int bodySize = 1 + 2 + idBytes.length + (payload != null ? payload.length : 0);
+		if (bodySize > MAX_BODY_SIZE) {
+			throw new IllegalArgumentException("Learning task snapshot too large: " + bodySize + " bytes");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodySize);
+		buffer.position(RECORD_HEADER_SIZE);
+		buffer.put(op).putShort((short) idBytes.length).put(idBytes);
+		if (payload != null) {
+			buffer.put(payload);
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), RECORD_HEADER_SIZE, bodySize);
+		buffer.putInt(0, bodySize).putInt(4, (int) crc.getValue());
+		return buffer.flip();
+	}
+
+	/**
+	 * 解码并校验一条完整记录，失败返回null
+	 */
+	static JournalRecord decodeRecord(ByteBuffer buffer) {
+		int bodySize = buffer.getInt(0);
+		if (bodySize < 3 || RECORD_HEADER_SIZE + bodySize != buffer.capacity()) {
+			return null;
+		}
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), RECORD_HEADER_SIZE, bodySize);
+		if ((int) crc.getValue() != buffer.getInt(4)) {
+			return null;
+		}
+		byte op = buffer.get(RECORD_HEADER_SIZE);
+		int idLength = buffer.getShort(RECORD_HEADER_SIZE + 1) & 0xFFFF;
+		int payloadStart = RECORD_HEADER_SIZE + 3 + idLength;
+		if ((op != OP_ENQUEUE && op != OP_ACK) || payloadStart > buffer.capacity()) {
+			return null;
+		}
+		String id = new String(buffer.array(), RECORD_HEADER_SIZE + 3, idLength, StandardCharsets.UTF_8);
+		byte[] payload = new byte[buffer.capacity() - payloadStart];
+		System.arraycopy(buffer.array(), payloadStart, payload, 0, payload.length);
+		return new JournalRecord(op, id, payload);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long current = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, current);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file at " + current);
+			}
+			current += read;
+		}
+	}
+
+	private static LearningResult failure(String taskId, String reason) {
+		return LearningResult.builder().taskId(taskId).success(false).failureReason(reason).build();
+	}
+
+	record JournalRecord(byte op, String id, byte[] payload) {
+	}
+
+	/**
+	 * 队列中的一个任务；task 为 null 表示上下文只在日志中（延后或恢复的任务）
+	 */
+	private static final class Entry {
+
+		private final String id;
+
+		private final CompletableFuture<LearningResult> future = new CompletableFuture<>();
+
+		private volatile LearningTask task;
+
+		private volatile boolean counted;
+
+		/**
+		 * ENQUEUE 记录位置，未持久化时为 -1，由 journalLock 保护（压缩时更新）
+		 */
+		private long offset;
+
+		private final int length;
+
+		private int attempts;
+
+		Entry(String id, LearningTask task, long offset, int length) {
+			this.id = id;
+			this.task = task;
+			this.counted = task != null;
+			this.offset = offset;
+			this.length = length;
+		}
+
+	}
+
+}
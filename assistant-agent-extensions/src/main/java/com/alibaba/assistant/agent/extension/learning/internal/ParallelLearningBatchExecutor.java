@@ -0,0 +1,244 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.model.LearningResult;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * 并行批量学习执行器
+ *
+ * <p>批量任务在固定大小的线程池上并行执行，并发数即线程数。每个任务从开始执行时计时，超过 itemTimeoutMs
+ * 后以超时失败结束，任务被标记为取消并中断执行线程（阻塞在不可中断调用上的线程会继续占用并发额度，直到调用返回）。
+ * 处理函数在持久化前通过 {@link ItemCancellation#tryCommit()} 确认任务未被取消，已超时的任务不会再写入；
+ * 确认之后任务进入提交阶段，不再超时。
+ * 结果按输入顺序返回，单个任务的异常、超时只体现在对应的结果中，不影响其他任务。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class ParallelLearningBatchExecutor implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(ParallelLearningBatchExecutor.class);
+
+	private final int concurrency;
+
+	private final long itemTimeoutMs;
+
+	private final ThreadPoolExecutor executorService;
+
+	private final ScheduledThreadPoolExecutor timeoutScheduler;
+
+	/**
+	 * @param concurrency 最大并发任务数
+	 * @param itemTimeoutMs 单个任务的超时时间，不大于0表示不限
+	 */
+	public ParallelLearningBatchExecutor(int concurrency, long itemTimeoutMs) {
+		this.concurrency = Math.max(1, concurrency);
+		this.itemTimeoutMs = itemTimeoutMs;
+		AtomicInteger count = new AtomicInteger();
+		this.executorService = new ThreadPoolExecutor(this.concurrency, this.concurrency, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "learning-batch-" + count.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executorService.allowCoreThreadTimeOut(true);
+		this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread thread = new Thread(r, "learning-batch-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.timeoutScheduler.setRemoveOnCancelPolicy(true);
+
+		log.info(
+				"ParallelLearningBatchExecutor#constructor - reason=batch executor initialized, concurrency={}, itemTimeoutMs={}",
+				this.concurrency, itemTimeoutMs);
+	}
+
+	/**
+	 * 并行执行一批任务并等待全部结束
+	 * @param tasks 学习任务
+	 * @param processor 单个任务的执行函数，第二个参数为该任务的取消状态
+	 * @return 与输入顺序一致的结果
+	 */
+	public List<LearningResult> execute(List<LearningTask> tasks,
+			BiFunction<LearningTask, ItemCancellation, LearningResult> processor) {
+		long startTime = System.currentTimeMillis();
+		List<CompletableFuture<LearningResult>> futures = new ArrayList<>(tasks.size());
+		for (LearningTask task : tasks) {
+			CompletableFuture<LearningResult> future = new CompletableFuture<>();
+			try {
+				executorService.execute(() -> runItem(task, processor, future));
+			}
+			catch (RejectedExecutionException e) {
+				future.complete(failure(task, "Batch executor closed", 0));
+			}
+			futures.add(future);
+		}
+
+		List<LearningResult> results = new ArrayList<>(futures.size());
+		int failed = 0;
+		for (CompletableFuture<LearningResult> future : futures) {
+			LearningResult result = future.join();
+			if (!result.isSuccess()) {
+				failed++;
+			}
+			results.add(result);
+		}
+
+		log.info(
+				"ParallelLearningBatchExecutor#execute - reason=batch completed, taskCount={}, succeeded={}, failed={}, duration={}ms",
+				tasks.size(), tasks.size() - failed, failed, System.currentTimeMillis() - startTime);
+		return results;
+	}
+
+	@Override
+	public void close() {
+		executorService.shutdownNow();
+		timeoutScheduler.shutdownNow();
+	}
+
+	private void runItem(LearningTask task, BiFunction<LearningTask, ItemCancellation, LearningResult> processor,
+			CompletableFuture<LearningResult> future) {
+		long startTime = System.currentTimeMillis();
+		ItemGuard guard = new ItemGuard(Thread.currentThread());
+		ScheduledFuture<?> timeout = null;
+		if (itemTimeoutMs > 0) {
+			timeout = timeoutScheduler.schedule(() -> {
+				if (guard.expire(future,
+						failure(task, "Learning task timed out after " + itemTimeoutMs + "ms", itemTimeoutMs))) {
+					log.warn("ParallelLearningBatchExecutor#runItem - reason=task timed out, taskId={}, timeoutMs={}",
+							task.getId(), itemTimeoutMs);
+				}
+			}, itemTimeoutMs, TimeUnit.MILLISECONDS);
+		}
+
+		try {
+			LearningResult result = processor.apply(task, guard);
+			future.complete(result != null ? result
+					: failure(task, "Learning task returned no result", System.currentTimeMillis() - startTime));
+		}
+		catch (RuntimeException e) {
+			log.warn("ParallelLearningBatchExecutor#runItem - reason=task failed, taskId={}, error={}", task.getId(),
+					e.getMessage());
+			future.complete(failure(task, e.getMessage(), System.currentTimeMillis() - startTime));
+		}
+		finally {
+			// Error 等未捕获的异常同样要结束 future，否则 execute 中的 join 会一直阻塞
+			if (!future.isDone()) {
+				future.complete(failure(task, "Learning task terminated abnormally",
+						System.currentTimeMillis() - startTime));
+			}
+			guard.finish();
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+			// 清除超时触发的中断，避免影响线程池中的下一个任务
+			Thread.interrupted();
+		}
+	}
+
+	private static LearningResult failure(LearningTask task, String reason, long duration) {
+		return LearningResult.builder()
+			.taskId(task.getId())
+			.success(false)
+			.failureReason(reason)
+			.duration(duration)
+			.build();
+	}
+
+	/**
+	 * 批量任务的取消状态，任务超时后置为已取消
+	 */
+	public interface ItemCancellation {
+
+		/**
+		 * 任务是否已超时取消
+		 */
+		boolean isCancelled();
+
+		/**
+		 * 进入提交阶段，之后任务不再超时
+		 * @return 任务已取消时返回false，调用方不应再持久化
+		 */
+		boolean tryCommit();
+
+	}
+
+	/**
+	 * 保证只在任务仍在执行且未进入提交阶段时取消，超时结果先于中断引发的失败结果写入
+	 */
+	private static final class ItemGuard implements ItemCancellation {
+
+		private final Thread worker;
+
+		private boolean cancelled;
+
+		private boolean committed;
+
+		private boolean finished;
+
+		ItemGuard(Thread worker) {
+			this.worker = worker;
+		}
+
+		synchronized boolean expire(CompletableFuture<LearningResult> future, LearningResult timeoutResult) {
+			if (finished || committed) {
+				return false;
+			}
+			cancelled = true;
+			boolean completed = future.complete(timeoutResult);
+			worker.interrupt();
+			return completed;
+		}
+
+		@Override
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public synchronized boolean tryCommit() {
+			if (cancelled) {
+				return false;
+			}
+			committed = true;
+			return true;
+		}
+
+		synchronized void finish() {
+			finished = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流的模型包装
+ * 每次模型调用前从令牌桶获取令牌，学习提取器的判断与提取调用共享同一个额度
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class RateLimitedChatModel implements ChatModel {
+
+	private final ChatModel delegate;
+
+	private final TokenBucketRateLimiter rateLimiter;
+
+	private final long acquireTimeoutMs;
+
+	/**
+	 * @param acquireTimeoutMs 等待令牌的最长时间，超过后本次调用失败
+	 */
+	public RateLimitedChatModel(ChatModel delegate, TokenBucketRateLimiter rateLimiter, long acquireTimeoutMs) {
+		this.delegate = delegate;
+		this.rateLimiter = rateLimiter;
+		this.acquireTimeoutMs = acquireTimeoutMs;
+	}
+
+	@Override
+	public ChatResponse call(Prompt prompt) {
+		acquire();
+		return delegate.call(prompt);
+	}
+
+	@Override
+	public Flux<ChatResponse> stream(Prompt prompt) {
+		acquire();
+		return delegate.stream(prompt);
+	}
+
+	@Override
+	public ChatOptions getDefaultOptions() {
+		return delegate.getDefaultOptions();
+	}
+
+	private void acquire() {
+		try {
+			if (!rateLimiter.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("Model call rate limit exceeded, no permit within "
+						+ acquireTimeoutMs + "ms, permitsPerSecond=" + rateLimiter.getPermitsPerSecond());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for model call permit", e);
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import com.alibaba.cloud.ai.graph.store.Store;
 import com.alibaba.cloud.ai.graph.store.StoreItem;
 import com.alibaba.cloud.ai.graph.store.StoreSearchRequest;
 import com.alibaba.cloud.ai.graph.store.StoreSearchResult;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,11 +34,14 @@ import java.util.stream.Collectors;
  * 基于Store的学习仓库实现
  * 提供持久化的学习记录存储
  *
+ * <p>配置 {@link BatchingStoreWriter} 时写入走写后缓冲：save/saveBatch 只做转换并提交到缓冲，由写入器按批写入 Store。
+ * get 先查未写入的条目，search 前先刷新对应命名空间，保证读己之写；关闭仓库时刷新所有剩余条目。
+ *
  * @param <T> 学习记录类型
  * @author Assistant Agent Team
  * @since 1.0.0
  */
-public class StoreLearningRepository<T> implements LearningRepository<T> {
+public class StoreLearningRepository<T> implements LearningRepository<T>, AutoCloseable {
 
 	private static final Logger log = LoggerFactory.getLogger(StoreLearningRepository.class);
 
@@ -49,16 +53,31 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 
 	private final Class<T> recordType;
 
+	/**
+	 * 记录转换的目标类型，构造一次复用
+	 */
+	private final JavaType valueType;
+
+	private final BatchingStoreWriter writer;
+
 	public StoreLearningRepository(Store store, Class<T> recordType) {
-		this.store = store;
-		this.objectMapper = new ObjectMapper();
-		this.recordType = recordType;
+		this(store, new ObjectMapper(), recordType);
 	}
 
 	public StoreLearningRepository(Store store, ObjectMapper objectMapper, Class<T> recordType) {
+		this(store, objectMapper, recordType, null);
+	}
+
+	/**
+	 * @param writer 写后缓冲写入器，为null时同步写入Store
+	 */
+	public StoreLearningRepository(Store store, ObjectMapper objectMapper, Class<T> recordType,
+			BatchingStoreWriter writer) {
 		this.store = store;
 		this.objectMapper = objectMapper;
 		this.recordType = recordType;
+		this.valueType = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+		this.writer = writer;
 	}
 
 	@Override
@@ -70,16 +89,12 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 		}
 
 		try {
-			// Convert record to Map
-			@SuppressWarnings("unchecked")
-			Map<String, Object> value = objectMapper.convertValue(record, Map.class);
-
 			// Create StoreItem with hierarchical namespace
 			List<String> namespacePath = buildNamespacePath(namespace);
-			StoreItem item = StoreItem.of(namespacePath, key, value);
+			StoreItem item = StoreItem.of(namespacePath, key, toValue(record));
 
 			// Store the item
-			store.putItem(item);
+			put(item);
 
 			log.info("StoreLearningRepository#save - reason=record saved successfully, namespace={}, key={}",
 					namespace, key);
@@ -104,12 +119,7 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 			for (T record : records) {
 				// Generate unique key for each record
 				String key = UUID.randomUUID().toString();
-
-				@SuppressWarnings("unchecked")
-				Map<String, Object> value = objectMapper.convertValue(record, Map.class);
-
-				StoreItem item = StoreItem.of(namespacePath, key, value);
-				store.putItem(item);
+				put(StoreItem.of(namespacePath, key, toValue(record)));
 			}
 
 			log.info(
@@ -132,7 +142,10 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 
 		try {
 			List<String> namespacePath = buildNamespacePath(namespace);
-			Optional<StoreItem> itemOpt = store.getItem(namespacePath, key);
+			Optional<StoreItem> itemOpt = writer != null ? writer.pending(namespacePath, key) : Optional.empty();
+			if (itemOpt.isEmpty()) {
+				itemOpt = store.getItem(namespacePath, key);
+			}
 
 			if (itemOpt.isEmpty()) {
 				log.debug("StoreLearningRepository#get - reason=record not found, namespace={}, key={}", namespace,
@@ -170,6 +183,10 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 			// Build Store search request
 			List<String> namespacePath = buildNamespacePath(namespace);
 			String namespaceStr = String.join("/", namespacePath);
+			if (writer != null) {
+				// 搜索前写入该命名空间的待写入记录
+				writer.flush(namespacePath);
+			}
 
 			StoreSearchRequest.Builder searchBuilder = StoreSearchRequest.builder().namespace(namespaceStr);
 
@@ -212,7 +229,8 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
 
 		try {
 			List<String> namespacePath = buildNamespacePath(namespace);
-			boolean deleted = store.deleteItem(namespacePath, key);
+			boolean deleted = writer != null ? writer.delete(namespacePath, key)
+					: store.deleteItem(namespacePath, key);
 
 			log.info("StoreLearningRepository#delete - reason=delete operation completed, namespace={}, key={}, deleted={}",
 					namespace, key, deleted);
@@ -228,6 +246,38 @@ public class StoreLearningRepository<T> implements LearningRepository<T> {
         return recordType;
     }
 
+	/**
+	 * 把写后缓冲中的记录全部写入Store
+	 */
+	public void flush() {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * 关闭时刷新写后缓冲，作为Bean销毁回调
+	 */
+	@Override
+	public void close() {
+		if (writer != null) {
+			writer.close();
+		}
+	}
+
+	private void put(StoreItem item) {
+		if (writer != null) {
+			writer.put(item);
+		}
+		else {
+			store.putItem(item);
+		}
+	}
+
+	private Map<String, Object> toValue(T record) {
+		return objectMapper.convertValue(record, valueType);
+	}
+
     /**
 	 * Build hierarchical namespace path
 	 * @param namespace namespace string
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器
+ *
+ * <p>令牌以固定速率补充，桶容量为 burst。获取令牌时在锁内预约下一个可用时刻，锁外等待，
+ * 因此任意长度为 t 的时间窗口内放行的请求数不超过 {@code burst + permitsPerSecond * t}。
+ *
+ * @author Assistant Agent Team
+ * @since 1.0.0
+ */
+public class TokenBucketRateLimiter {
+
+	private final double permitsPerSecond;
+
+	private final double burst;
+
+	private final double nanosPerPermit;
+
+	private double storedPermits;
+
+	/**
+	 * 桶中令牌对应的时刻；晚于当前时间表示已有请求预约了尚未补充的令牌
+	 */
+	private long nextFreeNanos;
+
+	public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+		}
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = Math.max(1, burst);
+		this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+		this.storedPermits = this.burst;
+		this.nextFreeNanos = System.nanoTime();
+	}
+
+	/**
+	 * 获取一个令牌，预计等待时间超过 timeout 时立即返回 false，不消耗令牌
+	 */
+	public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+		long waitNanos = reserve(System.nanoTime(), unit.toNanos(timeout));
+		if (waitNanos < 0) {
+			return false;
+		}
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+		return true;
+	}
+
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	/**
+	 * 预约一个令牌
+	 * @return 需要等待的纳秒数，超过 timeoutNanos 时返回 -1
+	 */
+	synchronized long reserve(long now, long timeoutNanos) {
+		if (now > nextFreeNanos) {
+			storedPermits = Math.min(burst, storedPermits + (now - nextFreeNanos) / nanosPerPermit);
+			nextFreeNanos = now;
+		}
+		if (storedPermits >= 1) {
+			storedPermits -= 1;
+			return Math.max(0, nextFreeNanos - now);
+		}
+		long availableAt = nextFreeNanos + (long) Math.ceil((1 - storedPermits) * nanosPerPermit);
+		long waitNanos = availableAt - now;
+		if (waitNanos > timeoutNanos) {
+			return -1;
+		}
+		storedPermits = 0;
+		nextFreeNanos = availableAt;
+		return waitNanos;
+	}
+
+}
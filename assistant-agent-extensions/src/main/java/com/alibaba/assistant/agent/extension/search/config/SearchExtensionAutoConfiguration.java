@@ -17,12 +17,17 @@ package com.alibaba.assistant.agent.extension.search.config;
 
 import com.alibaba.assistant.agent.common.tools.SearchCodeactTool;
 import com.alibaba.assistant.agent.extension.search.internal.DefaultSearchFacade;
+import com.alibaba.assistant.agent.extension.search.internal.ParallelSearchOrchestrator;
+import com.alibaba.assistant.agent.extension.search.internal.RankFusionEngine;
+import com.alibaba.assistant.agent.extension.search.internal.SearchProviderResilience;
+import com.alibaba.assistant.agent.extension.search.internal.SearchResultCache;
 import com.alibaba.assistant.agent.extension.search.spi.SearchFacade;
 import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
 import com.alibaba.assistant.agent.extension.search.tools.SearchCodeactToolFactory;
 import com.alibaba.assistant.agent.extension.search.tools.UnifiedSearchCodeactTool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -50,25 +55,88 @@ public class SearchExtensionAutoConfiguration {
 	}
 
 
+	/**
+	 * 并行搜索编排器，各数据源的Provider在有界线程池上并发调用
+	 */
+	@Bean(destroyMethod = "close")
+	public ParallelSearchOrchestrator parallelSearchOrchestrator(SearchExtensionProperties properties) {
+		logger.info("SearchExtensionAutoConfiguration#parallelSearchOrchestrator - reason=creating parallel search orchestrator, threads={}, queueCapacity={}, timeoutMs={}",
+				properties.getFanOutThreads(), properties.getFanOutQueueCapacity(), properties.getSearchTimeoutMs());
+		return new ParallelSearchOrchestrator(properties.getFanOutThreads(), properties.getFanOutQueueCapacity(),
+				properties.getSearchTimeoutMs());
+	}
+
+	/**
+	 * Provider韧性层，为每个Provider提供熔断与对冲请求
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.search.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public SearchProviderResilience searchProviderResilience(SearchExtensionProperties properties) {
+		SearchExtensionProperties.ResilienceConfig config = properties.getResilience();
+		logger.info("SearchExtensionAutoConfiguration#searchProviderResilience - reason=creating provider resilience layer, hedgeEnabled={}, hedgePercentile={}, breakerOpenMs={}",
+				config.isHedgeEnabled(), config.getHedgePercentile(), config.getBreakerOpenMs());
+		return new SearchProviderResilience(config);
+	}
+
+	/**
+	 * 统一搜索结果缓存
+	 */
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "spring.ai.alibaba.codeact.extension.search.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+	public SearchResultCache searchResultCache(SearchExtensionProperties properties) {
+		SearchExtensionProperties.CacheConfig config = properties.getCache();
+		logger.info("SearchExtensionAutoConfiguration#searchResultCache - reason=creating search result cache, maxEntries={}, defaultTtlMs={}, perSourceTtlMs={}, staleWhileRevalidateMs={}",
+				config.getMaxEntries(), config.getDefaultTtlMs(), config.getPerSourceTtlMs(), config.getStaleWhileRevalidateMs());
+		return new SearchResultCache(config.getMaxEntries(), config.getDefaultTtlMs(), config.getPerSourceTtlMs(),
+				config.getStaleWhileRevalidateMs(), config.getRefreshThreads());
+	}
+
+	/**
+	 * 多数据源结果融合引擎
+	 */
+	@Bean
+	public RankFusionEngine rankFusionEngine(SearchExtensionProperties properties) {
+		SearchExtensionProperties.FusionConfig config = properties.getFusion();
+		logger.info("SearchExtensionAutoConfiguration#rankFusionEngine - reason=creating rank fusion engine, strategy={}, sourceWeights={}, dedupEnabled={}",
+				config.getStrategy(), config.getSourceWeights(), config.isDedupEnabled());
+		return new RankFusionEngine(config.getStrategy(), config.getSourceWeights(), config.getRrfK(),
+				config.isDedupEnabled(), config.getMaxHammingDistance());
+	}
+
 	@Bean
-	public SearchFacade searchFacade(List<SearchProvider> providers) {
+	public SearchFacade searchFacade(List<SearchProvider> providers, ParallelSearchOrchestrator parallelSearchOrchestrator,
+			ObjectProvider<SearchProviderResilience> resilience, ObjectProvider<SearchResultCache> searchResultCache,
+			RankFusionEngine rankFusionEngine) {
 		logger.info("SearchExtensionAutoConfiguration#searchFacade - reason=creating search facade with {} providers",
 				providers != null ? providers.size() : 0);
-		return new DefaultSearchFacade(providers != null ? providers : new ArrayList<>());
+		return new DefaultSearchFacade(resilient(providers, resilience), parallelSearchOrchestrator,
+				searchResultCache.getIfAvailable(), rankFusionEngine);
 	}
 
 	@Bean
-	public SearchCodeactToolFactory searchCodeactToolFactory(List<SearchProvider> providers) {
+	public SearchCodeactToolFactory searchCodeactToolFactory(List<SearchProvider> providers,
+			ObjectProvider<SearchProviderResilience> resilience) {
 		logger.info("SearchExtensionAutoConfiguration#searchCodeactToolFactory - reason=创建SearchCodeactTool工厂, providerCount={}",
 				providers != null ? providers.size() : 0);
-		return new SearchCodeactToolFactory(providers != null ? providers : new ArrayList<>());
+		return new SearchCodeactToolFactory(resilient(providers, resilience));
 	}
 
+	/**
+	 * 统一搜索工具，与searchFacade共享编排器、结果缓存与融合引擎
+	 */
 	@Bean
-	public UnifiedSearchCodeactTool unifiedSearchCodeactTool(List<SearchProvider> providers) {
+	public UnifiedSearchCodeactTool unifiedSearchCodeactTool(List<SearchProvider> providers,
+			ObjectProvider<SearchProviderResilience> resilience, ParallelSearchOrchestrator parallelSearchOrchestrator,
+			ObjectProvider<SearchResultCache> searchResultCache, RankFusionEngine rankFusionEngine,
+			SearchExtensionProperties properties) {
 		logger.info("SearchExtensionAutoConfiguration#unifiedSearchCodeactTool - reason=创建统一搜索工具, providerCount={}",
 				providers != null ? providers.size() : 0);
-		return new UnifiedSearchCodeactTool(providers != null ? providers : new ArrayList<>());
+		// 工具按名称解析出的Provider必须与门面持有的是同一组实例，门面才能识别默认选择并使用缓存
+		List<SearchProvider> toolProviders = resilient(providers, resilience);
+		DefaultSearchFacade facade = new DefaultSearchFacade(toolProviders, parallelSearchOrchestrator,
+				searchResultCache.getIfAvailable(), rankFusionEngine);
+		return new UnifiedSearchCodeactTool(toolProviders, facade, properties.getMaxItemContentChars(),
+				properties.getMaxItemSnippetChars());
 	}
 
 	/**
@@ -91,5 +159,14 @@ public class SearchExtensionAutoConfiguration {
 
 		return tools;
 	}
-}
 
+	/**
+	 * 启用韧性层时返回包装后的Provider列表，各Bean共享同一组熔断器
+	 */
+	private static List<SearchProvider> resilient(List<SearchProvider> providers,
+			ObjectProvider<SearchProviderResilience> resilience) {
+		List<SearchProvider> safeProviders = providers != null ? providers : new ArrayList<>();
+		SearchProviderResilience layer = resilience.getIfAvailable();
+		return layer != null ? layer.wrap(safeProviders) : safeProviders;
+	}
+}
@@ -15,8 +15,13 @@
  */
 package com.alibaba.assistant.agent.extension.search.config;
 
+import com.alibaba.assistant.agent.extension.search.internal.RankFusionEngine;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * 搜索扩展配置属性
  *
@@ -54,11 +59,46 @@ public class SearchExtensionProperties {
 	 */
 	private long searchTimeoutMs = 5000;
 
+	/**
+	 * 并行搜索线程池的最大线程数
+	 */
+	private int fanOutThreads = 8;
+
+	/**
+	 * 并行搜索线程池的等待队列长度，队列满时对应数据源标记为REJECTED
+	 */
+	private int fanOutQueueCapacity = 64;
+
+	/**
+	 * 搜索工具输出中单条结果 content 的最大字符数，小于等于0表示不限制
+	 */
+	private int maxItemContentChars = 2000;
+
+	/**
+	 * 搜索工具输出中单条结果 snippet 的最大字符数，小于等于0表示不限制
+	 */
+	private int maxItemSnippetChars = 500;
+
 	/**
 	 * 百度搜索API密钥（可选）
 	 */
 	private String baiduApiKey;
 
+	/**
+	 * Provider对冲请求与熔断配置
+	 */
+	private ResilienceConfig resilience = new ResilienceConfig();
+
+	/**
+	 * 统一搜索结果缓存配置
+	 */
+	private CacheConfig cache = new CacheConfig();
+
+	/**
+	 * 多数据源结果融合配置
+	 */
+	private FusionConfig fusion = new FusionConfig();
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -107,6 +147,38 @@ public class SearchExtensionProperties {
 		this.searchTimeoutMs = searchTimeoutMs;
 	}
 
+	public int getFanOutThreads() {
+		return fanOutThreads;
+	}
+
+	public void setFanOutThreads(int fanOutThreads) {
+		this.fanOutThreads = fanOutThreads;
+	}
+
+	public int getFanOutQueueCapacity() {
+		return fanOutQueueCapacity;
+	}
+
+	public void setFanOutQueueCapacity(int fanOutQueueCapacity) {
+		this.fanOutQueueCapacity = fanOutQueueCapacity;
+	}
+
+	public int getMaxItemContentChars() {
+		return maxItemContentChars;
+	}
+
+	public void setMaxItemContentChars(int maxItemContentChars) {
+		this.maxItemContentChars = maxItemContentChars;
+	}
+
+	public int getMaxItemSnippetChars() {
+		return maxItemSnippetChars;
+	}
+
+	public void setMaxItemSnippetChars(int maxItemSnippetChars) {
+		this.maxItemSnippetChars = maxItemSnippetChars;
+	}
+
 	public String getBaiduApiKey() {
 		return baiduApiKey;
 	}
@@ -114,5 +186,342 @@ public class SearchExtensionProperties {
 	public void setBaiduApiKey(String baiduApiKey) {
 		this.baiduApiKey = baiduApiKey;
 	}
-}
 
+	public ResilienceConfig getResilience() {
+		return resilience;
+	}
+
+	public void setResilience(ResilienceConfig resilience) {
+		this.resilience = resilience;
+	}
+
+	public CacheConfig getCache() {
+		return cache;
+	}
+
+	public void setCache(CacheConfig cache) {
+		this.cache = cache;
+	}
+
+	public FusionConfig getFusion() {
+		return fusion;
+	}
+
+	public void setFusion(FusionConfig fusion) {
+		this.fusion = fusion;
+	}
+
+	/**
+	 * Provider对冲请求与熔断配置
+	 */
+	public static class ResilienceConfig {
+		/**
+		 * 是否为Provider启用熔断与对冲
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * 是否启用对冲请求
+		 */
+		private boolean hedgeEnabled = true;
+
+		/**
+		 * 对冲等待时间取窗口内延迟的该分位数
+		 */
+		private double hedgePercentile = 0.95;
+
+		/**
+		 * 对冲等待时间下限（毫秒）
+		 */
+		private long minHedgeDelayMs = 50;
+
+		/**
+		 * 对冲等待时间上限（毫秒）
+		 */
+		private long maxHedgeDelayMs = 2000;
+
+		/**
+		 * 窗口内成功样本少于该值时不对冲
+		 */
+		private long minSamples = 20;
+
+		/**
+		 * 延迟直方图的滑动窗口长度（秒）
+		 */
+		private long latencyWindowSeconds = 60;
+
+		/**
+		 * 熔断器统计最近的调用次数
+		 */
+		private int breakerWindowSize = 20;
+
+		/**
+		 * 熔断器判断失败率前至少需要的调用次数
+		 */
+		private int breakerMinCalls = 10;
+
+		/**
+		 * 失败率达到该值时熔断
+		 */
+		private double breakerFailureRateThreshold = 0.5;
+
+		/**
+		 * 熔断持续时间（毫秒），之后放行一次半开探测
+		 */
+		private long breakerOpenMs = 30000;
+
+		/**
+		 * 对冲线程池的最大线程数，饱和时请求在调用线程上执行且不对冲
+		 */
+		private int maxConcurrentCalls = 32;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isHedgeEnabled() {
+			return hedgeEnabled;
+		}
+
+		public void setHedgeEnabled(boolean hedgeEnabled) {
+			this.hedgeEnabled = hedgeEnabled;
+		}
+
+		public double getHedgePercentile() {
+			return hedgePercentile;
+		}
+
+		public void setHedgePercentile(double hedgePercentile) {
+			this.hedgePercentile = hedgePercentile;
+		}
+
+		public long getMinHedgeDelayMs() {
+			return minHedgeDelayMs;
+		}
+
+		public void setMinHedgeDelayMs(long minHedgeDelayMs) {
+			this.minHedgeDelayMs = minHedgeDelayMs;
+		}
+
+		public long getMaxHedgeDelayMs() {
+			return maxHedgeDelayMs;
+		}
+
+		public void setMaxHedgeDelayMs(long maxHedgeDelayMs) {
+			this.maxHedgeDelayMs = maxHedgeDelayMs;
+		}
+
+		public long getMinSamples() {
+			return minSamples;
+		}
+
+		public void setMinSamples(long minSamples) {
+			this.minSamples = minSamples;
+		}
+
+		public long getLatencyWindowSeconds() {
+			return latencyWindowSeconds;
+		}
+
+		public void setLatencyWindowSeconds(long latencyWindowSeconds) {
+			this.latencyWindowSeconds = latencyWindowSeconds;
+		}
+
+		public int getBreakerWindowSize() {
+			return breakerWindowSize;
+		}
+
+		public void setBreakerWindowSize(int breakerWindowSize) {
+			this.breakerWindowSize = breakerWindowSize;
+		}
+
+		public int getBreakerMinCalls() {
+			return breakerMinCalls;
+		}
+
+		public void setBreakerMinCalls(int breakerMinCalls) {
+			this.breakerMinCalls = breakerMinCalls;
+		}
+
+		public double getBreakerFailureRateThreshold() {
+			return breakerFailureRateThreshold;
+		}
+
+		public void setBreakerFailureRateThreshold(double breakerFailureRateThreshold) {
+			this.breakerFailureRateThreshold = breakerFailureRateThreshold;
+		}
+
+		public long getBreakerOpenMs() {
+			return breakerOpenMs;
+		}
+
+		public void setBreakerOpenMs(long breakerOpenMs) {
+			this.breakerOpenMs = breakerOpenMs;
+		}
+
+		public int getMaxConcurrentCalls() {
+			return maxConcurrentCalls;
+		}
+
+		public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+			this.maxConcurrentCalls = maxConcurrentCalls;
+		}
+	}
+
+	/**
+	 * 统一搜索结果缓存配置
+	 */
+	public static class CacheConfig {
+		/**
+		 * 是否启用统一搜索结果缓存
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * 最大缓存条目数，超出后淘汰最久未访问的条目
+		 */
+		private int maxEntries = 1024;
+
+		/**
+		 * 默认有效期（毫秒），未在 perSourceTtlMs 中配置的数据源使用该值
+		 */
+		private long defaultTtlMs = 60000;
+
+		/**
+		 * 每类数据源的有效期（毫秒），请求涉及多个数据源时取最短者，小于等于0表示不缓存
+		 */
+		private Map<SearchSourceType, Long> perSourceTtlMs = new EnumMap<>(SearchSourceType.class);
+
+		/**
+		 * 过期后仍可返回旧结果并在后台刷新的时间窗口（毫秒）
+		 */
+		private long staleWhileRevalidateMs = 30000;
+
+		/**
+		 * 后台刷新线程数
+		 */
+		private int refreshThreads = 2;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		public void setMaxEntries(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+
+		public long getDefaultTtlMs() {
+			return defaultTtlMs;
+		}
+
+		public void setDefaultTtlMs(long defaultTtlMs) {
+			this.defaultTtlMs = defaultTtlMs;
+		}
+
+		public Map<SearchSourceType, Long> getPerSourceTtlMs() {
+			return perSourceTtlMs;
+		}
+
+		public void setPerSourceTtlMs(Map<SearchSourceType, Long> perSourceTtlMs) {
+			this.perSourceTtlMs = perSourceTtlMs;
+		}
+
+		public long getStaleWhileRevalidateMs() {
+			return staleWhileRevalidateMs;
+		}
+
+		public void setStaleWhileRevalidateMs(long staleWhileRevalidateMs) {
+			this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+		}
+
+		public int getRefreshThreads() {
+			return refreshThreads;
+		}
+
+		public void setRefreshThreads(int refreshThreads) {
+			this.refreshThreads = refreshThreads;
+		}
+	}
+
+	/**
+	 * 多数据源结果融合配置
+	 */
+	public static class FusionConfig {
+		/**
+		 * 融合策略：RRF（倒数排名融合）或 WEIGHTED（分数归一化后加权）
+		 */
+		private RankFusionEngine.Strategy strategy = RankFusionEngine.Strategy.RRF;
+
+		/**
+		 * 各数据源的权重，未配置的数据源为1.0
+		 */
+		private Map<SearchSourceType, Double> sourceWeights = new EnumMap<>(SearchSourceType.class);
+
+		/**
+		 * RRF 的平滑常数，越大名次差异的影响越小
+		 */
+		private int rrfK = RankFusionEngine.DEFAULT_RRF_K;
+
+		/**
+		 * 是否按 SimHash 折叠内容近重复的结果
+		 */
+		private boolean dedupEnabled = true;
+
+		/**
+		 * SimHash 汉明距离不超过该值视为近重复
+		 */
+		private int maxHammingDistance = RankFusionEngine.DEFAULT_MAX_HAMMING_DISTANCE;
+
+		public RankFusionEngine.Strategy getStrategy() {
+			return strategy;
+		}
+
+		public void setStrategy(RankFusionEngine.Strategy strategy) {
+			this.strategy = strategy;
+		}
+
+		public Map<SearchSourceType, Double> getSourceWeights() {
+			return sourceWeights;
+		}
+
+		public void setSourceWeights(Map<SearchSourceType, Double> sourceWeights) {
+			this.sourceWeights = sourceWeights;
+		}
+
+		public int getRrfK() {
+			return rrfK;
+		}
+
+		public void setRrfK(int rrfK) {
+			this.rrfK = rrfK;
+		}
+
+		public boolean isDedupEnabled() {
+			return dedupEnabled;
+		}
+
+		public void setDedupEnabled(boolean dedupEnabled) {
+			this.dedupEnabled = dedupEnabled;
+		}
+
+		public int getMaxHammingDistance() {
+			return maxHammingDistance;
+		}
+
+		public void setMaxHammingDistance(int maxHammingDistance) {
+			this.maxHammingDistance = maxHammingDistance;
+		}
+	}
+}
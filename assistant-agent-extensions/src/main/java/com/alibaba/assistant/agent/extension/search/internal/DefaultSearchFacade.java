@@ -25,26 +25,112 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 默认搜索门面实现
- * 协调多个SearchProvider，应用合并策略
+ * 协调多个SearchProvider，经 {@link ParallelSearchOrchestrator} 并行调用后由 {@link RankFusionEngine} 跨数据源融合排序；
+ * 结果集元数据中的 source_status 以调用目标的 key 记录每个目标的执行状态，partial 表示是否有数据源超时或失败；
+ * 配置了 {@link SearchResultCache} 时先查缓存，cached 表示结果是否由缓存提供
  *
  * @author Assistant Agent Team
  */
 public class DefaultSearchFacade implements SearchFacade {
 	private static final Logger logger = LoggerFactory.getLogger(DefaultSearchFacade.class);
 
+	private static final int DEFAULT_FAN_OUT_THREADS = 8;
+
+	private static final int DEFAULT_FAN_OUT_QUEUE_CAPACITY = 64;
+
+	private static final long DEFAULT_TIMEOUT_MS = 5000;
+
 	private final List<SearchProvider> providers;
 
+	private final ParallelSearchOrchestrator orchestrator;
+
+	/**
+	 * 结果缓存，为null时不缓存
+	 */
+	private final SearchResultCache cache;
+
+	private final RankFusionEngine fusionEngine;
+
 	public DefaultSearchFacade(List<SearchProvider> providers) {
+		this(providers, new ParallelSearchOrchestrator(DEFAULT_FAN_OUT_THREADS, DEFAULT_FAN_OUT_QUEUE_CAPACITY,
+				DEFAULT_TIMEOUT_MS));
+	}
+
+	public DefaultSearchFacade(List<SearchProvider> providers, ParallelSearchOrchestrator orchestrator) {
+		this(providers, orchestrator, null);
+	}
+
+	public DefaultSearchFacade(List<SearchProvider> providers, ParallelSearchOrchestrator orchestrator,
+			SearchResultCache cache) {
+		this(providers, orchestrator, cache, new RankFusionEngine());
+	}
+
+	public DefaultSearchFacade(List<SearchProvider> providers, ParallelSearchOrchestrator orchestrator,
+			SearchResultCache cache, RankFusionEngine fusionEngine) {
 		this.providers = providers != null ? providers : new ArrayList<>();
-		logger.info("DefaultSearchFacade#init - reason=initialized with {} providers", this.providers.size());
+		this.orchestrator = orchestrator;
+		this.cache = cache;
+		this.fusionEngine = fusionEngine != null ? fusionEngine : new RankFusionEngine();
+		logger.info("DefaultSearchFacade#init - reason=initialized with {} providers, cacheEnabled={}",
+				this.providers.size(), cache != null);
 	}
 
 	@Override
 	public SearchResultSet unifiedSearch(SearchRequest request) {
+		return unifiedSearch(request, resolveTargets(request.getSourceTypes()));
+	}
+
+	/**
+	 * 以指定的调用目标执行统一搜索，供按Provider名称选择数据源的调用方使用（如统一搜索工具）
+	 * 只有目标与按数据源类型默认选择的目标一致时才读写缓存，缓存键中不包含Provider
+	 *
+	 * @param request 搜索请求
+	 * @param targets 调用目标，同一数据源类型可以有多个Provider
+	 * @return 融合排序后的结果集
+	 */
+	public SearchResultSet unifiedSearch(SearchRequest request, List<SearchTarget> targets) {
+		Set<SearchSourceType> sourceTypes = new LinkedHashSet<>();
+		for (SearchTarget target : targets) {
+			sourceTypes.add(target.sourceType());
+		}
+		if (cache == null || !targets.equals(resolveTargets(sourceTypes))) {
+			return searchProviders(request, targets);
+		}
+		SearchResultSet resultSet = cache.get(request, sourceTypes,
+				loadRequest -> searchProviders(loadRequest, targets));
+		if (Boolean.TRUE.equals(resultSet.getMetadata().get("cached"))) {
+			logger.info("DefaultSearchFacade#unifiedSearch - reason=served from cache, query={}, stale={}",
+					request.getQuery(), resultSet.getMetadata().get("stale"));
+		}
+		return resultSet;
+	}
+
+	/**
+	 * 每类数据源使用第一个匹配的Provider；未指定数据源时默认搜索项目与知识库
+	 */
+	public List<SearchTarget> resolveTargets(Set<SearchSourceType> sourceTypes) {
+		Set<SearchSourceType> targetSources = sourceTypes;
+		if (targetSources == null || targetSources.isEmpty()) {
+			targetSources = EnumSet.of(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE);
+		}
+		List<SearchTarget> targets = new ArrayList<>();
+		for (SearchSourceType sourceType : targetSources) {
+			SearchProvider provider = providers.stream()
+					.filter(p -> p.supports(sourceType))
+					.findFirst()
+					.orElse(null);
+			targets.add(SearchTarget.ofType(sourceType, provider));
+		}
+		return targets;
+	}
+
+	/**
+	 * 并行调用各数据源并合并结果
+	 */
+	private SearchResultSet searchProviders(SearchRequest request, List<SearchTarget> targets) {
 		long startTime = System.currentTimeMillis();
 		logger.info("DefaultSearchFacade#unifiedSearch - reason=start search with query={}, sourceTypes={}",
 				request.getQuery(), request.getSourceTypes());
@@ -52,47 +138,27 @@ public class DefaultSearchFacade implements SearchFacade {
 		SearchResultSet resultSet = new SearchResultSet(request.getQuery());
 
 		try {
-			// 如果未指定数据源，默认使用所有支持的数据源
-			Set<SearchSourceType> targetSources = request.getSourceTypes();
-			if (targetSources == null || targetSources.isEmpty()) {
-				targetSources = EnumSet.of(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE);
-			}
-
-			// 并行调用各个Provider
-			Map<SearchSourceType, List<SearchResultItem>> resultsPerSource = new HashMap<>();
-
-			for (SearchSourceType sourceType : targetSources) {
-				try {
-					List<SearchProvider> matchedProviders = providers.stream()
-							.filter(p -> p.supports(sourceType))
-							.toList();
-
-					if (matchedProviders.isEmpty()) {
-						logger.warn("DefaultSearchFacade#unifiedSearch - reason=no provider found for sourceType={}", sourceType);
-						continue;
-					}
-
-					// 使用第一个匹配的Provider
-					SearchProvider provider = matchedProviders.get(0);
-					List<SearchResultItem> items = provider.search(request);
-					if (items != null && !items.isEmpty()) {
-						resultsPerSource.put(sourceType, items);
-					}
-				} catch (Exception e) {
-					logger.error("DefaultSearchFacade#unifiedSearch - reason=provider failed for sourceType={}", sourceType, e);
-					// 单个Provider失败不影响整体流程
+			for (SearchTarget target : targets) {
+				if (target.provider() == null) {
+					logger.warn("DefaultSearchFacade#unifiedSearch - reason=no provider found for sourceType={}",
+							target.sourceType());
 				}
 			}
 
+			// 并行调用各个Provider，单个Provider超时或失败不影响整体流程
+			ParallelSearchOrchestrator.FanOutResult fanOut = orchestrator.search(request, targets);
+
 			// 合并结果
-			mergeResults(resultSet, resultsPerSource, request.getTopK());
+			mergeResults(resultSet, targets, fanOut.resultsPerTarget(), request.getTopK());
 
 			long duration = System.currentTimeMillis() - startTime;
 			resultSet.getMetadata().put("duration_ms", duration);
 			resultSet.getMetadata().put("cached", false);
+			resultSet.getMetadata().put("partial", fanOut.isPartial());
+			resultSet.getMetadata().put("source_status", fanOut.statuses());
 
-			logger.info("DefaultSearchFacade#unifiedSearch - reason=merged {} results from {} sources in {}ms",
-					resultSet.getTotalCount(), resultSet.getUsedSources().size(), duration);
+			logger.info("DefaultSearchFacade#unifiedSearch - reason=merged {} results from {} sources in {}ms, partial={}",
+					resultSet.getTotalCount(), resultSet.getUsedSources().size(), duration, fanOut.isPartial());
 
 		} catch (Exception e) {
 			logger.error("DefaultSearchFacade#unifiedSearch - reason=unified search failed with error", e);
@@ -102,17 +168,18 @@ public class DefaultSearchFacade implements SearchFacade {
 	}
 
 	/**
-	 * 合并多个数据源的结果
+	 * 合并多个目标的结果：各目标独立排名后跨目标融合排序、折叠近重复后取topK
 	 */
-	private void mergeResults(SearchResultSet resultSet, Map<SearchSourceType, List<SearchResultItem>> resultsPerSource, int topK) {
-		// 简单策略：按score排序，取topK
-		List<SearchResultItem> allItems = resultsPerSource.values().stream()
-				.flatMap(List::stream)
-				.sorted(Comparator.comparingDouble(SearchResultItem::getScore).reversed())
-				.limit(topK)
-				.collect(Collectors.toList());
-
-		resultSet.addItems(allItems);
+	private void mergeResults(SearchResultSet resultSet, List<SearchTarget> targets,
+			Map<String, List<SearchResultItem>> resultsPerTarget, int topK) {
+		List<RankFusionEngine.RankedList> rankedLists = new ArrayList<>();
+		for (SearchTarget target : targets) {
+			List<SearchResultItem> items = resultsPerTarget.get(target.key());
+			if (items != null) {
+				rankedLists.add(new RankFusionEngine.RankedList(target.sourceType(), items));
+			}
+		}
+		resultSet.addItems(fusionEngine.fuse(rankedLists, topK));
 	}
 }
 
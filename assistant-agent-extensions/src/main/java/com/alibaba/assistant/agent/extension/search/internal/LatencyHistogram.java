@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * 滑动时间窗口延迟直方图
+ * 窗口切成若干时间片，每片一组按对数刻度划分的桶（相邻桶上界相差约10%）；
+ * 过期的时间片在下次写入时清零，分位数只统计窗口内的时间片
+ *
+ * @author Assistant Agent Team
+ */
+public class LatencyHistogram {
+
+	/**
+	 * 相邻桶上界的比例
+	 */
+	private static final double GROWTH = 1.1;
+
+	/**
+	 * 覆盖到约 10 分钟，更长的延迟都落在最后一个桶
+	 */
+	private static final int BUCKETS = 2 + (int) Math.floor(Math.log(600_000) / Math.log(GROWTH));
+
+	private final long sliceMillis;
+
+	private final LongSupplier clockMillis;
+
+	private final long[][] counts;
+
+	/**
+	 * 每个时间片当前对应的时间片序号，不等于当前序号时视为过期
+	 */
+	private final long[] sliceEpochs;
+
+	/**
+	 * @param windowMillis 窗口长度（毫秒）
+	 * @param slices 窗口切分的时间片数，越多过期越平滑
+	 * @param clockMillis 毫秒时钟，测试中可替换为虚拟时间
+	 */
+	public LatencyHistogram(long windowMillis, int slices, LongSupplier clockMillis) {
+		int sliceCount = Math.max(1, slices);
+		this.sliceMillis = Math.max(1, windowMillis / sliceCount);
+		this.clockMillis = clockMillis;
+		this.counts = new long[sliceCount][BUCKETS];
+		this.sliceEpochs = new long[sliceCount];
+		Arrays.fill(sliceEpochs, Long.MIN_VALUE);
+	}
+
+	/**
+	 * 记录一次延迟
+	 */
+	public synchronized void record(long latencyMillis) {
+		long epoch = clockMillis.getAsLong() / sliceMillis;
+		int slot = (int) Math.floorMod(epoch, (long) counts.length);
+		if (sliceEpochs[slot] != epoch) {
+			Arrays.fill(counts[slot], 0);
+			sliceEpochs[slot] = epoch;
+		}
+		counts[slot][bucketIndex(Math.max(0, latencyMillis))]++;
+	}
+
+	/**
+	 * 窗口内的样本数
+	 */
+	public synchronized long count() {
+		long total = 0;
+		long current = clockMillis.getAsLong() / sliceMillis;
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (isLive(slot, current)) {
+				for (long count : counts[slot]) {
+					total += count;
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * 窗口内延迟的分位数（桶上界，偏保守），没有样本时返回-1
+	 *
+	 * @param quantile 分位，取值 (0, 1]
+	 */
+	public synchronized long percentile(double quantile) {
+		long current = clockMillis.getAsLong() / sliceMillis;
+		long[] merged = new long[BUCKETS];
+		long total = 0;
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (isLive(slot, current)) {
+				for (int bucket = 0; bucket < BUCKETS; bucket++) {
+					merged[bucket] += counts[slot][bucket];
+					total += counts[slot][bucket];
+				}
+			}
+		}
+		if (total == 0) {
+			return -1;
+		}
+		long rank = (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * total);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += merged[bucket];
+			if (seen >= Math.max(1, rank)) {
+				return bucketUpperBound(bucket);
+			}
+		}
+		return bucketUpperBound(BUCKETS - 1);
+	}
+
+	private boolean isLive(int slot, long currentEpoch) {
+		long epoch = sliceEpochs[slot];
+		return epoch != Long.MIN_VALUE && epoch > currentEpoch - counts.length && epoch <= currentEpoch;
+	}
+
+	/**
+	 * 0ms 单独一个桶，之后按 GROWTH 的幂划分
+	 */
+	static int bucketIndex(long latencyMillis) {
+		if (latencyMillis <= 0) {
+			return 0;
+		}
+		int index = 1 + (int) Math.floor(Math.log(latencyMillis) / Math.log(GROWTH));
+		return Math.min(index, BUCKETS - 1);
+	}
+
+	/**
+	 * 桶内最大的整数毫秒值：第 i 个桶覆盖 [GROWTH^(i-1), GROWTH^i)
+	 */
+	static long bucketUpperBound(int bucket) {
+		if (bucket == 0) {
+			return 0;
+		}
+		return Math.max(1, (long) Math.ceil(Math.pow(GROWTH, bucket)) - 1);
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行搜索编排器
+ * 把各调用目标（数据源类型与Provider）的调用并发下发到有界线程池，按整体截止时间与每类数据源的截止时间收集结果，
+ * 超时或失败的数据源不阻塞其他数据源，调用方拿到部分结果及每个数据源的执行状态
+ *
+ * @author Assistant Agent Team
+ */
+public class ParallelSearchOrchestrator implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(ParallelSearchOrchestrator.class);
+
+	private final ExecutorService executor;
+
+	/**
+	 * 是否由编排器自己创建线程池（close时负责关闭）
+	 */
+	private final boolean ownsExecutor;
+
+	private final long defaultTimeoutMs;
+
+	/**
+	 * 创建自带有界线程池的编排器
+	 *
+	 * @param maxThreads 最大并发调用数
+	 * @param queueCapacity 等待队列长度，队列满时新的调用直接标记为REJECTED
+	 * @param defaultTimeoutMs 请求未指定截止时间时使用的整体超时
+	 */
+	public ParallelSearchOrchestrator(int maxThreads, int queueCapacity, long defaultTimeoutMs) {
+		this(newBoundedExecutor(maxThreads, queueCapacity), true, defaultTimeoutMs);
+	}
+
+	/**
+	 * 使用外部线程池创建编排器，线程池的生命周期由调用方管理
+	 */
+	public ParallelSearchOrchestrator(ExecutorService executor, long defaultTimeoutMs) {
+		this(executor, false, defaultTimeoutMs);
+	}
+
+	private ParallelSearchOrchestrator(ExecutorService executor, boolean ownsExecutor, long defaultTimeoutMs) {
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.defaultTimeoutMs = defaultTimeoutMs;
+	}
+
+	/**
+	 * 并发调用各目标的Provider并在截止时间内收集结果
+	 *
+	 * @param request 搜索请求，提供整体及每类数据源的截止时间
+	 * @param targets 调用目标，同一数据源类型可以有多个目标
+	 * @return 各目标的结果与状态，以目标的 key 索引
+	 */
+	public FanOutResult search(SearchRequest request, List<SearchTarget> targets) {
+		long start = System.nanoTime();
+		long timeoutMs = request.getTimeoutMs() > 0 ? request.getTimeoutMs() : defaultTimeoutMs;
+		long globalDeadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+		Map<String, SearchSourceStatus> statuses = new LinkedHashMap<>();
+		Map<String, List<SearchResultItem>> results = new LinkedHashMap<>();
+		Map<String, Call> calls = new LinkedHashMap<>();
+
+		// 先全部下发，再依次等待；所有调用同时开始，总等待时间不超过最晚的截止时间
+		for (SearchTarget target : targets) {
+			SearchSourceType sourceType = target.sourceType();
+			SearchProvider provider = target.provider();
+			if (provider == null) {
+				statuses.put(target.key(), new SearchSourceStatus(sourceType, null, SearchSourceStatus.State.NO_PROVIDER));
+				continue;
+			}
+			Call call = new Call(target, deadline(request, sourceType, start, globalDeadline));
+			try {
+				call.future = executor.submit(() -> {
+					try {
+						return provider.search(request);
+					} finally {
+						call.finishedAt.set(System.nanoTime());
+					}
+				});
+				calls.put(target.key(), call);
+			} catch (RejectedExecutionException e) {
+				logger.warn("ParallelSearchOrchestrator#search - reason=executor saturated, sourceType={}, provider={}",
+						sourceType, provider.getName());
+				SearchSourceStatus status = new SearchSourceStatus(sourceType, provider.getName(), SearchSourceStatus.State.REJECTED);
+				status.setErrorMessage("search executor saturated");
+				statuses.put(target.key(), status);
+			}
+		}
+
+		boolean interrupted = false;
+		for (Map.Entry<String, Call> entry : calls.entrySet()) {
+			Call call = entry.getValue();
+			SearchSourceType sourceType = call.target.sourceType();
+			String providerName = call.target.provider().getName();
+			SearchSourceStatus status = new SearchSourceStatus(sourceType, providerName, SearchSourceStatus.State.SUCCESS);
+			try {
+				if (interrupted) {
+					throw new InterruptedException();
+				}
+				List<SearchResultItem> items = call.future.get(Math.max(0, call.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				List<SearchResultItem> safeItems = items != null ? items : List.of();
+				results.put(entry.getKey(), safeItems);
+				status.setResultCount(safeItems.size());
+			} catch (TimeoutException e) {
+				call.future.cancel(true);
+				status.setState(SearchSourceStatus.State.TIMEOUT);
+				status.setErrorMessage("deadline exceeded");
+				logger.warn("ParallelSearchOrchestrator#search - reason=provider deadline exceeded, sourceType={}, provider={}",
+						sourceType, providerName);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				status.setState(SearchSourceStatus.State.FAILED);
+				status.setErrorMessage(cause.getMessage());
+				logger.error("ParallelSearchOrchestrator#search - reason=provider failed, sourceType={}, provider={}",
+						sourceType, providerName, cause);
+			} catch (InterruptedException e) {
+				// 调用线程被中断：放弃剩余等待，未完成的调用按超时处理
+				interrupted = true;
+				call.future.cancel(true);
+				status.setState(SearchSourceStatus.State.TIMEOUT);
+				status.setErrorMessage("interrupted");
+			} catch (CancellationException e) {
+				status.setState(SearchSourceStatus.State.TIMEOUT);
+				status.setErrorMessage("cancelled");
+			}
+			long finishedAt = call.finishedAt.get();
+			status.setDurationMs(TimeUnit.NANOSECONDS.toMillis((finishedAt > 0 ? finishedAt : System.nanoTime()) - start));
+			statuses.put(entry.getKey(), status);
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return new FanOutResult(results, orderedLike(targets, statuses));
+	}
+
+	/**
+	 * 编排器使用的线程池，供需要自行编排Provider调用的组件共享（如统一搜索工具）
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 数据源的截止时间：配置了该数据源的超时则取其与整体截止时间的较早者
+	 */
+	private static long deadline(SearchRequest request, SearchSourceType sourceType, long start, long globalDeadline) {
+		Map<SearchSourceType, Long> perSource = request.getPerSourceTimeoutMs();
+		Long sourceTimeoutMs = perSource != null ? perSource.get(sourceType) : null;
+		if (sourceTimeoutMs == null || sourceTimeoutMs <= 0) {
+			return globalDeadline;
+		}
+		return Math.min(globalDeadline, start + TimeUnit.MILLISECONDS.toNanos(sourceTimeoutMs));
+	}
+
+	private static Map<String, SearchSourceStatus> orderedLike(List<SearchTarget> targets,
+			Map<String, SearchSourceStatus> statuses) {
+		Map<String, SearchSourceStatus> ordered = new LinkedHashMap<>();
+		for (SearchTarget target : targets) {
+			ordered.put(target.key(), statuses.get(target.key()));
+		}
+		return ordered;
+	}
+
+	private static ExecutorService newBoundedExecutor(int maxThreads, int queueCapacity) {
+		int threads = Math.max(1, maxThreads);
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+					Thread thread = new Thread(runnable, "search-fanout-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * 一次统一搜索的并发调用结果
+	 *
+	 * @param resultsPerTarget 在截止时间内返回的各目标结果，以目标的 key 索引
+	 * @param statuses 各目标的执行状态，以目标的 key 索引，顺序与下发顺序一致
+	 */
+	public record FanOutResult(Map<String, List<SearchResultItem>> resultsPerTarget,
+			Map<String, SearchSourceStatus> statuses) {
+
+		/**
+		 * 是否有数据源未能在截止时间内成功返回（没有Provider的数据源不计入）
+		 */
+		public boolean isPartial() {
+			return statuses.values().stream().anyMatch(status -> !status.isSuccess()
+					&& status.getState() != SearchSourceStatus.State.NO_PROVIDER);
+		}
+	}
+
+	private static final class Call {
+		private final SearchTarget target;
+		private final long deadline;
+		private final AtomicLong finishedAt = new AtomicLong();
+		private Future<List<SearchResultItem>> future;
+
+		private Call(SearchTarget target, long deadline) {
+			this.target = target;
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+
+import java.util.*;
+
+/**
+ * 多数据源结果融合引擎
+ *
+ * <p>各数据源的分数尺度不同，直接按原始分数排序再截断 topK 没有意义。融合引擎先在每个数据源内排序，
+ * 再按策略计算可跨数据源比较的融合分：
+ * <ul>
+ *   <li>{@link Strategy#RRF}：倒数排名融合，融合分为 weight / (k + rank)，只依赖名次</li>
+ *   <li>{@link Strategy#WEIGHTED}：数据源内 min-max 归一化后乘以数据源权重</li>
+ * </ul>
+ *
+ * <p>开启去重时，对结果正文（content，缺失时用 snippet）计算 64 位 SimHash，
+ * 汉明距离不超过阈值的结果折叠为融合分最高的一条；来自其他数据源的重复结果把融合分累加到保留项上，
+ * 同一数据源内的重复不累加。折叠通过分段索引查找候选（分段数为阈值+1，按鸽巢原理近重复必有一段完全相同），
+ * 不做两两比较。
+ *
+ * <p>融合分写入结果项扩展信息的 fusion_score，被折叠的结果ID写入 duplicate_ids；原始 score 不变。
+ * 排序在融合分相同时依次按原始分数、数据源类型、结果ID决定，输出与输入顺序无关。
+ *
+ * @author Assistant Agent Team
+ */
+public class RankFusionEngine {
+
+	/**
+	 * 融合策略
+	 */
+	public enum Strategy {
+		RRF, WEIGHTED
+	}
+
+	public static final int DEFAULT_RRF_K = 60;
+
+	public static final int DEFAULT_MAX_HAMMING_DISTANCE = 6;
+
+	private static final Comparator<SearchResultItem> WITHIN_SOURCE = Comparator
+			.comparingDouble(SearchResultItem::getScore).reversed()
+			.thenComparing(SearchResultItem::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+	private final Strategy strategy;
+
+	private final Map<SearchSourceType, Double> sourceWeights;
+
+	private final int rrfK;
+
+	private final boolean dedupEnabled;
+
+	private final int maxHammingDistance;
+
+	/**
+	 * 默认配置：RRF、各数据源权重相同、开启去重
+	 */
+	public RankFusionEngine() {
+		this(Strategy.RRF, Map.of(), DEFAULT_RRF_K, true, DEFAULT_MAX_HAMMING_DISTANCE);
+	}
+
+	/**
+	 * @param strategy 融合策略
+	 * @param sourceWeights 数据源权重，未配置的数据源为1.0
+	 * @param rrfK RRF 的平滑常数
+	 * @param dedupEnabled 是否折叠近重复结果
+	 * @param maxHammingDistance SimHash 汉明距离不超过该值视为近重复，取值 0-15
+	 */
+	public RankFusionEngine(Strategy strategy, Map<SearchSourceType, Double> sourceWeights, int rrfK,
+			boolean dedupEnabled, int maxHammingDistance) {
+		this.strategy = strategy != null ? strategy : Strategy.RRF;
+		this.sourceWeights = new EnumMap<>(SearchSourceType.class);
+		if (sourceWeights != null) {
+			this.sourceWeights.putAll(sourceWeights);
+		}
+		this.rrfK = Math.max(1, rrfK);
+		this.dedupEnabled = dedupEnabled;
+		this.maxHammingDistance = Math.max(0, Math.min(15, maxHammingDistance));
+	}
+
+	/**
+	 * 融合各数据源的结果并截取前 topK 条
+	 *
+	 * @param resultsPerSource 各数据源的结果
+	 * @param topK 返回条数上限
+	 * @return 按融合分降序排列的结果
+	 */
+	public List<SearchResultItem> fuse(Map<SearchSourceType, List<SearchResultItem>> resultsPerSource, int topK) {
+		if (resultsPerSource == null || resultsPerSource.isEmpty() || topK <= 0) {
+			return new ArrayList<>();
+		}
+		// 按枚举顺序遍历数据源，结果与调用方的Map实现无关
+		Map<SearchSourceType, List<SearchResultItem>> ordered = new EnumMap<>(SearchSourceType.class);
+		resultsPerSource.forEach((type, items) -> {
+			if (type != null && items != null) {
+				ordered.put(type, items);
+			}
+		});
+		List<RankedList> rankedLists = new ArrayList<>(ordered.size());
+		ordered.forEach((type, items) -> rankedLists.add(new RankedList(type, items)));
+		return fuse(rankedLists, topK);
+	}
+
+	/**
+	 * 融合多个独立排名的结果列表并截取前 topK 条，同一数据源类型可以有多个列表（如同类型的多个Provider）
+	 *
+	 * @param rankedLists 各调用目标的结果
+	 * @param topK 返回条数上限
+	 * @return 按融合分降序排列的结果
+	 */
+	public List<SearchResultItem> fuse(List<RankedList> rankedLists, int topK) {
+		if (rankedLists == null || rankedLists.isEmpty() || topK <= 0) {
+			return new ArrayList<>();
+		}
+
+		List<Candidate> candidates = new ArrayList<>();
+		for (RankedList rankedList : rankedLists) {
+			if (rankedList.sourceType() != null && rankedList.items() != null && !rankedList.items().isEmpty()) {
+				addSourceCandidates(rankedList.sourceType(), rankedList.items(), candidates);
+			}
+		}
+
+		candidates.sort(Candidate.ORDER);
+		List<Candidate> fused = dedupEnabled ? collapseNearDuplicates(candidates) : candidates;
+		if (dedupEnabled) {
+			fused.sort(Candidate.ORDER);
+		}
+
+		List<SearchResultItem> results = new ArrayList<>(Math.min(topK, fused.size()));
+		for (Candidate candidate : fused) {
+			if (results.size() >= topK) {
+				break;
+			}
+			Map<String, Object> extensions = candidate.item.getMetadata().getExtensions();
+			extensions.put("fusion_score", candidate.fusedScore);
+			if (candidate.duplicateIds != null) {
+				extensions.put("duplicate_ids", candidate.duplicateIds);
+			}
+			results.add(candidate.item);
+		}
+		return results;
+	}
+
+	private void addSourceCandidates(SearchSourceType sourceType, List<SearchResultItem> items, List<Candidate> out) {
+		List<SearchResultItem> sorted = new ArrayList<>(items.size());
+		for (SearchResultItem item : items) {
+			if (item != null) {
+				sorted.add(item);
+			}
+		}
+		sorted.sort(WITHIN_SOURCE);
+		double weight = sourceWeights.getOrDefault(sourceType, 1.0);
+
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		for (SearchResultItem item : sorted) {
+			min = Math.min(min, item.getScore());
+			max = Math.max(max, item.getScore());
+		}
+
+		for (int rank = 0; rank < sorted.size(); rank++) {
+			SearchResultItem item = sorted.get(rank);
+			double fusedScore = switch (strategy) {
+				case RRF -> weight / (rrfK + rank + 1);
+				case WEIGHTED -> weight * (max > min ? (item.getScore() - min) / (max - min) : 1.0);
+			};
+			out.add(new Candidate(item, sourceType, fusedScore, dedupEnabled ? simHash(text(item)) : 0));
+		}
+	}
+
+	/**
+	 * 按融合分从高到低贪心折叠：每个候选只与已保留项中共享某一段的项比较
+	 */
+	private List<Candidate> collapseNearDuplicates(List<Candidate> sortedCandidates) {
+		int bands = maxHammingDistance + 1;
+		List<Map<Long, List<Candidate>>> bandIndex = new ArrayList<>(bands);
+		for (int band = 0; band < bands; band++) {
+			bandIndex.add(new HashMap<>());
+		}
+
+		List<Candidate> kept = new ArrayList<>();
+		for (Candidate candidate : sortedCandidates) {
+			if (candidate.hash == 0) {
+				// 没有正文的结果不参与去重
+				kept.add(candidate);
+				continue;
+			}
+			Candidate representative = findNearDuplicate(candidate, bandIndex, bands);
+			if (representative != null) {
+				representative.absorb(candidate);
+				continue;
+			}
+			kept.add(candidate);
+			for (int band = 0; band < bands; band++) {
+				bandIndex.get(band).computeIfAbsent(bandValue(candidate.hash, band, bands), k -> new ArrayList<>())
+						.add(candidate);
+			}
+		}
+		return kept;
+	}
+
+	private Candidate findNearDuplicate(Candidate candidate, List<Map<Long, List<Candidate>>> bandIndex, int bands) {
+		for (int band = 0; band < bands; band++) {
+			List<Candidate> bucket = bandIndex.get(band).get(bandValue(candidate.hash, band, bands));
+			if (bucket == null) {
+				continue;
+			}
+			// 桶内按加入顺序即融合分降序，第一个命中的就是最优代表
+			for (Candidate other : bucket) {
+				if (Long.bitCount(other.hash ^ candidate.hash) <= maxHammingDistance) {
+					return other;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 把64位切成 bands 段，返回第 band 段的值（带段号，避免不同段的值相互碰撞）
+	 */
+	private static long bandValue(long hash, int band, int bands) {
+		int width = 64 / bands;
+		int from = band * width;
+		int bits = band == bands - 1 ? 64 - from : width;
+		long mask = bits == 64 ? -1L : (1L << bits) - 1;
+		return (hash >>> from) & mask;
+	}
+
+	private static String text(SearchResultItem item) {
+		if (item.getContent() != null && !item.getContent().isBlank()) {
+			return item.getContent();
+		}
+		return item.getSnippet();
+	}
+
+	/**
+	 * 64位 SimHash：拉丁字母与数字按词切分，汉字等不以空格分词的文字按单字切分，特征权重为词频；
+	 * 文本为空时返回0
+	 */
+	static long simHash(String text) {
+		if (text == null || text.isBlank()) {
+			return 0;
+		}
+		// 每次出现都累加一次，等价于以词频为权重；只统计各比特为1的次数，超过半数即为1
+		int[] ones = new int[64];
+		int features = 0;
+		String lower = text.toLowerCase(Locale.ROOT);
+		int length = lower.length();
+		int i = 0;
+		while (i < length) {
+			int codePoint = lower.codePointAt(i);
+			int size = Character.charCount(codePoint);
+			if (isWordChar(codePoint)) {
+				int start = i;
+				while (i < length && isWordChar(lower.codePointAt(i))) {
+					i += Character.charCount(lower.codePointAt(i));
+				}
+				accumulate(ones, hash(lower, start, i));
+				features++;
+			} else if (Character.isLetterOrDigit(codePoint)) {
+				accumulate(ones, hash(lower, i, i + size));
+				features++;
+				i += size;
+			} else {
+				i += size;
+			}
+		}
+		if (features == 0) {
+			return 0;
+		}
+
+		long fingerprint = 0;
+		for (int bit = 0; bit < 64; bit++) {
+			if (ones[bit] * 2 > features) {
+				fingerprint |= 1L << bit;
+			}
+		}
+		// 0 保留给“无正文”
+		return fingerprint != 0 ? fingerprint : 1;
+	}
+
+	private static void accumulate(int[] ones, long hash) {
+		for (int bit = 0; bit < 64; bit++) {
+			ones[bit] += (int) ((hash >>> bit) & 1L);
+		}
+	}
+
+	private static boolean isWordChar(int codePoint) {
+		return codePoint < 0x3000 && Character.isLetterOrDigit(codePoint);
+	}
+
+	/**
+	 * FNV-1a 后接 murmur3 的 fmix64，使各比特分布均匀
+	 */
+	private static long hash(String text, int from, int to) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = from; i < to; i++) {
+			h ^= text.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * 一个调用目标在数据源内的排名结果
+	 *
+	 * @param sourceType 结果归属的数据源类型，决定融合权重
+	 * @param items 该目标返回的结果
+	 */
+	public record RankedList(SearchSourceType sourceType, List<SearchResultItem> items) {
+	}
+
+	private static final class Candidate {
+
+		static final Comparator<Candidate> ORDER = Comparator.comparingDouble((Candidate c) -> c.fusedScore).reversed()
+				.thenComparing(Comparator.comparingDouble((Candidate c) -> c.item.getScore()).reversed())
+				.thenComparing(c -> c.sourceType)
+				.thenComparing(c -> c.item.getId(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+		private final SearchResultItem item;
+		private final SearchSourceType sourceType;
+		private final long hash;
+		private double fusedScore;
+		private EnumSet<SearchSourceType> sources;
+		private List<String> duplicateIds;
+
+		private Candidate(SearchResultItem item, SearchSourceType sourceType, double fusedScore, long hash) {
+			this.item = item;
+			this.sourceType = sourceType;
+			this.fusedScore = fusedScore;
+			this.hash = hash;
+		}
+
+		/**
+		 * 折叠一个近重复结果：其他数据源的佐证累加融合分，同一数据源内的重复只记录ID
+		 */
+		void absorb(Candidate duplicate) {
+			if (sources == null) {
+				sources = EnumSet.of(sourceType);
+				duplicateIds = new ArrayList<>();
+			}
+			if (sources.add(duplicate.sourceType)) {
+				fusedScore += duplicate.fusedScore;
+			}
+			duplicateIds.add(duplicate.item.getId());
+		}
+	}
+}
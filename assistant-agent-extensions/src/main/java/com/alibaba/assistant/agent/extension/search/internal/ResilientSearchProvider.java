@@ -0,0 +1,226 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.LongSupplier;
+
+/**
+ * 带对冲请求与熔断的搜索Provider装饰器
+ *
+ * <p>每次调用先向熔断器申请许可，熔断打开时直接抛出 {@link SearchProviderUnavailableException}。
+ * 主请求在对冲线程池上执行；若在“窗口内延迟分位数”之内仍未返回，再发出一次重复请求，
+ * 两者先成功者胜出，另一个被取消。所有已发出的请求都失败时本次调用才算失败。
+ * 样本不足、半开探测或线程池饱和时不对冲。
+ *
+ * <p>{@link #getName()} 与 {@link #supports(SearchSourceType)} 直接委托给原Provider，
+ * 按名称匹配Provider的调用方不受影响。
+ *
+ * @author Assistant Agent Team
+ */
+public class ResilientSearchProvider implements SearchProvider {
+	private static final Logger logger = LoggerFactory.getLogger(ResilientSearchProvider.class);
+
+	private final SearchProvider delegate;
+
+	private final SearchCircuitBreaker breaker;
+
+	private final LatencyHistogram histogram;
+
+	/**
+	 * 对冲线程池，为null时在调用线程上直接执行且不对冲
+	 */
+	private final ExecutorService executor;
+
+	private final HedgePolicy hedgePolicy;
+
+	private final LongSupplier clockMillis;
+
+	public ResilientSearchProvider(SearchProvider delegate, SearchCircuitBreaker breaker, LatencyHistogram histogram,
+			ExecutorService executor, HedgePolicy hedgePolicy, LongSupplier clockMillis) {
+		this.delegate = delegate;
+		this.breaker = breaker;
+		this.histogram = histogram;
+		this.executor = executor;
+		this.hedgePolicy = hedgePolicy;
+		this.clockMillis = clockMillis;
+	}
+
+	@Override
+	public boolean supports(SearchSourceType type) {
+		return delegate.supports(type);
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public List<SearchResultItem> search(SearchRequest request) {
+		SearchCircuitBreaker.Permit permit = breaker.tryAcquire();
+		if (permit == null) {
+			logger.warn("ResilientSearchProvider#search - reason=circuit open, provider={}", getName());
+			throw new SearchProviderUnavailableException(getName(), "circuit open for provider " + getName());
+		}
+
+		List<SearchResultItem> items;
+		try {
+			items = executor != null ? hedgedSearch(request, permit) : attempt(request);
+		} catch (InterruptedException e) {
+			// 调用方在截止时间到达时取消了本次调用，视为失败
+			breaker.onFailure(permit);
+			Thread.currentThread().interrupt();
+			return List.of();
+		} catch (RuntimeException e) {
+			breaker.onFailure(permit);
+			throw e;
+		} catch (Error e) {
+			breaker.onIgnored(permit);
+			throw e;
+		}
+		breaker.onSuccess(permit);
+		return items;
+	}
+
+	public SearchCircuitBreaker.State getBreakerState() {
+		return breaker.getState();
+	}
+
+	public SearchProvider getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * 当前的对冲等待时间，不对冲时返回-1
+	 */
+	long hedgeDelayMillis(SearchCircuitBreaker.Permit permit) {
+		if (!hedgePolicy.enabled() || permit == SearchCircuitBreaker.Permit.PROBE
+				|| histogram.count() < hedgePolicy.minSamples()) {
+			return -1;
+		}
+		long percentile = histogram.percentile(hedgePolicy.percentile());
+		return Math.min(hedgePolicy.maxDelayMs(), Math.max(hedgePolicy.minDelayMs(), percentile));
+	}
+
+	private List<SearchResultItem> hedgedSearch(SearchRequest request, SearchCircuitBreaker.Permit permit)
+			throws InterruptedException {
+		Race race = new Race();
+		if (!race.launch(() -> attempt(request))) {
+			// 线程池饱和：退化为在调用线程上直接执行
+			return attempt(request);
+		}
+		try {
+			long delay = hedgeDelayMillis(permit);
+			if (delay >= 0) {
+				try {
+					return race.winner.get(delay, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					if (race.launch(() -> attempt(request))) {
+						logger.info("ResilientSearchProvider#hedgedSearch - reason=hedge request launched, provider={}, delayMs={}",
+								getName(), delay);
+					}
+				}
+			}
+			return race.winner.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			if (cause instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause.getMessage(), cause);
+		} finally {
+			race.cancelAll();
+		}
+	}
+
+	/**
+	 * 执行一次真实请求，成功时记录延迟
+	 */
+	private List<SearchResultItem> attempt(SearchRequest request) {
+		long start = clockMillis.getAsLong();
+		List<SearchResultItem> items = delegate.search(request);
+		histogram.record(clockMillis.getAsLong() - start);
+		return items != null ? items : List.of();
+	}
+
+	/**
+	 * 对冲参数
+	 *
+	 * @param enabled 是否对冲
+	 * @param percentile 对冲等待时间取窗口内延迟的该分位数
+	 * @param minDelayMs 等待时间下限
+	 * @param maxDelayMs 等待时间上限
+	 * @param minSamples 窗口内样本数少于该值时不对冲
+	 */
+	public record HedgePolicy(boolean enabled, double percentile, long minDelayMs, long maxDelayMs, long minSamples) {
+	}
+
+	/**
+	 * 一次调用内主请求与对冲请求的竞争，先成功者完成 winner，全部失败时以最后一个异常完成
+	 */
+	private final class Race {
+		private final CompletableFuture<List<SearchResultItem>> winner = new CompletableFuture<>();
+		private final List<Future<?>> attempts = new ArrayList<>();
+		private int failed;
+
+		synchronized boolean launch(Callable<List<SearchResultItem>> task) {
+			if (winner.isDone()) {
+				return false;
+			}
+			try {
+				attempts.add(executor.submit(() -> {
+					try {
+						winner.complete(task.call());
+					} catch (Throwable t) {
+						onAttemptFailed(t);
+					}
+				}));
+				return true;
+			} catch (RejectedExecutionException e) {
+				logger.debug("ResilientSearchProvider#launch - reason=hedge executor saturated, provider={}", getName());
+				return false;
+			}
+		}
+
+		private synchronized void onAttemptFailed(Throwable error) {
+			failed++;
+			// 提交与失败在同一把锁内计数，仍有在途请求时继续等待
+			if (failed >= attempts.size()) {
+				winner.completeExceptionally(error);
+			}
+		}
+
+		synchronized void cancelAll() {
+			winner.cancel(false);
+			for (Future<?> attempt : attempts) {
+				attempt.cancel(true);
+			}
+		}
+	}
+}
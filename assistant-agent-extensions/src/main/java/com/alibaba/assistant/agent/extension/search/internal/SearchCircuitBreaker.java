@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 单个搜索Provider的熔断器
+ *
+ * <ul>
+ *   <li>CLOSED：记录最近 windowSize 次调用结果，调用数达到 minCalls 且失败率达到阈值时熔断</li>
+ *   <li>OPEN：直接拒绝调用，经过 openMillis 后进入半开</li>
+ *   <li>HALF_OPEN：只放行一次探测调用，成功则恢复 CLOSED 并清空统计，失败则重新 OPEN</li>
+ * </ul>
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchCircuitBreaker {
+
+	/**
+	 * 熔断器状态
+	 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int minCalls;
+
+	private final double failureRateThreshold;
+
+	private final long openMillis;
+
+	private final LongSupplier clockMillis;
+
+	/**
+	 * 最近调用结果的环形缓冲，true 表示失败
+	 */
+	private final boolean[] outcomes;
+
+	private int recorded;
+
+	private int next;
+
+	private int failures;
+
+	private State state = State.CLOSED;
+
+	private long openedAt;
+
+	private boolean probeInFlight;
+
+	public SearchCircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openMillis,
+			LongSupplier clockMillis) {
+		this.outcomes = new boolean[Math.max(1, windowSize)];
+		this.minCalls = Math.max(1, Math.min(minCalls, outcomes.length));
+		this.failureRateThreshold = failureRateThreshold;
+		this.openMillis = openMillis;
+		this.clockMillis = clockMillis;
+	}
+
+	/**
+	 * 申请一次调用许可
+	 *
+	 * @return 不允许调用时返回null；允许时返回本次调用是否为半开探测
+	 */
+	public synchronized Permit tryAcquire() {
+		if (state == State.OPEN) {
+			if (clockMillis.getAsLong() - openedAt < openMillis) {
+				return null;
+			}
+			state = State.HALF_OPEN;
+			probeInFlight = false;
+		}
+		if (state == State.HALF_OPEN) {
+			if (probeInFlight) {
+				return null;
+			}
+			probeInFlight = true;
+			return Permit.PROBE;
+		}
+		return Permit.NORMAL;
+	}
+
+	/**
+	 * 记录调用成功
+	 */
+	public synchronized void onSuccess(Permit permit) {
+		if (permit == Permit.PROBE) {
+			if (state == State.HALF_OPEN) {
+				reset();
+			}
+			return;
+		}
+		if (state == State.CLOSED) {
+			record(false);
+		}
+	}
+
+	/**
+	 * 记录调用失败
+	 */
+	public synchronized void onFailure(Permit permit) {
+		if (permit == Permit.PROBE) {
+			if (state == State.HALF_OPEN) {
+				open();
+			}
+			return;
+		}
+		if (state == State.CLOSED) {
+			record(true);
+			if (recorded >= minCalls && (double) failures / recorded >= failureRateThreshold) {
+				open();
+			}
+		}
+	}
+
+	/**
+	 * 调用结果未知（如调用方被中断）时归还许可，半开状态下允许下一次探测
+	 */
+	public synchronized void onIgnored(Permit permit) {
+		if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+			probeInFlight = false;
+		}
+	}
+
+	public synchronized State getState() {
+		if (state == State.OPEN && clockMillis.getAsLong() - openedAt >= openMillis) {
+			return State.HALF_OPEN;
+		}
+		return state;
+	}
+
+	private void record(boolean failure) {
+		if (recorded == outcomes.length) {
+			if (outcomes[next]) {
+				failures--;
+			}
+		} else {
+			recorded++;
+		}
+		outcomes[next] = failure;
+		if (failure) {
+			failures++;
+		}
+		next = (next + 1) % outcomes.length;
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = clockMillis.getAsLong();
+		probeInFlight = false;
+	}
+
+	private void reset() {
+		state = State.CLOSED;
+		recorded = 0;
+		next = 0;
+		failures = 0;
+		probeInFlight = false;
+	}
+
+	/**
+	 * 调用许可类型
+	 */
+	public enum Permit {
+		NORMAL, PROBE
+	}
+}
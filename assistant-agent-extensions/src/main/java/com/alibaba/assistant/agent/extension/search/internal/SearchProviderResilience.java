@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.config.SearchExtensionProperties;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 搜索Provider韧性层
+ * 为每个Provider包装独立的熔断器与延迟直方图，并持有共享的对冲线程池；
+ * 同一个Provider多次包装返回同一个装饰器，门面与各搜索工具共享熔断状态
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchProviderResilience implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(SearchProviderResilience.class);
+
+	/**
+	 * 延迟直方图的时间片数
+	 */
+	private static final int HISTOGRAM_SLICES = 6;
+
+	private final SearchExtensionProperties.ResilienceConfig config;
+
+	private final LongSupplier clockMillis;
+
+	private final ExecutorService executor;
+
+	private final boolean ownsExecutor;
+
+	private final Map<SearchProvider, ResilientSearchProvider> wrapped = new IdentityHashMap<>();
+
+	public SearchProviderResilience(SearchExtensionProperties.ResilienceConfig config) {
+		this(config, newHedgeExecutor(config.getMaxConcurrentCalls()), true, System::currentTimeMillis);
+	}
+
+	/**
+	 * 使用外部线程池与时钟创建，线程池的生命周期由调用方管理
+	 */
+	public SearchProviderResilience(SearchExtensionProperties.ResilienceConfig config, ExecutorService executor,
+			LongSupplier clockMillis) {
+		this(config, executor, false, clockMillis);
+	}
+
+	private SearchProviderResilience(SearchExtensionProperties.ResilienceConfig config, ExecutorService executor,
+			boolean ownsExecutor, LongSupplier clockMillis) {
+		this.config = config;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.clockMillis = clockMillis;
+	}
+
+	/**
+	 * 包装Provider列表，保持原有顺序
+	 */
+	public List<SearchProvider> wrap(List<SearchProvider> providers) {
+		List<SearchProvider> result = new ArrayList<>();
+		if (providers == null) {
+			return result;
+		}
+		for (SearchProvider provider : providers) {
+			result.add(wrap(provider));
+		}
+		return result;
+	}
+
+	public synchronized SearchProvider wrap(SearchProvider provider) {
+		if (provider == null || provider instanceof ResilientSearchProvider) {
+			return provider;
+		}
+		return wrapped.computeIfAbsent(provider, p -> {
+			logger.info("SearchProviderResilience#wrap - reason=wrapping provider with circuit breaker, provider={}, hedge={}",
+					p.getName(), config.isHedgeEnabled());
+			SearchCircuitBreaker breaker = new SearchCircuitBreaker(config.getBreakerWindowSize(),
+					config.getBreakerMinCalls(), config.getBreakerFailureRateThreshold(), config.getBreakerOpenMs(),
+					clockMillis);
+			LatencyHistogram histogram = new LatencyHistogram(TimeUnit.SECONDS.toMillis(config.getLatencyWindowSeconds()),
+					HISTOGRAM_SLICES, clockMillis);
+			ResilientSearchProvider.HedgePolicy policy = new ResilientSearchProvider.HedgePolicy(config.isHedgeEnabled(),
+					config.getHedgePercentile(), config.getMinHedgeDelayMs(), config.getMaxHedgeDelayMs(),
+					config.getMinSamples());
+			return new ResilientSearchProvider(p, breaker, histogram, executor, policy, clockMillis);
+		});
+	}
+
+	@Override
+	public void close() {
+		if (ownsExecutor && executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 不排队的有界线程池：并发调用数达到上限后新的请求不再对冲，而是在调用线程上直接执行
+	 */
+	private static ExecutorService newHedgeExecutor(int maxConcurrentCalls) {
+		AtomicInteger counter = new AtomicInteger();
+		return new ThreadPoolExecutor(0, Math.max(1, maxConcurrentCalls), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "search-hedge-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+}
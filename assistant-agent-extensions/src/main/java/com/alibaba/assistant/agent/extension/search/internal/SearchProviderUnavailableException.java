@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+/**
+ * 搜索Provider暂不可用（熔断打开）时抛出
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchProviderUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String providerName;
+
+	public SearchProviderUnavailableException(String providerName, String message) {
+		super(message);
+		this.providerName = providerName;
+	}
+
+	public String getProviderName() {
+		return providerName;
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchContext;
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 统一搜索结果缓存
+ *
+ * <ul>
+ *   <li>缓存键由归一化后的查询文本、数据源类型、topK/perSourceTopK、过滤条件与租户（用户、项目、仓库）组成；
+ *   只有缓存键做归一化，加载时数据源收到的仍是原始请求</li>
+ *   <li>条目的有效期取实际搜索的数据源中最短的TTL</li>
+ *   <li>过期但仍在 stale-while-revalidate 窗口内的条目直接返回，同时在后台刷新</li>
+ *   <li>相同请求并发未命中时只调用一次数据源，其余调用等待同一个结果</li>
+ *   <li>只缓存所有数据源都成功返回的结果，部分结果不入缓存</li>
+ * </ul>
+ *
+ * 返回的结果集是缓存条目的副本（含 source_status 中的状态对象），元数据中 cached 表示是否由缓存提供，stale 表示是否为过期数据
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchResultCache implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+	private final int maxEntries;
+
+	private final long defaultTtlMs;
+
+	private final Map<SearchSourceType, Long> perSourceTtlMs;
+
+	private final long staleWhileRevalidateMs;
+
+	private final ExecutorService refreshExecutor;
+
+	private final boolean ownsExecutor;
+
+	private final LongSupplier clockMillis;
+
+	/**
+	 * 按访问顺序淘汰的条目表
+	 */
+	private final Map<CacheKey, Entry> entries;
+
+	/**
+	 * 正在加载的请求，用于合并并发的相同请求
+	 */
+	private final ConcurrentHashMap<CacheKey, CompletableFuture<SearchResultSet>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * 创建自带后台刷新线程池的缓存
+	 */
+	public SearchResultCache(int maxEntries, long defaultTtlMs, Map<SearchSourceType, Long> perSourceTtlMs,
+			long staleWhileRevalidateMs, int refreshThreads) {
+		this(maxEntries, defaultTtlMs, perSourceTtlMs, staleWhileRevalidateMs, newRefreshExecutor(refreshThreads), true,
+				System::currentTimeMillis);
+	}
+
+	/**
+	 * 使用外部刷新线程池与时钟创建缓存，线程池的生命周期由调用方管理
+	 */
+	public SearchResultCache(int maxEntries, long defaultTtlMs, Map<SearchSourceType, Long> perSourceTtlMs,
+			long staleWhileRevalidateMs, ExecutorService refreshExecutor, LongSupplier clockMillis) {
+		this(maxEntries, defaultTtlMs, perSourceTtlMs, staleWhileRevalidateMs, refreshExecutor, false, clockMillis);
+	}
+
+	private SearchResultCache(int maxEntries, long defaultTtlMs, Map<SearchSourceType, Long> perSourceTtlMs,
+			long staleWhileRevalidateMs, ExecutorService refreshExecutor, boolean ownsExecutor, LongSupplier clockMillis) {
+		this.maxEntries = Math.max(1, maxEntries);
+		this.defaultTtlMs = defaultTtlMs;
+		this.perSourceTtlMs = new EnumMap<>(SearchSourceType.class);
+		if (perSourceTtlMs != null) {
+			this.perSourceTtlMs.putAll(perSourceTtlMs);
+		}
+		this.staleWhileRevalidateMs = Math.max(0, staleWhileRevalidateMs);
+		this.refreshExecutor = refreshExecutor;
+		this.ownsExecutor = ownsExecutor;
+		this.clockMillis = clockMillis;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+				return size() > SearchResultCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * 读取缓存，未命中时通过 loader 加载
+	 *
+	 * @param request 搜索请求
+	 * @param loader 实际调用数据源的加载函数
+	 * @return 结果集副本
+	 */
+	public SearchResultSet get(SearchRequest request, Function<SearchRequest, SearchResultSet> loader) {
+		return get(request, request.getSourceTypes(), loader);
+	}
+
+	/**
+	 * 读取缓存，未命中时通过 loader 加载
+	 *
+	 * @param request 搜索请求
+	 * @param sourceTypes 实际搜索的数据源类型，用于确定有效期；请求未指定数据源时由调用方解析出默认数据源
+	 * @param loader 实际调用数据源的加载函数
+	 * @return 结果集副本
+	 */
+	public SearchResultSet get(SearchRequest request, Set<SearchSourceType> sourceTypes,
+			Function<SearchRequest, SearchResultSet> loader) {
+		CacheKey key = CacheKey.of(request);
+		long ttlMs = ttlMs(sourceTypes);
+		if (ttlMs <= 0) {
+			return loader.apply(request);
+		}
+
+		long now = clockMillis.getAsLong();
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry != null) {
+			long age = now - entry.loadedAt();
+			if (age < entry.ttlMs()) {
+				return copy(entry.resultSet(), true, false, age);
+			}
+			if (age < entry.ttlMs() + staleWhileRevalidateMs) {
+				refreshInBackground(key, request, loader, ttlMs);
+				return copy(entry.resultSet(), true, true, age);
+			}
+		}
+
+		CompletableFuture<SearchResultSet> mine = new CompletableFuture<>();
+		CompletableFuture<SearchResultSet> existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			// 已有相同请求在加载（包括后台刷新），等待其结果
+			SearchResultSet shared = join(existing);
+			SearchResultSet result = copy(shared, false, false, 0);
+			result.getMetadata().put("coalesced", true);
+			return result;
+		}
+		SearchResultSet loaded = load(key, request, loader, ttlMs, mine);
+		return copy(loaded, false, false, 0);
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void invalidateAll() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			refreshExecutor.shutdownNow();
+		}
+	}
+
+	private SearchResultSet load(CacheKey key, SearchRequest request, Function<SearchRequest, SearchResultSet> loader,
+			long ttlMs, CompletableFuture<SearchResultSet> future) {
+		try {
+			SearchResultSet loaded = loader.apply(request);
+			if (isCacheable(loaded)) {
+				synchronized (entries) {
+					entries.put(key, new Entry(loaded, clockMillis.getAsLong(), ttlMs));
+				}
+			}
+			future.complete(loaded);
+			return loaded;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	private void refreshInBackground(CacheKey key, SearchRequest request, Function<SearchRequest, SearchResultSet> loader,
+			long ttlMs) {
+		CompletableFuture<SearchResultSet> refresh = new CompletableFuture<>();
+		if (inFlight.putIfAbsent(key, refresh) != null) {
+			return;
+		}
+		try {
+			refreshExecutor.execute(() -> {
+				try {
+					load(key, request, loader, ttlMs, refresh);
+				} catch (RuntimeException e) {
+					logger.warn("SearchResultCache#refreshInBackground - reason=background refresh failed, query={}, error={}",
+							request.getQuery(), e.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 刷新线程池饱和：本次不刷新，下次访问再试
+			inFlight.remove(key, refresh);
+			refresh.cancel(false);
+		}
+	}
+
+	/**
+	 * 数据源中最短的TTL；数据源未知时使用默认TTL
+	 */
+	private long ttlMs(Set<SearchSourceType> sourceTypes) {
+		if (sourceTypes == null || sourceTypes.isEmpty()) {
+			return defaultTtlMs;
+		}
+		long ttl = Long.MAX_VALUE;
+		for (SearchSourceType sourceType : sourceTypes) {
+			ttl = Math.min(ttl, perSourceTtlMs.getOrDefault(sourceType, defaultTtlMs));
+		}
+		return ttl;
+	}
+
+	private static boolean isCacheable(SearchResultSet resultSet) {
+		return resultSet != null && Boolean.FALSE.equals(resultSet.getMetadata().get("partial"));
+	}
+
+	private static SearchResultSet join(CompletableFuture<SearchResultSet> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 复制结果集，避免调用方修改缓存条目
+	 */
+	private static SearchResultSet copy(SearchResultSet source, boolean cached, boolean stale, long ageMs) {
+		SearchResultSet copy = new SearchResultSet(source.getQuery());
+		copy.setItems(new ArrayList<>(source.getItems()));
+		Map<SearchSourceType, List<SearchResultItem>> grouped = new HashMap<>();
+		source.getGroupedBySource().forEach((type, items) -> grouped.put(type, new ArrayList<>(items)));
+		copy.setGroupedBySource(grouped);
+		copy.setUsedSources(new HashSet<>(source.getUsedSources()));
+		Map<String, Object> metadata = new HashMap<>();
+		source.getMetadata().forEach((name, value) -> metadata.put(name, copyMetadataValue(value)));
+		copy.setMetadata(metadata);
+		copy.getMetadata().put("cached", cached);
+		if (cached) {
+			copy.getMetadata().put("stale", stale);
+			copy.getMetadata().put("cache_age_ms", ageMs);
+		}
+		return copy;
+	}
+
+	/**
+	 * 复制元数据中的可变值：状态对象逐个复制，映射与列表复制容器后递归处理元素
+	 */
+	private static Object copyMetadataValue(Object value) {
+		if (value instanceof SearchSourceStatus status) {
+			return new SearchSourceStatus(status);
+		}
+		if (value instanceof Map<?, ?> map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			map.forEach((k, v) -> copy.put(k, copyMetadataValue(v)));
+			return copy;
+		}
+		if (value instanceof List<?> list) {
+			List<Object> copy = new ArrayList<>(list.size());
+			list.forEach(element -> copy.add(copyMetadataValue(element)));
+			return copy;
+		}
+		return value;
+	}
+
+	/**
+	 * 归一化查询文本：全角转半角（NFKC）、转小写、合并连续空白
+	 */
+	static String normalizeQuery(String query) {
+		if (query == null) {
+			return "";
+		}
+		String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+		return normalized.replaceAll("\\s+", " ");
+	}
+
+	private static ExecutorService newRefreshExecutor(int threads) {
+		int size = Math.max(1, threads);
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(64), runnable -> {
+					Thread thread = new Thread(runnable, "search-cache-refresh-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private record Entry(SearchResultSet resultSet, long loadedAt, long ttlMs) {
+	}
+
+	/**
+	 * 缓存键，集合与映射转换为有序形式，与请求中的遍历顺序无关
+	 */
+	record CacheKey(String query, Set<SearchSourceType> sourceTypes, int topK, Map<SearchSourceType, Integer> perSourceTopK,
+			String filters, String userId, String projectId, String repoId) {
+
+		static CacheKey of(SearchRequest request) {
+			Set<SearchSourceType> sourceTypes = request.getSourceTypes() != null && !request.getSourceTypes().isEmpty()
+					? EnumSet.copyOf(request.getSourceTypes()) : EnumSet.noneOf(SearchSourceType.class);
+			Map<SearchSourceType, Integer> perSourceTopK = new EnumMap<>(SearchSourceType.class);
+			if (request.getPerSourceTopK() != null) {
+				perSourceTopK.putAll(request.getPerSourceTopK());
+			}
+			String filters = request.getFilters() != null && !request.getFilters().isEmpty()
+					? new TreeMap<>(request.getFilters()).toString() : "";
+			SearchContext context = request.getContext();
+			return new CacheKey(normalizeQuery(request.getQuery()), sourceTypes, request.getTopK(), perSourceTopK, filters,
+					context != null ? context.getUserId() : null, context != null ? context.getProjectId() : null,
+					context != null ? context.getRepoId() : null);
+		}
+	}
+}
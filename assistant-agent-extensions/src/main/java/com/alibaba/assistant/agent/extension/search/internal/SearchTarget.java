@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+
+import java.util.Arrays;
+
+/**
+ * 统一搜索的一个调用目标：一个Provider及其结果归属的数据源类型
+ * key 在一次搜索中唯一，按数据源类型选择的目标使用类型名，按名称指定的Provider使用Provider名称；
+ * 同一数据源类型可以有多个目标，各自独立调用、独立排名，执行状态以 key 记录在 source_status 中
+ *
+ * @param key 目标标识
+ * @param sourceType 结果归属的数据源类型，决定截止时间、融合权重与缓存TTL
+ * @param provider 调用的Provider，为null表示该数据源没有可用的Provider
+ * @author Assistant Agent Team
+ */
+public record SearchTarget(String key, SearchSourceType sourceType, SearchProvider provider) {
+
+	/**
+	 * 按数据源类型选择的目标
+	 */
+	public static SearchTarget ofType(SearchSourceType sourceType, SearchProvider provider) {
+		return new SearchTarget(sourceType.name(), sourceType, provider);
+	}
+
+	/**
+	 * 按名称指定的Provider，归属它支持的第一个数据源类型，都不支持时归属 CUSTOM
+	 */
+	public static SearchTarget ofProvider(SearchProvider provider) {
+		SearchSourceType sourceType = Arrays.stream(SearchSourceType.values())
+				.filter(provider::supports)
+				.findFirst()
+				.orElse(SearchSourceType.CUSTOM);
+		return new SearchTarget(provider.getName(), sourceType, provider);
+	}
+}
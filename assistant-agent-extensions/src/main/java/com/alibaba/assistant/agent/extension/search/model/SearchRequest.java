@@ -43,6 +43,16 @@ public class SearchRequest {
 	 */
 	private Map<SearchSourceType, Integer> perSourceTopK;
 
+	/**
+	 * 整体搜索截止时间（毫秒），小于等于0时使用配置的默认超时
+	 */
+	private long timeoutMs;
+
+	/**
+	 * 每类数据源的超时时间（毫秒），不超过整体截止时间
+	 */
+	private Map<SearchSourceType, Long> perSourceTimeoutMs;
+
 	/**
 	 * 通用过滤条件
 	 */
@@ -56,6 +66,7 @@ public class SearchRequest {
 	public SearchRequest() {
 		this.sourceTypes = new HashSet<>();
 		this.perSourceTopK = new HashMap<>();
+		this.perSourceTimeoutMs = new HashMap<>();
 		this.filters = new HashMap<>();
 		this.context = new SearchContext();
 	}
@@ -97,6 +108,22 @@ public class SearchRequest {
 		this.perSourceTopK = perSourceTopK;
 	}
 
+	public long getTimeoutMs() {
+		return timeoutMs;
+	}
+
+	public void setTimeoutMs(long timeoutMs) {
+		this.timeoutMs = timeoutMs;
+	}
+
+	public Map<SearchSourceType, Long> getPerSourceTimeoutMs() {
+		return perSourceTimeoutMs;
+	}
+
+	public void setPerSourceTimeoutMs(Map<SearchSourceType, Long> perSourceTimeoutMs) {
+		this.perSourceTimeoutMs = perSourceTimeoutMs;
+	}
+
 	public Map<String, Object> getFilters() {
 		return filters;
 	}
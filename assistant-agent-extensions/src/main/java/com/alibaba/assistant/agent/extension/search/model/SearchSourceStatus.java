@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.model;
+
+/**
+ * 单个数据源在一次统一搜索中的执行状态
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchSourceStatus {
+	/**
+	 * 执行状态
+	 */
+	public enum State {
+		/**
+		 * 在截止时间内正常返回
+		 */
+		SUCCESS,
+
+		/**
+		 * 超过截止时间，结果被丢弃
+		 */
+		TIMEOUT,
+
+		/**
+		 * Provider抛出异常
+		 */
+		FAILED,
+
+		/**
+		 * 执行线程池已满，未能下发
+		 */
+		REJECTED,
+
+		/**
+		 * 没有支持该数据源的Provider
+		 */
+		NO_PROVIDER
+	}
+
+	/**
+	 * 数据源类型
+	 */
+	private SearchSourceType sourceType;
+
+	/**
+	 * 实际调用的Provider名称
+	 */
+	private String providerName;
+
+	/**
+	 * 执行状态
+	 */
+	private State state;
+
+	/**
+	 * 返回结果数
+	 */
+	private int resultCount;
+
+	/**
+	 * 从下发到返回（或超时）的耗时（毫秒）
+	 */
+	private long durationMs;
+
+	/**
+	 * 失败原因
+	 */
+	private String errorMessage;
+
+	public SearchSourceStatus() {
+	}
+
+	public SearchSourceStatus(SearchSourceType sourceType, String providerName, State state) {
+		this.sourceType = sourceType;
+		this.providerName = providerName;
+		this.state = state;
+	}
+
+	public SearchSourceStatus(SearchSourceStatus other) {
+		this.sourceType = other.sourceType;
+		this.providerName = other.providerName;
+		this.state = other.state;
+		this.resultCount = other.resultCount;
+		this.durationMs = other.durationMs;
+		this.errorMessage = other.errorMessage;
+	}
+
+	public boolean isSuccess() {
+		return state == State.SUCCESS;
+	}
+
+	public SearchSourceType getSourceType() {
+		return sourceType;
+	}
+
+	public void setSourceType(SearchSourceType sourceType) {
+		this.sourceType = sourceType;
+	}
+
+	public String getProviderName() {
+		return providerName;
+	}
+
+	public void setProviderName(String providerName) {
+		this.providerName = providerName;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public void setState(State state) {
+		this.state = state;
+	}
+
+	public int getResultCount() {
+		return resultCount;
+	}
+
+	public void setResultCount(int resultCount) {
+		this.resultCount = resultCount;
+	}
+
+	public long getDurationMs() {
+		return durationMs;
+	}
+
+	public void setDurationMs(long durationMs) {
+		this.durationMs = durationMs;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	public void setErrorMessage(String errorMessage) {
+		this.errorMessage = errorMessage;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.tools;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchMetadata;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索结果集的流式JSON写出器
+ *
+ * <p>按 {@link SearchResultSet} 的字段逐个写入 {@link JsonGenerator}，输出结构与 ObjectMapper 序列化结果一致，
+ * 不经过Bean反射与中间对象；只有元数据中的非基本类型值才交给 ObjectMapper 处理。
+ * 单条结果的 content、snippet 超过上限时截断并以 "..." 结尾，结果集元数据的 truncated 标记是否发生过截断。
+ *
+ * @author Assistant Agent Team
+ */
+public class SearchResultJsonWriter {
+
+	private static final String ELLIPSIS = "...";
+
+	private final ObjectMapper objectMapper;
+
+	private final int maxContentChars;
+
+	private final int maxSnippetChars;
+
+	/**
+	 * @param objectMapper 提供 JsonFactory 及非基本类型值的序列化
+	 * @param maxContentChars 单条结果 content 的最大字符数，小于等于0表示不限制
+	 * @param maxSnippetChars 单条结果 snippet 的最大字符数，小于等于0表示不限制
+	 */
+	public SearchResultJsonWriter(ObjectMapper objectMapper, int maxContentChars, int maxSnippetChars) {
+		this.objectMapper = objectMapper;
+		this.maxContentChars = maxContentChars;
+		this.maxSnippetChars = maxSnippetChars;
+	}
+
+	/**
+	 * 写出为JSON字符串
+	 */
+	public String writeAsString(SearchResultSet resultSet) throws IOException {
+		// 与 ObjectMapper#writeValueAsString 相同的分段缓冲，避免 StringWriter 扩容时整体复制
+		SegmentedStringWriter writer = new SegmentedStringWriter(new BufferRecycler());
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+			write(resultSet, generator);
+		}
+		return writer.getAndClear();
+	}
+
+	/**
+	 * 写出到给定的生成器，不关闭生成器
+	 */
+	public void write(SearchResultSet resultSet, JsonGenerator generator) throws IOException {
+		boolean truncated = false;
+		generator.writeStartObject();
+		generator.writeStringField("query", resultSet.getQuery());
+
+		generator.writeFieldName("items");
+		truncated |= writeItems(resultSet.getItems(), generator);
+
+		generator.writeFieldName("groupedBySource");
+		Map<SearchSourceType, List<SearchResultItem>> grouped = resultSet.getGroupedBySource();
+		if (grouped == null) {
+			generator.writeNull();
+		} else {
+			generator.writeStartObject();
+			for (Map.Entry<SearchSourceType, List<SearchResultItem>> entry : grouped.entrySet()) {
+				generator.writeFieldName(String.valueOf(entry.getKey()));
+				truncated |= writeItems(entry.getValue(), generator);
+			}
+			generator.writeEndObject();
+		}
+
+		generator.writeFieldName("usedSources");
+		if (resultSet.getUsedSources() == null) {
+			generator.writeNull();
+		} else {
+			generator.writeStartArray();
+			for (SearchSourceType sourceType : resultSet.getUsedSources()) {
+				writeEnum(sourceType, generator);
+			}
+			generator.writeEndArray();
+		}
+
+		generator.writeFieldName("metadata");
+		Map<String, Object> metadata = resultSet.getMetadata();
+		if (metadata == null) {
+			generator.writeNull();
+		} else {
+			generator.writeStartObject();
+			for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+				if (!"truncated".equals(entry.getKey())) {
+					generator.writeFieldName(entry.getKey());
+					writeValue(entry.getValue(), generator);
+				}
+			}
+			if (truncated || metadata.containsKey("truncated")) {
+				generator.writeBooleanField("truncated", truncated || Boolean.TRUE.equals(metadata.get("truncated")));
+			}
+			generator.writeEndObject();
+		}
+
+		generator.writeNumberField("totalCount", resultSet.getTotalCount());
+		generator.writeEndObject();
+	}
+
+	private boolean writeItems(List<SearchResultItem> items, JsonGenerator generator) throws IOException {
+		if (items == null) {
+			generator.writeNull();
+			return false;
+		}
+		boolean truncated = false;
+		generator.writeStartArray();
+		for (SearchResultItem item : items) {
+			truncated |= writeItem(item, generator);
+		}
+		generator.writeEndArray();
+		return truncated;
+	}
+
+	private boolean writeItem(SearchResultItem item, JsonGenerator generator) throws IOException {
+		if (item == null) {
+			generator.writeNull();
+			return false;
+		}
+		generator.writeStartObject();
+		generator.writeStringField("id", item.getId());
+		generator.writeFieldName("sourceType");
+		writeEnum(item.getSourceType(), generator);
+		generator.writeStringField("title", item.getTitle());
+		boolean truncated = writeBounded("snippet", item.getSnippet(), maxSnippetChars, generator);
+		truncated |= writeBounded("content", item.getContent(), maxContentChars, generator);
+		generator.writeStringField("uri", item.getUri());
+		generator.writeNumberField("score", item.getScore());
+		generator.writeFieldName("metadata");
+		writeMetadata(item.getMetadata(), generator);
+		generator.writeEndObject();
+		return truncated;
+	}
+
+	private void writeMetadata(SearchMetadata metadata, JsonGenerator generator) throws IOException {
+		if (metadata == null) {
+			generator.writeNull();
+			return;
+		}
+		generator.writeStartObject();
+		generator.writeStringField("sourceName", metadata.getSourceName());
+		generator.writeStringField("language", metadata.getLanguage());
+		generator.writeFieldName("tags");
+		if (metadata.getTags() == null) {
+			generator.writeNull();
+		} else {
+			generator.writeStartObject();
+			for (Map.Entry<String, String> tag : metadata.getTags().entrySet()) {
+				generator.writeStringField(tag.getKey(), tag.getValue());
+			}
+			generator.writeEndObject();
+		}
+		generator.writeFieldName("createdAt");
+		writeValue(metadata.getCreatedAt(), generator);
+		generator.writeFieldName("updatedAt");
+		writeValue(metadata.getUpdatedAt(), generator);
+		generator.writeFieldName("extensions");
+		writeValue(metadata.getExtensions(), generator);
+		generator.writeEndObject();
+	}
+
+	private static boolean writeBounded(String field, String value, int maxChars, JsonGenerator generator)
+			throws IOException {
+		if (value == null || maxChars <= 0 || value.length() <= maxChars) {
+			generator.writeStringField(field, value);
+			return false;
+		}
+		// 截断点避开代理对的中间
+		int end = Math.max(0, maxChars - ELLIPSIS.length());
+		if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) {
+			end--;
+		}
+		generator.writeStringField(field, value.substring(0, end) + ELLIPSIS);
+		return true;
+	}
+
+	private static void writeEnum(Enum<?> value, JsonGenerator generator) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else {
+			generator.writeString(value.name());
+		}
+	}
+
+	/**
+	 * 常见类型直接写出，其余交给 ObjectMapper
+	 */
+	private void writeValue(Object value, JsonGenerator generator) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof String text) {
+			generator.writeString(text);
+		} else if (value instanceof Boolean bool) {
+			generator.writeBoolean(bool);
+		} else if (value instanceof Integer number) {
+			generator.writeNumber(number);
+		} else if (value instanceof Long number) {
+			generator.writeNumber(number);
+		} else if (value instanceof Double number) {
+			generator.writeNumber(number);
+		} else if (value instanceof Enum<?> enumValue) {
+			writeEnum(enumValue, generator);
+		} else if (value instanceof Map<?, ?> map) {
+			generator.writeStartObject();
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				Object key = entry.getKey();
+				generator.writeFieldName(key instanceof Enum<?> enumKey ? enumKey.name() : String.valueOf(key));
+				writeValue(entry.getValue(), generator);
+			}
+			generator.writeEndObject();
+		} else if (value instanceof Collection<?> collection) {
+			generator.writeStartArray();
+			for (Object element : collection) {
+				writeValue(element, generator);
+			}
+			generator.writeEndArray();
+		} else {
+			objectMapper.writeValue(generator, value);
+		}
+	}
+}
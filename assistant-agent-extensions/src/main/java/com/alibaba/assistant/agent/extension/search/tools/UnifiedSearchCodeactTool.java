@@ -25,9 +25,11 @@ import com.alibaba.assistant.agent.common.tools.definition.DefaultCodeactToolDef
 import com.alibaba.assistant.agent.common.tools.definition.ParameterNode;
 import com.alibaba.assistant.agent.common.tools.definition.ParameterTree;
 import com.alibaba.assistant.agent.common.tools.definition.ParameterType;
+import com.alibaba.assistant.agent.extension.search.internal.DefaultSearchFacade;
+import com.alibaba.assistant.agent.extension.search.internal.SearchTarget;
 import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
-import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
 import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
 import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
 import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -37,12 +39,13 @@ import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.definition.ToolDefinition;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 统一搜索工具 - 聚合多种搜索源的 CodeactTool 实现。
  *
  * <p>该工具可以同时搜索多个数据源（项目、知识库、Web等），并聚合结果。
+ * 搜索经 {@link DefaultSearchFacade} 执行：各数据源并发调用、跨数据源融合排序并复用结果缓存；
+ * 结果通过 {@link SearchResultJsonWriter} 直接写出为 JSON，单条结果大小受限。
  *
  * @author Assistant Agent Team
  * @since 1.0.0
@@ -55,6 +58,10 @@ public class UnifiedSearchCodeactTool implements SearchCodeactTool {
 
 	private static final String DESCRIPTION = "统一搜索工具，可同时搜索项目、知识库、Web等多个数据源";
 
+	private static final int DEFAULT_MAX_CONTENT_CHARS = 2000;
+
+	private static final int DEFAULT_MAX_SNIPPET_CHARS = 500;
+
 	private final List<SearchProvider> searchProviders;
 
 	private final CodeactToolMetadata codeactMetadata;
@@ -65,13 +72,32 @@ public class UnifiedSearchCodeactTool implements SearchCodeactTool {
 
 	private final ObjectMapper objectMapper;
 
+	private final SearchResultJsonWriter resultWriter;
+
+	private final DefaultSearchFacade searchFacade;
+
 	/**
-	 * 构造统一搜索工具。
+	 * 构造统一搜索工具，使用默认的搜索门面（无缓存）。
 	 * @param searchProviders 所有可用的搜索提供者
 	 */
 	public UnifiedSearchCodeactTool(List<SearchProvider> searchProviders) {
+		this(searchProviders, new DefaultSearchFacade(searchProviders), DEFAULT_MAX_CONTENT_CHARS,
+				DEFAULT_MAX_SNIPPET_CHARS);
+	}
+
+	/**
+	 * 构造统一搜索工具。
+	 * @param searchProviders 所有可用的搜索提供者，用于按名称或类型解析数据源
+	 * @param searchFacade 执行并发调用、融合排序与缓存的搜索门面
+	 * @param maxContentChars 输出中单条结果 content 的最大字符数，小于等于0表示不限制
+	 * @param maxSnippetChars 输出中单条结果 snippet 的最大字符数，小于等于0表示不限制
+	 */
+	public UnifiedSearchCodeactTool(List<SearchProvider> searchProviders, DefaultSearchFacade searchFacade,
+			int maxContentChars, int maxSnippetChars) {
 		this.searchProviders = searchProviders != null ? searchProviders : new ArrayList<>();
+		this.searchFacade = Objects.requireNonNull(searchFacade, "searchFacade");
 		this.objectMapper = new ObjectMapper();
+		this.resultWriter = new SearchResultJsonWriter(objectMapper, maxContentChars, maxSnippetChars);
 
 		// 构建 ToolDefinition
 		this.toolDefinition = buildToolDefinition();
@@ -99,8 +125,8 @@ public class UnifiedSearchCodeactTool implements SearchCodeactTool {
 			// 执行统一搜索
 			SearchResultSet resultSet = executeUnifiedSearch(params, toolContext);
 
-			// 将结果序列化为 JSON
-			String resultJson = objectMapper.writeValueAsString(resultSet);
+			// 直接写出 JSON，单条结果的大小受限
+			String resultJson = resultWriter.writeAsString(resultSet);
 
 			log.info("UnifiedSearchCodeactTool#call - reason=统一搜索执行成功, resultCount={}, sourceCount={}",
 					resultSet.getItems().size(), resultSet.getMetadata().get("source_count"));
@@ -150,94 +176,104 @@ public class UnifiedSearchCodeactTool implements SearchCodeactTool {
 
 		// 解析要搜索的源 keys (可以是类型名，也可以是 provider 名)
 		List<String> sourceKeys = parseSourceKeys(params);
+		return search(query, sourceKeys, limit);
+	}
 
-		log.info("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=开始统一搜索, query={}, sources={}, limit={}",
+	/**
+	 * 类型化的统一搜索入口，Java 调用方可直接使用，不经过 JSON。
+	 *
+	 * <p>数据源经搜索门面并发调用，超时或失败的数据源记录在元数据 source_status 中；
+	 * 各数据源的结果按排名融合后取前 limit 条。
+	 * @param query 查询语句
+	 * @param sourceKeys 数据源类型名或 Provider 名称
+	 * @param limit 返回条数上限
+	 * @return 融合排序后的结果集
+	 */
+	public SearchResultSet search(String query, List<String> sourceKeys, int limit) {
+		log.info("UnifiedSearchCodeactTool#search - reason=开始统一搜索, query={}, sources={}, limit={}",
 				query, sourceKeys, limit);
 
-		// 并行搜索多个数据源
-		List<SearchResultItem> allItems = new ArrayList<>();
-		int successCount = 0;
-		int failureCount = 0;
-
+		List<SearchTarget> targets = new ArrayList<>();
 		for (String key : sourceKeys) {
-			try {
-				// 1. 尝试作为 Provider Name 匹配
-				Optional<SearchProvider> namedProvider = searchProviders.stream()
-						.filter(p -> p.getName().equalsIgnoreCase(key))
-						.findFirst();
-
-				if (namedProvider.isPresent()) {
-					// 按指定 Provider 名称搜索
-					SearchProvider provider = namedProvider.get();
-					// 当指定具体 Provider 时，尝试使用 CUSTOM 类型，或者该 Provider 支持的第一个类型
-					// 这里为了简单，我们传递 CUSTOM 类型，如果 Provider 不处理 SourceType 也没关系
-					SearchRequest request = buildSearchRequest(query, SearchSourceType.CUSTOM, limit);
-
-					List<SearchResultItem> items = provider.search(request);
-					if (items != null) {
-                        allItems.addAll(items);
-                    }
-					successCount++;
-					log.debug("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=指定Provider搜索成功, provider={}, resultCount={}",
-							provider.getName(), items.size());
-					continue;
-				}
-
-				// 2. 尝试作为 SourceType 匹配
-				SearchSourceType sourceType;
-				try {
-					sourceType = SearchSourceType.valueOf(key.toUpperCase());
-				} catch (IllegalArgumentException e) {
-					log.warn("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=无效的源类型或Provider名称, key={}", key);
-					continue;
-				}
+			resolve(key, targets);
+		}
 
-				// 查找支持该源类型的 provider
-				List<SearchProvider> providers = searchProviders.stream()
-						.filter(p -> p.supports(sourceType))
-						.collect(Collectors.toList());
+		SearchRequest request = new SearchRequest();
+		request.setQuery(query);
+		Set<SearchSourceType> sourceTypes = new LinkedHashSet<>();
+		for (SearchTarget target : targets) {
+			sourceTypes.add(target.sourceType());
+		}
+		request.setSourceTypes(sourceTypes);
+		request.setTopK(limit);
+		SearchResultSet resultSet = searchFacade.unifiedSearch(request, targets);
 
-				if (providers.isEmpty()) {
-					log.warn("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=未找到支持的provider, sourceType={}",
-							sourceType);
-					continue;
+		int successCount = 0;
+		int failureCount = 0;
+		Object statuses = resultSet.getMetadata().get("source_status");
+		if (statuses instanceof Map<?, ?> statusMap) {
+			for (Object value : statusMap.values()) {
+				if (value instanceof SearchSourceStatus status) {
+					if (status.isSuccess()) {
+						successCount++;
+					}
+					else if (status.getState() != SearchSourceStatus.State.NO_PROVIDER) {
+						failureCount++;
+					}
 				}
-
-				// 使用第一个支持的 provider 进行搜索
-				SearchProvider provider = providers.get(0);
-				SearchRequest request = buildSearchRequest(query, sourceType, limit);
-
-				List<SearchResultItem> items = provider.search(request);
-				allItems.addAll(items);
-				successCount++;
-
-				log.debug("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=单源搜索成功, sourceType={}, resultCount={}",
-						sourceType, items.size());
-			}
-			catch (Exception e) {
-				failureCount++;
-				log.error("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=搜索执行失败, sourceKey={}, error={}",
-						key, e.getMessage(), e);
 			}
 		}
 
-		// 按相关度排序并限制数量
-		List<SearchResultItem> sortedItems = allItems.stream()
-				.sorted(Comparator.comparing(SearchResultItem::getScore).reversed())
-				.limit(limit)
-				.collect(Collectors.toList());
+		log.info("UnifiedSearchCodeactTool#search - reason=统一搜索完成, totalResults={}, successSources={}, failedSources={}",
+				resultSet.getItems().size(), successCount, failureCount);
 
-		log.info("UnifiedSearchCodeactTool#executeUnifiedSearch - reason=统一搜索完成, totalResults={}, successSources={}, failedSources={}",
-				sortedItems.size(), successCount, failureCount);
-
-		// 构建结果集
-		SearchResultSet resultSet = SearchResultSet.success(sortedItems);
+		resultSet.getMetadata().put("success", true);
 		resultSet.getMetadata().put("source_count", successCount);
 		resultSet.getMetadata().put("failed_sources", failureCount);
-
 		return resultSet;
 	}
 
+	/**
+	 * 把源 key 解析为调用目标：先按 Provider 名称匹配，再按数据源类型匹配；
+	 * 每个 Provider 只调用一次，同一数据源类型的多个 Provider 各自作为独立目标
+	 */
+	private void resolve(String key, List<SearchTarget> targets) {
+		// 1. 尝试作为 Provider Name 匹配
+		Optional<SearchProvider> namedProvider = searchProviders.stream()
+				.filter(p -> p.getName().equalsIgnoreCase(key))
+				.findFirst();
+		if (namedProvider.isPresent()) {
+			addTarget(SearchTarget.ofProvider(namedProvider.get()), targets);
+			return;
+		}
+
+		// 2. 尝试作为 SourceType 匹配
+		SearchSourceType sourceType;
+		try {
+			sourceType = SearchSourceType.valueOf(key.toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			log.warn("UnifiedSearchCodeactTool#resolve - reason=无效的源类型或Provider名称, key={}", key);
+			return;
+		}
+
+		// 使用第一个支持该源类型的 provider
+		Optional<SearchProvider> provider = searchProviders.stream().filter(p -> p.supports(sourceType)).findFirst();
+		if (provider.isEmpty()) {
+			log.warn("UnifiedSearchCodeactTool#resolve - reason=未找到支持的provider, sourceType={}", sourceType);
+			return;
+		}
+		addTarget(SearchTarget.ofType(sourceType, provider.get()), targets);
+	}
+
+	private static void addTarget(SearchTarget target, List<SearchTarget> targets) {
+		boolean duplicate = targets.stream()
+				.anyMatch(existing -> existing.provider() == target.provider() || existing.key().equals(target.key()));
+		if (!duplicate) {
+			targets.add(target);
+		}
+	}
+
 	/**
 	 * 解析要搜索的源列表（字符串）。
 	 */
@@ -404,17 +440,4 @@ public class UnifiedSearchCodeactTool implements SearchCodeactTool {
 			return "{}";
 		}
 	}
-
-	/**
-	 * 构建搜索请求。
-	 */
-	private SearchRequest buildSearchRequest(String query, SearchSourceType sourceType, int limit) {
-		SearchRequest request = new SearchRequest();
-		request.setQuery(query);
-		request.getSourceTypes().add(sourceType);
-		request.setTopK(limit);
-		return request;
-	}
-
 }
-
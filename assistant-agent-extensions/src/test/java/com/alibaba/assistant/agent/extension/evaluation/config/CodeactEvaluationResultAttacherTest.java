@@ -0,0 +1,326 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.config;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import com.alibaba.assistant.agent.extension.evaluation.model.InjectionLedger;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeactEvaluationResultAttacherTest {
+
+	private final CodeactEvaluationResultAttacher attacher = new CodeactEvaluationResultAttacher();
+
+	@Test
+	void ledger_shouldInjectSameEntriesAsFullHistoryRescan() {
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("hi"))));
+
+		List<List<String>> turns = List.of(
+				List.of("r1", "r2"),
+				List.of("r2", "r3"),
+				List.of("r1", "r2", "r3"),
+				List.of("r4"),
+				List.of("r4", "r5", "r1"));
+
+		for (List<String> refIds : turns) {
+			EvaluationResult result = experienceResult("suite", "experience", refIds);
+			Set<String> expected = legacyNewKeys(messages(stateData), result);
+
+			Map<String, Object> updates = attacher.attachInputRoutingResult(new OverAllState(stateData), result);
+
+			assertEquals(expected, injectedKeys(updates), "turn " + refIds);
+			apply(stateData, updates);
+			messages(stateData).add(new UserMessage("next turn"));
+		}
+	}
+
+	@Test
+	void ledger_shouldPickUpInjectionsAddedOutsideTheAttacher() {
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("hi"))));
+		apply(stateData, attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1"))));
+
+		// e.g. history restored from another source after the ledger was built
+		messages(stateData).add(injectionMessage("<evaluations suite-id=\"suite\">\n"
+				+ "  <evaluation criterion=\"experience\" ref-id=\"r9\">\nrestored\n  </evaluation>\n</evaluations>\n"));
+
+		Map<String, Object> updates = attacher.attachInputRoutingResult(new OverAllState(stateData),
+				experienceResult("suite", "experience", List.of("r1", "r9", "r10")));
+
+		assertEquals(Set.of("suite|experience|r10"), injectedKeys(updates));
+	}
+
+	@Test
+	void ledger_shouldRebuild_whenHistoryIsRewritten() {
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("a"), new UserMessage("b"))));
+		apply(stateData, attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1"))));
+
+		// compaction dropped the earlier injection
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("summary"))));
+		Map<String, Object> updates = attacher.attachInputRoutingResult(new OverAllState(stateData),
+				experienceResult("suite", "experience", List.of("r1")));
+
+		assertEquals(Set.of("suite|experience|r1"), injectedKeys(updates));
+	}
+
+	@Test
+	void ledger_shouldRebuild_whenRewriteKeepsOrGrowsHistoryLength() {
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("a"), new UserMessage("b"))));
+		apply(stateData, attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1"))));
+		int size = messages(stateData).size();
+
+		// compaction replaced the history (injection included) with the same number of messages
+		List<Message> rewritten = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			rewritten.add(new UserMessage("summary-" + i));
+		}
+		stateData.put("messages", rewritten);
+		Map<String, Object> updates = attacher.attachInputRoutingResult(new OverAllState(stateData),
+				experienceResult("suite", "experience", List.of("r1")));
+		assertEquals(Set.of("suite|experience|r1"), injectedKeys(updates));
+		apply(stateData, updates);
+
+		// ... and with a longer one
+		List<Message> longer = new ArrayList<>();
+		for (int i = 0; i < messages(stateData).size() + 3; i++) {
+			longer.add(new UserMessage("rewritten-" + i));
+		}
+		stateData.put("messages", longer);
+		updates = attacher.attachInputRoutingResult(new OverAllState(stateData),
+				experienceResult("suite", "experience", List.of("r1")));
+		assertEquals(Set.of("suite|experience|r1"), injectedKeys(updates));
+	}
+
+	@Test
+	void ledger_shouldHaveConstantPerTurnCost_independentOfHistoryLength() {
+		long shortHistoryReads = steadyStateReads(1_000);
+		long longHistoryReads = steadyStateReads(20_000);
+
+		assertEquals(shortHistoryReads, longHistoryReads);
+		assertTrue(longHistoryReads <= 8, "per-turn message reads should be bounded, got " + longHistoryReads);
+	}
+
+	@Test
+	void ledger_shouldSurviveStateSerializationAsMap() {
+		InjectionLedger ledger = new InjectionLedger();
+		for (int i = 0; i < 100; i++) {
+			ledger.addFingerprint(InjectionLedger.fingerprint("suite", "c", "r" + i));
+		}
+		ledger.setHighWater(42);
+
+		List<Long> serialized = new ArrayList<>();
+		for (long fingerprint : ledger.getFingerprints()) {
+			serialized.add(fingerprint);
+		}
+		InjectionLedger restored = InjectionLedger.from(Map.of("fingerprints", serialized, "highWater", 42,
+				"lastMessageFingerprint", 7L));
+
+		assertEquals(100, restored.size());
+		assertEquals(42, restored.getHighWater());
+		assertEquals(7L, restored.getLastMessageFingerprint());
+		assertTrue(restored.contains(InjectionLedger.fingerprint("suite", "c", "r7")));
+		assertFalse(restored.contains(InjectionLedger.fingerprint("suite", "c", "r100")));
+	}
+
+	@Test
+	void ledger_inStateShouldNotBeMutated_untilUpdatesAreApplied() {
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", new ArrayList<>(List.of(new UserMessage("hi"))));
+		apply(stateData, attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1"))));
+		InjectionLedger stored = (InjectionLedger) stateData.get(CodeactEvaluationTag.STATE_INJECTION_LEDGER);
+		int storedSize = stored.size();
+		int storedHighWater = stored.getHighWater();
+
+		messages(stateData).add(new UserMessage("next turn"));
+		Map<String, Object> updates = attacher.attachInputRoutingResult(new OverAllState(stateData),
+				experienceResult("suite", "experience", List.of("r1", "r2")));
+
+		assertEquals(storedSize, stored.size());
+		assertEquals(storedHighWater, stored.getHighWater());
+		assertFalse(stored.contains(InjectionLedger.fingerprint("suite|experience|r2")));
+		InjectionLedger advanced = (InjectionLedger) updates.get(CodeactEvaluationTag.STATE_INJECTION_LEDGER);
+		assertNotSame(stored, advanced);
+		assertTrue(advanced.contains(InjectionLedger.fingerprint("suite|experience|r2")));
+	}
+
+	/**
+	 * Message reads performed by one attach call after the ledger has been bootstrapped
+	 */
+	private long steadyStateReads(int historyLength) {
+		List<Message> base = new ArrayList<>();
+		for (int i = 0; i < historyLength; i++) {
+			base.add(i % 50 == 0
+					? injectionMessage("<evaluations suite-id=\"suite\">\n  <evaluation criterion=\"experience\" ref-id=\"old" + i
+							+ "\">\nx\n  </evaluation>\n</evaluations>\n")
+					: new UserMessage("message " + i));
+		}
+		CountingList messages = new CountingList(base);
+		Map<String, Object> stateData = new HashMap<>();
+		stateData.put("messages", messages);
+
+		// bootstrap: first call builds the ledger from the full history
+		apply(stateData, attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1"))));
+		messages.add(new UserMessage("next turn"));
+
+		messages.reads = 0;
+		attacher.attachInputRoutingResult(new OverAllState(stateData), experienceResult("suite", "experience", List.of("r1", "r2")));
+		return messages.reads;
+	}
+
+	/**
+	 * Reference behaviour: rescan every injection in the history (the pre-ledger implementation)
+	 */
+	private static Set<String> legacyNewKeys(List<Message> history, EvaluationResult result) {
+		Set<String> existing = new LinkedHashSet<>();
+		for (Message message : history) {
+			if (message instanceof ToolResponseMessage toolMessage) {
+				for (ToolResponseMessage.ToolResponse response : toolMessage.getResponses()) {
+					existing.addAll(keysOf(response.responseData()));
+				}
+			}
+		}
+		Set<String> fresh = new LinkedHashSet<>();
+		for (Map.Entry<String, CriterionResult> entry : result.getCriteriaResults().entrySet()) {
+			@SuppressWarnings("unchecked")
+			List<Map<String, String>> refEntries = (List<Map<String, String>>) entry.getValue().getMetadata().get("ref_entries");
+			for (Map<String, String> refEntry : refEntries) {
+				String key = result.getSuiteId() + "|" + entry.getKey() + "|" + refEntry.get("ref_id");
+				if (!existing.contains(key)) {
+					fresh.add(key);
+				}
+			}
+		}
+		return fresh;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<String> injectedKeys(Map<String, Object> updates) {
+		Set<String> keys = new LinkedHashSet<>();
+		List<Message> injected = (List<Message>) updates.getOrDefault("messages", List.of());
+		for (Message message : injected) {
+			if (message instanceof ToolResponseMessage toolMessage) {
+				for (ToolResponseMessage.ToolResponse response : toolMessage.getResponses()) {
+					keys.addAll(keysOf(response.responseData()));
+				}
+			}
+		}
+		return keys;
+	}
+
+	private static Set<String> keysOf(String xml) {
+		Set<String> keys = new LinkedHashSet<>();
+		Matcher suites = Pattern.compile("<evaluations suite-id=\"([^\"]+)\">([\\s\\S]*?)</evaluations>").matcher(xml);
+		while (suites.find()) {
+			Matcher entries = Pattern.compile("<evaluation criterion=\"([^\"]+)\" ref-id=\"([^\"]*)\">").matcher(suites.group(2));
+			while (entries.find()) {
+				keys.add(suites.group(1) + "|" + entries.group(1) + "|" + entries.group(2));
+			}
+		}
+		return keys;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void apply(Map<String, Object> stateData, Map<String, Object> updates) {
+		for (Map.Entry<String, Object> entry : updates.entrySet()) {
+			if ("messages".equals(entry.getKey())) {
+				messages(stateData).addAll((List<Message>) entry.getValue());
+			} else {
+				stateData.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Message> messages(Map<String, Object> stateData) {
+		return (List<Message>) stateData.get("messages");
+	}
+
+	private static Message injectionMessage(String xml) {
+		return ToolResponseMessage.builder()
+				.responses(List.of(new ToolResponseMessage.ToolResponse("eval_x", "__evaluation_injection__", xml)))
+				.build();
+	}
+
+	private static EvaluationResult experienceResult(String suiteId, String criterion, List<String> refIds) {
+		List<Map<String, String>> refEntries = new ArrayList<>();
+		for (String refId : refIds) {
+			refEntries.add(Map.of("ref_id", refId, "content", "content of " + refId));
+		}
+		CriterionResult criterionResult = new CriterionResult();
+		criterionResult.setCriterionName(criterion);
+		criterionResult.setMetadata(new HashMap<>(Map.of("ref_entries", refEntries)));
+
+		Map<String, CriterionResult> criteriaResults = new LinkedHashMap<>();
+		criteriaResults.put(criterion, criterionResult);
+		EvaluationResult result = new EvaluationResult();
+		result.setSuiteId(suiteId);
+		result.setCriteriaResults(criteriaResults);
+		return result;
+	}
+
+	/**
+	 * Message list that counts element reads
+	 */
+	private static final class CountingList extends AbstractList<Message> {
+
+		private final List<Message> delegate;
+		private long reads;
+
+		CountingList(List<Message> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Message get(int index) {
+			reads++;
+			return delegate.get(index);
+		}
+
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+
+		@Override
+		public boolean add(Message message) {
+			return delegate.add(message);
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.config;
+
+import com.alibaba.assistant.agent.evaluation.builder.EvaluationCriterionBuilder;
+import com.alibaba.assistant.agent.evaluation.builder.EvaluationSuiteBuilder;
+import com.alibaba.assistant.agent.evaluation.evaluator.EvaluatorRegistry;
+import com.alibaba.assistant.agent.evaluation.evaluator.RuleBasedEvaluator;
+import com.alibaba.assistant.agent.evaluation.executor.GraphBasedEvaluationExecutor;
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.CriterionStatus;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationContext;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationSuite;
+import com.alibaba.assistant.agent.evaluation.model.HistoryWindow;
+import com.alibaba.assistant.agent.evaluation.model.PersistentContextMap;
+import com.alibaba.assistant.agent.extension.evaluation.model.CodeactEvaluationTag;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalEvaluationContextBuilderTest {
+
+	private final GraphBasedEvaluationExecutor executor = new GraphBasedEvaluationExecutor();
+
+	/**
+	 * Texts of the conversationHistory seen by each criterion during the suite run
+	 * (the graph state serializer may hand evaluators map copies of the messages)
+	 */
+	private final Map<String, List<String>> seenHistory = new ConcurrentHashMap<>();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void criteriaShouldSeeDeclaredHistory_onLongConversation() {
+		EvaluationSuite suite = EvaluationSuiteBuilder.create("windowed", recordingRegistry())
+			.addCriteria(
+				EvaluationCriterionBuilder.create("recent").evaluatorRef("record")
+					.historyWindow(HistoryWindow.lastMessages(4)).build(),
+				EvaluationCriterionBuilder.create("user_intent").evaluatorRef("record")
+					.historyWindow(HistoryWindow.lastUserMessages(6)).build())
+			.build();
+		List<Message> messages = conversation(1000);
+		OverAllState state = new OverAllState(Map.of("messages", messages, "agentName", "demo"));
+
+		CodeactEvaluationContextFactory factory = new CodeactEvaluationContextFactory();
+		EvaluationContext context = factory.createInputRoutingContext(state, config("t1"), suite.getRequiredHistoryWindows());
+		executor.execute(suite, context);
+
+		List<String> recent = seenHistory.get("recent");
+		assertEquals(List.of("message-996", "message-997", "message-998", "message-999"),
+				recent.subList(recent.size() - 4, recent.size()));
+		assertTrue(seenHistory.get("user_intent").containsAll(
+				List.of("message-988", "message-990", "message-992", "message-994", "message-996", "message-998")));
+		// last 4 messages (996-999) plus user messages 988-994 needed for the last 6 user messages
+		assertEquals(8, seenHistory.get("recent").size());
+		assertEquals("message-999", context.getInputValue(CodeactEvaluationTag.INPUT_USER_INPUT));
+		assertEquals("demo", context.getInputValue(CodeactEvaluationTag.INPUT_AGENT_NAME));
+	}
+
+	@Test
+	void suiteWithUndeclaredCriterion_shouldKeepFullHistory() {
+		EvaluationSuite suite = EvaluationSuiteBuilder.create("mixed", recordingRegistry())
+			.addCriteria(
+				EvaluationCriterionBuilder.create("recent").evaluatorRef("record")
+					.historyWindow(HistoryWindow.lastMessages(4)).build(),
+				EvaluationCriterionBuilder.create("legacy").evaluatorRef("record").build())
+			.build();
+		List<Message> messages = conversation(50);
+		OverAllState state = new OverAllState(Map.of("messages", messages));
+
+		EvaluationContext context = new CodeactEvaluationContextFactory()
+			.createInputRoutingContext(state, config("t1"), suite.getRequiredHistoryWindows());
+		executor.execute(suite, context);
+
+		assertEquals(50, seenHistory.get("legacy").size());
+		assertSame(messages, context.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY));
+	}
+
+	@Test
+	void incrementalWindow_shouldMatchScratchWindow_asConversationGrows() {
+		IncrementalEvaluationContextBuilder builder = new IncrementalEvaluationContextBuilder();
+		List<List<HistoryWindow>> windowSets = List.of(
+				List.of(HistoryWindow.lastMessages(5)),
+				List.of(HistoryWindow.userOnly()),
+				List.of(HistoryWindow.lastMessages(2), HistoryWindow.lastUserMessages(4)));
+		for (List<HistoryWindow> windows : windowSets) {
+			List<Message> messages = new ArrayList<>();
+			for (int turn = 0; turn < 40; turn++) {
+				messages.addAll(conversation(turn * 3, 3));
+				List<Message> incremental = builder.window("session-" + windows, messages, windows);
+				assertEquals(IncrementalEvaluationContextBuilder.windowOf(messages, windows), incremental, "turn " + turn + " " + windows);
+			}
+		}
+
+		// History rewritten (e.g. compaction) -> rebuilt from scratch
+		List<HistoryWindow> windows = windowSets.get(0);
+		List<Message> rewritten = conversation(7);
+		assertEquals(IncrementalEvaluationContextBuilder.windowOf(rewritten, windows),
+				builder.window("session-" + windows, rewritten, windows));
+	}
+
+	@Test
+	void alternatingSuitesOnOneThread_shouldEachStayIncremental() {
+		// InputRoutingEvaluationHook and the REACT-phase ModelInputEvaluationHook share a threadId
+		// but declare different windows; alternating calls must not reset each other's state
+		CodeactEvaluationContextFactory factory = new CodeactEvaluationContextFactory();
+		List<HistoryWindow> routingWindows = List.of(HistoryWindow.lastUserMessages(3));
+		List<HistoryWindow> modelInputWindows = List.of(HistoryWindow.lastMessages(4));
+		List<Message> messages = new ArrayList<>();
+		for (int turn = 0; turn < 10; turn++) {
+			messages.addAll(conversation(turn * 2, 2));
+			OverAllState state = new OverAllState(Map.of("messages", new ArrayList<>(messages)));
+
+			Object routing = factory.createInputRoutingContext(state, config("t1"), routingWindows)
+				.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY);
+			Object modelInput = factory.createInputRoutingContext(state, config("t1"), modelInputWindows)
+				.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY);
+			assertEquals(IncrementalEvaluationContextBuilder.windowOf(messages, routingWindows), routing);
+			assertEquals(IncrementalEvaluationContextBuilder.windowOf(messages, modelInputWindows), modelInput);
+
+			// No new messages since the previous call for the same window set -> the cached window is reused
+			assertSame(routing, factory.createInputRoutingContext(state, config("t1"), routingWindows)
+				.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY));
+			assertSame(modelInput, factory.createInputRoutingContext(state, config("t1"), modelInputWindows)
+				.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY));
+			assertSame(modelInput, factory.createCodeGenerationInputContext(state, config("t1"), "task", "python",
+					Map.of(), modelInputWindows).getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY));
+		}
+	}
+
+	@Test
+	void unchangedTurn_shouldReuseWindowAndStableFields() {
+		IncrementalEvaluationContextBuilder builder = new IncrementalEvaluationContextBuilder();
+		List<Message> messages = conversation(100);
+		Map<String, Object> external = Map.of("tenant", "t-1");
+
+		PersistentContextMap first = builder.buildInput("s", messages, List.of(HistoryWindow.lastMessages(10)), true,
+				Map.of(CodeactEvaluationTag.INPUT_AGENT_NAME, "demo"), external);
+		PersistentContextMap second = builder.buildInput("s", messages, List.of(HistoryWindow.lastMessages(10)), true,
+				Map.of(CodeactEvaluationTag.INPUT_AGENT_NAME, "demo"), external);
+
+		assertSame(first.get(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY), second.get(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY));
+		assertEquals("t-1", second.get("tenant"));
+		assertEquals(first, second);
+
+		// EvaluationContext keeps persistent maps as-is instead of copying them
+		assertSame(second, new EvaluationContext(second).getInput());
+	}
+
+	@Test
+	void externalParams_shouldOverrideBuiltInFields() {
+		OverAllState state = new OverAllState(Map.of(
+				"messages", conversation(3),
+				"evaluationExternalParams", Map.of(CodeactEvaluationTag.INPUT_USER_INPUT, "override")));
+
+		EvaluationContext context = new CodeactEvaluationContextFactory()
+			.createInputRoutingContext(state, config("t1"), List.of(HistoryWindow.lastMessages(1)));
+
+		assertEquals("override", context.getInputValue(CodeactEvaluationTag.INPUT_USER_INPUT));
+	}
+
+	@Test
+	void persistentContextMap_shouldShareStructureAndCollapseDeepChains() {
+		PersistentContextMap base = PersistentContextMap.of(Map.of("a", 1, "b", 2));
+		PersistentContextMap derived = base;
+		for (int i = 0; i < 20; i++) {
+			derived = derived.with("k" + i, i);
+		}
+		derived = derived.with("a", 100);
+
+		assertEquals(1, base.get("a"));
+		assertEquals(2, base.size());
+		assertEquals(100, derived.get("a"));
+		assertEquals(2, derived.get("b"));
+		assertEquals(19, derived.get("k19"));
+		assertEquals(22, derived.size());
+		assertSame(derived, derived.with("a", derived.get("a")));
+	}
+
+	private EvaluatorRegistry recordingRegistry() {
+		EvaluatorRegistry registry = new EvaluatorRegistry();
+		registry.registerEvaluator(new RuleBasedEvaluator("record", ctx -> {
+			List<?> history = (List<?>) ctx.getInputContext()
+				.getInputValue(CodeactEvaluationTag.INPUT_CONVERSATION_HISTORY);
+			seenHistory.put(ctx.getCriterion().getName(), texts(history));
+			CriterionResult result = new CriterionResult();
+			result.setStatus(CriterionStatus.SUCCESS);
+			result.setValue(history != null ? history.size() : 0);
+			return result;
+		}));
+		return registry;
+	}
+
+	private static RunnableConfig config(String threadId) {
+		return RunnableConfig.builder().threadId(threadId).build();
+	}
+
+	/**
+	 * Alternating user / assistant messages, text "message-i"
+	 */
+	private static List<Message> conversation(int size) {
+		return conversation(0, size);
+	}
+
+	private static List<Message> conversation(int from, int count) {
+		List<Message> messages = new ArrayList<>(count);
+		for (int i = from; i < from + count; i++) {
+			String text = "message-" + i;
+			messages.add(i % 2 == 0 ? new UserMessage(text) : new AssistantMessage(text));
+		}
+		return messages;
+	}
+
+	private static List<String> texts(List<?> history) {
+		List<String> texts = new ArrayList<>();
+		if (history != null) {
+			for (Object message : history) {
+				texts.add(message instanceof Message m ? m.getText() : String.valueOf(((Map<?, ?>) message).get("text")));
+			}
+		}
+		return texts;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.evaluation.hook;
+
+import com.alibaba.assistant.agent.evaluation.model.CriterionResult;
+import com.alibaba.assistant.agent.evaluation.model.EvaluationResult;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties.DeadlineFallback;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties.SpeculativeRoutingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeculativeRoutingCoordinatorTest {
+
+	private static final String SESSION = "session-1";
+
+	private final ExecutorService evaluatorPool = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		evaluatorPool.shutdownNow();
+	}
+
+	@Test
+	void reconcile_shouldNotWait_whenEvaluationAlreadyFinished() throws Exception {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(200, DeadlineFallback.DEFAULT_ROUTE));
+		CompletableFuture<EvaluationResult> evaluation = mockEvaluator(0, "CLEAR");
+		coordinator.start(SESSION, evaluation);
+		evaluation.get(1, TimeUnit.SECONDS);
+
+		long startNanos = System.nanoTime();
+		SpeculativeRoutingCoordinator.Reconciliation reconciliation = coordinator.reconcile(SESSION);
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		assertEquals(SpeculativeRoutingCoordinator.Source.EVALUATED, reconciliation.getSource());
+		assertEquals("CLEAR", reconciliation.getResult().getCriteriaResults().get("clarity").getValue());
+		assertTrue(waitedMillis < 50, "reconcile should not block, waited " + waitedMillis + "ms");
+		assertEquals(1, coordinator.getMetrics().getResolvedWithoutWait());
+	}
+
+	@Test
+	void reconcile_shouldWaitRemainingTime_whenEvaluationFinishesBeforeDeadline() {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(2000, DeadlineFallback.DEFAULT_ROUTE));
+		coordinator.start(SESSION, mockEvaluator(100, "CLEAR"));
+
+		SpeculativeRoutingCoordinator.Reconciliation reconciliation = coordinator.reconcile(SESSION);
+
+		assertEquals(SpeculativeRoutingCoordinator.Source.EVALUATED, reconciliation.getSource());
+		assertEquals(1, coordinator.getMetrics().getResolvedAfterWait());
+		assertEquals(0, coordinator.getMetrics().getDeadlineFallbacks());
+	}
+
+	@Test
+	void reconcile_shouldUseDefaultRoute_whenDeadlineExpires() {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(50, DeadlineFallback.DEFAULT_ROUTE));
+		coordinator.start(SESSION, mockEvaluator(1000, "CLEAR"));
+
+		long startNanos = System.nanoTime();
+		SpeculativeRoutingCoordinator.Reconciliation reconciliation = coordinator.reconcile(SESSION);
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		assertEquals(SpeculativeRoutingCoordinator.Source.DEFAULT_ROUTE, reconciliation.getSource());
+		assertNull(reconciliation.getResult());
+		assertTrue(waitedMillis < 500, "reconcile should stop at the deadline, waited " + waitedMillis + "ms");
+		assertEquals(1, coordinator.getMetrics().getDeadlineFallbacks());
+	}
+
+	@Test
+	void reconcile_shouldUseLastKnownResult_andRecordSpeculationAccuracy() throws Exception {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(50, DeadlineFallback.LAST_KNOWN_RESULT));
+
+		// Turn 1: fast evaluation becomes the last known result
+		CompletableFuture<EvaluationResult> first = mockEvaluator(0, "CLEAR");
+		coordinator.start(SESSION, first);
+		EvaluationResult firstResult = first.get(1, TimeUnit.SECONDS);
+		coordinator.reconcile(SESSION);
+
+		// Turn 2: slow evaluation with the same outcome -> fallback to last known, speculation correct
+		CompletableFuture<EvaluationResult> second = mockEvaluator(300, "CLEAR");
+		coordinator.start(SESSION, second);
+		SpeculativeRoutingCoordinator.Reconciliation reconciliation = coordinator.reconcile(SESSION);
+		assertEquals(SpeculativeRoutingCoordinator.Source.LAST_KNOWN_RESULT, reconciliation.getSource());
+		assertSame(firstResult, reconciliation.getResult());
+		second.get(1, TimeUnit.SECONDS);
+
+		// Turn 3: slow evaluation with a different outcome -> speculation incorrect
+		CompletableFuture<EvaluationResult> third = mockEvaluator(300, "UNCLEAR");
+		coordinator.start(SESSION, third);
+		assertEquals(SpeculativeRoutingCoordinator.Source.LAST_KNOWN_RESULT, coordinator.reconcile(SESSION).getSource());
+		third.get(1, TimeUnit.SECONDS);
+
+		SpeculativeRoutingMetrics metrics = coordinator.getMetrics();
+		awaitSpeculationSamples(metrics, 3);
+		assertEquals(3, metrics.getStarted());
+		assertEquals(2, metrics.getDeadlineFallbacks());
+		// turn 1 had no previous result (default route vs CLEAR) -> incorrect
+		assertEquals(1, metrics.getSpeculationCorrect());
+		assertEquals(2, metrics.getSpeculationIncorrect());
+		assertEquals("UNCLEAR", coordinator.getLastKnownResult(SESSION).getCriteriaResults().get("clarity").getValue());
+	}
+
+	@Test
+	void reconcile_shouldReturnNull_whenNothingPending() {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(50, DeadlineFallback.DEFAULT_ROUTE));
+		assertNull(coordinator.reconcile(SESSION));
+
+		coordinator.start(SESSION, mockEvaluator(0, "CLEAR"));
+		coordinator.reconcile(SESSION);
+		// Only the first model call of a turn reconciles
+		assertNull(coordinator.reconcile(SESSION));
+	}
+
+	@Test
+	void speculation_shouldCountDefaultRouteAsCorrect_whenResultCarriesNoRoutingValue() throws Exception {
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config(50, DeadlineFallback.DEFAULT_ROUTE));
+
+		// No criterion produced a value: the default route was the right call
+		CompletableFuture<EvaluationResult> empty = mockEvaluator(0, null);
+		coordinator.start(SESSION, empty);
+		empty.get(1, TimeUnit.SECONDS);
+		coordinator.reconcile(SESSION);
+
+		CompletableFuture<EvaluationResult> clear = mockEvaluator(0, "CLEAR");
+		coordinator.start(SESSION, clear);
+		clear.get(1, TimeUnit.SECONDS);
+		coordinator.reconcile(SESSION);
+
+		SpeculativeRoutingMetrics metrics = coordinator.getMetrics();
+		awaitSpeculationSamples(metrics, 2);
+		assertEquals(1, metrics.getSpeculationCorrect());
+		assertEquals(1, metrics.getSpeculationIncorrect());
+	}
+
+	@Test
+	void start_shouldEvictTurnsThatNeverReconcile() throws Exception {
+		SpeculativeRoutingConfig config = config(10, DeadlineFallback.DEFAULT_ROUTE);
+		config.setPendingTtlMs(50);
+		config.setMaxTrackedSessions(8);
+		SpeculativeRoutingCoordinator coordinator = new SpeculativeRoutingCoordinator(config);
+
+		// Turns that end before the first model call (e.g. FastIntent hit) never reconcile
+		for (int i = 0; i < 20; i++) {
+			coordinator.start("thread-" + i, mockEvaluator(0, "CLEAR"));
+		}
+		assertTrue(coordinator.getPendingCount() <= 8, "pending=" + coordinator.getPendingCount());
+
+		Thread.sleep(120);
+		coordinator.start(SESSION, mockEvaluator(0, "CLEAR"));
+		assertEquals(1, coordinator.getPendingCount());
+		assertEquals(SpeculativeRoutingCoordinator.Source.EVALUATED, coordinator.reconcile(SESSION).getSource());
+		assertNull(coordinator.reconcile("thread-19"));
+	}
+
+	private CompletableFuture<EvaluationResult> mockEvaluator(long latencyMillis, String clarity) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			CriterionResult criterionResult = new CriterionResult();
+			criterionResult.setCriterionName("clarity");
+			criterionResult.setValue(clarity);
+			EvaluationResult result = new EvaluationResult();
+			result.setSuiteId("input_routing_suite");
+			result.setCriteriaResults(Map.of("clarity", criterionResult));
+			return result;
+		}, evaluatorPool);
+	}
+
+	private static void awaitSpeculationSamples(SpeculativeRoutingMetrics metrics, int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 1000;
+		while (metrics.getSpeculationCorrect() + metrics.getSpeculationIncorrect() < expected
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	private static SpeculativeRoutingConfig config(long deadlineMs, DeadlineFallback fallback) {
+		SpeculativeRoutingConfig config = new SpeculativeRoutingConfig();
+		config.setEnabled(true);
+		config.setDeadlineMs(deadlineMs);
+		config.setFallback(fallback);
+		return config;
+	}
+}
@@ -0,0 +1,315 @@
+package com.alibaba.assistant.agent.extension.experience.fastintent;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.model.FastIntentConfig;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastIntentCompilerTest {
+
+    private static final String[] INPUTS = {
+            "查询订单 12345", "  查询订单状态", "REFUND order 88", "refund please", "hello world", "", "   ",
+            "天气怎么样", "deploy service-a to prod", "Deploy Service-B", "error: timeout 504"
+    };
+
+    private static final String[] PREFIXES = {"查询", "refund", "REFUND", "deploy", "Deploy", "天气", "error"};
+
+    private static final String[] PATTERNS = {"\\d{3,}", "^refund", "(?i)deploy\\s+service-[ab]", "timeout|504",
+            "订单.*状态", "[", "world$"};
+
+    private static final String[] KEYS = {"tenant", "channel", "scene"};
+
+    private static final String[] VALUES = {"t1", "t2", "t3", "web", "app", "7"};
+
+    private final FastIntentService service = new FastIntentService(
+            List.of(new ContainsMatcher(), new UpperPrefixMatcher(), new NonNullMetadataMatcher()));
+
+    @Test
+    void selectBestMatch_shouldAgreeWithInterpretedEvaluation_onRandomRules() {
+        Random random = new Random(20240601);
+        for (int round = 0; round < 30; round++) {
+            List<Experience> candidates = randomExperiences(random, 1 + random.nextInt(60));
+            for (int c = 0; c < 40; c++) {
+                FastIntentContext context = randomContext(random);
+                assertEquals(reference(candidates, context).map(Experience::getId),
+                        service.selectBestMatch(candidates, context).map(Experience::getId),
+                        "round=" + round + ", input=" + context.getInput() + ", metadata=" + context.getConfigMetadata());
+            }
+        }
+    }
+
+    @Test
+    void selectBestMatch_shouldAgreeWithInterpretedEvaluation_on10kRules() {
+        Random random = new Random(7);
+        List<Experience> candidates = randomExperiences(random, 10_000);
+        for (int c = 0; c < 200; c++) {
+            FastIntentContext context = randomContext(random);
+            assertEquals(reference(candidates, context).map(Experience::getId),
+                    service.selectBestMatch(candidates, context).map(Experience::getId));
+        }
+    }
+
+    @Test
+    void compiledRules_shouldBeReusedUntilCandidatesChange() {
+        List<Experience> candidates = randomExperiences(new Random(3), 20);
+        FastIntentCompiler.CompiledRules first = service.compiledRules(candidates);
+
+        assertSame(first, service.compiledRules(new ArrayList<>(candidates)));
+
+        candidates.get(5).getFastIntentConfig().setPriority(1000);
+        candidates.get(5).touch();
+        FastIntentCompiler.CompiledRules second = service.compiledRules(candidates);
+        assertNotSame(first, second);
+        assertTrue(second.isCompiledFrom(candidates));
+    }
+
+    @Test
+    void metadataEqualsRules_shouldBeDispatchedByValue() {
+        Experience web = experience("web", 1, allOf(atom(metadataEquals("channel", "web")), atom(prefix("查询", true, false))));
+        Experience app = experience("app", 5, atom(metadataEquals("channel", "app")));
+        Experience any = experience("any", 0, atom(prefix("查询", true, false)));
+        List<Experience> candidates = List.of(web, app, any);
+
+        assertEquals(Optional.of("app"), select(candidates, "查询订单", Map.of("channel", "app")));
+        assertEquals(Optional.of("web"), select(candidates, "查询订单", Map.of("channel", "web")));
+        assertEquals(Optional.of("any"), select(candidates, "查询订单", Map.of()));
+        assertEquals(Optional.empty(), select(candidates, "你好", Map.of("channel", "web")));
+    }
+
+    private Optional<String> select(List<Experience> candidates, String input, Map<String, Object> metadata) {
+        return service.selectBestMatch(candidates, new FastIntentContext(input, null, metadata, null, null))
+                .map(Experience::getId);
+    }
+
+    /**
+     * 对照实现：逐条解释执行，再按优先级排序取第一条
+     */
+    private Optional<Experience> reference(List<Experience> candidates, FastIntentContext context) {
+        List<Experience> matched = new ArrayList<>();
+        for (Experience exp : candidates) {
+            FastIntentConfig cfg = exp.getFastIntentConfig();
+            if (cfg != null && cfg.isEnabled() && service.matches(cfg.getMatch(), context)) {
+                matched.add(exp);
+            }
+        }
+        matched.sort(FastIntentService.PRIORITY_ORDER);
+        return matched.stream().findFirst();
+    }
+
+    private static List<Experience> randomExperiences(Random random, int count) {
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        List<Experience> experiences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Experience exp = experience("exp-" + i, random.nextInt(5), randomExpression(random, 0));
+            exp.getFastIntentConfig().setEnabled(random.nextInt(10) > 0);
+            exp.setUpdatedAt(base.plusSeconds(random.nextInt(100)));
+            experiences.add(exp);
+        }
+        return experiences;
+    }
+
+    private static FastIntentConfig.MatchExpression randomExpression(Random random, int depth) {
+        int kind = depth >= 3 ? 3 : random.nextInt(depth == 0 ? 4 : 6);
+        return switch (kind) {
+            case 0 -> {
+                // 顶层 allOf 中经常带 metadata_equals，覆盖分发路径
+                List<FastIntentConfig.MatchExpression> children = new ArrayList<>();
+                int size = 1 + random.nextInt(3);
+                for (int i = 0; i < size; i++) {
+                    children.add(i == 0 && random.nextBoolean()
+                            ? atom(metadataEquals(pick(random, KEYS), pick(random, VALUES)))
+                            : randomExpression(random, depth + 1));
+                }
+                yield allOf(children.toArray(new FastIntentConfig.MatchExpression[0]));
+            }
+            case 1 -> {
+                FastIntentConfig.MatchExpression expr = new FastIntentConfig.MatchExpression();
+                List<FastIntentConfig.MatchExpression> children = new ArrayList<>();
+                int size = random.nextInt(4);
+                for (int i = 0; i < size; i++) {
+                    children.add(randomExpression(random, depth + 1));
+                }
+                expr.setAnyOf(children);
+                yield expr;
+            }
+            case 2 -> {
+                FastIntentConfig.MatchExpression expr = new FastIntentConfig.MatchExpression();
+                expr.setNot(randomExpression(random, depth + 1));
+                yield expr;
+            }
+            default -> atom(randomCondition(random));
+        };
+    }
+
+    private static FastIntentConfig.Condition randomCondition(Random random) {
+        FastIntentConfig.Condition condition = new FastIntentConfig.Condition();
+        switch (random.nextInt(10)) {
+            case 0 -> {
+                return prefix(pick(random, PREFIXES), random.nextBoolean(), random.nextBoolean());
+            }
+            case 1 -> {
+                condition.setType("message_regex");
+                condition.setPattern(pick(random, PATTERNS));
+            }
+            case 2 -> {
+                // metadata_exists 被自定义实现覆盖
+                condition.setType("metadata_exists");
+                condition.setKey(pick(random, KEYS));
+            }
+            case 3 -> {
+                return metadataEquals(pick(random, KEYS), random.nextInt(8) == 0 ? "" : pick(random, VALUES));
+            }
+            case 4 -> {
+                condition.setType("metadata_in");
+                condition.setKey(pick(random, KEYS));
+                condition.setValues(List.of(pick(random, VALUES), pick(random, VALUES)));
+            }
+            case 5 -> {
+                condition.setType("state_equals");
+                condition.setKey("stage");
+                condition.setValue(random.nextBoolean() ? "draft" : "review");
+            }
+            case 6 -> {
+                condition.setType("tool_arg_equals");
+                condition.setKey("functionName");
+                condition.setValue(random.nextBoolean() ? "queryOrder" : "refund");
+            }
+            case 7 -> {
+                condition.setType("contains");
+                condition.setValue(random.nextBoolean() ? "订单" : "service");
+            }
+            case 8 -> {
+                condition.setType("upper_prefix");
+                condition.setValue(pick(random, PREFIXES));
+            }
+            default -> condition.setType(random.nextBoolean() ? "unknown_type" : null);
+        }
+        return condition;
+    }
+
+    private static FastIntentContext randomContext(Random random) {
+        Map<String, Object> metadata = new HashMap<>();
+        for (String key : KEYS) {
+            if (random.nextInt(3) > 0) {
+                int kind = random.nextInt(8);
+                metadata.put(key, kind == 0 ? 7 : kind == 1 ? null : pick(random, VALUES));
+            }
+        }
+        Map<String, Object> state = new HashMap<>();
+        if (random.nextBoolean()) {
+            state.put("stage", random.nextBoolean() ? "draft" : "review");
+        }
+        Map<String, Object> toolRequest = random.nextBoolean()
+                ? Map.of("functionName", random.nextBoolean() ? "queryOrder" : "refund")
+                : null;
+        String input = random.nextInt(12) == 0 ? null : pick(random, INPUTS);
+        return new FastIntentContext(input, null, metadata, new OverAllState(state), toolRequest);
+    }
+
+    private static Experience experience(String id, int priority, FastIntentConfig.MatchExpression match) {
+        Experience exp = new Experience(ExperienceType.REACT, id, id, ExperienceScope.GLOBAL);
+        exp.setId(id);
+        FastIntentConfig cfg = new FastIntentConfig();
+        cfg.setEnabled(true);
+        cfg.setPriority(priority);
+        cfg.setMatch(match);
+        exp.setFastIntentConfig(cfg);
+        return exp;
+    }
+
+    private static FastIntentConfig.MatchExpression allOf(FastIntentConfig.MatchExpression... children) {
+        FastIntentConfig.MatchExpression expr = new FastIntentConfig.MatchExpression();
+        expr.setAllOf(new ArrayList<>(List.of(children)));
+        return expr;
+    }
+
+    private static FastIntentConfig.MatchExpression atom(FastIntentConfig.Condition condition) {
+        FastIntentConfig.MatchExpression expr = new FastIntentConfig.MatchExpression();
+        expr.setCondition(condition);
+        return expr;
+    }
+
+    private static FastIntentConfig.Condition metadataEquals(String key, String value) {
+        FastIntentConfig.Condition condition = new FastIntentConfig.Condition();
+        condition.setType("metadata_equals");
+        condition.setKey(key);
+        condition.setValue(value);
+        return condition;
+    }
+
+    private static FastIntentConfig.Condition prefix(String value, boolean trim, boolean ignoreCase) {
+        FastIntentConfig.Condition condition = new FastIntentConfig.Condition();
+        condition.setType("message_prefix");
+        condition.setValue(value);
+        condition.setTrim(trim);
+        condition.setIgnoreCase(ignoreCase);
+        return condition;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * 自定义条件类型
+     */
+    private static final class ContainsMatcher implements FastIntentConditionMatcher {
+
+        @Override
+        public String getType() {
+            return "contains";
+        }
+
+        @Override
+        public boolean matches(FastIntentConfig.Condition condition, FastIntentContext context) {
+            return context.getInput() != null && context.getInput().contains(condition.getValue());
+        }
+    }
+
+    /**
+     * 自定义条件类型，输入为null时抛出异常，覆盖失败即不命中的路径
+     */
+    private static final class UpperPrefixMatcher implements FastIntentConditionMatcher {
+
+        @Override
+        public String getType() {
+            return "upper_prefix";
+        }
+
+        @Override
+        public boolean matches(FastIntentConfig.Condition condition, FastIntentContext context) {
+            return context.getInput().toUpperCase().startsWith(condition.getValue().toUpperCase());
+        }
+    }
+
+    /**
+     * 覆盖内置的 metadata_exists：值为null时视为不存在
+     */
+    private static final class NonNullMetadataMatcher implements FastIntentConditionMatcher {
+
+        @Override
+        public String getType() {
+            return "metadata_exists";
+        }
+
+        @Override
+        public boolean matches(FastIntentConfig.Condition condition, FastIntentContext context) {
+            return context.getConfigMetadata().get(condition.getKey()) != null;
+        }
+    }
+}
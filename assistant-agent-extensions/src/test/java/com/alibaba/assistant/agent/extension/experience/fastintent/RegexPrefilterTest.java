@@ -0,0 +1,107 @@
+package com.alibaba.assistant.agent.extension.experience.fastintent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegexPrefilterTest {
+
+    private static final String[] ATOMS = {
+            "a", "b", "ab", "订单", "Re", "\\.", "\\d", "\\w", ".", "[ab]", "[^a]", "\\Qa.b\\E", "\\x61", "\\u8ba2",
+            "\\s", "\\b", "^", "$", "(?i)", "#", "-"
+    };
+
+    private static final String[] QUANTIFIERS = {"", "", "", "?", "*", "+", "{2}", "{0,1}", "{1,}", "+?", "*+"};
+
+    private static final String TEXT_ALPHABET = "abAB订单reRE.# -1x";
+
+    @Test
+    void extract_shouldReturnRequiredLiterals() {
+        assertEquals(List.of("refund"), literals("^refund"));
+        assertEquals(List.of("timeout", "504"), literals("timeout|504"));
+        assertEquals(List.of("订单", "order"), literals("(订单|order)\\s*#?\\d+"));
+        assertEquals(List.of("12345"), literals("(订单|order)\\s*#?12345\\b"));
+        assertEquals(List.of("deplo"), literals("deploy?\\s+svc"));
+        assertEquals(List.of("a.b"), literals("\\Qa.b\\E"));
+        assertTrue(RegexLiterals.extract(Pattern.compile("(?i)Deploy")).ignoreCase());
+
+        assertNull(RegexLiterals.extract(Pattern.compile("\\d{3,}")));
+        assertNull(RegexLiterals.extract(Pattern.compile("abc|\\w+")));
+        assertNull(RegexLiterals.extract(Pattern.compile("(?x) a b c")));
+        assertNull(RegexLiterals.extract(Pattern.compile("(abc)?")));
+    }
+
+    @Test
+    void candidates_shouldNeverExcludeMatchingRegex_onGeneratedPatterns() {
+        Random random = new Random(11);
+        List<Pattern> patterns = new ArrayList<>();
+        while (patterns.size() < 3000) {
+            try {
+                patterns.add(Pattern.compile(randomRegex(random, 0)));
+            } catch (PatternSyntaxException ignored) {
+                // 随机生成的非法正则跳过
+            }
+        }
+        RegexPrefilter prefilter = RegexPrefilter.build(patterns);
+        assertTrue(prefilter.filteredCount() > patterns.size() / 3, "filtered=" + prefilter.filteredCount());
+
+        int excluded = 0;
+        for (int t = 0; t < 300; t++) {
+            String text = randomText(random);
+            BitSet candidates = prefilter.candidates(text);
+            for (int id = 0; id < patterns.size(); id++) {
+                boolean skipped = prefilter.isFiltered(id) && !candidates.get(id);
+                if (skipped) {
+                    excluded++;
+                    assertTrue(!patterns.get(id).matcher(text).find(),
+                            "pattern=" + patterns.get(id) + ", text=" + text);
+                }
+            }
+        }
+        assertTrue(excluded > 0);
+    }
+
+    private static List<String> literals(String regex) {
+        return RegexLiterals.extract(Pattern.compile(regex)).literals();
+    }
+
+    private static String randomRegex(Random random, int depth) {
+        StringBuilder regex = new StringBuilder();
+        int parts = 1 + random.nextInt(4);
+        for (int i = 0; i < parts; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0 && depth < 2) {
+                String[] openers = {"(", "(?:", "(?>", "(?=", "(?i:"};
+                regex.append(openers[random.nextInt(openers.length)])
+                        .append(randomRegex(random, depth + 1))
+                        .append(random.nextBoolean() ? "|" + randomRegex(random, depth + 1) : "")
+                        .append(')');
+            } else {
+                regex.append(ATOMS[random.nextInt(ATOMS.length)]);
+            }
+            regex.append(QUANTIFIERS[random.nextInt(QUANTIFIERS.length)]);
+        }
+        if (depth == 0 && random.nextInt(4) == 0) {
+            regex.append('|').append(randomRegex(random, 1));
+        }
+        return regex.toString();
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(24);
+        for (int i = 0; i < length; i++) {
+            text.append(TEXT_ALPHABET.charAt(random.nextInt(TEXT_ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.alibaba.assistant.agent.extension.experience.hook;
+
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageScanCursorTest {
+
+    private static final List<String> KEYWORDS = List.of("代码", "code", "python", "java", "函数", "demo", "生成", "write");
+
+    private static final String[] WORDS = {"hello", "请帮我", "查询", "订单", "weather", "de", "mo", "DEMO", "Java",
+            "WRITE", "代", "码", "生成", "the", "co", "de", "py", "thon", "函数", "ok", "  "};
+
+    private final Random random = new Random(3);
+
+    @Test
+    void advance_shouldMatchFullRescan_onLongConversations() {
+        for (int conversation = 0; conversation < 30; conversation++) {
+            List<Message> messages = new ArrayList<>();
+            MessageScanCursor cursor = MessageScanCursor.from(null);
+            int scannedTotal = 0;
+            for (int turn = 0; turn < 200; turn++) {
+                int added = 1 + random.nextInt(3);
+                for (int i = 0; i < added; i++) {
+                    messages.add(randomMessage());
+                }
+                cursor = cursor.advance(messages);
+                scannedTotal += cursor.lastScanned();
+
+                assertEquals(added, cursor.lastScanned());
+                assertEquals(codeRelated(messages), cursor.codeKeywordSeen());
+                assertEquals(demo(messages), cursor.demoSeen());
+                assertEquals(injected(messages), cursor.injectionSeen());
+            }
+            // 整段对话每条消息只扫描一次
+            assertEquals(messages.size(), scannedTotal);
+            assertEquals(0, cursor.advance(messages).lastScanned());
+        }
+    }
+
+    @Test
+    void advance_shouldRescan_whenHistoryIsRewritten() {
+        List<Message> messages = new ArrayList<>(List.of(new UserMessage("写一个 demo"), new AssistantMessage("好的")));
+        MessageScanCursor cursor = MessageScanCursor.from(null).advance(messages).withInjected(List.of("exp-1"));
+        assertTrue(cursor.demoSeen());
+
+        // 摘要压缩后消息变少
+        List<Message> summarized = new ArrayList<>(List.of(new UserMessage("查询天气")));
+        MessageScanCursor rescanned = cursor.advance(summarized);
+        assertEquals(1, rescanned.lastScanned());
+        assertFalse(rescanned.codeKeywordSeen());
+        assertEquals(List.of("exp-1"), List.copyOf(rescanned.injectedExperienceIds()));
+
+        // 条数不变但内容被替换
+        summarized.set(0, new UserMessage("写 java 代码"));
+        MessageScanCursor replaced = rescanned.advance(summarized);
+        assertEquals(1, replaced.lastScanned());
+        assertTrue(replaced.codeKeywordSeen());
+        assertFalse(replaced.demoSeen());
+    }
+
+    @Test
+    void beforeModel_shouldScanOnlyNewMessagesAndInjectOnce() {
+        List<ExperienceQueryContext> contexts = new ArrayList<>();
+        Experience experience = new Experience(ExperienceType.CODE, "日志规范", "content", ExperienceScope.GLOBAL);
+        CodeExperienceModelHook hook = new CodeExperienceModelHook((query, context) -> {
+            contexts.add(context);
+            return List.of(experience);
+        }, new ExperienceExtensionProperties());
+
+        Map<String, Object> state = new HashMap<>();
+        List<Message> messages = new ArrayList<>();
+        state.put("messages", messages);
+        String[] turns = {"你好", "今天天气如何", "帮我写一个 Demo", "再改一下", "谢谢"};
+        int injections = 0;
+        int previousSize = 0;
+        for (String turn : turns) {
+            messages.add(new UserMessage(turn));
+            Map<String, Object> updates = hook.beforeModel(new OverAllState(state), null).join();
+
+            MessageScanCursor cursor = (MessageScanCursor) updates.get(MessageScanCursor.STATE_KEY);
+            assertEquals(messages.size() - previousSize, cursor.lastScanned());
+            state.put(MessageScanCursor.STATE_KEY, cursor);
+            if (updates.containsKey("messages")) {
+                injections++;
+                assertEquals(List.of(experience.getId()), List.copyOf(cursor.injectedExperienceIds()));
+                @SuppressWarnings("unchecked")
+                List<Message> injected = (List<Message>) updates.get("messages");
+                messages.addAll(injected);
+            }
+            previousSize = cursor.scannedCount();
+        }
+
+        assertEquals(1, injections);
+        // 命中代码关键词之后每轮都会查询，demo 场景标签来自累计扫描结果
+        assertEquals(3, contexts.size());
+        assertTrue(contexts.stream().allMatch(context -> "demo".equals(context.getSceneTags())));
+    }
+
+    private Message randomMessage() {
+        int kind = random.nextInt(20);
+        if (kind == 0) {
+            String name = random.nextBoolean() ? MessageScanCursor.INJECTION_TOOL_NAME : "search";
+            return ToolResponseMessage.builder()
+                    .responses(List.of(new ToolResponseMessage.ToolResponse("call-" + random.nextInt(), name, "{}")))
+                    .build();
+        }
+        StringBuilder text = new StringBuilder();
+        int words = random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextBoolean()) {
+                text.append(' ');
+            }
+        }
+        return kind < 12 ? new UserMessage(text.toString()) : new AssistantMessage(text.toString());
+    }
+
+    /**
+     * 原实现：逐条消息检测关键词
+     */
+    private static boolean codeRelated(List<Message> messages) {
+        for (Message message : messages) {
+            String text = message.getText() == null ? "" : message.getText().toLowerCase(Locale.ROOT);
+            if (KEYWORDS.stream().anyMatch(text::contains)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 原实现：拼接全部消息后检测 demo
+     */
+    private static boolean demo(List<Message> messages) {
+        return codeRelated(messages) && messages.stream()
+                .map(Message::getText)
+                .collect(Collectors.joining(" "))
+                .toLowerCase(Locale.ROOT)
+                .contains("demo");
+    }
+
+    private static boolean injected(List<Message> messages) {
+        return messages.stream().anyMatch(MessageScanCursor::isInjection);
+    }
+}
@@ -0,0 +1,66 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickAutomatonTest {
+
+    private static final String ALPHABET = "abcAB代码生";
+
+    @Test
+    void matches_shouldAgreeWithBruteForce() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            List<String> keywords = new ArrayList<>();
+            int count = 1 + random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                keywords.add(randomText(random, 1 + random.nextInt(4)));
+            }
+            boolean ignoreCase = random.nextBoolean();
+            AhoCorasickAutomaton automaton = AhoCorasickAutomaton.of(keywords, ignoreCase);
+
+            for (int t = 0; t < 20; t++) {
+                String text = randomText(random, random.nextInt(30));
+                BitSet expected = new BitSet();
+                for (int id = 0; id < keywords.size(); id++) {
+                    String haystack = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+                    String needle = ignoreCase ? keywords.get(id).toLowerCase(Locale.ROOT) : keywords.get(id);
+                    if (haystack.contains(needle)) {
+                        expected.set(id);
+                    }
+                }
+                assertEquals(expected, automaton.matches(text), "keywords=" + keywords + ", text=" + text);
+                assertEquals(!expected.isEmpty(), automaton.containsAny(text));
+            }
+        }
+    }
+
+    @Test
+    void matches_shouldReportOverlappingAndNestedKeywords() {
+        AhoCorasickAutomaton automaton = AhoCorasickAutomaton.of(List.of("he", "she", "his", "hers", "e"));
+
+        BitSet matched = automaton.matches("ushers");
+
+        assertEquals(List.of(0, 1, 3, 4), matched.stream().boxed().toList());
+        assertFalse(automaton.containsAny("xyz"));
+        assertFalse(automaton.containsAny(null));
+        assertTrue(AhoCorasickAutomaton.of(List.of("Write"), true).containsAny("please WRITE a demo"));
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
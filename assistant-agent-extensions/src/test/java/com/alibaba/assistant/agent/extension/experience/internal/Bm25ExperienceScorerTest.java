@@ -0,0 +1,136 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25ExperienceScorerTest {
+
+    /**
+     * 固定语料：id -> {title, content}
+     */
+    private static final Map<String, String[]> CORPUS = new LinkedHashMap<>();
+
+    static {
+        CORPUS.put("redis-timeout", new String[]{"Redis connection timeout",
+                "When Redis connection timeout happens, increase the pool size and set a connect timeout of 2s."});
+        CORPUS.put("http-retry", new String[]{"HTTP retry policy",
+                "Retry idempotent HTTP requests with exponential backoff; never retry POST without an idempotency key."});
+        CORPUS.put("db-pagination", new String[]{"Database pagination",
+                "Use keyset pagination instead of OFFSET for large tables to keep query latency flat."});
+        CORPUS.put("json-parse", new String[]{"JSON parsing",
+                "Parse JSON with a streaming parser when the payload is large."});
+        CORPUS.put("cache-breakdown", new String[]{"缓存击穿处理",
+                "热点key过期时使用互斥锁重建缓存，避免缓存击穿导致数据库压力激增。"});
+        CORPUS.put("db-pool", new String[]{"数据库连接池配置",
+                "数据库连接池最大连接数建议按CPU核数的两倍设置，并开启连接泄漏检测。"});
+        CORPUS.put("retry-zh", new String[]{"重试策略",
+                "调用下游服务失败时按指数退避重试，最多重试三次，非幂等接口不要重试。"});
+        CORPUS.put("paging-zh", new String[]{"分页查询",
+                "深分页查询使用游标分页，避免大偏移量导致的慢查询。"});
+        CORPUS.put("auth-token", new String[]{"Auth token refresh",
+                "Refresh the auth token before expiry and retry the request once on 401."});
+        CORPUS.put("log-format", new String[]{"日志格式",
+                "日志统一使用 Class#method - reason=... 格式，便于检索。"});
+    }
+
+    private final Bm25ExperienceScorer scorer = new Bm25ExperienceScorer();
+
+    @Test
+    void tokenizer_shouldSplitCjkIntoBigramsAndLatinIntoWords() {
+        assertEquals(List.of("redis", "缓存", "存击", "击穿", "retry", "policy", "v2"),
+                ExperienceTokenizer.tokenize("Redis缓存击穿 retry_policy V2"));
+        assertEquals(List.of("锁"), ExperienceTokenizer.tokenize("锁"));
+        assertEquals(List.of(), ExperienceTokenizer.tokenize("  -- "));
+    }
+
+    @Test
+    void relevance_shouldRankExpectedExperienceFirst_onFixtureCorpus() {
+        Map<String, String> expectedTop = new LinkedHashMap<>();
+        expectedTop.put("redis timeout", "redis-timeout");
+        expectedTop.put("how to retry http requests", "http-retry");
+        expectedTop.put("large table pagination query", "db-pagination");
+        expectedTop.put("缓存击穿怎么办", "cache-breakdown");
+        expectedTop.put("数据库连接池大小", "db-pool");
+        expectedTop.put("下游调用失败重试", "retry-zh");
+        expectedTop.put("深分页慢查询", "paging-zh");
+        expectedTop.put("token expired 401", "auth-token");
+        expectedTop.put("日志格式规范", "log-format");
+
+        List<Experience> corpus = corpus();
+        for (Map.Entry<String, String> entry : expectedTop.entrySet()) {
+            List<String> ranked = rank(corpus, entry.getKey(), 3);
+            assertEquals(entry.getValue(), ranked.get(0), "query: " + entry.getKey() + " -> " + ranked);
+        }
+    }
+
+    @Test
+    void relevance_shouldExcludeExperiencesWithoutSharedTerms() {
+        List<String> ranked = rank(corpus(), "streaming json payload", 10);
+
+        assertEquals(List.of("json-parse"), ranked);
+        assertTrue(rank(corpus(), "kubernetes", 10).isEmpty());
+    }
+
+    @Test
+    void scores_shouldPreferShorterDocument_whenTermFrequencyIsEqual() {
+        Experience shortDoc = experience("short", "retry", "retry once");
+        Experience longDoc = experience("long", "retry", "retry once and then write a very long explanation about"
+                + " unrelated topics such as logging formats, database pools and json parsing");
+
+        double[] scores = scorer.score("retry", List.of(longDoc, shortDoc));
+
+        assertTrue(scores[1] > scores[0]);
+    }
+
+    @Test
+    void provider_shouldReturnTopKByRelevance() {
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+        corpus().forEach(repository::save);
+        InMemoryExperienceProvider provider = new InMemoryExperienceProvider(repository, scorer);
+
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+        query.setText("retry");
+        query.setLimit(2);
+        List<String> ids = provider.query(query, null).stream().map(Experience::getId).toList();
+
+        assertEquals(2, ids.size());
+        assertTrue(List.of("http-retry", "auth-token").containsAll(ids), ids.toString());
+    }
+
+    private List<String> rank(List<Experience> corpus, String query, int limit) {
+        double[] scores = scorer.score(query, corpus);
+        Integer[] order = new Integer[corpus.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        return Arrays.stream(order)
+                .filter(i -> scores[i] > 0)
+                .limit(limit)
+                .map(i -> corpus.get(i).getId())
+                .toList();
+    }
+
+    private static List<Experience> corpus() {
+        return CORPUS.entrySet().stream()
+                .map(entry -> experience(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+                .toList();
+    }
+
+    private static Experience experience(String id, String title, String content) {
+        Experience experience = new Experience(ExperienceType.CODE, title, content, ExperienceScope.GLOBAL);
+        experience.setId(id);
+        return experience;
+    }
+}
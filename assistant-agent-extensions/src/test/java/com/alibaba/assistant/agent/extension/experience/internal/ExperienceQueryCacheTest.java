@@ -0,0 +1,226 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
+import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentService;
+import com.alibaba.assistant.agent.extension.experience.hook.CodeExperienceModelHook;
+import com.alibaba.assistant.agent.extension.experience.hook.CommonSenseExperienceModelHook;
+import com.alibaba.assistant.agent.extension.experience.hook.FastIntentReactHook;
+import com.alibaba.assistant.agent.extension.experience.hook.ReactExperienceAgentHook;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceTurn;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExperienceQueryCacheTest {
+
+    private CountingRepository repository;
+
+    private ExperienceProvider provider;
+
+    private ExperienceExtensionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CountingRepository();
+        provider = new InMemoryExperienceProvider(repository);
+        properties = new ExperienceExtensionProperties();
+        properties.setFastIntentEnabled(true);
+        for (int i = 0; i < 4; i++) {
+            repository.save(new Experience(ExperienceType.CODE, "java 函数规范 " + i, "content " + i, ExperienceScope.GLOBAL));
+            repository.save(new Experience(ExperienceType.COMMON, "常识 " + i, "content " + i, ExperienceScope.GLOBAL));
+            repository.save(new Experience(ExperienceType.REACT, "策略 " + i, "content " + i, ExperienceScope.GLOBAL));
+        }
+    }
+
+    @Test
+    void turn_shouldHitRepositoryOncePerDistinctQuery() {
+        ExperienceQueryCache uncached = ExperienceQueryCache.uncached(provider);
+        int before = runTurns(uncached, 5);
+
+        ExperienceQueryCache cached = new ExperienceQueryCache(provider, repository, 16, 32, 60);
+        int after = runTurns(cached, 5);
+
+        // 每轮：两个 BEFORE_AGENT Hook 各查一次 REACT，三次模型调用各查一次 CODE 与 COMMON
+        assertEquals(5 * 8, before);
+        // 每轮只剩 REACT、CODE、COMMON 各一次，limit 较小的 REACT 查询复用前缀
+        assertEquals(5 * 3, after);
+    }
+
+    @Test
+    void save_shouldInvalidateCachedResults() {
+        ExperienceQueryCache cache = new ExperienceQueryCache(provider, repository, 16, 32, 60);
+        RunnableConfig config = config("thread-1", "turn-1");
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.COMMON);
+        query.setLimit(10);
+
+        assertEquals(4, cache.query(config, query, new ExperienceQueryContext()).size());
+        assertEquals(4, cache.query(config, query, new ExperienceQueryContext()).size());
+        assertEquals(1, repository.hits);
+
+        repository.save(new Experience(ExperienceType.COMMON, "新常识", "content", ExperienceScope.GLOBAL));
+        assertEquals(5, cache.query(config, query, new ExperienceQueryContext()).size());
+        assertEquals(2, repository.hits);
+
+        // 删除同样使版本号前进
+        Experience removed = cache.query(config, query, new ExperienceQueryContext()).get(0);
+        assertEquals(2, repository.hits);
+        repository.deleteById(removed.getId());
+        assertEquals(4, cache.query(config, query, new ExperienceQueryContext()).size());
+        assertEquals(3, repository.hits);
+    }
+
+    @Test
+    void query_shouldKeyByTurnContextAndLimit() {
+        ExperienceQueryCache cache = new ExperienceQueryCache(provider, repository, 16, 32, 60);
+        ExperienceQuery small = new ExperienceQuery(ExperienceType.CODE);
+        small.setLimit(2);
+        ExperienceQuery large = new ExperienceQuery(ExperienceType.CODE);
+        large.setLimit(3);
+
+        List<Experience> first = cache.query(config("thread-1", "turn-1"), small, context("u1"));
+        // limit 更大的查询无法由前缀满足
+        List<Experience> wider = cache.query(config("thread-1", "turn-1"), large, context("u1"));
+        assertEquals(2, repository.hits);
+        assertEquals(first, wider.subList(0, 2));
+        assertEquals(first, cache.query(config("thread-1", "turn-1"), small, context("u1")));
+        assertEquals(2, repository.hits);
+
+        // 上下文不同、线程不同或进入新轮次都重新查询
+        cache.query(config("thread-1", "turn-1"), small, context("u2"));
+        cache.query(config("thread-2", "turn-1"), small, context("u1"));
+        cache.query(config("thread-1", "turn-2"), small, context("u1"));
+        cache.query(config("thread-1", "turn-1"), small, context("u1"));
+        // 未传入 RunnableConfig 时不缓存
+        cache.query(null, small, context("u1"));
+        assertEquals(2 + 5, repository.hits);
+
+        // 返回的列表是副本，调用方修改不影响缓存
+        List<Experience> mutable = cache.query(config("thread-1", "turn-1"), small, context("u1"));
+        mutable.clear();
+        assertEquals(2, cache.query(config("thread-1", "turn-1"), small, context("u1")).size());
+    }
+
+    @Test
+    void usageFlush_shouldInvalidateCachedRanking() {
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(TimeUnit.HOURS.toMillis(24), 0.5, 0, 16);
+        ExperienceProvider rankingProvider = new InMemoryExperienceProvider(repository, new Bm25ExperienceScorer(),
+                null, null, null, tracker);
+        ExperienceQueryCache cache = new ExperienceQueryCache(rankingProvider, repository, tracker, 16, 32, 60);
+        RunnableConfig config = config("thread-1", "turn-1");
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.COMMON);
+        query.setOrderBy(ExperienceQuery.OrderBy.SCORE);
+        query.setLimit(10);
+
+        List<Experience> before = cache.query(config, query, new ExperienceQueryContext());
+        Experience last = before.get(before.size() - 1);
+        for (int i = 0; i < 5; i++) {
+            tracker.recordOutcome(last.getId(), true);
+        }
+        // 未合并的增量不影响排序，缓存仍然有效
+        assertEquals(before, cache.query(config, query, new ExperienceQueryContext()));
+        assertEquals(1, repository.hits);
+
+        tracker.flush();
+        List<Experience> after = cache.query(config, query, new ExperienceQueryContext());
+        assertEquals(2, repository.hits);
+        assertEquals(last.getId(), after.get(0).getId());
+    }
+
+    @Test
+    void withTurnId_shouldStartNewTurnUnlessCallerProvidedOne() {
+        RunnableConfig provided = config("thread-1", "turn-1");
+        assertSame(provided, ExperienceTurn.withTurnId(provided));
+
+        RunnableConfig first = ExperienceTurn.withTurnId(RunnableConfig.builder().threadId("thread-1").build());
+        RunnableConfig second = ExperienceTurn.withTurnId(RunnableConfig.builder().threadId("thread-1").build());
+        assertEquals("thread-1", first.threadId().orElse(null));
+        assertNotEquals(first.metadata(ExperienceTurn.TURN_ID_METADATA_KEY),
+                second.metadata(ExperienceTurn.TURN_ID_METADATA_KEY));
+
+        // 没有 threadId 的调用（子Agent）按 turnId 分桶，互不覆盖
+        ExperienceQueryCache cache = new ExperienceQueryCache(provider, repository, 16, 32, 60);
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+        RunnableConfig subA = ExperienceTurn.withTurnId(null);
+        RunnableConfig subB = ExperienceTurn.withTurnId(null);
+        cache.query(subA, query, null);
+        cache.query(subB, query, null);
+        cache.query(subA, query, null);
+        cache.query(subB, query, null);
+        assertEquals(2, repository.hits);
+    }
+
+    private int runTurns(ExperienceQueryCache cache, int turns) {
+        FastIntentReactHook fastIntentHook = new FastIntentReactHook(cache, properties, new FastIntentService(List.of()));
+        ReactExperienceAgentHook reactHook = new ReactExperienceAgentHook(cache, properties);
+        CodeExperienceModelHook codeHook = new CodeExperienceModelHook(cache, properties);
+        CommonSenseExperienceModelHook commonHook = new CommonSenseExperienceModelHook(cache, properties);
+
+        int start = repository.hits;
+        List<Message> messages = new ArrayList<>();
+        for (int turn = 0; turn < turns; turn++) {
+            messages.add(new UserMessage("帮我写一个 java 函数 " + turn));
+            Map<String, Object> data = new HashMap<>();
+            data.put("messages", messages);
+            OverAllState state = new OverAllState(data);
+            RunnableConfig config = config("thread-1", "turn-" + turn);
+
+            fastIntentHook.beforeAgent(state, config).join();
+            reactHook.beforeAgent(state, config).join();
+            for (int modelCall = 0; modelCall < 3; modelCall++) {
+                codeHook.beforeModel(state, config).join();
+                commonHook.beforeModel(state, config).join();
+            }
+        }
+        return repository.hits - start;
+    }
+
+    private static RunnableConfig config(String threadId, String turnId) {
+        return RunnableConfig.builder()
+                .threadId(threadId)
+                .addMetadata(ExperienceTurn.TURN_ID_METADATA_KEY, turnId)
+                .build();
+    }
+
+    private static ExperienceQueryContext context(String userId) {
+        ExperienceQueryContext context = new ExperienceQueryContext();
+        context.setUserId(userId);
+        return context;
+    }
+
+    /**
+     * 统计仓库候选查询次数：Provider 每次查询都会查 GLOBAL 范围，带 userId 时还会查 USER、TEAM，只按 GLOBAL 计数
+     */
+    private static final class CountingRepository extends InMemoryExperienceRepository {
+
+        private int hits;
+
+        @Override
+        public List<Experience> findCandidates(ExperienceType type, ExperienceScope scope, String ownerId,
+                                               String projectId, String language, Set<String> tags, String text) {
+            if (scope == ExperienceScope.GLOBAL) {
+                hits++;
+            }
+            return super.findCandidates(type, scope, ownerId, projectId, language, tags, text);
+        }
+    }
+}
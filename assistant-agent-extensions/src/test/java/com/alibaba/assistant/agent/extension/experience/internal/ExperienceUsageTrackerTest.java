@@ -0,0 +1,212 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.core.model.ExecutionRecord;
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExperienceUsageTrackerTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    void outcomes_shouldReorderScoreRanking() {
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(168 * HOUR, 0.3, 0, 16);
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+        InMemoryExperienceProvider provider = new InMemoryExperienceProvider(repository, new Bm25ExperienceScorer(),
+                null, null, new ExperienceExtensionProperties.VectorConfig(), tracker);
+        Experience older = new Experience(ExperienceType.CODE, "older", "content", ExperienceScope.GLOBAL);
+        repository.save(older);
+        Experience newer = new Experience(ExperienceType.CODE, "newer", "content", ExperienceScope.GLOBAL);
+        repository.save(newer);
+        newer.setUpdatedAt(older.getUpdatedAt().plusSeconds(1));
+        repository.save(newer);
+
+        // 无使用记录时等同按更新时间倒序
+        assertEquals(List.of(newer.getId(), older.getId()), rankedIds(provider));
+
+        // 新经验注入后执行失败，旧经验注入后执行成功；执行记录在会话内累积
+        List<ExecutionRecord> failingHistory = new ArrayList<>();
+        List<ExecutionRecord> succeedingHistory = new ArrayList<>();
+        for (int turn = 0; turn < 5; turn++) {
+            tracker.recordInjections("t-fail", List.of(newer.getId()));
+            failingHistory.add(execution("f", false));
+            tracker.completeTurn("t-fail", failingHistory);
+
+            tracker.recordInjections("t-ok", List.of(older.getId()));
+            succeedingHistory.add(execution("g", true));
+            tracker.completeTurn("t-ok", succeedingHistory);
+        }
+        tracker.flush();
+
+        assertEquals(List.of(older.getId(), newer.getId()), rankedIds(provider));
+        assertTrue(tracker.rankingFactor(older.getId()) > 1);
+        assertTrue(tracker.rankingFactor(newer.getId()) < 1);
+        assertEquals(5, tracker.snapshot(newer.getId()).failures(), 1e-3);
+    }
+
+    @Test
+    void defaultOrder_shouldStayNewestFirstWithUsageAsTieBreak() {
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(168 * HOUR, 0.3, 0, 16);
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+        InMemoryExperienceProvider provider = new InMemoryExperienceProvider(repository, new Bm25ExperienceScorer(),
+                null, null, new ExperienceExtensionProperties.VectorConfig(), tracker);
+        Experience older = new Experience(ExperienceType.CODE, "older", "content", ExperienceScope.GLOBAL);
+        repository.save(older);
+        Experience newer = new Experience(ExperienceType.CODE, "newer", "content", ExperienceScope.GLOBAL);
+        repository.save(newer);
+        Experience twin = new Experience(ExperienceType.CODE, "twin", "content", ExperienceScope.GLOBAL);
+        repository.save(twin);
+        // 仓库保存的是同一对象，保存后直接调整更新时间
+        newer.setUpdatedAt(older.getUpdatedAt().plusSeconds(1));
+        twin.setUpdatedAt(older.getUpdatedAt());
+
+        List<ExecutionRecord> history = new ArrayList<>();
+        for (int turn = 0; turn < 5; turn++) {
+            tracker.recordInjections("t", List.of(twin.getId()));
+            history.add(execution("g", true));
+            tracker.completeTurn("t", history);
+            tracker.recordInjections("t-fail", List.of(newer.getId()));
+            tracker.completeTurn("t-fail", List.of(execution("f", false)));
+        }
+        tracker.flush();
+
+        // 使用效用不改变按更新时间倒序，只在更新时间相同时决定先后
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+        query.setLimit(10);
+        List<String> ids = provider.query(query, new ExperienceQueryContext()).stream().map(Experience::getId).toList();
+        assertEquals(List.of(newer.getId(), twin.getId(), older.getId()), ids);
+    }
+
+    @Test
+    void utility_shouldDecayTowardsNeutral() {
+        AtomicLong now = new AtomicLong(0);
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(HOUR, 1.0, 0, 16, now::get);
+        for (int i = 0; i < 8; i++) {
+            tracker.recordOutcome("e1", false);
+        }
+        tracker.flush();
+        double fresh = tracker.utility("e1");
+        assertEquals(8, tracker.snapshot("e1").failures(), 1e-9);
+
+        now.set(HOUR);
+        assertEquals(4, tracker.snapshot("e1").failures(), 1e-9);
+        double halfLife = tracker.utility("e1");
+
+        now.set(20 * HOUR);
+        double stale = tracker.utility("e1");
+
+        assertTrue(fresh < halfLife && halfLife < stale);
+        assertEquals(ExperienceUsageTracker.NEUTRAL_UTILITY, stale, 1e-3);
+        assertEquals(ExperienceUsageTracker.NEUTRAL_UTILITY, tracker.utility("unknown"), 0);
+    }
+
+    @Test
+    void completeTurn_shouldAttributeNewExecutionsOnly() {
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(0, 0.3, 0, 16);
+        List<ExecutionRecord> history = new ArrayList<>();
+
+        // 快速意图命中按同名函数结算，注入经验按最后一次执行结算
+        tracker.recordFastIntentHit("t1", "fast", "query_order");
+        tracker.recordInjections("t1", List.of("injected", "injected"));
+        history.add(execution("query_order", true));
+        history.add(execution("format_reply", false));
+        tracker.completeTurn("t1", history);
+
+        // 本轮没有新的执行：只计曝光不计成败
+        tracker.recordInjections("t1", List.of("injected"));
+        tracker.completeTurn("t1", history);
+
+        // 命中函数本轮未执行：不结算
+        tracker.recordFastIntentHit("t1", "fast", "query_order");
+        history.add(execution("other", true));
+        tracker.completeTurn("t1", history);
+        tracker.flush();
+
+        ExperienceUsageTracker.UsageSnapshot fast = tracker.snapshot("fast");
+        assertEquals(2, fast.fastIntentHits(), 0);
+        assertEquals(1, fast.successes(), 0);
+        assertEquals(0, fast.failures(), 0);
+
+        ExperienceUsageTracker.UsageSnapshot injected = tracker.snapshot("injected");
+        assertEquals(2, injected.injections(), 0);
+        assertEquals(0, injected.successes(), 0);
+        assertEquals(1, injected.failures(), 0);
+    }
+
+    @Test
+    void concurrentRecording_shouldNotLoseCountsAcrossFlushes() throws Exception {
+        ExperienceUsageTracker tracker = new ExperienceUsageTracker(0, 0.3, 0, 16);
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                tracker.flush();
+            }
+        });
+        flusher.start();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    tracker.recordOutcome("e" + (i % 4), i % 3 != 0);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        flusher.join();
+        executor.shutdown();
+        tracker.flush();
+
+        double successes = 0;
+        double failures = 0;
+        for (int i = 0; i < 4; i++) {
+            ExperienceUsageTracker.UsageSnapshot snapshot = tracker.snapshot("e" + i);
+            successes += snapshot.successes();
+            failures += snapshot.failures();
+        }
+        long expectedFailures = (long) threads * ((perThread + 2) / 3);
+        assertEquals((long) threads * perThread - expectedFailures, successes, 0);
+        assertEquals(expectedFailures, failures, 0);
+    }
+
+    private static List<String> rankedIds(InMemoryExperienceProvider provider) {
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+        query.setOrderBy(ExperienceQuery.OrderBy.SCORE);
+        query.setLimit(10);
+        return provider.query(query, new ExperienceQueryContext()).stream().map(Experience::getId).toList();
+    }
+
+    private static ExecutionRecord execution(String functionName, boolean success) {
+        ExecutionRecord record = new ExecutionRecord();
+        record.setFunctionName(functionName);
+        record.setSuccess(success);
+        return record;
+    }
+}
@@ -0,0 +1,232 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceArtifact;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.model.FastIntentConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileExperienceRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void reopen_shouldRestoreSavedExperiences() {
+        Experience experience = new Experience(ExperienceType.CODE, "日志规范", "log.info(\"A#b - reason=c\")",
+                ExperienceScope.TEAM);
+        experience.setOwnerId("alice");
+        experience.setProjectId("p1");
+        experience.setTags(Set.of("logging", "java"));
+        experience.getMetadata().setConfidence(0.9);
+        experience.getMetadata().putProperty("hits", 3);
+        ExperienceArtifact.CodeArtifact code = new ExperienceArtifact.CodeArtifact();
+        code.setFunctionName("log_demo");
+        code.setParameters(List.of("message"));
+        ExperienceArtifact artifact = new ExperienceArtifact();
+        artifact.setCode(code);
+        experience.setArtifact(artifact);
+        FastIntentConfig fastIntentConfig = new FastIntentConfig();
+        fastIntentConfig.setEnabled(true);
+        fastIntentConfig.setPriority(5);
+        experience.setFastIntentConfig(fastIntentConfig);
+        Experience deleted = new Experience(ExperienceType.REACT, "t", "c", ExperienceScope.GLOBAL);
+
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            repository.save(experience);
+            repository.save(deleted);
+            assertSame(experience, repository.findById(experience.getId()).orElseThrow());
+            assertTrue(repository.deleteById(deleted.getId()));
+            assertFalse(repository.deleteById(deleted.getId()));
+            assertThrows(IllegalStateException.class, () -> new FileExperienceRepository(directory));
+        }
+
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            assertEquals(1, repository.count());
+            assertTrue(repository.findById(deleted.getId()).isEmpty());
+            Experience loaded = repository.findById(experience.getId()).orElseThrow();
+            assertEquals(experience.getTitle(), loaded.getTitle());
+            assertEquals(experience.getContent(), loaded.getContent());
+            assertEquals(experience.getTags(), loaded.getTags());
+            assertEquals(experience.getUpdatedAt(), loaded.getUpdatedAt());
+            assertEquals(0.9, loaded.getMetadata().getConfidence());
+            assertEquals(3, loaded.getMetadata().getProperty("hits"));
+            assertEquals("log_demo", loaded.getArtifact().getCode().getFunctionName());
+            assertEquals(5, loaded.getFastIntentConfig().getPriority());
+            assertEquals(List.of(loaded), repository.findByTypeAndScope(ExperienceType.CODE, ExperienceScope.TEAM, "alice", "p1"));
+            assertEquals(List.of(), repository.findByTypeAndScope(ExperienceType.CODE, ExperienceScope.TEAM, "bob", null));
+            assertEquals(1, repository.countByTypeAndScope(ExperienceType.CODE, null));
+        }
+    }
+
+    @Test
+    void reopen_shouldTruncateTornTail_atEveryKillPoint() throws IOException {
+        Path live = directory.resolve("live");
+        List<String> ids = new ArrayList<>();
+        List<Long> recordEnds = new ArrayList<>();
+        FileExperienceRepository repository = new FileExperienceRepository(live);
+        for (int i = 0; i < 40; i++) {
+            Experience experience = randomExperience();
+            repository.save(experience);
+            ids.add(experience.getId());
+            recordEnds.add(Files.size(live.resolve(FileExperienceRepository.LOG_FILE)));
+        }
+        // 进程仍在运行时拷贝文件，模拟在任意字节处被杀：索引未正常关闭，日志尾部残缺
+        byte[] log = Files.readAllBytes(live.resolve(FileExperienceRepository.LOG_FILE));
+        byte[] index = Files.readAllBytes(live.resolve(FileExperienceRepository.INDEX_FILE));
+        repository.close();
+
+        for (int round = 0; round < 60; round++) {
+            int cut = ExperienceRecordLog.FILE_HEADER_SIZE + random.nextInt(log.length - ExperienceRecordLog.FILE_HEADER_SIZE + 1);
+            Path crashed = directory.resolve("crash-" + round);
+            Files.createDirectories(crashed);
+            Files.write(crashed.resolve(FileExperienceRepository.LOG_FILE), Arrays.copyOf(log, cut));
+            Files.write(crashed.resolve(FileExperienceRepository.INDEX_FILE), index);
+
+            int complete = (int) recordEnds.stream().filter(end -> end <= cut).count();
+            long validEnd = complete == 0 ? ExperienceRecordLog.FILE_HEADER_SIZE : recordEnds.get(complete - 1);
+            try (FileExperienceRepository recovered = new FileExperienceRepository(crashed)) {
+                assertEquals(complete, recovered.count(), "cut=" + cut);
+                assertEquals(validEnd, Files.size(crashed.resolve(FileExperienceRepository.LOG_FILE)));
+                for (int i = 0; i < ids.size(); i++) {
+                    assertEquals(i < complete, recovered.findById(ids.get(i)).isPresent());
+                }
+                // 截断后可以继续追加
+                recovered.save(randomExperience());
+            }
+            try (FileExperienceRepository reopened = new FileExperienceRepository(crashed)) {
+                assertEquals(complete + 1, reopened.count());
+            }
+        }
+    }
+
+    @Test
+    void reopen_shouldDropRecordWithBadChecksum() throws IOException {
+        List<Experience> saved = new ArrayList<>();
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            for (int i = 0; i < 10; i++) {
+                saved.add(repository.save(randomExperience()));
+            }
+        }
+        // 损坏最后一条记录正文中的一个字节
+        Path logFile = directory.resolve(FileExperienceRepository.LOG_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "rw")) {
+            file.seek(file.length() - 3);
+            int value = file.read();
+            file.seek(file.length() - 3);
+            file.write(value ^ 0x5A);
+        }
+        // 索引文件丢失同样从日志重建
+        Files.delete(directory.resolve(FileExperienceRepository.INDEX_FILE));
+
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            assertEquals(9, repository.count());
+            assertTrue(repository.findById(saved.get(9).getId()).isEmpty());
+            assertEquals(saved.get(8).getContent(), repository.findById(saved.get(8).getId()).orElseThrow().getContent());
+        }
+    }
+
+    @Test
+    void compact_shouldKeepOnlyLiveRecords() throws IOException {
+        Map<String, String> expected = new HashMap<>();
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory, false, 0.5,
+                Long.MAX_VALUE, 16)) {
+            List<Experience> experiences = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                experiences.add(repository.save(randomExperience()));
+            }
+            for (int round = 0; round < 3; round++) {
+                for (Experience experience : experiences) {
+                    experience.setContent("v" + round + "-" + random.nextInt());
+                }
+                repository.batchSave(experiences);
+            }
+            for (int i = 0; i < experiences.size(); i++) {
+                if (i % 2 == 0) {
+                    repository.deleteById(experiences.get(i).getId());
+                } else {
+                    expected.put(experiences.get(i).getId(), experiences.get(i).getContent());
+                }
+            }
+            long before = Files.size(directory.resolve(FileExperienceRepository.LOG_FILE));
+            assertTrue(repository.garbageBytes() > before / 2);
+
+            assertTrue(repository.compact());
+
+            assertEquals(0, repository.garbageBytes());
+            assertTrue(Files.size(directory.resolve(FileExperienceRepository.LOG_FILE)) < before / 4);
+            assertFalse(repository.compact());
+            assertContents(repository, expected);
+        }
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            assertContents(repository, expected);
+        }
+    }
+
+    @Test
+    void compaction_shouldRunInBackgroundWithoutLosingConcurrentWrites() throws Exception {
+        Map<String, String> expected = new HashMap<>();
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory, false, 0.3, 1, 64)) {
+            List<Experience> experiences = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                experiences.add(repository.save(randomExperience()));
+            }
+            long initialSize = Files.size(directory.resolve(FileExperienceRepository.LOG_FILE));
+            for (int round = 0; round < 20; round++) {
+                for (Experience experience : experiences) {
+                    experience.setContent("r" + round + "-" + random.nextInt(1000));
+                    repository.save(experience);
+                    expected.put(experience.getId(), experience.getContent());
+                }
+            }
+            assertContents(repository, expected);
+            // 不压缩时日志约为初始大小的21倍
+            assertTrue(Files.size(directory.resolve(FileExperienceRepository.LOG_FILE)) < 4 * initialSize);
+        }
+        try (FileExperienceRepository repository = new FileExperienceRepository(directory)) {
+            assertContents(repository, expected);
+        }
+    }
+
+    private static void assertContents(FileExperienceRepository repository, Map<String, String> expected) {
+        assertEquals(expected.size(), repository.count());
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), repository.findById(entry.getKey()).orElseThrow().getContent());
+        }
+        Map<String, String> listed = repository.findByTypeAndScope(null, null, null, null).stream()
+                .collect(Collectors.toMap(Experience::getId, Experience::getContent));
+        assertEquals(expected, listed);
+    }
+
+    private Experience randomExperience() {
+        ExperienceType type = ExperienceType.values()[random.nextInt(ExperienceType.values().length)];
+        ExperienceScope scope = ExperienceScope.values()[random.nextInt(ExperienceScope.values().length)];
+        Experience experience = new Experience(type, "title-" + random.nextInt(1000),
+                "content-" + random.nextLong() + " 经验内容", scope);
+        experience.setOwnerId(random.nextBoolean() ? "owner-" + random.nextInt(5) : null);
+        return experience;
+    }
+}
@@ -0,0 +1,247 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceVectorIndex.VectorMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswExperienceVectorIndexTest {
+
+    private static final int DIMENSIONS = 32;
+
+    @Test
+    void search_shouldReachHighRecallAgainstBruteForce() {
+        Random random = new Random(7);
+        float[][] vectors = clusteredVectors(random, 5000, 50);
+        HnswExperienceVectorIndex index = new HnswExperienceVectorIndex();
+        for (int i = 0; i < vectors.length; i++) {
+            index.upsert("e" + i, vectors[i]);
+        }
+
+        int queries = 100;
+        int k = 10;
+        int hits = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = clusteredVectors(random, 1, 50)[0];
+            Set<String> expected = new HashSet<>(bruteForce(vectors, query, k));
+            for (VectorMatch match : index.search(query, k, null)) {
+                if (expected.contains(match.experienceId())) {
+                    hits++;
+                }
+            }
+        }
+
+        double recall = (double) hits / (queries * k);
+        assertTrue(recall >= 0.95, "recall@10=" + recall);
+    }
+
+    @Test
+    void search_shouldHonourRemovalUpsertAndFilter() {
+        HnswExperienceVectorIndex index = new HnswExperienceVectorIndex();
+        float[][] vectors = clusteredVectors(new Random(11), 200, 5);
+        for (int i = 0; i < vectors.length; i++) {
+            index.upsert("e" + i, vectors[i]);
+        }
+
+        assertEquals("e3", index.search(vectors[3], 1, null).get(0).experienceId());
+        assertTrue(index.remove("e3"));
+        assertFalse(index.remove("e3"));
+        assertEquals(199, index.size());
+        assertTrue(Double.isNaN(index.similarity("e3", vectors[3])));
+        assertTrue(index.search(vectors[3], 10, null).stream().noneMatch(m -> "e3".equals(m.experienceId())));
+
+        // 覆盖写入后按新向量检索
+        index.upsert("e4", vectors[3]);
+        assertEquals("e4", index.search(vectors[3], 1, null).get(0).experienceId());
+        assertEquals(1.0, index.similarity("e4", vectors[3]), 1e-5);
+
+        List<VectorMatch> filtered = index.search(vectors[3], 5, id -> id.endsWith("7"));
+        assertEquals(5, filtered.size());
+        assertTrue(filtered.stream().allMatch(m -> m.experienceId().endsWith("7")));
+    }
+
+    @Test
+    void hashingEmbedding_shouldBeDeterministicAndMatchWordForms() {
+        HashingEmbeddingModel model = new HashingEmbeddingModel();
+        float[] first = model.embed("Retrying failed requests");
+
+        assertArrayEquals(first, new HashingEmbeddingModel().embed("Retrying failed requests"));
+        assertEquals(HashingEmbeddingModel.DEFAULT_DIMENSIONS, first.length);
+        assertTrue(cosine(first, model.embed("retry failed request"))
+                > cosine(first, model.embed("database connection pool")));
+    }
+
+    @Test
+    void provider_shouldFindSemanticMatchThatLexicalScoringMisses() {
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+        repository.save(experience("retry", "Retry failed request", "Back off exponentially before each retry."));
+        repository.save(experience("pool", "Database connection pool", "Size the pool to twice the CPU cores."));
+        repository.save(experience("json", "JSON parsing", "Stream large payloads."));
+
+        ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+        query.setText("retrying requests");
+        query.setLimit(3);
+
+        Bm25ExperienceScorer scorer = new Bm25ExperienceScorer();
+        assertTrue(new InMemoryExperienceProvider(repository, scorer).query(query, null).isEmpty());
+
+        InMemoryExperienceProvider hybrid = new InMemoryExperienceProvider(repository, scorer,
+                new HnswExperienceVectorIndex(), new HashingEmbeddingModel(),
+                new ExperienceExtensionProperties.VectorConfig());
+        List<String> ids = hybrid.query(query, null).stream().map(Experience::getId).toList();
+        assertEquals("retry", ids.get(0), ids.toString());
+    }
+
+    @Test
+    void indexer_shouldEmbedOffQueryThreadAndPruneDeletedExperiences() throws Exception {
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+        repository.save(experience("retry", "Retry failed request", "Back off exponentially before each retry."));
+        repository.save(experience("pool", "Database connection pool", "Size the pool to twice the CPU cores."));
+        HnswExperienceVectorIndex index = new HnswExperienceVectorIndex();
+        CountDownLatch release = new CountDownLatch(1);
+        HashingEmbeddingModel model = new HashingEmbeddingModel() {
+            @Override
+            public List<float[]> embed(List<String> texts) {
+                // 经验批量嵌入阻塞到放行，查询文本的单条嵌入不受影响
+                awaitQuietly(release);
+                return super.embed(texts);
+            }
+        };
+
+        try (ExperienceVectorIndexer indexer = new ExperienceVectorIndexer(repository, index, model, true)) {
+            InMemoryExperienceProvider provider = new InMemoryExperienceProvider(repository, new Bm25ExperienceScorer(),
+                    indexer, new ExperienceExtensionProperties.VectorConfig(), null, null);
+            ExperienceQuery query = new ExperienceQuery(ExperienceType.CODE);
+            query.setText("retrying requests");
+            query.setLimit(3);
+
+            // 嵌入被阻塞时查询不等待，未索引的候选只参与词项排序
+            indexer.warmUp();
+            assertTrue(provider.query(query, null).isEmpty());
+            assertEquals(0, indexer.getIndexedCount());
+
+            release.countDown();
+            waitUntil(() -> indexer.getIndexedCount() == 2);
+            assertEquals("retry", provider.query(query, null).get(0).getId());
+
+            repository.deleteById("pool");
+            provider.query(query, null);
+            waitUntil(() -> indexer.getIndexedCount() == 1 && index.size() == 1);
+            assertTrue(Double.isNaN(index.similarity("pool", model.embed("Database connection pool"))));
+        }
+    }
+
+    @Test
+    void indexer_shouldNotRescanIndexOnEveryRefresh_whenRepositoryIsUntracked() {
+        AtomicInteger lookups = new AtomicInteger();
+        InMemoryExperienceRepository repository = new InMemoryExperienceRepository() {
+            @Override
+            public long generation() {
+                return -1;
+            }
+
+            @Override
+            public Optional<Experience> findById(String id) {
+                lookups.incrementAndGet();
+                return super.findById(id);
+            }
+        };
+        repository.save(experience("retry", "Retry failed request", "Back off exponentially before each retry."));
+        repository.save(experience("pool", "Database connection pool", "Size the pool to twice the CPU cores."));
+
+        try (ExperienceVectorIndexer indexer = new ExperienceVectorIndexer(repository, new HnswExperienceVectorIndex(),
+                new HashingEmbeddingModel())) {
+            List<Experience> all = repository.findByTypeAndScope(null, null, null, null);
+            indexer.refresh(all);
+            assertEquals(2, indexer.getIndexedCount());
+            int afterFirstRefresh = lookups.get();
+
+            for (int i = 0; i < 20; i++) {
+                indexer.refresh(all);
+            }
+            assertEquals(afterFirstRefresh, lookups.get());
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static float[][] clusteredVectors(Random random, int count, int clusters) {
+        Random centers = new Random(1);
+        float[][] centroids = new float[clusters][DIMENSIONS];
+        for (float[] centroid : centroids) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                centroid[d] = (float) centers.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][DIMENSIONS];
+        for (int i = 0; i < count; i++) {
+            float[] centroid = centroids[random.nextInt(clusters)];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vectors[i][d] = centroid[d] + (float) (random.nextGaussian() * 0.5);
+            }
+        }
+        return vectors;
+    }
+
+    private static List<String> bruteForce(float[][] vectors, float[] query, int k) {
+        Integer[] order = new Integer[vectors.length];
+        double[] similarities = new double[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            order[i] = i;
+            similarities[i] = cosine(vectors[i], query);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(similarities[b], similarities[a]));
+        return Arrays.stream(order).limit(k).map(i -> "e" + i).toList();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static Experience experience(String id, String title, String content) {
+        Experience experience = new Experience(ExperienceType.CODE, title, content, ExperienceScope.GLOBAL);
+        experience.setId(id);
+        return experience;
+    }
+}
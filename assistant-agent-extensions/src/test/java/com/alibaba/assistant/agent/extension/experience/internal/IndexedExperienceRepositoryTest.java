@@ -0,0 +1,176 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.experience.spi.ExperienceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedExperienceRepositoryTest {
+
+    private static final String[] OWNERS = {null, "alice", "bob", "carol"};
+    private static final String[] PROJECTS = {null, "p1", "p2"};
+    private static final String[] LANGUAGES = {null, "", "java", "Python", "zh"};
+    private static final String[] TAGS = {"db", "http", "cache", "重试", "auth"};
+    private static final String[] WORDS = {"connection", "timeout", "retry", "cache miss", "数据库连接", "重试策略",
+            "缓存击穿", "auth token", "json", "分页查询"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void findByTypeAndScope_shouldMatchInMemoryRepository_underSavesUpdatesAndDeletes() {
+        InMemoryExperienceRepository reference = new InMemoryExperienceRepository();
+        IndexedExperienceRepository indexed = new IndexedExperienceRepository();
+        List<String> ids = new ArrayList<>();
+
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(10);
+            if (op < 6 || ids.isEmpty()) {
+                Experience experience = randomExperience();
+                ids.add(experience.getId());
+                saveBoth(reference, indexed, experience);
+            } else if (op < 8) {
+                // 修改后重新保存
+                Experience experience = reference.findById(ids.get(random.nextInt(ids.size()))).orElseThrow();
+                experience.setScope(ExperienceScope.values()[random.nextInt(ExperienceScope.values().length)]);
+                experience.setOwnerId(OWNERS[random.nextInt(OWNERS.length)]);
+                experience.setContent(randomText());
+                saveBoth(reference, indexed, experience);
+            } else {
+                String id = ids.remove(random.nextInt(ids.size()));
+                assertEquals(reference.deleteById(id), indexed.deleteById(id));
+            }
+        }
+
+        assertEquals(reference.count(), indexed.count());
+        for (ExperienceType type : withNull(ExperienceType.values())) {
+            for (ExperienceScope scope : withNull(ExperienceScope.values())) {
+                assertEquals(reference.countByTypeAndScope(type, scope), indexed.countByTypeAndScope(type, scope));
+                for (String owner : OWNERS) {
+                    for (String project : PROJECTS) {
+                        List<Experience> expected = reference.findByTypeAndScope(type, scope, owner, project);
+                        List<Experience> actual = indexed.findByTypeAndScope(type, scope, owner, project);
+                        // updatedAt 相同的经验之间顺序不做要求
+                        assertEquals(new HashSet<>(ids(expected)), new HashSet<>(ids(actual)), type + "/" + scope + "/" + owner + "/" + project);
+                        assertEquals(updatedAts(expected), updatedAts(actual));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void provider_shouldReturnSameExperiences_withIndexedCandidates() {
+        InMemoryExperienceRepository reference = new InMemoryExperienceRepository();
+        IndexedExperienceRepository indexed = new IndexedExperienceRepository();
+        for (int i = 0; i < 2000; i++) {
+            saveBoth(reference, indexed, randomExperience());
+        }
+        InMemoryExperienceProvider referenceProvider = new InMemoryExperienceProvider(reference);
+        InMemoryExperienceProvider indexedProvider = new InMemoryExperienceProvider(indexed);
+
+        for (int i = 0; i < 500; i++) {
+            ExperienceQuery query = new ExperienceQuery(random.nextInt(4) == 0 ? null
+                    : ExperienceType.values()[random.nextInt(ExperienceType.values().length)]);
+            query.setLimit(Integer.MAX_VALUE);
+            if (random.nextBoolean()) {
+                query.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+            }
+            if (random.nextBoolean()) {
+                query.setTags(new HashSet<>(List.of(TAGS[random.nextInt(TAGS.length)], TAGS[random.nextInt(TAGS.length)])));
+            }
+            if (random.nextBoolean()) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                query.setText(random.nextBoolean() ? word : word.substring(0, 1) + "zz");
+            }
+            ExperienceQueryContext context = new ExperienceQueryContext();
+            context.setUserId(OWNERS[1 + random.nextInt(OWNERS.length - 1)]);
+            context.setProjectId(PROJECTS[random.nextInt(PROJECTS.length)]);
+            context.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+
+            assertEquals(new HashSet<>(ids(referenceProvider.query(query, context))),
+                    new HashSet<>(ids(indexedProvider.query(query, context))), "query " + i);
+        }
+    }
+
+    @Test
+    void deletes_shouldCompactAndRenumberWithoutLosingExperiences() {
+        IndexedExperienceRepository indexed = new IndexedExperienceRepository();
+        List<Experience> kept = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Experience experience = new Experience(ExperienceType.CODE, "title " + i, "content " + i, ExperienceScope.GLOBAL);
+            indexed.save(experience);
+            if (i % 10 == 0) {
+                kept.add(experience);
+            }
+        }
+        Set<String> keptIds = kept.stream().map(Experience::getId).collect(Collectors.toSet());
+        for (Experience experience : indexed.findByTypeAndScope(null, null, null, null)) {
+            if (!keptIds.contains(experience.getId())) {
+                assertTrue(indexed.deleteById(experience.getId()));
+            }
+        }
+
+        assertEquals(kept.size(), indexed.count());
+        assertEquals(keptIds, new HashSet<>(ids(indexed.findByTypeAndScope(ExperienceType.CODE, ExperienceScope.GLOBAL, null, null))));
+        assertTrue(ids(indexed.findCandidates(null, null, null, null, null, null, "content 10")).contains(kept.get(1).getId()));
+    }
+
+    private static void saveBoth(ExperienceRepository reference, ExperienceRepository indexed, Experience experience) {
+        // 两个仓库共享同一对象，索引中冻结的 updatedAt 即对象最终的 updatedAt
+        reference.save(experience);
+        indexed.save(experience);
+    }
+
+    private Experience randomExperience() {
+        Experience experience = new Experience(
+                ExperienceType.values()[random.nextInt(ExperienceType.values().length)],
+                WORDS[random.nextInt(WORDS.length)],
+                randomText(),
+                ExperienceScope.values()[random.nextInt(ExperienceScope.values().length)]);
+        experience.setOwnerId(OWNERS[random.nextInt(OWNERS.length)]);
+        experience.setProjectId(PROJECTS[random.nextInt(PROJECTS.length)]);
+        experience.setLanguage(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            experience.addTag(TAGS[random.nextInt(TAGS.length)]);
+        }
+        return experience;
+    }
+
+    private String randomText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    @SafeVarargs
+    private static <T> List<T> withNull(T... values) {
+        List<T> list = new ArrayList<>();
+        list.add(null);
+        list.addAll(List.of(values));
+        return list;
+    }
+
+    private static List<String> ids(List<Experience> experiences) {
+        return experiences.stream().map(Experience::getId).toList();
+    }
+
+    private static List<Instant> updatedAts(List<Experience> experiences) {
+        return experiences.stream().map(Experience::getUpdatedAt).toList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.alibaba.assistant.agent.extension.experience.internal;
+
+import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQuery;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceQueryContext;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedExperienceRepositoryTest {
+
+    private static final String[] OWNERS = {null, "alice", "bob", "carol"};
+    private static final String[] PROJECTS = {null, "p1", "p2"};
+    private static final String[] WORDS = {"connection", "timeout", "retry", "数据库连接", "重试策略", "缓存击穿"};
+
+    private final Random random = new Random(7);
+
+    @Test
+    void findByTypeAndScope_shouldMatchInMemoryRepository_underSavesMovesAndDeletes() {
+        InMemoryExperienceRepository reference = new InMemoryExperienceRepository();
+        ShardedExperienceRepository sharded = new ShardedExperienceRepository();
+        List<String> ids = new ArrayList<>();
+
+        for (int round = 0; round < 3000; round++) {
+            int op = random.nextInt(10);
+            if (op < 6 || ids.isEmpty()) {
+                Experience experience = randomExperience(OWNERS, PROJECTS);
+                ids.add(experience.getId());
+                saveBoth(reference, sharded, experience);
+            } else if (op < 8) {
+                // 修改租户或范围后重新保存，经验应迁移到新分片
+                Experience experience = reference.findById(ids.get(random.nextInt(ids.size()))).orElseThrow();
+                experience.setScope(ExperienceScope.values()[random.nextInt(ExperienceScope.values().length)]);
+                experience.setOwnerId(OWNERS[random.nextInt(OWNERS.length)]);
+                experience.setProjectId(PROJECTS[random.nextInt(PROJECTS.length)]);
+                saveBoth(reference, sharded, experience);
+            } else {
+                String id = ids.remove(random.nextInt(ids.size()));
+                assertEquals(reference.deleteById(id), sharded.deleteById(id));
+                assertTrue(sharded.findById(id).isEmpty());
+            }
+        }
+
+        assertEquals(reference.count(), sharded.count());
+        for (ExperienceType type : withNull(ExperienceType.values())) {
+            for (ExperienceScope scope : withNull(ExperienceScope.values())) {
+                assertEquals(reference.countByTypeAndScope(type, scope), sharded.countByTypeAndScope(type, scope));
+                for (String owner : OWNERS) {
+                    for (String project : PROJECTS) {
+                        List<Experience> expected = reference.findByTypeAndScope(type, scope, owner, project);
+                        List<Experience> actual = sharded.findByTypeAndScope(type, scope, owner, project);
+                        // updatedAt 相同的经验之间顺序不做要求
+                        assertEquals(new HashSet<>(ids(expected)), new HashSet<>(ids(actual)), type + "/" + scope + "/" + owner + "/" + project);
+                        assertEquals(updatedAts(expected), updatedAts(actual));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void provider_shouldNeverReturnOtherTenantsExperiences() {
+        String[] tenants = new String[1000];
+        String[] projects = new String[1000];
+        for (int i = 0; i < tenants.length; i++) {
+            tenants[i] = "user" + i;
+            projects[i] = "project" + i;
+        }
+        ShardedExperienceRepository sharded = new ShardedExperienceRepository();
+        for (int i = 0; i < 20_000; i++) {
+            sharded.save(randomExperience(tenants, projects));
+        }
+        assertTrue(sharded.shardCount() > 1000);
+        InMemoryExperienceProvider provider = new InMemoryExperienceProvider(sharded);
+
+        for (int i = 0; i < tenants.length; i++) {
+            ExperienceQueryContext context = new ExperienceQueryContext();
+            context.setUserId(tenants[i]);
+            context.setProjectId(random.nextBoolean() ? projects[i] : null);
+            ExperienceQuery query = new ExperienceQuery(ExperienceType.values()[random.nextInt(ExperienceType.values().length)]);
+            query.setLimit(Integer.MAX_VALUE);
+            if (random.nextBoolean()) {
+                query.setText(WORDS[random.nextInt(WORDS.length)]);
+            }
+
+            List<Experience> results = provider.query(query, context);
+            for (Experience experience : results) {
+                switch (experience.getScope()) {
+                    case USER, TEAM -> assertEquals(tenants[i], experience.getOwnerId());
+                    case PROJECT -> assertEquals(context.getProjectId(), experience.getProjectId());
+                    case GLOBAL -> {
+                    }
+                }
+                if (experience.getScope() != ExperienceScope.GLOBAL && context.getProjectId() != null) {
+                    assertEquals(context.getProjectId(), experience.getProjectId());
+                }
+            }
+            if (context.getProjectId() == null) {
+                assertFalse(results.stream().anyMatch(e -> e.getScope() == ExperienceScope.PROJECT));
+            }
+        }
+    }
+
+    @Test
+    void parallelScopeQuery_shouldMatchSequentialQuery() {
+        ShardedExperienceRepository sharded = new ShardedExperienceRepository();
+        for (int i = 0; i < 3000; i++) {
+            sharded.save(randomExperience(OWNERS, PROJECTS));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            InMemoryExperienceProvider sequential = new InMemoryExperienceProvider(sharded);
+            InMemoryExperienceProvider parallel = new InMemoryExperienceProvider(sharded, new Bm25ExperienceScorer(),
+                    null, null, new ExperienceExtensionProperties.VectorConfig(), null, executor);
+
+            for (int i = 0; i < 300; i++) {
+                ExperienceQuery query = new ExperienceQuery(ExperienceType.values()[random.nextInt(ExperienceType.values().length)]);
+                query.setLimit(1 + random.nextInt(20));
+                if (random.nextBoolean()) {
+                    query.setText(WORDS[random.nextInt(WORDS.length)]);
+                }
+                ExperienceQueryContext context = new ExperienceQueryContext();
+                context.setUserId(OWNERS[1 + random.nextInt(OWNERS.length - 1)]);
+                context.setProjectId(PROJECTS[random.nextInt(PROJECTS.length)]);
+
+                assertEquals(ids(sequential.query(query, context)), ids(parallel.query(query, context)), "query " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Experience randomExperience(String[] owners, String[] projects) {
+        Experience experience = new Experience(ExperienceType.values()[random.nextInt(ExperienceType.values().length)],
+                WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                ExperienceScope.values()[random.nextInt(ExperienceScope.values().length)]);
+        experience.setOwnerId(owners[random.nextInt(owners.length)]);
+        experience.setProjectId(random.nextInt(3) == 0 ? null : projects[random.nextInt(projects.length)]);
+        return experience;
+    }
+
+    private static void saveBoth(InMemoryExperienceRepository reference, ShardedExperienceRepository sharded,
+                                 Experience experience) {
+        reference.save(experience);
+        sharded.save(experience);
+    }
+
+    private static <T> List<T> withNull(T[] values) {
+        List<T> list = new ArrayList<>();
+        list.add(null);
+        list.addAll(List.of(values));
+        return list;
+    }
+
+    private static List<String> ids(List<Experience> experiences) {
+        return experiences.stream().map(Experience::getId).toList();
+    }
+
+    private static List<Instant> updatedAts(List<Experience> experiences) {
+        return experiences.stream().map(Experience::getUpdatedAt).toList();
+    }
+}
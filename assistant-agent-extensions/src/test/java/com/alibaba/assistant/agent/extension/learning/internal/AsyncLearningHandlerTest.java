@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLearningHandlerTest {
+
+	@Test
+	void discardOldest_shouldDropQueuedTaskAndRunNewOne() throws Exception {
+		AsyncLearningHandler handler = new AsyncLearningHandler(1, 1, "discard-oldest");
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			CompletableFuture<String> running = handler.executeAsync(() -> {
+				release.await();
+				return "running";
+			});
+			CompletableFuture<String> oldest = handler.executeAsync(() -> "oldest");
+			CompletableFuture<String> newest = handler.executeAsync(() -> "newest");
+
+			assertRejected(oldest);
+			release.countDown();
+			assertEquals("running", running.get(2, TimeUnit.SECONDS));
+			assertEquals("newest", newest.get(2, TimeUnit.SECONDS));
+		}
+		finally {
+			release.countDown();
+			handler.shutdown();
+		}
+	}
+
+	@Test
+	void discard_shouldDropNewTaskWithoutBlockingCaller() throws Exception {
+		AsyncLearningHandler handler = new AsyncLearningHandler(1, 1, "discard");
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			CompletableFuture<String> running = handler.executeAsync(() -> {
+				release.await();
+				return "running";
+			});
+			CompletableFuture<String> queued = handler.executeAsync(() -> "queued");
+			CompletableFuture<String> dropped = handler.executeAsync(() -> "dropped");
+
+			assertRejected(dropped);
+			release.countDown();
+			assertEquals("running", running.get(2, TimeUnit.SECONDS));
+			assertEquals("queued", queued.get(2, TimeUnit.SECONDS));
+		}
+		finally {
+			release.countDown();
+			handler.shutdown();
+		}
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) {
+		assertTrue(future.isDone(), "dropped task should fail its future immediately");
+		ExecutionException e = assertThrows(ExecutionException.class, future::get);
+		assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.core.model.ExecutionRecord;
+import com.alibaba.assistant.agent.extension.experience.internal.InMemoryExperienceRepository;
+import com.alibaba.assistant.agent.extension.experience.model.Experience;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceScope;
+import com.alibaba.assistant.agent.extension.experience.model.ExperienceType;
+import com.alibaba.assistant.agent.extension.learning.extractor.ExperienceLearningExtractor;
+import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTriggerSource;
+import com.alibaba.assistant.agent.extension.learning.model.ToolCallRecord;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LearningCandidateScorerTest {
+
+	private static final String EXPORT_CODE = """
+			def export_orders(orders, path):
+			    workbook = openpyxl.Workbook()
+			    sheet = workbook.active
+			    sheet.append(["order_id", "customer", "amount", "created_at"])
+			    for order in orders:
+			        sheet.append([order.id, order.customer, order.amount, order.created_at.isoformat()])
+			    workbook.save(path)
+			    return path
+			""";
+
+	@Test
+	void preFilter_shouldSkipModelCallsWithoutLosingWorthyContexts() {
+		InMemoryExperienceRepository repository = new InMemoryExperienceRepository();
+		repository.save(new Experience(ExperienceType.CODE, "导出订单到Excel表格",
+				"导出订单到Excel表格\n" + EXPORT_CODE, ExperienceScope.GLOBAL));
+		List<Fixture> fixtures = fixtures();
+
+		OracleChatModel baselineModel = new OracleChatModel();
+		ExperienceLearningExtractor baseline = new ExperienceLearningExtractor(baselineModel);
+		for (Fixture fixture : fixtures) {
+			assertEquals(fixture.worthLearning(), baseline.shouldLearn(fixture.context()), fixture.name());
+		}
+		assertEquals(fixtures.size(), baselineModel.calls.get());
+
+		OracleChatModel model = new OracleChatModel();
+		LearningCandidateScorer scorer = new LearningCandidateScorer(repository, 0.2, 0, () -> 1.0);
+		ExperienceLearningExtractor filtered = new ExperienceLearningExtractor(model, scorer);
+		int truePositive = 0;
+		int falsePositive = 0;
+		int falseNegative = 0;
+		for (Fixture fixture : fixtures) {
+			boolean passed = scorer.score(fixture.context(), state(fixture)) >= scorer.getThreshold();
+			truePositive += passed && fixture.worthLearning() ? 1 : 0;
+			falsePositive += passed && !fixture.worthLearning() ? 1 : 0;
+			falseNegative += !passed && fixture.worthLearning() ? 1 : 0;
+			filtered.shouldLearn(fixture.context());
+		}
+
+		double precision = (double) truePositive / (truePositive + falsePositive);
+		double recall = (double) truePositive / (truePositive + falseNegative);
+		assertTrue(precision >= 0.99, "precision=" + precision);
+		assertTrue(recall >= 0.8, "recall=" + recall);
+		// 只有通过过滤的上下文调用了模型
+		assertEquals(truePositive + falsePositive, model.calls.get());
+		assertEquals(fixtures.size() - model.calls.get(), scorer.getSkippedCount());
+		assertTrue(model.calls.get() <= fixtures.size() / 2 + 1, "calls=" + model.calls.get());
+	}
+
+	@Test
+	void calibration_shouldSampleLowScoresAndCountMisses() {
+		OracleChatModel model = new OracleChatModel();
+		LearningCandidateScorer scorer = new LearningCandidateScorer(null, 0.2, 0.25, new Random(42)::nextDouble);
+		ExperienceLearningExtractor extractor = new ExperienceLearningExtractor(model, scorer);
+
+		int worthy = 0;
+		for (int i = 0; i < 200; i++) {
+			// 低分但值得学习的上下文：单次成功的工具调用、极短对话
+			boolean worth = i % 4 == 0;
+			Fixture fixture = worth ? quickFix("#P 第" + i + "次清理缓存")
+					: chat("#N 你好" + i, List.of("用户: 你好", "助手: 你好，有什么可以帮你？"));
+			worthy += worth ? 1 : 0;
+			boolean learned = extractor.shouldLearn(fixture.context());
+			assertTrue(!learned || worth);
+		}
+
+		assertEquals(200, scorer.getScoredCount());
+		assertEquals(scorer.getCalibrationCount(), model.calls.get());
+		assertEquals(200, scorer.getCalibrationCount() + scorer.getSkippedCount());
+		assertTrue(scorer.getCalibrationCount() >= 30 && scorer.getCalibrationCount() <= 70,
+				"samples=" + scorer.getCalibrationCount());
+		// 抽样中LLM判断为值得学习的比例接近真实的漏判率
+		double missRate = (double) scorer.getCalibrationMissCount() / scorer.getCalibrationCount();
+		assertTrue(Math.abs(missRate - (double) worthy / 200) < 0.15, "missRate=" + missRate);
+	}
+
+	@Test
+	void novelty_shouldBeSkippedWhenRepositoryDoesNotTrackGeneration() {
+		AtomicInteger scans = new AtomicInteger();
+		InMemoryExperienceRepository repository = new InMemoryExperienceRepository() {
+			@Override
+			public List<Experience> findByTypeAndScope(ExperienceType type, ExperienceScope scope, String ownerId,
+					String projectId) {
+				scans.incrementAndGet();
+				return super.findByTypeAndScope(type, scope, ownerId, projectId);
+			}
+
+			@Override
+			public long generation() {
+				return -1;
+			}
+		};
+		repository.save(new Experience(ExperienceType.CODE, "导出订单到Excel表格",
+				"导出订单到Excel表格\n" + EXPORT_CODE, ExperienceScope.GLOBAL));
+		Fixture duplicate = run("#N 导出订单到Excel表格", EXPORT_CODE, List.of(true), List.of(tool("file_writer", true)));
+
+		LearningCandidateScorer untracked = new LearningCandidateScorer(repository, 0.2, 0, () -> 1.0);
+		LearningCandidateScorer withoutRepository = new LearningCandidateScorer(null, 0.2, 0, () -> 1.0);
+		for (int i = 0; i < 5; i++) {
+			// 不列出全量经验，新颖度按1计算
+			assertEquals(withoutRepository.score(duplicate.context(), state(duplicate)),
+					untracked.score(duplicate.context(), state(duplicate)), 1e-9);
+		}
+		assertEquals(0, scans.get());
+	}
+
+	private static List<Fixture> fixtures() {
+		List<Fixture> fixtures = new ArrayList<>();
+		fixtures.add(run("#P 批量重命名日志文件", "import os\n" + "for name in os.listdir(root):\n    os.rename(name, prefix + name)\n".repeat(8),
+				List.of(true, true), List.of(tool("file_list", true), tool("file_rename", true))));
+		fixtures.add(run("#P 统计接口延迟的P99", "latencies.sort()\np99 = latencies[int(len(latencies) * 0.99)]\n".repeat(6),
+				List.of(true, true, true), List.of()));
+		fixtures.add(run("#P 同步三个仓库的配置", null, List.of(),
+				List.of(tool("git_pull", true), tool("config_diff", true), tool("config_apply", true))));
+		fixtures.add(chat("#P 设计订单表分区方案",
+				List.of("用户: 订单表已经有两亿行，查询越来越慢，怎么做分区？",
+						"助手: " + "按月对 created_at 做范围分区，冷数据归档到历史表，热点查询走覆盖索引。".repeat(40))));
+		fixtures.add(run("#P 修复时区换算错误", "return dt.astimezone(ZoneInfo('Asia/Shanghai'))\n".repeat(10),
+				List.of(false, true), List.of(tool("run_tests", true))));
+		fixtures.add(quickFix("#P 清理过期缓存"));
+		fixtures.add(chat("#N 你好", List.of("用户: 你好", "助手: 你好，有什么可以帮你？")));
+		fixtures.add(chat("#N 谢谢", List.of("用户: 谢谢", "助手: 不客气")));
+		fixtures.add(run("#N 部署到生产环境", "subprocess.run(['kubectl', 'apply', '-f', 'deploy.yaml'])\n".repeat(10),
+				List.of(false, false), List.of(tool("kubectl", false))));
+		fixtures.add(run("#N 取消刚才的任务", null, List.of(), List.of(tool("task_cancel", false))));
+		fixtures.add(run("#N 导出订单到Excel表格", EXPORT_CODE, List.of(true), List.of(tool("file_writer", true))));
+		fixtures.add(chat("#N 在吗", List.of("用户: 在吗")));
+		return fixtures;
+	}
+
+	private static Fixture run(String input, String code, List<Boolean> executions, List<ToolCallRecord> toolCalls) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("input", input);
+		if (code != null) {
+			data.put("generated_codes", List.of(code));
+		}
+		if (!executions.isEmpty()) {
+			List<ExecutionRecord> history = new ArrayList<>();
+			for (Boolean success : executions) {
+				ExecutionRecord record = new ExecutionRecord();
+				record.setFunctionName("main");
+				record.setSuccess(success);
+				history.add(record);
+			}
+			data.put("execution_history", history);
+		}
+		LearningContext context = LearningContext.builder()
+			.overAllState(new OverAllState(data))
+			.conversationHistory(List.of("用户: " + input, "助手: 已处理"))
+			.toolCallRecords(toolCalls)
+			.triggerSource(LearningTriggerSource.AFTER_AGENT)
+			.build();
+		return new Fixture(input, context, input.startsWith("#P"));
+	}
+
+	private static Fixture chat(String input, List<Object> conversation) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("input", input);
+		LearningContext context = LearningContext.builder()
+			.overAllState(new OverAllState(data))
+			.conversationHistory(conversation)
+			.triggerSource(LearningTriggerSource.AFTER_AGENT)
+			.build();
+		return new Fixture(input, context, input.startsWith("#P"));
+	}
+
+	/**
+	 * 值得学习但信号很弱的上下文，过滤器会漏判
+	 */
+	private static Fixture quickFix(String input) {
+		return run(input, null, List.of(), List.of(tool("cache_clear", true)));
+	}
+
+	private static ToolCallRecord tool(String name, boolean success) {
+		ToolCallRecord record = new ToolCallRecord(name, Map.of());
+		record.setSuccess(success);
+		return record;
+	}
+
+	private static OverAllState state(Fixture fixture) {
+		return (OverAllState) fixture.context().getOverAllState();
+	}
+
+	private record Fixture(String name, LearningContext context, boolean worthLearning) {
+	}
+
+	/**
+	 * 按输入中的标签回答的判断模型：#P 回答 YES，#N 回答 NO
+	 */
+	private static final class OracleChatModel implements ChatModel {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public ChatResponse call(Prompt prompt) {
+			calls.incrementAndGet();
+			String user = prompt.getInstructions().get(1).getText();
+			String answer = user.contains("#P") ? "YES" : "NO";
+			return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content(answer).build())));
+		}
+
+	}
+
+}
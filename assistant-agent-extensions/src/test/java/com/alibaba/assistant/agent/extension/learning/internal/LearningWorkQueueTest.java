@@ -0,0 +1,285 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
+import com.alibaba.assistant.agent.extension.learning.model.LearningResult;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTask;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTaskMetadata;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTriggerSource;
+import com.alibaba.assistant.agent.extension.learning.model.ToolCallRecord;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LearningWorkQueueTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void recovery_shouldReplayUnacknowledgedTasksAfterCrash() throws Exception {
+		Path live = tempDir.resolve("live");
+		List<LearningTask> tasks = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			tasks.add(task(i));
+		}
+
+		CountDownLatch twoDone = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		LearningWorkQueue queue = new LearningWorkQueue(live, 1, 100, LearningWorkQueue.OverflowPolicy.DEFER, 3, 0,
+				Long.MAX_VALUE);
+		try {
+			for (LearningTask task : tasks) {
+				queue.submit(task);
+			}
+			queue.start(task -> {
+				if (twoDone.getCount() == 0) {
+					await(release);
+				}
+				twoDone.countDown();
+				return success(task);
+			});
+			assertTrue(twoDone.await(10, TimeUnit.SECONDS));
+			waitUntil(() -> queue.size() == 3);
+
+			// 第三个任务执行中进程被杀：取此刻的日志副本，并模拟写了一半的尾部
+			Path crashed = Files.createDirectories(tempDir.resolve("crashed"));
+			Path journal = crashed.resolve(LearningWorkQueue.JOURNAL_FILE);
+			Files.copy(live.resolve(LearningWorkQueue.JOURNAL_FILE), journal);
+			try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.APPEND)) {
+				channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 1, 0, 7, 7 }));
+			}
+			long tornSize = Files.size(journal);
+
+			List<LearningTask> replayed = new CopyOnWriteArrayList<>();
+			LearningWorkQueue recovered = new LearningWorkQueue(crashed, 1, 100,
+					LearningWorkQueue.OverflowPolicy.DEFER, 3, 0, Long.MAX_VALUE);
+			assertEquals(tornSize - 6, Files.size(journal));
+			assertEquals(3, recovered.size());
+
+			// 幂等键：恢复中的任务返回同一个 Future，已确认的任务不再执行
+			CompletableFuture<LearningResult> pending = recovered.submit(tasks.get(3));
+			assertSame(pending, recovered.submit(tasks.get(3)));
+			assertTrue(recovered.submit(tasks.get(0)).get().isSuccess());
+
+			recovered.start(task -> {
+				replayed.add(task);
+				return success(task);
+			});
+			assertTrue(pending.get(10, TimeUnit.SECONDS).isSuccess());
+			waitUntil(() -> recovered.size() == 0);
+			recovered.close();
+
+			assertEquals(List.of(tasks.get(2).getId(), tasks.get(3).getId(), tasks.get(4).getId()),
+					replayed.stream().map(LearningTask::getId).toList());
+			LearningTask snapshot = replayed.get(1);
+			assertEquals("experience", snapshot.getLearningType());
+			assertEquals(LearningTriggerSource.AFTER_AGENT, snapshot.getTriggerSource());
+			OverAllState state = (OverAllState) snapshot.getContext().getOverAllState();
+			assertEquals("需求 3", state.value("input", String.class).orElse(null));
+			assertEquals(List.of("用户: 需求 3", "助手: 完成"), snapshot.getContext().getConversationHistory());
+			assertEquals("file_writer", snapshot.getContext().getToolCallRecords().get(0).getToolName());
+
+			// 全部确认后再次打开没有待执行的任务
+			LearningWorkQueue reopened = new LearningWorkQueue(crashed, 1, 100, LearningWorkQueue.OverflowPolicy.DEFER,
+					3, 0, Long.MAX_VALUE);
+			assertEquals(0, reopened.size());
+			reopened.close();
+		}
+		finally {
+			release.countDown();
+			queue.close();
+		}
+	}
+
+	@Test
+	void overload_shouldDeferToJournalWithoutRunningOnCaller() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Set<String> processedOn = ConcurrentHashMap.newKeySet();
+		List<String> processed = new CopyOnWriteArrayList<>();
+		LearningWorkQueue queue = new LearningWorkQueue(tempDir, 1, 4, LearningWorkQueue.OverflowPolicy.DEFER, 3, 200,
+				Long.MAX_VALUE);
+		queue.start(task -> {
+			await(release);
+			processedOn.add(Thread.currentThread().getName());
+			processed.add(task.getId());
+			return success(task);
+		});
+
+		List<CompletableFuture<LearningResult>> futures = new ArrayList<>();
+		long maxSubmitNanos = 0;
+		for (int i = 0; i < 200; i++) {
+			LearningTask task = task(i);
+			long start = System.nanoTime();
+			futures.add(queue.submit(task));
+			maxSubmitNanos = Math.max(maxSubmitNanos, System.nanoTime() - start);
+		}
+
+		// 消费线程被阻塞时提交仍立即返回，超出容量的任务只写入日志
+		assertTrue(maxSubmitNanos < TimeUnit.MILLISECONDS.toNanos(200), "max submit " + maxSubmitNanos + "ns");
+		assertTrue(futures.stream().noneMatch(CompletableFuture::isDone));
+		assertTrue(queue.deferredCount() >= 195);
+
+		release.countDown();
+		for (CompletableFuture<LearningResult> future : futures) {
+			assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+		}
+		queue.close();
+
+		assertEquals(Set.of("learning-queue-0"), processedOn);
+		assertEquals(200, new HashSet<>(processed).size());
+		assertEquals(0, queue.droppedCount());
+	}
+
+	@Test
+	void overload_shouldDropWhenConfigured() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		LearningWorkQueue queue = new LearningWorkQueue(tempDir, 1, 2, LearningWorkQueue.OverflowPolicy.DROP, 3, 200,
+				Long.MAX_VALUE);
+		queue.start(task -> {
+			await(release);
+			return success(task);
+		});
+
+		List<CompletableFuture<LearningResult>> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(queue.submit(task(i)));
+		}
+		long dropped = futures.stream().filter(f -> f.isDone() && !f.join().isSuccess()).count();
+		assertTrue(dropped >= 17, "dropped " + dropped);
+		assertEquals(dropped, queue.droppedCount());
+
+		release.countDown();
+		for (CompletableFuture<LearningResult> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+		queue.close();
+		// 被丢弃的任务没有写入日志，重新打开后不会重放
+		LearningWorkQueue reopened = new LearningWorkQueue(tempDir, 1, 2, LearningWorkQueue.OverflowPolicy.DROP, 3,
+				200, Long.MAX_VALUE);
+		assertEquals(0, reopened.size());
+		reopened.close();
+	}
+
+	@Test
+	void compaction_shouldKeepOnlyUnacknowledgedRecordsInOrder() throws Exception {
+		LearningWorkQueue queue = new LearningWorkQueue(tempDir, 1, 100, LearningWorkQueue.OverflowPolicy.DEFER, 3, 0,
+				1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch tenDone = new CountDownLatch(10);
+		queue.start(task -> {
+			if (tenDone.getCount() == 0) {
+				await(release);
+			}
+			tenDone.countDown();
+			return success(task);
+		});
+		for (int i = 0; i < 15; i++) {
+			queue.submit(task(i));
+		}
+		assertTrue(tenDone.await(10, TimeUnit.SECONDS));
+		waitUntil(() -> queue.size() == 5);
+
+		Path journal = tempDir.resolve(LearningWorkQueue.JOURNAL_FILE);
+		Path copy = Files.createDirectories(tempDir.resolve("copy"));
+		Files.copy(journal, copy.resolve(LearningWorkQueue.JOURNAL_FILE));
+		release.countDown();
+		waitUntil(() -> queue.size() == 0);
+		queue.close();
+		assertEquals(LearningWorkQueue.FILE_HEADER_SIZE, Files.size(journal));
+
+		List<String> replayed = new CopyOnWriteArrayList<>();
+		LearningWorkQueue recovered = new LearningWorkQueue(copy, 1, 100, LearningWorkQueue.OverflowPolicy.DEFER, 3,
+				0, Long.MAX_VALUE);
+		recovered.start(task -> {
+			replayed.add(task.getId());
+			return success(task);
+		});
+		waitUntil(() -> recovered.size() == 0);
+		recovered.close();
+		assertEquals(List.of(task(10).getId(), task(11).getId(), task(12).getId(), task(13).getId(),
+				task(14).getId()), replayed);
+		assertFalse(replayed.contains(task(0).getId()));
+	}
+
+	private static LearningTask task(int i) {
+		Map<String, Object> data = new HashMap<>();
+		data.put("input", "需求 " + i);
+		ToolCallRecord toolCall = new ToolCallRecord("file_writer", Map.of("path", "a.txt"));
+		toolCall.setSuccess(true);
+		LearningContext context = LearningContext.builder()
+			.overAllState(new OverAllState(data))
+			.conversationHistory(List.of("用户: 需求 " + i, "助手: 完成"))
+			.toolCallRecords(List.of(toolCall))
+			.triggerSource(LearningTriggerSource.AFTER_AGENT)
+			.build();
+		LearningTaskMetadata metadata = new LearningTaskMetadata();
+		metadata.setTaskId("task-" + i);
+		return DefaultLearningTask.builder()
+			.learningType("experience")
+			.triggerSource(LearningTriggerSource.AFTER_AGENT)
+			.context(context)
+			.metadata(metadata)
+			.build();
+	}
+
+	private static LearningResult success(LearningTask task) {
+		return LearningResult.builder().taskId(task.getId()).success(true).build();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+			Thread.sleep(5);
+		}
+	}
+
+}
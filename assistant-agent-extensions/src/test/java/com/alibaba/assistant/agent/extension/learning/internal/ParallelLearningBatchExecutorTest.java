@@ -0,0 +1,306 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.extractor.ExperienceLearningExtractor;
+import com.alibaba.assistant.agent.extension.learning.model.LearningContext;
+import com.alibaba.assistant.agent.extension.learning.model.LearningResult;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTask;
+import com.alibaba.assistant.agent.extension.learning.model.LearningTriggerSource;
+import com.alibaba.assistant.agent.extension.learning.spi.LearningExtractor;
+import com.alibaba.assistant.agent.extension.learning.spi.LearningRepository;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelLearningBatchExecutorTest {
+
+	@Test
+	void executeBatch_shouldScaleWithConcurrency() {
+		LatencyChatModel model = new LatencyChatModel(50);
+		List<LearningTask> tasks = tasks(12, -1);
+
+		DefaultLearningExecutor sequential = executor(model, null);
+		long sequentialMs = timed(() -> assertAllLearned(sequential.executeBatch(tasks), tasks));
+
+		try (ParallelLearningBatchExecutor batchExecutor = new ParallelLearningBatchExecutor(6, 10_000)) {
+			DefaultLearningExecutor parallel = executor(model, batchExecutor);
+			model.maxInFlight.set(0);
+			long parallelMs = timed(() -> assertAllLearned(parallel.executeBatch(tasks), tasks));
+
+			// 每个任务两次模型调用（判断 + 提取），12 个任务顺序执行约 1200ms
+			assertTrue(sequentialMs > 3 * parallelMs, "sequential=" + sequentialMs + "ms, parallel=" + parallelMs + "ms");
+			assertTrue(model.maxInFlight.get() <= 6, "maxInFlight=" + model.maxInFlight.get());
+		}
+	}
+
+	@Test
+	void rateLimitedModel_shouldNotExceedBucket() {
+		double permitsPerSecond = 20;
+		int burst = 2;
+		LatencyChatModel model = new LatencyChatModel(5);
+		ChatModel limited = new RateLimitedChatModel(model, new TokenBucketRateLimiter(permitsPerSecond, burst),
+				10_000);
+		List<LearningTask> tasks = tasks(10, -1);
+
+		try (ParallelLearningBatchExecutor batchExecutor = new ParallelLearningBatchExecutor(8, 10_000)) {
+			long elapsedMs = timed(() -> assertAllLearned(executor(limited, batchExecutor).executeBatch(tasks), tasks));
+
+			List<Long> calls = new ArrayList<>(model.callNanos);
+			Collections.sort(calls);
+			assertEquals(20, calls.size());
+			// 任意窗口 t 内的调用数不超过 burst + rate * t（容忍 20ms 调度抖动）
+			for (int i = 0; i < calls.size(); i++) {
+				for (int j = i; j < calls.size(); j++) {
+					double windowSeconds = (calls.get(j) - calls.get(i)) / 1e9 + 0.02;
+					assertTrue(j - i + 1 <= burst + permitsPerSecond * windowSeconds,
+							(j - i + 1) + " calls within " + windowSeconds + "s");
+				}
+			}
+			assertTrue(elapsedMs >= (20 - burst) / permitsPerSecond * 1000 * 0.95, "elapsed=" + elapsedMs + "ms");
+		}
+	}
+
+	@Test
+	void execute_shouldKeepPerItemFailuresInOrder() {
+		LatencyChatModel model = new LatencyChatModel(20);
+		List<LearningTask> tasks = tasks(6, 2);
+
+		try (ParallelLearningBatchExecutor batchExecutor = new ParallelLearningBatchExecutor(3, 300)) {
+			DefaultLearningExecutor executor = executor(model, batchExecutor);
+			AtomicReference<List<LearningResult>> holder = new AtomicReference<>();
+			long elapsedMs = timed(() -> holder.set(batchExecutor.execute(tasks, (task, cancellation) -> {
+				if (task == tasks.get(4)) {
+					throw new IllegalStateException("extractor exploded");
+				}
+				return executor.execute(task);
+			})));
+			List<LearningResult> results = holder.get();
+
+			assertEquals(tasks.size(), results.size());
+			for (int i = 0; i < tasks.size(); i++) {
+				assertEquals(tasks.get(i).getId(), results.get(i).getTaskId());
+			}
+			assertFalse(results.get(2).isSuccess());
+			assertTrue(results.get(2).getFailureReason().contains("timed out"), results.get(2).getFailureReason());
+			assertFalse(results.get(4).isSuccess());
+			assertEquals("extractor exploded", results.get(4).getFailureReason());
+			for (int i : new int[] { 0, 1, 3, 5 }) {
+				assertTrue(results.get(i).isSuccess());
+				assertEquals(1, results.get(i).getRecordCount());
+			}
+			// 超时结果先写入，随后中断挂起的模型调用，整批任务没有被拖住
+			assertTrue(elapsedMs < 2_000, "elapsed=" + elapsedMs + "ms");
+			long deadline = System.currentTimeMillis() + 2_000;
+			while (model.interrupted.get() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.onSpinWait();
+			}
+			assertEquals(1, model.interrupted.get());
+		}
+	}
+
+	@Test
+	void execute_shouldCompleteItem_whenProcessorThrowsError() {
+		LatencyChatModel model = new LatencyChatModel(5);
+		List<LearningTask> tasks = tasks(3, -1);
+
+		// 不设超时：若 Error 没有结束 future，join 会永久阻塞
+		try (ParallelLearningBatchExecutor batchExecutor = new ParallelLearningBatchExecutor(2, 0)) {
+			DefaultLearningExecutor executor = executor(model, batchExecutor);
+			List<LearningResult> results = batchExecutor.execute(tasks, (task, cancellation) -> {
+				if (task == tasks.get(1)) {
+					throw new StackOverflowError("extractor recursed");
+				}
+				return executor.execute(task);
+			});
+
+			assertEquals(tasks.size(), results.size());
+			assertTrue(results.get(0).isSuccess());
+			assertFalse(results.get(1).isSuccess());
+			assertTrue(results.get(2).isSuccess());
+		}
+	}
+
+	@Test
+	void executeBatch_shouldNotPersistTimedOutItems() throws Exception {
+		LatencyChatModel model = new LatencyChatModel(20);
+		List<LearningTask> tasks = tasks(3, -1);
+		tasks.set(1, tasks(1, -1, "stall ").get(0));
+		AtomicInteger saved = new AtomicInteger();
+		InMemoryLearningRepository<Object> repository = new InMemoryLearningRepository<>(Object.class) {
+			@Override
+			public void saveBatch(String namespace, List<Object> records) {
+				saved.addAndGet(records.size());
+				super.saveBatch(namespace, records);
+			}
+		};
+
+		try (ParallelLearningBatchExecutor batchExecutor = new ParallelLearningBatchExecutor(3, 150)) {
+			List<LearningResult> results = executor(model, batchExecutor, repository).executeBatch(tasks);
+
+			assertFalse(results.get(1).isSuccess());
+			assertTrue(results.get(1).getFailureReason().contains("timed out"), results.get(1).getFailureReason());
+			assertTrue(results.get(0).isSuccess());
+			assertTrue(results.get(2).isSuccess());
+			// 不响应中断的提取调用在超时后返回，结果不应再写入仓库
+			Thread.sleep(600);
+			assertEquals(1, model.stalled.get());
+			assertEquals(2, saved.get());
+		}
+	}
+
+	private static DefaultLearningExecutor executor(ChatModel model, ParallelLearningBatchExecutor batchExecutor) {
+		return executor(model, batchExecutor, new InMemoryLearningRepository<>(Object.class));
+	}
+
+	private static DefaultLearningExecutor executor(ChatModel model, ParallelLearningBatchExecutor batchExecutor,
+			LearningRepository<?> repository) {
+		List<LearningExtractor<?>> extractors = List.of(new ExperienceLearningExtractor(model));
+		List<LearningRepository<?>> repositories = List.of(repository);
+		return new DefaultLearningExecutor(extractors, repositories,
+				new DefaultLearningStrategy(extractors, repositories, false), null, null, batchExecutor);
+	}
+
+	/**
+	 * @param hangIndex 该位置任务的模型调用会一直阻塞，-1 表示没有
+	 */
+	private static List<LearningTask> tasks(int count, int hangIndex) {
+		return tasks(count, hangIndex, "");
+	}
+
+	/**
+	 * @param prefix 加在每个任务输入前的标记，"stall " 表示提取调用不响应中断地阻塞一段时间
+	 */
+	private static List<LearningTask> tasks(int count, int hangIndex, String prefix) {
+		List<LearningTask> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> data = new HashMap<>();
+			data.put("input", prefix + (i == hangIndex ? "hang " : "") + "需求 " + i);
+			LearningContext context = LearningContext.builder()
+				.overAllState(new OverAllState(data))
+				.conversationHistory(List.of("用户: 需求 " + i))
+				.triggerSource(LearningTriggerSource.SCHEDULED)
+				.build();
+			tasks.add(DefaultLearningTask.builder()
+				.learningType("experience")
+				.triggerSource(LearningTriggerSource.SCHEDULED)
+				.context(context)
+				.build());
+		}
+		return tasks;
+	}
+
+	private static void assertAllLearned(List<LearningResult> results, List<LearningTask> tasks) {
+		assertEquals(tasks.size(), results.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			assertEquals(tasks.get(i).getId(), results.get(i).getTaskId());
+			assertTrue(results.get(i).isSuccess(), results.get(i).getFailureReason());
+			assertEquals(1, results.get(i).getRecordCount());
+		}
+	}
+
+	private static long timed(Runnable runnable) {
+		long start = System.nanoTime();
+		runnable.run();
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	/**
+	 * 注入固定延迟的模型：判断提示词回答 YES，提取提示词返回一条经验
+	 */
+	private static final class LatencyChatModel implements ChatModel {
+
+		private final long latencyMs;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicInteger maxInFlight = new AtomicInteger();
+
+		private final AtomicInteger interrupted = new AtomicInteger();
+
+		private final AtomicInteger stalled = new AtomicInteger();
+
+		private final List<Long> callNanos = Collections.synchronizedList(new ArrayList<>());
+
+		LatencyChatModel(long latencyMs) {
+			this.latencyMs = latencyMs;
+		}
+
+		@Override
+		public ChatResponse call(Prompt prompt) {
+			callNanos.add(System.nanoTime());
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			String system = prompt.getInstructions().get(0).getText();
+			try {
+				String user = prompt.getInstructions().get(1).getText();
+				if (user.contains("stall") && !system.contains("YES或NO")) {
+					stallUninterruptibly(400);
+					stalled.incrementAndGet();
+				}
+				else {
+					Thread.sleep(user.contains("hang") ? 60_000 : latencyMs);
+				}
+			}
+			catch (InterruptedException e) {
+				interrupted.incrementAndGet();
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("model call interrupted", e);
+			}
+			finally {
+				inFlight.decrementAndGet();
+			}
+			String answer = system.contains("YES或NO") ? "YES"
+					: "[{\"type\":\"COMMON\",\"title\":\"重试\",\"summary\":\"失败时重试\",\"content\":\"指数退避\",\"tags\":[\"retry\"]}]";
+			return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content(answer).build())));
+		}
+
+		/**
+		 * 模拟不响应中断的客户端调用
+		 */
+		private static void stallUninterruptibly(long millis) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+			long remaining;
+			while ((remaining = deadline - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(remaining);
+				}
+				catch (InterruptedException e) {
+					// 忽略中断
+				}
+			}
+		}
+
+	}
+
+}
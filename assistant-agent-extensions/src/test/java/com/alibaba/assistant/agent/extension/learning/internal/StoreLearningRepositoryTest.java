@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.assistant.agent.extension.learning.internal;
+
+import com.alibaba.assistant.agent.extension.learning.model.LearningSearchRequest;
+import com.alibaba.cloud.ai.graph.store.NamespaceListRequest;
+import com.alibaba.cloud.ai.graph.store.Store;
+import com.alibaba.cloud.ai.graph.store.StoreItem;
+import com.alibaba.cloud.ai.graph.store.StoreSearchRequest;
+import com.alibaba.cloud.ai.graph.store.StoreSearchResult;
+import com.alibaba.cloud.ai.graph.store.stores.MemoryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoreLearningRepositoryTest {
+
+	@Test
+	void writeBehind_shouldPreserveOrderAndReadYourWrites() {
+		LatencyStore store = new LatencyStore(0);
+		BatchingStoreWriter writer = new BatchingStoreWriter(store, 1000, 60_000, 1, 10_000);
+		StoreLearningRepository<Lesson> repository = new StoreLearningRepository<>(store, new ObjectMapper(),
+				Lesson.class, writer);
+
+		List<Lesson> batch = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			batch.add(new Lesson("lesson " + i, i));
+		}
+		repository.saveBatch("team/a", batch);
+		repository.save("team/a", "fixed", new Lesson("first", -1));
+		repository.save("team/a", "fixed", new Lesson("second", -2));
+
+		// 尚未写入Store时也能读到最后一次提交的版本
+		assertEquals(0, store.puts.get());
+		assertEquals("second", repository.get("team/a", "fixed").getText());
+
+		repository.flush();
+		List<Integer> written = new ArrayList<>();
+		for (StoreItem item : store.log) {
+			written.add(((Number) item.getValue().get("seq")).intValue());
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			expected.add(i);
+		}
+		expected.add(-2);
+		assertEquals(expected, written, "same-key updates are coalesced, others keep submission order");
+		assertEquals("second", repository.get("team/a", "fixed").getText());
+
+		repository.delete("team/a", "fixed");
+		repository.close();
+		assertEquals(50, store.delegate.size());
+	}
+
+	@Test
+	void writeBehind_shouldKeepLastWriteAcrossConcurrentFlushes() throws Exception {
+		LatencyStore store = new LatencyStore(1);
+		BatchingStoreWriter writer = new BatchingStoreWriter(store, 8, 5, 4, 10_000);
+		StoreLearningRepository<Lesson> repository = new StoreLearningRepository<>(store, new ObjectMapper(),
+				Lesson.class, writer);
+
+		for (int i = 0; i < 300; i++) {
+			repository.save("hot", "k" + (i % 10), new Lesson("v" + i, i));
+			if (i % 37 == 0) {
+				Thread.sleep(3);
+			}
+		}
+		repository.close();
+
+		assertEquals(0, writer.pendingCount());
+		for (int k = 0; k < 10; k++) {
+			Optional<StoreItem> item = store.delegate.getItem(List.of("learning", "hot"), "k" + k);
+			assertTrue(item.isPresent());
+			assertEquals(290 + k, ((Number) item.get().getValue().get("seq")).intValue());
+		}
+		assertTrue(store.puts.get() < 300, "coalescing should skip superseded versions, puts=" + store.puts.get());
+	}
+
+	@Test
+	void writeBehind_shouldRetryFailedWritesAndBeDurableAfterClose() {
+		LatencyStore store = new LatencyStore(0);
+		store.failuresPerKey = 1;
+		BatchingStoreWriter writer = new BatchingStoreWriter(store, 10, 60_000, 2, 10_000);
+		StoreLearningRepository<Lesson> repository = new StoreLearningRepository<>(store, new ObjectMapper(),
+				Lesson.class, writer);
+
+		List<Lesson> batch = new ArrayList<>();
+		for (int i = 0; i < 95; i++) {
+			batch.add(new Lesson("lesson " + i, i));
+		}
+		repository.saveBatch("flaky", batch);
+		repository.close();
+
+		assertEquals(95, store.delegate.size());
+		assertEquals(0, writer.pendingCount());
+	}
+
+	@Test
+	void writeBehind_shouldFlushAllNamespacesUnderBackpressureAndReportDrops() {
+		LatencyStore store = new LatencyStore(0);
+		BatchingStoreWriter writer = new BatchingStoreWriter(store, 4, 60_000, 1, 4);
+
+		for (int i = 0; i < 3; i++) {
+			writer.put(StoreItem.of(List.of("learning", "a"), "k" + i, Map.of("seq", i)));
+		}
+		writer.put(StoreItem.of(List.of("learning", "b"), "k0", Map.of("seq", 0)));
+		// 达到全局上限时刷新所有命名空间，而不只是提交者所在的命名空间
+		assertEquals(0, writer.pendingCount());
+		assertEquals(4, store.delegate.size());
+
+		// 只在缓冲中的条目被删除时返回true
+		writer.put(StoreItem.of(List.of("learning", "c"), "buffered", Map.of("seq", 1)));
+		assertTrue(writer.delete(List.of("learning", "c"), "buffered"));
+		assertFalse(writer.delete(List.of("learning", "c"), "buffered"));
+
+		store.failuresPerKey = 10;
+		writer.put(StoreItem.of(List.of("learning", "c"), "doomed", Map.of("seq", 2)));
+		writer.close();
+		assertEquals(1, writer.droppedCount());
+		assertEquals(0, writer.pendingCount());
+
+		// 关闭后提交的条目同步写入，不会因刷新线程已停止而失败
+		store.failuresPerKey = 0;
+		writer.put(StoreItem.of(List.of("learning", "c"), "late", Map.of("seq", 3)));
+		assertTrue(store.delegate.getItem(List.of("learning", "c"), "late").isPresent());
+	}
+
+	@Test
+	void writeBehind_shouldImproveThroughputWithSlowStore() {
+		int records = 400;
+		List<Lesson> batch = new ArrayList<>();
+		for (int i = 0; i < records; i++) {
+			batch.add(new Lesson("lesson " + i, i));
+		}
+
+		LatencyStore syncStore = new LatencyStore(2);
+		StoreLearningRepository<Lesson> sync = new StoreLearningRepository<>(syncStore, new ObjectMapper(), Lesson.class);
+		long start = System.nanoTime();
+		sync.saveBatch("perf", batch);
+		long syncNanos = System.nanoTime() - start;
+
+		LatencyStore bufferedStore = new LatencyStore(2);
+		StoreLearningRepository<Lesson> buffered = new StoreLearningRepository<>(bufferedStore, new ObjectMapper(),
+				Lesson.class, new BatchingStoreWriter(bufferedStore, 100, 50, 8, 10_000));
+		start = System.nanoTime();
+		buffered.saveBatch("perf", batch);
+		long callerNanos = System.nanoTime() - start;
+		buffered.close();
+		long durableNanos = System.nanoTime() - start;
+
+		assertEquals(records, syncStore.delegate.size());
+		assertEquals(records, bufferedStore.delegate.size());
+		assertTrue(callerNanos < syncNanos / 10, "caller " + callerNanos + " vs sync " + syncNanos);
+		assertTrue(durableNanos < syncNanos / 2, "durable " + durableNanos + " vs sync " + syncNanos);
+	}
+
+	@Test
+	void search_shouldFlushNamespaceFirst() {
+		LatencyStore store = new LatencyStore(0);
+		StoreLearningRepository<Lesson> repository = new StoreLearningRepository<>(store, new ObjectMapper(),
+				Lesson.class, new BatchingStoreWriter(store, 1000, 60_000, 1, 10_000));
+		repository.saveBatch("s", List.of(new Lesson("a", 1), new Lesson("b", 2)));
+		repository.saveBatch("other", List.of(new Lesson("c", 3)));
+		assertEquals(0, store.puts.get());
+
+		LearningSearchRequest request = new LearningSearchRequest();
+		request.setNamespace("s");
+		request.setLimit(10);
+		repository.search(request);
+
+		assertEquals(2, store.puts.get());
+		repository.close();
+		assertEquals(3, store.puts.get());
+	}
+
+	public static class Lesson {
+
+		private String text;
+
+		private int seq;
+
+		public Lesson() {
+		}
+
+		Lesson(String text, int seq) {
+			this.text = text;
+			this.seq = seq;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public void setText(String text) {
+			this.text = text;
+		}
+
+		public int getSeq() {
+			return seq;
+		}
+
+		public void setSeq(int seq) {
+			this.seq = seq;
+		}
+
+	}
+
+	/**
+	 * 为每次写入注入固定延迟，并记录写入顺序的内存Store
+	 */
+	private static final class LatencyStore implements Store {
+
+		private final MemoryStore delegate = new MemoryStore();
+
+		private final long putLatencyMs;
+
+		private final AtomicInteger puts = new AtomicInteger();
+
+		private final List<StoreItem> log = Collections.synchronizedList(new ArrayList<>());
+
+		private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+		private volatile int failuresPerKey;
+
+		LatencyStore(long putLatencyMs) {
+			this.putLatencyMs = putLatencyMs;
+		}
+
+		@Override
+		public void putItem(StoreItem item) {
+			if (putLatencyMs > 0) {
+				try {
+					Thread.sleep(putLatencyMs);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failures.computeIfAbsent(item.getKey(), k -> new AtomicInteger()).getAndIncrement() < failuresPerKey) {
+				throw new IllegalStateException("injected failure");
+			}
+			puts.incrementAndGet();
+			log.add(item);
+			delegate.putItem(item);
+		}
+
+		@Override
+		public Optional<StoreItem> getItem(List<String> namespace, String key) {
+			return delegate.getItem(namespace, key);
+		}
+
+		@Override
+		public boolean deleteItem(List<String> namespace, String key) {
+			return delegate.deleteItem(namespace, key);
+		}
+
+		@Override
+		public StoreSearchResult searchItems(StoreSearchRequest request) {
+			return delegate.searchItems(request);
+		}
+
+		@Override
+		public List<String> listNamespaces(NamespaceListRequest request) {
+			return delegate.listNamespaces(request);
+		}
+
+		@Override
+		public void clear() {
+			delegate.clear();
+		}
+
+		@Override
+		public long size() {
+			return delegate.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return delegate.isEmpty();
+		}
+
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultSearchFacadeTest {
+
+	private final List<ParallelSearchOrchestrator> orchestrators = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		orchestrators.forEach(ParallelSearchOrchestrator::close);
+	}
+
+	@Test
+	void unifiedSearch_shouldTakeMaxNotSumOfProviderLatencies() {
+		DefaultSearchFacade facade = facade(8, 5000,
+				new DelayedSearchProvider(SearchSourceType.PROJECT, 300, 0.9),
+				new DelayedSearchProvider(SearchSourceType.KNOWLEDGE, 300, 0.8),
+				new DelayedSearchProvider(SearchSourceType.WEB, 300, 0.7));
+
+		long start = System.currentTimeMillis();
+		SearchResultSet resultSet = facade.unifiedSearch(request(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE,
+				SearchSourceType.WEB));
+		long elapsed = System.currentTimeMillis() - start;
+
+		// 顺序调用需要900ms以上
+		assertTrue(elapsed < 600, "elapsed " + elapsed);
+		assertEquals(6, resultSet.getTotalCount());
+		assertEquals(EnumSet.of(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE, SearchSourceType.WEB),
+				resultSet.getUsedSources());
+		assertEquals(false, resultSet.getMetadata().get("partial"));
+		assertEquals(0.9, resultSet.getItems().get(0).getScore());
+	}
+
+	@Test
+	void unifiedSearch_shouldReturnPartialResults_whenProviderMissesItsDeadline() {
+		DelayedSearchProvider slow = new DelayedSearchProvider(SearchSourceType.WEB, 3000, 0.99);
+		DefaultSearchFacade facade = facade(8, 5000,
+				new DelayedSearchProvider(SearchSourceType.PROJECT, 50, 0.5),
+				slow,
+				new FailingSearchProvider(SearchSourceType.KNOWLEDGE));
+		SearchRequest request = request(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE, SearchSourceType.WEB,
+				SearchSourceType.CUSTOM);
+		request.getPerSourceTimeoutMs().put(SearchSourceType.WEB, 200L);
+
+		long start = System.currentTimeMillis();
+		SearchResultSet resultSet = facade.unifiedSearch(request);
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue(elapsed < 1000, "elapsed " + elapsed);
+		assertEquals(EnumSet.of(SearchSourceType.PROJECT), resultSet.getUsedSources());
+		assertEquals(true, resultSet.getMetadata().get("partial"));
+
+		Map<String, SearchSourceStatus> statuses = statuses(resultSet);
+		assertEquals(SearchSourceStatus.State.SUCCESS, statuses.get("PROJECT").getState());
+		assertEquals(2, statuses.get("PROJECT").getResultCount());
+		assertEquals(SearchSourceStatus.State.TIMEOUT, statuses.get("WEB").getState());
+		assertEquals(SearchSourceStatus.State.FAILED, statuses.get("KNOWLEDGE").getState());
+		assertEquals(SearchSourceStatus.State.NO_PROVIDER, statuses.get("CUSTOM").getState());
+		assertTrue(statuses.get("WEB").getDurationMs() >= 200);
+		// 超时的调用被取消，不会继续占用线程
+		assertTrue(slow.awaitInterrupted(), "slow provider should be interrupted");
+	}
+
+	@Test
+	void unifiedSearch_shouldHonourGlobalDeadlineAndRejectWhenSaturated() {
+		DefaultSearchFacade facade = facade(1, 1000,
+				new DelayedSearchProvider(SearchSourceType.PROJECT, 2000, 0.5),
+				new DelayedSearchProvider(SearchSourceType.KNOWLEDGE, 2000, 0.5),
+				new DelayedSearchProvider(SearchSourceType.WEB, 10, 0.5));
+		SearchRequest request = request(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE, SearchSourceType.WEB);
+		request.setTimeoutMs(300);
+
+		long start = System.currentTimeMillis();
+		SearchResultSet resultSet = facade.unifiedSearch(request);
+		long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue(elapsed < 1000, "elapsed " + elapsed);
+		Map<String, SearchSourceStatus> statuses = statuses(resultSet);
+		// 单线程、队列长度1：第一个在执行，第二个排队，第三个被拒绝
+		assertEquals(SearchSourceStatus.State.TIMEOUT, statuses.get("PROJECT").getState());
+		assertEquals(SearchSourceStatus.State.TIMEOUT, statuses.get("KNOWLEDGE").getState());
+		assertEquals(SearchSourceStatus.State.REJECTED, statuses.get("WEB").getState());
+		assertFalse(statuses.values().stream().anyMatch(SearchSourceStatus::isSuccess));
+	}
+
+	private DefaultSearchFacade facade(int threads, long timeoutMs, SearchProvider... providers) {
+		ParallelSearchOrchestrator orchestrator = new ParallelSearchOrchestrator(threads, 1, timeoutMs);
+		orchestrators.add(orchestrator);
+		return new DefaultSearchFacade(List.of(providers), orchestrator);
+	}
+
+	private static SearchRequest request(SearchSourceType... sourceTypes) {
+		SearchRequest request = new SearchRequest("spring ai alibaba");
+		// 保持下发顺序稳定
+		request.setSourceTypes(new LinkedHashSet<>(List.of(sourceTypes)));
+		return request;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SearchSourceStatus> statuses(SearchResultSet resultSet) {
+		return (Map<String, SearchSourceStatus>) resultSet.getMetadata().get("source_status");
+	}
+
+	/**
+	 * 带固定延迟的Mock Provider，结构参照MockBaiduWebSearchProvider
+	 */
+	private static final class DelayedSearchProvider implements SearchProvider {
+
+		private final SearchSourceType sourceType;
+		private final long delayMs;
+		private final double score;
+		private final CountDownLatch interrupted = new CountDownLatch(1);
+
+		private DelayedSearchProvider(SearchSourceType sourceType, long delayMs, double score) {
+			this.sourceType = sourceType;
+			this.delayMs = delayMs;
+			this.score = score;
+		}
+
+		@Override
+		public boolean supports(SearchSourceType type) {
+			return sourceType == type;
+		}
+
+		@Override
+		public List<SearchResultItem> search(SearchRequest request) {
+			try {
+				Thread.sleep(delayMs);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				Thread.currentThread().interrupt();
+				return List.of();
+			}
+			int topK = request.getPerSourceTopK().getOrDefault(sourceType, 2);
+			List<SearchResultItem> results = new ArrayList<>();
+			for (int i = 0; i < Math.min(topK, 2); i++) {
+				SearchResultItem item = new SearchResultItem();
+				item.setId(sourceType.name().toLowerCase() + "-" + i);
+				item.setSourceType(sourceType);
+				item.setTitle(request.getQuery() + " #" + i);
+				item.setScore(score - i * 0.1);
+				results.add(item);
+			}
+			return results;
+		}
+
+		@Override
+		public String getName() {
+			return "Delayed" + sourceType.name() + "Provider";
+		}
+
+		boolean awaitInterrupted() {
+			try {
+				return interrupted.await(2, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+
+	private static final class FailingSearchProvider implements SearchProvider {
+
+		private final SearchSourceType sourceType;
+
+		private FailingSearchProvider(SearchSourceType sourceType) {
+			this.sourceType = sourceType;
+		}
+
+		@Override
+		public boolean supports(SearchSourceType type) {
+			return sourceType == type;
+		}
+
+		@Override
+		public List<SearchResultItem> search(SearchRequest request) {
+			throw new IllegalStateException("backend unavailable");
+		}
+	}
+}
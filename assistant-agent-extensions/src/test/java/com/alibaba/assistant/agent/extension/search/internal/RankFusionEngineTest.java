@@ -0,0 +1,173 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankFusionEngineTest {
+
+	private final Random random = new Random(42);
+
+	@Test
+	void fuse_shouldBeIndependentOfInputOrder() {
+		Map<SearchSourceType, List<SearchResultItem>> input = new LinkedHashMap<>();
+		for (SearchSourceType sourceType : List.of(SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE, SearchSourceType.WEB)) {
+			List<SearchResultItem> items = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				// 分数有大量并列
+				items.add(item(sourceType, sourceType.name() + "-" + i, random.nextInt(5) / 4.0, randomText(30)));
+			}
+			input.put(sourceType, items);
+		}
+
+		for (RankFusionEngine.Strategy strategy : RankFusionEngine.Strategy.values()) {
+			RankFusionEngine engine = new RankFusionEngine(strategy, Map.of(SearchSourceType.WEB, 0.5), 60, true, 6);
+			List<String> expected = ids(engine.fuse(input, 40));
+			for (int round = 0; round < 20; round++) {
+				Map<SearchSourceType, List<SearchResultItem>> shuffled = new HashMap<>();
+				List<SearchSourceType> order = new ArrayList<>(input.keySet());
+				Collections.shuffle(order, random);
+				for (SearchSourceType sourceType : order) {
+					List<SearchResultItem> items = new ArrayList<>(input.get(sourceType));
+					Collections.shuffle(items, random);
+					shuffled.put(sourceType, items);
+				}
+				assertEquals(expected, ids(engine.fuse(shuffled, 40)), strategy + " round " + round);
+			}
+		}
+	}
+
+	@Test
+	void fuse_shouldRankAcrossSourcesIndependentlyOfRawScoreScale() {
+		// PROJECT 的分数是 0-100 的原始分，KNOWLEDGE 是 0-1 的相似度
+		Map<SearchSourceType, List<SearchResultItem>> input = Map.of(
+				SearchSourceType.PROJECT, List.of(item(SearchSourceType.PROJECT, "p0", 90, null),
+						item(SearchSourceType.PROJECT, "p1", 80, null), item(SearchSourceType.PROJECT, "p2", 10, null)),
+				SearchSourceType.KNOWLEDGE, List.of(item(SearchSourceType.KNOWLEDGE, "k0", 0.9, null),
+						item(SearchSourceType.KNOWLEDGE, "k1", 0.85, null), item(SearchSourceType.KNOWLEDGE, "k2", 0.1, null)));
+
+		// 同名次交替出现，名次相同时原始分数高者在前
+		assertEquals(List.of("p0", "k0", "p1", "k1"), ids(new RankFusionEngine().fuse(input, 4)));
+
+		// 数据源权重生效
+		RankFusionEngine weighted = new RankFusionEngine(RankFusionEngine.Strategy.RRF,
+				Map.of(SearchSourceType.KNOWLEDGE, 2.0), 60, false, 6);
+		assertEquals(List.of("k0", "k1", "k2", "p0"), ids(weighted.fuse(input, 4)));
+
+		// 归一化加权：k1 归一化后约0.94，p1 约0.875；末位都归一化为0，按原始分数排序
+		RankFusionEngine normalized = new RankFusionEngine(RankFusionEngine.Strategy.WEIGHTED, Map.of(), 60, false, 6);
+		List<SearchResultItem> fused = normalized.fuse(input, 6);
+		assertEquals(List.of("p0", "k0", "k1", "p1", "p2", "k2"), ids(fused));
+		assertEquals(1.0, (double) fused.get(0).getMetadata().getExtensions().get("fusion_score"), 1e-9);
+		assertEquals(90, fused.get(0).getScore(), 0);
+	}
+
+	@Test
+	void dedup_shouldCollapseNearDuplicatesOnly() {
+		int docs = 300;
+		List<String> originals = new ArrayList<>();
+		List<SearchResultItem> project = new ArrayList<>();
+		List<SearchResultItem> web = new ArrayList<>();
+		for (int i = 0; i < docs; i++) {
+			String text = randomText(60);
+			originals.add(text);
+			project.add(item(SearchSourceType.PROJECT, "orig-" + i, 1.0 - i * 0.001, text));
+		}
+		for (int i = 0; i < docs; i++) {
+			// 近重复：改变大小写与标点，或替换一个词
+			String variant = i % 2 == 0
+					? originals.get(i).toUpperCase().replace(" ", ",  ")
+					: replaceOneWord(originals.get(i));
+			web.add(item(SearchSourceType.WEB, "dup-" + i, 0.5 - i * 0.001, variant));
+		}
+		for (int i = 0; i < docs; i++) {
+			web.add(item(SearchSourceType.WEB, "distinct-" + i, 0.2 - i * 0.0001, randomText(60)));
+		}
+		web.add(item(SearchSourceType.WEB, "chinese-0", 0.01, "数据库连接池耗尽时应当先检查慢查询，再调大最大连接数，并开启连接泄漏检测以便定位未归还连接的代码路径。"));
+		web.add(item(SearchSourceType.WEB, "chinese-1", 0.009, "数据库连接池耗尽时应该先检查慢查询，再调大最大连接数，并开启连接泄漏检测以便定位未归还连接的代码路径。"));
+
+		List<SearchResultItem> fused = new RankFusionEngine().fuse(Map.of(SearchSourceType.PROJECT, project,
+				SearchSourceType.WEB, web), Integer.MAX_VALUE);
+		List<String> ids = ids(fused);
+
+		long survivingDuplicates = ids.stream().filter(id -> id.startsWith("dup-")).count();
+		long survivingDistinct = ids.stream().filter(id -> id.startsWith("distinct-")).count();
+		long survivingOriginals = ids.stream().filter(id -> id.startsWith("orig-")).count();
+		// 精确率：不同内容从不被折叠；召回率：近重复至少折叠九成
+		assertEquals(docs, survivingDistinct);
+		assertEquals(docs, survivingOriginals);
+		assertTrue(survivingDuplicates <= docs / 10, "surviving duplicates " + survivingDuplicates);
+		assertTrue(ids.contains("chinese-0") != ids.contains("chinese-1"), "chinese near duplicate should collapse");
+
+		// 跨数据源的佐证：被折叠项的融合分累加到保留项上
+		SearchResultItem first = fused.get(0);
+		assertEquals("orig-0", first.getId());
+		assertEquals(List.of("dup-0"), first.getMetadata().getExtensions().get("duplicate_ids"));
+		assertEquals(1.0 / 61 + 1.0 / 61, (double) first.getMetadata().getExtensions().get("fusion_score"), 1e-12);
+	}
+
+	@Test
+	void dedup_shouldNotAccumulateWithinSameSource() {
+		String text = randomText(40);
+		List<SearchResultItem> project = List.of(item(SearchSourceType.PROJECT, "a", 0.9, text),
+				item(SearchSourceType.PROJECT, "b", 0.8, text), item(SearchSourceType.PROJECT, "c", 0.7, randomText(40)));
+		List<SearchResultItem> fused = new RankFusionEngine().fuse(Map.of(SearchSourceType.PROJECT, project), 10);
+
+		assertEquals(List.of("a", "c"), ids(fused));
+		assertEquals(1.0 / 61, (double) fused.get(0).getMetadata().getExtensions().get("fusion_score"), 1e-12);
+		assertEquals(List.of("b"), fused.get(0).getMetadata().getExtensions().get("duplicate_ids"));
+	}
+
+	private String randomText(int words) {
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < words; i++) {
+			tokens.add("w" + Integer.toString(random.nextInt(5000) * 7919, 36));
+		}
+		return String.join(" ", tokens);
+	}
+
+	private String replaceOneWord(String text) {
+		String[] tokens = text.split(" ");
+		tokens[random.nextInt(tokens.length)] = "replacement";
+		return String.join(" ", tokens);
+	}
+
+	private static SearchResultItem item(SearchSourceType sourceType, String id, double score, String content) {
+		SearchResultItem item = new SearchResultItem();
+		item.setId(id);
+		item.setSourceType(sourceType);
+		item.setScore(score);
+		item.setContent(content);
+		return item;
+	}
+
+	private static List<String> ids(List<SearchResultItem> items) {
+		return items.stream().map(SearchResultItem::getId).toList();
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.config.SearchExtensionProperties;
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientSearchProviderTest {
+
+	/**
+	 * 虚拟时钟，熔断器与延迟直方图都只看这个时钟
+	 */
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void breaker_shouldOpen_thenProbeHalfOpen_thenClose() {
+		FaultInjectingProvider backend = new FaultInjectingProvider(now);
+		SearchProviderResilience resilience = new SearchProviderResilience(config(), null, now::get);
+		SearchProvider provider = resilience.wrap(backend);
+
+		backend.failing = true;
+		for (int i = 0; i < 10; i++) {
+			assertThrows(IllegalStateException.class, () -> provider.search(request()));
+		}
+		assertEquals(SearchCircuitBreaker.State.OPEN, ((ResilientSearchProvider) provider).getBreakerState());
+
+		// 熔断期间不再调用后端
+		assertThrows(SearchProviderUnavailableException.class, () -> provider.search(request()));
+		assertEquals(10, backend.calls.get());
+
+		// 半开探测失败：重新熔断并重新计时
+		now.addAndGet(30_000);
+		assertEquals(SearchCircuitBreaker.State.HALF_OPEN, ((ResilientSearchProvider) provider).getBreakerState());
+		assertThrows(IllegalStateException.class, () -> provider.search(request()));
+		assertEquals(11, backend.calls.get());
+		now.addAndGet(29_999);
+		assertThrows(SearchProviderUnavailableException.class, () -> provider.search(request()));
+
+		// 半开探测成功：恢复并清空统计，单次失败不会再熔断
+		now.addAndGet(1);
+		backend.failing = false;
+		assertEquals(2, provider.search(request()).size());
+		assertEquals(SearchCircuitBreaker.State.CLOSED, ((ResilientSearchProvider) provider).getBreakerState());
+		backend.failing = true;
+		assertThrows(IllegalStateException.class, () -> provider.search(request()));
+		assertEquals(SearchCircuitBreaker.State.CLOSED, ((ResilientSearchProvider) provider).getBreakerState());
+	}
+
+	@Test
+	void breaker_shouldAllowOnlyOneProbeWhileHalfOpen() {
+		SearchCircuitBreaker breaker = new SearchCircuitBreaker(4, 2, 0.5, 1000, now::get);
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		assertEquals(null, breaker.tryAcquire());
+
+		now.addAndGet(1000);
+		SearchCircuitBreaker.Permit probe = breaker.tryAcquire();
+		assertEquals(SearchCircuitBreaker.Permit.PROBE, probe);
+		assertEquals(null, breaker.tryAcquire());
+		// 探测结果未知时归还许可
+		breaker.onIgnored(probe);
+		assertEquals(SearchCircuitBreaker.Permit.PROBE, breaker.tryAcquire());
+	}
+
+	@Test
+	void histogram_shouldTrackPercentileWithinSlidingWindow() {
+		LatencyHistogram histogram = new LatencyHistogram(60_000, 6, now::get);
+		assertEquals(-1, histogram.percentile(0.95));
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		long p95 = histogram.percentile(0.95);
+		// 桶宽约10%，分位数取桶上界
+		assertTrue(p95 >= 95 && p95 <= 105, "p95 " + p95);
+		assertEquals(1, histogram.percentile(0.01));
+
+		// 半个窗口后写入的慢样本与旧样本共存
+		now.addAndGet(30_000);
+		for (int i = 0; i < 100; i++) {
+			histogram.record(1000);
+		}
+		assertEquals(200, histogram.count());
+		assertTrue(histogram.percentile(0.95) >= 1000);
+
+		// 旧样本滑出窗口后只剩慢样本
+		now.addAndGet(35_000);
+		assertEquals(100, histogram.count());
+		assertTrue(histogram.percentile(0.01) >= 1000);
+
+		now.addAndGet(60_000);
+		assertEquals(0, histogram.count());
+	}
+
+	@Test
+	void hedge_shouldWinOverLatencySpike() {
+		FaultInjectingProvider backend = new FaultInjectingProvider(now);
+		SearchProviderResilience resilience = new SearchProviderResilience(config(), executor, now::get);
+		ResilientSearchProvider provider = (ResilientSearchProvider) resilience.wrap(backend);
+
+		// 样本不足时不对冲
+		assertEquals(-1, provider.hedgeDelayMillis(SearchCircuitBreaker.Permit.NORMAL));
+		for (int i = 0; i < 20; i++) {
+			provider.search(request());
+		}
+		// 预热样本的虚拟延迟为10ms，低于下限时取下限
+		assertEquals(20, provider.hedgeDelayMillis(SearchCircuitBreaker.Permit.NORMAL));
+		assertEquals(-1, provider.hedgeDelayMillis(SearchCircuitBreaker.Permit.PROBE));
+
+		// 下一次请求出现5秒的延迟尖刺，对冲请求正常返回
+		backend.spikeNextMs = 5000;
+		long start = System.nanoTime();
+		List<SearchResultItem> items = provider.search(request());
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertEquals(2, items.size());
+		assertTrue(elapsedMs < 2000, "elapsed " + elapsedMs);
+		assertEquals(22, backend.calls.get());
+		assertTrue(backend.awaitSpikeCancelled(), "spiked attempt should be cancelled");
+		assertEquals(SearchCircuitBreaker.State.CLOSED, provider.getBreakerState());
+	}
+
+	@Test
+	void hedge_shouldFailOnlyWhenEveryAttemptFails() {
+		FaultInjectingProvider backend = new FaultInjectingProvider(now);
+		SearchProviderResilience resilience = new SearchProviderResilience(config(), executor, now::get);
+		SearchProvider provider = resilience.wrap(backend);
+		for (int i = 0; i < 20; i++) {
+			provider.search(request());
+		}
+
+		// 对冲请求先失败，仍等待卡顿的主请求，两者都失败后才抛出
+		backend.failing = true;
+		backend.spikeNextMs = 300;
+		long start = System.nanoTime();
+		assertThrows(IllegalStateException.class, () -> provider.search(request()));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsedMs >= 250, "elapsed " + elapsedMs);
+		assertEquals(22, backend.calls.get());
+
+		// 同一个Provider多次包装共享熔断器，名称保持不变
+		assertSame(provider, resilience.wrap(List.of(backend)).get(0));
+		assertEquals(backend.getName(), provider.getName());
+	}
+
+	private static SearchExtensionProperties.ResilienceConfig config() {
+		SearchExtensionProperties.ResilienceConfig config = new SearchExtensionProperties.ResilienceConfig();
+		config.setMinHedgeDelayMs(20);
+		return config;
+	}
+
+	private static SearchRequest request() {
+		return new SearchRequest("circuit breaker");
+	}
+
+	/**
+	 * 可注入故障的Mock Provider：正常调用推进虚拟时钟10ms；
+	 * spikeNextMs 为该次调用注入真实时间的延迟尖刺（可被中断），failing 时抛出异常
+	 */
+	private static final class FaultInjectingProvider implements SearchProvider {
+
+		private final AtomicLong clock;
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch spikeCancelled = new CountDownLatch(1);
+		private volatile boolean failing;
+		private volatile long spikeNextMs;
+
+		private FaultInjectingProvider(AtomicLong clock) {
+			this.clock = clock;
+		}
+
+		@Override
+		public boolean supports(SearchSourceType type) {
+			return type == SearchSourceType.KNOWLEDGE;
+		}
+
+		@Override
+		public List<SearchResultItem> search(SearchRequest request) {
+			calls.incrementAndGet();
+			long spikeMs = spikeNextMs;
+			if (spikeMs > 0) {
+				spikeNextMs = 0;
+				try {
+					Thread.sleep(spikeMs);
+				} catch (InterruptedException e) {
+					spikeCancelled.countDown();
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failing) {
+				throw new IllegalStateException("knowledge backend unavailable");
+			}
+			clock.addAndGet(10);
+			SearchResultItem first = new SearchResultItem();
+			first.setId("k-0");
+			SearchResultItem second = new SearchResultItem();
+			second.setId("k-1");
+			return List.of(first, second);
+		}
+
+		@Override
+		public String getName() {
+			return "FaultInjectingKnowledgeProvider";
+		}
+
+		boolean awaitSpikeCancelled() {
+			try {
+				return spikeCancelled.await(2, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+}
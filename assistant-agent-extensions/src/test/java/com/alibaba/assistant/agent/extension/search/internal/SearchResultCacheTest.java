@@ -0,0 +1,335 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.internal;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchResultCacheTest {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	private final ManualExecutor refreshExecutor = new ManualExecutor();
+
+	private final ParallelSearchOrchestrator orchestrator = new ParallelSearchOrchestrator(8, 16, 5000);
+
+	@AfterEach
+	void tearDown() {
+		orchestrator.close();
+	}
+
+	@Test
+	void normalizedQueriesAndTenants_shouldShareOrSplitEntries() {
+		CountingProvider project = new CountingProvider(SearchSourceType.PROJECT);
+		CountingProvider knowledge = new CountingProvider(SearchSourceType.KNOWLEDGE);
+		DefaultSearchFacade facade = facade(project, knowledge);
+
+		SearchResultSet first = facade.unifiedSearch(request("  Spring   AI ", "alice", SearchSourceType.PROJECT,
+				SearchSourceType.KNOWLEDGE));
+		assertEquals(false, first.getMetadata().get("cached"));
+
+		// 大小写、空白、全角字符与数据源顺序不同的请求命中同一条目
+		SearchResultSet second = facade.unifiedSearch(request("ｓｐｒｉｎｇ ai", "alice", SearchSourceType.KNOWLEDGE,
+				SearchSourceType.PROJECT));
+		assertEquals(true, second.getMetadata().get("cached"));
+		assertEquals(false, second.getMetadata().get("stale"));
+		assertEquals(first.getTotalCount(), second.getTotalCount());
+		assertEquals(1, project.calls.get());
+		assertEquals(1, knowledge.calls.get());
+		// 只有缓存键做归一化，数据源收到的是用户输入的原始查询
+		assertEquals("  Spring   AI ", project.lastQuery);
+
+		// 租户、topK 与 perSourceTopK 都参与缓存键
+		facade.unifiedSearch(request("spring ai", "bob", SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE));
+		SearchRequest topK = request("spring ai", "alice", SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE);
+		topK.setTopK(3);
+		facade.unifiedSearch(topK);
+		SearchRequest perSource = request("spring ai", "alice", SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE);
+		perSource.getPerSourceTopK().put(SearchSourceType.PROJECT, 1);
+		facade.unifiedSearch(perSource);
+		assertEquals(4, project.calls.get());
+
+		// 调用方修改返回值（包括 source_status 中的状态对象）不影响缓存条目
+		second.getItems().clear();
+		second.getMetadata().put("cached", "tampered");
+		statuses(second).get("PROJECT").setState(SearchSourceStatus.State.FAILED);
+		SearchResultSet third = facade.unifiedSearch(request("spring ai", "alice", SearchSourceType.PROJECT,
+				SearchSourceType.KNOWLEDGE));
+		assertEquals(first.getTotalCount(), third.getTotalCount());
+		assertEquals(true, third.getMetadata().get("cached"));
+		assertEquals(SearchSourceStatus.State.SUCCESS, statuses(third).get("PROJECT").getState());
+	}
+
+	@Test
+	void defaultSources_shouldUseTheirOwnTtl() {
+		CountingProvider project = new CountingProvider(SearchSourceType.PROJECT);
+		CountingProvider knowledge = new CountingProvider(SearchSourceType.KNOWLEDGE);
+		SearchResultCache cache = new SearchResultCache(16, 60_000, Map.of(SearchSourceType.PROJECT, 30_000L), 0,
+				refreshExecutor, now::get);
+		DefaultSearchFacade facade = new DefaultSearchFacade(List.of(project, knowledge), orchestrator, cache);
+		// 未指定数据源时默认搜索项目与知识库，有效期取项目的TTL而不是默认TTL
+		SearchRequest request = new SearchRequest("defaults");
+
+		facade.unifiedSearch(request);
+		now.addAndGet(29_999);
+		assertEquals(true, facade.unifiedSearch(request).getMetadata().get("cached"));
+		now.addAndGet(2);
+		assertEquals(false, facade.unifiedSearch(request).getMetadata().get("cached"));
+		assertEquals(2, project.calls.get());
+	}
+
+	@Test
+	void expiredEntry_shouldBeServedStaleAndRefreshedInBackground() {
+		CountingProvider project = new CountingProvider(SearchSourceType.PROJECT);
+		CountingProvider web = new CountingProvider(SearchSourceType.WEB);
+		// WEB 的TTL最短，决定同时包含 WEB 的请求的有效期
+		SearchResultCache cache = new SearchResultCache(16, 10_000, Map.of(SearchSourceType.WEB, 1_000L), 5_000,
+				refreshExecutor, now::get);
+		DefaultSearchFacade facade = new DefaultSearchFacade(List.of(project, web), orchestrator, cache);
+		SearchRequest request = request("cache", "alice", SearchSourceType.PROJECT, SearchSourceType.WEB);
+
+		facade.unifiedSearch(request);
+		now.addAndGet(999);
+		assertEquals(true, facade.unifiedSearch(request).getMetadata().get("cached"));
+		assertEquals(1, web.calls.get());
+
+		// 过期但在 stale-while-revalidate 窗口内：立即返回旧结果，只提交一次后台刷新
+		now.addAndGet(2);
+		SearchResultSet stale = facade.unifiedSearch(request);
+		assertEquals(true, stale.getMetadata().get("cached"));
+		assertEquals(true, stale.getMetadata().get("stale"));
+		facade.unifiedSearch(request);
+		assertEquals(1, web.calls.get());
+		assertEquals(1, refreshExecutor.pending());
+
+		refreshExecutor.runAll();
+		assertEquals(2, web.calls.get());
+		SearchResultSet refreshed = facade.unifiedSearch(request);
+		assertEquals(true, refreshed.getMetadata().get("cached"));
+		assertEquals(false, refreshed.getMetadata().get("stale"));
+
+		// 超出窗口后同步重新加载
+		now.addAndGet(6_001);
+		assertEquals(false, facade.unifiedSearch(request).getMetadata().get("cached"));
+		assertEquals(3, web.calls.get());
+		assertEquals(0, refreshExecutor.pending());
+
+		// 只包含 PROJECT 的请求使用默认TTL
+		SearchRequest projectOnly = request("cache", "alice", SearchSourceType.PROJECT);
+		facade.unifiedSearch(projectOnly);
+		now.addAndGet(9_999);
+		assertEquals(true, facade.unifiedSearch(projectOnly).getMetadata().get("cached"));
+		assertEquals(false, facade.unifiedSearch(projectOnly).getMetadata().get("stale"));
+	}
+
+	@Test
+	void concurrentIdenticalQueries_shouldHitProvidersOnce() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountingProvider project = new CountingProvider(SearchSourceType.PROJECT, release);
+		DefaultSearchFacade facade = facade(project);
+		int callers = 8;
+		ExecutorService callerPool = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<SearchResultSet>> futures = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				futures.add(callerPool.submit(() -> facade.unifiedSearch(request(" Single Flight", "alice",
+						SearchSourceType.PROJECT))));
+			}
+			assertTrue(project.awaitStarted(), "provider should be called");
+			// 等其余调用进入等待后再放行
+			Thread.sleep(200);
+			release.countDown();
+
+			int coalesced = 0;
+			for (Future<SearchResultSet> future : futures) {
+				SearchResultSet resultSet = future.get(5, TimeUnit.SECONDS);
+				assertEquals(2, resultSet.getTotalCount());
+				assertEquals(false, resultSet.getMetadata().get("cached"));
+				if (Boolean.TRUE.equals(resultSet.getMetadata().get("coalesced"))) {
+					coalesced++;
+				}
+			}
+			assertEquals(1, project.calls.get());
+			assertEquals(callers - 1, coalesced);
+		} finally {
+			callerPool.shutdownNow();
+		}
+	}
+
+	@Test
+	void partialResults_shouldNotBeCached() {
+		CountingProvider project = new CountingProvider(SearchSourceType.PROJECT);
+		CountingProvider knowledge = new CountingProvider(SearchSourceType.KNOWLEDGE);
+		knowledge.failing = true;
+		DefaultSearchFacade facade = facade(project, knowledge);
+		SearchRequest request = request("partial", "alice", SearchSourceType.PROJECT, SearchSourceType.KNOWLEDGE);
+
+		assertEquals(true, facade.unifiedSearch(request).getMetadata().get("partial"));
+		assertEquals(false, facade.unifiedSearch(request).getMetadata().get("cached"));
+		assertEquals(2, project.calls.get());
+
+		knowledge.failing = false;
+		facade.unifiedSearch(request);
+		assertEquals(true, facade.unifiedSearch(request).getMetadata().get("cached"));
+		assertEquals(3, project.calls.get());
+	}
+
+	private DefaultSearchFacade facade(SearchProvider... providers) {
+		SearchResultCache cache = new SearchResultCache(16, 10_000, Map.of(), 5_000, refreshExecutor, now::get);
+		return new DefaultSearchFacade(List.of(providers), orchestrator, cache);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, SearchSourceStatus> statuses(SearchResultSet resultSet) {
+		return (Map<String, SearchSourceStatus>) resultSet.getMetadata().get("source_status");
+	}
+
+	private static SearchRequest request(String query, String userId, SearchSourceType... sourceTypes) {
+		SearchRequest request = new SearchRequest(query);
+		request.setSourceTypes(new LinkedHashSet<>(List.of(sourceTypes)));
+		request.getContext().setUserId(userId);
+		return request;
+	}
+
+	/**
+	 * 记录调用次数的Mock Provider，可选择在放行前阻塞
+	 */
+	private static final class CountingProvider implements SearchProvider {
+
+		private final SearchSourceType sourceType;
+		private final CountDownLatch release;
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile boolean failing;
+		private volatile String lastQuery;
+
+		private CountingProvider(SearchSourceType sourceType) {
+			this(sourceType, null);
+		}
+
+		private CountingProvider(SearchSourceType sourceType, CountDownLatch release) {
+			this.sourceType = sourceType;
+			this.release = release;
+		}
+
+		@Override
+		public boolean supports(SearchSourceType type) {
+			return sourceType == type;
+		}
+
+		@Override
+		public List<SearchResultItem> search(SearchRequest request) {
+			calls.incrementAndGet();
+			lastQuery = request.getQuery();
+			started.countDown();
+			if (release != null) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failing) {
+				throw new IllegalStateException(sourceType + " unavailable");
+			}
+			List<SearchResultItem> items = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				SearchResultItem item = new SearchResultItem();
+				item.setId(sourceType.name().toLowerCase() + "-" + i);
+				item.setSourceType(sourceType);
+				item.setScore(0.9 - i * 0.1);
+				items.add(item);
+			}
+			return items;
+		}
+
+		boolean awaitStarted() throws InterruptedException {
+			return started.await(5, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * 手动驱动的执行器，后台刷新在测试线程上确定性地执行
+	 */
+	private static final class ManualExecutor extends AbstractExecutorService {
+
+		private final List<Runnable> tasks = new ArrayList<>();
+
+		@Override
+		public synchronized void execute(Runnable command) {
+			tasks.add(command);
+		}
+
+		synchronized int pending() {
+			return tasks.size();
+		}
+
+		void runAll() {
+			List<Runnable> snapshot;
+			synchronized (this) {
+				snapshot = new ArrayList<>(tasks);
+				tasks.clear();
+			}
+			snapshot.forEach(Runnable::run);
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return List.of();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.extension.search.tools;
+
+import com.alibaba.assistant.agent.extension.search.internal.DefaultSearchFacade;
+import com.alibaba.assistant.agent.extension.search.internal.ParallelSearchOrchestrator;
+import com.alibaba.assistant.agent.extension.search.internal.RankFusionEngine;
+import com.alibaba.assistant.agent.extension.search.internal.SearchResultCache;
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultSet;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceStatus;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnifiedSearchCodeactToolTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ParallelSearchOrchestrator orchestrator = new ParallelSearchOrchestrator(4, 16, 1000);
+
+	@AfterEach
+	void tearDown() {
+		orchestrator.close();
+	}
+
+	@Test
+	void writer_shouldProduceSameJsonAsObjectMapper() throws Exception {
+		SearchResultSet resultSet = SearchResultSet.success(items(SearchSourceType.PROJECT, 30, 100));
+		resultSet.addItems(items(SearchSourceType.WEB, 20, 100));
+		resultSet.setQuery("spring \"ai\"\n查询");
+		resultSet.getItems().get(0).getMetadata().getTags().put("lang", "java");
+		resultSet.getItems().get(0).getMetadata().setCreatedAt(1L);
+		resultSet.getItems().get(1).getMetadata().getExtensions().put("duplicate_ids", List.of("a", "b"));
+		resultSet.getItems().get(2).setSourceType(null);
+		Map<SearchSourceType, SearchSourceStatus> statuses = new EnumMap<>(SearchSourceType.class);
+		statuses.put(SearchSourceType.WEB, new SearchSourceStatus(SearchSourceType.WEB, "web", SearchSourceStatus.State.TIMEOUT));
+		resultSet.getMetadata().put("source_status", statuses);
+		resultSet.getMetadata().put("duration_ms", 12L);
+		resultSet.getMetadata().put("ratio", 0.5);
+
+		String streamed = new SearchResultJsonWriter(objectMapper, 0, 0).writeAsString(resultSet);
+
+		assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(resultSet)), objectMapper.readTree(streamed));
+	}
+
+	@Test
+	void writer_shouldBoundItemSizes() throws Exception {
+		SearchResultSet resultSet = SearchResultSet.success(items(SearchSourceType.KNOWLEDGE, 3, 5000));
+		resultSet.getItems().get(2).setContent("短内容");
+
+		JsonNode json = objectMapper.readTree(new SearchResultJsonWriter(objectMapper, 100, 20).writeAsString(resultSet));
+
+		JsonNode first = json.get("items").get(0);
+		assertEquals(100, first.get("content").asText().length());
+		assertTrue(first.get("content").asText().endsWith("..."));
+		assertEquals(20, first.get("snippet").asText().length());
+		assertEquals("短内容", json.get("items").get(2).get("content").asText());
+		assertEquals(100, json.get("groupedBySource").get("KNOWLEDGE").get(0).get("content").asText().length());
+		assertTrue(json.get("metadata").get("truncated").asBoolean());
+		// 原结果不被修改
+		assertEquals(5000, resultSet.getItems().get(0).getContent().length());
+	}
+
+	@Test
+	void call_shouldQuerySourcesConcurrentlyWithinDeadline() throws Exception {
+		SleepingProvider project = new SleepingProvider(SearchSourceType.PROJECT, "ProjectProvider", 300, 0.9);
+		SleepingProvider knowledge = new SleepingProvider(SearchSourceType.KNOWLEDGE, "KnowledgeProvider", 300, 0.8);
+		SleepingProvider custom = new SleepingProvider(SearchSourceType.CUSTOM, "SlowCustomProvider", 5000, 0.7);
+		List<SearchProvider> providers = List.of(project, knowledge, custom);
+		UnifiedSearchCodeactTool tool = new UnifiedSearchCodeactTool(providers,
+				new DefaultSearchFacade(providers, orchestrator), 2000, 500);
+
+		long start = System.nanoTime();
+		JsonNode json = objectMapper.readTree(tool.call(
+				"{\"query\":\"fan out\",\"sources\":[\"project\",\"knowledge\",\"SlowCustomProvider\",\"unknown\"],\"limit\":10}"));
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		// 顺序调用需要600ms + 截止时间
+		assertTrue(elapsedMs < 1500, "elapsed " + elapsedMs);
+		assertEquals(4, json.get("items").size());
+		JsonNode metadata = json.get("metadata");
+		assertEquals(2, metadata.get("source_count").asInt());
+		assertEquals(1, metadata.get("failed_sources").asInt());
+		assertTrue(metadata.get("partial").asBoolean());
+		// 按名称指定的Provider以名称记录状态
+		assertEquals("TIMEOUT", metadata.get("source_status").get("SlowCustomProvider").get("state").asText());
+		assertTrue(custom.interrupted.await(2, TimeUnit.SECONDS), "timed out source should be cancelled");
+	}
+
+	@Test
+	void search_shouldFuseRanksAcrossScoreScalesAndReuseCache() {
+		// 项目源的分数是BM25量级，按原始分数排序会让它占满结果
+		SleepingProvider project = new SleepingProvider(SearchSourceType.PROJECT, "ProjectProvider", 0, 50.0);
+		SleepingProvider web = new SleepingProvider(SearchSourceType.WEB, "WebProvider", 0, 0.9);
+		SleepingProvider other = new SleepingProvider(SearchSourceType.WEB, "OtherWebProvider", 0, 0.9);
+		List<SearchProvider> providers = List.of(project, web, other);
+		SearchResultCache cache = new SearchResultCache(16, 60_000, Map.of(), 0, 1);
+		UnifiedSearchCodeactTool tool = new UnifiedSearchCodeactTool(providers,
+				new DefaultSearchFacade(providers, orchestrator, cache, new RankFusionEngine()), 2000, 500);
+
+		SearchResultSet resultSet = tool.search("typed", List.of("project", "web"), 2);
+
+		assertEquals(2, resultSet.getTotalCount());
+		assertEquals(2, resultSet.getUsedSources().size());
+		assertEquals(2, resultSet.getMetadata().get("source_count"));
+		assertEquals(Boolean.FALSE, resultSet.getMetadata().get("cached"));
+
+		SearchResultSet repeated = tool.search("typed", List.of("project", "web"), 2);
+		assertEquals(Boolean.TRUE, repeated.getMetadata().get("cached"));
+		assertEquals(2, repeated.getMetadata().get("source_count"));
+		assertEquals(1, project.calls.get());
+		assertEquals(1, web.calls.get());
+
+		// 按名称指定非默认Provider时不走缓存，避免与按类型选择的结果串用
+		SearchResultSet named = tool.search("typed", List.of("project", "OtherWebProvider"), 2);
+		assertEquals(Boolean.FALSE, named.getMetadata().get("cached"));
+		assertEquals(1, other.calls.get());
+		assertEquals(2, project.calls.get());
+		cache.close();
+	}
+
+	@Test
+	void search_shouldRunEveryNamedProviderOfTheSameType() {
+		SleepingProvider web = new SleepingProvider(SearchSourceType.WEB, "WebProvider", 0, 0.9);
+		SleepingProvider other = new SleepingProvider(SearchSourceType.WEB, "OtherWebProvider", 0, 0.8);
+		List<SearchProvider> providers = List.of(web, other);
+		UnifiedSearchCodeactTool tool = new UnifiedSearchCodeactTool(providers,
+				new DefaultSearchFacade(providers, orchestrator), 2000, 500);
+
+		// 同一数据源类型的两个Provider都会被调用，重复指定同一Provider只调用一次
+		SearchResultSet resultSet = tool.search("same type", List.of("WebProvider", "OtherWebProvider", "web"), 10);
+
+		assertEquals(1, web.calls.get());
+		assertEquals(1, other.calls.get());
+		assertEquals(4, resultSet.getTotalCount());
+		assertEquals(2, resultSet.getMetadata().get("source_count"));
+		Map<?, ?> statuses = (Map<?, ?>) resultSet.getMetadata().get("source_status");
+		assertEquals(List.of("WebProvider", "OtherWebProvider"), new ArrayList<>(statuses.keySet()));
+	}
+
+	private static List<SearchResultItem> items(SearchSourceType sourceType, int count, int contentLength) {
+		List<SearchResultItem> items = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			SearchResultItem item = new SearchResultItem();
+			item.setId(sourceType.name().toLowerCase() + "-" + i);
+			item.setSourceType(sourceType);
+			item.setTitle("标题 " + i);
+			item.setSnippet("snippet " + "s".repeat(Math.max(0, contentLength / 10)));
+			item.setContent("c".repeat(contentLength));
+			item.setUri("file:///src/" + i + ".java");
+			item.setScore(1.0 - i * 0.01);
+			items.add(item);
+		}
+		return items;
+	}
+
+	private static final class SleepingProvider implements SearchProvider {
+
+		private final SearchSourceType sourceType;
+		private final String name;
+		private final long delayMs;
+		private final double score;
+		private final CountDownLatch interrupted = new CountDownLatch(1);
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private SleepingProvider(SearchSourceType sourceType, String name, long delayMs, double score) {
+			this.sourceType = sourceType;
+			this.name = name;
+			this.delayMs = delayMs;
+			this.score = score;
+		}
+
+		@Override
+		public boolean supports(SearchSourceType type) {
+			return sourceType == type;
+		}
+
+		@Override
+		public List<SearchResultItem> search(SearchRequest request) {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(delayMs);
+			}
+			catch (InterruptedException e) {
+				interrupted.countDown();
+				Thread.currentThread().interrupt();
+				return List.of();
+			}
+			List<SearchResultItem> items = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				SearchResultItem item = new SearchResultItem();
+				item.setId(name + "-" + i);
+				item.setSourceType(sourceType);
+				item.setScore(score - i * 0.1);
+				items.add(item);
+			}
+			return items;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+	}
+}
@@ -25,7 +25,10 @@ import com.alibaba.assistant.agent.extension.dynamic.spi.DynamicToolFactoryConte
 import com.alibaba.assistant.agent.extension.learning.hook.AfterAgentLearningHook;
 import com.alibaba.assistant.agent.extension.experience.config.ExperienceExtensionProperties;
 import com.alibaba.assistant.agent.extension.experience.fastintent.FastIntentService;
+import com.alibaba.assistant.agent.extension.experience.hook.ExperienceUsageAgentHook;
 import com.alibaba.assistant.agent.extension.experience.hook.FastIntentReactHook;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceQueryCache;
+import com.alibaba.assistant.agent.extension.experience.internal.ExperienceUsageTracker;
 import com.alibaba.assistant.agent.extension.experience.spi.ExperienceProvider;
 import com.alibaba.assistant.agent.extension.search.tools.SearchCodeactToolFactory;
 import com.alibaba.assistant.agent.extension.search.tools.UnifiedSearchCodeactTool;
@@ -267,6 +270,9 @@ public class CodeactAgentConfig {
 			@Autowired(required = false) ToolCallbackProvider mcpToolCallbackProvider,
             @Autowired(required = false) FastIntentReactHook fastIntentReactHook,
             @Autowired(required = false) ExperienceProvider experienceProvider,
+            @Autowired(required = false) ExperienceQueryCache experienceQueryCache,
+            @Autowired(required = false) ExperienceUsageTracker experienceUsageTracker,
+            @Autowired(required = false) ExperienceUsageAgentHook experienceUsageAgentHook,
             @Autowired(required = false) ExperienceExtensionProperties experienceExtensionProperties,
             @Autowired(required = false) FastIntentService fastIntentService) {
 
@@ -361,6 +367,12 @@ public class CodeactAgentConfig {
 			logger.info("CodeactAgentConfig#grayscaleCodeactAgent - reason=已准备注入FastIntentReactHook");
 		}
 
+		// 注入经验使用结算Hook（每轮结束时按执行结果为本轮使用的经验记录成败）
+		if (experienceUsageAgentHook != null) {
+			reactHooks.add(experienceUsageAgentHook);
+			logger.info("CodeactAgentConfig#grayscaleCodeactAgent - reason=已准备注入ExperienceUsageAgentHook");
+		}
+
 		CodeactAgent.CodeactAgentBuilder builder = CodeactAgent.builder()
 				.name("CodeactAgent")
 				.description("A code-driven agent that solves problems by writing and executing Python code")
@@ -379,6 +391,8 @@ public class CodeactAgentConfig {
                 .hooks(reactHooks)
                 .subAgentHooks(codeactHooks)
 				.experienceProvider(experienceProvider)
+				.experienceQueryCache(experienceQueryCache)
+				.experienceUsageTracker(experienceUsageTracker)
 				.experienceExtensionProperties(experienceExtensionProperties)
 				.fastIntentService(fastIntentService)
 				.saver(new MemorySaver()); // 🔥 添加 MemorySaver 支持多轮对话上下文保持（放在最后）
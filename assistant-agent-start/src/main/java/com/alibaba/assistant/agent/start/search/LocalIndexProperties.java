@@ -0,0 +1,177 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.search;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地离线全文索引配置
+ *
+ * @author Assistant Agent Team
+ */
+@ConfigurationProperties(prefix = LocalIndexProperties.PREFIX)
+public class LocalIndexProperties {
+
+    public static final String PREFIX = "spring.ai.alibaba.codeact.extension.search.local-index";
+
+    /**
+     * 是否启用本地索引搜索Provider
+     */
+    private boolean enabled = false;
+
+    /**
+     * 被索引的文档目录
+     */
+    private String documentDirectory;
+
+    /**
+     * 索引文件目录，为空时使用文档目录下的 .assistant-index
+     */
+    private String indexDirectory;
+
+    /**
+     * 结果归属的数据源类型
+     */
+    private SearchSourceType sourceType = SearchSourceType.KNOWLEDGE;
+
+    /**
+     * 参与索引的文件扩展名（不含点，忽略大小写）
+     */
+    private List<String> includeExtensions = new ArrayList<>(List.of("md", "markdown", "txt", "adoc", "rst",
+            "java", "py", "js", "ts", "go", "yml", "yaml", "json", "xml", "properties", "sql"));
+
+    /**
+     * 超过该大小的文件不索引（字节）
+     */
+    private long maxFileBytes = 1024 * 1024;
+
+    /**
+     * 扫描文档目录、增量更新索引的间隔（毫秒），小于等于0表示只在启动时扫描
+     */
+    private long scanIntervalMs = 30000;
+
+    /**
+     * 段数超过该值时合并为一个段
+     */
+    private int maxSegments = 8;
+
+    /**
+     * 每篇文档保存在段内的原文长度（字符），摘要与返回内容都从这部分原文截取，查询时不再读取源文件
+     */
+    private int storedTextChars = 8192;
+
+    /**
+     * 摘要长度（字符）
+     */
+    private int snippetChars = 240;
+
+    /**
+     * 返回内容的最大长度（字符）
+     */
+    private int maxContentChars = 4000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDocumentDirectory() {
+        return documentDirectory;
+    }
+
+    public void setDocumentDirectory(String documentDirectory) {
+        this.documentDirectory = documentDirectory;
+    }
+
+    public String getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    public void setIndexDirectory(String indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    public SearchSourceType getSourceType() {
+        return sourceType;
+    }
+
+    public void setSourceType(SearchSourceType sourceType) {
+        this.sourceType = sourceType;
+    }
+
+    public List<String> getIncludeExtensions() {
+        return includeExtensions;
+    }
+
+    public void setIncludeExtensions(List<String> includeExtensions) {
+        this.includeExtensions = includeExtensions;
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    public void setMaxFileBytes(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    public long getScanIntervalMs() {
+        return scanIntervalMs;
+    }
+
+    public void setScanIntervalMs(long scanIntervalMs) {
+        this.scanIntervalMs = scanIntervalMs;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    public int getStoredTextChars() {
+        return storedTextChars;
+    }
+
+    public void setStoredTextChars(int storedTextChars) {
+        this.storedTextChars = storedTextChars;
+    }
+
+    public int getSnippetChars() {
+        return snippetChars;
+    }
+
+    public void setSnippetChars(int snippetChars) {
+        this.snippetChars = snippetChars;
+    }
+
+    public int getMaxContentChars() {
+        return maxContentChars;
+    }
+
+    public void setMaxContentChars(int maxContentChars) {
+        this.maxContentChars = maxContentChars;
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.search;
+
+import com.alibaba.assistant.agent.common.text.TextTokenizer;
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import com.alibaba.assistant.agent.extension.search.spi.SearchProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地离线全文搜索Provider
+ *
+ * <p>对配置的文档目录建立基于段的磁盘倒排索引（见 {@link LocalInvertedIndex}），按 BM25 打分并从段内保存的原文中截取
+ * 覆盖查询词最多的片段作为摘要，查询时不读取源文件。后台线程定期扫描文档目录，只重新索引修改时间或大小发生变化的文件，
+ * 并删除已不存在文件的索引；索引保存在磁盘上，重启后无需重建。扫描线程随容器生命周期启动（{@link #start()}），
+ * 在 {@link #stop()} 或 {@link #close()} 时停止。
+ *
+ * <p>切词与经验检索一致（{@link TextTokenizer}）：拉丁字母按单词，中日韩文字按字符二元组；
+ * 标题中的词额外计一次以提高标题命中的权重。
+ *
+ * @author Assistant Agent Team
+ */
+@Component
+@ConditionalOnProperty(prefix = LocalIndexProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LocalIndexProperties.class)
+public class LocalIndexSearchProvider implements SearchProvider, SmartLifecycle, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalIndexSearchProvider.class);
+
+    private static final String DEFAULT_INDEX_DIRECTORY = ".assistant-index";
+
+    private static final int MAX_DOCUMENTS_PER_SEGMENT = 4096;
+
+    private static final int BINARY_PROBE_BYTES = 8000;
+
+    private static final int MAX_TITLE_CHARS = 200;
+
+    private static final int MAX_MATCHES_PER_TERM = 64;
+
+    private final LocalIndexProperties config;
+    private final Path documentRoot;
+    private final Path indexDirectory;
+    private final Set<String> extensions = new HashSet<>();
+    private final LocalInvertedIndex index;
+    /**
+     * 保护扫描线程的启停；不能与 refresh 共用对象锁，否则停止时会与正在等待执行的扫描互相等待
+     */
+    private final Object lifecycleLock = new Object();
+    private ScheduledExecutorService scanner;
+
+    /**
+     * 构造时只打开磁盘索引，扫描线程在 {@link #start()} 中启动
+     *
+     * @param config 本地索引配置；scanIntervalMs 为0时只在启动时扫描一次，为负数时不自动扫描，由调用方执行 {@link #refresh()}
+     */
+    public LocalIndexSearchProvider(LocalIndexProperties config) {
+        if (!StringUtils.hasText(config.getDocumentDirectory())) {
+            throw new IllegalArgumentException("Local index document directory must be configured");
+        }
+        this.config = config;
+        this.documentRoot = Paths.get(config.getDocumentDirectory()).toAbsolutePath().normalize();
+        this.indexDirectory = StringUtils.hasText(config.getIndexDirectory())
+                ? Paths.get(config.getIndexDirectory()).toAbsolutePath().normalize()
+                : documentRoot.resolve(DEFAULT_INDEX_DIRECTORY);
+        for (String extension : config.getIncludeExtensions()) {
+            extensions.add(extension.toLowerCase(Locale.ROOT));
+        }
+        try {
+            this.index = LocalInvertedIndex.open(indexDirectory, config.getMaxSegments());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open local index: " + indexDirectory, e);
+        }
+
+        logger.info("LocalIndexSearchProvider#init - reason=本地索引初始化完成, documentRoot={}, indexDirectory={}, documents={}",
+                documentRoot, indexDirectory, index.documentCount());
+    }
+
+    @Override
+    public boolean supports(SearchSourceType type) {
+        return config.getSourceType() == type;
+    }
+
+    @Override
+    public List<SearchResultItem> search(SearchRequest request) {
+        List<SearchResultItem> results = new ArrayList<>();
+        if (request == null || !StringUtils.hasText(request.getQuery())) {
+            return results;
+        }
+        int topK = request.getPerSourceTopK().getOrDefault(config.getSourceType(), request.getTopK());
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenize(request.getQuery())));
+
+        for (LocalInvertedIndex.Hit hit : index.search(terms, topK)) {
+            results.add(toItem(hit, terms));
+        }
+        logger.debug("LocalIndexSearchProvider#search - reason=本地索引检索完成, query={}, results={}",
+                request.getQuery(), results.size());
+        return results;
+    }
+
+    @Override
+    public String getName() {
+        return "LocalIndexSearchProvider";
+    }
+
+    /**
+     * 扫描文档目录并增量更新索引：新增或修改的文件重新索引，已删除的文件移出索引
+     *
+     * @return 本次更新的统计
+     */
+    public synchronized RefreshResult refresh() throws IOException {
+        long start = System.nanoTime();
+        Map<String, LocalInvertedIndex.DocumentState> indexed = index.documentStates();
+        Set<String> seen = new HashSet<>();
+        List<ChangedFile> changed = new ArrayList<>();
+
+        Files.walkFileTree(documentRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(documentRoot)
+                        && (dir.equals(indexDirectory) || dir.getFileName().toString().startsWith("."))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile() || attrs.size() > config.getMaxFileBytes() || !isIncluded(file)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String path = relativePath(file);
+                long modifiedTime = attrs.lastModifiedTime().toMillis();
+                seen.add(path);
+                LocalInvertedIndex.DocumentState state = indexed.get(path);
+                if (state == null || state.modifiedTime() != modifiedTime || state.size() != attrs.size()) {
+                    changed.add(new ChangedFile(path, file, modifiedTime, attrs.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                logger.debug("LocalIndexSearchProvider#refresh - reason=跳过无法访问的文件, file={}, error={}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        List<String> removed = new ArrayList<>();
+        for (String path : indexed.keySet()) {
+            if (!seen.contains(path)) {
+                removed.add(path);
+            }
+        }
+
+        // 新文件按批写成段，避免一次性把整个目录的倒排表放在内存中
+        int indexedCount = 0;
+        changed.sort(Comparator.comparing(ChangedFile::path));
+        int from = 0;
+        do {
+            List<LocalInvertedIndex.IndexedDocument> batch = new ArrayList<>();
+            for (ChangedFile file : changed.subList(from, Math.min(changed.size(), from + MAX_DOCUMENTS_PER_SEGMENT))) {
+                LocalInvertedIndex.IndexedDocument document = readDocument(file);
+                if (document != null) {
+                    batch.add(document);
+                }
+            }
+            index.apply(batch, from == 0 ? removed : List.of());
+            indexedCount += batch.size();
+            from += MAX_DOCUMENTS_PER_SEGMENT;
+        } while (from < changed.size());
+
+        RefreshResult result = new RefreshResult(indexedCount, removed.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (indexedCount > 0 || !removed.isEmpty()) {
+            logger.info("LocalIndexSearchProvider#refresh - reason=本地索引增量更新完成, indexed={}, removed={}, documents={}, segments={}, durationMs={}",
+                    result.indexed(), result.removed(), index.documentCount(), index.segmentCount(), result.durationMs());
+        }
+        return result;
+    }
+
+    /**
+     * 当前索引中的文档数
+     */
+    public int documentCount() {
+        return index.documentCount();
+    }
+
+    /**
+     * 当前索引段数
+     */
+    public int segmentCount() {
+        return index.segmentCount();
+    }
+
+    /**
+     * 启动后台扫描线程，scanIntervalMs 为负数时不启动
+     */
+    @Override
+    public void start() {
+        long interval = config.getScanIntervalMs();
+        synchronized (lifecycleLock) {
+            if (scanner != null || interval < 0) {
+                return;
+            }
+            scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "local-index-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (interval > 0) {
+                scanner.scheduleWithFixedDelay(this::refreshQuietly, 0, interval, TimeUnit.MILLISECONDS);
+            } else {
+                scanner.execute(this::refreshQuietly);
+            }
+        }
+        logger.info("LocalIndexSearchProvider#start - reason=本地索引扫描线程已启动, scanIntervalMs={}", interval);
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lifecycleLock) {
+            if (scanner == null) {
+                return;
+            }
+            scanner.shutdown();
+            try {
+                if (!scanner.awaitTermination(5, TimeUnit.SECONDS)) {
+                    scanner.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                scanner.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            scanner = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        synchronized (lifecycleLock) {
+            return scanner != null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("LocalIndexSearchProvider#refreshQuietly - reason=本地索引扫描失败, documentRoot={}", documentRoot, e);
+        }
+    }
+
+    private SearchResultItem toItem(LocalInvertedIndex.Hit hit, List<String> terms) {
+        Path file = documentRoot.resolve(hit.path());
+        String text = hit.text();
+        SearchResultItem item = new SearchResultItem();
+        item.setId(hit.path());
+        item.setSourceType(config.getSourceType());
+        item.setTitle(hit.title());
+        item.setSnippet(extractSnippet(text, terms, config.getSnippetChars()));
+        item.setContent(truncate(text, config.getMaxContentChars()));
+        item.setUri(file.toUri().toString());
+        item.setScore(hit.score());
+        item.getMetadata().setSourceName(getName());
+        item.getMetadata().setLanguage(extension(file));
+        item.getMetadata().setUpdatedAt(hit.modifiedTime());
+        item.getMetadata().getExtensions().put("path", hit.path());
+        return item;
+    }
+
+    private LocalInvertedIndex.IndexedDocument readDocument(ChangedFile file) {
+        String text;
+        try {
+            text = readText(Files.readAllBytes(file.file()));
+        } catch (IOException e) {
+            // 本次跳过，索引中的状态与文件不一致，下次扫描会重试
+            logger.warn("LocalIndexSearchProvider#readDocument - reason=读取文件失败, path={}, error={}", file.path(), e.getMessage());
+            return null;
+        }
+
+        String title = title(text, file.file());
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String source : List.of(title, text)) {
+            for (String token : TextTokenizer.tokenize(source)) {
+                termFrequencies.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+        return new LocalInvertedIndex.IndexedDocument(file.path(), file.modifiedTime(), file.size(), title,
+                termFrequencies, length, truncate(text, config.getStoredTextChars()));
+    }
+
+    /**
+     * 截取覆盖查询词最多的片段：在所有命中位置上滑动窗口，先比较窗口内不同查询词的个数，再比较命中次数
+     */
+    static String extractSnippet(String text, Collection<String> terms, int maxChars) {
+        if (text.isEmpty() || maxChars <= 0) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (lower.length() != text.length()) {
+            // 大小写转换改变了长度时，偏移无法对应原文，退化为区分大小写匹配
+            lower = text;
+        }
+
+        List<int[]> matches = new ArrayList<>();
+        int termIndex = 0;
+        for (String term : terms) {
+            int from = 0;
+            int count = 0;
+            while (count < MAX_MATCHES_PER_TERM && (from = lower.indexOf(term, from)) >= 0) {
+                matches.add(new int[]{from, termIndex});
+                from += term.length();
+                count++;
+            }
+            termIndex++;
+        }
+
+        int start = 0;
+        if (!matches.isEmpty()) {
+            matches.sort(Comparator.comparingInt(match -> match[0]));
+            int window = maxChars * 3 / 4;
+            int[] termCounts = new int[terms.size()];
+            int distinct = 0;
+            int bestDistinct = 0;
+            int bestHits = 0;
+            int bestOffset = matches.get(0)[0];
+            int left = 0;
+            for (int right = 0; right < matches.size(); right++) {
+                if (termCounts[matches.get(right)[1]]++ == 0) {
+                    distinct++;
+                }
+                while (matches.get(right)[0] - matches.get(left)[0] > window) {
+                    if (--termCounts[matches.get(left)[1]] == 0) {
+                        distinct--;
+                    }
+                    left++;
+                }
+                int hits = right - left + 1;
+                if (distinct > bestDistinct || (distinct == bestDistinct && hits > bestHits)) {
+                    bestDistinct = distinct;
+                    bestHits = hits;
+                    bestOffset = matches.get(left)[0];
+                }
+            }
+            // 窗口尽量填满：靠近结尾时向前扩展
+            start = Math.max(0, Math.min(bestOffset - maxChars / 8, text.length() - maxChars));
+        }
+
+        int end = Math.min(text.length(), start + maxChars);
+        if (start > 0 && Character.isLowSurrogate(text.charAt(start))) {
+            start++;
+        }
+        if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        String snippet = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "..." : "") + snippet + (end < text.length() ? "..." : "");
+    }
+
+    private static String truncate(String text, int maxChars) {
+        if (maxChars <= 0 || text.length() <= maxChars) {
+            return text;
+        }
+        int end = Character.isHighSurrogate(text.charAt(maxChars - 1)) ? maxChars - 1 : maxChars;
+        return text.substring(0, end) + "...";
+    }
+
+    /**
+     * 文本的首个非空行若为 Markdown 标题则作为标题，否则使用文件名
+     */
+    private static String title(String text, Path file) {
+        for (String line : text.lines().limit(20).toList()) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.startsWith("#")) {
+                String heading = trimmed.replaceFirst("^#+", "").trim();
+                if (!heading.isEmpty()) {
+                    return heading.length() > MAX_TITLE_CHARS ? heading.substring(0, MAX_TITLE_CHARS) : heading;
+                }
+            }
+            break;
+        }
+        return file.getFileName().toString();
+    }
+
+    /**
+     * 二进制文件（开头含NUL字节）按空文本索引，使其不会在每次扫描时被重复读取
+     */
+    private static String readText(byte[] bytes) {
+        int probe = Math.min(bytes.length, BINARY_PROBE_BYTES);
+        for (int i = 0; i < probe; i++) {
+            if (bytes[i] == 0) {
+                return "";
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean isIncluded(Path file) {
+        return extensions.contains(extension(file));
+    }
+
+    private String relativePath(Path file) {
+        return documentRoot.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 一次增量更新的统计
+     *
+     * @param indexed    新增或重新索引的文件数
+     * @param removed    移出索引的文件数
+     * @param durationMs 耗时（毫秒）
+     */
+    public record RefreshResult(int indexed, int removed, long durationMs) {
+    }
+
+    private record ChangedFile(String path, Path file, long modifiedTime, long size) {
+    }
+}
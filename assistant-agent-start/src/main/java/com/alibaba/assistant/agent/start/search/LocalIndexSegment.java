@@ -0,0 +1,361 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 本地索引的不可变段
+ *
+ * <p>一个段文件依次包含：文档表（相对路径、修改时间、大小、词数、标题、原文偏移与长度）、按字典序排列的词典
+ * （词、文档频率、倒排表偏移）、倒排表（文档号差值与词频的变长整数编码）以及各文档保存的原文（UTF-8）。
+ * 段写入临时文件并 fsync 后原子改名，打开时以只读方式映射到内存：文档表与词典常驻堆内，倒排表与原文按需从映射区读取。
+ * 段一旦写出不再修改，文档的删除记录在清单中。
+ *
+ * @author Assistant Agent Team
+ */
+final class LocalIndexSegment {
+
+    private static final int MAGIC = 0x4C495332;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final String[] paths;
+    private final long[] modifiedTimes;
+    private final long[] sizes;
+    private final int[] lengths;
+    private final String[] titles;
+    private final int[] storedOffsets;
+    private final int[] storedLengths;
+    private final String[] terms;
+    private final int[] documentFrequencies;
+    private final int[] postingOffsets;
+
+    private LocalIndexSegment(Path file, MappedByteBuffer buffer, String[] paths, long[] modifiedTimes, long[] sizes,
+                              int[] lengths, String[] titles, int[] storedOffsets, int[] storedLengths,
+                              String[] terms, int[] documentFrequencies, int[] postingOffsets) {
+        this.file = file;
+        this.buffer = buffer;
+        this.paths = paths;
+        this.modifiedTimes = modifiedTimes;
+        this.sizes = sizes;
+        this.lengths = lengths;
+        this.titles = titles;
+        this.storedOffsets = storedOffsets;
+        this.storedLengths = storedLengths;
+        this.terms = terms;
+        this.documentFrequencies = documentFrequencies;
+        this.postingOffsets = postingOffsets;
+    }
+
+    /**
+     * 映射并解析段文件
+     */
+    static LocalIndexSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a local index segment: " + file);
+        }
+
+        int docCount = buffer.getInt();
+        String[] paths = new String[docCount];
+        long[] modifiedTimes = new long[docCount];
+        long[] sizes = new long[docCount];
+        int[] lengths = new int[docCount];
+        String[] titles = new String[docCount];
+        int[] storedOffsets = new int[docCount];
+        int[] storedLengths = new int[docCount];
+        for (int doc = 0; doc < docCount; doc++) {
+            paths[doc] = readString(buffer);
+            modifiedTimes[doc] = buffer.getLong();
+            sizes[doc] = buffer.getLong();
+            lengths[doc] = buffer.getInt();
+            titles[doc] = readString(buffer);
+            storedOffsets[doc] = buffer.getInt();
+            storedLengths[doc] = buffer.getInt();
+        }
+
+        int termCount = buffer.getInt();
+        String[] terms = new String[termCount];
+        int[] documentFrequencies = new int[termCount];
+        int[] postingOffsets = new int[termCount];
+        for (int t = 0; t < termCount; t++) {
+            terms[t] = readString(buffer);
+            documentFrequencies[t] = buffer.getInt();
+            postingOffsets[t] = buffer.getInt();
+        }
+        int postingsLength = buffer.getInt();
+        int postingsStart = buffer.position();
+        for (int t = 0; t < termCount; t++) {
+            postingOffsets[t] += postingsStart;
+        }
+        int storedStart = postingsStart + postingsLength;
+        for (int doc = 0; doc < docCount; doc++) {
+            storedOffsets[doc] += storedStart;
+        }
+
+        return new LocalIndexSegment(file, buffer, paths, modifiedTimes, sizes, lengths, titles, storedOffsets,
+                storedLengths, terms, documentFrequencies, postingOffsets);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int docCount() {
+        return paths.length;
+    }
+
+    String path(int doc) {
+        return paths[doc];
+    }
+
+    long modifiedTime(int doc) {
+        return modifiedTimes[doc];
+    }
+
+    long size(int doc) {
+        return sizes[doc];
+    }
+
+    int length(int doc) {
+        return lengths[doc];
+    }
+
+    String title(int doc) {
+        return titles[doc];
+    }
+
+    /**
+     * 文档保存在段内的原文（可能已按上限截断）
+     */
+    String storedText(int doc) {
+        byte[] bytes = new byte[storedLengths[doc]];
+        buffer.get(storedOffsets[doc], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 把文档原文的字节原样写出，合并段时无需解码
+     */
+    private void copyStoredText(int doc, OutputStream out) throws IOException {
+        byte[] bytes = new byte[storedLengths[doc]];
+        buffer.get(storedOffsets[doc], bytes);
+        out.write(bytes);
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    String term(int termIndex) {
+        return terms[termIndex];
+    }
+
+    /**
+     * 词在词典中的下标，不存在时返回负数
+     */
+    int termIndex(String term) {
+        return Arrays.binarySearch(terms, term);
+    }
+
+    /**
+     * 解码一个词的倒排表，按文档号升序回调
+     */
+    void forEachPosting(int termIndex, PostingConsumer consumer) {
+        int[] position = {postingOffsets[termIndex]};
+        int doc = 0;
+        for (int i = 0; i < documentFrequencies[termIndex]; i++) {
+            doc += readVarInt(buffer, position);
+            consumer.accept(doc, readVarInt(buffer, position));
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int doc, int termFrequency);
+    }
+
+    /**
+     * 段构建器：文档按加入顺序编号，倒排表随之有序
+     */
+    static final class Builder {
+
+        private final List<DocumentEntry> documents = new ArrayList<>();
+        private final TreeMap<String, IntList> postings = new TreeMap<>();
+
+        int docCount() {
+            return documents.size();
+        }
+
+        void add(String path, long modifiedTime, long size, String title, int length, String storedText,
+                 Map<String, Integer> termFrequencies) {
+            byte[] stored = storedText.getBytes(StandardCharsets.UTF_8);
+            documents.add(new DocumentEntry(path, modifiedTime, size, length, title, stored.length, stored, null, -1));
+            int doc = documents.size() - 1;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                addPosting(entry.getKey(), doc, entry.getValue());
+            }
+        }
+
+        /**
+         * 从已有段复制一篇文档，原文在写出时才从源段的映射区拷贝
+         */
+        int addDocument(LocalIndexSegment source, int sourceDoc) {
+            documents.add(new DocumentEntry(source.path(sourceDoc), source.modifiedTime(sourceDoc),
+                    source.size(sourceDoc), source.length(sourceDoc), source.title(sourceDoc),
+                    source.storedLengths[sourceDoc], null, source, sourceDoc));
+            return documents.size() - 1;
+        }
+
+        /**
+         * 追加倒排项，同一个词的文档号必须递增
+         */
+        void addPosting(String term, int doc, int termFrequency) {
+            IntList list = postings.computeIfAbsent(term, k -> new IntList());
+            list.add(doc);
+            list.add(termFrequency);
+        }
+
+        /**
+         * 写出段文件：先写临时文件并落盘，再原子改名为目标文件
+         */
+        void write(Path target) throws IOException {
+            ByteArrayOutputStream postingBytes = new ByteArrayOutputStream();
+            int[] offsets = new int[postings.size()];
+            int t = 0;
+            for (IntList list : postings.values()) {
+                offsets[t++] = postingBytes.size();
+                int previous = 0;
+                for (int i = 0; i < list.size; i += 2) {
+                    writeVarInt(postingBytes, list.values[i] - previous);
+                    writeVarInt(postingBytes, list.values[i + 1]);
+                    previous = list.values[i];
+                }
+            }
+
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(documents.size());
+                int storedOffset = 0;
+                for (DocumentEntry document : documents) {
+                    writeString(out, document.path());
+                    out.writeLong(document.modifiedTime());
+                    out.writeLong(document.size());
+                    out.writeInt(document.length());
+                    writeString(out, document.title());
+                    out.writeInt(storedOffset);
+                    out.writeInt(document.storedLength());
+                    storedOffset += document.storedLength();
+                }
+                out.writeInt(postings.size());
+                t = 0;
+                for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size / 2);
+                    out.writeInt(offsets[t++]);
+                }
+                out.writeInt(postingBytes.size());
+                postingBytes.writeTo(out);
+                for (DocumentEntry document : documents) {
+                    if (document.stored() != null) {
+                        out.write(document.stored());
+                    } else {
+                        document.source().copyStoredText(document.sourceDoc(), out);
+                    }
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 新文档的原文保存在 stored 中；从已有段复制的文档 stored 为null，写出时从 source 拷贝
+     */
+    private record DocumentEntry(String path, long modifiedTime, long size, int length, String title,
+                                 int storedLength, byte[] stored, LocalIndexSegment source, int sourceDoc) {
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(MappedByteBuffer buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
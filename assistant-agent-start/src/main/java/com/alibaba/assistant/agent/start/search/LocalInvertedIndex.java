@@ -0,0 +1,455 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 基于段的本地倒排索引
+ *
+ * <p>每次增量更新把新增或修改的文档写成一个新段，旧版本与被删除的文档只在清单中标记删除；
+ * 段数超过上限时把所有段的存活文档合并为一个新段。清单（段列表与各段的删除文档号）以临时文件加原子改名的方式提交，
+ * 提交之后才删除被合并或已全部删除的段文件，崩溃后重新打开只会看到上一次提交的状态。
+ *
+ * <p>更新串行执行；查询读取不可变快照，与更新互不阻塞。打分使用 BM25，文档数、平均长度与文档频率只统计存活文档。
+ *
+ * @author Assistant Agent Team
+ */
+final class LocalInvertedIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalInvertedIndex.class);
+
+    static final String MANIFEST_FILE = "segments.manifest";
+
+    private static final int MANIFEST_MAGIC = 0x4C494D31;
+
+    private static final String SEGMENT_PREFIX = "seg-";
+
+    private static final String SEGMENT_SUFFIX = ".lis";
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final Path directory;
+
+    private final int maxSegments;
+
+    private volatile Snapshot snapshot;
+
+    private long generation;
+
+    private int nextSegmentId;
+
+    private LocalInvertedIndex(Path directory, int maxSegments) {
+        this.directory = directory;
+        this.maxSegments = Math.max(1, maxSegments);
+    }
+
+    /**
+     * 打开索引目录，加载最近一次提交的清单，并清理未提交的段文件
+     */
+    static LocalInvertedIndex open(Path directory, int maxSegments) throws IOException {
+        Files.createDirectories(directory);
+        LocalInvertedIndex index = new LocalInvertedIndex(directory, maxSegments);
+        List<SegmentState> segments = index.readManifest();
+        index.deleteUnreferencedFiles(segments);
+        index.snapshot = Snapshot.of(segments);
+        log.info("LocalInvertedIndex#open - reason=index opened, directory={}, segments={}, documents={}",
+                directory, segments.size(), index.snapshot.live().size());
+        return index;
+    }
+
+    /**
+     * 提交一次增量更新：新增或修改的文档写入新段，旧版本与 removedPaths 标记删除
+     *
+     * @param documents    新增或修改的文档
+     * @param removedPaths 已不存在的文档路径
+     */
+    synchronized void apply(List<IndexedDocument> documents, Collection<String> removedPaths) throws IOException {
+        if (documents.isEmpty() && removedPaths.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        List<SegmentState> segments = new ArrayList<>(current.segments().size() + 1);
+        for (SegmentState state : current.segments()) {
+            segments.add(new SegmentState(state.segment(), (BitSet) state.deleted().clone()));
+        }
+        for (String path : removedPaths) {
+            markDeleted(current, segments, path);
+        }
+        for (IndexedDocument document : documents) {
+            markDeleted(current, segments, document.path());
+        }
+
+        if (!documents.isEmpty()) {
+            LocalIndexSegment.Builder builder = new LocalIndexSegment.Builder();
+            for (IndexedDocument document : documents) {
+                builder.add(document.path(), document.modifiedTime(), document.size(), document.title(),
+                        document.length(), document.storedText(), document.termFrequencies());
+            }
+            segments.add(new SegmentState(writeSegment(builder), new BitSet()));
+        }
+
+        List<Path> obsolete = new ArrayList<>();
+        segments.removeIf(state -> {
+            if (state.liveCount() == 0) {
+                obsolete.add(state.segment().file());
+                return true;
+            }
+            return false;
+        });
+        if (segments.size() > maxSegments) {
+            SegmentState merged = merge(segments);
+            segments.forEach(state -> obsolete.add(state.segment().file()));
+            segments = new ArrayList<>(List.of(merged));
+        }
+
+        generation++;
+        writeManifest(segments);
+        snapshot = Snapshot.of(segments);
+        for (Path file : obsolete) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("LocalInvertedIndex#apply - reason=failed to delete obsolete segment, file={}, error={}",
+                        file, e.getMessage());
+            }
+        }
+        log.debug("LocalInvertedIndex#apply - reason=update committed, generation={}, added={}, removed={}, segments={}",
+                generation, documents.size(), removedPaths.size(), segments.size());
+    }
+
+    /**
+     * BM25 检索
+     *
+     * @param terms 去重后的查询词
+     * @param topK  返回条数
+     * @return 按分数降序的命中
+     */
+    List<Hit> search(Collection<String> terms, int topK) {
+        Snapshot current = snapshot;
+        int documentCount = current.live().size();
+        if (documentCount == 0 || terms.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        List<SegmentState> segments = current.segments();
+        double averageLength = Math.max(1.0, (double) current.totalLength() / documentCount);
+        double[][] scores = new double[segments.size()][];
+
+        for (String term : terms) {
+            int[] termIndexes = new int[segments.size()];
+            int[] documentFrequency = {0};
+            for (int s = 0; s < segments.size(); s++) {
+                SegmentState state = segments.get(s);
+                termIndexes[s] = state.segment().termIndex(term);
+                if (termIndexes[s] >= 0) {
+                    state.segment().forEachPosting(termIndexes[s], (doc, tf) -> {
+                        if (!state.deleted().get(doc)) {
+                            documentFrequency[0]++;
+                        }
+                    });
+                }
+            }
+            if (documentFrequency[0] == 0) {
+                continue;
+            }
+
+            double idf = Math.log(1 + (documentCount - documentFrequency[0] + 0.5) / (documentFrequency[0] + 0.5));
+            for (int s = 0; s < segments.size(); s++) {
+                if (termIndexes[s] < 0) {
+                    continue;
+                }
+                SegmentState state = segments.get(s);
+                LocalIndexSegment segment = state.segment();
+                if (scores[s] == null) {
+                    scores[s] = new double[segment.docCount()];
+                }
+                double[] segmentScores = scores[s];
+                segment.forEachPosting(termIndexes[s], (doc, tf) -> {
+                    if (!state.deleted().get(doc)) {
+                        double norm = K1 * (1 - B + B * segment.length(doc) / averageLength);
+                        segmentScores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                    }
+                });
+            }
+        }
+
+        Comparator<Candidate> order = Comparator.comparingDouble(Candidate::score)
+                .thenComparing(Candidate::path, Comparator.reverseOrder());
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(topK + 1, order);
+        for (int s = 0; s < segments.size(); s++) {
+            double[] segmentScores = scores[s];
+            if (segmentScores == null) {
+                continue;
+            }
+            LocalIndexSegment segment = segments.get(s).segment();
+            for (int doc = 0; doc < segmentScores.length; doc++) {
+                if (segmentScores[doc] > 0 && (heap.size() < topK || segmentScores[doc] > heap.peek().score())) {
+                    heap.offer(new Candidate(segment, doc, segmentScores[doc]));
+                    if (heap.size() > topK) {
+                        heap.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> candidates = new ArrayList<>(heap);
+        candidates.sort(order.reversed());
+        // 原文只为最终的 topK 读取
+        List<Hit> hits = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            LocalIndexSegment segment = candidate.segment();
+            int doc = candidate.doc();
+            hits.add(new Hit(segment.path(doc), segment.title(doc), segment.modifiedTime(doc), segment.storedText(doc),
+                    candidate.score()));
+        }
+        return hits;
+    }
+
+    /**
+     * 当前存活文档的路径到修改时间与大小，用于增量扫描比较
+     */
+    Map<String, DocumentState> documentStates() {
+        Snapshot current = snapshot;
+        Map<String, DocumentState> states = new HashMap<>(current.live().size() * 2);
+        for (Map.Entry<String, DocRef> entry : current.live().entrySet()) {
+            LocalIndexSegment segment = current.segments().get(entry.getValue().segment()).segment();
+            int doc = entry.getValue().doc();
+            states.put(entry.getKey(), new DocumentState(segment.modifiedTime(doc), segment.size(doc)));
+        }
+        return states;
+    }
+
+    int documentCount() {
+        return snapshot.live().size();
+    }
+
+    int segmentCount() {
+        return snapshot.segments().size();
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    private static void markDeleted(Snapshot current, List<SegmentState> segments, String path) {
+        DocRef ref = current.live().get(path);
+        if (ref != null) {
+            segments.get(ref.segment()).deleted().set(ref.doc());
+        }
+    }
+
+    /**
+     * 把所有段的存活文档合并为一个段：先按段顺序重新编号文档，再逐段逐词追加倒排项，保证每个词的文档号递增
+     */
+    private SegmentState merge(List<SegmentState> segments) throws IOException {
+        LocalIndexSegment.Builder builder = new LocalIndexSegment.Builder();
+        List<int[]> docMaps = new ArrayList<>(segments.size());
+        for (SegmentState state : segments) {
+            LocalIndexSegment segment = state.segment();
+            int[] docMap = new int[segment.docCount()];
+            for (int doc = 0; doc < docMap.length; doc++) {
+                docMap[doc] = state.deleted().get(doc) ? -1 : builder.addDocument(segment, doc);
+            }
+            docMaps.add(docMap);
+        }
+        for (int s = 0; s < segments.size(); s++) {
+            LocalIndexSegment segment = segments.get(s).segment();
+            int[] docMap = docMaps.get(s);
+            for (int t = 0; t < segment.termCount(); t++) {
+                String term = segment.term(t);
+                segment.forEachPosting(t, (doc, tf) -> {
+                    if (docMap[doc] >= 0) {
+                        builder.addPosting(term, docMap[doc], tf);
+                    }
+                });
+            }
+        }
+        log.info("LocalInvertedIndex#merge - reason=segments merged, segments={}, documents={}",
+                segments.size(), builder.docCount());
+        return new SegmentState(writeSegment(builder), new BitSet());
+    }
+
+    private LocalIndexSegment writeSegment(LocalIndexSegment.Builder builder) throws IOException {
+        Path file = directory.resolve(SEGMENT_PREFIX + nextSegmentId++ + SEGMENT_SUFFIX);
+        builder.write(file);
+        return LocalIndexSegment.open(file);
+    }
+
+    private void writeManifest(List<SegmentState> segments) throws IOException {
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeLong(generation);
+            out.writeInt(nextSegmentId);
+            out.writeInt(segments.size());
+            for (SegmentState state : segments) {
+                out.writeUTF(state.segment().file().getFileName().toString());
+                BitSet deleted = state.deleted();
+                out.writeInt(deleted.cardinality());
+                for (int doc = deleted.nextSetBit(0); doc >= 0; doc = deleted.nextSetBit(doc + 1)) {
+                    out.writeInt(doc);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<SegmentState> readManifest() throws IOException {
+        List<SegmentState> segments = new ArrayList<>();
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return segments;
+        }
+        try (InputStream stream = Files.newInputStream(manifest)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != MANIFEST_MAGIC) {
+                throw new IOException("Not a local index manifest: " + manifest);
+            }
+            generation = in.readLong();
+            nextSegmentId = in.readInt();
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                Path file = directory.resolve(in.readUTF());
+                BitSet deleted = new BitSet();
+                int deletedCount = in.readInt();
+                for (int d = 0; d < deletedCount; d++) {
+                    deleted.set(in.readInt());
+                }
+                try {
+                    segments.add(new SegmentState(LocalIndexSegment.open(file), deleted));
+                } catch (IOException e) {
+                    // 段缺失或损坏时跳过，其中的文档会在下一次扫描时重新索引
+                    log.warn("LocalInvertedIndex#readManifest - reason=failed to open segment, file={}, error={}",
+                            file, e.getMessage());
+                }
+            }
+        }
+        return segments;
+    }
+
+    private void deleteUnreferencedFiles(List<SegmentState> segments) throws IOException {
+        Set<Path> referenced = new HashSet<>();
+        segments.forEach(state -> referenced.add(state.segment().file()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean strayTemp = name.endsWith(".tmp");
+                boolean straySegment = name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                        && !referenced.contains(file);
+                if (strayTemp || straySegment) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 待写入索引的文档
+     *
+     * @param path            相对文档目录的路径
+     * @param termFrequencies 词频
+     * @param length          词数（BM25 文档长度）
+     * @param storedText      保存在段内的原文，查询时用于截取摘要与内容
+     */
+    record IndexedDocument(String path, long modifiedTime, long size, String title,
+                           Map<String, Integer> termFrequencies, int length, String storedText) {
+    }
+
+    record DocumentState(long modifiedTime, long size) {
+    }
+
+    /**
+     * @param text 段内保存的原文
+     */
+    record Hit(String path, String title, long modifiedTime, String text, double score) {
+    }
+
+    private record Candidate(LocalIndexSegment segment, int doc, double score) {
+
+        String path() {
+            return segment.path(doc);
+        }
+    }
+
+    private record SegmentState(LocalIndexSegment segment, BitSet deleted) {
+
+        int liveCount() {
+            return segment.docCount() - deleted.cardinality();
+        }
+    }
+
+    private record DocRef(int segment, int doc) {
+    }
+
+    /**
+     * 不可变的索引视图；同一路径出现在多个段时以后写入的段为准
+     */
+    private record Snapshot(List<SegmentState> segments, Map<String, DocRef> live, long totalLength) {
+
+        static Snapshot of(List<SegmentState> segments) {
+            Map<String, DocRef> live = new HashMap<>();
+            long totalLength = 0;
+            for (int s = 0; s < segments.size(); s++) {
+                SegmentState state = segments.get(s);
+                LocalIndexSegment segment = state.segment();
+                for (int doc = 0; doc < segment.docCount(); doc++) {
+                    if (state.deleted().get(doc)) {
+                        continue;
+                    }
+                    DocRef previous = live.put(segment.path(doc), new DocRef(s, doc));
+                    if (previous != null) {
+                        SegmentState older = segments.get(previous.segment());
+                        older.deleted().set(previous.doc());
+                        totalLength -= older.segment().length(previous.doc());
+                    }
+                    totalLength += segment.length(doc);
+                }
+            }
+            return new Snapshot(List.copyOf(segments), Collections.unmodifiableMap(live), totalLength);
+        }
+    }
+}
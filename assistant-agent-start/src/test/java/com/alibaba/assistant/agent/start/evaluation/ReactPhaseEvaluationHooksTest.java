@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.evaluation;
+
+import com.alibaba.assistant.agent.autoconfigure.evaluation.DefaultEvaluationProperties;
+import com.alibaba.assistant.agent.autoconfigure.evaluation.DefaultEvaluationSuiteConfig;
+import com.alibaba.assistant.agent.evaluation.EvaluationService;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationAutoConfiguration;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationContextFactory;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationProperties;
+import com.alibaba.assistant.agent.extension.evaluation.config.CodeactEvaluationResultAttacher;
+import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingEvaluationHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.InputRoutingReconcileHook;
+import com.alibaba.assistant.agent.extension.evaluation.hook.SpeculativeRoutingCoordinator;
+import com.alibaba.cloud.ai.graph.agent.hook.Hook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * React 阶段评估 Hook 列表装配测试
+ *
+ * @author Assistant Agent Team
+ */
+class ReactPhaseEvaluationHooksTest {
+
+    private final CodeactEvaluationAutoConfiguration autoConfiguration = new CodeactEvaluationAutoConfiguration();
+
+    private final CodeactEvaluationProperties codeactProperties = new CodeactEvaluationProperties();
+
+    private final DefaultEvaluationSuiteConfig suiteConfig =
+            new DefaultEvaluationSuiteConfig(new DefaultEvaluationProperties(), null, null, null);
+
+    private final EvaluationService evaluationService = suiteConfig.evaluationService();
+
+    private final CodeactEvaluationContextFactory contextFactory = autoConfiguration.codeactEvaluationContextFactory();
+
+    private final CodeactEvaluationResultAttacher resultAttacher = autoConfiguration.codeactEvaluationResultAttacher();
+
+    @Test
+    @DisplayName("开启推测路由时，对齐 Hook 紧跟路由 Hook 注册到 React Hook 列表")
+    void speculation_shouldRegisterReconcileHookRightAfterRoutingHook() {
+        SpeculativeRoutingCoordinator coordinator = autoConfiguration.speculativeRoutingCoordinator(codeactProperties);
+        InputRoutingEvaluationHook routingHook = autoConfiguration.inputRoutingEvaluationHook(
+                evaluationService, contextFactory, resultAttacher, codeactProperties, providerOf(coordinator));
+        InputRoutingReconcileHook reconcileHook = autoConfiguration.inputRoutingReconcileHook(routingHook, coordinator);
+
+        List<Hook> hooks = suiteConfig.reactPhaseEvaluationHooks(
+                evaluationService, contextFactory, resultAttacher, null, routingHook, reconcileHook, coordinator);
+
+        assertSame(routingHook, hooks.get(0));
+        assertSame(reconcileHook, hooks.get(1));
+        assertEquals(1, hooks.stream().filter(hook -> hook instanceof InputRoutingReconcileHook).count());
+    }
+
+    @Test
+    @DisplayName("未开启推测路由时，只注册路由 Hook")
+    void routingOnly_shouldNotRegisterReconcileHook() {
+        InputRoutingEvaluationHook routingHook = autoConfiguration.inputRoutingEvaluationHook(
+                evaluationService, contextFactory, resultAttacher, codeactProperties, providerOf(null));
+
+        List<Hook> hooks = suiteConfig.reactPhaseEvaluationHooks(
+                evaluationService, contextFactory, resultAttacher, null, routingHook, null, null);
+
+        assertSame(routingHook, hooks.get(0));
+        assertTrue(hooks.stream().noneMatch(hook -> hook instanceof InputRoutingReconcileHook));
+    }
+
+    @Test
+    @DisplayName("未开启输入路由时，不注册任何路由 Hook")
+    void routingDisabled_shouldKeepDefaultHooks() {
+        List<Hook> hooks = suiteConfig.reactPhaseEvaluationHooks(
+                evaluationService, contextFactory, resultAttacher, null, null, null, null);
+
+        assertTrue(hooks.stream().noneMatch(hook -> hook instanceof InputRoutingEvaluationHook
+                || hook instanceof InputRoutingReconcileHook));
+    }
+
+    private static ObjectProvider<SpeculativeRoutingCoordinator> providerOf(SpeculativeRoutingCoordinator coordinator) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        if (coordinator != null) {
+            beanFactory.addBean("speculativeRoutingCoordinator", coordinator);
+        }
+        return beanFactory.getBeanProvider(SpeculativeRoutingCoordinator.class);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.assistant.agent.start.search;
+
+import com.alibaba.assistant.agent.extension.search.model.SearchRequest;
+import com.alibaba.assistant.agent.extension.search.model.SearchResultItem;
+import com.alibaba.assistant.agent.extension.search.model.SearchSourceType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalIndexSearchProvider 单元测试
+ *
+ * @author Assistant Agent Team
+ */
+class LocalIndexSearchProviderTest {
+
+    @TempDir
+    Path documents;
+
+    @Test
+    @DisplayName("BM25排序 - 标题与高频命中的文档排在前面，摘要覆盖查询词")
+    void testSearch_shouldRankByBm25AndExtractSnippet() throws IOException {
+        write("gray.md", "# 灰度发布最佳实践\n\n" + "背景介绍。".repeat(100)
+                + "灰度发布通过逐步放量降低风险，先在预发环境验证，再小流量灰度。\n" + "附录。".repeat(100));
+        write("codeact.md", "# Codeact 架构\n\n发布流程中会用到灰度能力，但本文主要介绍智能体架构。");
+        write("notes/retry.txt", "Retry policy: exponential backoff with jitter for transient failures.");
+        write("image.png", "not indexed");
+
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config(8))) {
+            LocalIndexSearchProvider.RefreshResult result = provider.refresh();
+            assertEquals(3, result.indexed());
+            assertEquals(3, provider.documentCount());
+
+            List<SearchResultItem> results = provider.search(request("灰度发布", 5));
+            assertEquals(2, results.size());
+            SearchResultItem first = results.get(0);
+            assertEquals("gray.md", first.getId());
+            assertEquals("灰度发布最佳实践", first.getTitle());
+            assertEquals(SearchSourceType.KNOWLEDGE, first.getSourceType());
+            assertTrue(first.getScore() > results.get(1).getScore());
+            assertTrue(first.getSnippet().contains("灰度发布通过逐步放量"), first.getSnippet());
+            assertTrue(first.getSnippet().length() <= 80 + 6);
+            assertEquals("md", first.getMetadata().getLanguage());
+
+            List<SearchResultItem> retry = provider.search(request("BACKOFF jitter", 5));
+            assertEquals("notes/retry.txt", retry.get(0).getId());
+            assertTrue(retry.get(0).getSnippet().contains("exponential backoff with jitter"));
+            assertTrue(provider.search(request("不存在的词汇", 5)).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("增量更新 - 只重新索引修改的文件，删除的文件移出索引，重启后无需重建")
+    void testRefresh_shouldIndexIncrementallyAndSurviveReopen() throws IOException {
+        write("a.md", "# Alpha\n\nconnection pool sizing");
+        write("b.md", "# Beta\n\ncache eviction policy");
+        write("c.md", "# Gamma\n\nthread dump analysis");
+
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config(8))) {
+            assertEquals(3, provider.refresh().indexed());
+            assertEquals(0, provider.refresh().indexed());
+
+            write("a.md", "# Alpha\n\nretry storm mitigation");
+            Files.setLastModifiedTime(documents.resolve("a.md"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            Files.delete(documents.resolve("b.md"));
+            write("d.md", "# Delta\n\ncache warmup");
+
+            LocalIndexSearchProvider.RefreshResult result = provider.refresh();
+            assertEquals(2, result.indexed());
+            assertEquals(1, result.removed());
+            assertEquals(3, provider.documentCount());
+            assertTrue(provider.search(request("connection pool", 5)).isEmpty());
+            assertEquals("a.md", provider.search(request("retry storm", 5)).get(0).getId());
+            assertEquals(List.of("d.md"), ids(provider.search(request("cache", 5))));
+        }
+
+        try (LocalIndexSearchProvider reopened = new LocalIndexSearchProvider(config(8))) {
+            assertEquals(3, reopened.documentCount());
+            assertEquals("c.md", reopened.search(request("thread dump", 5)).get(0).getId());
+            assertEquals(0, reopened.refresh().indexed());
+        }
+    }
+
+    @Test
+    @DisplayName("段内原文 - 摘要与内容来自索引，源文件删除后到下次扫描前仍可返回；合并段保留原文")
+    void testSearch_shouldServeSnippetFromStoredText() throws IOException {
+        write("ops.md", "# 运维手册\n\n" + "前言。".repeat(50) + "熔断阈值按错误率设置。" + "结尾。".repeat(50));
+        write("other.md", "# Other\n\nunrelated");
+
+        LocalIndexProperties config = config(1);
+        config.setStoredTextChars(200);
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config)) {
+            provider.refresh();
+            write("more.md", "# More\n\nsecond segment forces a merge");
+            provider.refresh();
+            assertEquals(1, provider.segmentCount());
+
+            Files.delete(documents.resolve("ops.md"));
+            SearchResultItem item = provider.search(request("熔断阈值", 5)).get(0);
+            assertEquals("ops.md", item.getId());
+            assertTrue(item.getSnippet().contains("熔断阈值按错误率设置"), item.getSnippet());
+            // 保存的原文按上限截断
+            assertEquals(203, item.getContent().length());
+            assertTrue(item.getContent().endsWith("..."));
+        }
+    }
+
+    @Test
+    @DisplayName("段合并 - 段数超过上限时合并，旧段文件被删除且结果不变")
+    void testRefresh_shouldMergeSegments() throws IOException {
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config(2))) {
+            for (int round = 0; round < 5; round++) {
+                write("doc" + round + ".md", "# Doc " + round + "\n\nshared topic round" + round);
+                if (round > 0) {
+                    write("doc0.md", "# Doc 0\n\nshared topic rewritten" + round);
+                    Files.setLastModifiedTime(documents.resolve("doc0.md"), FileTime.fromMillis(1000L * round));
+                }
+                provider.refresh();
+                assertTrue(provider.segmentCount() <= 2);
+            }
+
+            assertEquals(5, provider.documentCount());
+            assertEquals(5, provider.search(request("shared topic", 10)).size());
+            assertEquals(List.of("doc0.md"), ids(provider.search(request("rewritten4", 10))));
+            assertTrue(provider.search(request("rewritten3", 10)).isEmpty());
+            try (Stream<Path> files = Files.list(documents.resolve(".assistant-index"))) {
+                long segmentFiles = files.filter(file -> file.getFileName().toString().endsWith(".lis")).count();
+                assertEquals(provider.segmentCount(), segmentFiles);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("生成语料 - 每篇文档的唯一词都能检索到该文档")
+    void testSearch_onGeneratedCorpus() throws IOException {
+        Random random = new Random(42);
+        String[] vocabulary = new String[2000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "word" + i;
+        }
+        int documentCount = 3000;
+        for (int d = 0; d < documentCount; d++) {
+            StringBuilder text = new StringBuilder("# Document ").append(d).append("\n\n");
+            for (int w = 0; w < 150; w++) {
+                text.append(vocabulary[(int) Math.abs(random.nextGaussian() * 300) % vocabulary.length]).append(' ');
+            }
+            text.append("marker").append(d).append(' ').append("检索语料");
+            write("corpus/" + (d % 10) + "/doc" + d + ".md", text.toString());
+        }
+
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config(8))) {
+            assertEquals(documentCount, provider.refresh().indexed());
+            assertEquals(documentCount, provider.documentCount());
+
+            for (int d = 0; d < documentCount; d += 97) {
+                List<SearchResultItem> results = provider.search(request("marker" + d + " word1 word2", 10));
+                assertEquals("corpus/" + (d % 10) + "/doc" + d + ".md", results.get(0).getId());
+                assertEquals(10, results.size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("生命周期 - 构造时不启动扫描线程，start 后扫描，stop 后停止")
+    void testLifecycle_shouldScanOnlyAfterStart() throws IOException, InterruptedException {
+        write("gray.md", "# 灰度发布\n\n灰度发布通过逐步放量降低风险。");
+        LocalIndexProperties config = config(8);
+        config.setScanIntervalMs(0);
+
+        try (LocalIndexSearchProvider provider = new LocalIndexSearchProvider(config)) {
+            assertFalse(provider.isRunning());
+            Thread.sleep(100);
+            assertEquals(0, provider.documentCount());
+
+            provider.start();
+            assertTrue(provider.isRunning());
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (provider.documentCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, provider.documentCount());
+
+            provider.stop();
+            assertFalse(provider.isRunning());
+        }
+    }
+
+    private LocalIndexProperties config(int maxSegments) {
+        LocalIndexProperties config = new LocalIndexProperties();
+        config.setEnabled(true);
+        config.setDocumentDirectory(documents.toString());
+        config.setScanIntervalMs(-1);
+        config.setMaxSegments(maxSegments);
+        config.setSnippetChars(80);
+        return config;
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = documents.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static SearchRequest request(String query, int topK) {
+        SearchRequest request = new SearchRequest(query);
+        request.setTopK(topK);
+        return request;
+    }
+
+    private static List<String> ids(List<SearchResultItem> items) {
+        List<String> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.getId()));
+        return ids;
+    }
+}